@@ -7,6 +7,8 @@ import com.nike.fastbreak.exception.CircuitBreakerOpenException;
 import com.nike.riposte.server.channelpipeline.ChannelAttributes;
 import com.nike.riposte.server.config.distributedtracing.SpanNamingAndTaggingStrategy;
 import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.RequestDeadline;
+import com.nike.riposte.server.http.RequestInfo;
 import com.nike.wingtips.Span;
 import com.nike.wingtips.Tracer;
 import com.nike.wingtips.http.HttpRequestTracingUtils;
@@ -28,8 +30,12 @@ import java.util.Deque;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.EventLoop;
 import io.netty.handler.codec.http.HttpMethod;
@@ -382,6 +388,11 @@ public class AsyncHttpClientHelper {
    * HttpProcessingState} from the given ctx argument, and then grabs {@link
    * HttpProcessingState#getDistributedTraceStack()} and {@link HttpProcessingState#getLoggerMdcContextMap()} to use
    * as the distributed trace stack and MDC info for the downstream call.
+   * <p/>
+   * If the incoming request has a {@link RequestDeadline} then the downstream call's timeout is shortened to the
+   * time left before the deadline and the time left is passed along to the downstream service (see {@link
+   * #applyRequestDeadlineIfNecessary(RequestBuilderWrapper, RequestInfo)}). The downstream call is also cancelled if
+   * the caller's channel closes before the call finishes.
    */
   public <O> CompletableFuture<O> executeAsyncHttpRequest(
       RequestBuilderWrapper requestBuilderWrapper,
@@ -396,6 +407,7 @@ public class AsyncHttpClientHelper {
     Deque<Span> distributedTraceStack = state.getDistributedTraceStack();
 
     requestBuilderWrapper.setCtx(ctx);
+    applyRequestDeadlineIfNecessary(requestBuilderWrapper, state.getRequestInfo());
 
     return executeAsyncHttpRequest(requestBuilderWrapper, responseHandlerFunction,
         distributedTraceStack,
@@ -456,7 +468,8 @@ public class AsyncHttpClientHelper {
 
       // Execute the downstream call. The completableFutureResponse will be completed or completed exceptionally
       //      depending on the result of the call.
-      requestBuilderWrapper.requestBuilder.execute(asyncCompletionHandler);
+      Future<?> downstreamCallFuture = requestBuilderWrapper.requestBuilder.execute(asyncCompletionHandler);
+      cancelDownstreamCallIfCallerChannelCloses(requestBuilderWrapper, downstreamCallFuture, completableFutureResponse);
     } catch (Throwable t) {
       // Log the error for later debugging, unless it's a CircuitBreakerOpenException, which is expected and
       //      normal when the circuit breaker associated with this request has been tripped.
@@ -473,6 +486,54 @@ public class AsyncHttpClientHelper {
     return completableFutureResponse;
   }
 
+  /**
+   * If the given request has a {@link RequestDeadline} then this shortens the downstream call's request timeout to the
+   * time left before the deadline (if that's shorter than the client's configured request timeout), and passes the
+   * time left before the deadline along to the downstream service in the deadline's {@link
+   * RequestDeadline#getPropagationHeaderName()} header (if it has one). The header value is the same one {@link
+   * com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient} sends - see {@link
+   * RequestDeadline#propagationHeaderValue()}.
+   */
+  protected void applyRequestDeadlineIfNecessary(
+      RequestBuilderWrapper requestBuilderWrapper,
+      RequestInfo<?> requestInfo) {
+    RequestDeadline deadline = (requestInfo == null) ? null : requestInfo.getDeadline();
+    if (deadline == null || requestBuilderWrapper.requestBuilder == null)
+      return;
+
+    int configuredRequestTimeout = asyncHttpClient.getConfig().getRequestTimeout();
+    long timeoutMillis = deadline.capTimeoutMillis(
+        (configuredRequestTimeout > 0) ? configuredRequestTimeout : Long.MAX_VALUE
+    );
+    requestBuilderWrapper.requestBuilder.setRequestTimeout((int) Math.min(timeoutMillis, Integer.MAX_VALUE));
+
+    String propagationHeaderName = deadline.getPropagationHeaderName();
+    if (propagationHeaderName != null)
+      requestBuilderWrapper.requestBuilder.setHeader(propagationHeaderName, deadline.propagationHeaderValue());
+  }
+
+  /**
+   * Cancels the given downstream call if the channel for the request that triggered it closes before the call
+   * finishes - there's nobody left to use the result. Does nothing if the request builder wrapper doesn't have a
+   * {@link ChannelHandlerContext} (see {@link #executeAsyncHttpRequest(RequestBuilderWrapper, AsyncResponseHandler,
+   * ChannelHandlerContext)}).
+   */
+  protected void cancelDownstreamCallIfCallerChannelCloses(
+      RequestBuilderWrapper requestBuilderWrapper,
+      Future<?> downstreamCallFuture,
+      CompletableFuture<?> completableFutureResponse) {
+    ChannelHandlerContext ctx = requestBuilderWrapper.getCtx();
+    Channel channel = (ctx == null) ? null : ctx.channel();
+    ChannelFuture closeFuture = (channel == null) ? null : channel.closeFuture();
+    if (downstreamCallFuture == null || closeFuture == null)
+      return;
+
+    ChannelFutureListener cancelOnClose = future -> downstreamCallFuture.cancel(true);
+    closeFuture.addListener(cancelOnClose);
+    // Keep-alive channels can live for a long time, so don't leave the listener behind once the call is done.
+    completableFutureResponse.whenComplete((response, error) -> closeFuture.removeListener(cancelOnClose));
+  }
+
   protected Optional<CircuitBreaker<Response>> getCircuitBreaker(
       RequestBuilderWrapper requestBuilderWrapper) {
     if (requestBuilderWrapper.disableCircuitBreaker)
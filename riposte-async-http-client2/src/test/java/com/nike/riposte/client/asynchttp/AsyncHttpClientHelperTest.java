@@ -13,6 +13,8 @@ import com.nike.riposte.client.asynchttp.testutils.ArgCapturingHttpTagAndSpanNam
 import com.nike.riposte.server.channelpipeline.ChannelAttributes;
 import com.nike.riposte.server.config.distributedtracing.SpanNamingAndTaggingStrategy;
 import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.RequestDeadline;
+import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.testutils.Whitebox;
 import com.nike.wingtips.Span;
 import com.nike.wingtips.TraceHeaders;
@@ -49,11 +51,14 @@ import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.EventLoop;
 import io.netty.handler.codec.http.HttpMethod;
@@ -573,6 +578,141 @@ public class AsyncHttpClientHelperTest {
         }
     }
 
+    @Test
+    public void executeAsyncHttpRequest_with_ctx_applies_request_deadline_from_state() {
+        // given
+        RequestBuilderWrapper rbwMock = mock(RequestBuilderWrapper.class);
+        AsyncResponseHandler responseHandlerMock = mock(AsyncResponseHandler.class);
+        doReturn(mock(CompletableFuture.class)).when(helperSpy).executeAsyncHttpRequest(
+            any(RequestBuilderWrapper.class), any(AsyncResponseHandler.class), any(), any()
+        );
+        RequestInfo<?> requestInfoMock = mock(RequestInfo.class);
+        state.setRequestInfo(requestInfoMock);
+
+        // when
+        helperSpy.executeAsyncHttpRequest(rbwMock, responseHandlerMock, ctxMock);
+
+        // then
+        verify(helperSpy).applyRequestDeadlineIfNecessary(rbwMock, requestInfoMock);
+    }
+
+    @DataProvider(value = {
+        "null",
+        "X-Request-Timeout-Millis"
+    }, splitBy = "\\|")
+    @Test
+    public void applyRequestDeadlineIfNecessary_caps_request_timeout_and_propagates_time_left_if_request_has_deadline(
+        String propagationHeaderName
+    ) {
+        // given
+        BoundRequestBuilder reqMock = mock(BoundRequestBuilder.class);
+        RequestBuilderWrapper rbw = new RequestBuilderWrapper(
+            "http://localhost/some/path", "GET", reqMock, Optional.empty(), false
+        );
+        RequestInfo<?> requestInfoMock = mock(RequestInfo.class);
+        RequestDeadline deadline = new RequestDeadline(1000, System.nanoTime(), propagationHeaderName);
+        doReturn(deadline).when(requestInfoMock).getDeadline();
+
+        // when
+        helperSpy.applyRequestDeadlineIfNecessary(rbw, requestInfoMock);
+
+        // then
+        ArgumentCaptor<Integer> timeoutCaptor = ArgumentCaptor.forClass(Integer.class);
+        verify(reqMock).setRequestTimeout(timeoutCaptor.capture());
+        assertThat(timeoutCaptor.getValue()).isBetween(1, 1000);
+        if (propagationHeaderName == null) {
+            verify(reqMock, never()).setHeader(anyString(), anyString());
+        }
+        else {
+            // The header carries the time left before the deadline, the same as StreamingAsyncHttpClient sends.
+            ArgumentCaptor<String> headerValueCaptor = ArgumentCaptor.forClass(String.class);
+            verify(reqMock).setHeader(eq(propagationHeaderName), headerValueCaptor.capture());
+            assertThat(Long.parseLong(headerValueCaptor.getValue())).isBetween(1L, deadline.getTimeoutMillis());
+        }
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    }, splitBy = "\\|")
+    @Test
+    public void applyRequestDeadlineIfNecessary_does_nothing_if_there_is_no_deadline(boolean requestInfoIsNull) {
+        // given
+        BoundRequestBuilder reqMock = mock(BoundRequestBuilder.class);
+        RequestBuilderWrapper rbw = new RequestBuilderWrapper(
+            "http://localhost/some/path", "GET", reqMock, Optional.empty(), false
+        );
+        RequestInfo<?> requestInfoMock = (requestInfoIsNull) ? null : mock(RequestInfo.class);
+
+        // when
+        helperSpy.applyRequestDeadlineIfNecessary(rbw, requestInfoMock);
+
+        // then
+        verifyNoInteractions(reqMock);
+    }
+
+    @Test
+    public void cancelDownstreamCallIfCallerChannelCloses_cancels_call_when_channel_closes_until_call_completes()
+        throws Exception {
+        // given
+        RequestBuilderWrapper rbw = new RequestBuilderWrapper(
+            "http://localhost/some/path", "GET", mock(BoundRequestBuilder.class), Optional.empty(), false
+        );
+        rbw.setCtx(ctxMock);
+        ChannelFuture closeFutureMock = mock(ChannelFuture.class);
+        doReturn(closeFutureMock).when(channelMock).closeFuture();
+        Future<?> downstreamCallFutureMock = mock(Future.class);
+        CompletableFuture<String> completableFutureResponse = new CompletableFuture<>();
+
+        // when
+        helperSpy.cancelDownstreamCallIfCallerChannelCloses(
+            rbw, downstreamCallFutureMock, completableFutureResponse
+        );
+
+        // then
+        ArgumentCaptor<ChannelFutureListener> listenerCaptor = ArgumentCaptor.forClass(ChannelFutureListener.class);
+        verify(closeFutureMock).addListener(listenerCaptor.capture());
+        ChannelFutureListener cancelOnClose = listenerCaptor.getValue();
+        verify(closeFutureMock, never()).removeListener(any());
+
+        // and when
+        cancelOnClose.operationComplete(closeFutureMock);
+
+        // then
+        verify(downstreamCallFutureMock).cancel(true);
+
+        // and when
+        completableFutureResponse.complete("foo");
+
+        // then
+        verify(closeFutureMock).removeListener(cancelOnClose);
+    }
+
+    @DataProvider(value = {
+        "true   |   false",
+        "false  |   true"
+    }, splitBy = "\\|")
+    @Test
+    public void cancelDownstreamCallIfCallerChannelCloses_does_nothing_if_there_is_no_ctx_or_no_downstream_call_future(
+        boolean ctxIsNull, boolean downstreamCallFutureIsNull
+    ) {
+        // given
+        RequestBuilderWrapper rbw = new RequestBuilderWrapper(
+            "http://localhost/some/path", "GET", mock(BoundRequestBuilder.class), Optional.empty(), false
+        );
+        if (!ctxIsNull)
+            rbw.setCtx(ctxMock);
+        ChannelFuture closeFutureMock = mock(ChannelFuture.class);
+        doReturn(closeFutureMock).when(channelMock).closeFuture();
+        Future<?> downstreamCallFutureMock = (downstreamCallFutureIsNull) ? null : mock(Future.class);
+
+        // when
+        helperSpy.cancelDownstreamCallIfCallerChannelCloses(rbw, downstreamCallFutureMock, new CompletableFuture<>());
+
+        // then
+        verifyNoInteractions(closeFutureMock);
+    }
+
     @DataProvider(value = {
         "true",
         "false"
@@ -0,0 +1,80 @@
+package com.nike.riposte.server.componenttest;
+
+import com.nike.riposte.server.componenttest.VerifyEventLoopAffineEndpointComponentTest.EventLoopAffineEndpoint;
+import com.nike.riposte.server.componenttest.VerifyEventLoopAffineEndpointComponentTest.LongRunningTaskExecutorEndpoint;
+import com.nike.riposte.server.testutils.ComponentTestUtils.NettyHttpClientResponse;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import static com.nike.riposte.server.componenttest.VerifyEventLoopAffineEndpointComponentTest.clientBootstrap;
+import static com.nike.riposte.server.componenttest.VerifyEventLoopAffineEndpointComponentTest.executeRequest;
+import static com.nike.riposte.server.componenttest.VerifyEventLoopAffineEndpointComponentTest.serverConfig;
+import static com.nike.riposte.server.testutils.ComponentTestUtils.connectNettyHttpClientToLocalServer;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares per-request latency of an event-loop-affine endpoint and a normal endpoint that uses the {@code
+ * longRunningTaskExecutor}, using the server from {@link VerifyEventLoopAffineEndpointComponentTest}. The numbers are
+ * logged so they can be compared between runs.
+ */
+public class EventLoopAffineEndpointBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventLoopAffineEndpointBenchmark.class);
+
+    private static final int warmupRequests = 2000;
+    private static final int measuredRequests = 10_000;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        VerifyEventLoopAffineEndpointComponentTest.setUpClass();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        VerifyEventLoopAffineEndpointComponentTest.tearDown();
+    }
+
+    @Test
+    public void compare_latency_of_event_loop_affine_and_longRunningTaskExecutor_endpoints() throws Exception {
+        long affineAvgLatencyMicros = measureAvgLatencyMicros(EventLoopAffineEndpoint.MATCHING_PATH);
+        long defaultAvgLatencyMicros = measureAvgLatencyMicros(LongRunningTaskExecutorEndpoint.MATCHING_PATH);
+
+        logger.info(
+            "Event loop affine endpoint comparison - measured_requests={}, affine_avg_latency_micros={}, "
+            + "default_avg_latency_micros={}",
+            measuredRequests, affineAvgLatencyMicros, defaultAvgLatencyMicros
+        );
+    }
+
+    private long measureAvgLatencyMicros(String path) throws Exception {
+        Channel ch = connectNettyHttpClientToLocalServer(clientBootstrap, serverConfig.endpointsPort());
+        try {
+            for (int i = 0; i < warmupRequests; i++) {
+                executeRequest(ch, path);
+            }
+
+            long totalLatencyNanos = 0;
+            for (int i = 0; i < measuredRequests; i++) {
+                long startTimeNanos = System.nanoTime();
+                NettyHttpClientResponse response = executeRequest(ch, path);
+                totalLatencyNanos += System.nanoTime() - startTimeNanos;
+
+                assertThat(response.statusCode).isEqualTo(HttpResponseStatus.OK.code());
+            }
+
+            return TimeUnit.NANOSECONDS.toMicros(totalLatencyNanos / measuredRequests);
+        }
+        finally {
+            ch.close().sync();
+        }
+    }
+}
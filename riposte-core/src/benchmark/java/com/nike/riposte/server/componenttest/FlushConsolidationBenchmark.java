@@ -0,0 +1,99 @@
+package com.nike.riposte.server.componenttest;
+
+import com.nike.riposte.server.componenttest.VerifyFlushConsolidationComponentTest.ManyChunksEndpoint;
+import com.nike.riposte.server.componenttest.VerifyFlushConsolidationComponentTest.ProxyServerTestConfig;
+import com.nike.riposte.server.testutils.ComponentTestUtils.NettyHttpClientResponse;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import static com.nike.riposte.server.componenttest.VerifyFlushConsolidationComponentTest.consolidatedProxyServerConfig;
+import static com.nike.riposte.server.componenttest.VerifyFlushConsolidationComponentTest.executeProxiedCall;
+import static com.nike.riposte.server.componenttest.VerifyFlushConsolidationComponentTest.unconsolidatedProxyServerConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares socket flushes and throughput for chunk-heavy proxied responses with and without flush consolidation,
+ * using the servers from {@link VerifyFlushConsolidationComponentTest}. The numbers are logged so they can be compared
+ * between runs.
+ */
+public class FlushConsolidationBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlushConsolidationBenchmark.class);
+
+    private static final int warmupCalls = 20;
+    private static final int measuredCalls = 100;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        VerifyFlushConsolidationComponentTest.setUpClass();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        VerifyFlushConsolidationComponentTest.tearDown();
+    }
+
+    @Test
+    public void compare_socket_flushes_and_throughput_with_and_without_flush_consolidation() throws Exception {
+        String expectedPayload = ManyChunksEndpoint.expectedPayload();
+
+        // Warm up both servers so the numbers below aren't dominated by class loading and JIT.
+        executeProxiedCalls(unconsolidatedProxyServerConfig, warmupCalls, expectedPayload);
+        executeProxiedCalls(consolidatedProxyServerConfig, warmupCalls, expectedPayload);
+
+        FlushStats unconsolidated =
+            executeProxiedCalls(unconsolidatedProxyServerConfig, measuredCalls, expectedPayload);
+        FlushStats consolidated =
+            executeProxiedCalls(consolidatedProxyServerConfig, measuredCalls, expectedPayload);
+
+        logger.info(
+            "Flush consolidation comparison - chunks_per_response={}, calls={}, unconsolidated_socket_flushes={}, "
+            + "consolidated_socket_flushes={}, unconsolidated_bytes_per_ms={}, consolidated_bytes_per_ms={}",
+            ManyChunksEndpoint.NUM_CHUNKS, measuredCalls, unconsolidated.socketFlushes, consolidated.socketFlushes,
+            unconsolidated.bytesPerMillis(), consolidated.bytesPerMillis()
+        );
+    }
+
+    private static FlushStats executeProxiedCalls(
+        ProxyServerTestConfig proxyServerConfig, int calls, String expectedPayload
+    ) throws Exception {
+        proxyServerConfig.socketFlushCount.set(0);
+        long totalBytes = 0;
+        long startTimeNanos = System.nanoTime();
+
+        for (int i = 0; i < calls; i++) {
+            NettyHttpClientResponse response = executeProxiedCall(proxyServerConfig);
+
+            assertThat(response.statusCode).isEqualTo(HttpResponseStatus.OK.code());
+            assertThat(response.payload).isEqualTo(expectedPayload);
+            totalBytes += response.payload.length();
+        }
+
+        long elapsedNanos = System.nanoTime() - startTimeNanos;
+        return new FlushStats(proxyServerConfig.socketFlushCount.get(), totalBytes, elapsedNanos);
+    }
+
+    private static class FlushStats {
+        final long socketFlushes;
+        final long totalBytes;
+        final long elapsedNanos;
+
+        FlushStats(long socketFlushes, long totalBytes, long elapsedNanos) {
+            this.socketFlushes = socketFlushes;
+            this.totalBytes = totalBytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        long bytesPerMillis() {
+            return totalBytes / Math.max(1, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.nike.riposte.server.componenttest;
+
+import com.nike.riposte.server.componenttest.VerifyProxyRouterHedgingComponentTest.DownstreamEndpoint;
+import com.nike.riposte.server.componenttest.VerifyProxyRouterHedgingComponentTest.HedgedRouterEndpoint;
+import com.nike.riposte.server.componenttest.VerifyProxyRouterHedgingComponentTest.UnhedgedRouterEndpoint;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.nike.riposte.server.componenttest.VerifyProxyRouterHedgingComponentTest.executeProxiedCall;
+import static com.nike.riposte.server.componenttest.VerifyProxyRouterHedgingComponentTest.hedgeDelayMillis;
+import static com.nike.riposte.server.componenttest.VerifyProxyRouterHedgingComponentTest.stalledCallMillis;
+
+/**
+ * Compares the latency of proxied calls whose first downstream attempt stalls, with and without hedging, using the
+ * servers from {@link VerifyProxyRouterHedgingComponentTest}. The numbers are logged so they can be compared between
+ * runs.
+ */
+public class ProxyRouterHedgingBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProxyRouterHedgingBenchmark.class);
+
+    private static final int measuredCalls = 5;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        VerifyProxyRouterHedgingComponentTest.setUpClass();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        VerifyProxyRouterHedgingComponentTest.tearDown();
+    }
+
+    @Test
+    public void compare_latency_of_stalled_calls_with_and_without_hedging() throws Exception {
+        // Warm up so the numbers below aren't dominated by class loading, JIT, and connection setup.
+        executeProxiedCall(HedgedRouterEndpoint.MATCHING_PATH);
+        executeProxiedCall(UnhedgedRouterEndpoint.MATCHING_PATH);
+
+        long hedgedAvgMillis = measureAvgStalledCallMillis(HedgedRouterEndpoint.MATCHING_PATH);
+        long unhedgedAvgMillis = measureAvgStalledCallMillis(UnhedgedRouterEndpoint.MATCHING_PATH);
+
+        logger.info(
+            "Proxy/router hedging comparison - measured_calls={}, hedged_stalled_call_avg_millis={}, "
+            + "unhedged_stalled_call_avg_millis={}, stalled_call_millis={}, hedge_delay_millis={}",
+            measuredCalls, hedgedAvgMillis, unhedgedAvgMillis, stalledCallMillis, hedgeDelayMillis
+        );
+    }
+
+    private static long measureAvgStalledCallMillis(String path) throws Exception {
+        long totalNanos = 0;
+        for (int i = 0; i < measuredCalls; i++) {
+            DownstreamEndpoint.callsToStall.set(1);
+            long startNanos = System.nanoTime();
+            executeProxiedCall(path);
+            totalNanos += System.nanoTime() - startNanos;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(totalNanos / measuredCalls);
+    }
+}
@@ -0,0 +1,125 @@
+package com.nike.riposte.server.componenttest;
+
+import com.nike.riposte.server.componenttest.VerifyProxyRouterWorkerEventLoopSharingComponentTest.DownstreamEndpoint;
+import com.nike.riposte.server.componenttest.VerifyProxyRouterWorkerEventLoopSharingComponentTest.ProxyServerTestConfig;
+import com.nike.riposte.server.testutils.ComponentTestUtils.NettyHttpClientResponse;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import static com.nike.riposte.server.componenttest.VerifyProxyRouterWorkerEventLoopSharingComponentTest.executeProxiedCall;
+import static com.nike.riposte.server.componenttest.VerifyProxyRouterWorkerEventLoopSharingComponentTest.separateEventLoopsProxyServerConfig;
+import static com.nike.riposte.server.componenttest.VerifyProxyRouterWorkerEventLoopSharingComponentTest.sharedEventLoopsProxyServerConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares throughput and average latency of concurrent proxied calls with and without proxy/router worker event loop
+ * sharing, using the servers from {@link VerifyProxyRouterWorkerEventLoopSharingComponentTest}. The numbers are logged
+ * so they can be compared between runs.
+ */
+public class ProxyRouterWorkerEventLoopSharingBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProxyRouterWorkerEventLoopSharingBenchmark.class);
+
+    private static final int concurrentCallers = 8;
+    private static final int warmupCallsPerCaller = 50;
+    private static final int measuredCallsPerCaller = 500;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        VerifyProxyRouterWorkerEventLoopSharingComponentTest.setUpClass();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        VerifyProxyRouterWorkerEventLoopSharingComponentTest.tearDown();
+    }
+
+    @Test
+    public void compare_throughput_and_latency_with_and_without_worker_event_loop_sharing() throws Exception {
+        // Warm up both servers so the numbers below aren't dominated by class loading, JIT, and connection setup.
+        executeProxiedCalls(separateEventLoopsProxyServerConfig, warmupCallsPerCaller);
+        executeProxiedCalls(sharedEventLoopsProxyServerConfig, warmupCallsPerCaller);
+
+        ProxyStats separateEventLoops =
+            executeProxiedCalls(separateEventLoopsProxyServerConfig, measuredCallsPerCaller);
+        ProxyStats sharedEventLoops =
+            executeProxiedCalls(sharedEventLoopsProxyServerConfig, measuredCallsPerCaller);
+
+        logger.info(
+            "Proxy/router worker event loop sharing comparison - concurrent_callers={}, calls_per_caller={}, "
+            + "separate_event_loops_calls_per_sec={}, shared_event_loops_calls_per_sec={}, "
+            + "separate_event_loops_avg_latency_micros={}, shared_event_loops_avg_latency_micros={}",
+            concurrentCallers, measuredCallsPerCaller,
+            separateEventLoops.callsPerSecond(), sharedEventLoops.callsPerSecond(),
+            separateEventLoops.avgLatencyMicros(), sharedEventLoops.avgLatencyMicros()
+        );
+    }
+
+    private static ProxyStats executeProxiedCalls(
+        ProxyServerTestConfig proxyServerConfig, int callsPerCaller
+    ) throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(concurrentCallers);
+        try {
+            List<Future<Long>> callerLatencyNanos = new ArrayList<>();
+            long startTimeNanos = System.nanoTime();
+            for (int i = 0; i < concurrentCallers; i++) {
+                callerLatencyNanos.add(callers.submit(() -> {
+                    long totalLatencyNanos = 0;
+                    for (int call = 0; call < callsPerCaller; call++) {
+                        long callStartNanos = System.nanoTime();
+                        NettyHttpClientResponse response = executeProxiedCall(proxyServerConfig);
+                        totalLatencyNanos += System.nanoTime() - callStartNanos;
+
+                        assertThat(response.statusCode).isEqualTo(HttpResponseStatus.OK.code());
+                        assertThat(response.payload).isEqualTo(DownstreamEndpoint.RESPONSE_PAYLOAD);
+                    }
+                    return totalLatencyNanos;
+                }));
+            }
+
+            long totalLatencyNanos = 0;
+            for (Future<Long> latencyNanos : callerLatencyNanos) {
+                totalLatencyNanos += latencyNanos.get();
+            }
+            long elapsedNanos = System.nanoTime() - startTimeNanos;
+
+            return new ProxyStats(concurrentCallers * callsPerCaller, elapsedNanos, totalLatencyNanos);
+        }
+        finally {
+            callers.shutdownNow();
+        }
+    }
+
+    private static class ProxyStats {
+        final long calls;
+        final long elapsedNanos;
+        final long totalLatencyNanos;
+
+        ProxyStats(long calls, long elapsedNanos, long totalLatencyNanos) {
+            this.calls = calls;
+            this.elapsedNanos = elapsedNanos;
+            this.totalLatencyNanos = totalLatencyNanos;
+        }
+
+        long callsPerSecond() {
+            return calls * 1000 / Math.max(1, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        }
+
+        long avgLatencyMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(totalLatencyNanos / Math.max(1, calls));
+        }
+    }
+}
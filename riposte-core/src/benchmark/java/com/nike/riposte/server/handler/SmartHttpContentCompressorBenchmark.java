@@ -0,0 +1,58 @@
+package com.nike.riposte.server.handler;
+
+import com.nike.riposte.server.handler.SmartHttpContentCompressorTest.CompressedResponse;
+import com.nike.riposte.server.handler.compression.BrotliCompressionEncoder;
+import com.nike.riposte.server.handler.compression.ZstdCompressionEncoder;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+
+import static com.nike.riposte.server.handler.SmartHttpContentCompressorTest.REPRESENTATIVE_JSON_PAYLOAD;
+import static com.nike.riposte.server.handler.SmartHttpContentCompressorTest.compressThroughChannel;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Compares output size and CPU time for each encoding {@link SmartHttpContentCompressor} can negotiate, at its
+ * default level, on a representative JSON payload. Not a rigorous benchmark - the numbers are logged so they can be
+ * compared between runs and payloads, and nothing is asserted about them.
+ */
+public class SmartHttpContentCompressorBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmartHttpContentCompressorBenchmark.class);
+
+    private static final int warmupIterations = 500;
+    private static final int measuredIterations = 2000;
+
+    @Test
+    public void compare_bytes_and_cpu_per_encoding_for_representative_json_payload() {
+        assumeTrue("brotli is not available on this platform", BrotliCompressionEncoder.isAvailable());
+        assumeTrue("zstd is not available on this platform", ZstdCompressionEncoder.isAvailable());
+
+        int rawSize = REPRESENTATIVE_JSON_PAYLOAD.getBytes(StandardCharsets.UTF_8).length;
+        for (String encoding : new String[]{"gzip", "deflate", "br", "zstd"}) {
+            measure(encoding, rawSize);
+        }
+    }
+
+    private void measure(String encoding, int rawSize) {
+        SmartHttpContentCompressor compressor = new SmartHttpContentCompressor(0);
+        CompressedResponse response = null;
+        for (int i = 0; i < warmupIterations; i++) {
+            response = compressThroughChannel(compressor, encoding, REPRESENTATIVE_JSON_PAYLOAD, null);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < measuredIterations; i++) {
+            response = compressThroughChannel(compressor, encoding, REPRESENTATIVE_JSON_PAYLOAD, null);
+        }
+        long avgMicros = (System.nanoTime() - start) / measuredIterations / 1000;
+
+        logger.info("Compression comparison - encoding={}, negotiated_encoding={}, raw_bytes={}, compressed_bytes={}, "
+                    + "ratio={}, avg_micros_per_response={}",
+                    encoding, response.contentEncoding, rawSize, response.body.length,
+                    ((double) response.body.length) / rawSize, avgMicros);
+    }
+}
@@ -0,0 +1,108 @@
+package com.nike.riposte.server.http.filter.ratelimit;
+
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.impl.RequestInfoImpl;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.netty.channel.ChannelHandlerContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Hammers a {@link RateLimitingRequestFilter} with requests for a handful of clients from twice as many threads as
+ * there are CPUs, to see how its lock-free {@link TokenBucketTable} holds up when every worker thread is charging the
+ * same buckets at once. Buckets never refill during the run, so exactly {@code burstCapacity} requests per client must
+ * get through no matter how the threads interleave. The elapsed time and filter calls per second are logged so they
+ * can be compared between machines and changes to the table.
+ */
+public class RateLimitingRequestFilterBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitingRequestFilterBenchmark.class);
+
+    private static final String CLIENT_KEY_ATTRIBUTE_NAME = "clientKey";
+    private static final int numKeys = 16;
+    private static final int burstCapacity = 1000;
+    private static final int attemptsPerThreadPerKey = 2 * burstCapacity;
+
+    @Test
+    public void rate_limiting_filter_never_allows_more_than_burst_capacity_under_contention_from_all_worker_threads()
+        throws Exception {
+        int numThreads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        RateLimitingRequestFilter filter = new RateLimitingRequestFilter(
+            RateLimitKeyExtractor.requestAttribute(CLIENT_KEY_ATTRIBUTE_NAME),
+            new TokenBucketTable(1e-6, burstCapacity, RateLimitingRequestFilter.DEFAULT_TABLE_CAPACITY),
+            RateLimitingRequestFilter.DEFAULT_RATE_LIMITED_API_ERROR
+        );
+        ChannelHandlerContext ctxMock = mock(ChannelHandlerContext.class);
+        RequestInfo<?>[] requests = new RequestInfo<?>[numKeys];
+        LongAdder[] allowedPerKey = new LongAdder[numKeys];
+        for (int k = 0; k < numKeys; k++) {
+            RequestInfo<?> request = RequestInfoImpl.dummyInstanceForUnknownRequests();
+            request.addRequestAttribute(CLIENT_KEY_ATTRIBUTE_NAME, "client-" + k);
+            requests[k] = request;
+            allowedPerKey[k] = new LongAdder();
+        }
+        CyclicBarrier startBarrier = new CyclicBarrier(numThreads + 1);
+        CountDownLatch doneLatch = new CountDownLatch(numThreads);
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+
+        try {
+            for (int t = 0; t < numThreads; t++) {
+                executor.execute(() -> {
+                    try {
+                        startBarrier.await();
+                        for (int i = 0; i < attemptsPerThreadPerKey; i++) {
+                            for (int k = 0; k < numKeys; k++) {
+                                if (filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(
+                                    requests[k], ctxMock
+                                ) == null) {
+                                    allowedPerKey[k].increment();
+                                }
+                            }
+                        }
+                    }
+                    catch (Exception ex) {
+                        throw new RuntimeException(ex);
+                    }
+                    finally {
+                        doneLatch.countDown();
+                    }
+                });
+            }
+
+            startBarrier.await();
+            long startTimeNanos = System.nanoTime();
+            assertThat(doneLatch.await(60, TimeUnit.SECONDS)).isTrue();
+            long elapsedNanos = System.nanoTime() - startTimeNanos;
+
+            long totalCalls = (long) numThreads * attemptsPerThreadPerKey * numKeys;
+            logger.info(
+                "Rate limiting filter contention benchmark - num_threads={}, num_keys={}, burst_capacity={}, "
+                + "total_calls={}, rejected_calls={}, elapsed_millis={}, calls_per_second={}",
+                numThreads, numKeys, burstCapacity, totalCalls, filter.getRejectedCount(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                (long) (totalCalls / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1)))
+            );
+
+            for (int k = 0; k < numKeys; k++) {
+                assertThat(allowedPerKey[k].sum()).isEqualTo(burstCapacity);
+            }
+            assertThat(filter.getRejectedCount()).isEqualTo(totalCalls - ((long) numKeys * burstCapacity));
+            assertThat(filter.getTokenBuckets().getUntrackedCount()).isZero();
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.nike.riposte.util;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares running a burst of concurrent blocking tasks on {@link BlockingTaskExecutors#newBlockingTaskExecutor(int,
+ * int)} vs. a cached thread pool (the default {@code longRunningTaskExecutor}). The elapsed time and number of
+ * platform threads created are logged so they can be compared between runtimes. The cached pool creates a platform
+ * thread per concurrent task, so expect this to be heavy.
+ */
+public class BlockingTaskExecutorsBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlockingTaskExecutorsBenchmark.class);
+
+    private static final int numTasks = 10_000;
+    private static final long blockMillis = 20;
+
+    @Test
+    public void compare_blocking_task_executor_to_cached_thread_pool_for_burst_of_blocking_tasks() throws Exception {
+        // Make room in the platform thread fallback's queue for the whole burst so nothing gets rejected.
+        ExecutorService blockingTaskExecutor = BlockingTaskExecutors.newBlockingTaskExecutor(
+            BlockingTaskExecutors.DEFAULT_PLATFORM_FALLBACK_MAX_THREADS, numTasks
+        );
+        ExecutorService cachedPool = Executors.newCachedThreadPool();
+
+        try {
+            BurstResult blockingTaskExecutorResult = runBurst(blockingTaskExecutor);
+            BurstResult cachedPoolResult = runBurst(cachedPool);
+
+            logger.info(
+                "Blocking task burst comparison - num_tasks={}, block_millis={}, virtual_threads={}, "
+                + "blocking_executor_elapsed_millis={}, blocking_executor_added_platform_threads={}, "
+                + "cached_pool_elapsed_millis={}, cached_pool_added_platform_threads={}",
+                numTasks, blockMillis, BlockingTaskExecutors.isVirtualThreadSupported(),
+                blockingTaskExecutorResult.elapsedMillis, blockingTaskExecutorResult.addedPlatformThreads,
+                cachedPoolResult.elapsedMillis, cachedPoolResult.addedPlatformThreads
+            );
+        }
+        finally {
+            blockingTaskExecutor.shutdownNow();
+            cachedPool.shutdownNow();
+        }
+    }
+
+    private BurstResult runBurst(ExecutorService executor) throws Exception {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        threadMXBean.resetPeakThreadCount();
+        int startingThreadCount = threadMXBean.getThreadCount();
+
+        CountDownLatch latch = new CountDownLatch(numTasks);
+        AtomicInteger completedTasks = new AtomicInteger();
+        long startTimeNanos = System.nanoTime();
+        for (int i = 0; i < numTasks; i++) {
+            executor.execute(() -> {
+                try {
+                    Thread.sleep(blockMillis);
+                    completedTasks.incrementAndGet();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        assertThat(latch.await(5, TimeUnit.MINUTES)).isTrue();
+        assertThat(completedTasks.get()).isEqualTo(numTasks);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTimeNanos);
+        return new BurstResult(elapsedMillis, threadMXBean.getPeakThreadCount() - startingThreadCount);
+    }
+
+    private static class BurstResult {
+        final long elapsedMillis;
+        final int addedPlatformThreads;
+
+        BurstResult(long elapsedMillis, int addedPlatformThreads) {
+            this.elapsedMillis = elapsedMillis;
+            this.addedPlatformThreads = addedPlatformThreads;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.nike.riposte.util;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.channel.DefaultEventLoop;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares scheduling and then cancelling a large number of concurrent request timeouts (the pattern used for the
+ * endpoint response timeout checks) on a {@link TimeoutTimers#newTimeoutTimer()} wheel timer vs. an event loop. The
+ * timings are logged so they can be compared between runs.
+ */
+public class TimeoutTimersBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimeoutTimersBenchmark.class);
+
+    private static final int numTimeouts = 100_000;
+    private static final long timeoutMillis = 60_000;
+
+    @Test
+    public void compare_schedule_and_cancel_of_many_timeouts_on_wheel_timer_and_event_loop() throws Exception {
+        HashedWheelTimer timer = TimeoutTimers.newTimeoutTimer();
+        DefaultEventLoop eventLoop = new DefaultEventLoop();
+
+        try {
+            List<Timeout> timeouts = new ArrayList<>(numTimeouts);
+            long wheelStartNanos = System.nanoTime();
+            for (int i = 0; i < numTimeouts; i++) {
+                timeouts.add(timer.newTimeout(timeout -> { }, timeoutMillis, TimeUnit.MILLISECONDS));
+            }
+            for (Timeout timeout : timeouts) {
+                timeout.cancel();
+            }
+            long wheelElapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - wheelStartNanos);
+            timeouts.clear();
+
+            List<ScheduledFuture<?>> scheduledFutures = new ArrayList<>(numTimeouts);
+            long eventLoopStartNanos = System.nanoTime();
+            for (int i = 0; i < numTimeouts; i++) {
+                scheduledFutures.add(eventLoop.schedule(() -> { }, timeoutMillis, TimeUnit.MILLISECONDS));
+            }
+            for (ScheduledFuture<?> scheduledFuture : scheduledFutures) {
+                scheduledFuture.cancel(false);
+            }
+            // Cancelling from outside the event loop hands the removal to the event loop, so wait for it to finish.
+            eventLoop.submit(() -> { }).get(30, TimeUnit.SECONDS);
+            long eventLoopElapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - eventLoopStartNanos);
+            scheduledFutures.clear();
+
+            long releaseDeadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (timer.pendingTimeouts() > 0 && System.nanoTime() < releaseDeadlineNanos) {
+                Thread.sleep(TimeoutTimers.DEFAULT_TICK_DURATION_MILLIS);
+            }
+            assertThat(timer.pendingTimeouts()).isZero();
+
+            logger.info(
+                "Timeout schedule+cancel comparison - num_timeouts={}, wheel_timer_elapsed_millis={}, "
+                + "event_loop_elapsed_millis={}",
+                numTimeouts, wheelElapsedMillis, eventLoopElapsedMillis
+            );
+        }
+        finally {
+            timer.stop();
+            eventLoop.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionPoolConfig;
+import com.nike.riposte.server.error.exception.DownstreamConnectionPoolExhaustedException;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.channel.pool.ChannelPoolHandler;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+
+/**
+ * A {@link FixedChannelPool} used by {@link StreamingAsyncHttpClient} for the connections to a single downstream IP
+ * address and port when {@link com.nike.riposte.server.config.ServerConfig#proxyRouterConnectionPoolConfig()} is
+ * set. It never has more than {@link ProxyRouterConnectionPoolConfig#maxConnectionsPerHost()} connections open, and
+ * calls that can't get a connection wait in a queue of at most {@link
+ * ProxyRouterConnectionPoolConfig#maxPendingAcquiresPerHost()} calls for up to {@link
+ * ProxyRouterConnectionPoolConfig#acquireTimeoutMillis()}.
+ *
+ * <p>Acquires that fail because the pool is exhausted (the acquire timed out, or the queue was full) fail with a
+ * {@link DownstreamConnectionPoolExhaustedException} rather than Netty's exceptions, so they turn into a HTTP status
+ * 503 for the caller. Every acquire is reported to the {@link MetricsListener} (if there is one) as a {@link
+ * ServerMetricsEvent#PROXY_ROUTER_CONNECTION_ACQUIRED} or {@link
+ * ServerMetricsEvent#PROXY_ROUTER_CONNECTION_ACQUIRE_REJECTED} event.
+ */
+@SuppressWarnings("WeakerAccess")
+public class BoundedDownstreamChannelPool extends FixedChannelPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(BoundedDownstreamChannelPool.class);
+
+    protected final @NotNull InetSocketAddress downstreamAddress;
+    protected final @NotNull String name;
+    protected final int maxConnections;
+    protected final int maxPendingAcquires;
+    protected final long acquireTimeoutMillis;
+    protected final @NotNull EventLoopGroup eventLoopGroup;
+    protected final @Nullable MetricsListener metricsListener;
+
+    protected final AtomicInteger pendingAcquireCount = new AtomicInteger();
+    protected final LongAdder rejectedAcquireCount = new LongAdder();
+
+    /**
+     * @param bootstrap The bootstrap for creating new connections - its remote address must already be set to {@code
+     * downstreamAddress}.
+     * @param handler The {@link ChannelPoolHandler} for the pool.
+     * @param healthChecker The {@link ChannelHealthChecker} used on connections before they are reused.
+     * @param downstreamAddress The downstream IP address and port this pool connects to.
+     * @param config The limits for this pool.
+     * @param metricsListener The metrics listener to report acquires to - can be null.
+     */
+    public BoundedDownstreamChannelPool(@NotNull Bootstrap bootstrap,
+                                        @NotNull ChannelPoolHandler handler,
+                                        @NotNull ChannelHealthChecker healthChecker,
+                                        @NotNull InetSocketAddress downstreamAddress,
+                                        @NotNull ProxyRouterConnectionPoolConfig config,
+                                        @Nullable MetricsListener metricsListener) {
+        this(
+            bootstrap, handler, healthChecker, downstreamAddress,
+            DownstreamAddressStatsTracker.addressName(downstreamAddress), config, metricsListener
+        );
+    }
+
+    /**
+     * Same as {@link #BoundedDownstreamChannelPool(Bootstrap, ChannelPoolHandler, ChannelHealthChecker,
+     * InetSocketAddress, ProxyRouterConnectionPoolConfig, MetricsListener)}, but with the given pool name rather than
+     * one generated from the downstream address. Useful when there's more than one pool for the same address.
+     *
+     * @param name The name to use for this pool in metrics and errors.
+     */
+    public BoundedDownstreamChannelPool(@NotNull Bootstrap bootstrap,
+                                        @NotNull ChannelPoolHandler handler,
+                                        @NotNull ChannelHealthChecker healthChecker,
+                                        @NotNull InetSocketAddress downstreamAddress,
+                                        @NotNull String name,
+                                        @NotNull ProxyRouterConnectionPoolConfig config,
+                                        @Nullable MetricsListener metricsListener) {
+        super(
+            bootstrap, handler, healthChecker,
+            (config.acquireTimeoutMillis() == -1) ? null : AcquireTimeoutAction.FAIL,
+            config.acquireTimeoutMillis(), config.maxConnectionsPerHost(), config.maxPendingAcquiresPerHost()
+        );
+        this.downstreamAddress = downstreamAddress;
+        this.name = name;
+        this.maxConnections = config.maxConnectionsPerHost();
+        this.maxPendingAcquires = config.maxPendingAcquiresPerHost();
+        this.acquireTimeoutMillis = config.acquireTimeoutMillis();
+        this.eventLoopGroup = bootstrap.config().group();
+        this.metricsListener = metricsListener;
+    }
+
+    @Override
+    public Future<Channel> acquire(Promise<Channel> promise) {
+        long acquireStartNanos = System.nanoTime();
+        pendingAcquireCount.incrementAndGet();
+
+        // The pool gets its own promise so we can see how the acquire turned out before the caller does, and swap
+        //      Netty's pool exhaustion exceptions for one that maps to a 503.
+        Promise<Channel> poolPromise = eventLoopGroup.next().newPromise();
+        poolPromise.addListener(future -> {
+            pendingAcquireCount.decrementAndGet();
+            long acquireNanos = System.nanoTime() - acquireStartNanos;
+
+            if (poolPromise.isSuccess()) {
+                notifyMetricsListener(ServerMetricsEvent.PROXY_ROUTER_CONNECTION_ACQUIRED, acquireNanos);
+                Channel channel = poolPromise.getNow();
+                if (!promise.trySuccess(channel)) {
+                    // The caller isn't waiting on this connection anymore (e.g. the promise was cancelled), so hand
+                    //      it straight back.
+                    release(channel);
+                }
+                return;
+            }
+
+            Throwable cause = poolPromise.cause();
+            // FixedChannelPool fails acquires with a TimeoutException when the acquire timeout is hit, and with an
+            //      IllegalStateException when the pending acquire queue is full (or the pool has been closed).
+            if (cause instanceof TimeoutException || cause instanceof IllegalStateException) {
+                rejectedAcquireCount.increment();
+                notifyMetricsListener(ServerMetricsEvent.PROXY_ROUTER_CONNECTION_ACQUIRE_REJECTED, acquireNanos);
+                cause = new DownstreamConnectionPoolExhaustedException(
+                    name, (cause instanceof TimeoutException), maxConnections, maxPendingAcquires,
+                    acquireTimeoutMillis
+                );
+            }
+            promise.tryFailure(cause);
+        });
+
+        super.acquire(poolPromise);
+        return promise;
+    }
+
+    protected void notifyMetricsListener(@NotNull ServerMetricsEvent event, long acquireNanos) {
+        if (metricsListener == null || !metricsListener.isInterestedIn(event)) {
+            return;
+        }
+
+        try {
+            metricsListener.onEvent(event, new ChannelPoolAcquireMetrics(this, acquireNanos));
+        }
+        catch (Throwable t) {
+            logger.error(
+                "Metrics listener threw an exception while handling a connection pool event. event={}", event, t
+            );
+        }
+    }
+
+    /**
+     * @return The downstream IP address and port this pool connects to.
+     */
+    public @NotNull InetSocketAddress getDownstreamAddress() {
+        return downstreamAddress;
+    }
+
+    /**
+     * @return The name of this pool, in {@code ip:port} format.
+     */
+    public @NotNull String getName() {
+        return name;
+    }
+
+    /**
+     * @return The number of acquires that haven't completed yet - either waiting in the queue for a connection to
+     * free up, or waiting on a new connection to be opened.
+     */
+    public int getPendingAcquireCount() {
+        return pendingAcquireCount.get();
+    }
+
+    /**
+     * @return The total number of acquires rejected because this pool was exhausted.
+     */
+    public long getRejectedAcquireCount() {
+        return rejectedAcquireCount.sum();
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public int getMaxPendingAcquires() {
+        return maxPendingAcquires;
+    }
+
+    public long getAcquireTimeoutMillis() {
+        return acquireTimeoutMillis;
+    }
+}
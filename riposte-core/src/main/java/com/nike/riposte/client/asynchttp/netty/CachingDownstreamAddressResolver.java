@@ -0,0 +1,288 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterDnsResolverConfig;
+import com.nike.riposte.server.error.exception.HostnameResolutionException;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Resolves downstream hostnames for {@link StreamingAsyncHttpClient} when {@link
+ * com.nike.riposte.server.config.ServerConfig#proxyRouterDnsResolverConfig()} is set. The IP addresses for each
+ * hostname are looked up with a non-blocking {@link DownstreamAddressLookup} and cached for their TTL, clamped by
+ * {@link ProxyRouterDnsResolverConfig#minTtlMillis()} and {@link ProxyRouterDnsResolverConfig#maxTtlMillis()}.
+ *
+ * <p>Once {@link #REFRESH_AHEAD_PERCENT} of an entry's TTL has passed, the next call for that hostname kicks off a
+ * lookup in the background while still being served from the cache, so hostnames that are called regularly never make
+ * a call wait on DNS. Only calls for a hostname that isn't cached (or whose entry expired without being refreshed)
+ * wait on a lookup, and concurrent calls for the same hostname share a single lookup.
+ *
+ * <p>Failed lookups are cached for {@link ProxyRouterDnsResolverConfig#negativeTtlMillis()}, so calls to a hostname
+ * that can't be resolved fail right away with a {@link HostnameResolutionException} rather than each sending another
+ * DNS query. A failed background refresh doesn't throw away cached addresses that haven't expired yet.
+ *
+ * <p>When a hostname has multiple IP addresses, each call to {@link #resolve(String, int)} picks one at random - see
+ * {@link StreamingAsyncHttpClient#resolveHostnameToInetSocketAddressWithMultiIpSupport(String, int)} for why.
+ */
+@SuppressWarnings("WeakerAccess")
+public class CachingDownstreamAddressResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingDownstreamAddressResolver.class);
+
+    /**
+     * The percentage of a cache entry's TTL that must pass before it is refreshed in the background.
+     */
+    public static final int REFRESH_AHEAD_PERCENT = 80;
+
+    protected final @NotNull DownstreamAddressLookup lookup;
+    protected final long minTtlNanos;
+    protected final long maxTtlNanos;
+    protected final long negativeTtlNanos;
+    protected final @NotNull LongSupplier nanoTimeSupplier;
+
+    protected final ConcurrentMap<String, CacheEntry> cache = new ConcurrentHashMap<>();
+    protected final ConcurrentMap<String, CompletableFuture<CacheEntry>> inFlightLookups = new ConcurrentHashMap<>();
+
+    public CachingDownstreamAddressResolver(@NotNull DownstreamAddressLookup lookup,
+                                            @NotNull ProxyRouterDnsResolverConfig config) {
+        this(lookup, config, System::nanoTime);
+    }
+
+    public CachingDownstreamAddressResolver(@NotNull DownstreamAddressLookup lookup,
+                                            @NotNull ProxyRouterDnsResolverConfig config,
+                                            @NotNull LongSupplier nanoTimeSupplier) {
+        if (config.minTtlMillis() > config.maxTtlMillis()) {
+            throw new IllegalArgumentException(
+                "minTtlMillis cannot be greater than maxTtlMillis. minTtlMillis=" + config.minTtlMillis()
+                + ", maxTtlMillis=" + config.maxTtlMillis()
+            );
+        }
+
+        this.lookup = lookup;
+        this.minTtlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.minTtlMillis()));
+        this.maxTtlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.maxTtlMillis()));
+        this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.negativeTtlMillis()));
+        this.nanoTimeSupplier = nanoTimeSupplier;
+    }
+
+    /**
+     * @param hostname The hostname to resolve.
+     * @param port The port for the returned address.
+     * @return A future that completes with the address to use for the next call to the given hostname and port, or
+     * completes exceptionally with a {@link HostnameResolutionException} if the hostname can't be resolved. The
+     * future is already complete when the hostname is cached.
+     */
+    public @NotNull CompletableFuture<InetSocketAddress> resolve(@NotNull String hostname, int port) {
+        return getCacheEntry(hostname).thenCompose(entry -> toAddressFuture(entry, hostname, port));
+    }
+
+    /**
+     * Same as {@link #resolve(String, int)}, but the returned future completes with all of the hostname's addresses
+     * so the caller can pick which one to call.
+     */
+    public @NotNull CompletableFuture<List<InetSocketAddress>> resolveAll(@NotNull String hostname, int port) {
+        return getCacheEntry(hostname).thenCompose(entry -> toAllAddressesFuture(entry, hostname, port));
+    }
+
+    /**
+     * @return A future for the cache entry for the given hostname - already complete if the hostname is cached,
+     * otherwise completes once the hostname has been looked up.
+     */
+    protected @NotNull CompletableFuture<CacheEntry> getCacheEntry(@NotNull String hostname) {
+        long nowNanos = nanoTimeSupplier.getAsLong();
+        CacheEntry entry = cache.get(hostname);
+        if (entry != null && !entry.isExpired(nowNanos)) {
+            if (entry.shouldRefresh(nowNanos)) {
+                lookupAndCache(hostname);
+            }
+            return CompletableFuture.completedFuture(entry);
+        }
+
+        return lookupAndCache(hostname);
+    }
+
+    protected @NotNull CompletableFuture<InetSocketAddress> toAddressFuture(@NotNull CacheEntry entry,
+                                                                            @NotNull String hostname,
+                                                                            int port) {
+        CompletableFuture<InetSocketAddress> result = new CompletableFuture<>();
+        if (entry.addresses == null) {
+            result.completeExceptionally(resolutionFailure(entry, hostname));
+        }
+        else {
+            result.complete(new InetSocketAddress(pickAddress(entry.addresses), port));
+        }
+        return result;
+    }
+
+    protected @NotNull CompletableFuture<List<InetSocketAddress>> toAllAddressesFuture(@NotNull CacheEntry entry,
+                                                                                      @NotNull String hostname,
+                                                                                      int port) {
+        CompletableFuture<List<InetSocketAddress>> result = new CompletableFuture<>();
+        if (entry.addresses == null) {
+            result.completeExceptionally(resolutionFailure(entry, hostname));
+        }
+        else {
+            List<InetSocketAddress> socketAddresses = new ArrayList<>(entry.addresses.size());
+            for (InetAddress address : entry.addresses) {
+                socketAddresses.add(new InetSocketAddress(address, port));
+            }
+            result.complete(socketAddresses);
+        }
+        return result;
+    }
+
+    protected @NotNull HostnameResolutionException resolutionFailure(@NotNull CacheEntry entry,
+                                                                     @NotNull String hostname) {
+        return new HostnameResolutionException(
+            "Unable to resolve hostname into IP address(es). hostname=" + hostname, entry.error
+        );
+    }
+
+    protected @NotNull InetAddress pickAddress(@NotNull List<InetAddress> addresses) {
+        int numAddresses = addresses.size();
+        return (numAddresses == 1)
+               ? addresses.get(0)
+               : addresses.get(ThreadLocalRandom.current().nextInt(numAddresses));
+    }
+
+    /**
+     * Looks up the given hostname and caches the result, unless a lookup for it is already in flight in which case the
+     * in-flight lookup is returned.
+     */
+    protected @NotNull CompletableFuture<CacheEntry> lookupAndCache(@NotNull String hostname) {
+        CompletableFuture<CacheEntry> inFlight = inFlightLookups.get(hostname);
+        if (inFlight != null) {
+            return inFlight;
+        }
+
+        CompletableFuture<CacheEntry> newLookup = new CompletableFuture<>();
+        inFlight = inFlightLookups.putIfAbsent(hostname, newLookup);
+        if (inFlight != null) {
+            return inFlight;
+        }
+
+        CompletableFuture<DownstreamAddressLookup.Result> lookupFuture;
+        try {
+            lookupFuture = lookup.lookup(hostname);
+        }
+        catch (Throwable t) {
+            lookupFuture = new CompletableFuture<>();
+            lookupFuture.completeExceptionally(t);
+        }
+
+        lookupFuture.whenComplete((result, error) -> {
+            CacheEntry entry;
+            try {
+                entry = cacheLookupResult(hostname, result, error);
+            }
+            catch (Throwable t) {
+                logger.error("Unexpected error while caching a DNS lookup result. hostname={}", hostname, t);
+                entry = new CacheEntry(null, t, nanoTimeSupplier.getAsLong(), 0);
+            }
+            finally {
+                inFlightLookups.remove(hostname, newLookup);
+            }
+            newLookup.complete(entry);
+        });
+
+        return newLookup;
+    }
+
+    protected @NotNull CacheEntry cacheLookupResult(@NotNull String hostname,
+                                                    @Nullable DownstreamAddressLookup.Result result,
+                                                    @Nullable Throwable error) {
+        long nowNanos = nanoTimeSupplier.getAsLong();
+
+        if (error == null && result != null) {
+            long ttlNanos = clampTtlNanos(result.ttlMillis);
+            CacheEntry entry = new CacheEntry(result.addresses, null, nowNanos, ttlNanos);
+            cache.put(hostname, entry);
+            return entry;
+        }
+
+        if (error == null) {
+            error = new IllegalStateException("DownstreamAddressLookup returned a null result");
+        }
+        else if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+
+        logger.warn("Unable to resolve downstream hostname. hostname={}, error={}", hostname, error.toString());
+        CacheEntry failedEntry = new CacheEntry(null, error, nowNanos, negativeTtlNanos);
+
+        // Keep any cached addresses that are still good - this was a failed background refresh, and the next call
+        //      after the addresses expire will try again.
+        CacheEntry existingEntry = cache.get(hostname);
+        boolean existingEntryStillGood = existingEntry != null
+                                         && existingEntry.addresses != null
+                                         && !existingEntry.isExpired(nowNanos);
+        if (!existingEntryStillGood) {
+            if (negativeTtlNanos > 0) {
+                cache.put(hostname, failedEntry);
+            }
+            else {
+                cache.remove(hostname);
+            }
+        }
+
+        return failedEntry;
+    }
+
+    protected long clampTtlNanos(long ttlMillis) {
+        long ttlNanos = (ttlMillis >= TimeUnit.NANOSECONDS.toMillis(Long.MAX_VALUE))
+                        ? Long.MAX_VALUE
+                        : TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttlMillis));
+        return Math.max(minTtlNanos, Math.min(maxTtlNanos, ttlNanos));
+    }
+
+    /**
+     * A cached lookup result for a hostname - either the addresses, or the error if the lookup failed.
+     */
+    protected static class CacheEntry {
+
+        public final @Nullable List<InetAddress> addresses;
+        public final @Nullable Throwable error;
+        public final long expiresAtNanos;
+        public final long refreshAtNanos;
+        protected final AtomicBoolean refreshStarted = new AtomicBoolean(false);
+
+        protected CacheEntry(@Nullable List<InetAddress> addresses,
+                             @Nullable Throwable error,
+                             long createdAtNanos,
+                             long ttlNanos) {
+            this.addresses = addresses;
+            this.error = error;
+            this.expiresAtNanos = createdAtNanos + ttlNanos;
+            this.refreshAtNanos = createdAtNanos + (ttlNanos / 100 * REFRESH_AHEAD_PERCENT);
+        }
+
+        protected boolean isExpired(long nowNanos) {
+            return nowNanos - expiresAtNanos >= 0;
+        }
+
+        /**
+         * @return true if this entry holds addresses that are due for a background refresh and no other call has
+         * started one yet. Only returns true once per entry.
+         */
+        protected boolean shouldRefresh(long nowNanos) {
+            return addresses != null
+                   && nowNanos - refreshAtNanos >= 0
+                   && refreshStarted.compareAndSet(false, true);
+        }
+    }
+}
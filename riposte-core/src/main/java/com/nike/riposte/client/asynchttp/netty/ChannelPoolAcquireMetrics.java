@@ -0,0 +1,40 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Immutable value passed to {@link com.nike.riposte.metrics.MetricsListener#onEvent(
+ * com.nike.riposte.server.metrics.ServerMetricsEvent, Object)} by {@link BoundedDownstreamChannelPool} for the
+ * {@link com.nike.riposte.server.metrics.ServerMetricsEvent#PROXY_ROUTER_CONNECTION_ACQUIRED} and {@link
+ * com.nike.riposte.server.metrics.ServerMetricsEvent#PROXY_ROUTER_CONNECTION_ACQUIRE_REJECTED} events.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ChannelPoolAcquireMetrics {
+
+    /**
+     * The pool that fired the event. Metrics listeners can use this to register gauges for the pool's pending
+     * acquires and acquired connections.
+     */
+    public final @NotNull BoundedDownstreamChannelPool pool;
+    /**
+     * The time from when the connection was requested until the acquire succeeded or was rejected.
+     */
+    public final long acquireNanos;
+
+    public ChannelPoolAcquireMetrics(@NotNull BoundedDownstreamChannelPool pool, long acquireNanos) {
+        this.pool = pool;
+        this.acquireNanos = acquireNanos;
+    }
+
+    /**
+     * @return The name of the pool that fired the event - shortcut for {@code pool.getName()}.
+     */
+    public @NotNull String getPoolName() {
+        return pool.getName();
+    }
+
+    @Override
+    public String toString() {
+        return "ChannelPoolAcquireMetrics{poolName=" + pool.getName() + ", acquireNanos=" + acquireNanos + "}";
+    }
+}
@@ -0,0 +1,49 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.net.InetAddress;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Looks up the IP addresses for a downstream hostname without blocking the calling thread. This is what {@link
+ * CachingDownstreamAddressResolver} uses to fill its cache - {@link NettyDnsAddressLookup} is the implementation used
+ * by {@link StreamingAsyncHttpClient}, but you can plug in a different one (e.g. a stand-in that doesn't need a
+ * network for tests) by overriding {@link StreamingAsyncHttpClient#createDownstreamAddressLookup(
+ * io.netty.channel.EventLoop, Class)}.
+ */
+@FunctionalInterface
+public interface DownstreamAddressLookup {
+
+    /**
+     * @param hostname The hostname to look up.
+     * @return A future that completes with the IP addresses for the given hostname and how long they can be cached
+     * for, or completes exceptionally if the hostname could not be resolved. Must not block the calling thread.
+     */
+    @NotNull CompletableFuture<Result> lookup(@NotNull String hostname);
+
+    /**
+     * The result of a successful {@link #lookup(String)}.
+     */
+    class Result {
+
+        /**
+         * The IP addresses for the hostname - will never be empty.
+         */
+        public final @NotNull List<InetAddress> addresses;
+        /**
+         * How long the addresses can be cached for, usually the TTL of the DNS records.
+         */
+        public final long ttlMillis;
+
+        public Result(@NotNull List<InetAddress> addresses, long ttlMillis) {
+            if (addresses.isEmpty()) {
+                throw new IllegalArgumentException("addresses cannot be empty");
+            }
+
+            this.addresses = addresses;
+            this.ttlMillis = ttlMillis;
+        }
+    }
+}
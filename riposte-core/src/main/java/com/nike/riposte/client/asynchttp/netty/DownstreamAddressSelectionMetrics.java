@@ -0,0 +1,52 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.server.http.DownstreamAddressSelector;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Immutable value passed to {@link com.nike.riposte.metrics.MetricsListener#onEvent(
+ * com.nike.riposte.server.metrics.ServerMetricsEvent, Object)} by {@link StreamingAsyncHttpClient} for the {@link
+ * com.nike.riposte.server.metrics.ServerMetricsEvent#PROXY_ROUTER_DOWNSTREAM_ADDRESS_SELECTED} event.
+ */
+@SuppressWarnings("WeakerAccess")
+public class DownstreamAddressSelectionMetrics {
+
+    /**
+     * The downstream hostname the address was picked for.
+     */
+    public final @NotNull String hostname;
+    /**
+     * The address that was picked.
+     */
+    public final @NotNull InetSocketAddress selectedAddress;
+    /**
+     * The live per-address stats. Metrics listeners can use this to register gauges for the picked address's calls in
+     * flight and latency average.
+     */
+    public final @NotNull DownstreamAddressSelector.AddressStats stats;
+
+    public DownstreamAddressSelectionMetrics(@NotNull String hostname,
+                                             @NotNull InetSocketAddress selectedAddress,
+                                             @NotNull DownstreamAddressSelector.AddressStats stats) {
+        this.hostname = hostname;
+        this.selectedAddress = selectedAddress;
+        this.stats = stats;
+    }
+
+    /**
+     * @return The name of the picked address, in {@code ip:port} format - see {@link
+     * DownstreamAddressStatsTracker#addressName(InetSocketAddress)}.
+     */
+    public @NotNull String getSelectedAddressName() {
+        return DownstreamAddressStatsTracker.addressName(selectedAddress);
+    }
+
+    @Override
+    public String toString() {
+        return "DownstreamAddressSelectionMetrics{hostname=" + hostname
+               + ", selectedAddress=" + getSelectedAddressName() + "}";
+    }
+}
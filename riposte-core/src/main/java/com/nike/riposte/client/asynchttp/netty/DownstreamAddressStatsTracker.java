@@ -0,0 +1,149 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.server.http.DownstreamAddressSelector;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the per-address stats that {@link DownstreamAddressSelector}s use to pick downstream IP addresses. {@link
+ * StreamingAsyncHttpClient} calls {@link #callStarted(InetSocketAddress)} when it asks a connection pool for a
+ * connection, and {@link #callFinished(InetSocketAddress, long)} (or {@link #callAbandoned(InetSocketAddress)}) when
+ * the connection is released back to the pool (or the acquire fails), so a call's latency covers everything from
+ * waiting on a connection to receiving the last chunk of the response.
+ *
+ * <p>Latencies are averaged with a time-based exponentially weighted moving average: a new sample's weight depends on
+ * how long it has been since the previous one, relative to the decay window. The average also decays toward 0 while no
+ * calls to the address finish, so an address that was slow once isn't avoided forever.
+ */
+@SuppressWarnings("WeakerAccess")
+public class DownstreamAddressStatsTracker implements DownstreamAddressSelector.AddressStats {
+
+    /**
+     * The default decay window for the latency averages.
+     */
+    public static final long DEFAULT_LATENCY_DECAY_WINDOW_MILLIS = 10_000;
+
+    protected final double latencyDecayWindowNanos;
+    protected final @NotNull LongSupplier nanoTimeSupplier;
+
+    protected final ConcurrentMap<InetSocketAddress, PerAddressStats> statsByAddress = new ConcurrentHashMap<>();
+
+    public DownstreamAddressStatsTracker() {
+        this(DEFAULT_LATENCY_DECAY_WINDOW_MILLIS, System::nanoTime);
+    }
+
+    public DownstreamAddressStatsTracker(long latencyDecayWindowMillis, @NotNull LongSupplier nanoTimeSupplier) {
+        if (latencyDecayWindowMillis <= 0) {
+            throw new IllegalArgumentException(
+                "latencyDecayWindowMillis must be greater than 0. latencyDecayWindowMillis=" + latencyDecayWindowMillis
+            );
+        }
+
+        this.latencyDecayWindowNanos = TimeUnit.MILLISECONDS.toNanos(latencyDecayWindowMillis);
+        this.nanoTimeSupplier = nanoTimeSupplier;
+    }
+
+    /**
+     * @return The name used for the given address in logs and metrics, in {@code ip:port} format (or {@code
+     * hostname:port} if the address is unresolved).
+     */
+    public static @NotNull String addressName(@NotNull InetSocketAddress address) {
+        String host = (address.getAddress() == null)
+                      ? address.getHostString()
+                      : address.getAddress().getHostAddress();
+        return host + ":" + address.getPort();
+    }
+
+    /**
+     * Call when a call to the given address asks for a connection.
+     */
+    public void callStarted(@NotNull InetSocketAddress address) {
+        statsFor(address).outstandingRequests.incrementAndGet();
+    }
+
+    /**
+     * Call when a call to the given address is done with its connection.
+     *
+     * @param latencyNanos How long the call took - added to the address's latency average.
+     */
+    public void callFinished(@NotNull InetSocketAddress address, long latencyNanos) {
+        PerAddressStats stats = statsFor(address);
+        stats.outstandingRequests.decrementAndGet();
+        stats.recordLatency(latencyNanos, nanoTimeSupplier.getAsLong(), latencyDecayWindowNanos);
+    }
+
+    /**
+     * Call when a call to the given address is done without a latency worth recording, e.g. it never got a
+     * connection or the connection broke.
+     */
+    public void callAbandoned(@NotNull InetSocketAddress address) {
+        statsFor(address).outstandingRequests.decrementAndGet();
+    }
+
+    @Override
+    public int getOutstandingRequests(@NotNull InetSocketAddress address) {
+        PerAddressStats stats = statsByAddress.get(address);
+        return (stats == null) ? 0 : stats.outstandingRequests.get();
+    }
+
+    @Override
+    public double getLatencyEwmaMillis(@NotNull InetSocketAddress address) {
+        PerAddressStats stats = statsByAddress.get(address);
+        if (stats == null) {
+            return 0;
+        }
+
+        return stats.getLatencyEwmaNanos(nanoTimeSupplier.getAsLong(), latencyDecayWindowNanos)
+               / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    protected @NotNull PerAddressStats statsFor(@NotNull InetSocketAddress address) {
+        PerAddressStats stats = statsByAddress.get(address);
+        if (stats == null) {
+            stats = statsByAddress.computeIfAbsent(address, addr -> new PerAddressStats());
+        }
+        return stats;
+    }
+
+    /**
+     * The stats for a single address.
+     */
+    protected static class PerAddressStats {
+
+        protected final AtomicInteger outstandingRequests = new AtomicInteger();
+        protected double latencyEwmaNanos = 0;
+        protected long lastSampleNanos = 0;
+        protected boolean hasSamples = false;
+
+        protected synchronized void recordLatency(long latencyNanos, long nowNanos, double decayWindowNanos) {
+            if (!hasSamples) {
+                latencyEwmaNanos = latencyNanos;
+                hasSamples = true;
+            }
+            else {
+                double previousWeight = decayWeight(nowNanos - lastSampleNanos, decayWindowNanos);
+                latencyEwmaNanos = (latencyEwmaNanos * previousWeight) + (latencyNanos * (1 - previousWeight));
+            }
+            lastSampleNanos = nowNanos;
+        }
+
+        protected synchronized double getLatencyEwmaNanos(long nowNanos, double decayWindowNanos) {
+            if (!hasSamples) {
+                return 0;
+            }
+
+            return latencyEwmaNanos * decayWeight(nowNanos - lastSampleNanos, decayWindowNanos);
+        }
+
+        protected static double decayWeight(long elapsedNanos, double decayWindowNanos) {
+            return Math.exp(-Math.max(0, elapsedNanos) / decayWindowNanos);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable value passed to {@link com.nike.riposte.metrics.MetricsListener#onEvent(
+ * com.nike.riposte.server.metrics.ServerMetricsEvent, Object)} by {@link StreamingAsyncHttpClient} for the {@link
+ * com.nike.riposte.server.metrics.ServerMetricsEvent#PROXY_ROUTER_CONNECTION_RETIRED} event.
+ */
+@SuppressWarnings("WeakerAccess")
+public class DownstreamConnectionRetirementMetrics {
+
+    /**
+     * The name of the pool the connection belonged to.
+     */
+    public final @NotNull String poolName;
+    /**
+     * The downstream IP address and port the connection was connected to.
+     */
+    public final @NotNull InetSocketAddress downstreamAddress;
+    /**
+     * How long the connection had been in use for, measured from when its pool first handed it out.
+     */
+    public final long connectionAgeNanos;
+    /**
+     * The max age the connection was given, after jitter.
+     */
+    public final long maxAgeNanos;
+
+    public DownstreamConnectionRetirementMetrics(@NotNull String poolName,
+                                                 @NotNull InetSocketAddress downstreamAddress,
+                                                 long connectionAgeNanos,
+                                                 long maxAgeNanos) {
+        this.poolName = poolName;
+        this.downstreamAddress = downstreamAddress;
+        this.connectionAgeNanos = connectionAgeNanos;
+        this.maxAgeNanos = maxAgeNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "DownstreamConnectionRetirementMetrics{poolName=" + poolName
+               + ", connectionAgeMillis=" + TimeUnit.NANOSECONDS.toMillis(connectionAgeNanos)
+               + ", maxAgeMillis=" + TimeUnit.NANOSECONDS.toMillis(maxAgeNanos) + "}";
+    }
+}
@@ -0,0 +1,72 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Immutable value passed to {@link com.nike.riposte.metrics.MetricsListener#onEvent(
+ * com.nike.riposte.server.metrics.ServerMetricsEvent, Object)} by {@link StreamingAsyncHttpClient} for the {@link
+ * com.nike.riposte.server.metrics.ServerMetricsEvent#PROXY_ROUTER_DOWNSTREAM_EXTRA_ATTEMPT} event.
+ */
+@SuppressWarnings("WeakerAccess")
+public class DownstreamExtraAttemptMetrics {
+
+    /**
+     * The kinds of extra attempts a downstream call can make.
+     */
+    public enum AttemptType {
+        /**
+         * A second copy of a request, sent because the first one hadn't started getting a response in time.
+         */
+        HEDGE,
+        /**
+         * Another try at a call whose connection couldn't be made, before any of the request was sent.
+         */
+        CONNECT_RETRY
+    }
+
+    /**
+     * What happened to an extra attempt.
+     */
+    public enum Outcome {
+        /**
+         * The extra attempt was sent.
+         */
+        SENT,
+        /**
+         * The extra attempt was a hedge that started getting a response before the original request did, so its
+         * response is the one the caller gets.
+         */
+        WON,
+        /**
+         * The extra attempt was skipped because the downstream host's budget ran out.
+         */
+        BUDGET_EXHAUSTED
+    }
+
+    /**
+     * The downstream hostname the call was for.
+     */
+    public final @NotNull String hostname;
+    /**
+     * The kind of extra attempt.
+     */
+    public final @NotNull AttemptType attemptType;
+    /**
+     * What happened to the extra attempt.
+     */
+    public final @NotNull Outcome outcome;
+
+    public DownstreamExtraAttemptMetrics(@NotNull String hostname,
+                                         @NotNull AttemptType attemptType,
+                                         @NotNull Outcome outcome) {
+        this.hostname = hostname;
+        this.attemptType = attemptType;
+        this.outcome = outcome;
+    }
+
+    @Override
+    public String toString() {
+        return "DownstreamExtraAttemptMetrics{hostname=" + hostname + ", attemptType=" + attemptType
+               + ", outcome=" + outcome + "}";
+    }
+}
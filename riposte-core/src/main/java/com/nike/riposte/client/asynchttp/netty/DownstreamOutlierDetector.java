@@ -0,0 +1,331 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.client.asynchttp.netty.DownstreamOutlierEjectionMetrics.Outcome;
+import com.nike.riposte.client.asynchttp.netty.DownstreamOutlierEjectionMetrics.Reason;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterOutlierDetectionConfig;
+import com.nike.riposte.server.http.DownstreamAddressSelector.AddressStats;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Detects misbehaving downstream IP addresses and ejects them for a while, so {@link StreamingAsyncHttpClient} stops
+ * calling them while the hostname's other IP addresses keep working - see {@link
+ * com.nike.riposte.server.config.ServerConfig#proxyRouterOutlierDetectionConfig()}. {@link StreamingAsyncHttpClient}
+ * passes each hostname's resolved addresses through {@link #filterEjected(String, List)} before picking one to call,
+ * and reports each response status and connection failure via {@link #recordResponse(String, InetSocketAddress, int,
+ * AddressStats)} and {@link #recordConnectFailure(String, InetSocketAddress)}.
+ *
+ * <p>An address is an outlier when it has {@link ProxyRouterOutlierDetectionConfig#consecutiveFailures()} 5xx
+ * responses or connection failures in a row, or when its average latency (from the given {@link AddressStats}) is more
+ * than {@link ProxyRouterOutlierDetectionConfig#latencyOutlierFactor()} times the average latency of the hostname's
+ * other addresses that are in rotation. Outliers are ejected unless that would put more than {@link
+ * ProxyRouterOutlierDetectionConfig#maxEjectionPercent()} of the hostname's addresses (or all of them) out of
+ * rotation. Each ejection of the same address lasts twice as long as the one before it, up to {@link
+ * ProxyRouterOutlierDetectionConfig#maxEjectionTimeMillis()}.
+ */
+@SuppressWarnings("WeakerAccess")
+public class DownstreamOutlierDetector {
+
+    protected final int consecutiveFailuresThreshold;
+    protected final double latencyOutlierFactor;
+    protected final double latencyOutlierMinDeviationMillis;
+    protected final int latencyOutlierMinRequests;
+    protected final long baseEjectionTimeNanos;
+    protected final long maxEjectionTimeNanos;
+    protected final double maxEjectionPercent;
+    protected final @NotNull LongSupplier nanoTimeSupplier;
+
+    protected final ConcurrentMap<InetSocketAddress, AddressState> statesByAddress = new ConcurrentHashMap<>();
+    protected final ConcurrentMap<String, List<InetSocketAddress>> addressesByHost = new ConcurrentHashMap<>();
+
+    public DownstreamOutlierDetector(@NotNull ProxyRouterOutlierDetectionConfig config) {
+        this(config, System::nanoTime);
+    }
+
+    public DownstreamOutlierDetector(
+        @NotNull ProxyRouterOutlierDetectionConfig config, @NotNull LongSupplier nanoTimeSupplier
+    ) {
+        if (config.baseEjectionTimeMillis() <= 0) {
+            throw new IllegalArgumentException(
+                "baseEjectionTimeMillis must be greater than 0. baseEjectionTimeMillis="
+                + config.baseEjectionTimeMillis()
+            );
+        }
+
+        if (config.maxEjectionTimeMillis() < config.baseEjectionTimeMillis()) {
+            throw new IllegalArgumentException(
+                "maxEjectionTimeMillis cannot be less than baseEjectionTimeMillis. maxEjectionTimeMillis="
+                + config.maxEjectionTimeMillis() + ", baseEjectionTimeMillis=" + config.baseEjectionTimeMillis()
+            );
+        }
+
+        if (config.maxEjectionPercent() < 0 || Double.isNaN(config.maxEjectionPercent())) {
+            throw new IllegalArgumentException(
+                "maxEjectionPercent cannot be negative. maxEjectionPercent=" + config.maxEjectionPercent()
+            );
+        }
+
+        this.consecutiveFailuresThreshold = config.consecutiveFailures();
+        this.latencyOutlierFactor = config.latencyOutlierFactor();
+        this.latencyOutlierMinDeviationMillis = config.latencyOutlierMinDeviationMillis();
+        this.latencyOutlierMinRequests = config.latencyOutlierMinRequests();
+        this.baseEjectionTimeNanos = TimeUnit.MILLISECONDS.toNanos(config.baseEjectionTimeMillis());
+        this.maxEjectionTimeNanos = TimeUnit.MILLISECONDS.toNanos(config.maxEjectionTimeMillis());
+        this.maxEjectionPercent = config.maxEjectionPercent();
+        this.nanoTimeSupplier = nanoTimeSupplier;
+    }
+
+    /**
+     * Remembers the given addresses as the hostname's current addresses (for the max ejection percentage and the
+     * latency comparison), and returns the ones that aren't ejected.
+     *
+     * @return The given addresses minus the ejected ones - the given list itself if none are ejected, or if all of
+     * them are (e.g. because the hostname's DNS changed since they were ejected).
+     */
+    public @NotNull List<InetSocketAddress> filterEjected(
+        @NotNull String hostname, @NotNull List<InetSocketAddress> addresses
+    ) {
+        addressesByHost.put(hostname, addresses);
+
+        long nowNanos = nanoTimeSupplier.getAsLong();
+        List<InetSocketAddress> result = null;
+        for (int i = 0; i < addresses.size(); i++) {
+            InetSocketAddress address = addresses.get(i);
+            if (isEjected(address, nowNanos)) {
+                if (result == null) {
+                    result = new ArrayList<>(addresses.subList(0, i));
+                }
+            }
+            else if (result != null) {
+                result.add(address);
+            }
+        }
+
+        return (result == null || result.isEmpty()) ? addresses : result;
+    }
+
+    /**
+     * Call when a response status is received from the given address. 5xx responses count as failures, anything else
+     * resets the address's consecutive failures and counts towards {@link
+     * ProxyRouterOutlierDetectionConfig#latencyOutlierMinRequests()}. Responses from an address that is already
+     * ejected (i.e. from calls that were in flight when it was ejected) are ignored.
+     *
+     * @param addressStats The per-address stats whose latency averages are compared for latency outliers.
+     * @return The result if the address was detected as an outlier, or null if it wasn't.
+     */
+    public @Nullable DownstreamOutlierEjectionMetrics recordResponse(
+        @NotNull String hostname,
+        @NotNull InetSocketAddress address,
+        int statusCode,
+        @NotNull AddressStats addressStats
+    ) {
+        if (statusCode >= 500) {
+            return recordFailure(hostname, address);
+        }
+
+        long nowNanos = nanoTimeSupplier.getAsLong();
+        AddressState state = stateFor(address);
+        if (state.isEjected(nowNanos)) {
+            return null;
+        }
+
+        int responses = state.recordSuccess();
+        if (latencyOutlierFactor <= 0
+            || responses < latencyOutlierMinRequests
+            || !isLatencyOutlier(hostname, address, addressStats, nowNanos)
+        ) {
+            return null;
+        }
+
+        return tryEject(hostname, address, Reason.LATENCY, nowNanos);
+    }
+
+    /**
+     * Call when a connection to the given address couldn't be made. Counts as a failure the same as a 5xx response.
+     *
+     * @return The result if the address was detected as an outlier, or null if it wasn't.
+     */
+    public @Nullable DownstreamOutlierEjectionMetrics recordConnectFailure(
+        @NotNull String hostname, @NotNull InetSocketAddress address
+    ) {
+        return recordFailure(hostname, address);
+    }
+
+    /**
+     * @return true if the given address is currently ejected.
+     */
+    public boolean isEjected(@NotNull InetSocketAddress address) {
+        return isEjected(address, nanoTimeSupplier.getAsLong());
+    }
+
+    /**
+     * @return The number of times the given address has been ejected. Connections opened to the address before its
+     * latest ejection shouldn't be reused.
+     */
+    public long getEjectionCount(@NotNull InetSocketAddress address) {
+        AddressState state = statesByAddress.get(address);
+        return (state == null) ? 0 : state.ejectionCount;
+    }
+
+    protected boolean isEjected(@NotNull InetSocketAddress address, long nowNanos) {
+        AddressState state = statesByAddress.get(address);
+        return state != null && state.isEjected(nowNanos);
+    }
+
+    protected @Nullable DownstreamOutlierEjectionMetrics recordFailure(
+        @NotNull String hostname, @NotNull InetSocketAddress address
+    ) {
+        long nowNanos = nanoTimeSupplier.getAsLong();
+        AddressState state = stateFor(address);
+        if (state.isEjected(nowNanos)) {
+            return null;
+        }
+
+        int consecutiveFailures = state.recordFailure();
+        if (consecutiveFailuresThreshold <= 0 || consecutiveFailures < consecutiveFailuresThreshold) {
+            return null;
+        }
+
+        return tryEject(hostname, address, Reason.CONSECUTIVE_FAILURES, nowNanos);
+    }
+
+    protected boolean isLatencyOutlier(
+        @NotNull String hostname, @NotNull InetSocketAddress address, @NotNull AddressStats addressStats, long nowNanos
+    ) {
+        double latencyMillis = addressStats.getLatencyEwmaMillis(address);
+        double otherLatencyTotalMillis = 0;
+        int otherAddressesWithLatency = 0;
+        for (InetSocketAddress otherAddress : addressesFor(hostname)) {
+            if (otherAddress.equals(address) || isEjected(otherAddress, nowNanos)) {
+                continue;
+            }
+
+            double otherLatencyMillis = addressStats.getLatencyEwmaMillis(otherAddress);
+            if (otherLatencyMillis > 0) {
+                otherLatencyTotalMillis += otherLatencyMillis;
+                otherAddressesWithLatency++;
+            }
+        }
+
+        if (otherAddressesWithLatency == 0) {
+            return false;
+        }
+
+        double otherLatencyAverageMillis = otherLatencyTotalMillis / otherAddressesWithLatency;
+        return latencyMillis > otherLatencyAverageMillis * latencyOutlierFactor
+               && latencyMillis - otherLatencyAverageMillis >= latencyOutlierMinDeviationMillis;
+    }
+
+    /**
+     * Ejects the given outlier unless the hostname's max ejection percentage has been reached. Either way the
+     * address's failure and response counts start over, so it has to be detected again before the next attempt.
+     * Synchronized so concurrent ejections of a hostname's addresses can't go over the max ejection percentage.
+     */
+    protected synchronized @NotNull DownstreamOutlierEjectionMetrics tryEject(
+        @NotNull String hostname, @NotNull InetSocketAddress address, @NotNull Reason reason, long nowNanos
+    ) {
+        AddressState state = stateFor(address);
+        state.resetCounts();
+
+        List<InetSocketAddress> hostAddresses = addressesFor(hostname);
+        int numAddresses = hostAddresses.contains(address) ? hostAddresses.size() : hostAddresses.size() + 1;
+        int alreadyEjected = 0;
+        for (InetSocketAddress hostAddress : hostAddresses) {
+            if (!hostAddress.equals(address) && isEjected(hostAddress, nowNanos)) {
+                alreadyEjected++;
+            }
+        }
+
+        int maxEjected = Math.min(numAddresses - 1, (int) (numAddresses * maxEjectionPercent / 100));
+        if (alreadyEjected >= maxEjected) {
+            return new DownstreamOutlierEjectionMetrics(
+                hostname, address, reason, Outcome.MAX_EJECTION_PERCENT_REACHED, 0
+            );
+        }
+
+        long ejectionTimeNanos = state.eject(nowNanos, baseEjectionTimeNanos, maxEjectionTimeNanos);
+        return new DownstreamOutlierEjectionMetrics(
+            hostname, address, reason, Outcome.EJECTED, TimeUnit.NANOSECONDS.toMillis(ejectionTimeNanos)
+        );
+    }
+
+    protected @NotNull List<InetSocketAddress> addressesFor(@NotNull String hostname) {
+        List<InetSocketAddress> addresses = addressesByHost.get(hostname);
+        return (addresses == null) ? Collections.emptyList() : addresses;
+    }
+
+    protected @NotNull AddressState stateFor(@NotNull InetSocketAddress address) {
+        AddressState state = statesByAddress.get(address);
+        if (state == null) {
+            state = statesByAddress.computeIfAbsent(address, addr -> new AddressState());
+        }
+        return state;
+    }
+
+    /**
+     * The outlier detection state for a single address.
+     */
+    protected static class AddressState {
+
+        protected int consecutiveFailures = 0;
+        protected int responsesSinceEjection = 0;
+        // How many ejections in a row (without a long enough healthy stretch in between) the address has had - each
+        //      one doubles the ejection time.
+        protected int consecutiveEjections = 0;
+        protected volatile long ejectionCount = 0;
+        protected volatile long ejectedUntilNanos = 0;
+
+        protected boolean isEjected(long nowNanos) {
+            long until = ejectedUntilNanos;
+            return until != 0 && nowNanos - until < 0;
+        }
+
+        protected synchronized int recordFailure() {
+            return ++consecutiveFailures;
+        }
+
+        protected synchronized int recordSuccess() {
+            consecutiveFailures = 0;
+            return ++responsesSinceEjection;
+        }
+
+        protected synchronized void resetCounts() {
+            consecutiveFailures = 0;
+            responsesSinceEjection = 0;
+        }
+
+        /**
+         * @return How long the address is ejected for.
+         */
+        protected synchronized long eject(long nowNanos, long baseEjectionTimeNanos, long maxEjectionTimeNanos) {
+            // Back off to the base ejection time if the address has stayed in rotation for a max ejection time since
+            //      its last ejection ended.
+            if (ejectedUntilNanos != 0 && nowNanos - ejectedUntilNanos >= maxEjectionTimeNanos) {
+                consecutiveEjections = 0;
+            }
+
+            long ejectionTimeNanos = baseEjectionTimeNanos;
+            for (int i = 0; i < consecutiveEjections && ejectionTimeNanos < maxEjectionTimeNanos; i++) {
+                ejectionTimeNanos *= 2;
+            }
+            ejectionTimeNanos = Math.min(ejectionTimeNanos, maxEjectionTimeNanos);
+
+            consecutiveEjections++;
+            ejectionCount++;
+            // 0 means "never ejected", so nudge the (very unlikely) exact 0 end time.
+            long until = nowNanos + ejectionTimeNanos;
+            ejectedUntilNanos = (until == 0) ? 1 : until;
+            return ejectionTimeNanos;
+        }
+    }
+}
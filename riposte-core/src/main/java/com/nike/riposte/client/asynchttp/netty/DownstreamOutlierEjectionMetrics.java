@@ -0,0 +1,82 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Immutable value passed to {@link com.nike.riposte.metrics.MetricsListener#onEvent(
+ * com.nike.riposte.server.metrics.ServerMetricsEvent, Object)} by {@link StreamingAsyncHttpClient} for the {@link
+ * com.nike.riposte.server.metrics.ServerMetricsEvent#PROXY_ROUTER_DOWNSTREAM_OUTLIER_DETECTED} event.
+ */
+@SuppressWarnings("WeakerAccess")
+public class DownstreamOutlierEjectionMetrics {
+
+    /**
+     * Why an IP address was detected as an outlier.
+     */
+    public enum Reason {
+        /**
+         * The IP address returned too many 5xx responses or connection failures in a row.
+         */
+        CONSECUTIVE_FAILURES,
+        /**
+         * The IP address's average latency was too far above the host's other IP addresses.
+         */
+        LATENCY
+    }
+
+    /**
+     * What happened to an outlier.
+     */
+    public enum Outcome {
+        /**
+         * The IP address was ejected, and won't get calls until the ejection is over.
+         */
+        EJECTED,
+        /**
+         * The IP address was left in rotation because ejecting it would go over the max ejection percentage.
+         */
+        MAX_EJECTION_PERCENT_REACHED
+    }
+
+    /**
+     * The downstream hostname the IP address belongs to.
+     */
+    public final @NotNull String hostname;
+    /**
+     * The downstream IP address and port that was detected as an outlier.
+     */
+    public final @NotNull InetSocketAddress downstreamAddress;
+    /**
+     * Why the IP address was detected as an outlier.
+     */
+    public final @NotNull Reason reason;
+    /**
+     * What happened to the IP address.
+     */
+    public final @NotNull Outcome outcome;
+    /**
+     * How long the IP address is ejected for, or 0 if it wasn't ejected.
+     */
+    public final long ejectionTimeMillis;
+
+    public DownstreamOutlierEjectionMetrics(@NotNull String hostname,
+                                            @NotNull InetSocketAddress downstreamAddress,
+                                            @NotNull Reason reason,
+                                            @NotNull Outcome outcome,
+                                            long ejectionTimeMillis) {
+        this.hostname = hostname;
+        this.downstreamAddress = downstreamAddress;
+        this.reason = reason;
+        this.outcome = outcome;
+        this.ejectionTimeMillis = ejectionTimeMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "DownstreamOutlierEjectionMetrics{hostname=" + hostname
+               + ", downstreamAddress=" + DownstreamAddressStatsTracker.addressName(downstreamAddress)
+               + ", reason=" + reason + ", outcome=" + outcome + ", ejectionTimeMillis=" + ejectionTimeMillis + "}";
+    }
+}
@@ -0,0 +1,108 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the most recent time-to-first-response latencies of the primary attempts of hedged downstream calls for each
+ * downstream host, so {@link StreamingAsyncHttpClient} can base a call's hedge delay on a percentile of what the host
+ * has been doing lately rather than on a fixed value (see {@link HedgedDownstreamCall} for what gets recorded). Each
+ * host keeps a fixed-size window of samples, and the oldest sample is replaced once the window is full.
+ */
+@SuppressWarnings("WeakerAccess")
+public class DownstreamResponseLatencyTracker {
+
+    /**
+     * The default number of samples kept per host.
+     */
+    public static final int DEFAULT_SAMPLE_WINDOW_SIZE = 256;
+    /**
+     * The default number of samples a host needs before {@link #latencyPercentileNanos(String, double)} will return
+     * a value for it.
+     */
+    public static final int DEFAULT_MIN_SAMPLES = 20;
+
+    protected final int sampleWindowSize;
+    protected final int minSamples;
+
+    protected final ConcurrentMap<String, SampleWindow> samplesByHost = new ConcurrentHashMap<>();
+
+    public DownstreamResponseLatencyTracker() {
+        this(DEFAULT_SAMPLE_WINDOW_SIZE, DEFAULT_MIN_SAMPLES);
+    }
+
+    public DownstreamResponseLatencyTracker(int sampleWindowSize, int minSamples) {
+        if (sampleWindowSize < 1) {
+            throw new IllegalArgumentException(
+                "sampleWindowSize must be at least 1. sampleWindowSize=" + sampleWindowSize
+            );
+        }
+
+        if (minSamples < 1 || minSamples > sampleWindowSize) {
+            throw new IllegalArgumentException(
+                "minSamples must be between 1 and sampleWindowSize. minSamples=" + minSamples
+                + ", sampleWindowSize=" + sampleWindowSize
+            );
+        }
+
+        this.sampleWindowSize = sampleWindowSize;
+        this.minSamples = minSamples;
+    }
+
+    /**
+     * Adds the given time-to-first-response latency to the given host's window.
+     */
+    public void recordLatency(@NotNull String host, long latencyNanos) {
+        SampleWindow window = samplesByHost.get(host);
+        if (window == null) {
+            window = samplesByHost.computeIfAbsent(host, h -> new SampleWindow(sampleWindowSize));
+        }
+        window.add(latencyNanos);
+    }
+
+    /**
+     * @param percentile The percentile to calculate, between 0 (exclusive) and 100 (inclusive), e.g. 95 for p95.
+     * @return The given percentile of the given host's recent latencies in nanoseconds, or -1 if the host doesn't have
+     * enough samples yet.
+     */
+    public long latencyPercentileNanos(@NotNull String host, double percentile) {
+        SampleWindow window = samplesByHost.get(host);
+        if (window == null) {
+            return -1;
+        }
+
+        long[] samples = window.copySamples();
+        if (samples.length < minSamples) {
+            return -1;
+        }
+
+        Arrays.sort(samples);
+        int index = (int) Math.ceil((percentile / 100) * samples.length) - 1;
+        return samples[Math.max(0, Math.min(samples.length - 1, index))];
+    }
+
+    protected static class SampleWindow {
+        private final long[] samples;
+        private int nextIndex;
+        private int count;
+
+        protected SampleWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        protected synchronized void add(long sample) {
+            samples[nextIndex] = sample;
+            nextIndex = (nextIndex + 1) % samples.length;
+            if (count < samples.length) {
+                count++;
+            }
+        }
+
+        protected synchronized long[] copySamples() {
+            return Arrays.copyOf(samples, count);
+        }
+    }
+}
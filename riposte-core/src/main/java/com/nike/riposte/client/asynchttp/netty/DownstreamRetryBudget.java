@@ -0,0 +1,101 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Limits the extra attempts (hedged requests or connect retries) that {@link StreamingAsyncHttpClient} sends to each
+ * downstream host to a percentage of the calls made to that host. Each host has a balance that every call adds {@code
+ * maxExtraAttemptsPercent / 100} to (up to {@code maxBurst}), and each extra attempt spends 1 from. Balances start out
+ * empty, so the number of extra attempts sent to a host never exceeds the percentage of its calls.
+ */
+@SuppressWarnings("WeakerAccess")
+public class DownstreamRetryBudget {
+
+    // Balances are kept in millionths of an extra attempt so they don't drift the way summed doubles would.
+    protected static final long UNITS_PER_ATTEMPT = 1_000_000;
+
+    protected final long creditPerCall;
+    protected final long maxBalance;
+
+    protected final ConcurrentMap<String, Balance> balancesByHost = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxExtraAttemptsPercent The max number of extra attempts per host, as a percentage of the calls made to
+     * that host. Cannot be negative.
+     * @param maxBurst The max balance a host can save up. Must be at least 1.
+     */
+    public DownstreamRetryBudget(double maxExtraAttemptsPercent, int maxBurst) {
+        if (maxExtraAttemptsPercent < 0 || Double.isNaN(maxExtraAttemptsPercent)) {
+            throw new IllegalArgumentException(
+                "maxExtraAttemptsPercent cannot be negative. maxExtraAttemptsPercent=" + maxExtraAttemptsPercent
+            );
+        }
+
+        if (maxBurst < 1) {
+            throw new IllegalArgumentException("maxBurst must be at least 1. maxBurst=" + maxBurst);
+        }
+
+        this.maxBalance = maxBurst * UNITS_PER_ATTEMPT;
+        this.creditPerCall = Math.min(maxBalance, Math.round(maxExtraAttemptsPercent * (UNITS_PER_ATTEMPT / 100)));
+    }
+
+    /**
+     * Call once for each downstream call made to the given host, hedged or retried or not.
+     */
+    public void recordCall(@NotNull String host) {
+        if (creditPerCall <= 0) {
+            return;
+        }
+
+        balanceFor(host).deposit(creditPerCall, maxBalance);
+    }
+
+    /**
+     * @return true if the given host's budget had room for an extra attempt (which is now spent), false if the extra
+     * attempt should be skipped.
+     */
+    public boolean tryAcquireExtraAttempt(@NotNull String host) {
+        Balance balance = balancesByHost.get(host);
+        return balance != null && balance.tryWithdraw();
+    }
+
+    /**
+     * @return The given host's current balance, i.e. the number of extra attempts it could send right now.
+     */
+    public double getBalance(@NotNull String host) {
+        Balance balance = balancesByHost.get(host);
+        return (balance == null) ? 0 : ((double) balance.get()) / UNITS_PER_ATTEMPT;
+    }
+
+    protected @NotNull Balance balanceFor(@NotNull String host) {
+        Balance balance = balancesByHost.get(host);
+        if (balance == null) {
+            balance = balancesByHost.computeIfAbsent(host, h -> new Balance());
+        }
+        return balance;
+    }
+
+    protected static class Balance {
+        private long value;
+
+        protected synchronized void deposit(long amount, long max) {
+            value = Math.min(max, value + amount);
+        }
+
+        protected synchronized boolean tryWithdraw() {
+            if (value < UNITS_PER_ATTEMPT) {
+                return false;
+            }
+
+            value -= UNITS_PER_ATTEMPT;
+            return true;
+        }
+
+        protected synchronized long get() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.client.asynchttp.netty.DownstreamExtraAttemptMetrics.AttemptType;
+import com.nike.riposte.client.asynchttp.netty.DownstreamExtraAttemptMetrics.Outcome;
+import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.StreamingCallback;
+import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.StreamingChannel;
+import com.nike.riposte.server.http.ProxyRouterProcessingState;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+
+/**
+ * Races a hedged copy of a proxy/router downstream call against the original (primary) call. {@link
+ * StreamingAsyncHttpClient} creates one of these for each call that opts into hedging, and every callback from both
+ * attempts goes through it:
+ * <ul>
+ *     <li>
+ *         If the primary attempt hasn't started getting a response when the hedge delay runs out (and the host's
+ *         hedge budget allows it), a copy of the request is sent on a different connection, preferably to a
+ *         different IP address.
+ *     </li>
+ *     <li>
+ *         The first attempt to deliver a {@link HttpResponse} wins, and from then on only the winner's messages and
+ *         errors are passed to the delegate callback. The loser is cancelled - its connection is closed rather than
+ *         reused, since it may be in the middle of a response.
+ *     </li>
+ *     <li>
+ *         An error from one attempt is held back while the other attempt can still answer, so the caller only sees
+ *         an error if both attempts fail.
+ *     </li>
+ * </ul>
+ * The primary attempt's time-to-first-response is what feeds the host's {@link DownstreamResponseLatencyTracker}, no
+ * matter which attempt wins. If the primary attempt is cancelled before it responds (because the hedge won, or the
+ * whole call was cancelled) then the time it had been waiting so far is recorded instead. Recording the winner's
+ * latency would only ever keep the faster of the two attempts, which would make the hedge delay shrink over time and
+ * hedging more and more aggressive.
+ *
+ * <p>This is also set as the {@link ProxyRouterProcessingState#getStreamingCallback()}, so cancelling the downstream
+ * request (e.g. because the original caller went away) cancels both attempts.
+ */
+@SuppressWarnings("WeakerAccess")
+public class HedgedDownstreamCall implements StreamingCallback {
+
+    private static final Logger logger = LoggerFactory.getLogger(HedgedDownstreamCall.class);
+
+    protected static final int PRIMARY = 0;
+    protected static final int HEDGE = 1;
+
+    /**
+     * Sends the hedged copy of the request.
+     */
+    @FunctionalInterface
+    public interface HedgedAttemptStarter {
+
+        /**
+         * @param hedgeCallback The callback for the hedged attempt.
+         * @param primaryAddress The downstream address the primary attempt is connected to, which the hedged attempt
+         * should avoid if the host has other addresses. May be null if it isn't known.
+         * @return A future that completes the same way as the one returned by {@link
+         * StreamingAsyncHttpClient#streamDownstreamCall(String, int, io.netty.handler.codec.http.HttpRequest, boolean,
+         * boolean, StreamingCallback, long, boolean, boolean, ProxyRouterProcessingState,
+         * com.nike.riposte.server.http.RequestInfo, io.netty.channel.ChannelHandlerContext)}.
+         */
+        @NotNull CompletableFuture<StreamingChannel> startHedgedAttempt(
+            @NotNull StreamingCallback hedgeCallback, @Nullable InetSocketAddress primaryAddress
+        );
+    }
+
+    protected final @NotNull StreamingAsyncHttpClient client;
+    protected final @NotNull StreamingCallback delegate;
+    protected final @NotNull String downstreamHost;
+    protected final @NotNull ProxyRouterProcessingState proxyRouterProcessingState;
+    protected final @NotNull DownstreamRetryBudget hedgeBudget;
+    protected final @NotNull DownstreamResponseLatencyTracker responseLatencyTracker;
+    protected final @NotNull HedgedAttemptStarter hedgedAttemptStarter;
+
+    protected final Attempt[] attempts = new Attempt[]{new Attempt(PRIMARY), new Attempt(HEDGE)};
+    // The rest of these are guarded by this.
+    protected int winner = -1;
+    protected boolean finished = false;
+    protected boolean primaryLatencyRecorded = false;
+    protected @Nullable ScheduledFuture<?> hedgeTimer;
+
+    public HedgedDownstreamCall(
+        @NotNull StreamingAsyncHttpClient client,
+        @NotNull StreamingCallback delegate,
+        @NotNull String downstreamHost,
+        @NotNull ProxyRouterProcessingState proxyRouterProcessingState,
+        @NotNull DownstreamRetryBudget hedgeBudget,
+        @NotNull DownstreamResponseLatencyTracker responseLatencyTracker,
+        @NotNull HedgedAttemptStarter hedgedAttemptStarter
+    ) {
+        this.client = client;
+        this.delegate = delegate;
+        this.downstreamHost = downstreamHost;
+        this.proxyRouterProcessingState = proxyRouterProcessingState;
+        this.hedgeBudget = hedgeBudget;
+        this.responseLatencyTracker = responseLatencyTracker;
+        this.hedgedAttemptStarter = hedgedAttemptStarter;
+        this.attempts[PRIMARY].startTimeNanos = System.nanoTime();
+    }
+
+    /**
+     * @return The callback to give the primary attempt.
+     */
+    public @NotNull StreamingCallback getPrimaryAttemptCallback() {
+        return attempts[PRIMARY];
+    }
+
+    /**
+     * Starts tracking the primary attempt, and schedules the hedged attempt to be sent on the given executor after
+     * the given delay (measured from when this instance was created). Pass a negative delay to only track the
+     * primary attempt, e.g. when the delay is based on a latency percentile that the host doesn't have enough samples
+     * for yet.
+     */
+    public void start(
+        @NotNull CompletableFuture<StreamingChannel> primaryStreamingChannel,
+        long hedgeDelayMillis,
+        @NotNull EventExecutor executor
+    ) {
+        synchronized (this) {
+            attempts[PRIMARY].streamingChannel = primaryStreamingChannel;
+        }
+
+        // If the primary attempt can't even connect then its caller reports the error directly, and there's nothing
+        //      left to hedge.
+        primaryStreamingChannel.whenComplete((sc, error) -> {
+            if (error != null) {
+                synchronized (this) {
+                    attempts[PRIMARY].failed = true;
+                    finished = true;
+                    cancelHedgeTimer();
+                }
+            }
+        });
+
+        if (hedgeDelayMillis >= 0) {
+            long primaryElapsedNanos = System.nanoTime() - attempts[PRIMARY].startTimeNanos;
+            long remainingDelayNanos = TimeUnit.MILLISECONDS.toNanos(hedgeDelayMillis) - primaryElapsedNanos;
+            synchronized (this) {
+                if (!finished && winner == -1) {
+                    hedgeTimer = executor.schedule(
+                        this::sendHedgedAttemptIfStillNeeded, Math.max(0, remainingDelayNanos), TimeUnit.NANOSECONDS
+                    );
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the hedged attempt, unless the primary attempt has already started getting a response (or failed), the
+     * primary attempt hasn't finished sending its request yet, or the host's hedge budget has run out.
+     */
+    protected void sendHedgedAttemptIfStillNeeded() {
+        CompletableFuture<StreamingChannel> primaryStreamingChannel;
+        synchronized (this) {
+            hedgeTimer = null;
+            if (winner != -1 || finished || attempts[PRIMARY].failed) {
+                return;
+            }
+            primaryStreamingChannel = attempts[PRIMARY].streamingChannel;
+        }
+
+        // Only requests that have been fully sent can be copied.
+        if (primaryStreamingChannel == null
+            || !primaryStreamingChannel.isDone()
+            || primaryStreamingChannel.isCompletedExceptionally()
+            || !proxyRouterProcessingState.isRequestStreamingCompletedSuccessfully()
+        ) {
+            return;
+        }
+
+        if (!hedgeBudget.tryAcquireExtraAttempt(downstreamHost)) {
+            client.fireDownstreamExtraAttemptEvent(downstreamHost, AttemptType.HEDGE, Outcome.BUDGET_EXHAUSTED);
+            return;
+        }
+
+        Attempt hedge = attempts[HEDGE];
+        CompletableFuture<StreamingChannel> hedgeStreamingChannel = new CompletableFuture<>();
+        synchronized (this) {
+            if (winner != -1 || finished) {
+                return;
+            }
+            hedge.startTimeNanos = System.nanoTime();
+            hedge.streamingChannel = hedgeStreamingChannel;
+        }
+
+        client.fireDownstreamExtraAttemptEvent(downstreamHost, AttemptType.HEDGE, Outcome.SENT);
+
+        try {
+            SocketAddress primaryAddress = primaryStreamingChannel.join().getChannel().remoteAddress();
+            hedgedAttemptStarter.startHedgedAttempt(
+                hedge,
+                (primaryAddress instanceof InetSocketAddress) ? (InetSocketAddress) primaryAddress : null
+            ).whenComplete((sc, error) -> {
+                if (error == null) {
+                    hedgeStreamingChannel.complete(sc);
+                }
+                else {
+                    hedgeStreamingChannel.completeExceptionally(error);
+                }
+            });
+        }
+        catch (Throwable t) {
+            hedgeStreamingChannel.completeExceptionally(t);
+        }
+
+        hedgeStreamingChannel.whenComplete((sc, error) -> {
+            if (error != null) {
+                hedge.unrecoverableErrorOccurred(error, true);
+                return;
+            }
+
+            // The copy of the request has no body, so finish it off right away.
+            sc.streamChunk(LastHttpContent.EMPTY_LAST_CONTENT).addListener(future -> {
+                if (!future.isSuccess()) {
+                    hedge.unrecoverableErrorOccurred(future.cause(), true);
+                    sc.closeChannelDueToUnrecoverableError(future.cause());
+                }
+            });
+        });
+    }
+
+    protected void onMessageReceived(@NotNull Attempt attempt, @NotNull HttpObject msg) {
+        Attempt loser = null;
+        boolean recordPrimaryLatency = false;
+        boolean forward;
+        synchronized (this) {
+            if (winner == -1 && !finished && msg instanceof HttpResponse) {
+                winner = attempt.index;
+                loser = attempts[1 - attempt.index];
+                cancelHedgeTimer();
+                // If the hedge won then the primary attempt is about to be cancelled, so this is as long as it got.
+                recordPrimaryLatency = shouldRecordPrimaryLatency();
+            }
+            forward = (winner == attempt.index);
+        }
+
+        if (recordPrimaryLatency) {
+            recordPrimaryLatency();
+        }
+
+        if (loser != null) {
+            if (attempt.index == HEDGE) {
+                client.fireDownstreamExtraAttemptEvent(downstreamHost, AttemptType.HEDGE, Outcome.WON);
+            }
+            cancelAttempt(
+                loser,
+                new RuntimeException("Cancelled because the other attempt of a hedged downstream call responded first.")
+            );
+        }
+
+        // The loser's messages are dropped. They're released by the downstream pipeline once this returns.
+        if (forward) {
+            delegate.messageReceived(msg);
+        }
+    }
+
+    protected void onUnrecoverableError(
+        @NotNull Attempt attempt, @NotNull Throwable error, boolean guaranteesBrokenDownstreamResponse
+    ) {
+        boolean forward;
+        synchronized (this) {
+            attempt.failed = true;
+            if (winner != -1) {
+                forward = (winner == attempt.index);
+            }
+            else if (finished) {
+                forward = false;
+            }
+            else {
+                Attempt other = attempts[1 - attempt.index];
+                if (other.streamingChannel != null && !other.failed) {
+                    // The other attempt can still answer.
+                    forward = false;
+                }
+                else {
+                    forward = true;
+                    finished = true;
+                    cancelHedgeTimer();
+                }
+            }
+        }
+
+        if (forward) {
+            delegate.unrecoverableErrorOccurred(error, guaranteesBrokenDownstreamResponse);
+        }
+        else if (logger.isDebugEnabled()) {
+            logger.debug(
+                "Ignoring error from one attempt of a hedged downstream call. downstream_host={}, attempt={}, "
+                + "error={}", downstreamHost, (attempt.index == PRIMARY) ? "primary" : "hedge", error.toString()
+            );
+        }
+    }
+
+    /**
+     * @return true if the primary attempt's latency should be recorded now, i.e. it hasn't been recorded yet and the
+     * primary attempt hasn't failed. Marks it as recorded if so. Must be called while holding this object's lock.
+     */
+    protected boolean shouldRecordPrimaryLatency() {
+        if (primaryLatencyRecorded || attempts[PRIMARY].failed) {
+            return false;
+        }
+
+        primaryLatencyRecorded = true;
+        return true;
+    }
+
+    protected void recordPrimaryLatency() {
+        responseLatencyTracker.recordLatency(downstreamHost, System.nanoTime() - attempts[PRIMARY].startTimeNanos);
+    }
+
+    protected void cancelAttempt(@NotNull Attempt attempt, @NotNull Throwable reason) {
+        CompletableFuture<StreamingChannel> streamingChannel;
+        synchronized (this) {
+            streamingChannel = attempt.streamingChannel;
+        }
+
+        if (streamingChannel != null) {
+            streamingChannel.thenAccept(sc -> sc.cancelDownstreamCall(reason));
+        }
+    }
+
+    protected synchronized void cancelHedgeTimer() {
+        if (hedgeTimer != null) {
+            hedgeTimer.cancel(false);
+            hedgeTimer = null;
+        }
+    }
+
+    /**
+     * Treated as coming from the primary attempt - this is only called directly when streaming the request's content
+     * chunks to the primary attempt fails.
+     */
+    @Override
+    public void messageReceived(HttpObject msg) {
+        attempts[PRIMARY].messageReceived(msg);
+    }
+
+    /**
+     * Treated as coming from the primary attempt - this is only called directly when streaming the request's content
+     * chunks to the primary attempt fails.
+     */
+    @Override
+    public void unrecoverableErrorOccurred(Throwable error, boolean guaranteesBrokenDownstreamResponse) {
+        attempts[PRIMARY].unrecoverableErrorOccurred(error, guaranteesBrokenDownstreamResponse);
+    }
+
+    /**
+     * Passes the cancellation to the delegate, and closes the hedged attempt's connection if there is one. The
+     * primary attempt's connection is closed by {@link ProxyRouterProcessingState#cancelDownstreamRequest(Throwable)}.
+     * If the primary attempt hadn't responded yet then the time it had been waiting so far is recorded as its latency.
+     */
+    @Override
+    public void cancelStreamingToOriginalCaller() {
+        CompletableFuture<StreamingChannel> hedgeStreamingChannel;
+        boolean recordPrimaryLatency;
+        synchronized (this) {
+            recordPrimaryLatency = (winner == -1 && !finished && shouldRecordPrimaryLatency());
+            finished = true;
+            cancelHedgeTimer();
+            hedgeStreamingChannel = attempts[HEDGE].streamingChannel;
+        }
+
+        if (recordPrimaryLatency) {
+            recordPrimaryLatency();
+        }
+
+        delegate.cancelStreamingToOriginalCaller();
+
+        if (hedgeStreamingChannel != null) {
+            Throwable reason = new RuntimeException("The hedged downstream call was cancelled.");
+            hedgeStreamingChannel.thenAccept(sc -> {
+                if (sc.isDownstreamCallActive()) {
+                    sc.closeChannelDueToUnrecoverableError(reason);
+                }
+            });
+        }
+    }
+
+    /**
+     * The callback given to one of the attempts.
+     */
+    protected class Attempt implements StreamingCallback {
+        protected final int index;
+        protected long startTimeNanos;
+        // These are guarded by the HedgedDownstreamCall.
+        protected @Nullable CompletableFuture<StreamingChannel> streamingChannel;
+        protected boolean failed = false;
+
+        protected Attempt(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void messageReceived(HttpObject msg) {
+            onMessageReceived(this, msg);
+        }
+
+        @Override
+        public void unrecoverableErrorOccurred(Throwable error, boolean guaranteesBrokenDownstreamResponse) {
+            onUnrecoverableError(this, error, guaranteesBrokenDownstreamResponse);
+        }
+
+        @Override
+        public void cancelStreamingToOriginalCaller() {
+            HedgedDownstreamCall.this.cancelStreamingToOriginalCaller();
+        }
+    }
+}
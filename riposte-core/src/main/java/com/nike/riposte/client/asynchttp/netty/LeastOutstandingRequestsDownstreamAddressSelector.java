@@ -0,0 +1,44 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.server.http.DownstreamAddressSelector;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A {@link DownstreamAddressSelector} that picks the address with the fewest calls in flight, breaking ties at random.
+ * Slow or overloaded addresses hold on to their calls longer, so they naturally get fewer new ones.
+ */
+public class LeastOutstandingRequestsDownstreamAddressSelector implements DownstreamAddressSelector {
+
+    @Override
+    public @NotNull InetSocketAddress select(
+        @NotNull String hostname,
+        @NotNull List<@NotNull InetSocketAddress> addresses,
+        @NotNull AddressStats stats
+    ) {
+        InetSocketAddress best = null;
+        int bestOutstanding = Integer.MAX_VALUE;
+        int numTied = 0;
+        for (InetSocketAddress address : addresses) {
+            int outstanding = stats.getOutstandingRequests(address);
+            if (outstanding < bestOutstanding) {
+                best = address;
+                bestOutstanding = outstanding;
+                numTied = 1;
+            }
+            else if (outstanding == bestOutstanding) {
+                // Reservoir sampling - each of the tied addresses ends up with the same chance of being picked.
+                numTied++;
+                if (ThreadLocalRandom.current().nextInt(numTied) == 0) {
+                    best = address;
+                }
+            }
+        }
+
+        return (best == null) ? addresses.get(0) : best;
+    }
+}
@@ -0,0 +1,164 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterDnsResolverConfig;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.EventLoop;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.handler.codec.dns.DefaultDnsQuestion;
+import io.netty.handler.codec.dns.DnsRawRecord;
+import io.netty.handler.codec.dns.DnsRecord;
+import io.netty.handler.codec.dns.DnsRecordType;
+import io.netty.resolver.dns.DnsNameResolver;
+import io.netty.resolver.dns.DnsNameResolverBuilder;
+import io.netty.util.NetUtil;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.Future;
+
+/**
+ * A {@link DownstreamAddressLookup} that uses Netty's non-blocking {@link DnsNameResolver}. The resolver runs on a
+ * single event loop, so lookups never block the calling thread. IPv4 addresses are preferred - AAAA records are only
+ * queried if the hostname has no A records. Each successful lookup's TTL is the lowest TTL of the returned DNS
+ * records. Hostnames that are IP address literals are returned as-is without a query, and entries in the hosts file
+ * (e.g. {@code localhost}) are honored.
+ */
+@SuppressWarnings("WeakerAccess")
+public class NettyDnsAddressLookup implements DownstreamAddressLookup, Closeable {
+
+    /**
+     * The TTL reported for hostnames that are IP address literals - they never change, so cache them as long as the
+     * cache allows.
+     */
+    protected static final long IP_ADDRESS_LITERAL_TTL_MILLIS = Long.MAX_VALUE;
+
+    protected final @NotNull DnsNameResolver dnsNameResolver;
+
+    /**
+     * @param eventLoop The event loop the DNS resolver runs on.
+     * @param datagramChannelClass The channel class to send DNS queries with - should match the transport of {@code
+     * eventLoop} (e.g. {@code NioDatagramChannel} for a NIO event loop).
+     * @param config The DNS resolver config.
+     */
+    public NettyDnsAddressLookup(@NotNull EventLoop eventLoop,
+                                 @NotNull Class<? extends DatagramChannel> datagramChannelClass,
+                                 @NotNull ProxyRouterDnsResolverConfig config) {
+        this(
+            new DnsNameResolverBuilder(eventLoop)
+                .channelType(datagramChannelClass)
+                .queryTimeoutMillis(config.queryTimeoutMillis())
+                .build()
+        );
+    }
+
+    public NettyDnsAddressLookup(@NotNull DnsNameResolver dnsNameResolver) {
+        this.dnsNameResolver = dnsNameResolver;
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Result> lookup(@NotNull String hostname) {
+        InetAddress ipAddressLiteral = NetUtil.createInetAddressFromIpAddressString(hostname);
+        if (ipAddressLiteral != null) {
+            return CompletableFuture.completedFuture(
+                new Result(Collections.singletonList(ipAddressLiteral), IP_ADDRESS_LITERAL_TTL_MILLIS)
+            );
+        }
+
+        CompletableFuture<Result> result = new CompletableFuture<>();
+        lookupRecords(hostname, DnsRecordType.A, result);
+        return result;
+    }
+
+    protected void lookupRecords(@NotNull String hostname,
+                                 @NotNull DnsRecordType recordType,
+                                 @NotNull CompletableFuture<Result> result) {
+        Future<List<DnsRecord>> recordsFuture = queryRecords(hostname, recordType);
+        recordsFuture.addListener(future -> {
+            Result parsedRecords = null;
+            Throwable error = recordsFuture.cause();
+            if (recordsFuture.isSuccess()) {
+                List<DnsRecord> records = recordsFuture.getNow();
+                try {
+                    parsedRecords = toResult(hostname, recordType, records);
+                }
+                catch (Throwable t) {
+                    error = t;
+                }
+                finally {
+                    records.forEach(ReferenceCountUtil::release);
+                }
+            }
+
+            if (parsedRecords != null) {
+                result.complete(parsedRecords);
+                return;
+            }
+
+            // Fall back to AAAA records if there are no A records. Other failures (e.g. query timeouts) fail right
+            //      away rather than waiting on a second query that would likely fail the same way.
+            boolean noRecordsFound = (error == null || error instanceof UnknownHostException);
+            if (noRecordsFound && DnsRecordType.A.equals(recordType)) {
+                lookupRecords(hostname, DnsRecordType.AAAA, result);
+                return;
+            }
+
+            result.completeExceptionally(
+                (error == null)
+                ? new UnknownHostException("No A or AAAA records found for hostname: " + hostname)
+                : error
+            );
+        });
+    }
+
+    /**
+     * @return A future for the DNS records of the given type for the given hostname. The records must be released
+     * once they've been read.
+     */
+    protected @NotNull Future<List<DnsRecord>> queryRecords(@NotNull String hostname,
+                                                            @NotNull DnsRecordType recordType) {
+        return dnsNameResolver.resolveAll(new DefaultDnsQuestion(hostname, recordType));
+    }
+
+    /**
+     * @return The addresses and lowest TTL of the given records that match the given type, or null if none of the
+     * records match.
+     */
+    protected @Nullable Result toResult(@NotNull String hostname,
+                                        @NotNull DnsRecordType recordType,
+                                        @NotNull List<DnsRecord> records) throws UnknownHostException {
+        List<InetAddress> addresses = new ArrayList<>(records.size());
+        long minTtlSeconds = Long.MAX_VALUE;
+        for (DnsRecord record : records) {
+            if (!recordType.equals(record.type()) || !(record instanceof DnsRawRecord)) {
+                continue;
+            }
+
+            ByteBuf content = ((DnsRawRecord) record).content();
+            byte[] addressBytes = new byte[content.readableBytes()];
+            content.getBytes(content.readerIndex(), addressBytes);
+            addresses.add(InetAddress.getByAddress(hostname, addressBytes));
+            minTtlSeconds = Math.min(minTtlSeconds, record.timeToLive());
+        }
+
+        if (addresses.isEmpty()) {
+            return null;
+        }
+
+        return new Result(addresses, minTtlSeconds * 1000);
+    }
+
+    @Override
+    public void close() {
+        dnsNameResolver.close();
+    }
+}
@@ -0,0 +1,65 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.server.http.DownstreamAddressSelector;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A {@link DownstreamAddressSelector} that picks two addresses at random and calls the cheaper one, where an
+ * address's cost is its latency average multiplied by its calls in flight plus one (see {@link #cost(
+ * InetSocketAddress, AddressStats)}). Comparing two random addresses rather than all of them keeps the pick cheap and
+ * stops every call from piling onto whichever address looks best at the moment, while still steering calls away from
+ * slow or overloaded addresses.
+ *
+ * <p>An address with no latency average yet (i.e. no call to it has finished) only gets one call at a time until its
+ * first call finishes, so a new address is probed before it gets flooded.
+ */
+@SuppressWarnings("WeakerAccess")
+public class PowerOfTwoChoicesDownstreamAddressSelector implements DownstreamAddressSelector {
+
+    /**
+     * The cost of an address that has a call in flight but no latency average yet.
+     */
+    protected static final double UNPROBED_ADDRESS_BUSY_COST = Double.MAX_VALUE / 2;
+
+    @Override
+    public @NotNull InetSocketAddress select(
+        @NotNull String hostname,
+        @NotNull List<@NotNull InetSocketAddress> addresses,
+        @NotNull AddressStats stats
+    ) {
+        int numAddresses = addresses.size();
+        if (numAddresses == 1) {
+            return addresses.get(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int firstIndex = random.nextInt(numAddresses);
+        // Pick a different second index by skipping over the first.
+        int secondIndex = random.nextInt(numAddresses - 1);
+        if (secondIndex >= firstIndex) {
+            secondIndex++;
+        }
+
+        InetSocketAddress first = addresses.get(firstIndex);
+        InetSocketAddress second = addresses.get(secondIndex);
+        return (cost(second, stats) < cost(first, stats)) ? second : first;
+    }
+
+    /**
+     * @return The cost of calling the given address - lower is better.
+     */
+    protected double cost(@NotNull InetSocketAddress address, @NotNull AddressStats stats) {
+        int outstanding = stats.getOutstandingRequests(address);
+        double latencyEwmaMillis = stats.getLatencyEwmaMillis(address);
+        if (latencyEwmaMillis == 0 && outstanding > 0) {
+            return UNPROBED_ADDRESS_BUSY_COST;
+        }
+
+        return latencyEwmaMillis * (outstanding + 1);
+    }
+}
@@ -0,0 +1,157 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionMaxAgeConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionPoolConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterDnsResolverConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterOutlierDetectionConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterRetryBudgetConfig;
+import com.nike.riposte.server.http.DownstreamAddressSelector;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Immutable group of the optional {@link StreamingAsyncHttpClient} settings for proxy/router downstream calls -
+ * connection pooling, DNS resolution, address selection, event loop sharing, connection max age, retry budgets, and
+ * outlier detection. These are handed around together (e.g. from {@link
+ * com.nike.riposte.server.channelpipeline.HttpChannelInitializer} to {@link StreamingAsyncHttpClient}) so adding
+ * another setting doesn't mean adding another constructor argument everywhere. Use {@link
+ * #fromServerConfig(ServerConfig)} to pick them all up from a {@link ServerConfig}, or {@link #newBuilder()} to set
+ * them individually. Every setting that isn't set is null (or false), which turns that feature off - see {@link
+ * #NONE}.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ProxyRouterClientConfig {
+
+    /**
+     * A {@link ProxyRouterClientConfig} with none of the optional features turned on.
+     */
+    public static final @NotNull ProxyRouterClientConfig NONE = newBuilder().build();
+
+    /**
+     * See {@link ServerConfig#proxyRouterConnectionPoolConfig()}.
+     */
+    public final @Nullable ProxyRouterConnectionPoolConfig connectionPoolConfig;
+    /**
+     * See {@link ServerConfig#proxyRouterDnsResolverConfig()}.
+     */
+    public final @Nullable ProxyRouterDnsResolverConfig dnsResolverConfig;
+    /**
+     * See {@link ServerConfig#proxyRouterDownstreamAddressSelector()}.
+     */
+    public final @Nullable DownstreamAddressSelector downstreamAddressSelector;
+    /**
+     * See {@link ServerConfig#isProxyRouterWorkerEventLoopSharingEnabled()}.
+     */
+    public final boolean workerEventLoopSharingEnabled;
+    /**
+     * See {@link ServerConfig#proxyRouterConnectionMaxAgeConfig()}.
+     */
+    public final @Nullable ProxyRouterConnectionMaxAgeConfig connectionMaxAgeConfig;
+    /**
+     * See {@link ServerConfig#proxyRouterRetryBudgetConfig()}.
+     */
+    public final @Nullable ProxyRouterRetryBudgetConfig retryBudgetConfig;
+    /**
+     * See {@link ServerConfig#proxyRouterOutlierDetectionConfig()}.
+     */
+    public final @Nullable ProxyRouterOutlierDetectionConfig outlierDetectionConfig;
+
+    protected ProxyRouterClientConfig(@NotNull Builder builder) {
+        this.connectionPoolConfig = builder.connectionPoolConfig;
+        this.dnsResolverConfig = builder.dnsResolverConfig;
+        this.downstreamAddressSelector = builder.downstreamAddressSelector;
+        this.workerEventLoopSharingEnabled = builder.workerEventLoopSharingEnabled;
+        this.connectionMaxAgeConfig = builder.connectionMaxAgeConfig;
+        this.retryBudgetConfig = builder.retryBudgetConfig;
+        this.outlierDetectionConfig = builder.outlierDetectionConfig;
+    }
+
+    /**
+     * @return A new builder for creating {@link ProxyRouterClientConfig}s.
+     */
+    public static @NotNull Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * @return A {@link ProxyRouterClientConfig} with all the settings taken from the matching {@link ServerConfig}
+     * methods.
+     */
+    public static @NotNull ProxyRouterClientConfig fromServerConfig(@NotNull ServerConfig serverConfig) {
+        return newBuilder()
+            .withConnectionPoolConfig(serverConfig.proxyRouterConnectionPoolConfig())
+            .withDnsResolverConfig(serverConfig.proxyRouterDnsResolverConfig())
+            .withDownstreamAddressSelector(serverConfig.proxyRouterDownstreamAddressSelector())
+            .withWorkerEventLoopSharingEnabled(serverConfig.isProxyRouterWorkerEventLoopSharingEnabled())
+            .withConnectionMaxAgeConfig(serverConfig.proxyRouterConnectionMaxAgeConfig())
+            .withRetryBudgetConfig(serverConfig.proxyRouterRetryBudgetConfig())
+            .withOutlierDetectionConfig(serverConfig.proxyRouterOutlierDetectionConfig())
+            .build();
+    }
+
+    /**
+     * Builder for {@link ProxyRouterClientConfig}.
+     */
+    public static final class Builder {
+
+        private ProxyRouterConnectionPoolConfig connectionPoolConfig;
+        private ProxyRouterDnsResolverConfig dnsResolverConfig;
+        private DownstreamAddressSelector downstreamAddressSelector;
+        private boolean workerEventLoopSharingEnabled;
+        private ProxyRouterConnectionMaxAgeConfig connectionMaxAgeConfig;
+        private ProxyRouterRetryBudgetConfig retryBudgetConfig;
+        private ProxyRouterOutlierDetectionConfig outlierDetectionConfig;
+
+        private Builder() {
+        }
+
+        public @NotNull Builder withConnectionPoolConfig(
+            @Nullable ProxyRouterConnectionPoolConfig connectionPoolConfig
+        ) {
+            this.connectionPoolConfig = connectionPoolConfig;
+            return this;
+        }
+
+        public @NotNull Builder withDnsResolverConfig(@Nullable ProxyRouterDnsResolverConfig dnsResolverConfig) {
+            this.dnsResolverConfig = dnsResolverConfig;
+            return this;
+        }
+
+        public @NotNull Builder withDownstreamAddressSelector(
+            @Nullable DownstreamAddressSelector downstreamAddressSelector
+        ) {
+            this.downstreamAddressSelector = downstreamAddressSelector;
+            return this;
+        }
+
+        public @NotNull Builder withWorkerEventLoopSharingEnabled(boolean workerEventLoopSharingEnabled) {
+            this.workerEventLoopSharingEnabled = workerEventLoopSharingEnabled;
+            return this;
+        }
+
+        public @NotNull Builder withConnectionMaxAgeConfig(
+            @Nullable ProxyRouterConnectionMaxAgeConfig connectionMaxAgeConfig
+        ) {
+            this.connectionMaxAgeConfig = connectionMaxAgeConfig;
+            return this;
+        }
+
+        public @NotNull Builder withRetryBudgetConfig(@Nullable ProxyRouterRetryBudgetConfig retryBudgetConfig) {
+            this.retryBudgetConfig = retryBudgetConfig;
+            return this;
+        }
+
+        public @NotNull Builder withOutlierDetectionConfig(
+            @Nullable ProxyRouterOutlierDetectionConfig outlierDetectionConfig
+        ) {
+            this.outlierDetectionConfig = outlierDetectionConfig;
+            return this;
+        }
+
+        public @NotNull ProxyRouterClientConfig build() {
+            return new ProxyRouterClientConfig(this);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionPrewarmConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionPrewarmConfig.Target;
+import com.nike.riposte.server.hooks.PostServerStartupHook;
+import com.nike.riposte.server.hooks.ServerShutdownHook;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.impl.SimpleProxyRouterEndpoint;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * Opens proxy/router downstream connections when the server starts up, and optionally keeps a minimum number of them
+ * open afterward, as described by a {@link ProxyRouterConnectionPrewarmConfig} - see {@link
+ * ServerConfig#proxyRouterConnectionPrewarmConfig()}. {@code Server} runs this as a {@link PostServerStartupHook}
+ * before the ones in {@link ServerConfig#postServerStartupHooks()}, and as a {@link ServerShutdownHook} to stop the
+ * background top-ups. The connections themselves are opened by {@link
+ * StreamingAsyncHttpClient#prewarmConnections(String, int, boolean, boolean, int, EventLoopGroup)}.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ProxyRouterConnectionPrewarmer implements PostServerStartupHook, ServerShutdownHook {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProxyRouterConnectionPrewarmer.class);
+
+    protected final @NotNull StreamingAsyncHttpClient streamingAsyncHttpClient;
+    protected final @NotNull ProxyRouterConnectionPrewarmConfig config;
+    protected final @NotNull List<Target> targets;
+    protected final @Nullable EventLoopGroup workerEventLoopGroup;
+
+    protected @Nullable ScheduledExecutorService minIdleTopUpScheduler;
+    protected @Nullable CompletableFuture<?> inFlightTopUp;
+
+    /**
+     * @param streamingAsyncHttpClient The client whose connection pools should be pre-warmed.
+     * @param config The pre-warming config.
+     * @param appEndpoints The server's endpoints - the downstream hosts of any {@link SimpleProxyRouterEndpoint}s are
+     * added to {@link ProxyRouterConnectionPrewarmConfig#targets()} if {@link
+     * ProxyRouterConnectionPrewarmConfig#includeSimpleProxyRouterEndpoints()} is true.
+     * @param workerEventLoopGroup The server's worker event loop group, used when worker event loop sharing is enabled
+     * (see {@link ServerConfig#isProxyRouterWorkerEventLoopSharingEnabled()}). May be null.
+     */
+    public ProxyRouterConnectionPrewarmer(
+        @NotNull StreamingAsyncHttpClient streamingAsyncHttpClient,
+        @NotNull ProxyRouterConnectionPrewarmConfig config,
+        @Nullable Collection<@NotNull Endpoint<?>> appEndpoints,
+        @Nullable EventLoopGroup workerEventLoopGroup
+    ) {
+        //noinspection ConstantConditions
+        if (streamingAsyncHttpClient == null) {
+            throw new NullPointerException("streamingAsyncHttpClient cannot be null");
+        }
+
+        //noinspection ConstantConditions
+        if (config == null) {
+            throw new NullPointerException("config cannot be null");
+        }
+
+        this.streamingAsyncHttpClient = streamingAsyncHttpClient;
+        this.config = config;
+        this.targets = determineTargets(config, appEndpoints);
+        this.workerEventLoopGroup = workerEventLoopGroup;
+    }
+
+    /**
+     * @return The de-duplicated list of {@link ProxyRouterConnectionPrewarmConfig#targets()}, plus the downstream hosts
+     * of the given endpoints' {@link SimpleProxyRouterEndpoint}s if {@link
+     * ProxyRouterConnectionPrewarmConfig#includeSimpleProxyRouterEndpoints()} is true.
+     */
+    protected static @NotNull List<Target> determineTargets(
+        @NotNull ProxyRouterConnectionPrewarmConfig config, @Nullable Collection<@NotNull Endpoint<?>> appEndpoints
+    ) {
+        Set<Target> result = new LinkedHashSet<>(config.targets());
+
+        if (config.includeSimpleProxyRouterEndpoints() && appEndpoints != null) {
+            for (Endpoint<?> endpoint : appEndpoints) {
+                if (endpoint instanceof SimpleProxyRouterEndpoint) {
+                    SimpleProxyRouterEndpoint simpleProxyEndpoint = (SimpleProxyRouterEndpoint) endpoint;
+                    result.add(new Target(
+                        simpleProxyEndpoint.getDownstreamDestinationHost(),
+                        simpleProxyEndpoint.getDownstreamDestinationPort(),
+                        simpleProxyEndpoint.isDownstreamCallHttps(),
+                        false
+                    ));
+                }
+            }
+        }
+
+        return Collections.unmodifiableList(new ArrayList<>(result));
+    }
+
+    /**
+     * @return The downstream hosts this instance opens connections to.
+     */
+    public @NotNull List<Target> getTargets() {
+        return targets;
+    }
+
+    /**
+     * Opens {@link ProxyRouterConnectionPrewarmConfig#connectionsPerHost()} connections to each target, waiting up to
+     * {@link ProxyRouterConnectionPrewarmConfig#startupTimeoutMillis()} for them. Targets that can't be pre-warmed in
+     * time are logged and skipped rather than failing startup. Then starts the background top-ups if {@link
+     * ProxyRouterConnectionPrewarmConfig#minIdleConnectionsPerHost()} is greater than 0.
+     */
+    @Override
+    public void executePostServerStartupHook(@NotNull ServerConfig serverConfig, @NotNull Channel channel) {
+        if (!targets.isEmpty()) {
+            long startTimeNanos = System.nanoTime();
+            long deadlineNanos = startTimeNanos + TimeUnit.MILLISECONDS.toNanos(config.startupTimeoutMillis());
+
+            List<CompletableFuture<Integer>> results = prewarmAllTargets(config.connectionsPerHost());
+            int readyConnections = 0;
+            for (int i = 0; i < targets.size(); i++) {
+                Target target = targets.get(i);
+                try {
+                    long remainingNanos = Math.max(0, deadlineNanos - System.nanoTime());
+                    readyConnections += results.get(i).get(remainingNanos, TimeUnit.NANOSECONDS);
+                }
+                catch (TimeoutException ex) {
+                    logger.warn(
+                        "Timed out waiting for proxy/router downstream connections to be pre-warmed. Server startup "
+                        + "will continue without waiting any longer. target={}, startup_timeout_millis={}",
+                        target, config.startupTimeoutMillis()
+                    );
+                }
+                catch (ExecutionException ex) {
+                    logger.warn(
+                        "Unable to pre-warm proxy/router downstream connections. target={}, error={}",
+                        target, String.valueOf(ex.getCause())
+                    );
+                }
+                catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    logger.warn("Interrupted while waiting for proxy/router downstream connections to be pre-warmed.");
+                    break;
+                }
+            }
+
+            logger.info(
+                "Finished pre-warming proxy/router downstream connections. num_targets={}, ready_connections={}, "
+                + "elapsed_millis={}",
+                targets.size(), readyConnections, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTimeNanos)
+            );
+        }
+
+        startMinIdleTopUpsIfNecessary();
+    }
+
+    /**
+     * Stops the background top-ups, if they were started.
+     */
+    @Override
+    public synchronized void executeServerShutdownHook(@NotNull ServerConfig serverConfig, @NotNull Channel channel) {
+        if (minIdleTopUpScheduler != null) {
+            minIdleTopUpScheduler.shutdownNow();
+            minIdleTopUpScheduler = null;
+        }
+    }
+
+    /**
+     * Schedules {@link #topUpMinIdleConnections()} to run every {@link
+     * ProxyRouterConnectionPrewarmConfig#minIdleCheckIntervalMillis()} if {@link
+     * ProxyRouterConnectionPrewarmConfig#minIdleConnectionsPerHost()} is greater than 0 and there are targets.
+     */
+    protected synchronized void startMinIdleTopUpsIfNecessary() {
+        if (config.minIdleConnectionsPerHost() <= 0 || targets.isEmpty() || minIdleTopUpScheduler != null) {
+            return;
+        }
+
+        long intervalMillis = config.minIdleCheckIntervalMillis();
+        minIdleTopUpScheduler = Executors.newSingleThreadScheduledExecutor(
+            new DefaultThreadFactory("proxyRouterConnectionPrewarmer", true)
+        );
+        minIdleTopUpScheduler.scheduleWithFixedDelay(
+            this::topUpMinIdleConnections, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS
+        );
+    }
+
+    /**
+     * Tops each target's connection pools back up to {@link
+     * ProxyRouterConnectionPrewarmConfig#minIdleConnectionsPerHost()} connections. Does nothing if the previous
+     * top-up is still in progress, e.g. because a bounded pool is full and the top-up is waiting for connections.
+     */
+    protected void topUpMinIdleConnections() {
+        try {
+            if (inFlightTopUp != null && !inFlightTopUp.isDone()) {
+                return;
+            }
+
+            inFlightTopUp = CompletableFuture.allOf(
+                prewarmAllTargets(config.minIdleConnectionsPerHost()).toArray(new CompletableFuture[0])
+            );
+        }
+        catch (Throwable t) {
+            // Don't let anything escape, since that would cancel all future top-ups.
+            logger.warn("Unexpected error while topping up proxy/router downstream connections.", t);
+        }
+    }
+
+    /**
+     * @return A future per target (in the same order as {@link #targets}) that completes with the number of
+     * connections that were made ready for it.
+     */
+    protected @NotNull List<CompletableFuture<Integer>> prewarmAllTargets(int connectionsPerHost) {
+        List<CompletableFuture<Integer>> results = new ArrayList<>(targets.size());
+        for (Target target : targets) {
+            CompletableFuture<Integer> result;
+            try {
+                result = streamingAsyncHttpClient.prewarmConnections(
+                    target.host, target.port, target.isHttps, target.relaxedHttpsValidation, connectionsPerHost,
+                    workerEventLoopGroup
+                );
+            }
+            catch (Throwable t) {
+                result = new CompletableFuture<>();
+                result.completeExceptionally(t);
+            }
+            results.add(result);
+        }
+        return results;
+    }
+}
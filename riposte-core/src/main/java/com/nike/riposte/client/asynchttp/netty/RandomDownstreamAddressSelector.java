@@ -0,0 +1,31 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.server.http.DownstreamAddressSelector;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A {@link DownstreamAddressSelector} that picks an address at random - the same thing proxy/router calls do when no
+ * selector is configured. Useful for switching individual downstream calls back to random picks when {@link
+ * com.nike.riposte.server.config.ServerConfig#proxyRouterDownstreamAddressSelector()} is set to something else.
+ */
+public class RandomDownstreamAddressSelector implements DownstreamAddressSelector {
+
+    /**
+     * A shared instance - this class has no state, so there's no need for more than one.
+     */
+    public static final @NotNull RandomDownstreamAddressSelector INSTANCE = new RandomDownstreamAddressSelector();
+
+    @Override
+    public @NotNull InetSocketAddress select(
+        @NotNull String hostname,
+        @NotNull List<@NotNull InetSocketAddress> addresses,
+        @NotNull AddressStats stats
+    ) {
+        return addresses.get(ThreadLocalRandom.current().nextInt(addresses.size()));
+    }
+}
@@ -0,0 +1,37 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.server.http.DownstreamAddressSelector;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link DownstreamAddressSelector} that cycles through each hostname's addresses in order, so every address gets
+ * exactly its share of the calls. It doesn't look at the per-address stats, so slow addresses still get their full
+ * share - see {@link LeastOutstandingRequestsDownstreamAddressSelector} or {@link
+ * PowerOfTwoChoicesDownstreamAddressSelector} if that's a problem.
+ */
+@SuppressWarnings("WeakerAccess")
+public class RoundRobinDownstreamAddressSelector implements DownstreamAddressSelector {
+
+    protected final ConcurrentMap<String, AtomicInteger> nextIndexByHostname = new ConcurrentHashMap<>();
+
+    @Override
+    public @NotNull InetSocketAddress select(
+        @NotNull String hostname,
+        @NotNull List<@NotNull InetSocketAddress> addresses,
+        @NotNull AddressStats stats
+    ) {
+        AtomicInteger nextIndex = nextIndexByHostname.get(hostname);
+        if (nextIndex == null) {
+            nextIndex = nextIndexByHostname.computeIfAbsent(hostname, host -> new AtomicInteger());
+        }
+
+        return addresses.get(Math.floorMod(nextIndex.getAndIncrement(), addresses.size()));
+    }
+}
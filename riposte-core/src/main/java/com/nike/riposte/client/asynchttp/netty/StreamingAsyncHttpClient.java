@@ -4,14 +4,26 @@ import com.nike.backstopper.exception.WrapperException;
 import com.nike.internal.util.Pair;
 import com.nike.internal.util.StringUtils;
 import com.nike.riposte.client.asynchttp.netty.downstreampipeline.DownstreamIdleChannelTimeoutHandler;
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.client.asynchttp.netty.DownstreamExtraAttemptMetrics.AttemptType;
+import com.nike.riposte.client.asynchttp.netty.DownstreamExtraAttemptMetrics.Outcome;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionMaxAgeConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionPoolConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterDnsResolverConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterOutlierDetectionConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterRetryBudgetConfig;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
 import com.nike.riposte.server.config.distributedtracing.ProxyRouterSpanNamingAndTaggingStrategy;
 import com.nike.riposte.server.error.exception.DownstreamChannelClosedUnexpectedlyException;
+import com.nike.riposte.server.error.exception.DownstreamConnectionPoolExhaustedException;
 import com.nike.riposte.server.error.exception.DownstreamIdleChannelTimeoutException;
 import com.nike.riposte.server.error.exception.HostnameResolutionException;
 import com.nike.riposte.server.error.exception.NativeIoExceptionWrapper;
+import com.nike.riposte.server.http.DownstreamAddressSelector;
 import com.nike.riposte.server.http.ProxyRouterProcessingState;
+import com.nike.riposte.server.http.RequestDeadline;
 import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
 import com.nike.wingtips.Span;
 import com.nike.wingtips.Span.TimestampedAnnotation;
 import com.nike.wingtips.Tracer;
@@ -27,19 +39,28 @@ import org.slf4j.MDC;
 import java.lang.reflect.Field;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.net.UnknownHostException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLException;
@@ -56,9 +77,11 @@ import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.CombinedChannelDuplexHandler;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDatagramChannel;
 import io.netty.channel.epoll.EpollEventLoopGroup;
 import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
@@ -68,10 +91,13 @@ import io.netty.channel.pool.ChannelHealthChecker;
 import io.netty.channel.pool.ChannelPool;
 import io.netty.channel.pool.ChannelPoolMap;
 import io.netty.channel.pool.SimpleChannelPool;
+import io.netty.channel.socket.DatagramChannel;
 import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.channel.unix.Errors;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpRequest;
 import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpClientCodec;
@@ -84,7 +110,9 @@ import io.netty.handler.codec.http.HttpObjectEncoder;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpRequestEncoder;
 import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.handler.ssl.SslContext;
@@ -94,6 +122,7 @@ import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
 import io.netty.util.Attribute;
 import io.netty.util.AttributeKey;
 import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.Promise;
 
@@ -122,18 +151,52 @@ public class StreamingAsyncHttpClient {
     public static final String HTTP_CLIENT_CODEC_HANDLER_NAME = "httpClientCodec";
     public static final String CHUNK_SENDER_HANDLER_NAME = "chunkSender";
     public static final String ERROR_HANDLER_NAME = "errorHandler";
+    public static final String PREWARM_ERROR_HANDLER_NAME = "prewarmErrorHandler";
     public static final String DOWNSTREAM_IDLE_CHANNEL_TIMEOUT_HANDLER_NAME = "idleDownstreamChannelTimeoutHandler";
     public static final String DOWNSTREAM_CALL_TIMEOUT_HANDLER_NAME = "downstreamCallTimeoutHandler";
     public static final String DEBUG_LOGGER_HANDLER_NAME = "debugLoggerHandler";
+    public static final String FLUSH_CONSOLIDATION_HANDLER_NAME = "flushConsolidationHandler";
     private static final Logger logger = LoggerFactory.getLogger(StreamingAsyncHttpClient.class);
     public static final String HTTPS = "HTTPS";
     private volatile ChannelPoolMap<InetSocketAddress, SimpleChannelPool> poolMap;
+    // Only used when workerEventLoopSharingEnabled is true. Each worker event loop gets its own pool map, created the
+    //      first time a downstream call is made from that event loop.
+    private final ConcurrentMap<EventLoop, ChannelPoolMap<InetSocketAddress, SimpleChannelPool>>
+        poolMapsByWorkerEventLoop = new ConcurrentHashMap<>();
+    private final AtomicInteger workerEventLoopPoolMapCounter = new AtomicInteger();
+    // Only used when dnsResolverConfig is non-null. Created in getPoolMap() along with the event loop group it runs on.
+    private volatile CachingDownstreamAddressResolver downstreamAddressResolver;
     private SslContext clientSslCtx;
     private SslContext insecureSslCtx;
     private final boolean debugChannelLifecycleLoggingEnabled;
     private final long idleChannelTimeoutMillis;
     private final int downstreamConnectionTimeoutMillis;
+    private final int flushConsolidationMaxPendingFlushes;
+    private final @Nullable ProxyRouterConnectionPoolConfig connectionPoolConfig;
+    private final @Nullable MetricsListener metricsListener;
+    private final @Nullable ProxyRouterDnsResolverConfig dnsResolverConfig;
+    private final @Nullable DownstreamAddressSelector downstreamAddressSelector;
+    private final boolean workerEventLoopSharingEnabled;
+    private final @Nullable ProxyRouterConnectionMaxAgeConfig connectionMaxAgeConfig;
+    // Both null when no ProxyRouterRetryBudgetConfig was given, which disables hedging and connect retries.
+    private final @Nullable DownstreamRetryBudget hedgeBudget;
+    private final @Nullable DownstreamRetryBudget connectRetryBudget;
+    private final DownstreamResponseLatencyTracker responseLatencyTracker = new DownstreamResponseLatencyTracker();
+    // Null when no ProxyRouterOutlierDetectionConfig was given, which keeps every resolved IP address in rotation.
+    private final @Nullable DownstreamOutlierDetector outlierDetector;
+    // Fed by the connection pools' acquire/release lifecycle - see createChannelPool().
+    private final DownstreamAddressStatsTracker downstreamAddressStats = new DownstreamAddressStatsTracker();
     protected static final AttributeKey<Boolean> CHANNEL_IS_BROKEN_ATTR = AttributeKey.newInstance("channelIsBroken");
+    protected static final AttributeKey<Long> DOWNSTREAM_CALL_START_NANOS_ATTR =
+        AttributeKey.newInstance("downstreamCallStartNanos");
+    // Only set when connectionMaxAgeConfig is non-null - see assignConnectionMaxAgeIfNecessary().
+    protected static final AttributeKey<Long> CONNECTION_FIRST_ACQUIRED_NANOS_ATTR =
+        AttributeKey.newInstance("connectionFirstAcquiredNanos");
+    protected static final AttributeKey<Long> CONNECTION_MAX_AGE_NANOS_ATTR =
+        AttributeKey.newInstance("connectionMaxAgeNanos");
+    // Only set when outlierDetector is non-null - see closeChannelIfDownstreamAddressEjected().
+    protected static final AttributeKey<Long> OUTLIER_EJECTION_COUNT_WHEN_ACQUIRED_ATTR =
+        AttributeKey.newInstance("outlierEjectionCountWhenAcquired");
     private final ProxyRouterChannelHealthChecker CHANNEL_HEALTH_CHECK_INSTANCE = new ProxyRouterChannelHealthChecker();
     public final static String SHOULD_LOG_BAD_MESSAGES_AFTER_REQUEST_FINISHES_SYSTEM_PROP_KEY =
         "StreamingAsyncHttpClient.debug.shouldLogBadMessagesAfterRequestFinishes";
@@ -141,6 +204,7 @@ public class StreamingAsyncHttpClient {
             System.getProperty(SHOULD_LOG_BAD_MESSAGES_AFTER_REQUEST_FINISHES_SYSTEM_PROP_KEY, "false").trim()
     );
 
+    private final @NotNull DistributedTracingConfig<Span> distributedTracingConfig;
     private final @NotNull ProxyRouterSpanNamingAndTaggingStrategy<Span> proxySpanTaggingStrategy;
 
     private final Random randomGenerator = new Random();
@@ -151,9 +215,147 @@ public class StreamingAsyncHttpClient {
         boolean debugChannelLifecycleLoggingEnabled,
         @NotNull DistributedTracingConfig<Span> distributedTracingConfig
     ) {
+        this(
+            idleChannelTimeoutMillis, downstreamConnectionTimeoutMillis, debugChannelLifecycleLoggingEnabled, 0,
+            distributedTracingConfig
+        );
+    }
+
+    /**
+     * @param flushConsolidationMaxPendingFlushes The max number of flushes to consolidate into a single socket flush
+     * on downstream channels, or 0 (or less) to disable flush consolidation. See {@link
+     * com.nike.riposte.server.config.ServerConfig#proxyRouterFlushConsolidationMaxPendingFlushes()}.
+     */
+    public StreamingAsyncHttpClient(
+        long idleChannelTimeoutMillis,
+        long downstreamConnectionTimeoutMillis,
+        boolean debugChannelLifecycleLoggingEnabled,
+        int flushConsolidationMaxPendingFlushes,
+        @NotNull DistributedTracingConfig<Span> distributedTracingConfig
+    ) {
+        this(
+            idleChannelTimeoutMillis, downstreamConnectionTimeoutMillis, debugChannelLifecycleLoggingEnabled,
+            flushConsolidationMaxPendingFlushes, null, null, null, false, null, null, null, null,
+            distributedTracingConfig
+        );
+    }
+
+    /**
+     * @param flushConsolidationMaxPendingFlushes The max number of flushes to consolidate into a single socket flush
+     * on downstream channels, or 0 (or less) to disable flush consolidation. See {@link
+     * com.nike.riposte.server.config.ServerConfig#proxyRouterFlushConsolidationMaxPendingFlushes()}.
+     * @param clientConfig The optional proxy/router client settings - pass {@link ProxyRouterClientConfig#NONE} to
+     * leave them all off. See the matching parameters of {@link #StreamingAsyncHttpClient(long, long, boolean, int,
+     * ProxyRouterConnectionPoolConfig, ProxyRouterDnsResolverConfig, DownstreamAddressSelector, boolean,
+     * ProxyRouterConnectionMaxAgeConfig, ProxyRouterRetryBudgetConfig, ProxyRouterOutlierDetectionConfig,
+     * MetricsListener, DistributedTracingConfig)}.
+     * @param metricsListener The metrics listener that bounded connection pools, address selection, connection
+     * retirement, extra attempts, and outlier detection report to - can be null.
+     */
+    public StreamingAsyncHttpClient(
+        long idleChannelTimeoutMillis,
+        long downstreamConnectionTimeoutMillis,
+        boolean debugChannelLifecycleLoggingEnabled,
+        int flushConsolidationMaxPendingFlushes,
+        @NotNull ProxyRouterClientConfig clientConfig,
+        @Nullable MetricsListener metricsListener,
+        @NotNull DistributedTracingConfig<Span> distributedTracingConfig
+    ) {
+        this(
+            idleChannelTimeoutMillis, downstreamConnectionTimeoutMillis, debugChannelLifecycleLoggingEnabled,
+            flushConsolidationMaxPendingFlushes, clientConfig.connectionPoolConfig, clientConfig.dnsResolverConfig,
+            clientConfig.downstreamAddressSelector, clientConfig.workerEventLoopSharingEnabled,
+            clientConfig.connectionMaxAgeConfig, clientConfig.retryBudgetConfig, clientConfig.outlierDetectionConfig,
+            metricsListener, distributedTracingConfig
+        );
+    }
+
+    /**
+     * @param flushConsolidationMaxPendingFlushes The max number of flushes to consolidate into a single socket flush
+     * on downstream channels, or 0 (or less) to disable flush consolidation. See {@link
+     * com.nike.riposte.server.config.ServerConfig#proxyRouterFlushConsolidationMaxPendingFlushes()}.
+     * @param connectionPoolConfig The limits for each downstream connection pool, or null for unbounded pools. See
+     * {@link com.nike.riposte.server.config.ServerConfig#proxyRouterConnectionPoolConfig()}.
+     * @param dnsResolverConfig The config for resolving downstream hostnames asynchronously with a cache, or null to
+     * resolve them with a blocking {@link InetAddress#getAllByName(String)} call. See {@link
+     * com.nike.riposte.server.config.ServerConfig#proxyRouterDnsResolverConfig()}.
+     * @param downstreamAddressSelector The selector that picks which IP address to call when a downstream hostname
+     * resolves to more than one, or null to pick one at random. Individual calls can override this - see {@link
+     * #streamDownstreamCall(String, int, HttpRequest, boolean, boolean, StreamingCallback, long, boolean, boolean,
+     * ProxyRouterProcessingState, RequestInfo, ChannelHandlerContext, DownstreamAddressSelector)}.
+     * @param workerEventLoopSharingEnabled Pass true to make downstream calls on the event loop of the incoming
+     * request's channel (with connection pools per event loop), or false to make them on a separate proxy/router
+     * event loop group. See {@link
+     * com.nike.riposte.server.config.ServerConfig#isProxyRouterWorkerEventLoopSharingEnabled()}.
+     * @param connectionMaxAgeConfig The max age of downstream connections before they're retired rather than reused,
+     * or null to reuse connections for as long as they stay open. See {@link
+     * com.nike.riposte.server.config.ServerConfig#proxyRouterConnectionMaxAgeConfig()}.
+     * @param retryBudgetConfig The per-host budgets for hedged requests and connect retries, or null to disable both.
+     * See {@link com.nike.riposte.server.config.ServerConfig#proxyRouterRetryBudgetConfig()}.
+     * @param outlierDetectionConfig The config for ejecting misbehaving downstream IP addresses, or null to keep every
+     * resolved IP address in rotation. See {@link
+     * com.nike.riposte.server.config.ServerConfig#proxyRouterOutlierDetectionConfig()}.
+     * @param metricsListener The metrics listener that bounded connection pools, address selection, connection
+     * retirement, extra attempts, and outlier detection report to - can be null.
+     */
+    public StreamingAsyncHttpClient(
+        long idleChannelTimeoutMillis,
+        long downstreamConnectionTimeoutMillis,
+        boolean debugChannelLifecycleLoggingEnabled,
+        int flushConsolidationMaxPendingFlushes,
+        @Nullable ProxyRouterConnectionPoolConfig connectionPoolConfig,
+        @Nullable ProxyRouterDnsResolverConfig dnsResolverConfig,
+        @Nullable DownstreamAddressSelector downstreamAddressSelector,
+        boolean workerEventLoopSharingEnabled,
+        @Nullable ProxyRouterConnectionMaxAgeConfig connectionMaxAgeConfig,
+        @Nullable ProxyRouterRetryBudgetConfig retryBudgetConfig,
+        @Nullable ProxyRouterOutlierDetectionConfig outlierDetectionConfig,
+        @Nullable MetricsListener metricsListener,
+        @NotNull DistributedTracingConfig<Span> distributedTracingConfig
+    ) {
+        if (connectionMaxAgeConfig != null) {
+            if (connectionMaxAgeConfig.maxAgeMillis() <= 0) {
+                throw new IllegalArgumentException(
+                    "connectionMaxAgeConfig.maxAgeMillis() must be greater than 0. maxAgeMillis="
+                    + connectionMaxAgeConfig.maxAgeMillis()
+                );
+            }
+
+            if (connectionMaxAgeConfig.maxJitterMillis() < 0) {
+                throw new IllegalArgumentException(
+                    "connectionMaxAgeConfig.maxJitterMillis() cannot be negative. maxJitterMillis="
+                    + connectionMaxAgeConfig.maxJitterMillis()
+                );
+            }
+        }
+
+
         this.idleChannelTimeoutMillis = idleChannelTimeoutMillis;
         this.downstreamConnectionTimeoutMillis = Math.toIntExact(downstreamConnectionTimeoutMillis);
         this.debugChannelLifecycleLoggingEnabled = debugChannelLifecycleLoggingEnabled;
+        this.flushConsolidationMaxPendingFlushes = flushConsolidationMaxPendingFlushes;
+        this.connectionPoolConfig = connectionPoolConfig;
+        this.dnsResolverConfig = dnsResolverConfig;
+        this.downstreamAddressSelector = downstreamAddressSelector;
+        this.workerEventLoopSharingEnabled = workerEventLoopSharingEnabled;
+        this.connectionMaxAgeConfig = connectionMaxAgeConfig;
+        if (retryBudgetConfig == null) {
+            this.hedgeBudget = null;
+            this.connectRetryBudget = null;
+        }
+        else {
+            this.hedgeBudget = new DownstreamRetryBudget(
+                retryBudgetConfig.maxHedgedAttemptsPercent(), retryBudgetConfig.maxBurst()
+            );
+            this.connectRetryBudget = new DownstreamRetryBudget(
+                retryBudgetConfig.maxConnectRetriesPercent(), retryBudgetConfig.maxBurst()
+            );
+        }
+        this.outlierDetector = (outlierDetectionConfig == null)
+                               ? null
+                               : new DownstreamOutlierDetector(outlierDetectionConfig);
+        this.metricsListener = metricsListener;
+        this.distributedTracingConfig = distributedTracingConfig;
         this.proxySpanTaggingStrategy = distributedTracingConfig.getProxyRouterSpanNamingAndTaggingStrategy();
     }
 
@@ -400,6 +602,22 @@ public class StreamingAsyncHttpClient {
                              + "done. ignored_unrecoverable_error={}", cause.toString());
             }
         }
+
+        /**
+         * Cancels the downstream call, e.g. because it lost the race against the other attempt of a hedged call. This
+         * is handled like any other error on the downstream channel: the call's subspan is tagged and completed, the
+         * call's {@link StreamingCallback} is notified, and the channel is closed rather than being returned to the
+         * pool for reuse. Does nothing if the call is no longer active.
+         */
+        public void cancelDownstreamCall(Throwable cause) {
+            channel.eventLoop().execute(() -> {
+                // The call might have finished (and the channel might have been handed out for a different call)
+                //      while we were waiting to run on the event loop.
+                if (callActiveHolder.heldObject) {
+                    channel.pipeline().fireExceptionCaught(cause);
+                }
+            });
+        }
     }
 
     public interface StreamingCallback {
@@ -436,6 +654,172 @@ public class StreamingAsyncHttpClient {
         }
     }
 
+    /**
+     * Returns a future for the {@link InetSocketAddress} to use for a call to the given hostname and port. If this
+     * client was given a {@link ProxyRouterDnsResolverConfig} then the hostname is resolved by a {@link
+     * CachingDownstreamAddressResolver} without blocking the calling thread, and the returned future may complete
+     * later (on the DNS resolver's event loop) if the hostname isn't cached yet. Otherwise the hostname is resolved
+     * right away with a blocking call to {@link #resolveHostnameToInetSocketAddressWithMultiIpSupport(String, int)},
+     * which throws a {@link HostnameResolutionException} if it can't be resolved.
+     */
+    protected CompletableFuture<InetSocketAddress> resolveDownstreamAddress(String hostname, int port) {
+        if (dnsResolverConfig == null) {
+            return CompletableFuture.completedFuture(
+                resolveHostnameToInetSocketAddressWithMultiIpSupport(hostname, port)
+            );
+        }
+
+        // getPoolMap() creates the resolver the first time it's called.
+        getPoolMap();
+        return downstreamAddressResolver.resolve(hostname, port);
+    }
+
+    /**
+     * Same as {@link #resolveDownstreamAddress(String, int)}, except that if the given selector is non-null then it
+     * picks the address to call from all of the hostname's addresses (see {@link
+     * #selectDownstreamAddress(String, List, DownstreamAddressSelector)}) rather than picking one at random. If this
+     * client was given a {@link ProxyRouterOutlierDetectionConfig} then ejected addresses are left out either way -
+     * see {@link #filterEjectedDownstreamAddresses(String, List)}.
+     */
+    protected CompletableFuture<InetSocketAddress> resolveDownstreamAddress(
+        String hostname, int port, @Nullable DownstreamAddressSelector selector
+    ) {
+        if (selector == null && outlierDetector == null) {
+            return resolveDownstreamAddress(hostname, port);
+        }
+
+        return resolveAllDownstreamAddresses(hostname, port).thenApply(addresses -> {
+            List<InetSocketAddress> candidates = filterEjectedDownstreamAddresses(hostname, addresses);
+            return (selector == null)
+                   ? pickRandomDownstreamAddress(candidates)
+                   : selectDownstreamAddress(hostname, candidates, selector);
+        });
+    }
+
+    /**
+     * Same as {@link #resolveDownstreamAddress(String, int, DownstreamAddressSelector)}, except that the given
+     * addresses are avoided if the hostname has any others. Used to send connect retries and hedged requests to a
+     * different IP address than the attempts before them.
+     */
+    protected CompletableFuture<InetSocketAddress> resolveDownstreamAddressAvoiding(
+        String hostname,
+        int port,
+        @Nullable DownstreamAddressSelector selector,
+        @NotNull List<InetSocketAddress> addressesToAvoid
+    ) {
+        if (addressesToAvoid.isEmpty()) {
+            return resolveDownstreamAddress(hostname, port, selector);
+        }
+
+        return resolveAllDownstreamAddresses(hostname, port).thenApply(addresses -> {
+            List<InetSocketAddress> inRotation = filterEjectedDownstreamAddresses(hostname, addresses);
+            List<InetSocketAddress> candidates = new ArrayList<>(inRotation);
+            candidates.removeAll(addressesToAvoid);
+            if (candidates.isEmpty()) {
+                candidates = inRotation;
+            }
+
+            if (selector != null) {
+                return selectDownstreamAddress(hostname, candidates, selector);
+            }
+
+            return pickRandomDownstreamAddress(candidates);
+        });
+    }
+
+    protected InetSocketAddress pickRandomDownstreamAddress(List<InetSocketAddress> addresses) {
+        return (addresses.size() == 1)
+               ? addresses.get(0)
+               : addresses.get(randomGenerator.nextInt(addresses.size()));
+    }
+
+    /**
+     * @return The given addresses of the given hostname minus the ones that are currently ejected by outlier detection
+     * (see {@link DownstreamOutlierDetector#filterEjected(String, List)}), or the given addresses as-is if this client
+     * wasn't given a {@link ProxyRouterOutlierDetectionConfig}.
+     */
+    protected List<InetSocketAddress> filterEjectedDownstreamAddresses(
+        String hostname, List<InetSocketAddress> addresses
+    ) {
+        return (outlierDetector == null)
+               ? addresses
+               : outlierDetector.filterEjected(hostname, addresses);
+    }
+
+    /**
+     * Returns a future for all the {@link InetSocketAddress}es for the given hostname and port. The hostname is
+     * resolved the same way as {@link #resolveDownstreamAddress(String, int)} - without blocking if this client was
+     * given a {@link ProxyRouterDnsResolverConfig}, otherwise with a blocking call to {@link
+     * InetAddress#getAllByName(String)} that throws a {@link HostnameResolutionException} if it can't be resolved.
+     */
+    protected CompletableFuture<List<InetSocketAddress>> resolveAllDownstreamAddresses(String hostname, int port) {
+        if (dnsResolverConfig == null) {
+            try {
+                InetAddress[] ipAddresses = InetAddress.getAllByName(hostname);
+                List<InetSocketAddress> addresses = new ArrayList<>(ipAddresses.length);
+                for (InetAddress ipAddress : ipAddresses) {
+                    addresses.add(new InetSocketAddress(ipAddress, port));
+                }
+                return CompletableFuture.completedFuture(addresses);
+            }
+            catch (UnknownHostException e) {
+                throw new HostnameResolutionException(
+                    "Unable to resolve hostname into IP address(es). hostname=" + hostname, e
+                );
+            }
+        }
+
+        // getPoolMap() creates the resolver the first time it's called.
+        getPoolMap();
+        return downstreamAddressResolver.resolveAll(hostname, port);
+    }
+
+    /**
+     * Asks the given selector which of the given addresses to call (unless there's only one), and reports the pick to
+     * the metrics listener as a {@link ServerMetricsEvent#PROXY_ROUTER_DOWNSTREAM_ADDRESS_SELECTED} event.
+     */
+    protected InetSocketAddress selectDownstreamAddress(
+        String hostname, List<InetSocketAddress> addresses, @NotNull DownstreamAddressSelector selector
+    ) {
+        InetSocketAddress selected = (addresses.size() == 1)
+                                     ? addresses.get(0)
+                                     : selector.select(hostname, addresses, downstreamAddressStats);
+
+        if (metricsListener != null
+            && metricsListener.isInterestedIn(ServerMetricsEvent.PROXY_ROUTER_DOWNSTREAM_ADDRESS_SELECTED)) {
+            try {
+                metricsListener.onEvent(
+                    ServerMetricsEvent.PROXY_ROUTER_DOWNSTREAM_ADDRESS_SELECTED,
+                    new DownstreamAddressSelectionMetrics(hostname, selected, downstreamAddressStats)
+                );
+            }
+            catch (Throwable t) {
+                logger.error(
+                    "Metrics listener threw an exception while handling a downstream address selection event. "
+                    + "hostname={}", hostname, t
+                );
+            }
+        }
+
+        return selected;
+    }
+
+    /**
+     * Creates the {@link DownstreamAddressLookup} used to resolve downstream hostnames when this client was given a
+     * {@link ProxyRouterDnsResolverConfig}. Override this to plug in a different lookup, e.g. a stand-in for tests
+     * that don't have network access.
+     *
+     * @param eventLoop An event loop from the proxy/router event loop group that the lookup can run on.
+     * @param datagramChannelClass The datagram channel class for the proxy/router event loop group's transport.
+     * @return The lookup to use - defaults to a {@link NettyDnsAddressLookup}.
+     */
+    protected @NotNull DownstreamAddressLookup createDownstreamAddressLookup(
+        @NotNull EventLoop eventLoop,
+        @NotNull Class<? extends DatagramChannel> datagramChannelClass
+    ) {
+        return new NettyDnsAddressLookup(eventLoop, datagramChannelClass, Objects.requireNonNull(dnsResolverConfig));
+    }
+
     protected Bootstrap generateClientBootstrap(EventLoopGroup eventLoopGroup,
                                                 Class<? extends SocketChannel> channelClass) {
         Bootstrap bootstrap = new Bootstrap();
@@ -464,6 +848,7 @@ public class StreamingAsyncHttpClient {
                 if (result == null) {
                     EventLoopGroup eventLoopGroup;
                     Class<? extends SocketChannel> channelClass;
+                    Class<? extends DatagramChannel> datagramChannelClass;
                     if (Epoll.isAvailable()) {
                         logger.info(
                             "Creating channel pool. The epoll native transport is available. Using epoll instead of "
@@ -471,6 +856,7 @@ public class StreamingAsyncHttpClient {
                         );
                         eventLoopGroup = new EpollEventLoopGroup(0, createProxyRouterThreadFactory());
                         channelClass = EpollSocketChannel.class;
+                        datagramChannelClass = EpollDatagramChannel.class;
                     }
                     else {
                         logger.info(
@@ -480,184 +866,990 @@ public class StreamingAsyncHttpClient {
                         );
                         eventLoopGroup = new NioEventLoopGroup(0, createProxyRouterThreadFactory());
                         channelClass = NioSocketChannel.class;
+                        datagramChannelClass = NioDatagramChannel.class;
                     }
 
-                    result = new AbstractChannelPoolMap<InetSocketAddress, SimpleChannelPool>() {
-                        @Override
-                        protected SimpleChannelPool newPool(InetSocketAddress key) {
-                            return new SimpleChannelPool(
-                                generateClientBootstrap(eventLoopGroup, channelClass).remoteAddress(key),
-                                new ChannelPoolHandlerImpl(),
-                                CHANNEL_HEALTH_CHECK_INSTANCE
-                            ) {
-                                @Override
-                                public Future<Void> release(Channel channel, Promise<Void> promise) {
-                                    markChannelBrokenAndLogInfoIfHttpClientCodecStateIsNotZero(
-                                        channel, "Releasing channel back to pool"
-                                    );
-                                    return super.release(channel, promise);
-                                }
-
-                                @Override
-                                protected Channel pollChannel() {
-                                    Channel channel = super.pollChannel();
-
-                                    if (channel != null) {
-                                        markChannelBrokenAndLogInfoIfHttpClientCodecStateIsNotZero(
-                                            channel, "Polling channel to be reused before healthcheck"
-                                        );
-
-                                        if (idleChannelTimeoutMillis > 0) {
-                                            /*
-                                             We have a channel that is about to be re-used, so disable the idle channel
-                                             timeout detector if it exists. By disabling it here we make sure that it is
-                                             effectively "gone" before the healthcheck happens, preventing race
-                                             conditions. Note that we can't call pipeline.remove() here because we may
-                                             not be in the pipeline's event loop, so calling pipeline.remove() could
-                                             lead to thread deadlock, but we can't call channel.eventLoop().execute()
-                                             because we need it disabled *now* before the healthcheck happens. The
-                                             pipeline preparation phase will remove it safely soon, and in the meantime
-                                             it will be disabled.
-                                             */
-                                            ChannelPipeline pipeline = channel.pipeline();
-                                            ChannelHandler idleHandler =
-                                                pipeline.get(DOWNSTREAM_IDLE_CHANNEL_TIMEOUT_HANDLER_NAME);
-                                            if (idleHandler != null) {
-                                                ((DownstreamIdleChannelTimeoutHandler) idleHandler)
-                                                    .disableTimeoutHandling();
-                                            }
-                                        }
-                                    }
-
-                                    return channel;
-                                }
-
-                                @Override
-                                protected boolean offerChannel(Channel channel) {
-                                    if (idleChannelTimeoutMillis > 0) {
-                                        // Add an idle channel timeout detector. This will be removed before the
-                                        //      channel's reacquisition healthcheck runs (in pollChannel()), so we won't
-                                        //      have a race condition where this channel is handed over for use but gets
-                                        //      squashed right before it's about to be used.
-                                        // NOTE: Due to the semantics of pool.release() we're guaranteed to be in the
-                                        //      channel's event loop, so there's no chance of a thread deadlock when
-                                        //      messing with the pipeline.
-                                        channel.pipeline().addFirst(
-                                            DOWNSTREAM_IDLE_CHANNEL_TIMEOUT_HANDLER_NAME,
-                                            new DownstreamIdleChannelTimeoutHandler(
-                                                idleChannelTimeoutMillis, () -> true, false,
-                                                "StreamingAsyncHttpClientChannel-idle", null, null)
-                                        );
-                                    }
-
-                                    return super.offerChannel(channel);
-                                }
-                            };
-                        }
-                    };
-                    poolMap = result;
-                }
+                    result = createPoolMap(eventLoopGroup, channelClass, DownstreamAddressStatsTracker::addressName);
+
+                    if (dnsResolverConfig != null) {
+                        downstreamAddressResolver = new CachingDownstreamAddressResolver(
+                            createDownstreamAddressLookup(eventLoopGroup.next(), datagramChannelClass),
+                            dnsResolverConfig
+                        );
+                    }
+
+                    poolMap = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the pool map for a downstream call made on behalf of the given incoming request channel. If worker event
+     * loop sharing is enabled (see {@link
+     * com.nike.riposte.server.config.ServerConfig#isProxyRouterWorkerEventLoopSharingEnabled()}) and the incoming
+     * channel's transport can host downstream connections (see {@link
+     * #determineSocketChannelClassForWorkerEventLoop(Channel)}), then this is a pool map whose connections all live on
+     * the incoming channel's event loop. Otherwise it's the {@link #getPoolMap()} pool map, whose connections live on
+     * the proxy/router event loop group.
+     */
+    protected ChannelPoolMap<InetSocketAddress, SimpleChannelPool> getPoolMap(@Nullable Channel incomingChannel) {
+        if (!workerEventLoopSharingEnabled || incomingChannel == null) {
+            return getPoolMap();
+        }
+
+        Class<? extends SocketChannel> channelClass = determineSocketChannelClassForWorkerEventLoop(incomingChannel);
+        if (channelClass == null) {
+            return getPoolMap();
+        }
+
+        return getPoolMapForWorkerEventLoop(incomingChannel.eventLoop(), channelClass);
+    }
+
+    /**
+     * Returns the pool map whose connections all live on the given worker event loop, creating it the first time it's
+     * needed - see {@link #getPoolMap(Channel)}.
+     */
+    protected ChannelPoolMap<InetSocketAddress, SimpleChannelPool> getPoolMapForWorkerEventLoop(
+        @NotNull EventLoop workerEventLoop,
+        @NotNull Class<? extends SocketChannel> channelClass
+    ) {
+        ChannelPoolMap<InetSocketAddress, SimpleChannelPool> result = poolMapsByWorkerEventLoop.get(workerEventLoop);
+        if (result == null) {
+            result = poolMapsByWorkerEventLoop.computeIfAbsent(workerEventLoop, eventLoop -> {
+                // Each worker event loop's pools get their own names so their metrics don't collide.
+                String poolNameSuffix = "-workerEventLoop" + workerEventLoopPoolMapCounter.incrementAndGet();
+                return createPoolMap(
+                    eventLoop, channelClass,
+                    address -> DownstreamAddressStatsTracker.addressName(address) + poolNameSuffix
+                );
+            });
+        }
+        return result;
+    }
+
+    /**
+     * @return The {@link SocketChannel} class that downstream connections should use if they are going to share the
+     * given incoming channel's event loop, or null if the incoming channel's event loop can't host downstream
+     * connections. Only the NIO and native epoll transports are supported, since those are the only ones {@code
+     * Server} uses for its worker event loops.
+     */
+    protected @Nullable Class<? extends SocketChannel> determineSocketChannelClassForWorkerEventLoop(
+        @NotNull Channel incomingChannel
+    ) {
+        if (incomingChannel instanceof EpollSocketChannel) {
+            return EpollSocketChannel.class;
+        }
+
+        if (incomingChannel instanceof NioSocketChannel) {
+            return NioSocketChannel.class;
+        }
+
+        return null;
+    }
+
+    /**
+     * @return The {@link SocketChannel} class that downstream connections should use if they are going to share the
+     * event loops of the given worker event loop group, or null if they can't. This is the event loop group
+     * equivalent of {@link #determineSocketChannelClassForWorkerEventLoop(Channel)}.
+     */
+    protected @Nullable Class<? extends SocketChannel> determineSocketChannelClassForWorkerEventLoopGroup(
+        @NotNull EventLoopGroup workerEventLoopGroup
+    ) {
+        if (workerEventLoopGroup instanceof EpollEventLoopGroup) {
+            return EpollSocketChannel.class;
+        }
+
+        if (workerEventLoopGroup instanceof NioEventLoopGroup) {
+            return NioSocketChannel.class;
+        }
+
+        return null;
+    }
+
+    /**
+     * Creates a pool map whose pools make their connections with the given event loop group (which may be a single
+     * event loop) and channel class.
+     *
+     * @param poolNamer Generates the name of the pool for each downstream address - see {@link
+     * #createChannelPool(Bootstrap, InetSocketAddress, String)}.
+     */
+    protected ChannelPoolMap<InetSocketAddress, SimpleChannelPool> createPoolMap(
+        @NotNull EventLoopGroup eventLoopGroup,
+        @NotNull Class<? extends SocketChannel> channelClass,
+        @NotNull Function<InetSocketAddress, String> poolNamer
+    ) {
+        return new AbstractChannelPoolMap<InetSocketAddress, SimpleChannelPool>() {
+            @Override
+            protected SimpleChannelPool newPool(InetSocketAddress key) {
+                return createChannelPool(
+                    generateClientBootstrap(eventLoopGroup, channelClass).remoteAddress(key), key, poolNamer.apply(key)
+                );
+            }
+        };
+    }
+
+    /**
+     * Calls {@link #createChannelPool(Bootstrap, InetSocketAddress, String)} with the pool named after the downstream
+     * address (see {@link DownstreamAddressStatsTracker#addressName(InetSocketAddress)}).
+     */
+    protected SimpleChannelPool createChannelPool(Bootstrap bootstrap, InetSocketAddress downstreamAddress) {
+        return createChannelPool(
+            bootstrap, downstreamAddress, DownstreamAddressStatsTracker.addressName(downstreamAddress)
+        );
+    }
+
+    /**
+     * Creates the connection pool for a single downstream IP address and port - a {@link BoundedDownstreamChannelPool}
+     * if this client was given a {@link ProxyRouterConnectionPoolConfig}, otherwise an unbounded {@link
+     * SimpleChannelPool}. Either way the pool uses {@link ProxyRouterChannelHealthChecker}, and channels go through
+     * {@link #prepChannelPolledFromPool(Channel, InetSocketAddress, String)}, {@link
+     * #prepChannelReleasedToPool(Channel, InetSocketAddress, String)}, and {@link #prepChannelOfferedToPool(Channel)}
+     * on their way out of and back into the pool. Acquires and releases also feed the per-address stats used by {@link
+     * DownstreamAddressSelector}s - see {@link #trackDownstreamCallStarted(InetSocketAddress, Future, long)} and
+     * {@link #trackDownstreamCallFinished(InetSocketAddress, Channel)}. If this client was given a {@link
+     * ProxyRouterConnectionMaxAgeConfig} then connections that are too old are closed on release or poll rather than
+     * reused - see {@link #retireChannelIfPastMaxAge(Channel, InetSocketAddress, String)}. Likewise for connections to
+     * addresses that have been ejected by outlier detection - see {@link
+     * #closeChannelIfDownstreamAddressEjected(Channel, InetSocketAddress, String)}.
+     *
+     * @param poolName The name bounded pools use in their metrics and errors.
+     */
+    protected SimpleChannelPool createChannelPool(
+        Bootstrap bootstrap, InetSocketAddress downstreamAddress, String poolName
+    ) {
+        if (connectionPoolConfig == null) {
+            return new SimpleChannelPool(bootstrap, new ChannelPoolHandlerImpl(), CHANNEL_HEALTH_CHECK_INSTANCE) {
+                @Override
+                public Future<Channel> acquire(Promise<Channel> promise) {
+                    long acquireStartNanos = System.nanoTime();
+                    return trackDownstreamCallStarted(downstreamAddress, super.acquire(promise), acquireStartNanos);
+                }
+
+                @Override
+                public Future<Void> release(Channel channel, Promise<Void> promise) {
+                    return super.release(prepChannelReleasedToPool(channel, downstreamAddress, poolName), promise);
+                }
+
+                @Override
+                protected Channel pollChannel() {
+                    return prepChannelPolledFromPool(super.pollChannel(), downstreamAddress, poolName);
+                }
+
+                @Override
+                protected boolean offerChannel(Channel channel) {
+                    return super.offerChannel(prepChannelOfferedToPool(channel));
+                }
+            };
+        }
+
+        return new BoundedDownstreamChannelPool(
+            bootstrap, new ChannelPoolHandlerImpl(), CHANNEL_HEALTH_CHECK_INSTANCE, downstreamAddress, poolName,
+            connectionPoolConfig, metricsListener
+        ) {
+            @Override
+            public Future<Channel> acquire(Promise<Channel> promise) {
+                long acquireStartNanos = System.nanoTime();
+                return trackDownstreamCallStarted(downstreamAddress, super.acquire(promise), acquireStartNanos);
+            }
+
+            @Override
+            public Future<Void> release(Channel channel, Promise<Void> promise) {
+                return super.release(prepChannelReleasedToPool(channel, downstreamAddress, poolName), promise);
+            }
+
+            @Override
+            protected Channel pollChannel() {
+                return prepChannelPolledFromPool(super.pollChannel(), downstreamAddress, poolName);
+            }
+
+            @Override
+            protected boolean offerChannel(Channel channel) {
+                return super.offerChannel(prepChannelOfferedToPool(channel));
+            }
+        };
+    }
+
+    /**
+     * Called on each channel released back to the pool for the given address, before the pool takes it back. Stops
+     * tracking the call (see {@link #trackDownstreamCallFinished(InetSocketAddress, Channel)}), and closes the
+     * channel rather than letting it be reused if it's broken, past its max age, or connected to an ejected address.
+     *
+     * @return The same channel.
+     */
+    protected @NotNull Channel prepChannelReleasedToPool(
+        @NotNull Channel channel, @NotNull InetSocketAddress downstreamAddress, @NotNull String poolName
+    ) {
+        markChannelBrokenAndLogInfoIfHttpClientCodecStateIsNotZero(channel, "Releasing channel back to pool");
+        trackDownstreamCallFinished(downstreamAddress, channel);
+        retireChannelIfPastMaxAge(channel, downstreamAddress, poolName);
+        closeChannelIfDownstreamAddressEjected(channel, downstreamAddress, poolName);
+        return channel;
+    }
+
+    /**
+     * Calls {@link #prepChannelPolledFromPool(Channel)}, then closes the channel rather than letting it be reused if
+     * it's past its max age or connected to an ejected address.
+     *
+     * @param channel The channel that was polled, or null if the pool had no idle channels.
+     * @return The same channel.
+     */
+    protected @Nullable Channel prepChannelPolledFromPool(
+        @Nullable Channel channel, @NotNull InetSocketAddress downstreamAddress, @NotNull String poolName
+    ) {
+        prepChannelPolledFromPool(channel);
+        retireChannelIfPastMaxAge(channel, downstreamAddress, poolName);
+        closeChannelIfDownstreamAddressEjected(channel, downstreamAddress, poolName);
+        return channel;
+    }
+
+    /**
+     * Called when a call asks a pool for a connection to the given address. Counts the call as in flight for the
+     * address until the acquire fails, or until the connection is released (see {@link
+     * #trackDownstreamCallFinished(InetSocketAddress, Channel)}).
+     *
+     * @return The given acquire future.
+     */
+    protected Future<Channel> trackDownstreamCallStarted(
+        InetSocketAddress downstreamAddress, Future<Channel> acquireFuture, long acquireStartNanos
+    ) {
+        downstreamAddressStats.callStarted(downstreamAddress);
+        acquireFuture.addListener(future -> {
+            if (future.isSuccess()) {
+                Channel channel = acquireFuture.getNow();
+                channel.attr(DOWNSTREAM_CALL_START_NANOS_ATTR).set(acquireStartNanos);
+                assignConnectionMaxAgeIfNecessary(channel, acquireStartNanos);
+                if (outlierDetector != null) {
+                    channel.attr(OUTLIER_EJECTION_COUNT_WHEN_ACQUIRED_ATTR).setIfAbsent(
+                        outlierDetector.getEjectionCount(downstreamAddress)
+                    );
+                }
+            }
+            else {
+                downstreamAddressStats.callAbandoned(downstreamAddress);
+            }
+        });
+        return acquireFuture;
+    }
+
+    /**
+     * Called when the given connection to the given address is released back to its pool. Records the call's latency
+     * (from when it asked for the connection until now) and stops counting it as in flight. Does nothing for
+     * connections that weren't handed out by {@link #trackDownstreamCallStarted(InetSocketAddress, Future, long)}, or
+     * that were already released.
+     */
+    protected void trackDownstreamCallFinished(InetSocketAddress downstreamAddress, Channel channel) {
+        Long callStartNanos = channel.attr(DOWNSTREAM_CALL_START_NANOS_ATTR).getAndSet(null);
+        if (callStartNanos != null) {
+            downstreamAddressStats.callFinished(downstreamAddress, System.nanoTime() - callStartNanos);
+        }
+    }
+
+    /**
+     * Starts the given connection's max age clock the first time it's handed out by its pool, if this client was given
+     * a {@link ProxyRouterConnectionMaxAgeConfig}. Each connection gets its own max age - {@link
+     * ProxyRouterConnectionMaxAgeConfig#maxAgeMillis()} minus a random jitter of up to {@link
+     * ProxyRouterConnectionMaxAgeConfig#maxJitterMillis()} - so connections that were opened together don't all retire
+     * together.
+     */
+    protected void assignConnectionMaxAgeIfNecessary(Channel channel, long nowNanos) {
+        if (connectionMaxAgeConfig == null) {
+            return;
+        }
+
+        if (channel.attr(CONNECTION_FIRST_ACQUIRED_NANOS_ATTR).setIfAbsent(nowNanos) == null) {
+            channel.attr(CONNECTION_MAX_AGE_NANOS_ATTR).set(generateConnectionMaxAgeNanos());
+        }
+    }
+
+    /**
+     * @return A max age in nanoseconds between {@code maxAgeMillis - maxJitterMillis} (but never less than 0) and
+     * {@code maxAgeMillis}. Must only be called when {@link #connectionMaxAgeConfig} is non-null.
+     */
+    protected long generateConnectionMaxAgeNanos() {
+        @SuppressWarnings("ConstantConditions")
+        long maxAgeMillis = connectionMaxAgeConfig.maxAgeMillis();
+        long maxJitterMillis = Math.min(connectionMaxAgeConfig.maxJitterMillis(), maxAgeMillis);
+        long jitterNanos = (maxJitterMillis <= 0)
+                           ? 0
+                           : (long) (randomGenerator.nextDouble() * TimeUnit.MILLISECONDS.toNanos(maxJitterMillis));
+        return TimeUnit.MILLISECONDS.toNanos(maxAgeMillis) - jitterNanos;
+    }
+
+    /**
+     * Retires the given connection if it has been in use for longer than its max age (see {@link
+     * #assignConnectionMaxAgeIfNecessary(Channel, long)}): marks it as broken so its pool won't hand it out again,
+     * closes it, and reports it to the metrics listener as a {@link ServerMetricsEvent#PROXY_ROUTER_CONNECTION_RETIRED}
+     * event. Called when connections are released back to their pool (so a busy connection is retired as soon as its
+     * current call finishes) and when idle connections are polled from their pool for reuse (so the pool opens a
+     * fresh connection instead). Does nothing if this client wasn't given a {@link ProxyRouterConnectionMaxAgeConfig},
+     * or if the connection is null or already broken.
+     *
+     * @return true if the connection was retired, false otherwise.
+     */
+    protected boolean retireChannelIfPastMaxAge(
+        @Nullable Channel channel, InetSocketAddress downstreamAddress, String poolName
+    ) {
+        if (connectionMaxAgeConfig == null || channel == null || channelIsMarkedAsBeingBroken(channel)) {
+            return false;
+        }
+
+        Long firstAcquiredNanos = channel.attr(CONNECTION_FIRST_ACQUIRED_NANOS_ATTR).get();
+        Long maxAgeNanos = channel.attr(CONNECTION_MAX_AGE_NANOS_ATTR).get();
+        if (firstAcquiredNanos == null || maxAgeNanos == null) {
+            return false;
+        }
+
+        long connectionAgeNanos = System.nanoTime() - firstAcquiredNanos;
+        if (connectionAgeNanos < maxAgeNanos) {
+            return false;
+        }
+
+        markChannelAsBroken(channel);
+        channel.close();
+
+        if (logger.isDebugEnabled()) {
+            logger.debug(
+                "Retiring downstream connection that reached its max age. pool_name={}, connection_age_millis={}, "
+                + "max_age_millis={}",
+                poolName, TimeUnit.NANOSECONDS.toMillis(connectionAgeNanos), TimeUnit.NANOSECONDS.toMillis(maxAgeNanos)
+            );
+        }
+
+        if (metricsListener != null
+            && metricsListener.isInterestedIn(ServerMetricsEvent.PROXY_ROUTER_CONNECTION_RETIRED)) {
+            try {
+                metricsListener.onEvent(
+                    ServerMetricsEvent.PROXY_ROUTER_CONNECTION_RETIRED,
+                    new DownstreamConnectionRetirementMetrics(
+                        poolName, downstreamAddress, connectionAgeNanos, maxAgeNanos
+                    )
+                );
+            }
+            catch (Throwable t) {
+                logger.error(
+                    "Metrics listener threw an exception while handling a connection retirement event. pool_name={}",
+                    poolName, t
+                );
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Closes the given connection if outlier detection has ejected its address since the connection was first handed
+     * out, or if the address is ejected right now: marks it as broken so its pool won't hand it out again, and closes
+     * it. Called from the same places as {@link #retireChannelIfPastMaxAge(Channel, InetSocketAddress, String)}, so
+     * connections that were busy when their address was ejected are closed when their call finishes, and idle ones
+     * are closed when they're next polled from the pool (if their idle timeout doesn't close them first). This way
+     * the calls an address gets after its ejection is over all start on fresh connections. Does nothing if this
+     * client wasn't given a {@link ProxyRouterOutlierDetectionConfig}, or if the connection is null or already broken.
+     *
+     * @return true if the connection was closed, false otherwise.
+     */
+    protected boolean closeChannelIfDownstreamAddressEjected(
+        @Nullable Channel channel, InetSocketAddress downstreamAddress, String poolName
+    ) {
+        if (outlierDetector == null || channel == null || channelIsMarkedAsBeingBroken(channel)) {
+            return false;
+        }
+
+        Long ejectionCountWhenAcquired = channel.attr(OUTLIER_EJECTION_COUNT_WHEN_ACQUIRED_ATTR).get();
+        boolean ejectedSinceAcquired = ejectionCountWhenAcquired != null
+                                       && ejectionCountWhenAcquired < outlierDetector.getEjectionCount(
+                                           downstreamAddress
+                                       );
+        if (!ejectedSinceAcquired && !outlierDetector.isEjected(downstreamAddress)) {
+            return false;
+        }
+
+        markChannelAsBroken(channel);
+        channel.close();
+
+        if (logger.isDebugEnabled()) {
+            logger.debug(
+                "Closing downstream connection to an address that was ejected by outlier detection. pool_name={}",
+                poolName
+            );
+        }
+
+        return true;
+    }
+
+    /**
+     * Called on each channel polled from a pool for reuse, before the pool's healthcheck runs on it.
+     *
+     * @param channel The channel that was polled, or null if the pool had no idle channels.
+     * @return The same channel.
+     */
+    protected @Nullable Channel prepChannelPolledFromPool(@Nullable Channel channel) {
+        if (channel != null) {
+            markChannelBrokenAndLogInfoIfHttpClientCodecStateIsNotZero(
+                channel, "Polling channel to be reused before healthcheck"
+            );
+
+            if (idleChannelTimeoutMillis > 0) {
+                /*
+                 We have a channel that is about to be re-used, so disable the idle channel timeout detector if it
+                 exists. By disabling it here we make sure that it is effectively "gone" before the healthcheck
+                 happens, preventing race conditions. Note that we can't call pipeline.remove() here because we may
+                 not be in the pipeline's event loop, so calling pipeline.remove() could lead to thread deadlock, but
+                 we can't call channel.eventLoop().execute() because we need it disabled *now* before the healthcheck
+                 happens. The pipeline preparation phase will remove it safely soon, and in the meantime it will be
+                 disabled.
+                 */
+                ChannelPipeline pipeline = channel.pipeline();
+                ChannelHandler idleHandler = pipeline.get(DOWNSTREAM_IDLE_CHANNEL_TIMEOUT_HANDLER_NAME);
+                if (idleHandler != null) {
+                    ((DownstreamIdleChannelTimeoutHandler) idleHandler).disableTimeoutHandling();
+                }
+            }
+        }
+
+        return channel;
+    }
+
+    /**
+     * Called on each channel that is about to be offered back to a pool to wait for reuse.
+     *
+     * @param channel The channel being offered back to the pool.
+     * @return The same channel.
+     */
+    protected @NotNull Channel prepChannelOfferedToPool(@NotNull Channel channel) {
+        if (idleChannelTimeoutMillis > 0) {
+            // Add an idle channel timeout detector. This will be removed before the channel's reacquisition
+            //      healthcheck runs (in prepChannelPolledFromPool()), so we won't have a race condition where this
+            //      channel is handed over for use but gets squashed right before it's about to be used.
+            // NOTE: Due to the semantics of pool.release() we're guaranteed to be in the channel's event loop, so
+            //      there's no chance of a thread deadlock when messing with the pipeline.
+            channel.pipeline().addFirst(
+                DOWNSTREAM_IDLE_CHANNEL_TIMEOUT_HANDLER_NAME,
+                new DownstreamIdleChannelTimeoutHandler(
+                    idleChannelTimeoutMillis, () -> true, false,
+                    "StreamingAsyncHttpClientChannel-idle", null, null)
+            );
+        }
+
+        return channel;
+    }
+
+    protected static class ChannelPoolHandlerImpl extends AbstractChannelPoolHandler {
+        @Override
+        public void channelCreated(Channel ch) {
+            // NOOP
+        }
+    }
+
+    protected static class ProxyRouterChannelHealthChecker implements ChannelHealthChecker {
+        @Override
+        public Future<Boolean> isHealthy(Channel channel) {
+            // See if we've marked the channel as being non-usable first.
+            if (channelIsMarkedAsBeingBroken(channel))
+                return channel.eventLoop().newSucceededFuture(Boolean.FALSE);
+
+            // We haven't marked it broken, so fallback to the default channel health checker.
+            return ChannelHealthChecker.ACTIVE.isHealthy(channel);
+        }
+    }
+
+    protected static void markChannelAsBroken(Channel ch) {
+        ch.attr(CHANNEL_IS_BROKEN_ATTR).set(true);
+    }
+
+    protected static boolean channelIsMarkedAsBeingBroken(Channel ch) {
+        Attribute<Boolean> brokenAttr = ch.attr(CHANNEL_IS_BROKEN_ATTR);
+        return Boolean.TRUE.equals(brokenAttr.get());
+    }
+
+    protected void logInitialRequestChunk(HttpRequest initialRequestChunk, String downstreamHost, int downstreamPort) {
+        if (logger.isDebugEnabled()) {
+            StringBuilder sb = new StringBuilder();
+            for (String headerName : initialRequestChunk.headers().names()) {
+                if (sb.length() > 0)
+                    sb.append(", ");
+                sb.append(headerName).append("=\"")
+                  .append(String.join(",", initialRequestChunk.headers().getAll(headerName))).append("\"");
+            }
+
+            logger.debug("STREAMING REQUEST HEADERS: " + sb.toString());
+            logger.debug("STREAMING REQUEST HOST:PORT/PATH: " + downstreamHost + ":" + downstreamPort
+                         + initialRequestChunk.uri());
+            logger.debug("STREAMING REQUEST METHOD: " + initialRequestChunk.method().name());
+            logger.debug("STREAMING REQUEST PROTOCOL: " + initialRequestChunk.protocolVersion().protocolName());
+        }
+    }
+
+    /**
+     * TODO: Fully document me.
+     * <br/>
+     * NOTE: The returned CompletableFuture will only be completed successfully if the connection to the downstream
+     * server was successful and the initialRequestChunk was successfully written out. This has implications for
+     * initialRequestChunk regarding releasing its reference count (i.e. calling {@link
+     * io.netty.util.ReferenceCountUtil#release(Object)} and passing in initialRequestChunk). If the returned
+     * CompletableFuture is successful it means initialRequestChunk's reference count will already be reduced by one
+     * relative to when this method was called because it will have been passed to a successful {@link
+     * ChannelHandlerContext#writeAndFlush(Object)} method call.
+     * <p/>
+     * Long story short - assume initialRequestChunk is an object with a reference count of x:
+     * <ul>
+     *     <li>
+     *         If the returned CompletableFuture is successful, then when it completes successfully
+     *         initialRequestChunk's reference count will be x - 1
+     *     </li>
+     *     <li>
+     *         If the returned CompletableFuture is *NOT* successful, then when it completes initialRequestChunk's
+     *         reference count will still be x
+     *     </li>
+     * </ul>
+     */
+    public CompletableFuture<StreamingChannel> streamDownstreamCall(
+        String downstreamHost, int downstreamPort, HttpRequest initialRequestChunk, boolean isSecureHttpsCall,
+        boolean relaxedHttpsValidation, StreamingCallback callback, long downstreamCallTimeoutMillis,
+        boolean performSubSpanAroundDownstreamCalls, boolean addTracingHeadersToDownstreamCall,
+        @NotNull ProxyRouterProcessingState proxyRouterProcessingState, @NotNull RequestInfo<?> requestInfo,
+        ChannelHandlerContext ctx
+    ) {
+        return streamDownstreamCall(
+            downstreamHost, downstreamPort, initialRequestChunk, isSecureHttpsCall, relaxedHttpsValidation, callback,
+            downstreamCallTimeoutMillis, performSubSpanAroundDownstreamCalls, addTracingHeadersToDownstreamCall,
+            proxyRouterProcessingState, requestInfo, ctx, null
+        );
+    }
+
+    /**
+     * Same as {@link #streamDownstreamCall(String, int, HttpRequest, boolean, boolean, StreamingCallback, long,
+     * boolean, boolean, ProxyRouterProcessingState, RequestInfo, ChannelHandlerContext)}, but lets the caller choose
+     * the {@link DownstreamAddressSelector} for this call. Pass null to use the selector this client was created with
+     * (if any).
+     */
+    public CompletableFuture<StreamingChannel> streamDownstreamCall(
+        String downstreamHost, int downstreamPort, HttpRequest initialRequestChunk, boolean isSecureHttpsCall,
+        boolean relaxedHttpsValidation, StreamingCallback callback, long downstreamCallTimeoutMillis,
+        boolean performSubSpanAroundDownstreamCalls, boolean addTracingHeadersToDownstreamCall,
+        @NotNull ProxyRouterProcessingState proxyRouterProcessingState, @NotNull RequestInfo<?> requestInfo,
+        ChannelHandlerContext ctx, @Nullable DownstreamAddressSelector downstreamAddressSelectorOverride
+    ) {
+        return streamDownstreamCall(
+            downstreamHost, downstreamPort, initialRequestChunk, isSecureHttpsCall, relaxedHttpsValidation, callback,
+            downstreamCallTimeoutMillis, performSubSpanAroundDownstreamCalls, addTracingHeadersToDownstreamCall,
+            proxyRouterProcessingState, requestInfo, ctx, downstreamAddressSelectorOverride, 0, 0, 0
+        );
+    }
+
+    /**
+     * Same as {@link #streamDownstreamCall(String, int, HttpRequest, boolean, boolean, StreamingCallback, long,
+     * boolean, boolean, ProxyRouterProcessingState, RequestInfo, ChannelHandlerContext, DownstreamAddressSelector)},
+     * but also lets the caller opt this call into hedging and connect retries. Both are only done if this client was
+     * given a {@link ProxyRouterRetryBudgetConfig}, and only while the downstream host's budget allows it - see {@link
+     * com.nike.riposte.server.config.ServerConfig#proxyRouterRetryBudgetConfig()}.
+     *
+     * @param hedgeDelayMillis How long to wait for the start of a response before sending a hedged copy of the
+     * request (see {@link HedgedDownstreamCall}), or 0 (or less) to not use a fixed delay. Only GET, HEAD, and OPTIONS
+     * requests without a body are hedged.
+     * @param hedgeDelayLatencyPercentile The percentile (e.g. 95) of the downstream host's recent
+     * time-to-first-response latencies to use as the hedge delay, or 0 (or less) to only use {@code
+     * hedgeDelayMillis}. {@code hedgeDelayMillis} is used until the host has enough samples (or not at all if it's 0).
+     * @param maxConnectRetries The max number of times to retry (preferably on a different IP address) when a
+     * connection to the downstream host can't be made. Nothing has been sent at that point, so this is safe for any
+     * request. Connections that can't be made because the connection pool is exhausted aren't retried.
+     */
+    public CompletableFuture<StreamingChannel> streamDownstreamCall(
+        String downstreamHost, int downstreamPort, HttpRequest initialRequestChunk, boolean isSecureHttpsCall,
+        boolean relaxedHttpsValidation, StreamingCallback callback, long downstreamCallTimeoutMillis,
+        boolean performSubSpanAroundDownstreamCalls, boolean addTracingHeadersToDownstreamCall,
+        @NotNull ProxyRouterProcessingState proxyRouterProcessingState, @NotNull RequestInfo<?> requestInfo,
+        ChannelHandlerContext ctx, @Nullable DownstreamAddressSelector downstreamAddressSelectorOverride,
+        long hedgeDelayMillis, double hedgeDelayLatencyPercentile, int maxConnectRetries
+    ) {
+        DownstreamAddressSelector selectorToUse = (downstreamAddressSelectorOverride == null)
+                                                  ? downstreamAddressSelector
+                                                  : downstreamAddressSelectorOverride;
+
+        if (hedgeBudget != null && connectRetryBudget != null) {
+            hedgeBudget.recordCall(downstreamHost);
+            connectRetryBudget.recordCall(downstreamHost);
+        }
+
+        if (hedgeBudget == null
+            || ctx == null
+            || (hedgeDelayMillis <= 0 && hedgeDelayLatencyPercentile <= 0)
+            || !isRequestHedgeable(initialRequestChunk)
+        ) {
+            return startDownstreamCallAttempt(
+                downstreamHost, downstreamPort, initialRequestChunk, isSecureHttpsCall, relaxedHttpsValidation,
+                callback, downstreamCallTimeoutMillis, performSubSpanAroundDownstreamCalls,
+                addTracingHeadersToDownstreamCall, proxyRouterProcessingState, requestInfo, ctx, selectorToUse,
+                maxConnectRetries, Collections.emptyList()
+            );
+        }
+
+        // Copy the request before the primary attempt sends it (and adds tracing headers for its own subspan).
+        HttpRequest hedgedRequest = new DefaultHttpRequest(
+            initialRequestChunk.protocolVersion(), initialRequestChunk.method(), initialRequestChunk.uri(),
+            initialRequestChunk.headers().copy()
+        );
+
+        HedgedDownstreamCall hedgedCall = new HedgedDownstreamCall(
+            this, callback, downstreamHost, proxyRouterProcessingState, hedgeBudget, responseLatencyTracker,
+            (hedgeCallback, primaryAddress) -> {
+                // The hedged attempt's response tagging goes on its own subspan, so it gets its own state.
+                ProxyRouterProcessingState hedgeState = new ProxyRouterProcessingState();
+                //noinspection deprecation
+                hedgeState.setDistributedTracingConfig(distributedTracingConfig);
+                return startDownstreamCallAttempt(
+                    downstreamHost, downstreamPort, hedgedRequest, isSecureHttpsCall, relaxedHttpsValidation,
+                    hedgeCallback, downstreamCallTimeoutMillis, performSubSpanAroundDownstreamCalls,
+                    addTracingHeadersToDownstreamCall, hedgeState, requestInfo, ctx, selectorToUse, 0,
+                    (primaryAddress == null)
+                    ? Collections.emptyList()
+                    : Collections.singletonList(primaryAddress)
+                );
+            }
+        );
+
+        // Errors while streaming the rest of the request need to go through the hedged call too.
+        proxyRouterProcessingState.setStreamingCallback(hedgedCall);
+
+        CompletableFuture<StreamingChannel> primaryStreamingChannel = startDownstreamCallAttempt(
+            downstreamHost, downstreamPort, initialRequestChunk, isSecureHttpsCall, relaxedHttpsValidation,
+            hedgedCall.getPrimaryAttemptCallback(), downstreamCallTimeoutMillis, performSubSpanAroundDownstreamCalls,
+            addTracingHeadersToDownstreamCall, proxyRouterProcessingState, requestInfo, ctx, selectorToUse,
+            maxConnectRetries, Collections.emptyList()
+        );
+
+        hedgedCall.start(
+            primaryStreamingChannel,
+            determineHedgeDelayMillis(downstreamHost, hedgeDelayMillis, hedgeDelayLatencyPercentile),
+            ctx.executor()
+        );
+
+        return primaryStreamingChannel;
+    }
+
+    /**
+     * @return true if the given request can be safely sent twice by {@link HedgedDownstreamCall}, i.e. it's a GET,
+     * HEAD, or OPTIONS request without a body.
+     */
+    protected boolean isRequestHedgeable(HttpRequest request) {
+        HttpMethod method = request.method();
+        if (!HttpMethod.GET.equals(method) && !HttpMethod.HEAD.equals(method) && !HttpMethod.OPTIONS.equals(method)) {
+            return false;
+        }
+
+        if (HttpUtil.getContentLength(request, -1L) > 0 || HttpUtil.isTransferEncodingChunked(request)) {
+            return false;
+        }
+
+        return !(request instanceof HttpContent) || !((HttpContent) request).content().isReadable();
+    }
+
+    /**
+     * @return The hedge delay to use for a call to the given host - the given percentile of the host's recent
+     * time-to-first-response latencies if it has enough samples, otherwise the given fixed delay. Returns -1 if
+     * neither is available, which means the call won't be hedged (but its latency is still sampled).
+     */
+    protected long determineHedgeDelayMillis(
+        String downstreamHost, long hedgeDelayMillis, double hedgeDelayLatencyPercentile
+    ) {
+        if (hedgeDelayLatencyPercentile > 0) {
+            long percentileNanos =
+                responseLatencyTracker.latencyPercentileNanos(downstreamHost, hedgeDelayLatencyPercentile);
+            if (percentileNanos >= 0) {
+                return TimeUnit.NANOSECONDS.toMillis(percentileNanos);
+            }
+        }
+
+        return (hedgeDelayMillis > 0) ? hedgeDelayMillis : -1;
+    }
+
+    /**
+     * Starts a single attempt at a downstream call: sets the host and deadline headers, resolves the downstream host
+     * to an IP address (avoiding the given addresses if there are others), and then hands off to {@link
+     * #connectAndStartDownstreamCall(InetSocketAddress, String, int, HttpRequest, boolean, boolean, StreamingCallback,
+     * long, boolean, boolean, ProxyRouterProcessingState, RequestInfo, ChannelHandlerContext, CompletableFuture, long,
+     * ConnectRetryState)}.
+     */
+    protected CompletableFuture<StreamingChannel> startDownstreamCallAttempt(
+        String downstreamHost, int downstreamPort, HttpRequest initialRequestChunk, boolean isSecureHttpsCall,
+        boolean relaxedHttpsValidation, StreamingCallback callback, long downstreamCallTimeoutMillis,
+        boolean performSubSpanAroundDownstreamCalls, boolean addTracingHeadersToDownstreamCall,
+        @NotNull ProxyRouterProcessingState proxyRouterProcessingState, @NotNull RequestInfo<?> requestInfo,
+        ChannelHandlerContext ctx, @Nullable DownstreamAddressSelector selectorToUse, int maxConnectRetries,
+        @NotNull List<InetSocketAddress> addressesToAvoid
+    ) {
+        CompletableFuture<StreamingChannel> streamingChannel = new CompletableFuture<>();
+
+        // set host header. include port in value when it is a non-default port
+        boolean isDefaultPort = (downstreamPort == 80 && !isSecureHttpsCall)
+                             || (downstreamPort == 443 && isSecureHttpsCall);
+        String hostHeaderValue = (isDefaultPort)
+                                 ? downstreamHost
+                                 : downstreamHost + ":" + downstreamPort;
+        initialRequestChunk.headers().set(HttpHeaderNames.HOST, hostHeaderValue);
+
+        // If the caller sent a deadline then don't wait on the downstream call any longer than the caller will wait on
+        //      us, and let the downstream service know how long that is. The downstream call timeout is an idle timeout
+        //      (the call can run longer as long as data keeps flowing), so it's not what gets passed along - the time
+        //      left before the deadline is.
+        RequestDeadline deadline = requestInfo.getDeadline();
+        long callTimeoutMillisToUse = (deadline == null)
+                                      ? downstreamCallTimeoutMillis
+                                      : deadline.capTimeoutMillis(downstreamCallTimeoutMillis);
+        if (deadline != null && deadline.getPropagationHeaderName() != null) {
+            initialRequestChunk.headers().set(deadline.getPropagationHeaderName(), deadline.propagationHeaderValue());
+        }
+
+        long beforeConnectionStartTimeNanos = System.nanoTime();
+
+        ConnectRetryState connectRetryState = (maxConnectRetries > 0 && connectRetryBudget != null)
+                                              ? new ConnectRetryState(selectorToUse, maxConnectRetries)
+                                              : null;
+
+        // Figure out which IP address to call, then connect to it. If the address is already known then this all
+        //      happens right away on this thread.
+        resolveDownstreamAddressAvoiding(
+            downstreamHost, downstreamPort, selectorToUse, addressesToAvoid
+        ).whenComplete((downstreamAddress, resolutionError) -> {
+            if (resolutionError != null) {
+                streamingChannel.completeExceptionally(unwrapCompletionException(resolutionError));
+                return;
+            }
+
+            try {
+                connectAndStartDownstreamCall(
+                    downstreamAddress, downstreamHost, downstreamPort, initialRequestChunk, isSecureHttpsCall,
+                    relaxedHttpsValidation, callback, callTimeoutMillisToUse, performSubSpanAroundDownstreamCalls,
+                    addTracingHeadersToDownstreamCall, proxyRouterProcessingState, requestInfo, ctx, streamingChannel,
+                    beforeConnectionStartTimeNanos, connectRetryState
+                );
+            }
+            catch (Throwable t) {
+                streamingChannel.completeExceptionally(t);
+            }
+        });
+
+        return streamingChannel;
+    }
+
+    protected static Throwable unwrapCompletionException(Throwable error) {
+        return (error instanceof CompletionException && error.getCause() != null)
+               ? error.getCause()
+               : error;
+    }
+
+    /**
+     * Tracks the connect retries left for a single downstream call attempt, and the addresses it has already tried.
+     */
+    protected static class ConnectRetryState {
+        protected final @Nullable DownstreamAddressSelector selector;
+        protected int retriesRemaining;
+        protected final List<InetSocketAddress> triedAddresses = new ArrayList<>();
+
+        protected ConnectRetryState(@Nullable DownstreamAddressSelector selector, int maxRetries) {
+            this.selector = selector;
+            this.retriesRemaining = maxRetries;
+        }
+    }
+
+    /**
+     * Tries the given downstream call attempt again on a (preferably) different address, if the attempt has connect
+     * retries left and the downstream host's connect retry budget allows it. Only called when a connection couldn't
+     * be made, so nothing has been sent yet.
+     *
+     * @return true if a retry was started (and will complete the given {@code streamingChannel}), false if the caller
+     * should fail the attempt.
+     */
+    protected boolean retryConnectIfPossible(
+        @Nullable ConnectRetryState connectRetryState, Throwable connectError, InetSocketAddress failedAddress,
+        String downstreamHost, int downstreamPort, HttpRequest initialRequestChunk, boolean isSecureHttpsCall,
+        boolean relaxedHttpsValidation, StreamingCallback callback, long callTimeoutMillisToUse,
+        boolean performSubSpanAroundDownstreamCalls, boolean addTracingHeadersToDownstreamCall,
+        @NotNull ProxyRouterProcessingState proxyRouterProcessingState, @NotNull RequestInfo<?> requestInfo,
+        ChannelHandlerContext ctx, CompletableFuture<StreamingChannel> streamingChannel,
+        long beforeConnectionStartTimeNanos
+    ) {
+        if (connectRetryState == null
+            || connectRetryState.retriesRemaining <= 0
+            || connectRetryBudget == null
+            || connectError instanceof DownstreamConnectionPoolExhaustedException
+        ) {
+            return false;
+        }
+
+        if (!connectRetryBudget.tryAcquireExtraAttempt(downstreamHost)) {
+            fireDownstreamExtraAttemptEvent(downstreamHost, AttemptType.CONNECT_RETRY, Outcome.BUDGET_EXHAUSTED);
+            return false;
+        }
+
+        connectRetryState.retriesRemaining--;
+        connectRetryState.triedAddresses.add(failedAddress);
+        fireDownstreamExtraAttemptEvent(downstreamHost, AttemptType.CONNECT_RETRY, Outcome.SENT);
+
+        logger.warn(
+            "Unable to connect to downstream address - retrying. downstream_host={}, failed_address={}, "
+            + "retries_remaining={}, connect_error={}",
+            downstreamHost, failedAddress, connectRetryState.retriesRemaining, String.valueOf(connectError)
+        );
+
+        CompletableFuture<InetSocketAddress> retryAddress;
+        try {
+            retryAddress = resolveDownstreamAddressAvoiding(
+                downstreamHost, downstreamPort, connectRetryState.selector, connectRetryState.triedAddresses
+            );
+        }
+        catch (Throwable t) {
+            streamingChannel.completeExceptionally(t);
+            return true;
+        }
+
+        retryAddress.whenComplete((downstreamAddress, resolutionError) -> {
+            if (resolutionError != null) {
+                streamingChannel.completeExceptionally(unwrapCompletionException(resolutionError));
+                return;
+            }
+
+            try {
+                connectAndStartDownstreamCall(
+                    downstreamAddress, downstreamHost, downstreamPort, initialRequestChunk, isSecureHttpsCall,
+                    relaxedHttpsValidation, callback, callTimeoutMillisToUse, performSubSpanAroundDownstreamCalls,
+                    addTracingHeadersToDownstreamCall, proxyRouterProcessingState, requestInfo, ctx, streamingChannel,
+                    beforeConnectionStartTimeNanos, connectRetryState
+                );
             }
-        }
-        return result;
-    }
+            catch (Throwable t) {
+                streamingChannel.completeExceptionally(t);
+            }
+        });
 
-    protected ChannelPool getPooledChannelFuture(String downstreamHost, int downstreamPort) {
-        return getPoolMap().get(
-            resolveHostnameToInetSocketAddressWithMultiIpSupport(downstreamHost, downstreamPort)
-        );
+        return true;
     }
 
-    protected static class ChannelPoolHandlerImpl extends AbstractChannelPoolHandler {
-        @Override
-        public void channelCreated(Channel ch) {
-            // NOOP
+    /**
+     * Reports an extra attempt (hedged request or connect retry) to the metrics listener as a {@link
+     * ServerMetricsEvent#PROXY_ROUTER_DOWNSTREAM_EXTRA_ATTEMPT} event.
+     */
+    protected void fireDownstreamExtraAttemptEvent(String hostname, AttemptType attemptType, Outcome outcome) {
+        if (metricsListener == null
+            || !metricsListener.isInterestedIn(ServerMetricsEvent.PROXY_ROUTER_DOWNSTREAM_EXTRA_ATTEMPT)) {
+            return;
+        }
+
+        try {
+            metricsListener.onEvent(
+                ServerMetricsEvent.PROXY_ROUTER_DOWNSTREAM_EXTRA_ATTEMPT,
+                new DownstreamExtraAttemptMetrics(hostname, attemptType, outcome)
+            );
+        }
+        catch (Throwable t) {
+            logger.error(
+                "Metrics listener threw an exception while handling a downstream extra attempt event. hostname={}",
+                hostname, t
+            );
         }
     }
 
-    protected static class ProxyRouterChannelHealthChecker implements ChannelHealthChecker {
-        @Override
-        public Future<Boolean> isHealthy(Channel channel) {
-            // See if we've marked the channel as being non-usable first.
-            if (channelIsMarkedAsBeingBroken(channel))
-                return channel.eventLoop().newSucceededFuture(Boolean.FALSE);
+    /**
+     * Reports a response status from the given downstream connection's address to outlier detection, if this client
+     * was given a {@link ProxyRouterOutlierDetectionConfig}.
+     */
+    protected void recordDownstreamResponseForOutlierDetection(String downstreamHost, Channel ch, int statusCode) {
+        if (outlierDetector == null) {
+            return;
+        }
 
-            // We haven't marked it broken, so fallback to the default channel health checker.
-            return ChannelHealthChecker.ACTIVE.isHealthy(channel);
+        SocketAddress remoteAddress = ch.remoteAddress();
+        if (!(remoteAddress instanceof InetSocketAddress)) {
+            return;
         }
-    }
 
-    protected static void markChannelAsBroken(Channel ch) {
-        ch.attr(CHANNEL_IS_BROKEN_ATTR).set(true);
+        handleDownstreamOutlierDetectionResult(outlierDetector.recordResponse(
+            downstreamHost, (InetSocketAddress) remoteAddress, statusCode, downstreamAddressStats
+        ));
     }
 
-    protected static boolean channelIsMarkedAsBeingBroken(Channel ch) {
-        Attribute<Boolean> brokenAttr = ch.attr(CHANNEL_IS_BROKEN_ATTR);
-        return Boolean.TRUE.equals(brokenAttr.get());
+    /**
+     * Reports a failure to connect to the given downstream address to outlier detection, if this client was given a
+     * {@link ProxyRouterOutlierDetectionConfig}. Exhausted connection pools aren't the address's fault, so they're
+     * ignored.
+     */
+    protected void recordDownstreamConnectFailureForOutlierDetection(
+        String downstreamHost, InetSocketAddress downstreamAddress, Throwable connectError
+    ) {
+        if (outlierDetector == null || connectError instanceof DownstreamConnectionPoolExhaustedException) {
+            return;
+        }
+
+        handleDownstreamOutlierDetectionResult(
+            outlierDetector.recordConnectFailure(downstreamHost, downstreamAddress)
+        );
     }
 
-    protected void logInitialRequestChunk(HttpRequest initialRequestChunk, String downstreamHost, int downstreamPort) {
-        if (logger.isDebugEnabled()) {
-            StringBuilder sb = new StringBuilder();
-            for (String headerName : initialRequestChunk.headers().names()) {
-                if (sb.length() > 0)
-                    sb.append(", ");
-                sb.append(headerName).append("=\"")
-                  .append(String.join(",", initialRequestChunk.headers().getAll(headerName))).append("\"");
-            }
+    /**
+     * Logs the given outlier detection result and reports it to the metrics listener as a {@link
+     * ServerMetricsEvent#PROXY_ROUTER_DOWNSTREAM_OUTLIER_DETECTED} event. Does nothing if the result is null (the
+     * address wasn't an outlier).
+     */
+    protected void handleDownstreamOutlierDetectionResult(@Nullable DownstreamOutlierEjectionMetrics result) {
+        if (result == null) {
+            return;
+        }
 
-            logger.debug("STREAMING REQUEST HEADERS: " + sb.toString());
-            logger.debug("STREAMING REQUEST HOST:PORT/PATH: " + downstreamHost + ":" + downstreamPort
-                         + initialRequestChunk.uri());
-            logger.debug("STREAMING REQUEST METHOD: " + initialRequestChunk.method().name());
-            logger.debug("STREAMING REQUEST PROTOCOL: " + initialRequestChunk.protocolVersion().protocolName());
+        if (result.outcome == DownstreamOutlierEjectionMetrics.Outcome.EJECTED) {
+            logger.warn(
+                "Ejecting downstream address detected as an outlier. downstream_host={}, ejected_address={}, "
+                + "reason={}, ejection_time_millis={}",
+                result.hostname, DownstreamAddressStatsTracker.addressName(result.downstreamAddress), result.reason,
+                result.ejectionTimeMillis
+            );
+        }
+        else {
+            logger.warn(
+                "Downstream address detected as an outlier, but not ejecting it because the max ejection percentage "
+                + "has been reached. downstream_host={}, outlier_address={}, reason={}",
+                result.hostname, DownstreamAddressStatsTracker.addressName(result.downstreamAddress), result.reason
+            );
+        }
+
+        if (metricsListener == null
+            || !metricsListener.isInterestedIn(ServerMetricsEvent.PROXY_ROUTER_DOWNSTREAM_OUTLIER_DETECTED)) {
+            return;
+        }
+
+        try {
+            metricsListener.onEvent(ServerMetricsEvent.PROXY_ROUTER_DOWNSTREAM_OUTLIER_DETECTED, result);
+        }
+        catch (Throwable t) {
+            logger.error(
+                "Metrics listener threw an exception while handling a downstream outlier detection event. "
+                + "hostname={}", result.hostname, t
+            );
         }
     }
 
     /**
-     * TODO: Fully document me.
-     * <br/>
-     * NOTE: The returned CompletableFuture will only be completed successfully if the connection to the downstream
-     * server was successful and the initialRequestChunk was successfully written out. This has implications for
-     * initialRequestChunk regarding releasing its reference count (i.e. calling {@link
-     * io.netty.util.ReferenceCountUtil#release(Object)} and passing in initialRequestChunk). If the returned
-     * CompletableFuture is successful it means initialRequestChunk's reference count will already be reduced by one
-     * relative to when this method was called because it will have been passed to a successful {@link
-     * ChannelHandlerContext#writeAndFlush(Object)} method call.
-     * <p/>
-     * Long story short - assume initialRequestChunk is an object with a reference count of x:
-     * <ul>
-     *     <li>
-     *         If the returned CompletableFuture is successful, then when it completes successfully
-     *         initialRequestChunk's reference count will be x - 1
-     *     </li>
-     *     <li>
-     *         If the returned CompletableFuture is *NOT* successful, then when it completes initialRequestChunk's
-     *         reference count will still be x
-     *     </li>
-     * </ul>
+     * Grabs a connection to the given downstream address from the pool, and sends the initial request chunk once it's
+     * connected. The given {@code streamingChannel} is completed once the initial chunk has been sent, or completed
+     * exceptionally if anything goes wrong. This is the second half of {@link #streamDownstreamCall(String, int,
+     * HttpRequest, boolean, boolean, StreamingCallback, long, boolean, boolean, ProxyRouterProcessingState,
+     * RequestInfo, ChannelHandlerContext, DownstreamAddressSelector)}, and runs once the downstream host has been
+     * resolved to an IP address. If the connection can't be made then the given {@code connectRetryState} (if any)
+     * decides whether it's retried - see {@link #retryConnectIfPossible(ConnectRetryState, Throwable,
+     * InetSocketAddress, String, int, HttpRequest, boolean, boolean, StreamingCallback, long, boolean, boolean,
+     * ProxyRouterProcessingState, RequestInfo, ChannelHandlerContext, CompletableFuture, long)}.
      */
-    public CompletableFuture<StreamingChannel> streamDownstreamCall(
-        String downstreamHost, int downstreamPort, HttpRequest initialRequestChunk, boolean isSecureHttpsCall,
-        boolean relaxedHttpsValidation, StreamingCallback callback, long downstreamCallTimeoutMillis,
-        boolean performSubSpanAroundDownstreamCalls, boolean addTracingHeadersToDownstreamCall,
-        @NotNull ProxyRouterProcessingState proxyRouterProcessingState, @NotNull RequestInfo<?> requestInfo,
-        ChannelHandlerContext ctx
+    protected void connectAndStartDownstreamCall(
+        InetSocketAddress downstreamAddress, String downstreamHost, int downstreamPort,
+        HttpRequest initialRequestChunk, boolean isSecureHttpsCall, boolean relaxedHttpsValidation,
+        StreamingCallback callback, long callTimeoutMillisToUse, boolean performSubSpanAroundDownstreamCalls,
+        boolean addTracingHeadersToDownstreamCall, @NotNull ProxyRouterProcessingState proxyRouterProcessingState,
+        @NotNull RequestInfo<?> requestInfo, ChannelHandlerContext ctx,
+        CompletableFuture<StreamingChannel> streamingChannel, long beforeConnectionStartTimeNanos,
+        @Nullable ConnectRetryState connectRetryState
     ) {
-        CompletableFuture<StreamingChannel> streamingChannel = new CompletableFuture<>();
-
-        // set host header. include port in value when it is a non-default port
-        boolean isDefaultPort = (downstreamPort == 80 && !isSecureHttpsCall)
-                             || (downstreamPort == 443 && isSecureHttpsCall);
-        String hostHeaderValue = (isDefaultPort)
-                                 ? downstreamHost
-                                 : downstreamHost + ":" + downstreamPort;
-        initialRequestChunk.headers().set(HttpHeaderNames.HOST, hostHeaderValue);
-
-        long beforeConnectionStartTimeNanos = System.nanoTime();
-
         // Create a connection to the downstream server.
-        ChannelPool pool = getPooledChannelFuture(downstreamHost, downstreamPort);
+        ChannelPool pool = getPoolMap((ctx == null) ? null : ctx.channel()).get(downstreamAddress);
         Future<Channel> channelFuture = pool.acquire();
         // Add a listener that kicks off the downstream call once the connection is completed.
         channelFuture.addListener(future -> {
@@ -677,11 +1869,25 @@ public class StreamingAsyncHttpClient {
 
                 if (!future.isSuccess()) {
                     try {
-                        // We did not connect to the downstream host successfully. Notify the callback.
-                        streamingChannel.completeExceptionally(
-                            new WrapperException("Unable to connect to downstream host: " + downstreamHost,
-                                                 future.cause())
+                        recordDownstreamConnectFailureForOutlierDetection(
+                            downstreamHost, downstreamAddress, future.cause()
+                        );
+
+                        // We did not connect to the downstream host successfully. Retry if we can, otherwise notify
+                        //      the callback.
+                        boolean retried = retryConnectIfPossible(
+                            connectRetryState, future.cause(), downstreamAddress, downstreamHost, downstreamPort,
+                            initialRequestChunk, isSecureHttpsCall, relaxedHttpsValidation, callback,
+                            callTimeoutMillisToUse, performSubSpanAroundDownstreamCalls,
+                            addTracingHeadersToDownstreamCall, proxyRouterProcessingState, requestInfo, ctx,
+                            streamingChannel, beforeConnectionStartTimeNanos
                         );
+                        if (!retried) {
+                            streamingChannel.completeExceptionally(
+                                new WrapperException("Unable to connect to downstream host: " + downstreamHost,
+                                                     future.cause())
+                            );
+                        }
                     }
                     finally {
                         Channel ch = channelFuture.getNow();
@@ -805,7 +2011,7 @@ public class StreamingAsyncHttpClient {
                         lastChunkSentDownstreamHolder.heldObject = false;
                         prepChannelForDownstreamCall(
                             downstreamHost, downstreamPort, pool, ch, callback, distributedSpanStackToUse, mdcContextToUse, isSecureHttpsCall,
-                            relaxedHttpsValidation, performSubSpanAroundDownstreamCalls, downstreamCallTimeoutMillis,
+                            relaxedHttpsValidation, performSubSpanAroundDownstreamCalls, callTimeoutMillisToUse,
                             callActiveHolder, lastChunkSentDownstreamHolder, proxyRouterProcessingState,
                             spanForDownstreamCall
                         );
@@ -881,8 +2087,271 @@ public class StreamingAsyncHttpClient {
                 unlinkTracingAndMdcFromCurrentThread(originalThreadInfo);
             }
         });
+    }
 
-        return streamingChannel;
+    /**
+     * Opens connections to the given downstream host ahead of time, so the first calls to it don't pay for the TCP
+     * connect and TLS handshake. For each of the host's IP addresses, {@code connectionsPerAddress} connections are
+     * acquired from the address's pool at once (opening new ones if the pool doesn't have enough idle connections),
+     * made ready for calls, and then released back to the pool where they wait for calls like any other idle
+     * connection. For HTTPS hosts "ready" means the TLS handshake has finished. If worker event loop sharing is enabled
+     * and the given worker event loop group can host downstream connections then this is done for the pools of every
+     * worker event loop, otherwise for the pools of the proxy/router event loop group. Calling this again later tops
+     * the pools back up, and resets the idle timeout of connections that are already open.
+     * <p/>
+     * Pre-warming doesn't count as a call in the per-address stats used by {@link DownstreamAddressSelector}s.
+     *
+     * @param workerEventLoopGroup The server's worker event loop group, or null if it isn't known (in which case
+     * only the proxy/router event loop group's pools are pre-warmed).
+     * @return A future that completes with the number of connections that were made ready. Connections that couldn't
+     * be made ready (e.g. the host is down, the TLS handshake failed, or a bounded pool had no room) are logged and not
+     * counted. The future only completes exceptionally if the hostname couldn't be resolved.
+     */
+    public CompletableFuture<Integer> prewarmConnections(
+        @NotNull String downstreamHost, int downstreamPort, boolean isSecureHttpsCall, boolean relaxedHttpsValidation,
+        int connectionsPerAddress, @Nullable EventLoopGroup workerEventLoopGroup
+    ) {
+        CompletableFuture<List<InetSocketAddress>> addressesFuture;
+        try {
+            addressesFuture = resolveAllDownstreamAddresses(downstreamHost, downstreamPort);
+        }
+        catch (Throwable t) {
+            CompletableFuture<Integer> errorResult = new CompletableFuture<>();
+            errorResult.completeExceptionally(t);
+            return errorResult;
+        }
+
+        // Bounded pools can't open more than maxConnectionsPerHost connections, and since the connections aren't
+        //      released until they're all ready, asking for more would only leave acquires waiting until they time out.
+        int numConnectionsPerPool = (connectionPoolConfig == null)
+                                    ? connectionsPerAddress
+                                    : Math.min(connectionsPerAddress, connectionPoolConfig.maxConnectionsPerHost());
+
+        return addressesFuture.thenCompose(addresses -> {
+            List<CompletableFuture<Integer>> poolResults = new ArrayList<>();
+            for (ChannelPoolMap<InetSocketAddress, SimpleChannelPool> poolMap
+                : getPoolMapsForPrewarming(workerEventLoopGroup)
+            ) {
+                for (InetSocketAddress address : addresses) {
+                    poolResults.add(prewarmPool(
+                        poolMap.get(address), address, downstreamHost, downstreamPort, isSecureHttpsCall,
+                        relaxedHttpsValidation, numConnectionsPerPool
+                    ));
+                }
+            }
+
+            return CompletableFuture.allOf(poolResults.toArray(new CompletableFuture[0])).thenApply(
+                v -> poolResults.stream().mapToInt(CompletableFuture::join).sum()
+            );
+        });
+    }
+
+    /**
+     * @return The pool maps that {@link #prewarmConnections(String, int, boolean, boolean, int, EventLoopGroup)}
+     * should open connections in - the pool map of every worker event loop in the given group if worker event loop
+     * sharing is enabled and the group can host downstream connections, otherwise just the {@link #getPoolMap()} pool
+     * map.
+     */
+    protected List<ChannelPoolMap<InetSocketAddress, SimpleChannelPool>> getPoolMapsForPrewarming(
+        @Nullable EventLoopGroup workerEventLoopGroup
+    ) {
+        if (workerEventLoopSharingEnabled && workerEventLoopGroup != null) {
+            Class<? extends SocketChannel> channelClass =
+                determineSocketChannelClassForWorkerEventLoopGroup(workerEventLoopGroup);
+            if (channelClass != null) {
+                List<ChannelPoolMap<InetSocketAddress, SimpleChannelPool>> result = new ArrayList<>();
+                for (EventExecutor workerEventLoop : workerEventLoopGroup) {
+                    result.add(getPoolMapForWorkerEventLoop((EventLoop) workerEventLoop, channelClass));
+                }
+                return result;
+            }
+        }
+
+        return Collections.singletonList(getPoolMap());
+    }
+
+    /**
+     * Acquires the given number of connections from the given pool at once, makes each one ready for calls (see
+     * {@link #prepChannelForPrewarming(Channel, String, int, boolean, boolean)}), and releases them all back to the
+     * pool once they're all done. Holding on to every connection until they're all done makes sure each acquire gets
+     * its own connection rather than one that another acquire just released.
+     *
+     * @return A future that completes with the number of connections that were made ready. It never completes
+     * exceptionally.
+     */
+    protected CompletableFuture<Integer> prewarmPool(
+        SimpleChannelPool pool, InetSocketAddress downstreamAddress, String downstreamHost, int downstreamPort,
+        boolean isSecureHttpsCall, boolean relaxedHttpsValidation, int numConnections
+    ) {
+        List<CompletableFuture<Channel>> readyChannels = new ArrayList<>(numConnections);
+        for (int i = 0; i < numConnections; i++) {
+            readyChannels.add(acquireAndPrepChannelForPrewarming(
+                pool, downstreamAddress, downstreamHost, downstreamPort, isSecureHttpsCall, relaxedHttpsValidation
+            ));
+        }
+
+        return CompletableFuture.allOf(readyChannels.toArray(new CompletableFuture[0])).handle((ignored, error) -> {
+            int numReady = 0;
+            Throwable firstError = null;
+            for (CompletableFuture<Channel> readyChannel : readyChannels) {
+                // Every future is done by now, so this won't block.
+                try {
+                    Channel ch = readyChannel.join();
+                    numReady++;
+                    pool.release(ch);
+                }
+                catch (Throwable t) {
+                    if (firstError == null) {
+                        firstError = (t instanceof CompletionException && t.getCause() != null) ? t.getCause() : t;
+                    }
+                }
+            }
+
+            if (firstError != null) {
+                logger.warn(
+                    "Unable to pre-warm all the requested downstream connections. downstream_host={}, "
+                    + "downstream_address={}, requested_connections={}, ready_connections={}, first_error={}",
+                    downstreamHost, DownstreamAddressStatsTracker.addressName(downstreamAddress), numConnections,
+                    numReady, firstError.toString()
+                );
+            }
+
+            return numReady;
+        });
+    }
+
+    /**
+     * Acquires a connection from the given pool and makes it ready for calls (see {@link
+     * #prepChannelForPrewarming(Channel, String, int, boolean, boolean)}). Connections that can't be made ready are
+     * marked broken and released back to the pool so the pool closes them.
+     *
+     * @return A future that completes with the ready connection, which the caller must release back to the pool.
+     */
+    protected CompletableFuture<Channel> acquireAndPrepChannelForPrewarming(
+        SimpleChannelPool pool, InetSocketAddress downstreamAddress, String downstreamHost, int downstreamPort,
+        boolean isSecureHttpsCall, boolean relaxedHttpsValidation
+    ) {
+        CompletableFuture<Channel> result = new CompletableFuture<>();
+        Future<Channel> acquireFuture = pool.acquire();
+        acquireFuture.addListener(future -> {
+            if (!future.isSuccess()) {
+                result.completeExceptionally(future.cause());
+                return;
+            }
+
+            Channel ch = acquireFuture.getNow();
+
+            // Pre-warming isn't a call, so take it back out of the per-address stats.
+            if (ch.attr(DOWNSTREAM_CALL_START_NANOS_ATTR).getAndSet(null) != null) {
+                downstreamAddressStats.callAbandoned(downstreamAddress);
+            }
+
+            BiConsumer<Channel, Throwable> failChannel = (failedChannel, cause) -> {
+                try {
+                    result.completeExceptionally(cause);
+                }
+                finally {
+                    markChannelAsBroken(failedChannel);
+                    pool.release(failedChannel);
+                }
+            };
+
+            // The pipeline can only be safely modified on the channel's event loop.
+            ch.eventLoop().execute(() -> {
+                try {
+                    prepChannelForPrewarming(
+                        ch, downstreamHost, downstreamPort, isSecureHttpsCall, relaxedHttpsValidation
+                    ).addListener(ready -> {
+                        if (ready.isSuccess()) {
+                            result.complete(ch);
+                        }
+                        else {
+                            failChannel.accept(ch, ready.cause());
+                        }
+                    });
+                }
+                catch (Throwable t) {
+                    failChannel.accept(ch, t);
+                }
+            });
+        });
+        return result;
+    }
+
+    /**
+     * Sets up the pipeline of a connection that's being pre-warmed, and must be called on the connection's event loop.
+     * For HTTPS calls the {@link SslHandler} is added in the same place {@link #prepChannelForDownstreamCall(String,
+     * int, ChannelPool, Channel, StreamingCallback, Deque, Map, boolean, boolean, boolean, long, ObjectHolder,
+     * ObjectHolder, ProxyRouterProcessingState, Span)} would add it (which reuses it for the first call), and a {@link
+     * PrewarmedChannelErrorHandler} closes the connection if anything goes wrong before the first call sets up its own
+     * error handling. Connections that already have their pipeline set up by an earlier call or pre-warming are left
+     * alone.
+     *
+     * @return A future that completes when the connection is ready for calls, i.e. right away for HTTP calls, or when
+     * the TLS handshake finishes for HTTPS calls.
+     */
+    protected Future<?> prepChannelForPrewarming(
+        Channel ch, String downstreamHost, int downstreamPort, boolean isSecureHttpsCall,
+        boolean relaxedHttpsValidation
+    ) throws SSLException, NoSuchAlgorithmException, KeyStoreException {
+        ChannelPipeline p = ch.pipeline();
+        List<String> registeredHandlerNames = p.names();
+
+        // Pre-warming may reuse an idle connection, so clean up its idle channel timeout handler the same way
+        //      prepChannelForDownstreamCall() does.
+        if (registeredHandlerNames.contains(DOWNSTREAM_IDLE_CHANNEL_TIMEOUT_HANDLER_NAME)) {
+            p.remove(DOWNSTREAM_IDLE_CHANNEL_TIMEOUT_HANDLER_NAME);
+        }
+
+        if (registeredHandlerNames.contains(ERROR_HANDLER_NAME)
+            || registeredHandlerNames.contains(PREWARM_ERROR_HANDLER_NAME)
+        ) {
+            // The pipeline was already set up, so the connection is ready once any TLS handshake is done.
+            ChannelHandler existingSslHandler = p.get(SSL_HANDLER_NAME);
+            return (isSecureHttpsCall && existingSslHandler != null)
+                   ? ((SslHandler) existingSslHandler).handshakeFuture()
+                   : ch.eventLoop().newSucceededFuture(null);
+        }
+
+        Future<?> readyFuture = ch.eventLoop().newSucceededFuture(null);
+        if (isSecureHttpsCall) {
+            SslHandler sslHandler = createSslHandler(ch, downstreamHost, downstreamPort, relaxedHttpsValidation);
+            // The call timeout handler goes in front of the SslHandler just like it does for calls, and limits how
+            //      long the TLS handshake can take until the first call replaces it.
+            p.addLast(
+                DOWNSTREAM_CALL_TIMEOUT_HANDLER_NAME,
+                new DownstreamIdleChannelTimeoutHandler(
+                    downstreamConnectionTimeoutMillis, () -> !sslHandler.handshakeFuture().isDone(), true,
+                    "StreamingAsyncHttpClientChannel-prewarm-handshake-timeout", null, null
+                )
+            );
+            p.addLast(SSL_HANDLER_NAME, sslHandler);
+            readyFuture = sslHandler.handshakeFuture();
+        }
+
+        p.addLast(PREWARM_ERROR_HANDLER_NAME, new PrewarmedChannelErrorHandler());
+        return readyFuture;
+    }
+
+    /**
+     * Closes a pre-warmed connection when an error (including the idle channel timeout) reaches the end of its
+     * pipeline before the connection's first call replaces this handler with that call's error handler.
+     */
+    protected static class PrewarmedChannelErrorHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            if (cause instanceof DownstreamIdleChannelTimeoutException) {
+                logger.debug("A pre-warmed channel used for downstream calls will be closed because it was idle too "
+                             + "long. This is normal behavior: {}", cause.toString());
+            }
+            else {
+                logger.debug("A pre-warmed channel used for downstream calls will be closed because it received an "
+                             + "exception before it was used for a call: {}", cause.toString());
+            }
+
+            markChannelAsBroken(ctx.channel());
+            ctx.channel().close();
+        }
     }
 
     protected void prepChannelForDownstreamCall(
@@ -960,6 +2429,10 @@ public class StreamingAsyncHttpClient {
                             httpResponse.headers().add(origHttpResponse.headers());
                             msgToPass = httpResponse;
 
+                            recordDownstreamResponseForOutlierDetection(
+                                downstreamHost, ch, origHttpResponse.status().code()
+                            );
+
                             if (proxyRouterProcessingState != null) {
                                 proxyRouterProcessingState.setProxyHttpResponse(httpResponse);
                             }
@@ -1127,6 +2600,12 @@ public class StreamingAsyncHttpClient {
                 p.remove(idleHandler);
         }
 
+        // Remove the error handler that was added if this channel was opened by prewarmConnections(). The errorHandler
+        //      for this call takes over from here.
+        if (registeredHandlerNames.contains(PREWARM_ERROR_HANDLER_NAME)) {
+            p.remove(PREWARM_ERROR_HANDLER_NAME);
+        }
+
         if (debugChannelLifecycleLoggingEnabled && !registeredHandlerNames.contains(DEBUG_LOGGER_HANDLER_NAME)) {
             // Add the channel debug logger if desired.
             p.addFirst(DEBUG_LOGGER_HANDLER_NAME, new LoggingHandler(DOWNSTREAM_CLIENT_CHANNEL_DEBUG_LOGGER_NAME,
@@ -1165,38 +2644,11 @@ public class StreamingAsyncHttpClient {
             }
 
             if (requiresNewSslHandler) {
-                // SSL call and we need to add a SslHandler. Create the general-purpose reusable SslContexts if needed.
-                if (clientSslCtx == null) {
-                    TrustManagerFactory tmf = TrustManagerFactory.getInstance(
-                        TrustManagerFactory.getDefaultAlgorithm()
-                    );
-                    tmf.init((KeyStore) null);
-
-                    clientSslCtx = SslContextBuilder
-                        .forClient()
-                        .trustManager(tmf)
-                        .build();
-                }
-
-                if (insecureSslCtx == null) {
-                    insecureSslCtx = SslContextBuilder
-                        .forClient()
-                        .trustManager(InsecureTrustManagerFactory.INSTANCE)
-                        .build();
-                }
-
-                // Figure out which SslContext to use for this call.
-                SslContext sslCtxToUse = (relaxedHttpsValidation) ? insecureSslCtx : clientSslCtx;
-
-                // Create the SslHandler and configure the SslEngine
-                // as per the javadocs for SslContext.newHandler(ByteBufAllocator, String, int).
-                SslHandler sslHandler = sslCtxToUse.newHandler(ch.alloc(), downstreamHost, downstreamPort);
-                SSLEngine sslEngine = sslHandler.engine();
-                SSLParameters sslParameters = sslEngine.getSSLParameters();
-                sslParameters.setEndpointIdentificationAlgorithm(HTTPS);
-                sslEngine.setSSLParameters(sslParameters);
-                // Add the SslHandler to the pipeline in the correct location.
-                p.addAfter(DOWNSTREAM_CALL_TIMEOUT_HANDLER_NAME, SSL_HANDLER_NAME, sslHandler);
+                // SSL call and we need to add a SslHandler. Add it to the pipeline in the correct location.
+                p.addAfter(
+                    DOWNSTREAM_CALL_TIMEOUT_HANDLER_NAME, SSL_HANDLER_NAME,
+                    createSslHandler(ch, downstreamHost, downstreamPort, relaxedHttpsValidation)
+                );
             }
         }
         else {
@@ -1240,6 +2692,24 @@ public class StreamingAsyncHttpClient {
             }
         }
 
+        // Add the flush consolidation handler if desired and it wasn't already there. It sits between the SslHandler
+        //      (if any) and the HttpClientCodec so that request chunks streamed to the downstream service are both
+        //      encrypted and written to the socket in batches rather than one chunk at a time.
+        if (flushConsolidationMaxPendingFlushes > 0
+            && !registeredHandlerNames.contains(FLUSH_CONSOLIDATION_HANDLER_NAME)
+        ) {
+            FlushConsolidationHandler flushConsolidationHandler =
+                new FlushConsolidationHandler(flushConsolidationMaxPendingFlushes, true);
+            if (pipelineContainsHttpClientCodec) {
+                p.addBefore(
+                    HTTP_CLIENT_CODEC_HANDLER_NAME, FLUSH_CONSOLIDATION_HANDLER_NAME, flushConsolidationHandler
+                );
+            }
+            else {
+                p.addLast(FLUSH_CONSOLIDATION_HANDLER_NAME, flushConsolidationHandler);
+            }
+        }
+
         // Add the HttpClientCodec if it wasn't already there (i.e. this is the first call on this pipeline),
         //      or replace it if it was in a bad state.
         if (!pipelineContainsHttpClientCodec || existingHttpClientCodecIsInBadState) {
@@ -1254,6 +2724,45 @@ public class StreamingAsyncHttpClient {
         addOrReplacePipelineHandler(errorHandler, ERROR_HANDLER_NAME, p, registeredHandlerNames);
     }
 
+    /**
+     * Creates the {@link SslHandler} for a HTTPS call to the given host and port on the given channel, creating the
+     * general-purpose reusable {@link SslContext}s first if needed.
+     */
+    protected SslHandler createSslHandler(
+        Channel ch, String downstreamHost, int downstreamPort, boolean relaxedHttpsValidation
+    ) throws SSLException, NoSuchAlgorithmException, KeyStoreException {
+        if (clientSslCtx == null) {
+            TrustManagerFactory tmf = TrustManagerFactory.getInstance(
+                TrustManagerFactory.getDefaultAlgorithm()
+            );
+            tmf.init((KeyStore) null);
+
+            clientSslCtx = SslContextBuilder
+                .forClient()
+                .trustManager(tmf)
+                .build();
+        }
+
+        if (insecureSslCtx == null) {
+            insecureSslCtx = SslContextBuilder
+                .forClient()
+                .trustManager(InsecureTrustManagerFactory.INSTANCE)
+                .build();
+        }
+
+        // Figure out which SslContext to use for this call.
+        SslContext sslCtxToUse = (relaxedHttpsValidation) ? insecureSslCtx : clientSslCtx;
+
+        // Create the SslHandler and configure the SslEngine
+        // as per the javadocs for SslContext.newHandler(ByteBufAllocator, String, int).
+        SslHandler sslHandler = sslCtxToUse.newHandler(ch.alloc(), downstreamHost, downstreamPort);
+        SSLEngine sslEngine = sslHandler.engine();
+        SSLParameters sslParameters = sslEngine.getSSLParameters();
+        sslParameters.setEndpointIdentificationAlgorithm(HTTPS);
+        sslEngine.setSSLParameters(sslParameters);
+        return sslHandler;
+    }
+
     private static final Field httpClientCodecInboundHandlerField;
     private static final Field httpObjectDecoderCurrentStateField;
 
@@ -1,9 +1,13 @@
 package com.nike.riposte.server;
 
+import com.nike.riposte.client.asynchttp.netty.ProxyRouterClientConfig;
+import com.nike.riposte.client.asynchttp.netty.ProxyRouterConnectionPrewarmer;
 import com.nike.riposte.server.channelpipeline.HttpChannelInitializer;
 import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionPrewarmConfig;
 import com.nike.riposte.server.config.distributedtracing.DefaultRiposteDistributedTracingConfigImpl;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
+import com.nike.riposte.server.handler.OpenChannelLimitHandler;
 import com.nike.riposte.server.hooks.PostServerStartupHook;
 import com.nike.riposte.server.hooks.PreServerStartupHook;
 import com.nike.riposte.server.hooks.ServerShutdownHook;
@@ -11,6 +15,7 @@ import com.nike.riposte.server.http.ResponseSender;
 import com.nike.wingtips.Span;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,6 +56,7 @@ public class Server {
 
     private final List<EventLoopGroup> eventLoopGroups = new ArrayList<>();
     private final List<Channel> channels = new ArrayList<>();
+    private @Nullable ProxyRouterConnectionPrewarmer proxyRouterConnectionPrewarmer;
     private boolean startedUp = false;
     private boolean hasShutdown = false;
 
@@ -142,12 +148,20 @@ public class Server {
                 serverConfig.accessLogger(), serverConfig.pipelineCreateHooks(),
                 serverConfig.requestSecurityValidator(), serverConfig.workerChannelIdleTimeoutMillis(),
                 serverConfig.proxyRouterConnectTimeoutMillis(), serverConfig.incompleteHttpCallTimeoutMillis(),
-                serverConfig.maxOpenIncomingServerChannels(), serverConfig.isDebugChannelLifecycleLoggingEnabled(),
+                serverConfig.isDebugChannelLifecycleLoggingEnabled(),
                 serverConfig.userIdHeaderKeys(), serverConfig.responseCompressionThresholdBytes(),
-                serverConfig.httpRequestDecoderConfig(), wingtipsDistributedTracingConfig
+                serverConfig.responseCompressionConfig(), serverConfig.flushConsolidationMaxPendingFlushes(),
+                serverConfig.proxyRouterFlushConsolidationMaxPendingFlushes(), serverConfig.httpRequestDecoderConfig(),
+                serverConfig.requestContentValidationExecutor(), serverConfig.securityValidationExecutor(),
+                serverConfig.concurrencyLimitConfig(), serverConfig.loadSheddingConfig(),
+                serverConfig.requestDeadlineConfig(), ProxyRouterClientConfig.fromServerConfig(serverConfig),
+                wingtipsDistributedTracingConfig
             );
         }
 
+        proxyRouterConnectionPrewarmer =
+            createProxyRouterConnectionPrewarmer(serverConfig, channelInitializer, workerGroup);
+
         // Create the server bootstrap
         ServerBootstrap b = new ServerBootstrap();
         b.group(bossGroup, workerGroup)
@@ -162,14 +176,38 @@ public class Server {
             }
         }
 
-        if (serverConfig.isDebugChannelLifecycleLoggingEnabled())
-            b.handler(new LoggingHandler(SERVER_BOSS_CHANNEL_DEBUG_LOGGER_NAME, LogLevel.DEBUG));
+        // Handlers for the server (boss) channel. The OpenChannelLimitHandler goes here rather than in the child
+        //      channel pipelines so that connections over the limit are closed before a pipeline is ever built for
+        //      them.
+        boolean debugChannelLifecycleLoggingEnabled = serverConfig.isDebugChannelLifecycleLoggingEnabled();
+        OpenChannelLimitHandler openChannelLimitHandler = createOpenChannelLimitHandler(serverConfig);
+        if (debugChannelLifecycleLoggingEnabled || openChannelLimitHandler != null) {
+            b.handler(new ChannelInitializer<ServerChannel>() {
+                @Override
+                protected void initChannel(ServerChannel ch) {
+                    if (debugChannelLifecycleLoggingEnabled) {
+                        ch.pipeline().addLast(
+                            new LoggingHandler(SERVER_BOSS_CHANNEL_DEBUG_LOGGER_NAME, LogLevel.DEBUG)
+                        );
+                    }
+
+                    if (openChannelLimitHandler != null)
+                        ch.pipeline().addLast(openChannelLimitHandler);
+                }
+            });
+        }
 
         // Bind the server to the desired port and start it up so it is ready to receive requests
         Channel ch = b.bind(port)
                       .sync()
                       .channel();
 
+        // Pre-warm proxy/router downstream connections before the post startup hooks run, so they're ready before
+        //      e.g. a service registration hook tells clients this server is available.
+        if (proxyRouterConnectionPrewarmer != null) {
+            proxyRouterConnectionPrewarmer.executePostServerStartupHook(serverConfig, ch);
+        }
+
         // execute post startup hooks
         List<@NotNull PostServerStartupHook> postServerStartupHooks = serverConfig.postServerStartupHooks();
         if (postServerStartupHooks != null) {
@@ -196,6 +234,43 @@ public class Server {
         }));
     }
 
+    /**
+     * @return The {@link OpenChannelLimitHandler} for the server channel based on {@link
+     * ServerConfig#maxOpenIncomingServerChannels()} and {@link
+     * ServerConfig#maxOpenIncomingServerChannelsPerIpAddress()}, or null if both are unlimited.
+     */
+    @SuppressWarnings("WeakerAccess")
+    protected @Nullable OpenChannelLimitHandler createOpenChannelLimitHandler(@NotNull ServerConfig serverConfig) {
+        int maxOpenChannels = serverConfig.maxOpenIncomingServerChannels();
+        int maxOpenChannelsPerIpAddress = serverConfig.maxOpenIncomingServerChannelsPerIpAddress();
+        if (maxOpenChannels == -1 && maxOpenChannelsPerIpAddress == -1)
+            return null;
+
+        return new OpenChannelLimitHandler(maxOpenChannels, maxOpenChannelsPerIpAddress);
+    }
+
+    /**
+     * @return The {@link ProxyRouterConnectionPrewarmer} for {@link
+     * ServerConfig#proxyRouterConnectionPrewarmConfig()}, or null if that config is null or the given channel
+     * initializer isn't a {@link HttpChannelInitializer} (i.e. a {@link ServerConfig#customChannelInitializer()} is in
+     * use, so there's no proxy/router client to pre-warm).
+     */
+    @SuppressWarnings("WeakerAccess")
+    protected @Nullable ProxyRouterConnectionPrewarmer createProxyRouterConnectionPrewarmer(
+        @NotNull ServerConfig serverConfig,
+        @NotNull ChannelInitializer<SocketChannel> channelInitializer,
+        @NotNull EventLoopGroup workerGroup
+    ) {
+        ProxyRouterConnectionPrewarmConfig prewarmConfig = serverConfig.proxyRouterConnectionPrewarmConfig();
+        if (prewarmConfig == null || !(channelInitializer instanceof HttpChannelInitializer))
+            return null;
+
+        return new ProxyRouterConnectionPrewarmer(
+            ((HttpChannelInitializer) channelInitializer).getStreamingAsyncHttpClientForProxyRouterEndpoints(),
+            prewarmConfig, serverConfig.appEndpoints(), workerGroup
+        );
+    }
+
     @SuppressWarnings("WeakerAccess")
     protected @NotNull DistributedTracingConfig<Span> getOrGenerateWingtipsDistributedTracingConfig(
         @NotNull ServerConfig serverConfig
@@ -223,6 +298,11 @@ public class Server {
 
         try {
             logger.info("Shutting down Riposte...");
+            // There's only one pre-warmer for the whole server, so stop it once rather than once per bound channel.
+            if (proxyRouterConnectionPrewarmer != null && !channels.isEmpty()) {
+                proxyRouterConnectionPrewarmer.executeServerShutdownHook(serverConfig, channels.get(0));
+            }
+
             List<ChannelFuture> channelCloseFutures = new ArrayList<>();
             for (Channel ch : channels) {
                 // execute shutdown hooks
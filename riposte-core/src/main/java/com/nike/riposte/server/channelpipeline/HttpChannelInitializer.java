@@ -1,10 +1,15 @@
 package com.nike.riposte.server.channelpipeline;
 
 import com.nike.internal.util.StringUtils;
+import com.nike.riposte.client.asynchttp.netty.ProxyRouterClientConfig;
 import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient;
 import com.nike.riposte.metrics.MetricsListener;
 import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.config.ServerConfig.ConcurrencyLimitConfig;
 import com.nike.riposte.server.config.ServerConfig.HttpRequestDecoderConfig;
+import com.nike.riposte.server.config.ServerConfig.LoadSheddingConfig;
+import com.nike.riposte.server.config.ServerConfig.RequestDeadlineConfig;
+import com.nike.riposte.server.config.ServerConfig.ResponseCompressionConfig;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
 import com.nike.riposte.server.error.exception.DownstreamIdleChannelTimeoutException;
 import com.nike.riposte.server.error.handler.RiposteErrorHandler;
@@ -14,17 +19,19 @@ import com.nike.riposte.server.error.validation.RequestValidator;
 import com.nike.riposte.server.handler.AccessLogEndHandler;
 import com.nike.riposte.server.handler.AccessLogStartHandler;
 import com.nike.riposte.server.handler.ChannelPipelineFinalizerHandler;
+import com.nike.riposte.server.handler.ConcurrencyLimitHandler;
 import com.nike.riposte.server.handler.DTraceEndHandler;
 import com.nike.riposte.server.handler.DTraceStartHandler;
 import com.nike.riposte.server.handler.ExceptionHandlingHandler;
 import com.nike.riposte.server.handler.IdleChannelTimeoutHandler;
 import com.nike.riposte.server.handler.IncompleteHttpCallTimeoutHandler;
+import com.nike.riposte.server.handler.LoadSheddingHandler;
 import com.nike.riposte.server.handler.NonblockingEndpointExecutionHandler;
-import com.nike.riposte.server.handler.OpenChannelLimitHandler;
 import com.nike.riposte.server.handler.ProcessFinalResponseOutputHandler;
 import com.nike.riposte.server.handler.ProxyRouterEndpointExecutionHandler;
 import com.nike.riposte.server.handler.RequestContentDeserializerHandler;
 import com.nike.riposte.server.handler.RequestContentValidationHandler;
+import com.nike.riposte.server.handler.RequestDeadlineHandler;
 import com.nike.riposte.server.handler.RequestFilterHandler;
 import com.nike.riposte.server.handler.RequestHasBeenHandledVerificationHandler;
 import com.nike.riposte.server.handler.RequestInfoSetterHandler;
@@ -35,12 +42,21 @@ import com.nike.riposte.server.handler.RoutingHandler;
 import com.nike.riposte.server.handler.SecurityValidationHandler;
 import com.nike.riposte.server.handler.SmartHttpContentCompressor;
 import com.nike.riposte.server.handler.SmartHttpContentDecompressor;
+import com.nike.riposte.server.handler.StreamingEndpointExecutionHandler;
+import com.nike.riposte.server.handler.WebSocketFrameHandler;
+import com.nike.riposte.server.handler.WebSocketUpgradeHandler;
+import com.nike.riposte.server.handler.compression.AdaptiveCompressionController;
+import com.nike.riposte.server.handler.coalescing.RequestCoalescer;
+import com.nike.riposte.server.handler.concurrencylimit.EndpointConcurrencyLimiters;
+import com.nike.riposte.server.handler.loadshedding.PriorityLoadShedder;
 import com.nike.riposte.server.hooks.PipelineCreateHook;
 import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.NonblockingEndpoint;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseSender;
 import com.nike.riposte.server.http.filter.RequestAndResponseFilter;
 import com.nike.riposte.server.logging.AccessLogger;
+import com.nike.riposte.util.InstrumentedThreadPoolExecutor;
 import com.nike.wingtips.Span;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -53,19 +69,16 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
-import io.netty.channel.group.ChannelGroup;
-import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslHandler;
-import io.netty.util.concurrent.GlobalEventExecutor;
 
 /**
  * Channel pipeline initializer that sets up the channel to handle HTTP requests. Also includes support for distributed
@@ -112,6 +125,11 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
      * pipeline depending on the value of {@link #sslCtx}.
      */
     public static final String SSL_HANDLER_NAME = "SslHandler";
+    /**
+     * The name of the {@link FlushConsolidationHandler} handler in the pipeline. This handler may or may not be
+     * present in the pipeline depending on the value of {@link #flushConsolidationMaxPendingFlushes}.
+     */
+    public static final String FLUSH_CONSOLIDATION_HANDLER_NAME = "FlushConsolidationHandler";
     /**
      * The name of the {@link HttpServerCodec} handler in the pipeline.
      */
@@ -140,10 +158,6 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
      * The name of the {@link RequestInfoSetterHandler} handler in the pipeline.
      */
     public static final String REQUEST_INFO_SETTER_HANDLER_NAME = "RequestInfoSetterHandler";
-    /**
-     * The name of the {@link OpenChannelLimitHandler} handler in the pipeline.
-     */
-    public static final String OPEN_CHANNEL_LIMIT_HANDLER_NAME = "OpenChannelLimitHandler";
     /**
      * The name of the {@link RequestFilterHandler} before security handler in the pipeline.
      */
@@ -156,6 +170,21 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
      * The name of the {@link RoutingHandler} handler in the pipeline.
      */
     public static final String ROUTING_HANDLER_NAME = "RoutingHandler";
+    /**
+     * The name of the {@link ConcurrencyLimitHandler} handler in the pipeline. This handler may or may not be present
+     * in the pipeline depending on the value of {@link #endpointConcurrencyLimiters}.
+     */
+    public static final String CONCURRENCY_LIMIT_HANDLER_NAME = "ConcurrencyLimitHandler";
+    /**
+     * The name of the {@link LoadSheddingHandler} handler in the pipeline. This handler may or may not be present in
+     * the pipeline depending on the value of {@link #priorityLoadShedder}.
+     */
+    public static final String LOAD_SHEDDING_HANDLER_NAME = "LoadSheddingHandler";
+    /**
+     * The name of the {@link RequestDeadlineHandler} handler in the pipeline. This handler may or may not be present
+     * in the pipeline depending on the value of {@link #requestDeadlineConfig}.
+     */
+    public static final String REQUEST_DEADLINE_HANDLER_NAME = "RequestDeadlineHandler";
     /**
      * The name of the {@link SecurityValidationHandler} handler in the pipeline.
      */
@@ -173,6 +202,30 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
      * The name of the {@link NonblockingEndpointExecutionHandler} handler in the pipeline.
      */
     public static final String NONBLOCKING_ENDPOINT_EXECUTION_HANDLER_NAME = "NonblockingEndpointExecutionHandler";
+    /**
+     * The name of the {@link StreamingEndpointExecutionHandler} handler in the pipeline.
+     */
+    public static final String STREAMING_ENDPOINT_EXECUTION_HANDLER_NAME = "StreamingEndpointExecutionHandler";
+    /**
+     * The name of the {@link WebSocketUpgradeHandler} handler in the pipeline.
+     */
+    public static final String WEBSOCKET_UPGRADE_HANDLER_NAME = "WebSocketUpgradeHandler";
+    /**
+     * The name of the {@link
+     * io.netty.handler.codec.http.websocketx.extensions.compression.WebSocketServerCompressionHandler} handler that
+     * {@link WebSocketUpgradeHandler} adds to the pipeline for {@code permessage-deflate} connections.
+     */
+    public static final String WEBSOCKET_COMPRESSION_HANDLER_NAME = "WebSocketCompressionHandler";
+    /**
+     * The name of the {@link io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler} handler that
+     * {@link WebSocketUpgradeHandler} adds to the pipeline for WebSocket connections.
+     */
+    public static final String WEBSOCKET_PROTOCOL_HANDLER_NAME = "WebSocketProtocolHandler";
+    /**
+     * The name of the {@link WebSocketFrameHandler} handler that {@link WebSocketUpgradeHandler} adds to the pipeline
+     * for WebSocket connections.
+     */
+    public static final String WEBSOCKET_FRAME_HANDLER_NAME = "WebSocketFrameHandler";
     /**
      * The name of the {@link ProxyRouterEndpointExecutionHandler} handler in the pipeline.
      */
@@ -218,6 +271,8 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
     private final int maxRequestSizeInBytes;
     private final Collection<Endpoint<?>> endpoints;
     private final Executor longRunningTaskExecutor;
+    private final Executor requestContentValidationExecutor;
+    private final Executor securityValidationExecutor;
     private final RiposteErrorHandler riposteErrorHandler;
     private final RiposteUnhandledErrorHandler riposteUnhandledErrorHandler;
     private final RequestValidator validationService;
@@ -230,11 +285,16 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
     private final RequestSecurityValidator requestSecurityValidator;
     private final long workerChannelIdleTimeoutMillis;
     private final long incompleteHttpCallTimeoutMillis;
-    private final int maxOpenChannelsThreshold;
-    private final ChannelGroup openChannelsGroup;
     private final boolean debugChannelLifecycleLoggingEnabled;
     private final int responseCompressionThresholdBytes;
+    private final ResponseCompressionConfig responseCompressionConfig;
+    private final AdaptiveCompressionController adaptiveCompressionController;
+    private final int flushConsolidationMaxPendingFlushes;
     private final HttpRequestDecoderConfig httpRequestDecoderConfig;
+    private final EndpointConcurrencyLimiters endpointConcurrencyLimiters;
+    private final RequestCoalescer requestCoalescer;
+    private final PriorityLoadShedder priorityLoadShedder;
+    private final RequestDeadlineConfig requestDeadlineConfig;
     private final DistributedTracingConfig<Span> distributedTracingConfig;
 
     private final StreamingAsyncHttpClient streamingAsyncHttpClientForProxyRouterEndpoints;
@@ -261,7 +321,8 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
      * @param longRunningTaskExecutor
      *     The task executor that should be used for long running tasks when endpoints need to do blocking
      *     I/O (e.g. making downstream calls to other systems, DB calls, etc, where there is no async nonblocking
-     *     driver). This can be null - if it is null then {@link Executors#newCachedThreadPool()} will be used.
+     *     driver). This can be null - if it is null then a bounded {@link InstrumentedThreadPoolExecutor} will be
+     *     used. See {@link ServerConfig#longRunningTaskExecutor()}.
      * @param riposteErrorHandler
      *     The "normal" error handler. Cannot be null.
      * @param riposteUnhandledErrorHandler
@@ -309,16 +370,47 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
      *     request) but before the last chunk of the request is received. Set this to a value less than or equal to 0
      *     to disable incomplete-call-timeouts entirely, which is not recommended. See {@link
      *     ServerConfig#incompleteHttpCallTimeoutMillis()}.
-     * @param maxOpenChannelsThreshold
-     *     The max number of incoming server channels allowed to be open. -1 indicates unlimited. See {@link
-     *     ServerConfig#maxOpenIncomingServerChannels()} for details on how this is
-     *     used.
      * @param debugChannelLifecycleLoggingEnabled
      *     Whether or not a {@link LoggingHandler} should be added to the channel pipeline, which gives detailed
      *     lifecycle info about the channel (i.e. what local and remote ports it is connected to, when it becomes
      *     active/inactive/closed/etc)
      * @param userIdHeaderKeys
      *     The list of header keys that are considered "user ID header keys" for the purpose of distributed tracing.
+     * @param responseCompressionThresholdBytes
+     *     The response payload size threshold (in bytes) below which responses will not be compressed. See {@link
+     *     ServerConfig#responseCompressionThresholdBytes()}.
+     * @param responseCompressionConfig
+     *     The config for response compression encodings and levels. Can be null - if it is null then {@link
+     *     ResponseCompressionConfig#DEFAULT_IMPL} will be used.
+     * @param flushConsolidationMaxPendingFlushes
+     *     The max number of flushes to consolidate into a single socket flush for incoming server channels, or 0 (or
+     *     less) to disable flush consolidation. See {@link ServerConfig#flushConsolidationMaxPendingFlushes()}.
+     * @param proxyRouterFlushConsolidationMaxPendingFlushes
+     *     The max number of flushes to consolidate into a single socket flush for proxy/router downstream channels, or
+     *     0 (or less) to disable flush consolidation. See {@link
+     *     ServerConfig#proxyRouterFlushConsolidationMaxPendingFlushes()}.
+     * @param requestContentValidationExecutor
+     *     The executor used for asynchronous request content validation. Can be null - if it is null then a bounded
+     *     {@link InstrumentedThreadPoolExecutor} will be used. See {@link
+     *     ServerConfig#requestContentValidationExecutor()}.
+     * @param securityValidationExecutor
+     *     The executor used for asynchronous request security validation. Can be null - if it is null then a bounded
+     *     {@link InstrumentedThreadPoolExecutor} will be used. See {@link ServerConfig#securityValidationExecutor()}.
+     * @param concurrencyLimitConfig
+     *     The app-wide config for adaptive per-endpoint concurrency limiting. Can be null - if it is null then only
+     *     endpoints with an {@link Endpoint#concurrencyLimitConfigOverride()} will be limited. See {@link
+     *     ServerConfig#concurrencyLimitConfig()}.
+     * @param loadSheddingConfig
+     *     The config for priority-aware load shedding. Can be null - if it is null then no requests will be shed. See
+     *     {@link ServerConfig#loadSheddingConfig()}.
+     * @param requestDeadlineConfig
+     *     The config for end-to-end request deadlines. Can be null - if it is null then callers' timeouts will be
+     *     ignored. See {@link ServerConfig#requestDeadlineConfig()}.
+     * @param proxyRouterClientConfig
+     *     The optional settings for the client that proxy/router endpoints use for their downstream calls (connection
+     *     pools, DNS resolution, address selection, event loop sharing, connection max age, retry budgets, and outlier
+     *     detection). Can be null - if it is null then {@link ProxyRouterClientConfig#NONE} will be used. See {@link
+     *     ProxyRouterClientConfig#fromServerConfig(ServerConfig)}.
      */
     public HttpChannelInitializer(SslContext sslCtx,
                                   int maxRequestSizeInBytes,
@@ -338,17 +430,37 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
                                   long workerChannelIdleTimeoutMillis,
                                   long proxyRouterConnectTimeoutMillis,
                                   long incompleteHttpCallTimeoutMillis,
-                                  int maxOpenChannelsThreshold,
                                   boolean debugChannelLifecycleLoggingEnabled,
                                   List<String> userIdHeaderKeys,
                                   int responseCompressionThresholdBytes,
+                                  ResponseCompressionConfig responseCompressionConfig,
+                                  int flushConsolidationMaxPendingFlushes,
+                                  int proxyRouterFlushConsolidationMaxPendingFlushes,
                                   HttpRequestDecoderConfig httpRequestDecoderConfig,
+                                  Executor requestContentValidationExecutor,
+                                  Executor securityValidationExecutor,
+                                  ConcurrencyLimitConfig concurrencyLimitConfig,
+                                  LoadSheddingConfig loadSheddingConfig,
+                                  RequestDeadlineConfig requestDeadlineConfig,
+                                  ProxyRouterClientConfig proxyRouterClientConfig,
                                   @NotNull DistributedTracingConfig<Span> distributedTracingConfig) {
         if (endpoints == null || endpoints.isEmpty())
             throw new IllegalArgumentException("endpoints cannot be empty");
 
         if (longRunningTaskExecutor == null)
-            longRunningTaskExecutor = Executors.newCachedThreadPool();
+            longRunningTaskExecutor = InstrumentedThreadPoolExecutor.newDefaultLongRunningTaskExecutor(metricsListener);
+
+        if (requestContentValidationExecutor == null) {
+            requestContentValidationExecutor = InstrumentedThreadPoolExecutor.newDefaultValidationExecutor(
+                InstrumentedThreadPoolExecutor.REQUEST_CONTENT_VALIDATION_EXECUTOR_NAME, metricsListener
+            );
+        }
+
+        if (securityValidationExecutor == null) {
+            securityValidationExecutor = InstrumentedThreadPoolExecutor.newDefaultValidationExecutor(
+                InstrumentedThreadPoolExecutor.SECURITY_VALIDATION_EXECUTOR_NAME, metricsListener
+            );
+        }
 
         if (riposteErrorHandler == null)
             throw new IllegalArgumentException("riposteErrorHandler cannot be null");
@@ -359,10 +471,18 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
         if (responseSender == null)
             throw new IllegalArgumentException("responseSender cannot be null");
 
+        if (responseCompressionConfig == null) {
+            responseCompressionConfig = ResponseCompressionConfig.DEFAULT_IMPL;
+        }
+
         if (httpRequestDecoderConfig == null) {
             httpRequestDecoderConfig = HttpRequestDecoderConfig.DEFAULT_IMPL;
         }
 
+        if (proxyRouterClientConfig == null) {
+            proxyRouterClientConfig = ProxyRouterClientConfig.NONE;
+        }
+
         //noinspection ConstantConditions
         if (distributedTracingConfig == null) {
             throw new IllegalArgumentException("distributedTracingConfig cannot be null");
@@ -372,6 +492,8 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
         this.maxRequestSizeInBytes = maxRequestSizeInBytes;
         this.endpoints = endpoints;
         this.longRunningTaskExecutor = longRunningTaskExecutor;
+        this.requestContentValidationExecutor = requestContentValidationExecutor;
+        this.securityValidationExecutor = securityValidationExecutor;
         this.riposteErrorHandler = riposteErrorHandler;
         this.riposteUnhandledErrorHandler = riposteUnhandledErrorHandler;
         this.validationService = validationService;
@@ -398,17 +520,16 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
         }
 
         this.workerChannelIdleTimeoutMillis = workerChannelIdleTimeoutMillis;
-        this.maxOpenChannelsThreshold = maxOpenChannelsThreshold;
         this.incompleteHttpCallTimeoutMillis = incompleteHttpCallTimeoutMillis;
-        openChannelsGroup = (maxOpenChannelsThreshold == -1)
-                            ? null
-                            : new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
         this.debugChannelLifecycleLoggingEnabled = debugChannelLifecycleLoggingEnabled;
 
         this.streamingAsyncHttpClientForProxyRouterEndpoints = new StreamingAsyncHttpClient(
             workerChannelIdleTimeoutMillis,
             proxyRouterConnectTimeoutMillis,
             debugChannelLifecycleLoggingEnabled,
+            proxyRouterFlushConsolidationMaxPendingFlushes,
+            proxyRouterClientConfig,
+            metricsListener,
             distributedTracingConfig
         );
 
@@ -436,10 +557,43 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
         cachedResponseFilterHandler = (hasReqResFilters) ? new ResponseFilterHandler(requestAndResponseFilters) : null;
         this.userIdHeaderKeys = userIdHeaderKeys;
         this.responseCompressionThresholdBytes = responseCompressionThresholdBytes;
+        this.responseCompressionConfig = responseCompressionConfig;
+        this.adaptiveCompressionController = (responseCompressionConfig.isAdaptiveCompressionEnabled())
+                                             ? new AdaptiveCompressionController(
+                                                 responseCompressionConfig, responseCompressionThresholdBytes,
+                                                 metricsListener
+                                             )
+                                             : null;
+        this.flushConsolidationMaxPendingFlushes = flushConsolidationMaxPendingFlushes;
         this.httpRequestDecoderConfig = httpRequestDecoderConfig;
+        EndpointConcurrencyLimiters concurrencyLimiters =
+            new EndpointConcurrencyLimiters(concurrencyLimitConfig, metricsListener);
+        this.endpointConcurrencyLimiters = (concurrencyLimiters.isEnabledForAny(endpoints))
+                                           ? concurrencyLimiters
+                                           : null;
+        // Only bother with a coalescer if some endpoint actually opts in to coalescing.
+        this.requestCoalescer = (endpoints.stream().anyMatch(
+                                    e -> e instanceof NonblockingEndpoint
+                                         && ((NonblockingEndpoint<?, ?>) e).requestCoalescingConfig() != null
+                                ))
+                                ? new RequestCoalescer(metricsListener)
+                                : null;
+        this.priorityLoadShedder = (loadSheddingConfig == null)
+                                   ? null
+                                   : new PriorityLoadShedder(
+                                       loadSheddingConfig, longRunningTaskExecutor, metricsListener
+                                   );
+        this.requestDeadlineConfig = requestDeadlineConfig;
         this.distributedTracingConfig = distributedTracingConfig;
     }
 
+    /**
+     * @return The {@link StreamingAsyncHttpClient} that proxy/router endpoints use for their downstream calls.
+     */
+    public @NotNull StreamingAsyncHttpClient getStreamingAsyncHttpClientForProxyRouterEndpoints() {
+        return streamingAsyncHttpClientForProxyRouterEndpoints;
+    }
+
     @Override
     public void initChannel(SocketChannel ch) {
         ChannelPipeline p = ch.pipeline();
@@ -457,6 +611,16 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
         if (sslCtx != null)
             p.addLast(SSL_HANDLER_NAME, sslCtx.newHandler(ch.alloc()));
 
+        // OUTBOUND - Add the FlushConsolidationHandler if desired. This batches the flushes for response chunks
+        //            within a single event loop iteration (or up to the max pending flushes) so that chunk-heavy
+        //            responses (streaming, proxied, etc) are encrypted and written to the socket with fewer syscalls.
+        //            The consolidated flush always happens before the event loop waits for more I/O, so the last chunk
+        //            is not delayed.
+        if (flushConsolidationMaxPendingFlushes > 0) {
+            p.addLast(FLUSH_CONSOLIDATION_HANDLER_NAME,
+                      new FlushConsolidationHandler(flushConsolidationMaxPendingFlushes, true));
+        }
+
         // IN/OUT - Add the HttpServerCodec to decode requests into the appropriate HttpObjects and encode responses
         //          from HttpObjects into bytes. This MUST be the earliest "outbound" handler after the SSL handler
         //          since outbound handlers are processed in reverse order.
@@ -491,7 +655,13 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
         //          request/response/size threshold). This must be added after HttpServerCodec so that it can process
         //          after the request on the incoming pipeline and before the response on the outbound pipeline.
         p.addLast(SMART_HTTP_CONTENT_COMPRESSOR_HANDLER_NAME,
-                  new SmartHttpContentCompressor(responseCompressionThresholdBytes));
+                  new SmartHttpContentCompressor(
+                      responseCompressionConfig, responseCompressionThresholdBytes, adaptiveCompressionController
+                  ));
+        if (adaptiveCompressionController != null) {
+            // Only does anything when the default event loop lag load signal is in use.
+            adaptiveCompressionController.monitorEventLoop(ch.eventLoop());
+        }
 
         // INBOUND - Add the "before security" RequestFilterHandler before security and even before routing
         //      (if we have any filters to apply). This is here before RoutingHandler so that it can intercept requests
@@ -503,6 +673,25 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
         //           state for later execution
         p.addLast(ROUTING_HANDLER_NAME, new RoutingHandler(endpoints, maxRequestSizeInBytes, distributedTracingConfig));
 
+        // INBOUND - Add RequestDeadlineHandler (if request deadlines are enabled) right after routing so the deadline
+        //           is counted from as close to the start of the request as possible.
+        if (requestDeadlineConfig != null)
+            p.addLast(REQUEST_DEADLINE_HANDLER_NAME, new RequestDeadlineHandler(requestDeadlineConfig));
+
+        // INBOUND - Add LoadSheddingHandler (if load shedding is enabled) right after routing so that shed requests
+        //           are rejected before we spend any more work on them, and before they can take up a concurrency
+        //           limit permit.
+        if (priorityLoadShedder != null) {
+            p.addLast(LOAD_SHEDDING_HANDLER_NAME, new LoadSheddingHandler(priorityLoadShedder));
+            // Only does anything when the default load signal is in use.
+            priorityLoadShedder.monitorEventLoop(ch.eventLoop());
+        }
+
+        // INBOUND - Add ConcurrencyLimitHandler (if any endpoint is concurrency limited) right after routing so that
+        //           requests over their endpoint's limit are rejected before we spend any more work on them.
+        if (endpointConcurrencyLimiters != null)
+            p.addLast(CONCURRENCY_LIMIT_HANDLER_NAME, new ConcurrencyLimitHandler(endpointConcurrencyLimiters));
+
         // INBOUND - Add SmartHttpContentDecompressor for automatic content decompression if the request indicates it
         //           is compressed *and* the target endpoint (determined by the previous RoutingHandler) is one that
         //           is eligible for auto-decompression.
@@ -510,15 +699,12 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
 
         // INBOUND - Add RequestInfoSetterHandler to populate our RequestInfo's content.
         p.addLast(REQUEST_INFO_SETTER_HANDLER_NAME, new RequestInfoSetterHandler(maxRequestSizeInBytes));
-        // INBOUND - Add OpenChannelLimitHandler to limit the number of open incoming server channels, but only if
-        //           maxOpenChannelsThreshold is not -1.
-        if (maxOpenChannelsThreshold != -1) {
-            p.addLast(OPEN_CHANNEL_LIMIT_HANDLER_NAME,
-                      new OpenChannelLimitHandler(openChannelsGroup, maxOpenChannelsThreshold));
-        }
 
         // INBOUND - Add SecurityValidationHandler to validate the RequestInfo object for the matching endpoint
-        p.addLast(SECURITY_VALIDATION_HANDLER_NAME, new SecurityValidationHandler(requestSecurityValidator));
+        p.addLast(
+            SECURITY_VALIDATION_HANDLER_NAME,
+            new SecurityValidationHandler(requestSecurityValidator, securityValidationExecutor)
+        );
 
         // INBOUND - Add the RequestFilterHandler for after security (if we have any filters to apply).
         if (afterSecurityRequestFilterHandler != null)
@@ -532,16 +718,32 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
         // INBOUND - Now that the request content has (maybe) been deserialized we can try validation on that
         //           deserialized content (if desired by the endpoint and if we have a non-null validator)
         if (validationService != null)
-            p.addLast(REQUEST_CONTENT_VALIDATION_HANDLER_NAME, new RequestContentValidationHandler(validationService));
+            p.addLast(
+                REQUEST_CONTENT_VALIDATION_HANDLER_NAME,
+                new RequestContentValidationHandler(validationService, requestContentValidationExecutor)
+            );
 
         // INBOUND - Add NonblockingEndpointExecutionHandler to perform execution of async/nonblocking endpoints
         p.addLast(
             NONBLOCKING_ENDPOINT_EXECUTION_HANDLER_NAME,
             new NonblockingEndpointExecutionHandler(
+                longRunningTaskExecutor, defaultCompletableFutureTimeoutMillis, distributedTracingConfig, null,
+                requestCoalescer
+            )
+        );
+
+        // INBOUND - Add StreamingEndpointExecutionHandler to perform execution of chunked response streaming endpoints
+        p.addLast(
+            STREAMING_ENDPOINT_EXECUTION_HANDLER_NAME,
+            new StreamingEndpointExecutionHandler(
                 longRunningTaskExecutor, defaultCompletableFutureTimeoutMillis, distributedTracingConfig
             )
         );
 
+        // INBOUND - Add WebSocketUpgradeHandler to switch the channel over to the WebSocket protocol for
+        //           WebSocketEndpoints
+        p.addLast(WEBSOCKET_UPGRADE_HANDLER_NAME, new WebSocketUpgradeHandler());
+
         // INBOUND - Add ProxyRouterEndpointExecutionHandler to perform execution of proxy routing endpoints
         p.addLast(PROXY_ROUTER_ENDPOINT_EXECUTION_HANDLER_NAME,
                   new ProxyRouterEndpointExecutionHandler(longRunningTaskExecutor,
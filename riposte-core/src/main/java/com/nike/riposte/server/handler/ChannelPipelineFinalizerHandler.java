@@ -7,12 +7,15 @@ import com.nike.riposte.server.channelpipeline.message.LastOutboundMessage;
 import com.nike.riposte.server.error.handler.ErrorResponseBody;
 import com.nike.riposte.server.handler.base.BaseInboundHandlerWithTracingAndMdcSupport;
 import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.http.ChunkedResponseWriter;
 import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.NonblockingEndpoint;
 import com.nike.riposte.server.http.ProxyRouterProcessingState;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseInfo;
 import com.nike.riposte.server.http.ResponseSender;
 import com.nike.riposte.server.http.impl.RequestInfoImpl;
+import com.nike.riposte.server.http.websocket.WebSocketEndpoint;
 import com.nike.riposte.server.logging.AccessLogger;
 import com.nike.riposte.server.metrics.ServerMetricsEvent;
 import com.nike.riposte.util.AsyncNettyHelper;
@@ -26,6 +29,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Deque;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelFutureListener;
@@ -33,6 +37,7 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandler;
 import io.netty.channel.ChannelOutboundHandler;
 import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.HttpResponseStatus;
 
 import static com.nike.riposte.server.channelpipeline.HttpChannelInitializer.IDLE_CHANNEL_TIMEOUT_HANDLER_NAME;
 import static com.nike.riposte.util.AsyncNettyHelper.runnableWithTracingAndMdc;
@@ -193,6 +198,12 @@ public class ChannelPipelineFinalizerHandler extends BaseInboundHandlerWithTraci
 
         ctx.flush();
 
+        // Give the request's concurrency limit permit back (if it has one). Only requests that didn't blow up count
+        //      towards the latency the limit is based on.
+        ConcurrencyLimitHandler.releasePermitIfAcquired(ctx.channel(), cause == null);
+        // The request no longer counts as in flight for load shedding purposes either.
+        LoadSheddingHandler.markRequestFinishedIfNecessary(ctx.channel());
+
         handleMetricsForCompletedRequestIfNotAlreadyDone(state);
 
         // Make sure to clear out request info chunks, multipart data, and any other resources to prevent reference
@@ -200,8 +211,14 @@ public class ChannelPipelineFinalizerHandler extends BaseInboundHandlerWithTraci
         requestInfo.releaseAllResources();
 
         // Add an IdleChannelTimeoutHandler (if desired) to the start of the pipeline in order to auto-close this
-        //      channel if it sits unused longer than the timeout value before the next request arrives.
-        if (workerChannelIdleTimeoutMillis > 0 && ctx.pipeline().get(IDLE_CHANNEL_TIMEOUT_HANDLER_NAME) == null) {
+        //      channel if it sits unused longer than the timeout value before the next request arrives. Long-lived
+        //      streaming responses (e.g. Server-Sent Events) are exempt while they're still streaming, as are WebSocket
+        //      connections - they have their own heartbeat/close handling and would otherwise be killed between
+        //      messages.
+        if (workerChannelIdleTimeoutMillis > 0
+            && ctx.pipeline().get(IDLE_CHANNEL_TIMEOUT_HANDLER_NAME) == null
+            && !isStreamingResponseInProgress(state)
+            && !isWebSocketConnection(state)) {
             ctx.pipeline().addFirst(IDLE_CHANNEL_TIMEOUT_HANDLER_NAME,
                                     new IdleChannelTimeoutHandler(workerChannelIdleTimeoutMillis,
                                                                   "ServerWorkerChannel"));
@@ -224,6 +241,26 @@ public class ChannelPipelineFinalizerHandler extends BaseInboundHandlerWithTraci
         }
     }
 
+    /**
+     * @return true if the given state has an application {@link ChunkedResponseWriter} whose response is still being
+     * streamed (i.e. the last chunk has not been sent yet).
+     */
+    protected boolean isStreamingResponseInProgress(HttpProcessingState state) {
+        return state.getChunkedResponseWriter() != null && !state.isResponseSendingLastChunkSent();
+    }
+
+    /**
+     * @return true if the given state is for a channel that has been upgraded to a WebSocket connection. WebSocket
+     * connections are long-lived and have their own close handling, so the idle channel timeout does not apply.
+     */
+    protected boolean isWebSocketConnection(HttpProcessingState state) {
+        ResponseInfo<?> responseInfo = state.getResponseInfo();
+        return state.getEndpointForExecution() instanceof WebSocketEndpoint
+               && responseInfo != null
+               && Integer.valueOf(HttpResponseStatus.SWITCHING_PROTOCOLS.code())
+                         .equals(responseInfo.getHttpStatusCode());
+    }
+
     protected void handleMetricsForCompletedRequestIfNotAlreadyDone(HttpProcessingState state) {
         // Send response-sent event for metrics purposes now that we handled all possible cases.
         //      Due to multiple messages and exception possibilities/interactions it's possible we've already dealt with
@@ -275,6 +312,11 @@ public class ChannelPipelineFinalizerHandler extends BaseInboundHandlerWithTraci
     @Override
     public PipelineContinuationBehavior doChannelInactive(ChannelHandlerContext ctx) throws Exception {
         try {
+            // Safety net - make sure the concurrency limit permit for an unfinished request doesn't leak. The request's
+            //      latency isn't representative since the caller went away.
+            ConcurrencyLimitHandler.releasePermitIfAcquired(ctx.channel(), false);
+            LoadSheddingHandler.markRequestFinishedIfNecessary(ctx.channel());
+
             // Grab hold of the things we may need when cleaning up.
             HttpProcessingState httpState = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
             ProxyRouterProcessingState proxyRouterState =
@@ -358,6 +400,28 @@ public class ChannelPipelineFinalizerHandler extends BaseInboundHandlerWithTraci
                 }
             }
 
+            // If the endpoint is still working on a response then nobody is left to receive it, so cancel it. This
+            //      also cancels the endpoint's response timeout check so it doesn't hold on to the request's state.
+            //      If a nonblocking endpoint hasn't been started yet then cancel the work it's waiting on instead,
+            //      which keeps it from being started at all.
+            if (responseNotFullySent) {
+                CompletableFuture<?> futureToCancel = httpState.getEndpointResponseFuture();
+                if (futureToCancel == null && httpState.getEndpointForExecution() instanceof NonblockingEndpoint) {
+                    futureToCancel = httpState.getPreEndpointExecutionWorkChain();
+                }
+                if (futureToCancel != null && !futureToCancel.isDone()) {
+                    try {
+                        futureToCancel.cancel(true);
+                    }
+                    catch (Throwable t) {
+                        logErrorWithTracing(
+                            "An unexpected error occurred while trying to cancel the endpoint's response future. "
+                            + "This exception will be swallowed.", t, httpState
+                        );
+                    }
+                }
+            }
+
             // Make sure access logging is handled
             try {
                 if (!httpState.isAccessLogCompletedOrScheduled() && accessLogger != null) {
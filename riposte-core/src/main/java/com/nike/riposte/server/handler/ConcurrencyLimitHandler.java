@@ -0,0 +1,97 @@
+package com.nike.riposte.server.handler;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.error.exception.TooManyConcurrentRequestsException;
+import com.nike.riposte.server.handler.base.BaseInboundHandlerWithTracingAndMdcSupport;
+import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.handler.concurrencylimit.AdaptiveConcurrencyLimiter;
+import com.nike.riposte.server.handler.concurrencylimit.EndpointConcurrencyLimiters;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.HttpProcessingState;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.util.AttributeKey;
+
+/**
+ * This handler enforces the adaptive per-endpoint concurrency limit (see {@link
+ * com.nike.riposte.server.config.ServerConfig#concurrencyLimitConfig()}). When a new request comes in it acquires a
+ * permit from the limiter for the endpoint chosen by {@link RoutingHandler}. If the endpoint is at its limit then a
+ * {@link TooManyConcurrentRequestsException} is thrown, which sends the caller a 503 without doing any further work
+ * for the request (decompression, security validation, deserialization, etc). The permit is stored on the channel and
+ * released by {@link ChannelPipelineFinalizerHandler} when the request is done - see {@link
+ * #releasePermitIfAcquired(Channel, boolean)}.
+ * <p/>
+ * This handler should come directly after {@link RoutingHandler} in the pipeline.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ConcurrencyLimitHandler extends BaseInboundHandlerWithTracingAndMdcSupport {
+
+    /**
+     * Attr key for a channel attribute that holds the concurrency limit permit for the request currently being
+     * processed on the channel (if any).
+     */
+    public static final AttributeKey<AdaptiveConcurrencyLimiter.Permit> CONCURRENCY_LIMIT_PERMIT_ATTRIBUTE_KEY =
+        AttributeKey.valueOf("CONCURRENCY_LIMIT_PERMIT");
+
+    protected final EndpointConcurrencyLimiters concurrencyLimiters;
+
+    public ConcurrencyLimitHandler(EndpointConcurrencyLimiters concurrencyLimiters) {
+        if (concurrencyLimiters == null)
+            throw new IllegalArgumentException("concurrencyLimiters cannot be null");
+
+        this.concurrencyLimiters = concurrencyLimiters;
+    }
+
+    /**
+     * Releases the concurrency limit permit held by the given channel, if there is one. Safe to call multiple times.
+     *
+     * @param channel The channel to release the permit for.
+     * @param recordSample Pass in true if the request completed normally and its latency should be used to adjust the
+     * limit.
+     */
+    public static void releasePermitIfAcquired(Channel channel, boolean recordSample) {
+        AdaptiveConcurrencyLimiter.Permit permit = channel.attr(CONCURRENCY_LIMIT_PERMIT_ATTRIBUTE_KEY).getAndSet(null);
+        if (permit != null)
+            permit.release(recordSample);
+    }
+
+    @Override
+    public PipelineContinuationBehavior doChannelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpRequest) {
+            // First chunk in the request. A permit left over from the previous request on this channel would mean it
+            //      was never finalized, so don't let it count against the limit any longer.
+            releasePermitIfAcquired(ctx.channel(), false);
+
+            HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+            Endpoint<?> endpoint = (state == null) ? null : state.getEndpointForExecution();
+            if (endpoint == null)
+                return PipelineContinuationBehavior.CONTINUE;
+
+            AdaptiveConcurrencyLimiter limiter = concurrencyLimiters.limiterFor(endpoint);
+            if (limiter == null)
+                return PipelineContinuationBehavior.CONTINUE;
+
+            AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+            if (permit == null) {
+                throw new TooManyConcurrentRequestsException(
+                    limiter.getName(), limiter.getLimit(), limiter.getInFlight()
+                );
+            }
+
+            ctx.channel().attr(CONCURRENCY_LIMIT_PERMIT_ATTRIBUTE_KEY).set(permit);
+        }
+
+        return PipelineContinuationBehavior.CONTINUE;
+    }
+
+    @Override
+    protected boolean argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo(
+        HandlerMethodToExecute methodToExecute, ChannelHandlerContext ctx, Object msgOrEvt, Throwable cause
+    ) {
+        // This class does not log, and nothing that happens in this class should cause logging to happen elsewhere.
+        //      Therefore we should never bother with linking/unlinking tracing info to save on the extra processing.
+        return false;
+    }
+}
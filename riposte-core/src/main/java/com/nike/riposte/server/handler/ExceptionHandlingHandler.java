@@ -12,6 +12,7 @@ import com.nike.riposte.server.error.handler.RiposteErrorHandler;
 import com.nike.riposte.server.error.handler.RiposteUnhandledErrorHandler;
 import com.nike.riposte.server.handler.base.BaseInboundHandlerWithTracingAndMdcSupport;
 import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.http.ChunkedResponseWriter;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.ProxyRouterEndpoint;
@@ -124,6 +125,12 @@ public class ExceptionHandlingHandler extends BaseInboundHandlerWithTracingAndMd
                 }
             }
 
+            // Likewise any streaming endpoint response writer is now invalid.
+            ChunkedResponseWriter chunkedResponseWriter = state.getChunkedResponseWriter();
+            if (chunkedResponseWriter != null) {
+                chunkedResponseWriter.cancel(cause);
+            }
+
             addErrorAnnotationToOverallRequestSpan(state, responseInfo, cause);
         }
 
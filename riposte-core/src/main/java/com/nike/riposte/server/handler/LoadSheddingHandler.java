@@ -0,0 +1,98 @@
+package com.nike.riposte.server.handler;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.error.exception.RequestShedException;
+import com.nike.riposte.server.handler.base.BaseInboundHandlerWithTracingAndMdcSupport;
+import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.handler.loadshedding.PriorityLoadShedder;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.RequestPriority;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.util.AttributeKey;
+
+/**
+ * This handler does priority-aware load shedding (see {@link
+ * com.nike.riposte.server.config.ServerConfig#loadSheddingConfig()}). When a new request comes in it asks the config
+ * to classify the request's {@link RequestPriority} based on the endpoint chosen by {@link RoutingHandler} (and the
+ * request headers). If the current server load has reached that priority's threshold then a {@link
+ * RequestShedException} is thrown, which sends the caller a 503 without doing any further work for the request
+ * (decompression, security validation, deserialization, etc). Admitted requests are counted as in flight until {@link
+ * ChannelPipelineFinalizerHandler} calls {@link #markRequestFinishedIfNecessary(Channel)}.
+ * <p/>
+ * This handler should come directly after {@link RoutingHandler} in the pipeline.
+ */
+@SuppressWarnings("WeakerAccess")
+public class LoadSheddingHandler extends BaseInboundHandlerWithTracingAndMdcSupport {
+
+    /**
+     * Attr key for a channel attribute that holds the {@link PriorityLoadShedder} that admitted the request currently
+     * being processed on the channel (if any), so it can be told when the request is done.
+     */
+    public static final AttributeKey<PriorityLoadShedder> LOAD_SHEDDING_ADMITTED_REQUEST_ATTRIBUTE_KEY =
+        AttributeKey.valueOf("LOAD_SHEDDING_ADMITTED_REQUEST");
+
+    protected final PriorityLoadShedder loadShedder;
+
+    public LoadSheddingHandler(PriorityLoadShedder loadShedder) {
+        if (loadShedder == null)
+            throw new IllegalArgumentException("loadShedder cannot be null");
+
+        this.loadShedder = loadShedder;
+    }
+
+    /**
+     * Tells the load shedder that admitted the request currently being processed on the given channel (if any) that
+     * the request is done. Safe to call multiple times.
+     *
+     * @param channel The channel whose request is done.
+     */
+    public static void markRequestFinishedIfNecessary(Channel channel) {
+        PriorityLoadShedder admittedBy = channel.attr(LOAD_SHEDDING_ADMITTED_REQUEST_ATTRIBUTE_KEY).getAndSet(null);
+        if (admittedBy != null)
+            admittedBy.onRequestFinished();
+    }
+
+    @Override
+    public PipelineContinuationBehavior doChannelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpRequest) {
+            // First chunk in the request. An admitted request left over from the previous request on this channel
+            //      would mean it was never finalized, so don't let it count as in flight any longer.
+            markRequestFinishedIfNecessary(ctx.channel());
+
+            HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+            Endpoint<?> endpoint = (state == null) ? null : state.getEndpointForExecution();
+            RequestInfo<?> requestInfo = (state == null) ? null : state.getRequestInfo();
+            if (endpoint == null || requestInfo == null)
+                return PipelineContinuationBehavior.CONTINUE;
+
+            RequestPriority priority = loadShedder.getConfig().classifyRequest(requestInfo, endpoint);
+            double load = loadShedder.currentLoad();
+            double threshold = loadShedder.thresholdFor(priority);
+            if (load >= threshold) {
+                loadShedder.recordShed(priority);
+                throw new RequestShedException(
+                    priority, load, threshold, loadShedder.getConfig().retryAfterSeconds()
+                );
+            }
+
+            loadShedder.onRequestStarted();
+            ctx.channel().attr(LOAD_SHEDDING_ADMITTED_REQUEST_ATTRIBUTE_KEY).set(loadShedder);
+        }
+
+        return PipelineContinuationBehavior.CONTINUE;
+    }
+
+    @Override
+    protected boolean argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo(
+        HandlerMethodToExecute methodToExecute, ChannelHandlerContext ctx, Object msgOrEvt, Throwable cause
+    ) {
+        // This class does not log, and nothing that happens in this class should cause logging to happen elsewhere.
+        //      Therefore we should never bother with linking/unlinking tracing info to save on the extra processing.
+        return false;
+    }
+}
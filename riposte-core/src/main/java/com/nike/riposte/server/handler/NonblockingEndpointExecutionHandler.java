@@ -7,11 +7,15 @@ import com.nike.riposte.server.config.distributedtracing.ServerSpanNamingAndTagg
 import com.nike.riposte.server.error.exception.NonblockingEndpointCompletableFutureTimedOut;
 import com.nike.riposte.server.handler.base.BaseInboundHandlerWithTracingAndMdcSupport;
 import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.handler.coalescing.RequestCoalescer;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.NonblockingEndpoint;
+import com.nike.riposte.server.http.RequestCoalescingConfig;
+import com.nike.riposte.server.http.RequestDeadline;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.util.TimeoutTimers;
 import com.nike.wingtips.Span;
 
 import org.jetbrains.annotations.NotNull;
@@ -28,9 +32,11 @@ import java.util.function.Function;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.HttpObject;
 import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
 import io.netty.util.concurrent.EventExecutor;
-import io.netty.util.concurrent.ScheduledFuture;
 
+import static com.nike.riposte.util.AsyncNettyHelper.eventLoopExecutor;
 import static com.nike.riposte.util.AsyncNettyHelper.executeOnlyIfChannelIsActive;
 import static com.nike.riposte.util.AsyncNettyHelper.functionWithTracingAndMdc;
 import static com.nike.riposte.util.AsyncNettyHelper.runnableWithTracingAndMdc;
@@ -53,14 +59,48 @@ public class NonblockingEndpointExecutionHandler extends BaseInboundHandlerWithT
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private final @NotNull Executor longRunningTaskExecutor;
     private final long defaultCompletableFutureTimeoutMillis;
+    private final @NotNull Timer responseTimeoutTimer;
+    private final @Nullable RequestCoalescer requestCoalescer;
 
     private final @NotNull ServerSpanNamingAndTaggingStrategy<Span> spanTaggingStrategy;
 
-    @SuppressWarnings("ConstantConditions")
     public NonblockingEndpointExecutionHandler(
         @NotNull Executor longRunningTaskExecutor,
         long defaultCompletableFutureTimeoutMillis,
         @NotNull DistributedTracingConfig<Span> distributedTracingConfig
+    ) {
+        this(longRunningTaskExecutor, defaultCompletableFutureTimeoutMillis, distributedTracingConfig, null);
+    }
+
+    /**
+     * @param responseTimeoutTimer The timer used to schedule the response timeout check for each request. This may be
+     * null, in which case {@link TimeoutTimers#defaultTimeoutTimer()} will be used.
+     */
+    public NonblockingEndpointExecutionHandler(
+        @NotNull Executor longRunningTaskExecutor,
+        long defaultCompletableFutureTimeoutMillis,
+        @NotNull DistributedTracingConfig<Span> distributedTracingConfig,
+        @Nullable Timer responseTimeoutTimer
+    ) {
+        this(
+            longRunningTaskExecutor, defaultCompletableFutureTimeoutMillis, distributedTracingConfig,
+            responseTimeoutTimer, null
+        );
+    }
+
+    /**
+     * @param responseTimeoutTimer The timer used to schedule the response timeout check for each request. This may be
+     * null, in which case {@link TimeoutTimers#defaultTimeoutTimer()} will be used.
+     * @param requestCoalescer The server-wide coalescer used for endpoints that return a non-null {@link
+     * NonblockingEndpoint#requestCoalescingConfig()}. This may be null, in which case requests are never coalesced.
+     */
+    @SuppressWarnings("ConstantConditions")
+    public NonblockingEndpointExecutionHandler(
+        @NotNull Executor longRunningTaskExecutor,
+        long defaultCompletableFutureTimeoutMillis,
+        @NotNull DistributedTracingConfig<Span> distributedTracingConfig,
+        @Nullable Timer responseTimeoutTimer,
+        @Nullable RequestCoalescer requestCoalescer
     ) {
         if (longRunningTaskExecutor == null) {
             throw new IllegalArgumentException("longRunningTaskExecutor cannot be null");
@@ -72,7 +112,11 @@ public class NonblockingEndpointExecutionHandler extends BaseInboundHandlerWithT
 
         this.longRunningTaskExecutor = longRunningTaskExecutor;
         this.defaultCompletableFutureTimeoutMillis = defaultCompletableFutureTimeoutMillis;
+        this.responseTimeoutTimer = (responseTimeoutTimer == null)
+                                    ? TimeoutTimers.defaultTimeoutTimer()
+                                    : responseTimeoutTimer;
         this.spanTaggingStrategy = distributedTracingConfig.getServerSpanNamingAndTaggingStrategy();
+        this.requestCoalescer = requestCoalescer;
     }
 
     protected boolean shouldHandleDoChannelReadMessage(Object msg, Endpoint<?> endpoint) {
@@ -99,75 +143,52 @@ public class NonblockingEndpointExecutionHandler extends BaseInboundHandlerWithT
                 RequestInfo<?> requestInfo = state.getRequestInfo();
                 Span endpointExecutionSpan = findEndpointExecutionSpan(state);
 
-                CompletableFuture<ResponseInfo<?>> responseFuture = state
-                    .getPreEndpointExecutionWorkChain()
-                    .thenCompose(
-                        doExecuteEndpointFunction(requestInfo, nonblockingEndpoint, endpointExecutionSpan, ctx)
+                if (nonblockingEndpoint.isEventLoopAffine()) {
+                    // The endpoint's work is non-blocking and wants to stay on this channel's event loop. Execute the
+                    //      endpoint on the event loop (inline if the pre-endpoint-execution work chain is already
+                    //      complete, which is the usual case), and do all the completion handling in a single callback
+                    //      on the event loop. If the endpoint's future is completed on the event loop then nothing
+                    //      hops threads, otherwise there's exactly one hop back to the event loop.
+                    Executor eventLoopExecutor = eventLoopExecutor(ctx);
+                    CompletableFuture<ResponseInfo<?>> responseFuture = state
+                        .getPreEndpointExecutionWorkChain()
+                        .thenComposeAsync(
+                            doExecuteEndpointFunction(requestInfo, nonblockingEndpoint, endpointExecutionSpan, ctx),
+                            eventLoopExecutor
+                        );
+
+                    Timeout responseTimeout =
+                        scheduleResponseTimeoutCheckIfNecessary(ctx, nonblockingEndpoint, requestInfo, responseFuture);
+
+                    responseFuture.whenCompleteAsync(
+                        (responseInfo, throwable) -> {
+                            cancelResponseTimeoutCheckIfNecessary(responseTimeout);
+                            handleEndpointCompletion(ctx, endpointExecutionSpan, responseInfo, throwable);
+                        },
+                        eventLoopExecutor
                     );
+                }
+                else {
+                    CompletableFuture<ResponseInfo<?>> responseFuture = state
+                        .getPreEndpointExecutionWorkChain()
+                        .thenCompose(
+                            doExecuteEndpointFunction(requestInfo, nonblockingEndpoint, endpointExecutionSpan, ctx)
+                        );
 
-                // Register an on-completion callback so we can be notified when the CompletableFuture finishes.
-                responseFuture.whenComplete((responseInfo, throwable) -> {
-                    // TODO: If something in the state.getPreEndpointExecutionWorkChain() CompletableFuture throws
-                    //      an exception before the doExecuteEndpointFunction() can run, then we'll have a situation
-                    //      where there's no endpoint.start annotation, but we do get endpoint.finish. This seems odd,
-                    //      but also seems to requires some annoying workarounds to prevent (passing some object into
-                    //      doExecuteEndpointFunction() to track whether the endpoint was executed, or putting a
-                    //      endpointWasExecuted variable into the HttpProcessingState, or etc. Do we care? Is it worth
-                    //      the extra hassle?
-
-                    // Add the endpoint.finish span annotation if desired. We have to do this here, because of
-                    //      annoying CompletableFuture reasons. See the javadocs for doExecuteEndpointFunction() for
-                    //      full details on why this needs to be done here.
-                    if (endpointExecutionSpan != null && spanTaggingStrategy.shouldAddEndpointFinishAnnotation()) {
-                        addEndpointFinishAnnotation(endpointExecutionSpan, spanTaggingStrategy);
-                    }
+                    // Register an on-completion callback so we can be notified when the CompletableFuture finishes.
+                    responseFuture.whenComplete(
+                        (responseInfo, throwable) -> handleEndpointCompletion(
+                            ctx, endpointExecutionSpan, responseInfo, throwable
+                        )
+                    );
 
-                    // Kick off the response processing, depending on whether the result is an error or not.
-                    if (throwable != null)
-                        asyncErrorCallback(ctx, throwable);
-                    else
-                        asyncCallback(ctx, responseInfo);
-                });
-
-                // TODO: We might be able to put the timeout future in an if block in the case that the endpoint
-                //      returned an already-completed future (i.e. if responseFuture.isDone() returns true at this
-                //      point).
-
-                // Also schedule a timeout check with our Netty event loop to make sure we kill the
-                //      CompletableFuture if it goes on too long.
-                Long endpointTimeoutOverride = nonblockingEndpoint.completableFutureTimeoutOverrideMillis();
-                long timeoutValueToUse = (endpointTimeoutOverride == null)
-                                         ? defaultCompletableFutureTimeoutMillis
-                                         : endpointTimeoutOverride;
-                ScheduledFuture<?> responseTimeoutScheduledFuture = ctx.channel().eventLoop().schedule(() -> {
-                    if (!responseFuture.isDone()) {
-                        runnableWithTracingAndMdc(
-                            () -> logger.error("A non-blocking endpoint's CompletableFuture did not finish within "
-                                               + "the allotted timeout ({} milliseconds). Forcibly cancelling it.",
-                                               timeoutValueToUse), ctx
-                        ).run();
-                        @SuppressWarnings("unchecked")
-                        Throwable errorToUse = nonblockingEndpoint.getCustomTimeoutExceptionCause(requestInfo, ctx);
-                        if (errorToUse == null)
-                            errorToUse = new NonblockingEndpointCompletableFutureTimedOut(timeoutValueToUse);
-                        responseFuture.completeExceptionally(errorToUse);
-                    }
-                }, timeoutValueToUse, TimeUnit.MILLISECONDS);
-
-                /*
-                    The problem with the scheduled timeout check is that it holds on to the RequestInfo,
-                    ChannelHandlerContext, and a bunch of other stuff that *should* become garbage the instant the
-                    request finishes, but because of the timeout check it has to wait until the check executes
-                    before the garbage is collectible. In high volume servers the default 60 second timeout is way
-                    too long and acts like a memory leak and results in garbage collection thrashing if the
-                    available memory can be filled within the 60 second timeout. To combat this we cancel the
-                    timeout future when the endpoint future finishes. Netty will remove the cancelled timeout future
-                    from its scheduled list within a short time, thus letting the garbage be collected.
-                */
-                responseFuture.whenComplete((responseInfo, throwable) -> {
-                    if (!responseTimeoutScheduledFuture.isDone())
-                        responseTimeoutScheduledFuture.cancel(false);
-                });
+                    Timeout responseTimeout =
+                        scheduleResponseTimeoutCheckIfNecessary(ctx, nonblockingEndpoint, requestInfo, responseFuture);
+
+                    responseFuture.whenComplete(
+                        (responseInfo, throwable) -> cancelResponseTimeoutCheckIfNecessary(responseTimeout)
+                    );
+                }
             }
 
             // Whether it was the last chunk or not, we don't want the pipeline to continue since the endpoint was a
@@ -183,6 +204,109 @@ public class NonblockingEndpointExecutionHandler extends BaseInboundHandlerWithT
         return PipelineContinuationBehavior.CONTINUE;
     }
 
+    /**
+     * Adds the endpoint.finish span annotation (if desired) and kicks off the response processing for the given
+     * endpoint result - {@link #asyncErrorCallback(ChannelHandlerContext, Throwable)} if the endpoint failed, {@link
+     * #asyncCallback(ChannelHandlerContext, ResponseInfo)} otherwise.
+     */
+    protected void handleEndpointCompletion(
+        @NotNull ChannelHandlerContext ctx,
+        @Nullable Span endpointExecutionSpan,
+        ResponseInfo<?> responseInfo,
+        Throwable throwable
+    ) {
+        // TODO: If something in the state.getPreEndpointExecutionWorkChain() CompletableFuture throws
+        //      an exception before the doExecuteEndpointFunction() can run, then we'll have a situation
+        //      where there's no endpoint.start annotation, but we do get endpoint.finish. This seems odd,
+        //      but also seems to requires some annoying workarounds to prevent (passing some object into
+        //      doExecuteEndpointFunction() to track whether the endpoint was executed, or putting a
+        //      endpointWasExecuted variable into the HttpProcessingState, or etc. Do we care? Is it worth
+        //      the extra hassle?
+
+        // Add the endpoint.finish span annotation if desired. We have to do this here, because of
+        //      annoying CompletableFuture reasons. See the javadocs for doExecuteEndpointFunction() for
+        //      full details on why this needs to be done here.
+        if (endpointExecutionSpan != null && spanTaggingStrategy.shouldAddEndpointFinishAnnotation()) {
+            addEndpointFinishAnnotation(endpointExecutionSpan, spanTaggingStrategy);
+        }
+
+        // Kick off the response processing, depending on whether the result is an error or not.
+        if (throwable != null)
+            asyncErrorCallback(ctx, throwable);
+        else
+            asyncCallback(ctx, responseInfo);
+    }
+
+    /**
+     * Schedules a timeout check with {@link #responseTimeoutTimer} to make sure we kill the given response future if
+     * it goes on too long. Nothing is scheduled if the response future is already done (i.e. the endpoint returned an
+     * already-completed future). The timer only decides when the check is due - if the response future still isn't
+     * done by then, the check itself is handed to the channel's event loop so the endpoint's custom timeout exception
+     * logic and the forced completion happen there, the same as they would for any other endpoint completion. If the
+     * request has a {@link RequestDeadline} then the timeout is shortened to the time left before the deadline.
+     *
+     * @return The scheduled timeout check, or null if the response future was already done.
+     */
+    protected @Nullable Timeout scheduleResponseTimeoutCheckIfNecessary(
+        @NotNull ChannelHandlerContext ctx,
+        @NotNull NonblockingEndpoint nonblockingEndpoint,
+        @NotNull RequestInfo<?> requestInfo,
+        @NotNull CompletableFuture<ResponseInfo<?>> responseFuture
+    ) {
+        if (responseFuture.isDone()) {
+            return null;
+        }
+
+        long configuredTimeout = getEndpointTimeoutMillis(nonblockingEndpoint);
+        // There's no point in waiting on the endpoint after the caller has given up.
+        RequestDeadline deadline = requestInfo.getDeadline();
+        long timeoutValueToUse = (deadline == null) ? configuredTimeout : deadline.capTimeoutMillis(configuredTimeout);
+        Runnable timeoutCheck = () -> {
+            if (!responseFuture.isDone()) {
+                runnableWithTracingAndMdc(
+                    () -> logger.error("A non-blocking endpoint's CompletableFuture did not finish within "
+                                       + "the allotted timeout ({} milliseconds). Forcibly cancelling it.",
+                                       timeoutValueToUse), ctx
+                ).run();
+                @SuppressWarnings("unchecked")
+                Throwable errorToUse = nonblockingEndpoint.getCustomTimeoutExceptionCause(requestInfo, ctx);
+                if (errorToUse == null)
+                    errorToUse = new NonblockingEndpointCompletableFutureTimedOut(timeoutValueToUse);
+                responseFuture.completeExceptionally(errorToUse);
+            }
+        };
+
+        return responseTimeoutTimer.newTimeout(
+            timeout -> {
+                if (!responseFuture.isDone()) {
+                    ctx.channel().eventLoop().execute(timeoutCheck);
+                }
+            },
+            timeoutValueToUse,
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    protected long getEndpointTimeoutMillis(@NotNull NonblockingEndpoint nonblockingEndpoint) {
+        Long endpointTimeoutOverride = nonblockingEndpoint.completableFutureTimeoutOverrideMillis();
+        return (endpointTimeoutOverride == null) ? defaultCompletableFutureTimeoutMillis : endpointTimeoutOverride;
+    }
+
+    /*
+        The problem with the scheduled timeout check is that it holds on to the RequestInfo,
+        ChannelHandlerContext, and a bunch of other stuff that *should* become garbage the instant the
+        request finishes, but because of the timeout check it has to wait until the check executes
+        before the garbage is collectible. In high volume servers the default 60 second timeout is way
+        too long and acts like a memory leak and results in garbage collection thrashing if the
+        available memory can be filled within the 60 second timeout. To combat this we cancel the
+        timeout when the endpoint future finishes. The timer will remove the cancelled timeout from its
+        wheel on its next tick, thus letting the garbage be collected.
+    */
+    protected void cancelResponseTimeoutCheckIfNecessary(@Nullable Timeout responseTimeout) {
+        if (responseTimeout != null && !responseTimeout.isExpired())
+            responseTimeout.cancel();
+    }
+
     protected @Nullable Span findEndpointExecutionSpan(@NotNull HttpProcessingState state) {
         Deque<Span> spanStack = state.getDistributedTraceStack();
         return (spanStack == null) ? null : spanStack.peek();
@@ -191,7 +315,11 @@ public class NonblockingEndpointExecutionHandler extends BaseInboundHandlerWithT
     /**
      * Adds the endpoint.start span annotation to the given span if desired by {@link #spanTaggingStrategy}, and
      * then returns the {@link CompletableFuture} from {@link
-     * NonblockingEndpoint#execute(RequestInfo, Executor, ChannelHandlerContext)}.
+     * NonblockingEndpoint#execute(RequestInfo, Executor, ChannelHandlerContext)}. If the endpoint allows request
+     * coalescing then the endpoint is executed via {@link #requestCoalescer}, which may return an identical in-flight
+     * request's result instead. The endpoint's own future (or this request's view of the coalesced result) is stored
+     * via {@link HttpProcessingState#setEndpointResponseFuture(CompletableFuture)} so it can be cancelled if the
+     * caller goes away - cancelling a future composed on top of it wouldn't reach the endpoint's work.
      *
      * <p>NOTE: Although we'd like to do the endpoint.finish span annotation here in this function for symmetry and
      * encapsulation reasons, we can't. We have two options for attaching a whenComplete() to the result of
@@ -241,23 +369,60 @@ public class NonblockingEndpointExecutionHandler extends BaseInboundHandlerWithT
                     logger.error("Unexpected error while annotating Span with endpoint start timestamp.", t);
                 }
 
-                // Kick off the endpoint execution.
-                //noinspection unchecked
-                CompletableFuture<ResponseInfo<?>> executionResult = nonblockingEndpoint.execute(
-                    requestInfo, longRunningTaskExecutor, ctx
-                );
+                // Don't bother executing the endpoint if the caller has already given up waiting for the response.
+                RequestDeadline deadline = requestInfo.getDeadline();
+                if (deadline != null && deadline.isExpired()) {
+                    throw new NonblockingEndpointCompletableFutureTimedOut(deadline.getTimeoutMillis());
+                }
 
-                //noinspection ConstantConditions
-                if (executionResult == null) {
-                    throw new NullPointerException("NonblockingEndpoint.execute() cannot return null.");
+                // Kick off the endpoint execution, or wait on an identical in-flight request if the endpoint allows
+                //      coalescing.
+                RequestCoalescingConfig coalescingConfig = (requestCoalescer == null)
+                                                           ? null
+                                                           : nonblockingEndpoint.requestCoalescingConfig();
+                CompletableFuture<ResponseInfo<?>> endpointResponseFuture;
+                if (coalescingConfig != null && coalescingConfig.isCoalescingAllowed(requestInfo)) {
+                    // Only this request's view of the shared result gets stored (and possibly cancelled), so other
+                    //      requests waiting on the same execution aren't affected.
+                    endpointResponseFuture = requestCoalescer.execute(
+                        nonblockingEndpoint, coalescingConfig, requestInfo,
+                        getEndpointTimeoutMillis(nonblockingEndpoint),
+                        () -> executeEndpoint(requestInfo, nonblockingEndpoint, ctx)
+                    );
+                }
+                else {
+                    endpointResponseFuture = executeEndpoint(requestInfo, nonblockingEndpoint, ctx);
+                }
+
+                HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+                if (state != null) {
+                    state.setEndpointResponseFuture(endpointResponseFuture);
                 }
 
-                return executionResult;
+                return endpointResponseFuture;
             },
             ctx
         );
     }
 
+    protected @NotNull CompletableFuture<ResponseInfo<?>> executeEndpoint(
+        @NotNull RequestInfo<?> requestInfo,
+        @NotNull NonblockingEndpoint nonblockingEndpoint,
+        @NotNull ChannelHandlerContext ctx
+    ) {
+        //noinspection unchecked
+        CompletableFuture<ResponseInfo<?>> executionResult = nonblockingEndpoint.execute(
+            requestInfo, longRunningTaskExecutor, ctx
+        );
+
+        //noinspection ConstantConditions
+        if (executionResult == null) {
+            throw new NullPointerException("NonblockingEndpoint.execute() cannot return null.");
+        }
+
+        return executionResult;
+    }
+
     protected void addEndpointFinishAnnotation(Span span, ServerSpanNamingAndTaggingStrategy<Span> strategy) {
         // Don't allow the annotation addition to cause the endpoint execution future to fail if it
         //      fails, by surrounding with try/catch. This should never actually happen, but better
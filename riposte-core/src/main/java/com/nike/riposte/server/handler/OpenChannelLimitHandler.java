@@ -1,105 +1,177 @@
 package com.nike.riposte.server.handler;
 
-import com.nike.riposte.server.error.exception.TooManyOpenChannelsException;
-import com.nike.riposte.server.handler.base.BaseInboundHandlerWithTracingAndMdcSupport;
-import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
-
-import java.util.concurrent.TimeUnit;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.group.ChannelGroup;
-import io.netty.handler.codec.http.HttpRequest;
-import io.netty.util.AttributeKey;
-import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.channel.ChannelInboundHandlerAdapter;
 
 /**
- * This handler keeps track of the number of open channels in the server. If it detects a new request coming in when
- * there are too many open channels then it will throw a {@link TooManyOpenChannelsException}, which should ultimately
- * cause the channel to be closed after sending an appropriate message to the client. See {@link
- * com.nike.riposte.server.config.ServerConfig#maxOpenIncomingServerChannels()} for details on how this is used by the
- * server.
- * <p/>
- * This handler should come as soon after {@link RequestInfoSetterHandler} as possible in the pipeline.
+ * This handler limits the number of open incoming channels for the server, both overall and per remote IP address.
+ * It lives in the server (boss) channel's pipeline rather than in each child channel's pipeline: the server channel
+ * fires every newly accepted child {@link Channel} through its pipeline before handing it to the worker event loops,
+ * so this handler sees new connections before they have been registered or had a pipeline built for them. Connections
+ * over either limit are closed immediately and never reach the worker event loops, which makes a connection flood
+ * about as cheap to turn away as it can be. See {@link
+ * com.nike.riposte.server.config.ServerConfig#maxOpenIncomingServerChannels()} and {@link
+ * com.nike.riposte.server.config.ServerConfig#maxOpenIncomingServerChannelsPerIpAddress()} for details on how this is
+ * used by the server.
+ *
+ * <p>Open channels are tracked with plain counters - an increment when a channel is accepted and a decrement when it
+ * closes. The counters are only touched once per connection (never per request), so they add nothing to request
+ * processing.
+ *
+ * <p>This handler is {@link ChannelHandler.Sharable}, and a single instance should be added to the server channel
+ * (via {@link io.netty.bootstrap.ServerBootstrap#handler(ChannelHandler)}) so that all connections are counted
+ * together.
  *
  * @author Nic Munroe
  */
+@ChannelHandler.Sharable
 @SuppressWarnings("WeakerAccess")
-public class OpenChannelLimitHandler extends BaseInboundHandlerWithTracingAndMdcSupport {
+public class OpenChannelLimitHandler extends ChannelInboundHandlerAdapter {
 
-    /**
-     * Attr key for a channel attribute that indicates there are too many open connections and this channel should be
-     * closed at the earliest opportunity.
-     */
-    public static final AttributeKey<Integer> TOO_MANY_OPEN_CONNECTIONS_THIS_CHANNEL_SHOULD_CLOSE =
-        AttributeKey.valueOf("TOO_MANY_OPEN_CONNECTIONS_THIS_CHANNEL_SHOULD_CLOSE");
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
-    protected final ChannelGroup openChannelsGroup;
     protected final int maxOpenChannelsThreshold;
+    protected final int maxOpenChannelsPerIpAddressThreshold;
 
-    public OpenChannelLimitHandler(ChannelGroup openChannelsGroup, int maxOpenChannelsThreshold) {
-        if (openChannelsGroup == null)
-            throw new IllegalArgumentException("openChannelsGroup cannot be null");
+    protected final AtomicInteger openChannelsCount = new AtomicInteger();
+    protected final ConcurrentMap<InetAddress, Integer> openChannelsPerIpAddress = new ConcurrentHashMap<>();
+    protected final LongAdder rejectedChannelsCount = new LongAdder();
 
-        if (maxOpenChannelsThreshold < 1)
-            throw new IllegalArgumentException("maxOpenChannelsThreshold must be at least 1");
+    /**
+     * @param maxOpenChannelsThreshold The max number of incoming channels allowed to be open at once, or -1 for
+     * unlimited.
+     * @param maxOpenChannelsPerIpAddressThreshold The max number of incoming channels allowed to be open at once from a
+     * single remote IP address, or -1 for unlimited.
+     */
+    public OpenChannelLimitHandler(int maxOpenChannelsThreshold, int maxOpenChannelsPerIpAddressThreshold) {
+        if (maxOpenChannelsThreshold != -1 && maxOpenChannelsThreshold < 1)
+            throw new IllegalArgumentException("maxOpenChannelsThreshold must be -1 or at least 1");
+
+        if (maxOpenChannelsPerIpAddressThreshold != -1 && maxOpenChannelsPerIpAddressThreshold < 1)
+            throw new IllegalArgumentException("maxOpenChannelsPerIpAddressThreshold must be -1 or at least 1");
 
-        this.openChannelsGroup = openChannelsGroup;
         this.maxOpenChannelsThreshold = maxOpenChannelsThreshold;
+        this.maxOpenChannelsPerIpAddressThreshold = maxOpenChannelsPerIpAddressThreshold;
     }
 
     @Override
-    public PipelineContinuationBehavior doChannelActive(ChannelHandlerContext ctx) throws Exception {
-        // New channel opening. See if we have too many open channels.
-        int actualOpenChannelsCount = openChannelsGroup.size();
-        if (actualOpenChannelsCount >= maxOpenChannelsThreshold) {
-            Channel channel = ctx.channel();
-
-            // Mark this channel as needing to be closed.
-            ctx.channel().attr(TOO_MANY_OPEN_CONNECTIONS_THIS_CHANNEL_SHOULD_CLOSE).set(actualOpenChannelsCount);
-
-            // Schedule a double-check event to make sure the channel gets closed.
-            ScheduledFuture doubleCheckScheduledFuture = ctx.channel().eventLoop().schedule(() -> {
-                if (channel.isOpen())
-                    channel.close();
-            }, 100, TimeUnit.MILLISECONDS);
-
-            // Add a channel close future listener to cancel the double-check scheduled event immediately if the channel
-            //      is closed quickly. Even though the double-check event will execute in 100 milliseconds that's 100
-            //      milliseconds of potential garbage accumulating when it shouldn't. Could be a lot for a high traffic
-            //      server (which this likely is if the open channels limit is being hit).
-            channel.closeFuture().addListener(future -> {
-                if (!doubleCheckScheduledFuture.isDone())
-                    doubleCheckScheduledFuture.cancel(false);
-            });
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (!(msg instanceof Channel)) {
+            ctx.fireChannelRead(msg);
+            return;
         }
-        else {
-            // Not at the threshold. Add this channel to the open channel group.
-            openChannelsGroup.add(ctx.channel());
+
+        // A newly accepted child channel. It hasn't been registered with a worker event loop yet.
+        Channel childChannel = (Channel) msg;
+        InetAddress remoteIpAddress = (maxOpenChannelsPerIpAddressThreshold == -1)
+                                      ? null
+                                      : extractRemoteIpAddress(childChannel);
+
+        if (!tryAcquire(remoteIpAddress)) {
+            rejectedChannelsCount.increment();
+            if (logger.isDebugEnabled()) {
+                logger.debug(
+                    "Too many open channels - closing new channel before it is registered. "
+                    + "remote_address={}, open_channels={}, max_open_channels={}, max_open_channels_per_ip={}",
+                    childChannel.remoteAddress(), openChannelsCount.get(), maxOpenChannelsThreshold,
+                    maxOpenChannelsPerIpAddressThreshold
+                );
+            }
+            // This is what Netty does with child channels that fail registration - there's no event loop to close
+            //      them on yet.
+            childChannel.unsafe().closeForcibly();
+            return;
         }
 
-        return PipelineContinuationBehavior.CONTINUE;
+        childChannel.closeFuture().addListener(future -> release(remoteIpAddress));
+
+        ctx.fireChannelRead(childChannel);
     }
 
-    @Override
-    public PipelineContinuationBehavior doChannelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
-        if (msg instanceof HttpRequest) {
-            // First chunk in the request. See if this channel has been marked for death.
-            Integer actualNumOpenChannels =
-                ctx.channel().attr(TOO_MANY_OPEN_CONNECTIONS_THIS_CHANNEL_SHOULD_CLOSE).get();
-            if (actualNumOpenChannels != null && actualNumOpenChannels >= maxOpenChannelsThreshold)
-                throw new TooManyOpenChannelsException(actualNumOpenChannels, maxOpenChannelsThreshold);
+    /**
+     * Reserves a slot for a new channel, if the limits allow it.
+     *
+     * @param remoteIpAddress The remote IP address of the new channel, or null if it shouldn't be counted against any
+     * per-IP limit.
+     * @return true if the channel is allowed (and must later be {@link #release(InetAddress)}d), false if it is over
+     * one of the limits.
+     */
+    protected boolean tryAcquire(@Nullable InetAddress remoteIpAddress) {
+        int openChannels = openChannelsCount.incrementAndGet();
+        if (maxOpenChannelsThreshold != -1 && openChannels > maxOpenChannelsThreshold) {
+            openChannelsCount.decrementAndGet();
+            return false;
         }
 
-        return PipelineContinuationBehavior.CONTINUE;
+        if (remoteIpAddress != null) {
+            Integer openChannelsForIpAddress = openChannelsPerIpAddress.merge(remoteIpAddress, 1, Integer::sum);
+            if (openChannelsForIpAddress > maxOpenChannelsPerIpAddressThreshold) {
+                release(remoteIpAddress);
+                return false;
+            }
+        }
+
+        return true;
     }
 
-    @Override
-    protected boolean argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo(
-        HandlerMethodToExecute methodToExecute, ChannelHandlerContext ctx, Object msgOrEvt, Throwable cause
-    ) {
-        // This class does not log, and nothing that happens in this class should cause logging to happen elsewhere.
-        //      Therefore we should never bother with linking/unlinking tracing info to save on the extra processing.
-        return false;
+    /**
+     * Releases a slot previously reserved by a successful call to {@link #tryAcquire(InetAddress)}.
+     *
+     * @param remoteIpAddress The same remote IP address that was passed to {@link #tryAcquire(InetAddress)}.
+     */
+    protected void release(@Nullable InetAddress remoteIpAddress) {
+        openChannelsCount.decrementAndGet();
+
+        if (remoteIpAddress != null) {
+            // Removing the entry when it hits zero keeps the map from growing with every IP address ever seen.
+            openChannelsPerIpAddress.computeIfPresent(
+                remoteIpAddress, (ip, count) -> (count <= 1) ? null : count - 1
+            );
+        }
+    }
+
+    protected @Nullable InetAddress extractRemoteIpAddress(@NotNull Channel channel) {
+        SocketAddress remoteAddress = channel.remoteAddress();
+        return (remoteAddress instanceof InetSocketAddress)
+               ? ((InetSocketAddress) remoteAddress).getAddress()
+               : null;
+    }
+
+    /**
+     * @return The number of incoming channels currently open.
+     */
+    public int getOpenChannelsCount() {
+        return openChannelsCount.get();
+    }
+
+    /**
+     * @param remoteIpAddress The remote IP address to check.
+     * @return The number of incoming channels currently open from the given remote IP address. Always 0 if there is
+     * no per-IP limit, since channels are only tracked per IP when there is one.
+     */
+    public int getOpenChannelsCount(@NotNull InetAddress remoteIpAddress) {
+        return openChannelsPerIpAddress.getOrDefault(remoteIpAddress, 0);
+    }
+
+    /**
+     * @return The total number of incoming channels closed by this handler because they were over a limit.
+     */
+    public long getRejectedChannelsCount() {
+        return rejectedChannelsCount.sum();
     }
 }
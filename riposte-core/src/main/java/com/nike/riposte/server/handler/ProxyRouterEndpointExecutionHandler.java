@@ -210,7 +210,10 @@ public class ProxyRouterEndpointExecutionHandler extends BaseInboundHandlerWithT
                                         relaxedHttpsValidation, callback, callTimeoutValueToUse,
                                             performSubSpanAroundDownstreamCall, addTracingHeadersToDownstreamCall,
                                             proxyRouterState, requestInfo,
-                                            ctx
+                                            ctx, downstreamRequestFirstChunkInfo.downstreamAddressSelector,
+                                            downstreamRequestFirstChunkInfo.hedgeDelayMillis,
+                                            downstreamRequestFirstChunkInfo.hedgeDelayLatencyPercentile,
+                                            downstreamRequestFirstChunkInfo.maxConnectRetries
                                     );
 
                                 // Tell the streaming channel future what to do when it completes.
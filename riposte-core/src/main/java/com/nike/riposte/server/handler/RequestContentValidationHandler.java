@@ -8,12 +8,12 @@ import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.util.InstrumentedThreadPoolExecutor;
 
 import org.jetbrains.annotations.NotNull;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.function.Function;
 
 import io.netty.channel.ChannelHandlerContext;
@@ -42,12 +42,24 @@ import static com.nike.riposte.util.AsyncNettyHelper.runnableWithTracingAndMdc;
  */
 public class RequestContentValidationHandler extends BaseInboundHandlerWithTracingAndMdcSupport {
 
-    private static final Executor ASYNC_VALIDATION_EXECUTOR =
-        Executors.newWorkStealingPool(Runtime.getRuntime().availableProcessors() * 2);
+    private static final Executor DEFAULT_ASYNC_VALIDATION_EXECUTOR =
+        InstrumentedThreadPoolExecutor.newDefaultValidationExecutor(
+            InstrumentedThreadPoolExecutor.REQUEST_CONTENT_VALIDATION_EXECUTOR_NAME, null
+        );
 
     private final RequestValidator validationService;
+    private final Executor asyncValidationExecutor;
 
     public RequestContentValidationHandler(RequestValidator validationService) {
+        this(validationService, null);
+    }
+
+    /**
+     * @param validationService The validation service to use. Cannot be null.
+     * @param asyncValidationExecutor The executor to use for endpoints that request asynchronous validation. If this
+     * is null then a bounded default executor shared by all instances of this class will be used.
+     */
+    public RequestContentValidationHandler(RequestValidator validationService, Executor asyncValidationExecutor) {
         if (validationService == null) {
             throw new IllegalArgumentException(
                 "validationService cannot be null. If you don't have a validationService to pass in, don't register "
@@ -56,6 +68,9 @@ public class RequestContentValidationHandler extends BaseInboundHandlerWithTraci
         }
 
         this.validationService = validationService;
+        this.asyncValidationExecutor = (asyncValidationExecutor == null)
+                                       ? DEFAULT_ASYNC_VALIDATION_EXECUTOR
+                                       : asyncValidationExecutor;
     }
 
     @Override
@@ -79,7 +94,7 @@ public class RequestContentValidationHandler extends BaseInboundHandlerWithTraci
                         //      pre-endpoint-execution-work-chain.
                         state.addPreEndpointExecutionWorkChainSegment(aVoid -> CompletableFuture.runAsync(
                                 () -> executeValidation(requestInfo, endpoint, ctx),
-                                ASYNC_VALIDATION_EXECUTOR)
+                                asyncValidationExecutor)
                         );
                     }
                     else {
@@ -0,0 +1,70 @@
+package com.nike.riposte.server.handler;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.config.ServerConfig.RequestDeadlineConfig;
+import com.nike.riposte.server.handler.base.BaseInboundHandlerWithTracingAndMdcSupport;
+import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.RequestDeadline;
+import com.nike.riposte.server.http.RequestInfo;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpRequest;
+
+/**
+ * This handler sets up the {@link RequestDeadline} for a request (see {@link
+ * com.nike.riposte.server.config.ServerConfig#requestDeadlineConfig()}). When a new request comes in it looks for the
+ * {@link RequestDeadlineConfig#timeoutHeaderName()} header, and if the header holds a valid timeout it sets a deadline
+ * counted from the start of the request on the request's {@link RequestInfo} via {@link
+ * RequestInfo#setDeadline(RequestDeadline)}. Requests without a valid timeout header don't get a deadline.
+ * <p/>
+ * This handler should come directly after {@link RoutingHandler} in the pipeline.
+ */
+@SuppressWarnings("WeakerAccess")
+public class RequestDeadlineHandler extends BaseInboundHandlerWithTracingAndMdcSupport {
+
+    protected final RequestDeadlineConfig requestDeadlineConfig;
+
+    public RequestDeadlineHandler(RequestDeadlineConfig requestDeadlineConfig) {
+        if (requestDeadlineConfig == null)
+            throw new IllegalArgumentException("requestDeadlineConfig cannot be null");
+
+        this.requestDeadlineConfig = requestDeadlineConfig;
+    }
+
+    @Override
+    public PipelineContinuationBehavior doChannelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpRequest) {
+            HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+            RequestInfo<?> requestInfo = (state == null) ? null : state.getRequestInfo();
+            if (requestInfo == null)
+                return PipelineContinuationBehavior.CONTINUE;
+
+            String headerValue = requestInfo.getHeaders().get(requestDeadlineConfig.timeoutHeaderName());
+            if (headerValue == null)
+                return PipelineContinuationBehavior.CONTINUE;
+
+            Long timeoutMillis = requestDeadlineConfig.parseTimeoutMillis(headerValue);
+            if (timeoutMillis == null)
+                return PipelineContinuationBehavior.CONTINUE;
+
+            Long startNanoTime = state.getRequestStartTimeNanos();
+            requestInfo.setDeadline(new RequestDeadline(
+                timeoutMillis,
+                (startNanoTime == null) ? System.nanoTime() : startNanoTime,
+                requestDeadlineConfig.propagatedTimeoutHeaderName()
+            ));
+        }
+
+        return PipelineContinuationBehavior.CONTINUE;
+    }
+
+    @Override
+    protected boolean argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo(
+        HandlerMethodToExecute methodToExecute, ChannelHandlerContext ctx, Object msgOrEvt, Throwable cause
+    ) {
+        // This class does not log, and nothing that happens in this class should cause logging to happen elsewhere.
+        //      Therefore we should never bother with linking/unlinking tracing info to save on the extra processing.
+        return false;
+    }
+}
@@ -4,6 +4,7 @@ import com.nike.internal.util.Pair;
 import com.nike.riposte.server.channelpipeline.ChannelAttributes;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
 import com.nike.riposte.server.config.distributedtracing.ServerSpanNamingAndTaggingStrategy;
+import com.nike.riposte.server.error.exception.InvalidHttpRequestException;
 import com.nike.riposte.server.error.exception.MethodNotAllowed405Exception;
 import com.nike.riposte.server.error.exception.MultipleMatchingEndpointsException;
 import com.nike.riposte.server.error.exception.PathNotFound404Exception;
@@ -13,6 +14,7 @@ import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.websocket.WebSocketEndpoint;
 import com.nike.wingtips.Span;
 
 import org.jetbrains.annotations.NotNull;
@@ -152,6 +154,8 @@ public class RoutingHandler extends BaseInboundHandlerWithTracingAndMdcSupport {
             throwExceptionIfContentLengthHeaderIsLargerThanConfiguredMaxRequestSize(
                 nettyRequest, endpointForExecution.getLeft()
             );
+
+            throwExceptionIfWebSocketEndpointRequestIsNotValidUpgrade(nettyRequest, endpointForExecution.getLeft());
         }
 
         return PipelineContinuationBehavior.CONTINUE;
@@ -190,6 +194,18 @@ public class RoutingHandler extends BaseInboundHandlerWithTracingAndMdcSupport {
         }
     }
 
+    private void throwExceptionIfWebSocketEndpointRequestIsNotValidUpgrade(HttpRequest msg, Endpoint<?> endpoint) {
+        // WebSocketEndpoints can only do something useful with a WebSocket upgrade request, so reject anything else
+        //      here before it gets any further.
+        if (endpoint instanceof WebSocketEndpoint && !WebSocketUpgradeHandler.isWebSocketUpgradeRequest(msg)) {
+            throw new InvalidHttpRequestException(
+                "The matching endpoint is a WebSocketEndpoint, but the request is not a valid WebSocket upgrade "
+                + "request.",
+                null
+            );
+        }
+    }
+
     @Override
     protected boolean argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo(
         HandlerMethodToExecute methodToExecute, ChannelHandlerContext ctx, Object msgOrEvt, Throwable cause
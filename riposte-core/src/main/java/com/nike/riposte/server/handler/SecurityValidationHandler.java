@@ -7,6 +7,7 @@ import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.util.InstrumentedThreadPoolExecutor;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,7 +15,6 @@ import org.slf4j.LoggerFactory;
 import java.util.Collection;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.function.Function;
 
 import io.netty.channel.ChannelHandlerContext;
@@ -45,17 +45,34 @@ public class SecurityValidationHandler extends BaseInboundHandlerWithTracingAndM
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     private static final Executor DEFAULT_ASYNC_VALIDATION_EXECUTOR =
-        Executors.newWorkStealingPool(Runtime.getRuntime().availableProcessors() * 2);
+        InstrumentedThreadPoolExecutor.newDefaultValidationExecutor(
+            InstrumentedThreadPoolExecutor.SECURITY_VALIDATION_EXECUTOR_NAME, null
+        );
 
     private final RequestSecurityValidator securityValidator;
     private final Executor securityValidationExecutor;
 
     public SecurityValidationHandler(RequestSecurityValidator securityValidator) {
+        this(securityValidator, null);
+    }
+
+    /**
+     * @param securityValidator The security validator to use.
+     * @param securityValidationExecutor The executor to run the security validator on when it isn't fast enough to
+     * run on the Netty worker thread. If this is null then a bounded default executor shared by all instances of this
+     * class will be used.
+     */
+    public SecurityValidationHandler(RequestSecurityValidator securityValidator,
+                                     Executor securityValidationExecutor) {
         this.securityValidator = securityValidator;
-        this.securityValidationExecutor =
-            (securityValidator == null || securityValidator.isFastEnoughToRunOnNettyWorkerThread())
-            ? null
-            : DEFAULT_ASYNC_VALIDATION_EXECUTOR;
+        if (securityValidator == null || securityValidator.isFastEnoughToRunOnNettyWorkerThread()) {
+            this.securityValidationExecutor = null;
+        }
+        else {
+            this.securityValidationExecutor = (securityValidationExecutor == null)
+                                              ? DEFAULT_ASYNC_VALIDATION_EXECUTOR
+                                              : securityValidationExecutor;
+        }
     }
 
     @Override
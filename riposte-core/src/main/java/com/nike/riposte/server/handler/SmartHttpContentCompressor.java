@@ -1,14 +1,28 @@
 package com.nike.riposte.server.handler;
 
 import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.config.ServerConfig.ResponseCompressionConfig;
+import com.nike.riposte.server.handler.compression.AdaptiveCompressionController;
+import com.nike.riposte.server.handler.compression.BrotliCompressionEncoder;
+import com.nike.riposte.server.handler.compression.ResponseCompressionLevels;
+import com.nike.riposte.server.handler.compression.ZstdCompressionEncoder;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.ProxyRouterEndpoint;
 import com.nike.riposte.server.http.ResponseInfo;
 
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Locale;
+
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
 import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.LastHttpContent;
 
@@ -35,21 +49,46 @@ import io.netty.handler.codec.http.LastHttpContent;
  * </ul>
  * Compression is prevented in all other cases.
  *
+ * <p>When compression is allowed, the content encoding is chosen from the caller's {@code Accept-Encoding} header (see
+ * {@link #selectContentEncoding(String)}). In addition to the {@code gzip} and {@code deflate} encodings supported by
+ * {@link HttpContentCompressor}, this class can negotiate {@code br} and {@code zstd} if they're enabled in the {@link
+ * ResponseCompressionConfig} and their optional libraries are available at runtime (see {@link
+ * BrotliCompressionEncoder#isAvailable()} and {@link ZstdCompressionEncoder#isAvailable()}).
+ *
+ * <p>If an {@link AdaptiveCompressionController} is supplied then the compression levels and size threshold come from
+ * {@link AdaptiveCompressionController#currentLevels()} for each response instead of being fixed, so that compression
+ * backs off while the server is under heavy load.
+ *
  * @author Nic Munroe
  */
 public class SmartHttpContentCompressor extends HttpContentCompressor {
 
+    // The zlib window size and memory level HttpContentCompressor uses when it isn't given any.
+    private static final int DEFAULT_GZIP_WINDOW_BITS = 15;
+    private static final int DEFAULT_GZIP_MEM_LEVEL = 8;
+
     private boolean allowCompressionForThisRequest = false;
     private final long responseSizeThresholdBytes;
+    private final @NotNull ResponseCompressionConfig compressionConfig;
+    private final @Nullable AdaptiveCompressionController adaptiveCompressionController;
+    private final int gzipCompressionLevel;
+    private final int gzipWindowBits;
+    private final int gzipMemLevel;
+    private @Nullable ResponseCompressionLevels levelsForThisResponse;
 
     public SmartHttpContentCompressor(int responseSizeThresholdBytes) {
-        this.responseSizeThresholdBytes = responseSizeThresholdBytes;
+        this(ResponseCompressionConfig.DEFAULT_IMPL, responseSizeThresholdBytes);
     }
 
     @SuppressWarnings("unused")
     public SmartHttpContentCompressor(int compressionLevel, int responseSizeThresholdBytes) {
         super(compressionLevel);
         this.responseSizeThresholdBytes = responseSizeThresholdBytes;
+        this.compressionConfig = ResponseCompressionConfig.DEFAULT_IMPL;
+        this.adaptiveCompressionController = null;
+        this.gzipCompressionLevel = compressionLevel;
+        this.gzipWindowBits = DEFAULT_GZIP_WINDOW_BITS;
+        this.gzipMemLevel = DEFAULT_GZIP_MEM_LEVEL;
     }
 
     @SuppressWarnings("unused")
@@ -57,14 +96,175 @@ public class SmartHttpContentCompressor extends HttpContentCompressor {
                                       int responseSizeThresholdBytes) {
         super(compressionLevel, windowBits, memLevel);
         this.responseSizeThresholdBytes = responseSizeThresholdBytes;
+        this.compressionConfig = ResponseCompressionConfig.DEFAULT_IMPL;
+        this.adaptiveCompressionController = null;
+        this.gzipCompressionLevel = compressionLevel;
+        this.gzipWindowBits = windowBits;
+        this.gzipMemLevel = memLevel;
+    }
+
+    public SmartHttpContentCompressor(@Nullable ResponseCompressionConfig compressionConfig,
+                                      int responseSizeThresholdBytes) {
+        this(compressionConfig, responseSizeThresholdBytes, null);
+    }
+
+    public SmartHttpContentCompressor(@Nullable ResponseCompressionConfig compressionConfig,
+                                      int responseSizeThresholdBytes,
+                                      @Nullable AdaptiveCompressionController adaptiveCompressionController) {
+        super(
+            (compressionConfig == null)
+            ? ResponseCompressionConfig.DEFAULT_IMPL.gzipCompressionLevel()
+            : compressionConfig.gzipCompressionLevel()
+        );
+        this.responseSizeThresholdBytes = responseSizeThresholdBytes;
+        this.compressionConfig = (compressionConfig == null)
+                                 ? ResponseCompressionConfig.DEFAULT_IMPL
+                                 : compressionConfig;
+        this.adaptiveCompressionController = adaptiveCompressionController;
+        this.gzipCompressionLevel = this.compressionConfig.gzipCompressionLevel();
+        this.gzipWindowBits = DEFAULT_GZIP_WINDOW_BITS;
+        this.gzipMemLevel = DEFAULT_GZIP_MEM_LEVEL;
     }
 
     @Override
     protected Result beginEncode(HttpResponse headers, String acceptEncoding) throws Exception {
-        if (allowCompressionForThisRequest)
-            return super.beginEncode(headers, acceptEncoding);
+        if (!allowCompressionForThisRequest)
+            return null;
+
+        // Never double-encode a response that has already been encoded.
+        if (headers.headers().contains(HttpHeaderNames.CONTENT_ENCODING))
+            return null;
+
+        ResponseCompressionLevels levels = levelsForThisResponse;
+        String contentEncoding = selectContentEncoding(acceptEncoding);
+        if (BrotliCompressionEncoder.CONTENT_ENCODING.equals(contentEncoding)) {
+            int quality = (levels == null) ? compressionConfig.brotliQuality() : levels.brotliQuality;
+            return new Result(contentEncoding, new EmbeddedChannel(new BrotliCompressionEncoder(quality)));
+        }
+
+        if (ZstdCompressionEncoder.CONTENT_ENCODING.equals(contentEncoding)) {
+            int level = (levels == null) ? compressionConfig.zstdCompressionLevel() : levels.zstdCompressionLevel;
+            return new Result(contentEncoding, new EmbeddedChannel(new ZstdCompressionEncoder(level)));
+        }
+
+        if (contentEncoding == null)
+            return null;
+
+        // gzip or deflate. We create the zlib encoder ourselves rather than calling super.beginEncode(), which would
+        //      renegotiate the encoding from the Accept-Encoding header with its own rules and could pick a different
+        //      one than selectContentEncoding() did. This also lets adaptive mode use the current level.
+        ZlibWrapper wrapper = ("gzip".equals(contentEncoding)) ? ZlibWrapper.GZIP : ZlibWrapper.ZLIB;
+        int level = (levels == null) ? gzipCompressionLevel : levels.gzipCompressionLevel;
+        return new Result(
+            contentEncoding,
+            new EmbeddedChannel(ZlibCodecFactory.newZlibEncoder(wrapper, level, gzipWindowBits, gzipMemLevel))
+        );
+    }
+
+    /**
+     * Chooses the content encoding for a response based on the given {@code Accept-Encoding} request header value.
+     * The encoding with the highest q-value wins, with ties broken by server preference: {@code br}, then {@code
+     * zstd}, then {@code gzip}, then {@code deflate}. Encodings that are disabled or unavailable are never chosen, and
+     * a {@code *} entry applies to any encoding not explicitly listed.
+     *
+     * @return The chosen content encoding, or null if the response should not be compressed.
+     */
+    protected @Nullable String selectContentEncoding(@Nullable String acceptEncoding) {
+        if (acceptEncoding == null)
+            return null;
+
+        float brQ = -1;
+        float zstdQ = -1;
+        float gzipQ = -1;
+        float deflateQ = -1;
+        float starQ = -1;
+
+        for (String entry : acceptEncoding.split(",")) {
+            String coding = entry;
+            float q = 1.0f;
+            int paramsIndex = entry.indexOf(';');
+            if (paramsIndex >= 0) {
+                coding = entry.substring(0, paramsIndex);
+                q = parseQValue(entry.substring(paramsIndex + 1));
+            }
 
-        return null;
+            switch (coding.trim().toLowerCase(Locale.US)) {
+                case "br":
+                    brQ = Math.max(brQ, q);
+                    break;
+                case "zstd":
+                    zstdQ = Math.max(zstdQ, q);
+                    break;
+                case "gzip":
+                case "x-gzip":
+                    gzipQ = Math.max(gzipQ, q);
+                    break;
+                case "deflate":
+                    deflateQ = Math.max(deflateQ, q);
+                    break;
+                case "*":
+                    starQ = Math.max(starQ, q);
+                    break;
+                default:
+                    // Some encoding we don't support (e.g. identity) - ignore it.
+                    break;
+            }
+        }
+
+        if (starQ >= 0) {
+            brQ = (brQ < 0) ? starQ : brQ;
+            zstdQ = (zstdQ < 0) ? starQ : zstdQ;
+            gzipQ = (gzipQ < 0) ? starQ : gzipQ;
+            deflateQ = (deflateQ < 0) ? starQ : deflateQ;
+        }
+
+        String selected = null;
+        float selectedQ = 0;
+
+        if (brQ > selectedQ && isBrotliAllowed()) {
+            selected = BrotliCompressionEncoder.CONTENT_ENCODING;
+            selectedQ = brQ;
+        }
+
+        if (zstdQ > selectedQ && isZstdAllowed()) {
+            selected = ZstdCompressionEncoder.CONTENT_ENCODING;
+            selectedQ = zstdQ;
+        }
+
+        if (gzipQ > selectedQ) {
+            selected = "gzip";
+            selectedQ = gzipQ;
+        }
+
+        if (deflateQ > selectedQ) {
+            selected = "deflate";
+        }
+
+        return selected;
+    }
+
+    protected boolean isBrotliAllowed() {
+        return compressionConfig.isBrotliEnabled() && BrotliCompressionEncoder.isAvailable();
+    }
+
+    protected boolean isZstdAllowed() {
+        return compressionConfig.isZstdEnabled() && ZstdCompressionEncoder.isAvailable();
+    }
+
+    private static float parseQValue(@NotNull String params) {
+        for (String param : params.split(";")) {
+            String trimmed = param.trim();
+            if (trimmed.startsWith("q=") || trimmed.startsWith("Q=")) {
+                try {
+                    return Float.parseFloat(trimmed.substring(2).trim());
+                }
+                catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+
+        return 1.0f;
     }
 
     @Override
@@ -73,6 +273,7 @@ public class SmartHttpContentCompressor extends HttpContentCompressor {
         HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
 
         allowCompressionForThisRequest = false;
+        levelsForThisResponse = null;
 
         if (state != null) {
             // We only want to allow compression if the endpoint being hit is *not* a ProxyRouterEndpoint, the response is full, and the response size
@@ -81,9 +282,16 @@ public class SmartHttpContentCompressor extends HttpContentCompressor {
             boolean endpointAllowed = endpointAllowsCompression(state.getEndpointForExecution());
             boolean responseInfoAllowed =
                 state.getResponseInfo() == null || !state.getResponseInfo().isPreventCompressedOutput();
-            if (isFull && endpointAllowed && responseInfoAllowed
-                && ((LastHttpContent) msg).content().readableBytes() > responseSizeThresholdBytes) {
-                allowCompressionForThisRequest = true;
+            if (isFull && endpointAllowed && responseInfoAllowed) {
+                long thresholdBytes = responseSizeThresholdBytes;
+                if (adaptiveCompressionController != null) {
+                    levelsForThisResponse = adaptiveCompressionController.currentLevels();
+                    thresholdBytes = levelsForThisResponse.responseSizeThresholdBytes;
+                }
+
+                if (((LastHttpContent) msg).content().readableBytes() > thresholdBytes) {
+                    allowCompressionForThisRequest = true;
+                }
             }
         }
 
@@ -0,0 +1,344 @@
+package com.nike.riposte.server.handler;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.channelpipeline.message.OutboundMessageSendHeadersChunkFromResponseInfo;
+import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
+import com.nike.riposte.server.config.distributedtracing.ServerSpanNamingAndTaggingStrategy;
+import com.nike.riposte.server.error.exception.NonblockingEndpointCompletableFutureTimedOut;
+import com.nike.riposte.server.handler.base.BaseInboundHandlerWithTracingAndMdcSupport;
+import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.http.ChunkedResponseWriter;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.StreamingEndpoint;
+import com.nike.riposte.server.http.impl.ChunkedResponseInfo;
+import com.nike.riposte.util.TimeoutTimers;
+import com.nike.wingtips.Span;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.EventExecutor;
+
+import static com.nike.riposte.util.AsyncNettyHelper.executeOnlyIfChannelIsActive;
+import static com.nike.riposte.util.AsyncNettyHelper.functionWithTracingAndMdc;
+import static com.nike.riposte.util.AsyncNettyHelper.runnableWithTracingAndMdc;
+
+/**
+ * Inspects the current channel state's {@link HttpProcessingState#getEndpointForExecution()} to see if it is a {@link
+ * StreamingEndpoint}. If so, a {@link ChunkedResponseWriter} is created for the request and the endpoint is executed.
+ * When the endpoint's {@link ChunkedResponseInfo} future completes the response info is placed in the channel's state
+ * and the response headers are sent, after which the endpoint streams the payload through the writer. This handler
+ * also forwards channel writability changes to the writer so that producers can respect backpressure.
+ * <p/>
+ * This handler should come after {@link RoutingHandler} in the chain to make sure that {@link
+ * HttpProcessingState#getEndpointForExecution()} has been populated. It should also come after {@link
+ * RequestContentDeserializerHandler} and {@link RequestContentValidationHandler} to make sure the {@link RequestInfo}
+ * is fully setup before executing the endpoint.
+ */
+@SuppressWarnings("WeakerAccess")
+public class StreamingEndpointExecutionHandler extends BaseInboundHandlerWithTracingAndMdcSupport {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final @NotNull Executor longRunningTaskExecutor;
+    private final long defaultCompletableFutureTimeoutMillis;
+    private final @NotNull Timer responseTimeoutTimer;
+
+    private final @NotNull ServerSpanNamingAndTaggingStrategy<Span> spanTaggingStrategy;
+
+    public StreamingEndpointExecutionHandler(
+        @NotNull Executor longRunningTaskExecutor,
+        long defaultCompletableFutureTimeoutMillis,
+        @NotNull DistributedTracingConfig<Span> distributedTracingConfig
+    ) {
+        this(longRunningTaskExecutor, defaultCompletableFutureTimeoutMillis, distributedTracingConfig, null);
+    }
+
+    /**
+     * @param responseTimeoutTimer The timer used to schedule the response timeout check for each request. This may be
+     * null, in which case {@link TimeoutTimers#defaultTimeoutTimer()} will be used.
+     */
+    @SuppressWarnings("ConstantConditions")
+    public StreamingEndpointExecutionHandler(
+        @NotNull Executor longRunningTaskExecutor,
+        long defaultCompletableFutureTimeoutMillis,
+        @NotNull DistributedTracingConfig<Span> distributedTracingConfig,
+        @Nullable Timer responseTimeoutTimer
+    ) {
+        if (longRunningTaskExecutor == null) {
+            throw new IllegalArgumentException("longRunningTaskExecutor cannot be null");
+        }
+
+        if (distributedTracingConfig == null) {
+            throw new IllegalArgumentException("distributedTracingConfig cannot be null");
+        }
+
+        this.longRunningTaskExecutor = longRunningTaskExecutor;
+        this.defaultCompletableFutureTimeoutMillis = defaultCompletableFutureTimeoutMillis;
+        this.responseTimeoutTimer = (responseTimeoutTimer == null)
+                                    ? TimeoutTimers.defaultTimeoutTimer()
+                                    : responseTimeoutTimer;
+        this.spanTaggingStrategy = distributedTracingConfig.getServerSpanNamingAndTaggingStrategy();
+    }
+
+    protected boolean shouldHandleDoChannelReadMessage(Object msg, Endpoint<?> endpoint) {
+        // This handler should only do something if the endpoint is a StreamingEndpoint, and only for Netty HTTP
+        //      messages.
+        return (msg instanceof HttpObject) && (endpoint instanceof StreamingEndpoint);
+    }
+
+    @Override
+    public PipelineContinuationBehavior doChannelRead(ChannelHandlerContext ctx, Object msg) {
+        HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+        Endpoint<?> endpoint = state.getEndpointForExecution();
+
+        if (shouldHandleDoChannelReadMessage(msg, endpoint)) {
+            // We only do something when the last chunk of content has arrived.
+            if (msg instanceof LastHttpContent) {
+                StreamingEndpoint<?> streamingEndpoint = (StreamingEndpoint<?>) endpoint;
+                RequestInfo<?> requestInfo = state.getRequestInfo();
+                Span endpointExecutionSpan = findEndpointExecutionSpan(state);
+
+                ChunkedResponseWriter responseWriter = new ChunkedResponseWriter(ctx);
+                state.setChunkedResponseWriter(responseWriter);
+
+                CompletableFuture<ChunkedResponseInfo> responseFuture = state
+                    .getPreEndpointExecutionWorkChain()
+                    .thenCompose(doExecuteEndpointFunction(
+                        requestInfo, streamingEndpoint, responseWriter, endpointExecutionSpan, ctx
+                    ));
+
+                responseFuture.whenComplete((responseInfo, throwable) -> {
+                    if (endpointExecutionSpan != null && spanTaggingStrategy.shouldAddEndpointFinishAnnotation()) {
+                        addEndpointFinishAnnotation(endpointExecutionSpan, spanTaggingStrategy);
+                    }
+
+                    if (throwable != null) {
+                        responseWriter.cancel(throwable);
+                        asyncErrorCallback(ctx, throwable);
+                    }
+                    else {
+                        asyncCallback(ctx, responseInfo, responseWriter);
+                    }
+                });
+
+                // Schedule a timeout for the response info future. This only covers the time it takes the endpoint to
+                //      produce the ChunkedResponseInfo - once the headers are sent the stream can run indefinitely.
+                Long endpointTimeoutOverride = streamingEndpoint.completableFutureTimeoutOverrideMillis();
+                long timeoutValueToUse = (endpointTimeoutOverride == null)
+                                         ? defaultCompletableFutureTimeoutMillis
+                                         : endpointTimeoutOverride;
+                Runnable timeoutCheck = () -> {
+                    if (!responseFuture.isDone()) {
+                        runnableWithTracingAndMdc(
+                            () -> logger.error("A streaming endpoint's CompletableFuture did not finish within "
+                                               + "the allotted timeout ({} milliseconds). Forcibly cancelling it.",
+                                               timeoutValueToUse), ctx
+                        ).run();
+                        @SuppressWarnings("unchecked")
+                        Throwable errorToUse = ((StreamingEndpoint) streamingEndpoint).getCustomTimeoutExceptionCause(
+                            requestInfo, ctx
+                        );
+                        if (errorToUse == null)
+                            errorToUse = new NonblockingEndpointCompletableFutureTimedOut(timeoutValueToUse);
+                        responseFuture.completeExceptionally(errorToUse);
+                    }
+                };
+                // The shared timer only decides when the check is due - the check itself runs on the channel's event
+                //      loop, the same as it does in NonblockingEndpointExecutionHandler.
+                Timeout responseTimeout = responseTimeoutTimer.newTimeout(
+                    timeout -> {
+                        if (!responseFuture.isDone()) {
+                            ctx.channel().eventLoop().execute(timeoutCheck);
+                        }
+                    },
+                    timeoutValueToUse,
+                    TimeUnit.MILLISECONDS
+                );
+
+                // Cancel the timeout check as soon as the future finishes so it doesn't hold on to request garbage -
+                //      see NonblockingEndpointExecutionHandler for the full explanation.
+                responseFuture.whenComplete((responseInfo, throwable) -> {
+                    if (!responseTimeout.isExpired())
+                        responseTimeout.cancel();
+                });
+            }
+
+            // Whether it was the last chunk or not, we don't want the pipeline to continue since the endpoint was a
+            //      StreamingEndpoint. The pipeline will continue when the response info future completes.
+            return PipelineContinuationBehavior.DO_NOT_FIRE_CONTINUE_EVENT;
+        }
+
+        // Not a StreamingEndpoint, so continue the pipeline in case another endpoint handler wants to deal with it.
+        return PipelineContinuationBehavior.CONTINUE;
+    }
+
+    @Override
+    public PipelineContinuationBehavior doChannelWritabilityChanged(ChannelHandlerContext ctx) {
+        HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+        ChunkedResponseWriter responseWriter = (state == null) ? null : state.getChunkedResponseWriter();
+        if (responseWriter != null) {
+            responseWriter.handleChannelWritabilityChanged();
+        }
+
+        return PipelineContinuationBehavior.CONTINUE;
+    }
+
+    protected @Nullable Span findEndpointExecutionSpan(@NotNull HttpProcessingState state) {
+        Deque<Span> spanStack = state.getDistributedTraceStack();
+        return (spanStack == null) ? null : spanStack.peek();
+    }
+
+    /**
+     * Adds the endpoint.start span annotation to the given span if desired by {@link #spanTaggingStrategy}, and
+     * then returns the {@link CompletableFuture} from {@link
+     * StreamingEndpoint#execute(RequestInfo, ChunkedResponseWriter, Executor, ChannelHandlerContext)}. See
+     * {@link NonblockingEndpointExecutionHandler#doExecuteEndpointFunction(RequestInfo,
+     * com.nike.riposte.server.http.NonblockingEndpoint, Span, ChannelHandlerContext)} for why the endpoint.finish
+     * annotation is not added here.
+     */
+    @SuppressWarnings("unchecked")
+    protected Function<Void, CompletableFuture<ChunkedResponseInfo>> doExecuteEndpointFunction(
+        @NotNull RequestInfo<?> requestInfo,
+        @NotNull StreamingEndpoint<?> streamingEndpoint,
+        @NotNull ChunkedResponseWriter responseWriter,
+        @Nullable Span endpointExecutionSpan,
+        @NotNull ChannelHandlerContext ctx
+    ) {
+        return functionWithTracingAndMdc(
+            aVoid -> {
+                try {
+                    if (endpointExecutionSpan != null && spanTaggingStrategy.shouldAddEndpointStartAnnotation()) {
+                        endpointExecutionSpan.addTimestampedAnnotationForCurrentTime(
+                            spanTaggingStrategy.endpointStartAnnotationName()
+                        );
+                    }
+                }
+                catch (Throwable t) {
+                    logger.error("Unexpected error while annotating Span with endpoint start timestamp.", t);
+                }
+
+                CompletableFuture<ChunkedResponseInfo> executionResult =
+                    ((StreamingEndpoint) streamingEndpoint).execute(
+                        requestInfo, responseWriter, longRunningTaskExecutor, ctx
+                    );
+
+                //noinspection ConstantConditions
+                if (executionResult == null) {
+                    throw new NullPointerException("StreamingEndpoint.execute() cannot return null.");
+                }
+
+                return executionResult;
+            },
+            ctx
+        );
+    }
+
+    protected void addEndpointFinishAnnotation(Span span, ServerSpanNamingAndTaggingStrategy<Span> strategy) {
+        try {
+            span.addTimestampedAnnotationForCurrentTime(
+                strategy.endpointFinishAnnotationName()
+            );
+        }
+        catch(Throwable t) {
+            logger.error(
+                "Unexpected error while annotating Span with endpoint finish timestamp.", t
+            );
+        }
+    }
+
+    @Override
+    protected boolean argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo(
+        HandlerMethodToExecute methodToExecute, ChannelHandlerContext ctx, Object msgOrEvt, Throwable cause
+    ) {
+        // To save on extraneous linking/unlinking, we'll do it as-necessary in this class.
+        return false;
+    }
+
+    protected void asyncCallback(
+        ChannelHandlerContext ctx,
+        ChunkedResponseInfo responseInfo,
+        ChunkedResponseWriter responseWriter
+    ) {
+        if (responseInfo == null) {
+            Exception error = new NullPointerException(
+                "StreamingEndpoint execution resulted in a null ChunkedResponseInfo."
+            );
+            responseWriter.cancel(error);
+            asyncErrorCallback(ctx, error);
+            return;
+        }
+
+        HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+        executeOnlyIfChannelIsActive(
+            ctx, "StreamingEndpointExecutionHandler-asyncCallback",
+            () -> {
+                // We have to set the ResponseInfo on the state and fire the event while in the channel's EventLoop to
+                //      avoid racing with any error that may also be trying to set the ResponseInfo.
+                EventExecutor executor = ctx.executor();
+                if (executor.inEventLoop()) {
+                    sendResponseHeadersAndStartStreaming(state, responseInfo, responseWriter, ctx);
+                }
+                else {
+                    executor.execute(
+                        () -> sendResponseHeadersAndStartStreaming(state, responseInfo, responseWriter, ctx)
+                    );
+                }
+            }
+        );
+    }
+
+    protected void sendResponseHeadersAndStartStreaming(
+        HttpProcessingState state,
+        ChunkedResponseInfo responseInfo,
+        ChunkedResponseWriter responseWriter,
+        ChannelHandlerContext ctx
+    ) {
+        if (state.isRequestHandled()) {
+            runnableWithTracingAndMdc(
+                () -> logger.warn("The request has already been handled, likely due to an error, so the streaming "
+                                  + "endpoint's response will be ignored."),
+                ctx
+            ).run();
+            responseWriter.cancel(
+                new IllegalStateException("The request was already handled before the streaming response started.")
+            );
+            return;
+        }
+
+        state.setResponseInfo(responseInfo, null);
+        ctx.fireChannelRead(OutboundMessageSendHeadersChunkFromResponseInfo.INSTANCE);
+
+        if (responseInfo.isResponseSendingStarted() && state.getResponseInfo() == responseInfo) {
+            responseWriter.markResponseHeadersSent();
+        }
+        else {
+            // The headers could not be sent (e.g. the response sender failed and a last-ditch error response was sent
+            //      instead), so there's no point in streaming anything.
+            responseWriter.cancel(
+                new IllegalStateException("The streaming endpoint's response headers could not be sent.")
+            );
+        }
+    }
+
+    protected void asyncErrorCallback(ChannelHandlerContext ctx, Throwable error) {
+        executeOnlyIfChannelIsActive(
+            ctx, "StreamingEndpointExecutionHandler-asyncErrorCallback",
+            () -> ctx.fireExceptionCaught(error)
+        );
+    }
+}
@@ -0,0 +1,205 @@
+package com.nike.riposte.server.handler;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.channelpipeline.message.LastOutboundMessageSendFullResponseInfo;
+import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.websocket.WebSocketEndpoint;
+import com.nike.riposte.server.http.websocket.WebSocketSession;
+import com.nike.wingtips.Span;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Deque;
+import java.util.Map;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import io.netty.util.ReferenceCountUtil;
+
+import static com.nike.riposte.server.channelpipeline.HttpChannelInitializer.RESPONSE_SENDER_HANDLER_NAME;
+import static com.nike.riposte.util.AsyncNettyHelper.runnableWithTracingAndMdc;
+
+/**
+ * Dispatches WebSocket events for a single connection to a {@link WebSocketEndpoint}. Added to the pipeline by {@link
+ * WebSocketUpgradeHandler} directly after the {@link WebSocketServerProtocolHandler}, so it only ever sees WebSocket
+ * data frames - ping/pong/close frames are handled by the protocol handler. Frames and handshake events are consumed
+ * here and never passed on to the HTTP-specific Riposte handlers further down the pipeline.
+ * <p/>
+ * When the handshake completes this handler records the {@code 101 Switching Protocols} response on the channel's
+ * {@link HttpProcessingState} and fires a {@link LastOutboundMessageSendFullResponseInfo} into the end of the Riposte
+ * pipeline (after the response sender, since the handshake already sent the response), so the upgrade request gets
+ * the normal access logging, tracing, and metrics treatment. All endpoint callbacks are executed with the upgrade
+ * request's tracing and MDC info attached.
+ */
+@SuppressWarnings("WeakerAccess")
+public class WebSocketFrameHandler extends ChannelInboundHandlerAdapter {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    protected final @NotNull WebSocketEndpoint endpoint;
+    protected final @NotNull RequestInfo<Void> upgradeRequest;
+    protected final @Nullable Deque<Span> distributedTraceStack;
+    protected final @Nullable Map<String, String> loggerMdcContextMap;
+
+    protected @Nullable WebSocketSession session;
+
+    @SuppressWarnings("ConstantConditions")
+    public WebSocketFrameHandler(
+        @NotNull WebSocketEndpoint endpoint,
+        @NotNull RequestInfo<Void> upgradeRequest,
+        @Nullable Deque<Span> distributedTraceStack,
+        @Nullable Map<String, String> loggerMdcContextMap
+    ) {
+        if (endpoint == null) {
+            throw new IllegalArgumentException("endpoint cannot be null");
+        }
+
+        if (upgradeRequest == null) {
+            throw new IllegalArgumentException("upgradeRequest cannot be null");
+        }
+
+        this.endpoint = endpoint;
+        this.upgradeRequest = upgradeRequest;
+        this.distributedTraceStack = distributedTraceStack;
+        this.loggerMdcContextMap = loggerMdcContextMap;
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof WebSocketServerProtocolHandler.HandshakeComplete) {
+            handleHandshakeComplete(ctx);
+            return;
+        }
+
+        //noinspection deprecation
+        if (evt == WebSocketServerProtocolHandler.ServerHandshakeStateEvent.HANDSHAKE_COMPLETE) {
+            // Deprecated duplicate of the HandshakeComplete event - ignore it.
+            return;
+        }
+
+        if (evt == WebSocketServerProtocolHandler.ServerHandshakeStateEvent.HANDSHAKE_TIMEOUT) {
+            runWithTracingAndMdc(() -> logger.warn("WebSocket handshake timed out. The channel will be closed."));
+            ctx.channel().close();
+            return;
+        }
+
+        super.userEventTriggered(ctx, evt);
+    }
+
+    protected void handleHandshakeComplete(@NotNull ChannelHandlerContext ctx) {
+        markUpgradeRequestAsComplete(ctx);
+
+        WebSocketSession newSession = new WebSocketSession(ctx.channel(), upgradeRequest);
+        this.session = newSession;
+        invokeEndpointCallback(() -> endpoint.onOpen(newSession, upgradeRequest));
+    }
+
+    /**
+     * Records the 101 response on the channel's state and lets the end of the Riposte pipeline (access logging,
+     * distributed tracing, metrics, and state finalization) know that the upgrade request is done.
+     */
+    protected void markUpgradeRequestAsComplete(@NotNull ChannelHandlerContext ctx) {
+        HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+        if (state == null || state.isRequestHandled()) {
+            return;
+        }
+
+        ResponseInfo<Void> responseInfo = ResponseInfo.<Void>newBuilder()
+                                                      .withHttpStatusCode(HttpResponseStatus.SWITCHING_PROTOCOLS.code())
+                                                      .build();
+        responseInfo.setResponseSendingStarted(true);
+        responseInfo.setResponseSendingLastChunkSent(true);
+        state.setResponseInfo(responseInfo, null);
+        state.setResponseWriterFinalChunkChannelFuture(ctx.newSucceededFuture());
+        state.setResponseEndTimeNanosToNowIfNotAlreadySet();
+
+        ChannelHandlerContext responseSenderCtx = ctx.pipeline().context(RESPONSE_SENDER_HANDLER_NAME);
+        if (responseSenderCtx != null) {
+            responseSenderCtx.fireChannelRead(LastOutboundMessageSendFullResponseInfo.INSTANCE);
+        }
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (!(msg instanceof WebSocketFrame)) {
+            super.channelRead(ctx, msg);
+            return;
+        }
+
+        WebSocketSession currentSession = session;
+        try {
+            if (currentSession != null) {
+                invokeEndpointCallback(() -> endpoint.onMessage(currentSession, (WebSocketFrame) msg));
+            }
+        }
+        finally {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        WebSocketSession currentSession = session;
+        if (currentSession != null) {
+            invokeEndpointCallback(() -> endpoint.onClose(currentSession));
+        }
+
+        // Let the Riposte handlers do their normal channel-closed cleanup.
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        // The HTTP error handling in the rest of the pipeline can't do anything useful for a WebSocket connection, so
+        //      errors stop here.
+        WebSocketSession currentSession = session;
+        if (currentSession == null) {
+            runWithTracingAndMdc(
+                () -> logger.error("Error during WebSocket handshake. The channel will be closed.", cause)
+            );
+            ctx.channel().close();
+            return;
+        }
+
+        runWithTracingAndMdc(() -> {
+            try {
+                endpoint.onError(currentSession, cause);
+            }
+            catch (Throwable t) {
+                logger.error("WebSocketEndpoint.onError() threw an exception. The channel will be closed.", t);
+                ctx.channel().close();
+            }
+        });
+    }
+
+    /**
+     * Executes the given endpoint callback with tracing and MDC attached, routing any error it throws to {@link
+     * WebSocketEndpoint#onError(WebSocketSession, Throwable)}.
+     */
+    protected void invokeEndpointCallback(@NotNull Runnable callback) {
+        runWithTracingAndMdc(() -> {
+            try {
+                callback.run();
+            }
+            catch (Throwable t) {
+                WebSocketSession currentSession = session;
+                if (currentSession == null) {
+                    throw t;
+                }
+                endpoint.onError(currentSession, t);
+            }
+        });
+    }
+
+    protected void runWithTracingAndMdc(@NotNull Runnable runnable) {
+        runnableWithTracingAndMdc(runnable, distributedTraceStack, loggerMdcContextMap).run();
+    }
+}
@@ -0,0 +1,205 @@
+package com.nike.riposte.server.handler;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.handler.base.BaseInboundHandlerWithTracingAndMdcSupport;
+import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.websocket.WebSocketEndpoint;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolConfig;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import io.netty.handler.codec.http.websocketx.extensions.compression.WebSocketServerCompressionHandler;
+import io.netty.util.concurrent.EventExecutor;
+
+import static com.nike.riposte.server.channelpipeline.HttpChannelInitializer.HTTP_SERVER_CODEC_HANDLER_NAME;
+import static com.nike.riposte.server.channelpipeline.HttpChannelInitializer.WEBSOCKET_COMPRESSION_HANDLER_NAME;
+import static com.nike.riposte.server.channelpipeline.HttpChannelInitializer.WEBSOCKET_FRAME_HANDLER_NAME;
+import static com.nike.riposte.server.channelpipeline.HttpChannelInitializer.WEBSOCKET_PROTOCOL_HANDLER_NAME;
+import static com.nike.riposte.util.AsyncNettyHelper.executeOnlyIfChannelIsActive;
+import static com.nike.riposte.util.AsyncNettyHelper.runnableWithTracingAndMdc;
+
+/**
+ * Inspects the current channel state's {@link HttpProcessingState#getEndpointForExecution()} to see if it is a {@link
+ * WebSocketEndpoint}. If so, once the upgrade request has been fully received and any pre-endpoint work (e.g. async
+ * security validation) has finished, this handler switches the channel over to the WebSocket protocol: a {@link
+ * WebSocketServerProtocolHandler} (plus a {@link WebSocketServerCompressionHandler} if the endpoint wants {@code
+ * permessage-deflate}) and a {@link WebSocketFrameHandler} for the endpoint are added directly after the HTTP codec,
+ * and the upgrade request is handed to them to perform the handshake. The HTTP codec is removed by the handshake once
+ * the {@code 101 Switching Protocols} response has been sent, and the {@link WebSocketFrameHandler} then marks the
+ * upgrade request as complete so that the rest of the Riposte pipeline can do its normal access logging, tracing, and
+ * metrics for it.
+ * <p/>
+ * {@link RoutingHandler} guarantees that only valid WebSocket upgrade requests reach {@link WebSocketEndpoint}s.
+ * <p/>
+ * This handler should come after {@link RoutingHandler}, {@link SecurityValidationHandler}, and the request filter
+ * handlers in the pipeline so that upgrade requests are validated like any other request.
+ */
+@SuppressWarnings("WeakerAccess")
+public class WebSocketUpgradeHandler extends BaseInboundHandlerWithTracingAndMdcSupport {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @return true if the given request is a valid WebSocket upgrade request (RFC 6455 section 4.2.1), false otherwise.
+     */
+    public static boolean isWebSocketUpgradeRequest(@NotNull HttpRequest request) {
+        HttpHeaders headers = request.headers();
+        return HttpMethod.GET.equals(request.method())
+               && headers.containsValue(HttpHeaderNames.CONNECTION, HttpHeaderValues.UPGRADE, true)
+               && headers.contains(HttpHeaderNames.UPGRADE, HttpHeaderValues.WEBSOCKET, true)
+               && headers.contains(HttpHeaderNames.SEC_WEBSOCKET_KEY)
+               && isSupportedWebSocketVersion(headers.get(HttpHeaderNames.SEC_WEBSOCKET_VERSION));
+    }
+
+    protected static boolean isSupportedWebSocketVersion(String version) {
+        return "13".equals(version) || "8".equals(version) || "7".equals(version);
+    }
+
+    protected boolean shouldHandleDoChannelReadMessage(Object msg, Endpoint<?> endpoint) {
+        // This handler should only do something if the endpoint is a WebSocketEndpoint, and only for Netty HTTP
+        //      messages.
+        return (msg instanceof HttpObject) && (endpoint instanceof WebSocketEndpoint);
+    }
+
+    @Override
+    public PipelineContinuationBehavior doChannelRead(ChannelHandlerContext ctx, Object msg) {
+        HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+        Endpoint<?> endpoint = state.getEndpointForExecution();
+
+        if (shouldHandleDoChannelReadMessage(msg, endpoint)) {
+            // We only do something when the last chunk of content has arrived.
+            if (msg instanceof LastHttpContent) {
+                WebSocketEndpoint webSocketEndpoint = (WebSocketEndpoint) endpoint;
+                state.getPreEndpointExecutionWorkChain().whenComplete((ignored, throwable) -> {
+                    if (throwable != null) {
+                        asyncErrorCallback(ctx, throwable);
+                    }
+                    else {
+                        asyncUpgradeCallback(ctx, state, webSocketEndpoint);
+                    }
+                });
+            }
+
+            // Whether it was the last chunk or not, we don't want the pipeline to continue since the endpoint was a
+            //      WebSocketEndpoint. The rest of the pipeline is notified when the handshake completes.
+            return PipelineContinuationBehavior.DO_NOT_FIRE_CONTINUE_EVENT;
+        }
+
+        // Not a WebSocketEndpoint, so continue the pipeline in case another endpoint handler wants to deal with it.
+        return PipelineContinuationBehavior.CONTINUE;
+    }
+
+    @Override
+    protected boolean argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo(
+        HandlerMethodToExecute methodToExecute, ChannelHandlerContext ctx, Object msgOrEvt, Throwable cause
+    ) {
+        // To save on extraneous linking/unlinking, we'll do it as-necessary in this class.
+        return false;
+    }
+
+    protected void asyncUpgradeCallback(
+        ChannelHandlerContext ctx,
+        HttpProcessingState state,
+        WebSocketEndpoint endpoint
+    ) {
+        executeOnlyIfChannelIsActive(
+            ctx, "WebSocketUpgradeHandler-asyncUpgradeCallback",
+            () -> {
+                // The pipeline must only be modified on the channel's EventLoop.
+                EventExecutor executor = ctx.executor();
+                if (executor.inEventLoop()) {
+                    upgradeToWebSocket(ctx, state, endpoint);
+                }
+                else {
+                    executor.execute(() -> upgradeToWebSocket(ctx, state, endpoint));
+                }
+            }
+        );
+    }
+
+    protected void asyncErrorCallback(ChannelHandlerContext ctx, Throwable error) {
+        executeOnlyIfChannelIsActive(
+            ctx, "WebSocketUpgradeHandler-asyncErrorCallback",
+            () -> ctx.fireExceptionCaught(error)
+        );
+    }
+
+    protected void upgradeToWebSocket(
+        @NotNull ChannelHandlerContext ctx,
+        @NotNull HttpProcessingState state,
+        @NotNull WebSocketEndpoint endpoint
+    ) {
+        if (state.isRequestHandled()) {
+            runnableWithTracingAndMdc(
+                () -> logger.warn("The request has already been handled, likely due to an error, so the WebSocket "
+                                  + "upgrade will not be performed."),
+                ctx
+            ).run();
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        RequestInfo<Void> requestInfo = (RequestInfo<Void>) state.getRequestInfo();
+        ChannelPipeline pipeline = ctx.pipeline();
+
+        WebSocketServerProtocolConfig protocolConfig =
+            WebSocketServerProtocolConfig.newBuilder()
+                                         .websocketPath(requestInfo.getUri())
+                                         .subprotocols(endpoint.subprotocols())
+                                         .allowExtensions(endpoint.isPerMessageDeflateEnabled())
+                                         .maxFramePayloadLength(endpoint.maxFramePayloadLength())
+                                         .handshakeTimeoutMillis(endpoint.handshakeTimeoutMillis())
+                                         .build();
+
+        // The WebSocket handlers go directly after the HTTP codec so that once the codec is swapped out for the
+        //      WebSocket frame codec, frames never reach the HTTP-specific Riposte handlers.
+        String previousHandlerName = HTTP_SERVER_CODEC_HANDLER_NAME;
+        if (endpoint.isPerMessageDeflateEnabled()) {
+            pipeline.addAfter(
+                previousHandlerName, WEBSOCKET_COMPRESSION_HANDLER_NAME, new WebSocketServerCompressionHandler()
+            );
+            previousHandlerName = WEBSOCKET_COMPRESSION_HANDLER_NAME;
+        }
+        pipeline.addAfter(
+            previousHandlerName, WEBSOCKET_PROTOCOL_HANDLER_NAME, new WebSocketServerProtocolHandler(protocolConfig)
+        );
+        pipeline.addAfter(
+            WEBSOCKET_PROTOCOL_HANDLER_NAME,
+            WEBSOCKET_FRAME_HANDLER_NAME,
+            new WebSocketFrameHandler(
+                endpoint, requestInfo, state.getDistributedTraceStack(), state.getLoggerMdcContextMap()
+            )
+        );
+
+        // The original request and its content have already been consumed by the Riposte pipeline, so we hand the
+        //      WebSocket handlers a content-less copy of the request to perform the handshake with.
+        FullHttpRequest handshakeRequest = new DefaultFullHttpRequest(
+            requestInfo.getProtocolVersion(),
+            requestInfo.getMethod(),
+            requestInfo.getUri(),
+            Unpooled.EMPTY_BUFFER,
+            requestInfo.getHeaders(),
+            EmptyHttpHeaders.INSTANCE
+        );
+        pipeline.context(HTTP_SERVER_CODEC_HANDLER_NAME).fireChannelRead(handshakeRequest);
+    }
+}
@@ -0,0 +1,217 @@
+package com.nike.riposte.server.handler.coalescing;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.RequestCoalescingConfig;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.cookie.Cookie;
+
+/**
+ * Single-flight request coalescing for endpoints that opt in via {@code
+ * NonblockingEndpoint#requestCoalescingConfig()}, shared by every channel in the server. The first request for a
+ * given key (endpoint, method, URI including the query string, and the values of the {@link
+ * RequestCoalescingConfig#keyHeaderNames()} headers) is the leader - it executes the endpoint. Identical requests that
+ * arrive while the leader is in flight don't execute the endpoint, they wait for the leader's result instead. Each
+ * one is reported to the {@link MetricsListener} (if any) as a {@link ServerMetricsEvent#REQUEST_COALESCED} event
+ * with the endpoint as the value.
+ *
+ * <p>Every waiter (the leader included) gets its own shallow copy of the {@link ResponseInfo} - the response is
+ * mutated while it is sent (headers are added, sending state is tracked, etc), so the waiters can't share one. The
+ * content object itself is shared, so it must not be modified after the endpoint returns it.
+ *
+ * <p>Failures are handled the same way: if the leader's endpoint fails then every waiter fails with the same error.
+ * A leader that has been in flight for longer than the endpoint's timeout no longer picks up new waiters - the next
+ * identical request replaces it and becomes a new leader. That way a stuck request can't capture everything behind
+ * it, and existing waiters still time out on their own through the normal endpoint timeout handling.
+ */
+@SuppressWarnings("WeakerAccess")
+public class RequestCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestCoalescer.class);
+
+    protected final @Nullable MetricsListener metricsListener;
+    protected final @NotNull LongSupplier nanoTimeSupplier;
+    protected final ConcurrentMap<List<Object>, InFlightRequest> inFlightRequests = new ConcurrentHashMap<>();
+    protected final LongAdder coalescedCount = new LongAdder();
+
+    public RequestCoalescer(@Nullable MetricsListener metricsListener) {
+        this(metricsListener, System::nanoTime);
+    }
+
+    protected RequestCoalescer(@Nullable MetricsListener metricsListener, @NotNull LongSupplier nanoTimeSupplier) {
+        this.metricsListener = metricsListener;
+        this.nanoTimeSupplier = nanoTimeSupplier;
+    }
+
+    /**
+     * Executes the endpoint via the given {@code endpointExecution} if there's no identical request in flight,
+     * otherwise waits for the in-flight request's result.
+     *
+     * @param endpoint The endpoint the request is for.
+     * @param config The endpoint's coalescing config.
+     * @param requestInfo The request.
+     * @param maxInFlightMillis How long a leader can be in flight before new identical requests stop waiting on it -
+     * this should be the endpoint's timeout.
+     * @param endpointExecution Executes the endpoint for the request. Only called if this request becomes the leader.
+     * @return A future that completes with this request's own copy of the response, or with the endpoint's error.
+     */
+    public @NotNull CompletableFuture<ResponseInfo<?>> execute(
+        @NotNull Endpoint<?> endpoint,
+        @NotNull RequestCoalescingConfig config,
+        @NotNull RequestInfo<?> requestInfo,
+        long maxInFlightMillis,
+        @NotNull Supplier<CompletableFuture<ResponseInfo<?>>> endpointExecution
+    ) {
+        List<Object> key = coalescingKey(endpoint, config, requestInfo);
+        long nowNanos = nanoTimeSupplier.getAsLong();
+        long maxInFlightNanos = TimeUnit.MILLISECONDS.toNanos(maxInFlightMillis);
+        InFlightRequest newRequest = new InFlightRequest(nowNanos);
+
+        while (true) {
+            InFlightRequest existing = inFlightRequests.putIfAbsent(key, newRequest);
+            if (existing == null) {
+                return lead(key, newRequest, endpointExecution);
+            }
+
+            if (nowNanos - existing.startNanos <= maxInFlightNanos) {
+                coalescedCount.increment();
+                notifyMetricsListener(endpoint);
+                return existing.sharedResult.thenApply(this::copyForWaiter);
+            }
+
+            // The in-flight request has gone on too long - take over as the leader. If some other request beat us to
+            //      it then loop around and join (or replace) whatever is there now.
+            if (inFlightRequests.replace(key, existing, newRequest)) {
+                return lead(key, newRequest, endpointExecution);
+            }
+        }
+    }
+
+    protected @NotNull CompletableFuture<ResponseInfo<?>> lead(
+        @NotNull List<Object> key,
+        @NotNull InFlightRequest inFlightRequest,
+        @NotNull Supplier<CompletableFuture<ResponseInfo<?>>> endpointExecution
+    ) {
+        CompletableFuture<ResponseInfo<?>> endpointResult;
+        try {
+            endpointResult = endpointExecution.get();
+        }
+        catch (Throwable t) {
+            // Fail anyone who joined in the meantime the same way this request is about to fail.
+            inFlightRequests.remove(key, inFlightRequest);
+            inFlightRequest.sharedResult.completeExceptionally(t);
+            throw t;
+        }
+
+        endpointResult.whenComplete((responseInfo, error) -> {
+            // Remove before completing, so that requests arriving after this point start a fresh execution.
+            inFlightRequests.remove(key, inFlightRequest);
+            if (error != null)
+                inFlightRequest.sharedResult.completeExceptionally(error);
+            else
+                inFlightRequest.sharedResult.complete(responseInfo);
+        });
+
+        return inFlightRequest.sharedResult.thenApply(this::copyForWaiter);
+    }
+
+    protected @NotNull List<Object> coalescingKey(
+        @NotNull Endpoint<?> endpoint,
+        @NotNull RequestCoalescingConfig config,
+        @NotNull RequestInfo<?> requestInfo
+    ) {
+        Collection<String> keyHeaderNames = config.keyHeaderNames();
+        List<Object> key = new ArrayList<>(3 + keyHeaderNames.size());
+        key.add(endpoint);
+        key.add(requestInfo.getMethod());
+        key.add(requestInfo.getUri());
+        for (String headerName : keyHeaderNames) {
+            key.add(requestInfo.getHeaders().getAll(headerName));
+        }
+
+        return key;
+    }
+
+    /**
+     * @return A shallow copy of the given response for a single waiter, or the given response itself if it is null or
+     * a chunked response (neither is allowed for nonblocking endpoints, so the caller will fail them either way).
+     */
+    protected @Nullable ResponseInfo<?> copyForWaiter(@Nullable ResponseInfo<?> original) {
+        if (original == null || original.isChunkedResponse()) {
+            return original;
+        }
+
+        Set<Cookie> cookies = original.getCookies();
+        ResponseInfo<?> copy = ResponseInfo
+            .newBuilder(original.getContentForFullResponse())
+            .withHttpStatusCode(original.getHttpStatusCode())
+            .withHeaders(new DefaultHttpHeaders().set(original.getHeaders()))
+            .withDesiredContentWriterMimeType(original.getDesiredContentWriterMimeType())
+            .withDesiredContentWriterEncoding(original.getDesiredContentWriterEncoding())
+            .withCookies((cookies == null) ? null : new LinkedHashSet<>(cookies))
+            .withPreventCompressedOutput(original.isPreventCompressedOutput())
+            .build();
+        copy.setForceConnectionCloseAfterResponseSent(original.isForceConnectionCloseAfterResponseSent());
+        return copy;
+    }
+
+    protected void notifyMetricsListener(@NotNull Endpoint<?> endpoint) {
+        if (metricsListener == null || !metricsListener.isInterestedIn(ServerMetricsEvent.REQUEST_COALESCED)) {
+            return;
+        }
+
+        try {
+            metricsListener.onEvent(ServerMetricsEvent.REQUEST_COALESCED, endpoint);
+        }
+        catch (Throwable t) {
+            logger.error("Metrics listener threw an exception while handling a request coalescing event.", t);
+        }
+    }
+
+    /**
+     * @return The total number of requests that waited on an identical in-flight request instead of executing their
+     * endpoint.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    /**
+     * @return The number of distinct requests currently in flight.
+     */
+    public int getInFlightCount() {
+        return inFlightRequests.size();
+    }
+
+    protected static class InFlightRequest {
+
+        protected final long startNanos;
+        protected final CompletableFuture<ResponseInfo<?>> sharedResult = new CompletableFuture<>();
+
+        protected InFlightRequest(long startNanos) {
+            this.startNanos = startNanos;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.nike.riposte.server.handler.compression;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.config.ServerConfig.ResponseCompressionConfig;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+
+import io.netty.util.concurrent.EventExecutor;
+
+/**
+ * Decides which response compression levels to use based on server load. Shared by every {@link
+ * com.nike.riposte.server.handler.SmartHttpContentCompressor} in the server when {@link
+ * ResponseCompressionConfig#isAdaptiveCompressionEnabled()} is true.
+ *
+ * <p>The load signal is sampled at most once per {@link
+ * ResponseCompressionConfig#adaptiveCompressionSampleIntervalMillis()}, lazily on whichever thread asks for {@link
+ * #currentLevels()} after the interval has elapsed, so there is no extra thread involved. Each sample moves the
+ * levels at most one step:
+ * <ul>
+ *     <li>
+ *         Load at or above {@link ResponseCompressionConfig#adaptiveCompressionHighLoadThreshold()} steps down - the
+ *         gzip level, brotli quality, and zstd level all drop by one (down to their floors).
+ *     </li>
+ *     <li>
+ *         Once the gzip level has reached {@link ResponseCompressionConfig#adaptiveCompressionMinGzipLevel()}, one
+ *         final step multiplies the response size threshold by {@link
+ *         ResponseCompressionConfig#adaptiveCompressionThresholdMultiplier()}.
+ *     </li>
+ *     <li>
+ *         Load at or below {@link ResponseCompressionConfig#adaptiveCompressionLowLoadThreshold()} steps back up,
+ *         until the configured levels are restored.
+ *     </li>
+ * </ul>
+ * Every change is reported to the {@link MetricsListener} (if any) as a {@link
+ * ServerMetricsEvent#RESPONSE_COMPRESSION_LEVELS_CHANGED} event.
+ */
+@SuppressWarnings("WeakerAccess")
+public class AdaptiveCompressionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveCompressionController.class);
+
+    protected final @NotNull ResponseCompressionConfig config;
+    protected final int baseResponseSizeThresholdBytes;
+    protected final @NotNull DoubleSupplier loadSignal;
+    protected final @Nullable EventLoopLagLoadSignal eventLoopLagLoadSignal;
+    protected final @Nullable MetricsListener metricsListener;
+
+    protected final long sampleIntervalNanos;
+    protected final int levelSteps;
+    protected final int maxStep;
+    protected final AtomicLong lastSampleTimeNanos;
+
+    protected volatile @NotNull ResponseCompressionLevels currentLevels;
+
+    public AdaptiveCompressionController(@NotNull ResponseCompressionConfig config,
+                                         int baseResponseSizeThresholdBytes,
+                                         @Nullable MetricsListener metricsListener) {
+        //noinspection ConstantConditions
+        if (config == null) {
+            throw new IllegalArgumentException("config cannot be null");
+        }
+
+        if (config.adaptiveCompressionLowLoadThreshold() > config.adaptiveCompressionHighLoadThreshold()) {
+            throw new IllegalArgumentException(
+                "adaptiveCompressionLowLoadThreshold cannot be greater than adaptiveCompressionHighLoadThreshold"
+            );
+        }
+
+        this.config = config;
+        this.baseResponseSizeThresholdBytes = baseResponseSizeThresholdBytes;
+        this.metricsListener = metricsListener;
+        this.sampleIntervalNanos = TimeUnit.MILLISECONDS.toNanos(config.adaptiveCompressionSampleIntervalMillis());
+        this.lastSampleTimeNanos = new AtomicLong(System.nanoTime());
+
+        DoubleSupplier customLoadSignal = config.adaptiveCompressionLoadSignal();
+        if (customLoadSignal == null) {
+            // Probe often enough that a sample interval sees several probes from every event loop.
+            long probeIntervalMillis = Math.max(1, config.adaptiveCompressionSampleIntervalMillis() / 10);
+            this.eventLoopLagLoadSignal = new EventLoopLagLoadSignal(
+                probeIntervalMillis, config.adaptiveCompressionEventLoopLagMillisAtFullLoad()
+            );
+            this.loadSignal = eventLoopLagLoadSignal;
+        }
+        else {
+            this.eventLoopLagLoadSignal = null;
+            this.loadSignal = customLoadSignal;
+        }
+
+        this.levelSteps = Math.max(0, config.gzipCompressionLevel() - config.adaptiveCompressionMinGzipLevel());
+        this.maxStep = levelSteps + 1;
+        this.currentLevels = levelsForStep(0);
+        notifyMetricsListener(currentLevels);
+    }
+
+    /**
+     * Registers a worker event loop with the default event loop lag signal. Does nothing if a custom load signal was
+     * configured. Safe to call for every new channel - each event loop is only monitored once.
+     */
+    public void monitorEventLoop(@NotNull EventExecutor eventLoop) {
+        if (eventLoopLagLoadSignal != null) {
+            eventLoopLagLoadSignal.monitor(eventLoop);
+        }
+    }
+
+    /**
+     * @return The compression levels that should be used right now. This is cheap - the load signal is only sampled
+     * (by one caller) once per sample interval.
+     */
+    public @NotNull ResponseCompressionLevels currentLevels() {
+        long now = System.nanoTime();
+        long lastSample = lastSampleTimeNanos.get();
+        if (now - lastSample >= sampleIntervalNanos && lastSampleTimeNanos.compareAndSet(lastSample, now)) {
+            sampleLoadAndAdjust();
+        }
+
+        return currentLevels;
+    }
+
+    protected void sampleLoadAndAdjust() {
+        double load;
+        try {
+            load = loadSignal.getAsDouble();
+        }
+        catch (Throwable t) {
+            logger.warn("Adaptive compression load signal threw an exception. Compression levels will not change.", t);
+            return;
+        }
+
+        int step = currentLevels.step;
+        if (load >= config.adaptiveCompressionHighLoadThreshold() && step < maxStep) {
+            step++;
+        }
+        else if (load <= config.adaptiveCompressionLowLoadThreshold() && step > 0) {
+            step--;
+        }
+        else {
+            return;
+        }
+
+        ResponseCompressionLevels newLevels = levelsForStep(step);
+        currentLevels = newLevels;
+        logger.info("Adaptive compression changed response compression levels. load={}, new_levels={}",
+                    load, newLevels);
+        notifyMetricsListener(newLevels);
+    }
+
+    protected @NotNull ResponseCompressionLevels levelsForStep(int step) {
+        int threshold = baseResponseSizeThresholdBytes;
+        if (step > levelSteps) {
+            long raised = ((long) Math.max(baseResponseSizeThresholdBytes, 1))
+                          * config.adaptiveCompressionThresholdMultiplier();
+            threshold = (int) Math.min(Integer.MAX_VALUE, raised);
+        }
+
+        return new ResponseCompressionLevels(
+            step,
+            Math.max(config.adaptiveCompressionMinGzipLevel(), config.gzipCompressionLevel() - step),
+            Math.max(0, config.brotliQuality() - step),
+            Math.max(1, config.zstdCompressionLevel() - step),
+            threshold
+        );
+    }
+
+    protected void notifyMetricsListener(@NotNull ResponseCompressionLevels levels) {
+        if (metricsListener == null
+            || !metricsListener.isInterestedIn(ServerMetricsEvent.RESPONSE_COMPRESSION_LEVELS_CHANGED)) {
+            return;
+        }
+
+        try {
+            metricsListener.onEvent(ServerMetricsEvent.RESPONSE_COMPRESSION_LEVELS_CHANGED, levels);
+        }
+        catch (Throwable t) {
+            logger.error("Metrics listener threw an exception while handling a compression levels change.", t);
+        }
+    }
+
+    /**
+     * @return The number of steps below the configured levels that adaptive compression can go.
+     */
+    public int getMaxStep() {
+        return maxStep;
+    }
+}
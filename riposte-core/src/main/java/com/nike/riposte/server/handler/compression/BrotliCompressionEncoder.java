@@ -0,0 +1,61 @@
+package com.nike.riposte.server.handler.compression;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link FullContentCompressionEncoder} for the {@code br} content encoding. Requires the optional {@code
+ * com.aayushatharva.brotli4j:brotli4j} library (plus the native artifact for the current platform) - always check
+ * {@link #isAvailable()} before creating an instance.
+ */
+@SuppressWarnings("WeakerAccess")
+public class BrotliCompressionEncoder extends FullContentCompressionEncoder {
+
+    public static final String CONTENT_ENCODING = "br";
+
+    protected final @NotNull Encoder.Parameters parameters;
+
+    /**
+     * @param quality The brotli quality level, from 0 (fastest) to 11 (smallest output).
+     */
+    public BrotliCompressionEncoder(int quality) {
+        if (quality < 0 || quality > 11) {
+            throw new IllegalArgumentException("brotli quality must be between 0 and 11 (inclusive). Received: "
+                                               + quality);
+        }
+
+        this.parameters = new Encoder.Parameters().setQuality(quality);
+    }
+
+    @Override
+    protected byte[] compress(@NotNull byte[] uncompressed) throws Exception {
+        return Encoder.compress(uncompressed, parameters);
+    }
+
+    /**
+     * @return true if the brotli library is on the classpath and its native library loaded successfully.
+     */
+    public static boolean isAvailable() {
+        return AvailabilityHolder.AVAILABLE;
+    }
+
+    // Keeps the brotli classes from being touched until someone actually asks whether brotli is available.
+    private static final class AvailabilityHolder {
+        private static final boolean AVAILABLE = detectAvailability();
+
+        private static boolean detectAvailability() {
+            try {
+                return Brotli4jLoader.isAvailable();
+            }
+            catch (Throwable t) {
+                Logger logger = LoggerFactory.getLogger(BrotliCompressionEncoder.class);
+                logger.debug("Brotli is not available - the br content encoding will not be used.", t);
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.nike.riposte.server.handler.compression;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+
+import io.netty.util.concurrent.EventExecutor;
+
+/**
+ * A load signal based on event loop lag. A tiny task is scheduled with a fixed delay on every monitored event loop,
+ * and each run records how late it started compared to when it was due. A busy event loop can't get to its scheduled
+ * tasks on time, so lag is a cheap and direct measure of how saturated the event loops are.
+ *
+ * <p>{@link #getAsDouble()} returns the worst lag seen on any monitored event loop since the previous call, as a
+ * fraction of the lag that is considered full load (capped at 1.0).
+ */
+@SuppressWarnings("WeakerAccess")
+public class EventLoopLagLoadSignal implements DoubleSupplier {
+
+    protected final long probeIntervalNanos;
+    protected final long lagNanosAtFullLoad;
+
+    protected final Set<EventExecutor> monitoredEventLoops = ConcurrentHashMap.newKeySet();
+    protected final AtomicLong maxLagNanosSinceLastSample = new AtomicLong();
+
+    /**
+     * @param probeIntervalMillis How often the lag probe runs on each event loop.
+     * @param lagMillisAtFullLoad The lag that corresponds to a load of 1.0.
+     */
+    public EventLoopLagLoadSignal(long probeIntervalMillis, long lagMillisAtFullLoad) {
+        if (probeIntervalMillis <= 0) {
+            throw new IllegalArgumentException("probeIntervalMillis must be greater than 0");
+        }
+
+        if (lagMillisAtFullLoad <= 0) {
+            throw new IllegalArgumentException("lagMillisAtFullLoad must be greater than 0");
+        }
+
+        this.probeIntervalNanos = TimeUnit.MILLISECONDS.toNanos(probeIntervalMillis);
+        this.lagNanosAtFullLoad = TimeUnit.MILLISECONDS.toNanos(lagMillisAtFullLoad);
+    }
+
+    /**
+     * Starts probing the given event loop if it isn't already being probed. Safe to call repeatedly - each event loop
+     * only ever gets one probe. The probe stops when the event loop shuts down.
+     */
+    public void monitor(EventExecutor eventLoop) {
+        if (!monitoredEventLoops.add(eventLoop)) {
+            return;
+        }
+
+        LagProbe probe = new LagProbe();
+        eventLoop.scheduleWithFixedDelay(probe, probeIntervalNanos, probeIntervalNanos, TimeUnit.NANOSECONDS);
+        eventLoop.terminationFuture().addListener(future -> monitoredEventLoops.remove(eventLoop));
+    }
+
+    protected void recordLag(long lagNanos) {
+        maxLagNanosSinceLastSample.accumulateAndGet(lagNanos, Math::max);
+    }
+
+    @Override
+    public double getAsDouble() {
+        long maxLagNanos = maxLagNanosSinceLastSample.getAndSet(0);
+        return Math.min(1.0, ((double) maxLagNanos) / lagNanosAtFullLoad);
+    }
+
+    private class LagProbe implements Runnable {
+        private long nextExpectedRunNanos = System.nanoTime() + probeIntervalNanos;
+
+        @Override
+        public void run() {
+            long now = System.nanoTime();
+            recordLag(Math.max(0, now - nextExpectedRunNanos));
+            // Fixed delay scheduling means the next run is due one interval after this one finishes.
+            nextExpectedRunNanos = System.nanoTime() + probeIntervalNanos;
+        }
+    }
+}
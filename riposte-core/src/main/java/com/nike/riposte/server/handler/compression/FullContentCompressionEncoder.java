@@ -0,0 +1,99 @@
+package com.nike.riposte.server.handler.compression;
+
+import org.jetbrains.annotations.NotNull;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+
+/**
+ * Base class for compression encoders that compress a complete payload in one shot rather than as a stream. Used by
+ * {@link com.nike.riposte.server.handler.SmartHttpContentCompressor} inside the {@link
+ * io.netty.channel.embedded.EmbeddedChannel} it hands to {@link io.netty.handler.codec.http.HttpContentEncoder}.
+ *
+ * <p>Every {@link ByteBuf} written to this handler is accumulated (without copying) and nothing is emitted until the
+ * channel is closed, at which point the accumulated bytes are compressed and written out as a single buffer. This is
+ * the same lifecycle {@link io.netty.handler.codec.compression.ZlibEncoder} uses to write its footer, and it works
+ * because {@link com.nike.riposte.server.handler.SmartHttpContentCompressor} only ever compresses full responses.
+ */
+@SuppressWarnings("WeakerAccess")
+public abstract class FullContentCompressionEncoder extends ChannelOutboundHandlerAdapter {
+
+    private CompositeByteBuf accumulated;
+    private boolean finished;
+
+    /**
+     * @return The compressed form of the given bytes.
+     */
+    protected abstract byte[] compress(@NotNull byte[] uncompressed) throws Exception;
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (!(msg instanceof ByteBuf)) {
+            ctx.write(msg, promise);
+            return;
+        }
+
+        ByteBuf buf = (ByteBuf) msg;
+        if (finished) {
+            buf.release();
+            promise.setFailure(new IllegalStateException("Encoder already finished"));
+            return;
+        }
+
+        if (accumulated == null) {
+            accumulated = ctx.alloc().compositeBuffer(Integer.MAX_VALUE);
+        }
+
+        accumulated.addComponent(true, buf);
+        promise.setSuccess();
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        try {
+            finishEncode(ctx);
+        }
+        finally {
+            ctx.close(promise);
+        }
+    }
+
+    protected void finishEncode(ChannelHandlerContext ctx) throws Exception {
+        if (finished) {
+            return;
+        }
+        finished = true;
+
+        byte[] uncompressed;
+        if (accumulated == null) {
+            uncompressed = new byte[0];
+        }
+        else {
+            try {
+                uncompressed = ByteBufUtil.getBytes(accumulated);
+            }
+            finally {
+                releaseAccumulated();
+            }
+        }
+
+        ctx.writeAndFlush(Unpooled.wrappedBuffer(compress(uncompressed)));
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        releaseAccumulated();
+    }
+
+    private void releaseAccumulated() {
+        if (accumulated != null) {
+            accumulated.release();
+            accumulated = null;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.nike.riposte.server.handler.compression;
+
+/**
+ * Immutable snapshot of the response compression settings in effect at a point in time. See {@link
+ * AdaptiveCompressionController}.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ResponseCompressionLevels {
+
+    /**
+     * How many steps below the configured levels these settings are. 0 means the configured levels are in use.
+     */
+    public final int step;
+    public final int gzipCompressionLevel;
+    public final int brotliQuality;
+    public final int zstdCompressionLevel;
+    public final int responseSizeThresholdBytes;
+
+    public ResponseCompressionLevels(int step,
+                                     int gzipCompressionLevel,
+                                     int brotliQuality,
+                                     int zstdCompressionLevel,
+                                     int responseSizeThresholdBytes) {
+        this.step = step;
+        this.gzipCompressionLevel = gzipCompressionLevel;
+        this.brotliQuality = brotliQuality;
+        this.zstdCompressionLevel = zstdCompressionLevel;
+        this.responseSizeThresholdBytes = responseSizeThresholdBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "ResponseCompressionLevels{step=" + step + ", gzipCompressionLevel=" + gzipCompressionLevel
+               + ", brotliQuality=" + brotliQuality + ", zstdCompressionLevel=" + zstdCompressionLevel
+               + ", responseSizeThresholdBytes=" + responseSizeThresholdBytes + "}";
+    }
+}
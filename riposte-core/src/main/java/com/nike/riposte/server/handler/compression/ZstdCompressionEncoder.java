@@ -0,0 +1,61 @@
+package com.nike.riposte.server.handler.compression;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.util.Native;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link FullContentCompressionEncoder} for the {@code zstd} content encoding. Requires the optional {@code
+ * com.github.luben:zstd-jni} library - always check {@link #isAvailable()} before creating an instance.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ZstdCompressionEncoder extends FullContentCompressionEncoder {
+
+    public static final String CONTENT_ENCODING = "zstd";
+
+    protected final int compressionLevel;
+
+    /**
+     * @param compressionLevel The zstd compression level, from 1 (fastest) to 22 (smallest output).
+     */
+    public ZstdCompressionEncoder(int compressionLevel) {
+        if (compressionLevel < 1 || compressionLevel > 22) {
+            throw new IllegalArgumentException("zstd compression level must be between 1 and 22 (inclusive). "
+                                               + "Received: " + compressionLevel);
+        }
+
+        this.compressionLevel = compressionLevel;
+    }
+
+    @Override
+    protected byte[] compress(@NotNull byte[] uncompressed) throws Exception {
+        return Zstd.compress(uncompressed, compressionLevel);
+    }
+
+    /**
+     * @return true if the zstd library is on the classpath and its native library loaded successfully.
+     */
+    public static boolean isAvailable() {
+        return AvailabilityHolder.AVAILABLE;
+    }
+
+    // Keeps the zstd classes from being touched until someone actually asks whether zstd is available.
+    private static final class AvailabilityHolder {
+        private static final boolean AVAILABLE = detectAvailability();
+
+        private static boolean detectAvailability() {
+            try {
+                Native.load();
+                return Native.isLoaded();
+            }
+            catch (Throwable t) {
+                Logger logger = LoggerFactory.getLogger(ZstdCompressionEncoder.class);
+                logger.debug("Zstd is not available - the zstd content encoding will not be used.", t);
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.nike.riposte.server.handler.concurrencylimit;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.config.ServerConfig.ConcurrencyLimitConfig;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the number of requests that can be in flight at once, adjusting the limit based on measured request latency.
+ * See {@link com.nike.riposte.server.config.ServerConfig#concurrencyLimitConfig()} for how this is used by the server.
+ *
+ * <p>Callers {@link #tryAcquire()} a {@link Permit} before doing the work, and {@link Permit#release(boolean)} it
+ * when the work is done. The time between the two is the latency sample. Samples are collected into windows of at
+ * least {@link ConcurrencyLimitConfig#sampleWindowMillis()} and {@link ConcurrencyLimitConfig#minSamplesPerWindow()}
+ * samples, and at the end of each window the limit is recalculated (by whichever thread happens to close the window,
+ * so there is no extra thread involved):
+ * <ul>
+ *     <li>
+ *         The window's average latency is folded into a baseline latency that is averaged over {@link
+ *         ConcurrencyLimitConfig#baselineRttWindowSize()} windows. If the baseline ends up more than twice the current
+ *         latency (i.e. load dropped off) it is pulled down faster so it doesn't go stale.
+ *     </li>
+ *     <li>
+ *         If the window never had more than half the limit in flight then the limit isn't what's holding the server
+ *         back, and it is left alone - otherwise it would grow without bound while traffic is light.
+ *     </li>
+ *     <li>
+ *         Otherwise the gradient is {@code rttTolerance * baseline / current}, clamped to [0.5, 1.0]. The new limit
+ *         is {@code limit * gradient + sqrt(limit)}, so it grows slowly while latency is healthy and shrinks quickly
+ *         (by up to half per window) when latency climbs. It is smoothed by {@link ConcurrencyLimitConfig#smoothing()}
+ *         and kept between {@link ConcurrencyLimitConfig#minLimit()} and {@link ConcurrencyLimitConfig#maxLimit()}.
+ *     </li>
+ * </ul>
+ * Every limit change (and the initial limit) is reported to the {@link MetricsListener} (if any) as a {@link
+ * ServerMetricsEvent#CONCURRENCY_LIMIT_CHANGED} event, and every rejection as a {@link
+ * ServerMetricsEvent#CONCURRENCY_LIMIT_REQUEST_REJECTED} event. The value for both is this limiter.
+ */
+@SuppressWarnings("WeakerAccess")
+public class AdaptiveConcurrencyLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    protected final @NotNull String name;
+    protected final @NotNull ConcurrencyLimitConfig config;
+    protected final @Nullable MetricsListener metricsListener;
+    protected final @NotNull LongSupplier nanoTimeSupplier;
+    protected final long sampleWindowNanos;
+
+    protected final AtomicInteger inFlight = new AtomicInteger();
+    protected final AtomicLong rejectedCount = new AtomicLong();
+    protected volatile int limit;
+
+    // Current sample window.
+    protected final AtomicLong windowStartNanos;
+    protected final LongAdder windowRttSumNanos = new LongAdder();
+    protected final LongAdder windowSampleCount = new LongAdder();
+    protected final AtomicInteger windowMaxInFlight = new AtomicInteger();
+
+    // Only touched while holding the lock in updateLimit().
+    protected double estimatedLimit;
+    protected double baselineRttNanos;
+    protected long numWindows;
+
+    public AdaptiveConcurrencyLimiter(@NotNull String name,
+                                      @NotNull ConcurrencyLimitConfig config,
+                                      @Nullable MetricsListener metricsListener) {
+        this(name, config, metricsListener, System::nanoTime);
+    }
+
+    protected AdaptiveConcurrencyLimiter(@NotNull String name,
+                                         @NotNull ConcurrencyLimitConfig config,
+                                         @Nullable MetricsListener metricsListener,
+                                         @NotNull LongSupplier nanoTimeSupplier) {
+        //noinspection ConstantConditions
+        if (name == null) {
+            throw new IllegalArgumentException("name cannot be null");
+        }
+
+        //noinspection ConstantConditions
+        if (config == null) {
+            throw new IllegalArgumentException("config cannot be null");
+        }
+
+        if (config.minLimit() < 1) {
+            throw new IllegalArgumentException("minLimit must be at least 1");
+        }
+
+        if (config.maxLimit() < config.minLimit()) {
+            throw new IllegalArgumentException("maxLimit cannot be less than minLimit");
+        }
+
+        if (config.initialLimit() < config.minLimit() || config.initialLimit() > config.maxLimit()) {
+            throw new IllegalArgumentException("initialLimit must be between minLimit and maxLimit");
+        }
+
+        if (config.rttTolerance() < 1.0) {
+            throw new IllegalArgumentException("rttTolerance must be at least 1.0");
+        }
+
+        if (config.smoothing() <= 0 || config.smoothing() > 1.0) {
+            throw new IllegalArgumentException("smoothing must be greater than 0.0 and at most 1.0");
+        }
+
+        if (config.baselineRttWindowSize() < 1) {
+            throw new IllegalArgumentException("baselineRttWindowSize must be at least 1");
+        }
+
+        if (config.sampleWindowMillis() <= 0) {
+            throw new IllegalArgumentException("sampleWindowMillis must be greater than 0");
+        }
+
+        if (config.minSamplesPerWindow() < 1) {
+            throw new IllegalArgumentException("minSamplesPerWindow must be at least 1");
+        }
+
+        this.name = name;
+        this.config = config;
+        this.metricsListener = metricsListener;
+        this.nanoTimeSupplier = nanoTimeSupplier;
+        this.sampleWindowNanos = TimeUnit.MILLISECONDS.toNanos(config.sampleWindowMillis());
+        this.windowStartNanos = new AtomicLong(nanoTimeSupplier.getAsLong());
+        this.limit = config.initialLimit();
+        this.estimatedLimit = config.initialLimit();
+        notifyMetricsListener(ServerMetricsEvent.CONCURRENCY_LIMIT_CHANGED);
+    }
+
+    /**
+     * @return A {@link Permit} that must be {@link Permit#release(boolean)}d when the work is done, or null if the
+     * limit has been reached and the work should be rejected.
+     */
+    public @Nullable Permit tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejectedCount.incrementAndGet();
+                notifyMetricsListener(ServerMetricsEvent.CONCURRENCY_LIMIT_REQUEST_REJECTED);
+                return null;
+            }
+
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(nanoTimeSupplier.getAsLong(), current + 1);
+            }
+        }
+    }
+
+    protected void onPermitReleased(@NotNull Permit permit, boolean recordSample) {
+        inFlight.decrementAndGet();
+        if (recordSample) {
+            recordSample(nanoTimeSupplier.getAsLong() - permit.startTimeNanos, permit.inFlightAtStart);
+        }
+    }
+
+    protected void recordSample(long rttNanos, int inFlightAtStart) {
+        windowRttSumNanos.add(rttNanos);
+        windowSampleCount.increment();
+        windowMaxInFlight.accumulateAndGet(inFlightAtStart, Math::max);
+
+        long now = nanoTimeSupplier.getAsLong();
+        long windowStart = windowStartNanos.get();
+        if (now - windowStart >= sampleWindowNanos
+            && windowSampleCount.sum() >= config.minSamplesPerWindow()
+            && windowStartNanos.compareAndSet(windowStart, now)
+        ) {
+            // We won the race to close this window. Samples recorded concurrently with the reset may land in either
+            //      window, which is fine for an average.
+            long sampleCount = windowSampleCount.sumThenReset();
+            long rttSumNanos = windowRttSumNanos.sumThenReset();
+            int maxInFlight = windowMaxInFlight.getAndSet(0);
+            if (sampleCount > 0) {
+                updateLimit((double) rttSumNanos / sampleCount, maxInFlight);
+            }
+        }
+    }
+
+    protected synchronized void updateLimit(double windowRttNanos, int maxInFlight) {
+        if (windowRttNanos <= 0) {
+            return;
+        }
+
+        // Average the baseline over the first baselineRttWindowSize windows, then keep it as a moving average.
+        numWindows++;
+        double baselineFactor = 1.0 / Math.min(numWindows, config.baselineRttWindowSize());
+        baselineRttNanos = baselineRttNanos * (1 - baselineFactor) + windowRttNanos * baselineFactor;
+
+        // If latency has dropped well below the baseline then the baseline is stale - pull it down faster.
+        if (baselineRttNanos / windowRttNanos > 2) {
+            baselineRttNanos *= 0.95;
+        }
+
+        // The limit isn't being hit, so we learn nothing about it from this window.
+        if (maxInFlight < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, config.rttTolerance() * baselineRttNanos / windowRttNanos));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - config.smoothing()) + newLimit * config.smoothing();
+        newLimit = Math.max(config.minLimit(), Math.min(config.maxLimit(), newLimit));
+        estimatedLimit = newLimit;
+
+        int newIntLimit = (int) newLimit;
+        if (newIntLimit != limit) {
+            int oldLimit = limit;
+            limit = newIntLimit;
+            if (logger.isDebugEnabled()) {
+                logger.debug(
+                    "Concurrency limit changed. limiter_name={}, old_limit={}, new_limit={}, window_rtt_millis={}, "
+                    + "baseline_rtt_millis={}",
+                    name, oldLimit, newIntLimit, windowRttNanos / 1_000_000, baselineRttNanos / 1_000_000
+                );
+            }
+            notifyMetricsListener(ServerMetricsEvent.CONCURRENCY_LIMIT_CHANGED);
+        }
+    }
+
+    protected void notifyMetricsListener(@NotNull ServerMetricsEvent event) {
+        if (metricsListener == null || !metricsListener.isInterestedIn(event)) {
+            return;
+        }
+
+        try {
+            metricsListener.onEvent(event, this);
+        }
+        catch (Throwable t) {
+            logger.error("Metrics listener threw an exception while handling a concurrency limiter event.", t);
+        }
+    }
+
+    /**
+     * @return The name of this limiter, used in metrics and error logging.
+     */
+    public @NotNull String getName() {
+        return name;
+    }
+
+    /**
+     * @return The current concurrency limit.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return The number of permits currently acquired and not yet released.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return The total number of times {@link #tryAcquire()} has rejected a caller.
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveConcurrencyLimiter{name=" + name + ", limit=" + limit + ", inFlight=" + inFlight.get()
+               + ", rejectedCount=" + rejectedCount.get() + "}";
+    }
+
+    /**
+     * A slot acquired via {@link #tryAcquire()}. Releasing is idempotent, so it's safe for multiple cleanup paths to
+     * release the same permit.
+     */
+    public class Permit {
+
+        protected final long startTimeNanos;
+        protected final int inFlightAtStart;
+        protected final AtomicBoolean released = new AtomicBoolean(false);
+
+        protected Permit(long startTimeNanos, int inFlightAtStart) {
+            this.startTimeNanos = startTimeNanos;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * Gives the slot back to the limiter. Does nothing if this permit was already released.
+         *
+         * @param recordSample Pass in true if the work completed normally and its latency should be used to adjust
+         * the limit, false if the latency isn't representative (e.g. the caller went away).
+         */
+        public void release(boolean recordSample) {
+            if (released.compareAndSet(false, true)) {
+                onPermitReleased(this, recordSample);
+            }
+        }
+
+        /**
+         * @return The limiter this permit came from.
+         */
+        public @NotNull AdaptiveConcurrencyLimiter getLimiter() {
+            return AdaptiveConcurrencyLimiter.this;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.nike.riposte.server.handler.concurrencylimit;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.config.ServerConfig.ConcurrencyLimitConfig;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.StreamingEndpoint;
+import com.nike.riposte.server.http.websocket.WebSocketEndpoint;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds one {@link AdaptiveConcurrencyLimiter} per endpoint, shared by every channel in the server. Each endpoint's
+ * limiter uses the endpoint's {@link Endpoint#concurrencyLimitConfigOverride()} if it has one, otherwise the
+ * app-wide {@link com.nike.riposte.server.config.ServerConfig#concurrencyLimitConfig()}. Limiters are created the
+ * first time an endpoint is asked for, and are named after the endpoint's class.
+ * <p/>
+ * {@link StreamingEndpoint}s (including server-sent event endpoints) and {@link WebSocketEndpoint}s are not limited by
+ * the app-wide config. A permit is held until the request finishes, so a long-lived stream would tie up a permit for
+ * its whole life and then feed its duration in as a latency sample, dragging the limit down for everything else.
+ * They're only limited if they return a non-null {@link Endpoint#concurrencyLimitConfigOverride()}.
+ */
+@SuppressWarnings("WeakerAccess")
+public class EndpointConcurrencyLimiters {
+
+    protected final @Nullable ConcurrencyLimitConfig defaultConfig;
+    protected final @Nullable MetricsListener metricsListener;
+    protected final ConcurrentMap<Endpoint<?>, Optional<AdaptiveConcurrencyLimiter>> limiters =
+        new ConcurrentHashMap<>();
+
+    public EndpointConcurrencyLimiters(@Nullable ConcurrencyLimitConfig defaultConfig,
+                                       @Nullable MetricsListener metricsListener) {
+        this.defaultConfig = defaultConfig;
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * @return The limiter for the given endpoint, or null if concurrency limiting is disabled for it.
+     */
+    public @Nullable AdaptiveConcurrencyLimiter limiterFor(@NotNull Endpoint<?> endpoint) {
+        // Try a plain get() first - on Java 8 computeIfAbsent() locks even when the key is already present.
+        Optional<AdaptiveConcurrencyLimiter> limiter = limiters.get(endpoint);
+        if (limiter == null) {
+            limiter = limiters.computeIfAbsent(endpoint, this::createLimiter);
+        }
+
+        return limiter.orElse(null);
+    }
+
+    /**
+     * @return true if at least one of the given endpoints would get a limiter, i.e. whether it's worth adding
+     * concurrency limiting to the pipeline at all.
+     */
+    public boolean isEnabledForAny(@NotNull Collection<Endpoint<?>> endpoints) {
+        for (Endpoint<?> endpoint : endpoints) {
+            ConcurrencyLimitConfig config = configFor(endpoint);
+            if (config != null && config.isEnabled()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    protected @Nullable ConcurrencyLimitConfig configFor(@NotNull Endpoint<?> endpoint) {
+        ConcurrencyLimitConfig override = endpoint.concurrencyLimitConfigOverride();
+        if (override != null) {
+            return override;
+        }
+
+        return isLongLivedEndpoint(endpoint) ? null : defaultConfig;
+    }
+
+    protected boolean isLongLivedEndpoint(@NotNull Endpoint<?> endpoint) {
+        return (endpoint instanceof StreamingEndpoint) || (endpoint instanceof WebSocketEndpoint);
+    }
+
+    protected @NotNull Optional<AdaptiveConcurrencyLimiter> createLimiter(@NotNull Endpoint<?> endpoint) {
+        ConcurrencyLimitConfig config = configFor(endpoint);
+        if (config == null || !config.isEnabled()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(
+            new AdaptiveConcurrencyLimiter(endpoint.getClass().getName(), config, metricsListener)
+        );
+    }
+}
@@ -0,0 +1,234 @@
+package com.nike.riposte.server.handler.loadshedding;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.config.ServerConfig.LoadSheddingConfig;
+import com.nike.riposte.server.handler.compression.EventLoopLagLoadSignal;
+import com.nike.riposte.server.http.RequestPriority;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+import com.nike.riposte.util.InstrumentedThreadPoolExecutor;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+import io.netty.util.concurrent.EventExecutor;
+
+/**
+ * Decides whether requests should be shed based on their {@link RequestPriority} and the current server load. Shared
+ * by every {@link com.nike.riposte.server.handler.LoadSheddingHandler} in the server when {@link
+ * com.nike.riposte.server.config.ServerConfig#loadSheddingConfig()} is non-null.
+ *
+ * <p>The load signal is sampled at most once per {@link LoadSheddingConfig#loadSampleIntervalMillis()}, lazily on
+ * whichever thread asks for {@link #currentLoad()} after the interval has elapsed, so there is no extra thread
+ * involved and the per-request cost is a couple of volatile reads. If {@link LoadSheddingConfig#loadSignal()} is null
+ * then the load is the highest of:
+ * <ul>
+ *     <li>event loop lag (see {@link EventLoopLagLoadSignal})</li>
+ *     <li>how full the long running task executor's queue is, if it's an {@link InstrumentedThreadPoolExecutor}</li>
+ *     <li>
+ *         {@link #getInFlight()} as a fraction of {@link LoadSheddingConfig#maxInFlightRequestsAtFullLoad()}, if
+ *         that is greater than 0
+ *     </li>
+ * </ul>
+ * Every shed request is counted per priority and reported to the {@link MetricsListener} (if any) as a {@link
+ * ServerMetricsEvent#REQUEST_SHED} event.
+ */
+@SuppressWarnings("WeakerAccess")
+public class PriorityLoadShedder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriorityLoadShedder.class);
+
+    protected final @NotNull LoadSheddingConfig config;
+    protected final @NotNull DoubleSupplier loadSignal;
+    protected final @Nullable EventLoopLagLoadSignal eventLoopLagLoadSignal;
+    protected final @Nullable MetricsListener metricsListener;
+    protected final @NotNull LongSupplier nanoTime;
+
+    protected final double[] thresholdsByPriority;
+    protected final long sampleIntervalNanos;
+    protected final AtomicLong lastSampleTimeNanos;
+    protected final AtomicInteger inFlight = new AtomicInteger();
+    protected final AtomicLongArray shedCountsByPriority = new AtomicLongArray(RequestPriority.values().length);
+
+    protected volatile double currentLoad = 0;
+
+    public PriorityLoadShedder(@NotNull LoadSheddingConfig config,
+                               @Nullable Executor longRunningTaskExecutor,
+                               @Nullable MetricsListener metricsListener) {
+        this(config, longRunningTaskExecutor, metricsListener, System::nanoTime);
+    }
+
+    protected PriorityLoadShedder(@NotNull LoadSheddingConfig config,
+                                  @Nullable Executor longRunningTaskExecutor,
+                                  @Nullable MetricsListener metricsListener,
+                                  @NotNull LongSupplier nanoTime) {
+        //noinspection ConstantConditions
+        if (config == null) {
+            throw new IllegalArgumentException("config cannot be null");
+        }
+
+        if (config.loadSampleIntervalMillis() <= 0) {
+            throw new IllegalArgumentException("loadSampleIntervalMillis must be greater than 0");
+        }
+
+        this.config = config;
+        this.metricsListener = metricsListener;
+        this.nanoTime = nanoTime;
+        this.sampleIntervalNanos = TimeUnit.MILLISECONDS.toNanos(config.loadSampleIntervalMillis());
+        this.lastSampleTimeNanos = new AtomicLong(nanoTime.getAsLong());
+
+        // Thresholds are looked up for every request, so don't make the config calculate them every time.
+        RequestPriority[] priorities = RequestPriority.values();
+        this.thresholdsByPriority = new double[priorities.length];
+        for (RequestPriority priority : priorities) {
+            thresholdsByPriority[priority.ordinal()] = config.loadSheddingThreshold(priority);
+        }
+
+        DoubleSupplier customLoadSignal = config.loadSignal();
+        if (customLoadSignal == null) {
+            // Probe often enough that a sample interval sees several probes from every event loop.
+            long probeIntervalMillis = Math.max(1, config.loadSampleIntervalMillis() / 10);
+            this.eventLoopLagLoadSignal = new EventLoopLagLoadSignal(
+                probeIntervalMillis, config.eventLoopLagMillisAtFullLoad()
+            );
+            this.loadSignal = defaultLoadSignal(eventLoopLagLoadSignal, longRunningTaskExecutor, config);
+        }
+        else {
+            this.eventLoopLagLoadSignal = null;
+            this.loadSignal = customLoadSignal;
+        }
+    }
+
+    protected @NotNull DoubleSupplier defaultLoadSignal(@NotNull EventLoopLagLoadSignal eventLoopLagSignal,
+                                                        @Nullable Executor longRunningTaskExecutor,
+                                                        @NotNull LoadSheddingConfig config) {
+        List<DoubleSupplier> signals = new ArrayList<>();
+        signals.add(eventLoopLagSignal);
+
+        if (longRunningTaskExecutor instanceof InstrumentedThreadPoolExecutor) {
+            InstrumentedThreadPoolExecutor executor = (InstrumentedThreadPoolExecutor) longRunningTaskExecutor;
+            int maxQueueSize = executor.getMaxQueueSize();
+            if (maxQueueSize > 0) {
+                signals.add(() -> ((double) executor.getQueue().size()) / maxQueueSize);
+            }
+        }
+
+        int maxInFlight = config.maxInFlightRequestsAtFullLoad();
+        if (maxInFlight > 0) {
+            signals.add(() -> ((double) inFlight.get()) / maxInFlight);
+        }
+
+        DoubleSupplier[] signalsArray = signals.toArray(new DoubleSupplier[0]);
+        return () -> {
+            double max = 0;
+            for (DoubleSupplier signal : signalsArray) {
+                max = Math.max(max, signal.getAsDouble());
+            }
+            return Math.min(1.0, max);
+        };
+    }
+
+    /**
+     * Registers a worker event loop with the default event loop lag signal. Does nothing if a custom load signal was
+     * configured. Safe to call for every new channel - each event loop is only monitored once.
+     */
+    public void monitorEventLoop(@NotNull EventExecutor eventLoop) {
+        if (eventLoopLagLoadSignal != null) {
+            eventLoopLagLoadSignal.monitor(eventLoop);
+        }
+    }
+
+    /**
+     * @return The current server load, from 0.0 (idle) to 1.0 (fully loaded). This is cheap - the load signal is
+     * only sampled (by one caller) once per sample interval.
+     */
+    public double currentLoad() {
+        long now = nanoTime.getAsLong();
+        long lastSample = lastSampleTimeNanos.get();
+        if (now - lastSample >= sampleIntervalNanos && lastSampleTimeNanos.compareAndSet(lastSample, now)) {
+            sampleLoad();
+        }
+
+        return currentLoad;
+    }
+
+    protected void sampleLoad() {
+        try {
+            currentLoad = loadSignal.getAsDouble();
+        }
+        catch (Throwable t) {
+            logger.warn("Load shedding load signal threw an exception. The previous load value will be used.", t);
+        }
+    }
+
+    /**
+     * @return The load at or above which requests with the given priority are shed.
+     */
+    public double thresholdFor(@NotNull RequestPriority priority) {
+        return thresholdsByPriority[priority.ordinal()];
+    }
+
+    /**
+     * Counts a request with the given priority as shed and reports it to the metrics listener.
+     */
+    public void recordShed(@NotNull RequestPriority priority) {
+        shedCountsByPriority.incrementAndGet(priority.ordinal());
+
+        if (metricsListener == null || !metricsListener.isInterestedIn(ServerMetricsEvent.REQUEST_SHED)) {
+            return;
+        }
+
+        try {
+            metricsListener.onEvent(ServerMetricsEvent.REQUEST_SHED, priority);
+        }
+        catch (Throwable t) {
+            logger.error("Metrics listener threw an exception while handling a shed request.", t);
+        }
+    }
+
+    /**
+     * Call when a request has been admitted. Every call must be matched by a call to {@link #onRequestFinished()}.
+     */
+    public void onRequestStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Call when a request that was admitted via {@link #onRequestStarted()} is done.
+     */
+    public void onRequestFinished() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * @return The number of admitted requests that are still in flight across the whole server.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return The number of requests with the given priority that have been shed since the server started.
+     */
+    public long getShedCount(@NotNull RequestPriority priority) {
+        return shedCountsByPriority.get(priority.ordinal());
+    }
+
+    /**
+     * @return The {@link LoadSheddingConfig} this load shedder was created with.
+     */
+    public @NotNull LoadSheddingConfig getConfig() {
+        return config;
+    }
+}
@@ -0,0 +1,71 @@
+package com.nike.riposte.server.http;
+
+import com.nike.riposte.util.AsyncNettyHelper;
+import com.nike.riposte.util.BlockingTaskExecutors;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import io.netty.channel.ChannelHandlerContext;
+
+/**
+ * Extension of {@link StandardEndpoint} for endpoints that need to do blocking work (JDBC calls, legacy blocking
+ * SDKs, etc) and would rather write straightforward synchronous code than deal with {@link CompletableFuture}s.
+ * Implement {@link #executeBlocking(RequestInfo, ChannelHandlerContext)} and return the response directly - it is
+ * called off the Netty worker thread on the {@link #blockingTaskExecutor()}, with the request's distributed tracing
+ * and MDC info attached to the thread the same way {@link AsyncNettyHelper#supplyAsync(java.util.function.Supplier,
+ * Executor, ChannelHandlerContext)} does.
+ * <p/>
+ * By default all blocking endpoints share {@link BlockingTaskExecutors#defaultBlockingTaskExecutor()}, which runs each
+ * request on its own virtual thread when the runtime supports virtual threads (Java 21+), and falls back to a bounded
+ * platform thread pool otherwise. Override {@link #blockingTaskExecutor()} if you want a dedicated executor for an
+ * endpoint. The normal nonblocking endpoint timeout rules still apply - see {@link
+ * #completableFutureTimeoutOverrideMillis()}.
+ */
+@SuppressWarnings("WeakerAccess")
+public abstract class BlockingEndpoint<I, O> extends StandardEndpoint<I, O> {
+
+    /**
+     * Performs the blocking work for this endpoint and returns the response. This is called on a thread from {@link
+     * #blockingTaskExecutor()} (never on the Netty worker thread), so it is safe to block here. Any exception thrown
+     * will be handled by the application's error handler the same way as exceptions from any other endpoint.
+     *
+     * @param request The incoming request.
+     * @param ctx The {@link ChannelHandlerContext} for the request.
+     * @return The response to send to the caller.
+     */
+    public abstract @NotNull ResponseInfo<O> executeBlocking(
+        @NotNull RequestInfo<I> request,
+        @NotNull ChannelHandlerContext ctx
+    ) throws Exception;
+
+    /**
+     * @return The {@link Executor} that {@link #executeBlocking(RequestInfo, ChannelHandlerContext)} will be called on.
+     * Defaults to {@link BlockingTaskExecutors#defaultBlockingTaskExecutor()}.
+     */
+    protected @NotNull Executor blockingTaskExecutor() {
+        return BlockingTaskExecutors.defaultBlockingTaskExecutor();
+    }
+
+    @Override
+    public final @NotNull CompletableFuture<ResponseInfo<O>> execute(
+        @NotNull RequestInfo<I> request,
+        @NotNull Executor longRunningTaskExecutor,
+        @NotNull ChannelHandlerContext ctx
+    ) {
+        return AsyncNettyHelper.supplyAsync(() -> {
+            try {
+                return executeBlocking(request, ctx);
+            }
+            catch (RuntimeException ex) {
+                throw ex;
+            }
+            catch (Exception ex) {
+                throw new CompletionException(ex);
+            }
+        }, blockingTaskExecutor(), ctx);
+    }
+}
@@ -0,0 +1,382 @@
+package com.nike.riposte.server.http;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.channelpipeline.message.LastOutboundMessageSendLastContentChunk;
+import com.nike.riposte.server.channelpipeline.message.OutboundMessageSendContentChunk;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.EventExecutor;
+
+import static com.nike.riposte.util.AsyncNettyHelper.runnableWithTracingAndMdc;
+
+/**
+ * The sink a {@link StreamingEndpoint} uses to stream response payload chunks back to the caller. Each call to one of
+ * the {@code writeChunk(...)} methods is turned into an {@link OutboundMessageSendContentChunk} and fired through the
+ * normal outbound portion of the Riposte pipeline (response filters, {@link ResponseSender}, access logging,
+ * distributed tracing, etc), and {@link #finish()} sends the final {@link LastOutboundMessageSendLastContentChunk}.
+ * All the methods on this class are thread safe - the actual pipeline work is always performed on the channel's
+ * event loop.
+ *
+ * <p>Producers are expected to respect backpressure. Netty marks a channel as unwritable when the amount of data
+ * sitting in its outbound buffer crosses the channel's high {@link WriteBufferWaterMark}, and marks it writable again
+ * once it drains below the low water mark. Producers should check {@link #isWritable()} before writing and, if it
+ * returns false, suspend production until the future returned by {@link #whenWritable()} completes. For example:
+ * <pre>
+ *      void produce(ChunkedResponseWriter writer) {
+ *          while (writer.isWritable() &amp;&amp; hasMoreData()) {
+ *              writer.writeChunk(nextData());
+ *          }
+ *
+ *          if (!hasMoreData()) {
+ *              writer.finish();
+ *          }
+ *          else {
+ *              writer.whenWritable().thenRun(() -&gt; produce(writer));
+ *          }
+ *      }
+ * </pre>
+ * Writes that ignore {@link #isWritable()} will still be sent, but they will pile up in memory if the caller is
+ * reading slower than you are producing.
+ *
+ * <p>If the caller disconnects (or the response is aborted for any other reason) then {@link #completionFuture()} is
+ * completed exceptionally, any pending {@link #whenWritable()} futures are failed with the same error, and further
+ * writes are silently dropped (and their {@link ByteBuf}s released). Producers should use {@link
+ * #completionFuture()} or {@link #isDone()} to stop producing when that happens.
+ *
+ * <p>Content written before the endpoint's {@link com.nike.riposte.server.http.impl.ChunkedResponseInfo} has been
+ * sent to the caller is queued and sent immediately after the response headers.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ChunkedResponseWriter {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    protected final @NotNull ChannelHandlerContext ctx;
+    protected final @NotNull CompletableFuture<Void> completionFuture = new CompletableFuture<>();
+    protected final @NotNull AtomicBoolean finishRequested = new AtomicBoolean(false);
+    protected final @NotNull Queue<CompletableFuture<Void>> writabilityWaiters = new ConcurrentLinkedQueue<>();
+    protected final @NotNull ChannelFutureListener channelCloseListener;
+
+    // These are only ever touched on the event loop.
+    protected final @NotNull Queue<HttpContent> chunksWaitingForResponseHeaders = new ArrayDeque<>();
+    protected boolean finishWaitingForResponseHeaders = false;
+    protected volatile boolean responseHeadersSent = false;
+
+    /**
+     * @param ctx The {@link ChannelHandlerContext} of the endpoint execution handler - content chunks will be fired
+     * down the pipeline from this context.
+     */
+    public ChunkedResponseWriter(@NotNull ChannelHandlerContext ctx) {
+        //noinspection ConstantConditions
+        if (ctx == null) {
+            throw new IllegalArgumentException("ctx cannot be null");
+        }
+
+        this.ctx = ctx;
+        this.channelCloseListener = future -> cancel(
+            new CancellationException("The caller's channel was closed before the chunked response was finished.")
+        );
+
+        // Make sure we are notified if the caller disconnects so the producer can stop. We remove this listener when
+        //      the response completes so that long-lived keep-alive connections don't accumulate listeners.
+        ctx.channel().closeFuture().addListener(channelCloseListener);
+    }
+
+    /**
+     * Sends the given content to the caller as the next chunk of the response. Ownership of the given {@link ByteBuf}
+     * is transferred to this writer - it will be released after it is written, or immediately if this writer has
+     * already been {@link #isDone() completed}.
+     *
+     * @throws IllegalStateException if {@link #finish()} has already been called.
+     */
+    public void writeChunk(@NotNull ByteBuf content) {
+        if (finishRequested.get()) {
+            ReferenceCountUtil.release(content);
+            throw new IllegalStateException("finish() has already been called on this ChunkedResponseWriter - no "
+                                            + "further chunks can be written.");
+        }
+
+        if (completionFuture.isDone()) {
+            // Cancelled (most likely the caller disconnected). Drop the chunk.
+            ReferenceCountUtil.release(content);
+            return;
+        }
+
+        HttpContent chunk = new DefaultHttpContent(content);
+        runOnEventLoop(() -> doWriteChunk(chunk));
+    }
+
+    /**
+     * Convenience method that wraps the given bytes in a {@link ByteBuf} (without copying) and calls {@link
+     * #writeChunk(ByteBuf)}. Don't modify the array after passing it to this method.
+     */
+    public void writeChunk(@NotNull byte[] content) {
+        writeChunk(Unpooled.wrappedBuffer(content));
+    }
+
+    /**
+     * Convenience method that encodes the given text with the given charset and calls {@link #writeChunk(ByteBuf)}.
+     */
+    public void writeChunk(@NotNull CharSequence content, @NotNull Charset charset) {
+        writeChunk(Unpooled.copiedBuffer(content, charset));
+    }
+
+    /**
+     * Sends the final (empty) chunk of the response, which completes the request/response cycle. Calling this more
+     * than once has no effect. {@link #completionFuture()} will complete once the final chunk has been written to the
+     * socket.
+     */
+    public void finish() {
+        if (!finishRequested.compareAndSet(false, true)) {
+            return;
+        }
+
+        runOnEventLoop(this::doFinish);
+    }
+
+    /**
+     * Aborts the response due to the given error. If the response headers have not been sent yet then the error is
+     * fired down the pipeline and handled the same as any other endpoint error (i.e. an error response will be
+     * returned to the caller). If the response headers have already been sent then there's no way to tell the caller
+     * something went wrong, so the connection will be closed.
+     */
+    public void abort(@NotNull Throwable error) {
+        finishRequested.set(true);
+        runOnEventLoop(() -> {
+            if (completionFuture.isDone()) {
+                return;
+            }
+
+            boolean headersAlreadySent = responseHeadersSent;
+            completeExceptionally(error);
+
+            if (headersAlreadySent) {
+                runnableWithTracingAndMdc(
+                    () -> logger.error(
+                        "A ChunkedResponseWriter was aborted after the response headers were sent. There is no way to "
+                        + "send an error response at this point, so the connection will be closed.", error
+                    ),
+                    ctx
+                ).run();
+                ctx.channel().close();
+            }
+            else {
+                ctx.fireExceptionCaught(error);
+            }
+        });
+    }
+
+    /**
+     * @return true if the response is still in progress and the channel can currently accept more data without
+     * exceeding its high {@link WriteBufferWaterMark}, false otherwise. When this returns false producers should wait
+     * for {@link #whenWritable()} before writing more.
+     */
+    public boolean isWritable() {
+        Channel channel = ctx.channel();
+        return !completionFuture.isDone() && channel.isActive() && channel.isWritable();
+    }
+
+    /**
+     * @return A future that completes when the channel becomes writable (immediately if it already is), or fails with
+     * the cancellation cause if the response is aborted or the caller disconnects first. Dependent actions on the
+     * returned future may be executed on the channel's event loop, so they must not block.
+     */
+    public @NotNull CompletableFuture<Void> whenWritable() {
+        if (completionFuture.isDone()) {
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            completionFuture.whenComplete((ignored, error) -> result.completeExceptionally(
+                (error == null)
+                ? new IllegalStateException("This ChunkedResponseWriter has already finished.")
+                : error
+            ));
+            return result;
+        }
+
+        if (isWritable()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        writabilityWaiters.add(waiter);
+        // Writability may have changed between the isWritable() check and adding the waiter, so recheck on the event
+        //      loop to make sure the waiter doesn't get stranded.
+        runOnEventLoop(this::handleChannelWritabilityChanged);
+        return waiter;
+    }
+
+    /**
+     * @return A future that completes successfully once the final chunk has been written, or exceptionally if the
+     * response was aborted or cancelled (e.g. the caller disconnected) before it finished.
+     */
+    public @NotNull CompletableFuture<Void> completionFuture() {
+        return completionFuture;
+    }
+
+    /**
+     * @return true if this writer has finished (successfully or not) and will not accept further chunks.
+     */
+    public boolean isDone() {
+        return completionFuture.isDone();
+    }
+
+    /**
+     * Called by the endpoint execution handler (on the event loop) once the response headers have been sent. Any
+     * chunks that were written before that point are sent now.
+     */
+    public void markResponseHeadersSent() {
+        responseHeadersSent = true;
+
+        HttpContent chunk;
+        while ((chunk = chunksWaitingForResponseHeaders.poll()) != null) {
+            doWriteChunk(chunk);
+        }
+
+        if (finishWaitingForResponseHeaders) {
+            doFinish();
+        }
+    }
+
+    /**
+     * Called by the endpoint execution handler (on the event loop) whenever the channel's writability changes.
+     * Completes any outstanding {@link #whenWritable()} futures if the channel is writable.
+     */
+    public void handleChannelWritabilityChanged() {
+        if (!ctx.channel().isWritable() && ctx.channel().isActive()) {
+            return;
+        }
+
+        CompletableFuture<Void> waiter;
+        while ((waiter = writabilityWaiters.poll()) != null) {
+            if (completionFuture.isDone() || !ctx.channel().isActive()) {
+                waiter.completeExceptionally(
+                    new CancellationException("The ChunkedResponseWriter was completed before the channel became "
+                                              + "writable.")
+                );
+            }
+            else {
+                waiter.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Cancels this writer - {@link #completionFuture()} and any outstanding {@link #whenWritable()} futures are
+     * completed exceptionally with the given cause, and any queued chunks are released. Does nothing if this writer
+     * is already done. This does not send anything to the caller.
+     */
+    public void cancel(@NotNull Throwable cause) {
+        runOnEventLoop(() -> {
+            if (!completionFuture.isDone()) {
+                if (logger.isDebugEnabled()) {
+                    runnableWithTracingAndMdc(
+                        () -> logger.debug("Cancelling ChunkedResponseWriter. cancel_cause={}", cause.toString()),
+                        ctx
+                    ).run();
+                }
+                completeExceptionally(cause);
+            }
+        });
+    }
+
+    protected void doWriteChunk(@NotNull HttpContent chunk) {
+        if (completionFuture.isDone() || !ctx.channel().isActive()) {
+            ReferenceCountUtil.release(chunk);
+            return;
+        }
+
+        if (!responseHeadersSent) {
+            chunksWaitingForResponseHeaders.add(chunk);
+            return;
+        }
+
+        ctx.fireChannelRead(new OutboundMessageSendContentChunk(chunk));
+    }
+
+    protected void doFinish() {
+        if (completionFuture.isDone()) {
+            return;
+        }
+
+        if (!responseHeadersSent) {
+            finishWaitingForResponseHeaders = true;
+            return;
+        }
+
+        ctx.fireChannelRead(new LastOutboundMessageSendLastContentChunk(LastHttpContent.EMPTY_LAST_CONTENT));
+
+        HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+        ChannelFuture lastChunkWriteFuture = (state == null) ? null : state.getResponseWriterFinalChunkChannelFuture();
+        if (lastChunkWriteFuture == null) {
+            completeSuccessfully();
+        }
+        else {
+            lastChunkWriteFuture.addListener(future -> {
+                if (future.isSuccess()) {
+                    completeSuccessfully();
+                }
+                else {
+                    completeExceptionally(future.cause());
+                }
+            });
+        }
+    }
+
+    protected void completeSuccessfully() {
+        ctx.channel().closeFuture().removeListener(channelCloseListener);
+        completionFuture.complete(null);
+        failOutstandingWritabilityWaiters(
+            new IllegalStateException("The ChunkedResponseWriter finished before the channel became writable.")
+        );
+    }
+
+    protected void completeExceptionally(@NotNull Throwable cause) {
+        ctx.channel().closeFuture().removeListener(channelCloseListener);
+        completionFuture.completeExceptionally(cause);
+
+        HttpContent chunk;
+        while ((chunk = chunksWaitingForResponseHeaders.poll()) != null) {
+            ReferenceCountUtil.release(chunk);
+        }
+
+        failOutstandingWritabilityWaiters(cause);
+    }
+
+    protected void failOutstandingWritabilityWaiters(@NotNull Throwable cause) {
+        CompletableFuture<Void> waiter;
+        while ((waiter = writabilityWaiters.poll()) != null) {
+            waiter.completeExceptionally(cause);
+        }
+    }
+
+    protected void runOnEventLoop(@NotNull Runnable runnable) {
+        EventExecutor executor = ctx.executor();
+        if (executor.inEventLoop()) {
+            runnable.run();
+        }
+        else {
+            executor.execute(runnable);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.nike.riposte.server.http;
 
 import com.nike.riposte.server.config.ServerConfig;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
+import com.nike.riposte.util.TracingAndMdcSnapshot;
 import com.nike.wingtips.Span;
 
 import org.jetbrains.annotations.Nullable;
@@ -38,6 +39,7 @@ public class HttpProcessingState implements ProcessingState {
     private String matchingPathTemplate;
     private Deque<Span> distributedTraceStack;
     private Map<String, String> loggerMdcContextMap;
+    private TracingAndMdcSnapshot tracingAndMdcSnapshot;
     private Instant requestStartTime;
     private Long requestStartTimeNanos;
     private Long requestLastChunkArrivedTimeNanos;
@@ -48,6 +50,8 @@ public class HttpProcessingState implements ProcessingState {
     private boolean requestMetricsRecordedOrScheduled = false;
     private boolean tracingResponseTaggingAndFinalSpanNameCompleted = false;
     private CompletableFuture<Void> preEndpointExecutionWorkChain = COMPLETED_VOID_FUTURE;
+    private ChunkedResponseWriter chunkedResponseWriter;
+    private CompletableFuture<?> endpointResponseFuture;
 
     private DistributedTracingConfig<Span> distributedTracingConfig;
 
@@ -64,6 +68,7 @@ public class HttpProcessingState implements ProcessingState {
         this.matchingPathTemplate = copyMe.getMatchingPathTemplate();
         this.distributedTraceStack = copyMe.getDistributedTraceStack();
         this.loggerMdcContextMap = copyMe.getLoggerMdcContextMap();
+        this.tracingAndMdcSnapshot = copyMe.tracingAndMdcSnapshot;
         this.requestStartTime = copyMe.getRequestStartTime();
         this.requestStartTimeNanos = copyMe.getRequestStartTimeNanos();
         this.requestLastChunkArrivedTimeNanos = copyMe.getRequestLastChunkArrivedTimeNanos();
@@ -74,6 +79,8 @@ public class HttpProcessingState implements ProcessingState {
         this.requestMetricsRecordedOrScheduled = copyMe.isRequestMetricsRecordedOrScheduled();
         this.tracingResponseTaggingAndFinalSpanNameCompleted = copyMe.isTracingResponseTaggingAndFinalSpanNameCompleted();
         this.preEndpointExecutionWorkChain = copyMe.preEndpointExecutionWorkChain;
+        this.chunkedResponseWriter = copyMe.getChunkedResponseWriter();
+        this.endpointResponseFuture = copyMe.getEndpointResponseFuture();
         this.distributedTracingConfig = copyMe.distributedTracingConfig;
     }
 
@@ -89,6 +96,7 @@ public class HttpProcessingState implements ProcessingState {
         matchingPathTemplate = null;
         distributedTraceStack = null;
         loggerMdcContextMap = null;
+        tracingAndMdcSnapshot = null;
         requestStartTime = null;
         requestStartTimeNanos = null;
         requestLastChunkArrivedTimeNanos = null;
@@ -99,6 +107,8 @@ public class HttpProcessingState implements ProcessingState {
         requestMetricsRecordedOrScheduled = false;
         tracingResponseTaggingAndFinalSpanNameCompleted = false;
         preEndpointExecutionWorkChain = COMPLETED_VOID_FUTURE;
+        chunkedResponseWriter = null;
+        endpointResponseFuture = null;
         distributedTracingConfig = null;
     }
 
@@ -169,9 +179,42 @@ public class HttpProcessingState implements ProcessingState {
     }
 
     public void setLoggerMdcContextMap(Map<String, String> loggerMdcContextMap) {
+        // Handlers hand back a fresh copy of the MDC map every time they finish, even though it rarely changes. Keep
+        //      the current snapshot's map when the contents are the same so the snapshot doesn't have to be recreated.
+        TracingAndMdcSnapshot snapshot = tracingAndMdcSnapshot;
+        if (snapshot != null
+            && loggerMdcContextMap != null
+            && loggerMdcContextMap != snapshot.getMdcContextMap()
+            && loggerMdcContextMap.equals(snapshot.getMdcContextMap())
+        ) {
+            loggerMdcContextMap = snapshot.getMdcContextMap();
+        }
+
         this.loggerMdcContextMap = loggerMdcContextMap;
     }
 
+    /**
+     * @return An immutable snapshot of {@link #getDistributedTraceStack()} and {@link #getLoggerMdcContextMap()}. The
+     * same instance is returned until the trace stack, its current span, or the MDC info actually changes (an MDC map
+     * with the same contents doesn't count - see {@link #setLoggerMdcContextMap(Map)}), so all the async tracing and
+     * MDC wrappers created for a request in between share one snapshot (see {@link
+     * com.nike.riposte.util.AsyncNettyHelper#extractTracingAndMdcSnapshotFromChannelHandlerContext(
+     * io.netty.channel.ChannelHandlerContext)}).
+     */
+    public TracingAndMdcSnapshot getTracingAndMdcSnapshot() {
+        TracingAndMdcSnapshot snapshot = tracingAndMdcSnapshot;
+        if (snapshot == null
+            || snapshot.getDistributedTraceStack() != distributedTraceStack
+            || snapshot.getMdcContextMap() != loggerMdcContextMap
+            || (distributedTraceStack != null && snapshot.getCurrentSpan() != distributedTraceStack.peek())
+        ) {
+            snapshot = TracingAndMdcSnapshot.of(distributedTraceStack, loggerMdcContextMap);
+            tracingAndMdcSnapshot = snapshot;
+        }
+
+        return snapshot;
+    }
+
     public Instant getRequestStartTime() {
         return requestStartTime;
     }
@@ -276,6 +319,34 @@ public class HttpProcessingState implements ProcessingState {
         return preEndpointExecutionWorkChain;
     }
 
+    /**
+     * @return The {@link ChunkedResponseWriter} for the current request if the endpoint is a {@link StreamingEndpoint},
+     * or null otherwise.
+     */
+    public @Nullable ChunkedResponseWriter getChunkedResponseWriter() {
+        return chunkedResponseWriter;
+    }
+
+    public void setChunkedResponseWriter(@Nullable ChunkedResponseWriter chunkedResponseWriter) {
+        this.chunkedResponseWriter = chunkedResponseWriter;
+    }
+
+    /**
+     * @return The future returned by the endpoint for the current request if the endpoint is a {@link
+     * NonblockingEndpoint} and it has been executed, or null otherwise. Used to cancel the endpoint's work if the
+     * caller goes away before the response is sent. When the request was coalesced with other identical requests
+     * this is the current request's own view of the shared result, so cancelling it doesn't affect the others. Note
+     * that cancelling only stops work that's still waiting to run (e.g. a {@link BlockingEndpoint} task still sitting
+     * in its executor's queue) - work that's already running isn't interrupted.
+     */
+    public @Nullable CompletableFuture<?> getEndpointResponseFuture() {
+        return endpointResponseFuture;
+    }
+
+    public void setEndpointResponseFuture(@Nullable CompletableFuture<?> endpointResponseFuture) {
+        this.endpointResponseFuture = endpointResponseFuture;
+    }
+
     public boolean isTracingResponseTaggingAndFinalSpanNameCompleted() {
         return tracingResponseTaggingAndFinalSpanNameCompleted;
     }
@@ -200,6 +200,32 @@ public abstract class ProxyRouterEndpoint implements Endpoint {
          * Set this to false if you do not want the standard tracing headers to be added to your downstream call
          */
         public boolean addTracingHeadersToDownstreamCall = true;
+        /**
+         * The {@link DownstreamAddressSelector} that picks which IP address to call if {@link #host} resolves to more
+         * than one, or null to use {@link
+         * com.nike.riposte.server.config.ServerConfig#proxyRouterDownstreamAddressSelector()}.
+         */
+        public @Nullable DownstreamAddressSelector downstreamAddressSelector = null;
+        /**
+         * How long to wait for the start of a response before sending a hedged copy of the request, or 0 (or less) to
+         * not use a fixed hedge delay. Only GET, HEAD, and OPTIONS requests without a body are hedged, and only while
+         * the host's budget in {@link
+         * com.nike.riposte.server.config.ServerConfig#proxyRouterRetryBudgetConfig()} allows it.
+         */
+        public long hedgeDelayMillis = 0;
+        /**
+         * The percentile (e.g. 95) of {@link #host}'s recent time-to-first-response latencies to use as the hedge
+         * delay, or 0 (or less) to only use {@link #hedgeDelayMillis}. {@link #hedgeDelayMillis} is used until the host
+         * has enough latency samples.
+         */
+        public double hedgeDelayLatencyPercentile = 0;
+        /**
+         * The max number of times to retry (preferably on a different IP address) if a connection to {@link #host}
+         * can't be made, while the host's budget in {@link
+         * com.nike.riposte.server.config.ServerConfig#proxyRouterRetryBudgetConfig()} allows it. Nothing has been sent
+         * downstream when a connection fails, so this is safe for any request.
+         */
+        public int maxConnectRetries = 0;
 
         /**
          * Creates a new instance with the given values, and defaults {@link #customCircuitBreaker} to {@link
@@ -294,6 +320,47 @@ public abstract class ProxyRouterEndpoint implements Endpoint {
             this.addTracingHeadersToDownstreamCall = addTracingHeadersToDownstreamCall;
             return this;
         }
+
+        /**
+         * Pass in the {@link DownstreamAddressSelector} that should pick which IP address to call if {@link #host}
+         * resolves to more than one, or null to use {@link
+         * com.nike.riposte.server.config.ServerConfig#proxyRouterDownstreamAddressSelector()}. Defaults to null.
+         */
+        public @NotNull DownstreamRequestFirstChunkInfo withDownstreamAddressSelector(
+            @Nullable DownstreamAddressSelector downstreamAddressSelector
+        ) {
+            this.downstreamAddressSelector = downstreamAddressSelector;
+            return this;
+        }
+
+        /**
+         * Pass in how long to wait for the start of a response before sending a hedged copy of the request. See {@link
+         * #hedgeDelayMillis}. Defaults to 0 (no fixed hedge delay).
+         */
+        public @NotNull DownstreamRequestFirstChunkInfo withHedgeDelayMillis(long hedgeDelayMillis) {
+            this.hedgeDelayMillis = hedgeDelayMillis;
+            return this;
+        }
+
+        /**
+         * Pass in the percentile of the host's recent latencies to use as the hedge delay. See {@link
+         * #hedgeDelayLatencyPercentile}. Defaults to 0 (only use {@link #hedgeDelayMillis}).
+         */
+        public @NotNull DownstreamRequestFirstChunkInfo withHedgeDelayLatencyPercentile(
+            double hedgeDelayLatencyPercentile
+        ) {
+            this.hedgeDelayLatencyPercentile = hedgeDelayLatencyPercentile;
+            return this;
+        }
+
+        /**
+         * Pass in the max number of times to retry if a connection to the host can't be made. See {@link
+         * #maxConnectRetries}. Defaults to 0.
+         */
+        public @NotNull DownstreamRequestFirstChunkInfo withMaxConnectRetries(int maxConnectRetries) {
+            this.maxConnectRetries = maxConnectRetries;
+            return this;
+        }
     }
 
     /**
@@ -313,12 +313,16 @@ public class ResponseSender {
         //      not by itself affect any headers, so it is safe even for proxied responses).
         determineAndSetCharsetAndMimeTypeForResponseInfoIfNecessary(responseInfo);
 
-        // Set the content type header, but only for full responses. We *don't* do this for chunked responses because
-        //      at the moment chunked responses can only come from ProxyRouterEndpoints, and we should not be guessing
-        //      what the downstream system's content type will be if they didn't specify one.
-        // TODO: If we ever have the ability to specify chunked responses that *aren't* ProxyRouterEndpoints, then this
-        //      may need to be adjusted to only omit proxy calls rather than blindly triggering on isChunkedResponse().
-        if (!responseInfo.isChunkedResponse()) {
+        // Chunked responses from StreamingEndpoints are generated by the application, so they get the same
+        //      content-type and transfer-encoding treatment as full responses. Other chunked responses are proxied,
+        //      and we should not modify anything passing through in that case.
+        boolean isAppGeneratedChunkedResponse =
+            responseInfo.isChunkedResponse() && isChunkedResponseFromStreamingEndpoint(ctx);
+
+        // Set the content type header, but only for full responses and application-generated chunked responses. We
+        //      *don't* do this for proxied chunked responses because we should not be guessing what the downstream
+        //      system's content type will be if they didn't specify one.
+        if (!responseInfo.isChunkedResponse() || isAppGeneratedChunkedResponse) {
             // NOTE: This is ok even if the response doesn't have a body (may even be desired for things like HEAD
             //      requests where there's no body but you want to tell the caller what the content-type would be).
             responseInfo.getHeaders().set(CONTENT_TYPE, buildContentTypeHeader(responseInfo));
@@ -342,6 +346,16 @@ public class ResponseSender {
             responseInfo.getHeaders().set(TraceHeaders.TRACE_ID, traceId);
         }
 
+        // An application-generated chunked response doesn't know its content length up front, so unless the
+        //      endpoint explicitly specified one we need chunked transfer-encoding for the caller to know where the
+        //      response ends on a keep-alive connection.
+        if (isAppGeneratedChunkedResponse
+            && !responseInfo.getHeaders().contains(CONTENT_LENGTH)
+            && !isContentAlwaysEmpty(requestInfo, responseInfo)
+        ) {
+            responseInfo.getHeaders().set(TRANSFER_ENCODING, CHUNKED);
+        }
+
         // Do some RFC conforming and helpful calculation/sanitization regarding transfer-encoding and content-length
         //      headers. We only do this for non-chunked responses as we don't want to modify anything passing through
         //      when it's a ProxyRouterEndpoint response.
@@ -414,6 +428,15 @@ public class ResponseSender {
         }
     }
 
+    /**
+     * @return true if the endpoint for the current request is a {@link StreamingEndpoint} (i.e. the chunked response
+     * was generated by the application rather than proxied from a downstream system), false otherwise.
+     */
+    protected boolean isChunkedResponseFromStreamingEndpoint(ChannelHandlerContext ctx) {
+        HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+        return state != null && state.getEndpointForExecution() instanceof StreamingEndpoint;
+    }
+
     protected void removeTransferEncodingChunked(HttpHeaders headers) {
         if (headers.contains(TRANSFER_ENCODING, CHUNKED, true)) {
             List<String> transferEncodingsMinusChunked =
@@ -0,0 +1,67 @@
+package com.nike.riposte.server.http;
+
+import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.http.impl.ChunkedResponseInfo;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import io.netty.channel.ChannelHandlerContext;
+
+/**
+ * Extension of {@link Endpoint} for application endpoints that need to stream their response back to the caller in
+ * chunks rather than returning a single full response (e.g. large exports, long-running computations that produce
+ * incremental results, or event streams).
+ * <p/>
+ * The endpoint's {@link #execute(RequestInfo, ChunkedResponseWriter, Executor, ChannelHandlerContext)} method returns
+ * a {@link CompletableFuture} for the {@link ChunkedResponseInfo} that describes the response's status code and
+ * headers. Once that future completes the response headers are sent to the caller, and the payload is streamed via the
+ * given {@link ChunkedResponseWriter}. The endpoint must call {@link ChunkedResponseWriter#finish()} when it is done,
+ * otherwise the response will never complete. See the {@link ChunkedResponseWriter} javadocs for details on
+ * backpressure and cancellation.
+ * <p/>
+ * The {@link #completableFutureTimeoutOverrideMillis()} (or {@link
+ * ServerConfig#defaultCompletableFutureTimeoutInMillisForNonblockingEndpoints()} if no override is specified) only
+ * applies to the {@link CompletableFuture} returned by {@code execute(...)}. Once the response headers have been sent
+ * the stream is allowed to run until the endpoint finishes it or the caller disconnects.
+ * <p/>
+ * Since the response is sent in chunks, the response payload will not be compressed, and {@link
+ * #customResponseContentSerializer(RequestInfo)} is not used.
+ */
+@SuppressWarnings("WeakerAccess")
+public abstract class StreamingEndpoint<I> implements Endpoint<I> {
+
+    /**
+     * Executes this endpoint. Should return (without blocking) a {@link CompletableFuture} that will be completed with
+     * the {@link ChunkedResponseInfo} for the response. Response payload chunks should be sent via the given {@code
+     * responseWriter} - they can be written before or after the returned future completes (chunks written before will
+     * be held until the response headers are sent).
+     *
+     * @param request The incoming request.
+     * @param responseWriter The sink for streaming the response payload.
+     * @param longRunningTaskExecutor An {@link Executor} you can use for blocking or long-running work.
+     * @param ctx The {@link ChannelHandlerContext} for the request.
+     * @return A {@link CompletableFuture} for the {@link ChunkedResponseInfo} describing the response. Cannot be null.
+     */
+    public abstract @NotNull CompletableFuture<ChunkedResponseInfo> execute(
+        @NotNull RequestInfo<I> request,
+        @NotNull ChunkedResponseWriter responseWriter,
+        @NotNull Executor longRunningTaskExecutor,
+        @NotNull ChannelHandlerContext ctx
+    );
+
+    /**
+     * @return The exception that should be used as the cause when the future returned by {@link
+     * #execute(RequestInfo, ChunkedResponseWriter, Executor, ChannelHandlerContext)} times out, or null if the default
+     * {@link com.nike.riposte.server.error.exception.NonblockingEndpointCompletableFutureTimedOut} should be used.
+     */
+    public @Nullable Throwable getCustomTimeoutExceptionCause(
+        @NotNull RequestInfo<I> request,
+        @NotNull ChannelHandlerContext ctx
+    ) {
+        return null;
+    }
+}
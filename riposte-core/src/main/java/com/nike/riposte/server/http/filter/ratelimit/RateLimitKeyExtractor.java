@@ -0,0 +1,69 @@
+package com.nike.riposte.server.http.filter.ratelimit;
+
+import com.nike.riposte.server.http.RequestInfo;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+import io.netty.channel.ChannelHandlerContext;
+
+/**
+ * Decides which bucket a request is counted against in {@link RateLimitingRequestFilter}. Use one of the static
+ * factory methods for the common cases, or implement your own.
+ */
+@FunctionalInterface
+public interface RateLimitKeyExtractor {
+
+    /**
+     * @param request The request - only the first chunk has arrived, so there's no payload.
+     * @param ctx The channel handler context for the request.
+     * @return The key to rate limit the request on, or null if the request shouldn't be rate limited. Keys must have
+     * well-behaved {@code equals()} and {@code hashCode()} methods. Avoid creating a new object for every request if
+     * you can, since this is called for every request.
+     */
+    @Nullable Object extractKey(@NotNull RequestInfo<?> request, @NotNull ChannelHandlerContext ctx);
+
+    /**
+     * @return An extractor that rate limits on the IP address of the remote end of the connection. If your clients
+     * come through a load balancer or proxy then this will be the load balancer's address - use {@link
+     * #header(String)} with the header your load balancer puts the client address in instead.
+     */
+    static @NotNull RateLimitKeyExtractor clientIp() {
+        return (request, ctx) -> {
+            SocketAddress remoteAddress = ctx.channel().remoteAddress();
+            return (remoteAddress instanceof InetSocketAddress)
+                   ? ((InetSocketAddress) remoteAddress).getAddress()
+                   : null;
+        };
+    }
+
+    /**
+     * @param headerName The name of the request header to rate limit on, e.g. an API key header.
+     * @return An extractor that rate limits on the value of the given request header. Requests without the header
+     * aren't rate limited.
+     */
+    static @NotNull RateLimitKeyExtractor header(@NotNull String headerName) {
+        //noinspection ConstantConditions
+        if (headerName == null)
+            throw new IllegalArgumentException("headerName cannot be null");
+
+        return (request, ctx) -> request.getHeaders().get(headerName);
+    }
+
+    /**
+     * @param attributeName The name of the {@link RequestInfo#getRequestAttributes()} attribute to rate limit on,
+     * e.g. a caller ID set by an earlier filter.
+     * @return An extractor that rate limits on the value of the given request attribute. Requests without the
+     * attribute aren't rate limited.
+     */
+    static @NotNull RateLimitKeyExtractor requestAttribute(@NotNull String attributeName) {
+        //noinspection ConstantConditions
+        if (attributeName == null)
+            throw new IllegalArgumentException("attributeName cannot be null");
+
+        return (request, ctx) -> request.getRequestAttributes().get(attributeName);
+    }
+}
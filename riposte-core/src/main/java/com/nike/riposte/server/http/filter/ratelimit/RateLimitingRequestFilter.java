@@ -0,0 +1,188 @@
+package com.nike.riposte.server.http.filter.ratelimit;
+
+import com.nike.backstopper.apierror.ApiError;
+import com.nike.backstopper.apierror.ApiErrorBase;
+import com.nike.backstopper.model.riposte.ErrorResponseBodyImpl;
+import com.nike.internal.util.Pair;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.filter.ShortCircuitingRequestAndResponseFilter;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+
+/**
+ * A short circuiting {@link com.nike.riposte.server.http.filter.RequestAndResponseFilter} that rate limits requests
+ * with a token bucket per client. The client is determined by a {@link RateLimitKeyExtractor} - e.g. {@link
+ * RateLimitKeyExtractor#clientIp()}, {@link RateLimitKeyExtractor#header(String)} for an API key header, or {@link
+ * RateLimitKeyExtractor#requestAttribute(String)} for something set by an earlier filter. Each client can make
+ * {@code burstCapacity} requests at once, and after that is allowed {@code permitsPerSecond} requests per second.
+ *
+ * <p>Requests over the limit are short circuited with a HTTP status 429 response as soon as the first chunk of the
+ * request arrives. The response has the standard error contract body, a {@code Retry-After} header with the number of
+ * seconds until the client can make another request, and {@code X-RateLimit-Limit} / {@code X-RateLimit-Remaining}
+ * headers. Requests under the limit pass through untouched.
+ *
+ * <p>The buckets are kept in a {@link TokenBucketTable}, which takes no locks and allocates nothing for requests under
+ * the limit, so this filter adds very little overhead even when every worker thread is using it at once. This filter
+ * runs before security validation (so rejected requests don't cost a security check), which means it can only rate
+ * limit on things available before security validation runs.
+ *
+ * <p>Register it via {@link com.nike.riposte.server.config.ServerConfig#requestAndResponseFilters()}. Put it first
+ * if you want rate limited requests to skip the other filters too.
+ */
+@SuppressWarnings("WeakerAccess")
+public class RateLimitingRequestFilter implements ShortCircuitingRequestAndResponseFilter {
+
+    /**
+     * The default number of slots in the {@link TokenBucketTable}.
+     */
+    public static final int DEFAULT_TABLE_CAPACITY = 65536;
+
+    /**
+     * The error returned to rate limited callers by default.
+     */
+    public static final ApiError DEFAULT_RATE_LIMITED_API_ERROR =
+        new ApiErrorBase("TOO_MANY_REQUESTS", 429, "Too many requests - try again later", 429);
+
+    public static final String RATE_LIMIT_LIMIT_HEADER_NAME = "X-RateLimit-Limit";
+    public static final String RATE_LIMIT_REMAINING_HEADER_NAME = "X-RateLimit-Remaining";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    protected final @NotNull RateLimitKeyExtractor keyExtractor;
+    protected final @NotNull TokenBucketTable tokenBuckets;
+    protected final @NotNull ApiError rateLimitedApiError;
+    protected final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * Creates a rate limiting filter with a {@link #DEFAULT_TABLE_CAPACITY} bucket table that returns {@link
+     * #DEFAULT_RATE_LIMITED_API_ERROR} to rate limited callers.
+     *
+     * @param keyExtractor Decides which bucket each request is counted against.
+     * @param permitsPerSecond The sustained rate each client is allowed.
+     * @param burstCapacity The number of requests each client can make at once.
+     */
+    public RateLimitingRequestFilter(@NotNull RateLimitKeyExtractor keyExtractor,
+                                     double permitsPerSecond,
+                                     int burstCapacity) {
+        this(
+            keyExtractor, new TokenBucketTable(permitsPerSecond, burstCapacity, DEFAULT_TABLE_CAPACITY),
+            DEFAULT_RATE_LIMITED_API_ERROR
+        );
+    }
+
+    /**
+     * @param keyExtractor Decides which bucket each request is counted against.
+     * @param tokenBuckets The bucket table, which determines the rate limit and how many clients can be tracked.
+     * @param rateLimitedApiError The error returned to rate limited callers. Its HTTP status code is used for the
+     * response, so it should usually be 429.
+     */
+    @SuppressWarnings("ConstantConditions")
+    public RateLimitingRequestFilter(@NotNull RateLimitKeyExtractor keyExtractor,
+                                     @NotNull TokenBucketTable tokenBuckets,
+                                     @NotNull ApiError rateLimitedApiError) {
+        if (keyExtractor == null)
+            throw new IllegalArgumentException("keyExtractor cannot be null");
+
+        if (tokenBuckets == null)
+            throw new IllegalArgumentException("tokenBuckets cannot be null");
+
+        if (rateLimitedApiError == null)
+            throw new IllegalArgumentException("rateLimitedApiError cannot be null");
+
+        this.keyExtractor = keyExtractor;
+        this.tokenBuckets = tokenBuckets;
+        this.rateLimitedApiError = rateLimitedApiError;
+    }
+
+    @Override
+    public <T> @Nullable Pair<RequestInfo<T>, Optional<ResponseInfo<?>>> filterRequestFirstChunkWithOptionalShortCircuitResponse(
+        @NotNull RequestInfo<T> currentRequestInfo,
+        @NotNull ChannelHandlerContext ctx
+    ) {
+        Object key = keyExtractor.extractKey(currentRequestInfo, ctx);
+        if (key == null) {
+            return null;
+        }
+
+        long result = tokenBuckets.tryAcquire(key);
+        if (result >= 0) {
+            // Under the limit (or untracked) - let the request through without allocating anything.
+            return null;
+        }
+
+        rejectedCount.increment();
+        Optional<ResponseInfo<?>> rateLimitedResponse = Optional.of(generateRateLimitedResponse(-result));
+        return Pair.of(currentRequestInfo, rateLimitedResponse);
+    }
+
+    @Override
+    public <T> @Nullable Pair<RequestInfo<T>, Optional<ResponseInfo<?>>> filterRequestLastChunkWithOptionalShortCircuitResponse(
+        @NotNull RequestInfo<T> currentRequestInfo,
+        @NotNull ChannelHandlerContext ctx
+    ) {
+        // The decision was already made when the first chunk arrived.
+        return null;
+    }
+
+    @Override
+    public <T> @Nullable ResponseInfo<T> filterResponse(
+        @NotNull ResponseInfo<T> currentResponseInfo,
+        @NotNull RequestInfo<?> requestInfo,
+        @NotNull ChannelHandlerContext ctx
+    ) {
+        return null;
+    }
+
+    /**
+     * @param nanosUntilNextToken How long until the caller's bucket has a token again.
+     * @return The short circuit response for a rate limited request.
+     */
+    protected @NotNull ResponseInfo<?> generateRateLimitedResponse(long nanosUntilNextToken) {
+        String errorId = UUID.randomUUID().toString();
+        long retryAfterSeconds = Math.max(1, (nanosUntilNextToken + TimeUnit.SECONDS.toNanos(1) - 1)
+                                             / TimeUnit.SECONDS.toNanos(1));
+        HttpHeaders headers = new DefaultHttpHeaders()
+            .set("error_uid", errorId)
+            .set(HttpHeaderNames.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+            .set(RATE_LIMIT_LIMIT_HEADER_NAME, String.valueOf(tokenBuckets.getBurstCapacity()))
+            .set(RATE_LIMIT_REMAINING_HEADER_NAME, "0");
+
+        logger.debug("Rate limited request. error_uid={}, retry_after_seconds={}", errorId, retryAfterSeconds);
+
+        return ResponseInfo
+            .newBuilder(new ErrorResponseBodyImpl(errorId, Collections.singletonList(rateLimitedApiError)))
+            .withHttpStatusCode(rateLimitedApiError.getHttpStatusCode())
+            .withHeaders(headers)
+            .withDesiredContentWriterMimeType("application/json")
+            .build();
+    }
+
+    /**
+     * @return The bucket table used by this filter.
+     */
+    public @NotNull TokenBucketTable getTokenBuckets() {
+        return tokenBuckets;
+    }
+
+    /**
+     * @return The total number of requests this filter has rejected.
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+}
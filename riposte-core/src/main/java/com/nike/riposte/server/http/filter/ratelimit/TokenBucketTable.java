@@ -0,0 +1,275 @@
+package com.nike.riposte.server.http.filter.ratelimit;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A fixed-size, lock-free table of token buckets, one per key (e.g. per client IP or API key). Used by {@link
+ * RateLimitingRequestFilter}, but has no dependencies on the rest of Riposte.
+ *
+ * <p>Each bucket holds up to {@code burstCapacity} tokens and refills at {@code permitsPerSecond}. Rather than storing
+ * a token count and a last-refill time (which would need a lock or a wide CAS to update together), each bucket is
+ * stored as a single "theoretical arrival time" - the time at which the bucket would be full again (the generic cell
+ * rate algorithm). Taking a token pushes that time forward by one token's worth of refill time, and is allowed as long
+ * as the time doesn't end up more than {@code burstCapacity} tokens' worth into the future. This behaves exactly like
+ * a token bucket, and a single {@link AtomicLongArray} CAS is all that's needed to update it.
+ *
+ * <p>The table is open-addressed: a key lives in one of {@link #MAX_PROBES} slots starting at its hash. Keys are
+ * never explicitly removed - a bucket whose theoretical arrival time has passed is full, which is the same as not
+ * being tracked at all, so its slot can be taken over by any other key. The table therefore never grows and never
+ * needs a cleanup thread. If every slot a key could use is held by a key that is still being limited then the key
+ * can't be tracked and the request is allowed (the limiter fails open) - see {@link #getUntrackedCount()}. Size the
+ * table well above the number of clients you expect to be limiting at any one time.
+ *
+ * <p>A takeover has to swap the slot's key and reset its bucket together, so the taking-over thread first marks the
+ * slot's arrival time as {@link #TAKEOVER_IN_PROGRESS}. Nobody can charge a marked slot, and a thread that charges a
+ * slot only succeeds if the arrival time it read is still there and the key it matched was still in the slot after
+ * reading it, so a token can never be taken from the wrong key's bucket. Before finishing a takeover the thread also
+ * makes sure no other slot picked up the same key in the meantime, so a key never ends up with two buckets. Threads
+ * that run into a marked slot or a lost race simply look the key up again rather than waiting.
+ *
+ * <p>{@link #tryAcquire(Object)} takes no locks and allocates nothing, so it is safe to call from every worker thread
+ * at once.
+ */
+@SuppressWarnings("WeakerAccess")
+public class TokenBucketTable {
+
+    /**
+     * The number of slots a key may occupy, starting at the slot its hash points to.
+     */
+    public static final int MAX_PROBES = 8;
+
+    /**
+     * Returned by {@link #tryAcquire(Object)} when the key couldn't be tracked and the request was allowed anyway.
+     */
+    public static final long UNTRACKED = Long.MAX_VALUE;
+
+    /**
+     * The theoretical arrival time of a slot while another key is taking it over.
+     */
+    protected static final long TAKEOVER_IN_PROGRESS = Long.MIN_VALUE;
+
+    /**
+     * Returned by {@link #tryAcquireFromSlot(int, Object, long)} and {@link #tryTakeOverSlot(int, Object, int, long)}
+     * when a slot changed hands underneath the caller and the key needs to be looked up again.
+     */
+    protected static final long RETRY = Long.MIN_VALUE;
+
+    /**
+     * Returned by {@link #tryTakeOverSlot(int, Object, int, long)} when the slot can't be taken over right now, so the
+     * next slot should be tried.
+     */
+    protected static final long NOT_TAKEN_OVER = Long.MIN_VALUE + 1;
+
+    /**
+     * The max number of times {@link #tryAcquire(Object)} looks a key up again after losing a race for a slot before
+     * giving up and treating the key as untracked.
+     */
+    protected static final int MAX_LOOKUP_ATTEMPTS = MAX_PROBES;
+
+    protected final int burstCapacity;
+    protected final long emissionIntervalNanos;
+    protected final long burstWindowNanos;
+    protected final int mask;
+    protected final @NotNull LongSupplier nanoTimeSupplier;
+    protected final long originNanos;
+
+    protected final AtomicReferenceArray<Object> keys;
+    protected final AtomicLongArray theoreticalArrivalTimes;
+    protected final LongAdder untrackedCount = new LongAdder();
+
+    /**
+     * @param permitsPerSecond The rate each bucket refills at. Must be greater than 0.
+     * @param burstCapacity The max number of tokens each bucket can hold, i.e. the largest burst allowed for a single
+     * key. Must be at least 1.
+     * @param tableCapacity The number of slots in the table. Rounded up to a power of 2.
+     */
+    public TokenBucketTable(double permitsPerSecond, int burstCapacity, int tableCapacity) {
+        this(permitsPerSecond, burstCapacity, tableCapacity, System::nanoTime);
+    }
+
+    protected TokenBucketTable(double permitsPerSecond,
+                               int burstCapacity,
+                               int tableCapacity,
+                               @NotNull LongSupplier nanoTimeSupplier) {
+        if (!(permitsPerSecond > 0))
+            throw new IllegalArgumentException("permitsPerSecond must be greater than 0");
+
+        if (burstCapacity < 1)
+            throw new IllegalArgumentException("burstCapacity must be at least 1");
+
+        if (tableCapacity < 1 || tableCapacity > (1 << 30))
+            throw new IllegalArgumentException("tableCapacity must be between 1 and 2^30");
+
+        this.burstCapacity = burstCapacity;
+        this.emissionIntervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        try {
+            this.burstWindowNanos = Math.multiplyExact(emissionIntervalNanos, (long) burstCapacity);
+        }
+        catch (ArithmeticException ex) {
+            throw new IllegalArgumentException("permitsPerSecond is too low for the given burstCapacity", ex);
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(tableCapacity, MAX_PROBES) - 1) << 1;
+        this.mask = capacity - 1;
+        this.keys = new AtomicReferenceArray<>(capacity);
+        this.theoreticalArrivalTimes = new AtomicLongArray(capacity);
+        this.nanoTimeSupplier = nanoTimeSupplier;
+        // Start the clock at 1 so that the zeroed out arrival times of never-used slots are always in the past.
+        this.originNanos = nanoTimeSupplier.getAsLong() - 1;
+    }
+
+    /**
+     * Takes a token from the given key's bucket if one is available.
+     *
+     * @param key The key to rate limit on. Must have well-behaved {@code equals()} and {@code hashCode()} methods.
+     * @return The number of tokens left in the bucket (zero or more) if a token was taken, or {@link #UNTRACKED} if
+     * the key couldn't be tracked and the request should be allowed anyway. A negative value means the bucket is
+     * empty, and is the negated number of nanoseconds until the next token will be available.
+     */
+    public long tryAcquire(@NotNull Object key) {
+        long now = nanoTimeSupplier.getAsLong() - originNanos;
+        int hash = spread(key.hashCode());
+
+        for (int attempt = 0; attempt < MAX_LOOKUP_ATTEMPTS; attempt++) {
+            long result = tryAcquireOnce(key, hash, now);
+            if (result != RETRY) {
+                return result;
+            }
+        }
+
+        // The key kept losing races for its slots. This takes a lot of churn in a small table, so fail open.
+        untrackedCount.increment();
+        return UNTRACKED;
+    }
+
+    protected long tryAcquireOnce(@NotNull Object key, int hash, long now) {
+        // Look for the key, or claim an empty slot for it.
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int slot = (hash + probe) & mask;
+            Object slotKey = keys.get(slot);
+            if (slotKey == null) {
+                if (keys.compareAndSet(slot, null, key)) {
+                    return tryAcquireFromSlot(slot, key, now);
+                }
+                slotKey = keys.get(slot);
+            }
+
+            if (key.equals(slotKey)) {
+                return tryAcquireFromSlot(slot, slotKey, now);
+            }
+        }
+
+        // The key isn't in the table and there are no empty slots left for it, so take over a slot whose bucket has
+        //      filled back up. A full bucket is the same as no bucket, so the previous key doesn't lose anything.
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int slot = (hash + probe) & mask;
+            long result = tryTakeOverSlot(slot, key, hash, now);
+            if (result != NOT_TAKEN_OVER) {
+                return result;
+            }
+        }
+
+        untrackedCount.increment();
+        return UNTRACKED;
+    }
+
+    /**
+     * Takes a token from the bucket in the given slot, as long as the slot still belongs to {@code slotKey} (the exact
+     * key instance stored in the slot).
+     *
+     * @return The same as {@link #tryAcquire(Object)}, or {@link #RETRY} if the slot was taken over by another key.
+     */
+    protected long tryAcquireFromSlot(int slot, @NotNull Object slotKey, long now) {
+        while (true) {
+            // The arrival time has to be read before the key is checked. A takeover marks the arrival time before it
+            //      changes the key, and only puts the old arrival time back if it puts the old key back too, so if the
+            //      CAS below succeeds then the slot still belongs to the key that was checked.
+            long theoreticalArrivalTime = theoreticalArrivalTimes.get(slot);
+            if (theoreticalArrivalTime == TAKEOVER_IN_PROGRESS || keys.get(slot) != slotKey) {
+                return RETRY;
+            }
+
+            long newTheoreticalArrivalTime = Math.max(theoreticalArrivalTime, now) + emissionIntervalNanos;
+            long nanosAhead = newTheoreticalArrivalTime - now;
+            if (nanosAhead > burstWindowNanos) {
+                return -(nanosAhead - burstWindowNanos);
+            }
+
+            if (theoreticalArrivalTimes.compareAndSet(slot, theoreticalArrivalTime, newTheoreticalArrivalTime)) {
+                return (burstWindowNanos - nanosAhead) / emissionIntervalNanos;
+            }
+        }
+    }
+
+    /**
+     * Gives the slot to the given key and takes a token from its (full) bucket, if the slot's bucket has filled back
+     * up and no other slot in the key's probe sequence holds the key.
+     *
+     * @return The same as {@link #tryAcquire(Object)}, {@link #NOT_TAKEN_OVER} if the slot's bucket isn't full or
+     * another thread got to it first, or {@link #RETRY} if another slot holds the key.
+     */
+    protected long tryTakeOverSlot(int slot, @NotNull Object key, int hash, long now) {
+        long theoreticalArrivalTime = theoreticalArrivalTimes.get(slot);
+        Object previousKey = keys.get(slot);
+        if (theoreticalArrivalTime == TAKEOVER_IN_PROGRESS
+            || theoreticalArrivalTime > now
+            || previousKey == null
+            || !theoreticalArrivalTimes.compareAndSet(slot, theoreticalArrivalTime, TAKEOVER_IN_PROGRESS)
+        ) {
+            return NOT_TAKEN_OVER;
+        }
+
+        keys.set(slot, key);
+
+        // Another thread may have given a different slot to the same key while this one was looking. Every thread
+        //      publishes its key before checking the other slots, so at least one of them will see the other and back
+        //      out - the key is looked up again rather than ending up with two buckets.
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int otherSlot = (hash + probe) & mask;
+            if (otherSlot != slot && key.equals(keys.get(otherSlot))) {
+                keys.set(slot, previousKey);
+                theoreticalArrivalTimes.set(slot, theoreticalArrivalTime);
+                return RETRY;
+            }
+        }
+
+        // The bucket was full, so the new key starts out with a full bucket as well.
+        long newTheoreticalArrivalTime = now + emissionIntervalNanos;
+        theoreticalArrivalTimes.set(slot, newTheoreticalArrivalTime);
+        return (burstWindowNanos - emissionIntervalNanos) / emissionIntervalNanos;
+    }
+
+    protected static int spread(int hash) {
+        // Mix the high bits into the low bits, since the table index only uses the low bits.
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return The max number of tokens each bucket can hold.
+     */
+    public int getBurstCapacity() {
+        return burstCapacity;
+    }
+
+    /**
+     * @return The number of slots in the table.
+     */
+    public int getTableCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return The total number of times {@link #tryAcquire(Object)} returned {@link #UNTRACKED} because the table had
+     * no room for the key. If this keeps going up then the table is too small.
+     */
+    public long getUntrackedCount() {
+        return untrackedCount.sum();
+    }
+}
@@ -123,6 +123,27 @@ public class SimpleProxyRouterEndpoint extends ProxyRouterEndpoint {
         return incomingRequestMatcher;
     }
 
+    /**
+     * @return The downstream host that gets called when an incoming request matches this endpoint.
+     */
+    public @NotNull String getDownstreamDestinationHost() {
+        return downstreamDestinationHost;
+    }
+
+    /**
+     * @return The port of the downstream host that gets called when an incoming request matches this endpoint.
+     */
+    public int getDownstreamDestinationPort() {
+        return downstreamDestinationPort;
+    }
+
+    /**
+     * @return true if the downstream call uses HTTPS, false if it uses standard HTTP.
+     */
+    public boolean isDownstreamCallHttps() {
+        return isDownstreamCallHttps;
+    }
+
     @Override
     public @NotNull CompletableFuture<DownstreamRequestFirstChunkInfo> getDownstreamRequestFirstChunkInfo(
         @NotNull RequestInfo<?> request, @NotNull Executor longRunningTaskExecutor, @NotNull ChannelHandlerContext ctx
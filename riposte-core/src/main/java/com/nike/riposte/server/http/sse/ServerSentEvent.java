@@ -0,0 +1,190 @@
+package com.nike.riposte.server.http.sse;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+
+/**
+ * Immutable representation of a single Server-Sent Event as defined by the
+ * <a href="https://html.spec.whatwg.org/multipage/server-sent-events.html">HTML Living Standard</a>. Use {@link
+ * #newBuilder()} to create instances, and {@link #encode(ByteBufAllocator)} to serialize an event into the
+ * {@code text/event-stream} wire format.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ServerSentEvent {
+
+    public final @Nullable String id;
+    public final @Nullable String event;
+    public final @Nullable String data;
+    public final @Nullable Long retryMillis;
+    public final @Nullable String comment;
+
+    public ServerSentEvent(
+        @Nullable String id,
+        @Nullable String event,
+        @Nullable String data,
+        @Nullable Long retryMillis,
+        @Nullable String comment
+    ) {
+        if (id == null && event == null && data == null && retryMillis == null && comment == null) {
+            throw new IllegalArgumentException("At least one ServerSentEvent field must be non-null.");
+        }
+
+        throwIfContainsLineBreak(id, "id");
+        throwIfContainsLineBreak(event, "event");
+
+        if (retryMillis != null && retryMillis < 0) {
+            throw new IllegalArgumentException("retryMillis cannot be negative.");
+        }
+
+        this.id = id;
+        this.event = event;
+        this.data = data;
+        this.retryMillis = retryMillis;
+        this.comment = comment;
+    }
+
+    /**
+     * @return A new builder for creating {@link ServerSentEvent}s.
+     */
+    public static @NotNull Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Convenience method for creating an event with only a data field.
+     */
+    public static @NotNull ServerSentEvent withData(@NotNull String data) {
+        return new ServerSentEvent(null, null, data, null, null);
+    }
+
+    /**
+     * Serializes this event into a new {@link ByteBuf} allocated from the given allocator, using the {@code
+     * text/event-stream} wire format (UTF-8). Multi-line data and comments are split into one field per line. The
+     * caller owns the returned buffer and is responsible for releasing it.
+     */
+    public @NotNull ByteBuf encode(@NotNull ByteBufAllocator allocator) {
+        ByteBuf buf = allocator.buffer(estimateEncodedSize());
+        try {
+            writeMultiLineField(buf, "", comment);
+            writeField(buf, "id: ", id);
+            writeField(buf, "event: ", event);
+            if (retryMillis != null) {
+                writeField(buf, "retry: ", String.valueOf(retryMillis));
+            }
+            writeMultiLineField(buf, "data: ", data);
+            buf.writeByte('\n');
+            return buf;
+        }
+        catch (Throwable t) {
+            buf.release();
+            throw t;
+        }
+    }
+
+    protected int estimateEncodedSize() {
+        int size = 1;
+        size += (comment == null) ? 0 : comment.length() + 4;
+        size += (id == null) ? 0 : id.length() + 5;
+        size += (event == null) ? 0 : event.length() + 8;
+        size += (retryMillis == null) ? 0 : 28;
+        size += (data == null) ? 0 : data.length() + 7;
+        return size;
+    }
+
+    protected static void writeField(@NotNull ByteBuf buf, @NotNull String prefix, @Nullable String value) {
+        if (value == null) {
+            return;
+        }
+
+        if (prefix.isEmpty()) {
+            // Comments are lines that start with a colon.
+            buf.writeByte(':');
+            if (!value.isEmpty()) {
+                buf.writeByte(' ');
+            }
+        }
+        else {
+            ByteBufUtil.writeAscii(buf, prefix);
+        }
+
+        ByteBufUtil.writeUtf8(buf, value);
+        buf.writeByte('\n');
+    }
+
+    protected static void writeMultiLineField(@NotNull ByteBuf buf, @NotNull String prefix, @Nullable String value) {
+        if (value == null) {
+            return;
+        }
+
+        // Per the spec, lines can be terminated by CRLF, LF, or CR. Each line becomes its own field.
+        int lineStart = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '\r' || c == '\n') {
+                writeField(buf, prefix, value.substring(lineStart, i));
+                if (c == '\r' && i + 1 < length && value.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                lineStart = i + 1;
+            }
+        }
+        writeField(buf, prefix, value.substring(lineStart));
+    }
+
+    protected static void throwIfContainsLineBreak(@Nullable String value, @NotNull String fieldName) {
+        if (value != null && (value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0)) {
+            throw new IllegalArgumentException(
+                "The ServerSentEvent " + fieldName + " field cannot contain line breaks."
+            );
+        }
+    }
+
+    /**
+     * Builder for {@link ServerSentEvent}.
+     */
+    public static final class Builder {
+
+        private String id;
+        private String event;
+        private String data;
+        private Long retryMillis;
+        private String comment;
+
+        private Builder() {
+        }
+
+        public @NotNull Builder withId(@Nullable String id) {
+            this.id = id;
+            return this;
+        }
+
+        public @NotNull Builder withEvent(@Nullable String event) {
+            this.event = event;
+            return this;
+        }
+
+        public @NotNull Builder withData(@Nullable String data) {
+            this.data = data;
+            return this;
+        }
+
+        public @NotNull Builder withRetryMillis(@Nullable Long retryMillis) {
+            this.retryMillis = retryMillis;
+            return this;
+        }
+
+        public @NotNull Builder withComment(@Nullable String comment) {
+            this.comment = comment;
+            return this;
+        }
+
+        public @NotNull ServerSentEvent build() {
+            return new ServerSentEvent(id, event, data, retryMillis, comment);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.nike.riposte.server.http.sse;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+
+/**
+ * A hub for fanning out {@link ServerSentEvent}s to many {@link ServerSentEventStream} subscribers. Each call to
+ * {@link #broadcast(ServerSentEvent)} serializes the event exactly once into a single {@link ByteBuf}, and every
+ * subscriber is handed a {@link ByteBuf#retainedDuplicate() retained duplicate} of that buffer - the bytes are shared
+ * and never copied per subscriber, so broadcasting to thousands of callers costs one serialization plus a small
+ * per-subscriber wrapper object.
+ *
+ * <p>Subscribers that can't keep up (i.e. their channel is not writable because its outbound buffer is over the high
+ * water mark) are handled according to the {@link SlowSubscriberPolicy} given at construction time.
+ *
+ * <p>Subscribers are removed automatically when their stream closes. All methods on this class are thread safe.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ServerSentEventBroadcaster {
+
+    /**
+     * Determines what happens when a subscriber's channel is not writable at the time an event is broadcast.
+     */
+    public enum SlowSubscriberPolicy {
+        /**
+         * The subscriber's connection is closed. Browsers will reconnect automatically and send a {@code
+         * Last-Event-ID} header, so use this policy when every event matters and you can replay missed events.
+         */
+        DROP_SUBSCRIBER,
+        /**
+         * Only the most recent undelivered event is kept for the subscriber, and it is sent as soon as the
+         * subscriber's channel becomes writable again. Older undelivered events are discarded. Use this policy when
+         * only the latest value matters (e.g. price or inventory updates).
+         */
+        COALESCE
+    }
+
+    protected final @NotNull SlowSubscriberPolicy slowSubscriberPolicy;
+    protected final @NotNull ByteBufAllocator allocator;
+    protected final @NotNull Set<ServerSentEventStream> subscribers = ConcurrentHashMap.newKeySet();
+
+    protected final @NotNull LongAdder broadcastCount = new LongAdder();
+    protected final @NotNull LongAdder coalescedEventCount = new LongAdder();
+    protected final @NotNull LongAdder droppedSubscriberCount = new LongAdder();
+
+    /**
+     * Creates a new instance with the given policy that uses {@link PooledByteBufAllocator#DEFAULT} for encoding
+     * events.
+     */
+    public ServerSentEventBroadcaster(@NotNull SlowSubscriberPolicy slowSubscriberPolicy) {
+        this(slowSubscriberPolicy, PooledByteBufAllocator.DEFAULT);
+    }
+
+    @SuppressWarnings("ConstantConditions")
+    public ServerSentEventBroadcaster(
+        @NotNull SlowSubscriberPolicy slowSubscriberPolicy,
+        @NotNull ByteBufAllocator allocator
+    ) {
+        if (slowSubscriberPolicy == null) {
+            throw new IllegalArgumentException("slowSubscriberPolicy cannot be null");
+        }
+
+        if (allocator == null) {
+            throw new IllegalArgumentException("allocator cannot be null");
+        }
+
+        this.slowSubscriberPolicy = slowSubscriberPolicy;
+        this.allocator = allocator;
+    }
+
+    /**
+     * Registers the given stream to receive broadcast events. The stream is automatically unsubscribed when it
+     * closes.
+     */
+    public void subscribe(@NotNull ServerSentEventStream stream) {
+        if (!stream.isOpen()) {
+            return;
+        }
+
+        subscribers.add(stream);
+        stream.closeFuture().whenComplete((ignored, error) -> subscribers.remove(stream));
+    }
+
+    /**
+     * Stops sending broadcast events to the given stream. This does not close the stream.
+     */
+    public void unsubscribe(@NotNull ServerSentEventStream stream) {
+        subscribers.remove(stream);
+    }
+
+    /**
+     * Sends the given event to all current subscribers. The event is serialized once and the resulting bytes are
+     * shared by all subscribers.
+     *
+     * @return The number of subscribers the event was sent to immediately (i.e. not counting coalesced, dropped, or
+     * closed subscribers).
+     */
+    public int broadcast(@NotNull ServerSentEvent event) {
+        broadcastCount.increment();
+
+        if (subscribers.isEmpty()) {
+            return 0;
+        }
+
+        int numSent = 0;
+        ByteBuf encoded = event.encode(allocator);
+        try {
+            for (ServerSentEventStream subscriber : subscribers) {
+                ServerSentEventStream.OfferResult result = subscriber.offer(
+                    encoded.retainedDuplicate(), slowSubscriberPolicy
+                );
+
+                switch (result) {
+                    case SENT:
+                        numSent++;
+                        break;
+                    case COALESCED:
+                        coalescedEventCount.increment();
+                        break;
+                    case DROPPED_SUBSCRIBER:
+                        droppedSubscriberCount.increment();
+                        subscribers.remove(subscriber);
+                        break;
+                    case CLOSED:
+                        subscribers.remove(subscriber);
+                        break;
+                    default:
+                        throw new IllegalStateException("Unhandled OfferResult: " + result.name());
+                }
+            }
+        }
+        finally {
+            // Each subscriber holds its own retained duplicate, so we can let go of the original.
+            encoded.release();
+        }
+
+        return numSent;
+    }
+
+    /**
+     * Gracefully closes all subscriber streams and removes them from this broadcaster.
+     */
+    public void closeAll() {
+        for (ServerSentEventStream subscriber : subscribers) {
+            subscribers.remove(subscriber);
+            subscriber.close();
+        }
+    }
+
+    public @NotNull SlowSubscriberPolicy getSlowSubscriberPolicy() {
+        return slowSubscriberPolicy;
+    }
+
+    /**
+     * @return The number of currently subscribed streams.
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * @return The total number of events passed to {@link #broadcast(ServerSentEvent)}.
+     */
+    public long getBroadcastCount() {
+        return broadcastCount.sum();
+    }
+
+    /**
+     * @return The total number of times an event was held back (and possibly replaced by a newer event) for a slow
+     * subscriber under the {@link SlowSubscriberPolicy#COALESCE} policy.
+     */
+    public long getCoalescedEventCount() {
+        return coalescedEventCount.sum();
+    }
+
+    /**
+     * @return The total number of subscribers dropped under the {@link SlowSubscriberPolicy#DROP_SUBSCRIBER} policy.
+     */
+    public long getDroppedSubscriberCount() {
+        return droppedSubscriberCount.sum();
+    }
+}
@@ -0,0 +1,95 @@
+package com.nike.riposte.server.http.sse;
+
+import com.nike.riposte.server.http.ChunkedResponseWriter;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.StreamingEndpoint;
+import com.nike.riposte.server.http.impl.ChunkedResponseInfo;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+
+/**
+ * Extension of {@link StreamingEndpoint} for endpoints that serve a
+ * <a href="https://html.spec.whatwg.org/multipage/server-sent-events.html">Server-Sent Events</a> stream. The
+ * response headers ({@code Content-Type: text/event-stream}, {@code Cache-Control: no-cache}) are sent immediately,
+ * and the endpoint is handed a {@link ServerSentEventStream} via {@link #onStreamOpened(RequestInfo,
+ * ServerSentEventStream, Executor, ChannelHandlerContext)}. Send events directly on the stream, or subscribe it to a
+ * shared {@link ServerSentEventBroadcaster} to fan events out to many callers efficiently.
+ * <p/>
+ * The stream stays open until the endpoint calls {@link ServerSentEventStream#close()} or the caller disconnects. The
+ * worker channel idle timeout does not apply while the stream is open, and a heartbeat comment is sent every {@link
+ * #heartbeatIntervalMillis()} when the stream is otherwise idle so that intermediaries don't close the connection.
+ * Response compression is always disabled for event streams since it would delay event delivery.
+ */
+@SuppressWarnings("WeakerAccess")
+public abstract class ServerSentEventEndpoint<I> extends StreamingEndpoint<I> {
+
+    public static final String TEXT_EVENT_STREAM_MIME_TYPE = "text/event-stream";
+    public static final String LAST_EVENT_ID_HEADER_NAME = "Last-Event-ID";
+
+    /**
+     * The default value for {@link #heartbeatIntervalMillis()}.
+     */
+    public static final long DEFAULT_HEARTBEAT_INTERVAL_MILLIS = 15_000;
+
+    /**
+     * Called when a caller connects. The given stream is open and the response headers are on their way to the
+     * caller. This method should not block - use the given {@code longRunningTaskExecutor} for any blocking work.
+     *
+     * @param request The incoming request.
+     * @param stream The caller's event stream.
+     * @param longRunningTaskExecutor An {@link Executor} you can use for blocking or long-running work.
+     * @param ctx The {@link ChannelHandlerContext} for the request.
+     */
+    public abstract void onStreamOpened(
+        @NotNull RequestInfo<I> request,
+        @NotNull ServerSentEventStream stream,
+        @NotNull Executor longRunningTaskExecutor,
+        @NotNull ChannelHandlerContext ctx
+    );
+
+    /**
+     * @return How often a heartbeat comment should be sent when nothing else has been written to a stream. Return 0
+     * to disable heartbeats. Defaults to {@link #DEFAULT_HEARTBEAT_INTERVAL_MILLIS}.
+     */
+    public long heartbeatIntervalMillis() {
+        return DEFAULT_HEARTBEAT_INTERVAL_MILLIS;
+    }
+
+    @Override
+    public final @NotNull CompletableFuture<ChunkedResponseInfo> execute(
+        @NotNull RequestInfo<I> request,
+        @NotNull ChunkedResponseWriter responseWriter,
+        @NotNull Executor longRunningTaskExecutor,
+        @NotNull ChannelHandlerContext ctx
+    ) {
+        ServerSentEventStream stream = new ServerSentEventStream(
+            responseWriter, ctx, heartbeatIntervalMillis(), request.getHeaders().get(LAST_EVENT_ID_HEADER_NAME)
+        );
+
+        onStreamOpened(request, stream, longRunningTaskExecutor, ctx);
+        stream.startHeartbeat();
+
+        HttpHeaders headers = new DefaultHttpHeaders()
+            .set(HttpHeaderNames.CACHE_CONTROL, HttpHeaderValues.NO_CACHE);
+
+        return CompletableFuture.completedFuture(
+            ResponseInfo.newChunkedResponseBuilder()
+                        .withDesiredContentWriterMimeType(TEXT_EVENT_STREAM_MIME_TYPE)
+                        .withDesiredContentWriterEncoding(StandardCharsets.UTF_8)
+                        .withHeaders(headers)
+                        .withPreventCompressedOutput(true)
+                        .build()
+        );
+    }
+}
@@ -0,0 +1,274 @@
+package com.nike.riposte.server.http.sse;
+
+import com.nike.riposte.server.http.ChunkedResponseWriter;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.ScheduledFuture;
+
+/**
+ * A single caller's Server-Sent Events stream. Created by {@link ServerSentEventEndpoint} and handed to the endpoint
+ * when the caller connects. Events can be sent directly via {@link #send(ServerSentEvent)}, or the stream can be
+ * registered with a {@link ServerSentEventBroadcaster} for efficient fan-out to many callers.
+ *
+ * <p>While the stream is open a heartbeat comment is written on the channel's event loop whenever nothing else has
+ * been written for {@link #heartbeatIntervalMillis}. This keeps intermediaries (load balancers, proxies) from closing
+ * the connection, and helps detect dead connections sooner.
+ *
+ * <p>All methods on this class are thread safe. Event writes and the coalesced event bookkeeping happen while holding
+ * this stream's lock, and a coalesced event is flushed by a task on the channel's event loop (queued behind any
+ * writes that were already handed to the event loop), so events always reach the caller in the order they were
+ * sent.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ServerSentEventStream {
+
+    /**
+     * The heartbeat payload - an SSE comment line with no content, which clients ignore.
+     */
+    protected static final ByteBuf HEARTBEAT_COMMENT = Unpooled.unreleasableBuffer(
+        Unpooled.directBuffer(3).writeBytes(":\n\n".getBytes(StandardCharsets.UTF_8))
+    );
+
+    protected final @NotNull ChunkedResponseWriter responseWriter;
+    protected final @NotNull ChannelHandlerContext ctx;
+    protected final long heartbeatIntervalMillis;
+    protected final @Nullable String lastEventId;
+
+    // Guarded by this.
+    protected @Nullable ByteBuf coalescedPendingEvent;
+    protected volatile long lastWriteTimeNanos = System.nanoTime();
+    protected volatile @Nullable ScheduledFuture<?> heartbeatFuture;
+
+    /**
+     * @param responseWriter The writer for the underlying chunked response.
+     * @param ctx The {@link ChannelHandlerContext} for the caller's channel.
+     * @param heartbeatIntervalMillis How often a heartbeat should be sent when the stream is otherwise idle. Pass 0
+     * (or a negative number) to disable heartbeats.
+     * @param lastEventId The value of the caller's {@code Last-Event-ID} request header (sent by browsers when
+     * reconnecting), or null if the caller didn't send one.
+     */
+    public ServerSentEventStream(
+        @NotNull ChunkedResponseWriter responseWriter,
+        @NotNull ChannelHandlerContext ctx,
+        long heartbeatIntervalMillis,
+        @Nullable String lastEventId
+    ) {
+        //noinspection ConstantConditions
+        if (responseWriter == null) {
+            throw new IllegalArgumentException("responseWriter cannot be null");
+        }
+
+        //noinspection ConstantConditions
+        if (ctx == null) {
+            throw new IllegalArgumentException("ctx cannot be null");
+        }
+
+        this.responseWriter = responseWriter;
+        this.ctx = ctx;
+        this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+        this.lastEventId = lastEventId;
+
+        // Release anything still waiting to be sent when the stream closes, no matter how it closes.
+        responseWriter.completionFuture().whenComplete((ignored, error) -> {
+            ScheduledFuture<?> heartbeat = heartbeatFuture;
+            if (heartbeat != null) {
+                heartbeat.cancel(false);
+            }
+            releaseCoalescedPendingEvent();
+        });
+    }
+
+    /**
+     * Starts the heartbeat schedule on the channel's event loop (if heartbeats are enabled). Called by {@link
+     * ServerSentEventEndpoint} - you should not need to call this yourself.
+     */
+    public void startHeartbeat() {
+        if (heartbeatIntervalMillis <= 0 || !isOpen()) {
+            return;
+        }
+
+        heartbeatFuture = ctx.channel().eventLoop().scheduleAtFixedRate(
+            this::sendHeartbeatIfIdle, heartbeatIntervalMillis, heartbeatIntervalMillis, TimeUnit.MILLISECONDS
+        );
+
+        // The writer may have completed between the isOpen() check and the schedule call.
+        if (!isOpen()) {
+            heartbeatFuture.cancel(false);
+        }
+    }
+
+    protected void sendHeartbeatIfIdle() {
+        long nanosSinceLastWrite = System.nanoTime() - lastWriteTimeNanos;
+        if (nanosSinceLastWrite < TimeUnit.MILLISECONDS.toNanos(heartbeatIntervalMillis)) {
+            return;
+        }
+
+        // No point in sending a heartbeat to a caller that isn't keeping up - it has data waiting already.
+        if (responseWriter.isWritable()) {
+            writeToResponse(HEARTBEAT_COMMENT.duplicate());
+        }
+    }
+
+    /**
+     * Serializes and sends the given event to this caller. This ignores backpressure - if you're sending a high
+     * volume of events then check {@link #isWritable()} first, or use a {@link ServerSentEventBroadcaster} which
+     * handles slow callers for you. If an older coalesced event is still waiting to be sent then it's dropped, since
+     * it has been superseded by this one.
+     */
+    public void send(@NotNull ServerSentEvent event) {
+        if (!isOpen()) {
+            return;
+        }
+
+        ByteBuf encodedEvent = event.encode(ctx.alloc());
+        synchronized (this) {
+            releaseCoalescedPendingEvent();
+            writeToResponse(encodedEvent);
+        }
+    }
+
+    /**
+     * Offers an already-encoded event to this caller using the given slow-subscriber policy. Ownership of the given
+     * {@link ByteBuf} is transferred to this stream. Intended for use by {@link ServerSentEventBroadcaster}.
+     *
+     * @return The outcome of the offer.
+     */
+    protected @NotNull OfferResult offer(
+        @NotNull ByteBuf encodedEvent,
+        @NotNull ServerSentEventBroadcaster.SlowSubscriberPolicy slowSubscriberPolicy
+    ) {
+        if (!isOpen()) {
+            ReferenceCountUtil.release(encodedEvent);
+            return OfferResult.CLOSED;
+        }
+
+        synchronized (this) {
+            // Only write directly if there's no older event waiting to be flushed - otherwise this event would get
+            //      to the caller ahead of it.
+            if (responseWriter.isWritable() && coalescedPendingEvent == null) {
+                writeToResponse(encodedEvent);
+                return OfferResult.SENT;
+            }
+
+            if (slowSubscriberPolicy == ServerSentEventBroadcaster.SlowSubscriberPolicy.DROP_SUBSCRIBER) {
+                ReferenceCountUtil.release(encodedEvent);
+                responseWriter.abort(new SlowServerSentEventSubscriberException());
+                return OfferResult.DROPPED_SUBSCRIBER;
+            }
+
+            // COALESCE - keep only the most recent event and send it when the channel becomes writable again.
+            ByteBuf previous = coalescedPendingEvent;
+            coalescedPendingEvent = encodedEvent;
+            if (previous != null) {
+                // There was already an event waiting, so a flush is already on its way.
+                ReferenceCountUtil.release(previous);
+                return OfferResult.COALESCED;
+            }
+        }
+
+        // Always flush via a new event loop task, so the flush runs after any writes that are already queued up on
+        //      the event loop instead of jumping ahead of them.
+        responseWriter.whenWritable().whenComplete(
+            (ignored, error) -> ctx.executor().execute(this::flushCoalescedPendingEvent)
+        );
+        return OfferResult.COALESCED;
+    }
+
+    protected synchronized void flushCoalescedPendingEvent() {
+        ByteBuf pending = coalescedPendingEvent;
+        coalescedPendingEvent = null;
+        if (pending == null) {
+            return;
+        }
+
+        if (isOpen()) {
+            writeToResponse(pending);
+        }
+        else {
+            ReferenceCountUtil.release(pending);
+        }
+    }
+
+    protected synchronized void releaseCoalescedPendingEvent() {
+        ReferenceCountUtil.release(coalescedPendingEvent);
+        coalescedPendingEvent = null;
+    }
+
+    protected void writeToResponse(@NotNull ByteBuf content) {
+        lastWriteTimeNanos = System.nanoTime();
+        responseWriter.writeChunk(content);
+    }
+
+    /**
+     * @return true if the caller's channel can currently accept more data without buffering past the channel's high
+     * write water mark.
+     */
+    public boolean isWritable() {
+        return responseWriter.isWritable();
+    }
+
+    /**
+     * @return true if this stream is still open (i.e. it hasn't been closed by the server and the caller hasn't
+     * disconnected).
+     */
+    public boolean isOpen() {
+        return !responseWriter.isDone();
+    }
+
+    /**
+     * Gracefully ends the stream by sending the final chunk of the response. Browsers will automatically reconnect
+     * after the retry interval unless told otherwise.
+     */
+    public void close() {
+        responseWriter.finish();
+    }
+
+    /**
+     * @return A future that completes when this stream closes - normally if the stream was {@link #close() closed}
+     * gracefully, or exceptionally if the caller disconnected or the stream was aborted.
+     */
+    public @NotNull CompletableFuture<Void> closeFuture() {
+        return responseWriter.completionFuture();
+    }
+
+    /**
+     * @return The caller's {@code Last-Event-ID} request header value, or null if it wasn't sent. Use this to resume
+     * the stream where the caller left off after a reconnect.
+     */
+    public @Nullable String getLastEventId() {
+        return lastEventId;
+    }
+
+    /**
+     * @return The {@link ChannelHandlerContext} for the caller's channel.
+     */
+    public @NotNull ChannelHandlerContext getChannelHandlerContext() {
+        return ctx;
+    }
+
+    /**
+     * The possible outcomes of {@link #offer(ByteBuf, ServerSentEventBroadcaster.SlowSubscriberPolicy)}.
+     */
+    protected enum OfferResult {
+        SENT, COALESCED, DROPPED_SUBSCRIBER, CLOSED
+    }
+
+    /**
+     * The error used to abort a stream when it is dropped for being too slow.
+     */
+    public static class SlowServerSentEventSubscriberException extends RuntimeException {
+        public SlowServerSentEventSubscriberException() {
+            super("Server-Sent Event subscriber was dropped because it could not keep up with the event rate.");
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.nike.riposte.server.http.websocket;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+/**
+ * A group of {@link WebSocketSession}s that frames can be broadcast to. Each broadcast frame's payload is encoded
+ * exactly once, and every member is sent a {@link WebSocketFrame#retainedDuplicate() retained duplicate} of it - the
+ * payload bytes are shared by all members rather than copied per connection. (Members that negotiated {@code
+ * permessage-deflate} will still compress the shared payload separately, since the compression context is
+ * per-connection.)
+ * <p/>
+ * Members are removed automatically when their connection closes. All methods on this class are thread safe.
+ */
+@SuppressWarnings("WeakerAccess")
+public class WebSocketBroadcastGroup {
+
+    protected final @NotNull ByteBufAllocator allocator;
+    protected final @NotNull Set<WebSocketSession> members = ConcurrentHashMap.newKeySet();
+    protected final @NotNull LongAdder broadcastCount = new LongAdder();
+    protected final @NotNull LongAdder skippedUnwritableCount = new LongAdder();
+    protected final boolean skipUnwritableMembers;
+
+    /**
+     * Creates a new instance that uses {@link PooledByteBufAllocator#DEFAULT} to encode text broadcasts and sends to
+     * all members regardless of their writability.
+     */
+    public WebSocketBroadcastGroup() {
+        this(PooledByteBufAllocator.DEFAULT, false);
+    }
+
+    /**
+     * @param allocator The allocator used to encode {@link #broadcastText(String)} payloads.
+     * @param skipUnwritableMembers Pass in true to skip members whose channel is not writable at broadcast time (i.e.
+     * slow callers whose outbound buffer is over the high water mark), rather than queueing more data for them. Use
+     * this when missed frames are acceptable and you'd rather not buffer unbounded data for slow callers.
+     */
+    @SuppressWarnings("ConstantConditions")
+    public WebSocketBroadcastGroup(@NotNull ByteBufAllocator allocator, boolean skipUnwritableMembers) {
+        if (allocator == null) {
+            throw new IllegalArgumentException("allocator cannot be null");
+        }
+
+        this.allocator = allocator;
+        this.skipUnwritableMembers = skipUnwritableMembers;
+    }
+
+    /**
+     * Adds the given session to this group. The session is removed automatically when its connection closes.
+     */
+    public void add(@NotNull WebSocketSession session) {
+        if (!session.isOpen()) {
+            return;
+        }
+
+        members.add(session);
+        session.closeFuture().addListener(future -> members.remove(session));
+    }
+
+    /**
+     * Removes the given session from this group. This does not close the session.
+     */
+    public void remove(@NotNull WebSocketSession session) {
+        members.remove(session);
+    }
+
+    /**
+     * Broadcasts the given text to all members as a {@link TextWebSocketFrame}. The text is UTF-8 encoded once.
+     *
+     * @return The number of members the frame was written to.
+     */
+    public int broadcastText(@NotNull String text) {
+        return broadcast(new TextWebSocketFrame(ByteBufUtil.writeUtf8(allocator, text)));
+    }
+
+    /**
+     * Broadcasts the given frame to all members. Ownership of the given frame is transferred to this method - it will
+     * be released once it has been handed to all members.
+     *
+     * @return The number of members the frame was written to.
+     */
+    public int broadcast(@NotNull WebSocketFrame frame) {
+        broadcastCount.increment();
+
+        int numWritten = 0;
+        try {
+            for (WebSocketSession member : members) {
+                if (!member.isOpen()) {
+                    members.remove(member);
+                    continue;
+                }
+
+                if (skipUnwritableMembers && !member.isWritable()) {
+                    skippedUnwritableCount.increment();
+                    continue;
+                }
+
+                member.send(frame.retainedDuplicate());
+                numWritten++;
+            }
+        }
+        finally {
+            // Each member has its own retained duplicate, so we can let go of the original.
+            frame.release();
+        }
+
+        return numWritten;
+    }
+
+    /**
+     * Closes all member connections gracefully and removes them from this group.
+     */
+    public void closeAll() {
+        for (WebSocketSession member : members) {
+            members.remove(member);
+            member.close();
+        }
+    }
+
+    /**
+     * @return The number of members currently in this group.
+     */
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * @return The total number of frames broadcast by this group.
+     */
+    public long getBroadcastCount() {
+        return broadcastCount.sum();
+    }
+
+    /**
+     * @return The total number of times a member was skipped because it was not writable. Always 0 unless this group
+     * was created with {@code skipUnwritableMembers} set to true.
+     */
+    public long getSkippedUnwritableCount() {
+        return skippedUnwritableCount.sum();
+    }
+}
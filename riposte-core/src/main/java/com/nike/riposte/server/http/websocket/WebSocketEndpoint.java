@@ -0,0 +1,118 @@
+package com.nike.riposte.server.http.websocket;
+
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.RequestInfo;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.handler.codec.http.websocketx.WebSocketCloseStatus;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+/**
+ * Extension of {@link Endpoint} for endpoints that accept <a href="https://tools.ietf.org/html/rfc6455">WebSocket</a>
+ * connections. A WebSocket upgrade request that matches this endpoint goes through the normal Riposte request
+ * pipeline (request filters, security validation, distributed tracing, access logging, metrics) like any other
+ * request. Once it has been validated the channel is switched over to the WebSocket protocol and the endpoint is
+ * notified via {@link #onOpen(WebSocketSession, RequestInfo)}. Non-upgrade requests that match this endpoint are
+ * rejected with a 400 error.
+ * <p/>
+ * The upgrade request is considered complete when the {@code 101 Switching Protocols} response has been sent - that is
+ * what shows up in the access log, metrics, and the overall request span. The callbacks on this class are executed on
+ * the connection's event loop with the upgrade request's tracing and MDC info attached, so they must not block. Use
+ * {@link WebSocketBroadcastGroup} to send the same frame to many connections efficiently.
+ * <p/>
+ * Ping, pong, and close frames are handled automatically - only data frames ({@code TextWebSocketFrame}, {@code
+ * BinaryWebSocketFrame}, and {@code ContinuationWebSocketFrame}) are passed to {@link #onMessage(WebSocketSession,
+ * WebSocketFrame)}.
+ */
+@SuppressWarnings("WeakerAccess")
+public abstract class WebSocketEndpoint implements Endpoint<Void> {
+
+    /**
+     * The default value for {@link #maxFramePayloadLength()}.
+     */
+    public static final int DEFAULT_MAX_FRAME_PAYLOAD_LENGTH = 65536;
+
+    /**
+     * The default value for {@link #handshakeTimeoutMillis()}.
+     */
+    public static final long DEFAULT_HANDSHAKE_TIMEOUT_MILLIS = 10_000;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * Called when the WebSocket handshake has completed and the connection is ready to send and receive frames.
+     *
+     * @param session The session for the new connection.
+     * @param upgradeRequest The request that initiated the WebSocket upgrade.
+     */
+    public abstract void onOpen(@NotNull WebSocketSession session, @NotNull RequestInfo<Void> upgradeRequest);
+
+    /**
+     * Called for each data frame received from the caller. The frame is released after this method returns, so call
+     * {@code frame.retain()} if you need to hold on to it (and release it yourself when you're done).
+     *
+     * @param session The session the frame was received on.
+     * @param frame The received data frame.
+     */
+    public abstract void onMessage(@NotNull WebSocketSession session, @NotNull WebSocketFrame frame);
+
+    /**
+     * Called when the connection closes for any reason. Does nothing by default.
+     *
+     * @param session The session that closed.
+     */
+    public void onClose(@NotNull WebSocketSession session) {
+        // Do nothing by default.
+    }
+
+    /**
+     * Called when an error occurs on the connection (including errors thrown by the other callbacks on this class).
+     * The default implementation logs the error and closes the connection with a {@link
+     * WebSocketCloseStatus#INTERNAL_SERVER_ERROR} status.
+     *
+     * @param session The session the error occurred on.
+     * @param error The error.
+     */
+    public void onError(@NotNull WebSocketSession session, @NotNull Throwable error) {
+        logger.error("Unexpected error on WebSocket connection. The connection will be closed.", error);
+        session.close(WebSocketCloseStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    /**
+     * @return The maximum allowed payload length for received frames. Frames larger than this will cause the
+     * connection to be closed with a {@link WebSocketCloseStatus#MESSAGE_TOO_BIG} status. Defaults to {@link
+     * #DEFAULT_MAX_FRAME_PAYLOAD_LENGTH}.
+     */
+    public int maxFramePayloadLength() {
+        return DEFAULT_MAX_FRAME_PAYLOAD_LENGTH;
+    }
+
+    /**
+     * @return A comma separated list of the subprotocols supported by this endpoint, or null if subprotocols are not
+     * supported (the default).
+     */
+    public @Nullable String subprotocols() {
+        return null;
+    }
+
+    /**
+     * @return true to negotiate the {@code permessage-deflate} extension (RFC 7692) with callers that support it, false
+     * otherwise. Compression trades CPU for bandwidth, and compressed frames are encoded separately for each
+     * connection. Defaults to false.
+     */
+    public boolean isPerMessageDeflateEnabled() {
+        return false;
+    }
+
+    /**
+     * @return The maximum time in milliseconds to wait for the WebSocket handshake to complete. Defaults to {@link
+     * #DEFAULT_HANDSHAKE_TIMEOUT_MILLIS}.
+     */
+    public long handshakeTimeoutMillis() {
+        return DEFAULT_HANDSHAKE_TIMEOUT_MILLIS;
+    }
+}
@@ -0,0 +1,117 @@
+package com.nike.riposte.server.http.websocket;
+
+import com.nike.riposte.server.http.RequestInfo;
+
+import org.jetbrains.annotations.NotNull;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketCloseStatus;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+/**
+ * Represents a single WebSocket connection to a {@link WebSocketEndpoint}. All methods on this class are thread safe
+ * and can be called from any thread.
+ */
+@SuppressWarnings("WeakerAccess")
+public class WebSocketSession {
+
+    protected final @NotNull Channel channel;
+    protected final @NotNull RequestInfo<Void> upgradeRequest;
+
+    @SuppressWarnings("ConstantConditions")
+    public WebSocketSession(@NotNull Channel channel, @NotNull RequestInfo<Void> upgradeRequest) {
+        if (channel == null) {
+            throw new IllegalArgumentException("channel cannot be null");
+        }
+
+        if (upgradeRequest == null) {
+            throw new IllegalArgumentException("upgradeRequest cannot be null");
+        }
+
+        this.channel = channel;
+        this.upgradeRequest = upgradeRequest;
+    }
+
+    /**
+     * Sends the given text to the caller as a {@link TextWebSocketFrame}.
+     */
+    public @NotNull ChannelFuture send(@NotNull String text) {
+        return send(new TextWebSocketFrame(text));
+    }
+
+    /**
+     * Sends the given content to the caller as a {@link BinaryWebSocketFrame}. Ownership of the given buffer is
+     * transferred to this method.
+     */
+    public @NotNull ChannelFuture send(@NotNull ByteBuf binaryContent) {
+        return send(new BinaryWebSocketFrame(binaryContent));
+    }
+
+    /**
+     * Sends the given frame to the caller. Ownership of the given frame is transferred to this method.
+     */
+    public @NotNull ChannelFuture send(@NotNull WebSocketFrame frame) {
+        return channel.writeAndFlush(frame);
+    }
+
+    /**
+     * Closes the connection gracefully with a {@link WebSocketCloseStatus#NORMAL_CLOSURE} status.
+     */
+    public @NotNull ChannelFuture close() {
+        return close(WebSocketCloseStatus.NORMAL_CLOSURE);
+    }
+
+    /**
+     * Sends a close frame with the given status to the caller, and closes the connection once it has been sent.
+     */
+    public @NotNull ChannelFuture close(@NotNull WebSocketCloseStatus status) {
+        if (!channel.isActive()) {
+            return channel.close();
+        }
+
+        return channel.writeAndFlush(new CloseWebSocketFrame(status)).addListener(ChannelFutureListener.CLOSE);
+    }
+
+    /**
+     * @return true if the connection is still open.
+     */
+    public boolean isOpen() {
+        return channel.isActive();
+    }
+
+    /**
+     * @return true if the connection can currently accept more data without buffering past the channel's high write
+     * water mark. Check this before sending if you need to avoid piling up data for slow callers.
+     */
+    public boolean isWritable() {
+        return channel.isWritable();
+    }
+
+    /**
+     * @return A future that completes when the connection closes.
+     */
+    public @NotNull ChannelFuture closeFuture() {
+        return channel.closeFuture();
+    }
+
+    /**
+     * @return The request that initiated the WebSocket upgrade. Its headers, path params, and query params are still
+     * available, but its content has been released.
+     */
+    public @NotNull RequestInfo<Void> getUpgradeRequest() {
+        return upgradeRequest;
+    }
+
+    /**
+     * @return The underlying Netty {@link Channel} for this connection.
+     */
+    public @NotNull Channel getChannel() {
+        return channel;
+    }
+}
@@ -20,6 +20,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
+import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.Map;
 import java.util.concurrent.Callable;
@@ -32,6 +33,7 @@ import java.util.function.Function;
 import java.util.function.Supplier;
 
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.concurrent.EventExecutor;
 
 /**
  * Helper class that provides static methods for dealing with async stuff in Netty/Riposte, mainly providing easy ways
@@ -67,6 +69,13 @@ public class AsyncNettyHelper {
     private static final Logger logger = LoggerFactory.getLogger(AsyncNettyHelper.class);
     public static final Void VOID = null;
 
+    /**
+     * The {@link TracingAndMdcSnapshot} the current thread was set up with by {@link
+     * #linkTracingAndMdcSnapshotToCurrentThread(TracingAndMdcSnapshot)}, or null if the thread's tracing and MDC info
+     * has been changed by anything else since then.
+     */
+    private static final ThreadLocal<TracingAndMdcSnapshot> linkedSnapshotForCurrentThread = new ThreadLocal<>();
+
     // Intentionally protected - use the static methods.
     protected AsyncNettyHelper() { /* do nothing */ }
 
@@ -369,6 +378,7 @@ public class AsyncNettyHelper {
         //      registering the desired stack with the thread, and keep a copy of the results.
         Map<String, String> callingThreadMdcContextMap = MDC.getCopyOfContextMap();
         Deque<Span> callingThreadTraceStack = Tracer.getInstance().unregisterFromThread();
+        forgetLinkedSnapshotForCurrentThread();
 
         // Now setup the trace stack and MDC as desired
         if (mdcContextMapToLink == null)
@@ -408,8 +418,10 @@ public class AsyncNettyHelper {
                                                             Map<String, String> mdcContextMapToResetFor) {
         Tracer.getInstance().unregisterFromThread();
         MDC.clear();
+        forgetLinkedSnapshotForCurrentThread();
 
-        if (mdcContextMapToResetFor != null)
+        // MDC.setContextMap() copies the map, so don't bother when there's nothing in it.
+        if (mdcContextMapToResetFor != null && !mdcContextMapToResetFor.isEmpty())
             MDC.setContextMap(mdcContextMapToResetFor);
 
         if (distributedTraceStackToResetFor != null)
@@ -436,6 +448,130 @@ public class AsyncNettyHelper {
         return Pair.of(state.getDistributedTraceStack(), state.getLoggerMdcContextMap());
     }
 
+    /**
+     * @param ctx
+     *     The {@link ChannelHandlerContext} that holds the current request state.
+     *
+     * @return The {@link HttpProcessingState#getTracingAndMdcSnapshot()} from the {@link HttpProcessingState} stored in
+     * the given {@link ChannelHandlerContext}, or {@link TracingAndMdcSnapshot#EMPTY} in the case {@code ctx} is null
+     * or does not contain a {@link HttpProcessingState}. Unlike {@link
+     * #extractTracingAndMdcInfoFromChannelHandlerContext(ChannelHandlerContext)} this doesn't create a new object for
+     * each call - all callers for the same request get the same snapshot instance.
+     */
+    public static TracingAndMdcSnapshot extractTracingAndMdcSnapshotFromChannelHandlerContext(
+        ChannelHandlerContext ctx) {
+        if (ctx == null)
+            return TracingAndMdcSnapshot.EMPTY;
+
+        HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+        if (state == null)
+            return TracingAndMdcSnapshot.EMPTY;
+
+        return state.getTracingAndMdcSnapshot();
+    }
+
+    /**
+     * Links the given {@link TracingAndMdcSnapshot} to the current thread, the same way {@link
+     * #linkTracingAndMdcToCurrentThread(Deque, Map)} does - unless the current thread is already set up with that
+     * exact snapshot (because an enclosing call to this method linked it and nothing has changed the thread's tracing
+     * info since), in which case the thread is left as it is. That is the common case when one wrapped {@link
+     * CompletableFuture} stage causes another stage for the same request to run inline on the same thread. When that
+     * nested code finishes, {@link #unlinkTracingAndMdcSnapshotFromCurrentThread(TracingAndMdcSnapshot,
+     * TracingAndMdcSnapshot)} links the snapshot again if the nested code changed the thread's current span or linked
+     * something else, so none of that leaks back into the enclosing code. Plain {@link MDC#put(String, String)} and
+     * {@link MDC#remove(String)} calls aren't tracked though: MDC changes made by the enclosing code before the nested
+     * code runs are visible to the nested code, and MDC changes made directly by the nested code stay visible to the
+     * enclosing code afterward, the same as if they had both been the same piece of code.
+     *
+     * <p>Always pass the result of this method to {@link #unlinkTracingAndMdcSnapshotFromCurrentThread(
+     * TracingAndMdcSnapshot, TracingAndMdcSnapshot)} when you're done, in a finally block, the same way you would
+     * with the other link and unlink methods.
+     *
+     * @param snapshotToLink
+     *     The snapshot to link to the current thread. Null is treated as {@link TracingAndMdcSnapshot#EMPTY}.
+     *
+     * @return The original tracing and MDC info on the thread when this method was called, for passing to {@link
+     * #unlinkTracingAndMdcSnapshotFromCurrentThread(TracingAndMdcSnapshot, TracingAndMdcSnapshot)}. If the thread was
+     * already set up with the given snapshot then the given snapshot itself is returned, which tells the unlink method
+     * there's nothing to undo.
+     */
+    public static TracingAndMdcSnapshot linkTracingAndMdcSnapshotToCurrentThread(
+        TracingAndMdcSnapshot snapshotToLink
+    ) {
+        if (snapshotToLink == null)
+            snapshotToLink = TracingAndMdcSnapshot.EMPTY;
+
+        if (isSnapshotLinkedToCurrentThread(snapshotToLink))
+            return snapshotToLink;
+
+        Pair<Deque<Span>, Map<String, String>> originalThreadInfo = linkTracingAndMdcToCurrentThread(
+            snapshotToLink.getDistributedTraceStack(), snapshotToLink.getMdcContextMap()
+        );
+        linkedSnapshotForCurrentThread.set(snapshotToLink);
+
+        // Always a new instance (never EMPTY), so that it can't be mistaken for the snapshot that was linked.
+        return new TracingAndMdcSnapshot(originalThreadInfo.getLeft(), originalThreadInfo.getRight());
+    }
+
+    /**
+     * Undoes a call to {@link #linkTracingAndMdcSnapshotToCurrentThread(TracingAndMdcSnapshot)}, putting the thread's
+     * tracing and MDC info back the way it was before that call. If that call found the snapshot already linked then
+     * the snapshot is linked again only if the thread's current span or linked snapshot has changed since.
+     *
+     * @param linkedSnapshot
+     *     The snapshot that was passed to {@link #linkTracingAndMdcSnapshotToCurrentThread(TracingAndMdcSnapshot)}.
+     * @param originalThreadInfo
+     *     The value returned by {@link #linkTracingAndMdcSnapshotToCurrentThread(TracingAndMdcSnapshot)}. This can be
+     *     null (e.g. if the link call threw an exception), in which case the thread's tracing and MDC info will be
+     *     cleared, the same as {@link #unlinkTracingAndMdcFromCurrentThread(Pair)} does when passed null.
+     */
+    public static void unlinkTracingAndMdcSnapshotFromCurrentThread(TracingAndMdcSnapshot linkedSnapshot,
+                                                                    TracingAndMdcSnapshot originalThreadInfo) {
+        if (originalThreadInfo != null && originalThreadInfo == linkedSnapshot) {
+            // The thread was already set up with the snapshot when it was linked, so that's what it needs to go back
+            //      to. Usually it's still set up that way and there's nothing to do.
+            if (!isSnapshotLinkedToCurrentThread(linkedSnapshot)) {
+                Deque<Span> traceStackToRestore = linkedSnapshot.getDistributedTraceStack();
+                if (traceStackToRestore != null && traceStackToRestore.peek() != linkedSnapshot.getCurrentSpan()) {
+                    // The Tracer works on the linked span stack directly, so a sub-span the nested code left open is
+                    //      sitting on top of the snapshot's stack. Link a copy without it instead.
+                    traceStackToRestore = new ArrayDeque<>(traceStackToRestore);
+                    while (!traceStackToRestore.isEmpty()
+                           && traceStackToRestore.peek() != linkedSnapshot.getCurrentSpan()) {
+                        traceStackToRestore.pop();
+                    }
+                }
+
+                unlinkTracingAndMdcFromCurrentThread(traceStackToRestore, linkedSnapshot.getMdcContextMap());
+                linkedSnapshotForCurrentThread.set(linkedSnapshot);
+            }
+            return;
+        }
+
+        if (originalThreadInfo == null) {
+            unlinkTracingAndMdcFromCurrentThread(null, null);
+            return;
+        }
+
+        unlinkTracingAndMdcFromCurrentThread(
+            originalThreadInfo.getDistributedTraceStack(), originalThreadInfo.getMdcContextMap()
+        );
+    }
+
+    protected static boolean isSnapshotLinkedToCurrentThread(TracingAndMdcSnapshot snapshot) {
+        if (linkedSnapshotForCurrentThread.get() != snapshot)
+            return false;
+
+        // Guard against anything that changed the thread's current span directly via the Tracer (e.g. a sub-span that
+        //      was started and not completed).
+        return Tracer.getInstance().getCurrentSpan() == snapshot.getCurrentSpan();
+    }
+
+    protected static void forgetLinkedSnapshotForCurrentThread() {
+        if (linkedSnapshotForCurrentThread.get() != null)
+            linkedSnapshotForCurrentThread.set(null);
+    }
+
     /**
      * Executes the given runnable only if {@code ctx.channel().isActive()} returns true. If the channel is not active
      * then a warning is logged, resources are released, the distributed trace is completed (if appropriate), and the
@@ -601,4 +737,35 @@ public class AsyncNettyHelper {
         }, ctx), executor);
     }
 
+    /**
+     * @return An {@link Executor} bound to the given {@link ChannelHandlerContext}'s event loop (see {@link
+     * #eventLoopExecutor(EventExecutor)}).
+     */
+    public static Executor eventLoopExecutor(ChannelHandlerContext ctx) {
+        return eventLoopExecutor(ctx.executor());
+    }
+
+    /**
+     * Returns an {@link Executor} bound to the given Netty {@link EventExecutor} (usually a channel's {@link
+     * io.netty.channel.EventLoop}). Tasks run immediately on the calling thread if it is already the event loop's
+     * thread, and are handed off to the event loop otherwise. This is useful for {@link CompletableFuture}
+     * continuations in non-blocking code: e.g. {@code future.thenApplyAsync(fn, eventLoopExecutor(ctx))} stays on the
+     * channel's event loop without paying for a task queue handoff and thread wakeup when the future is completed on
+     * the event loop, and hops back to the event loop exactly once when it isn't.
+     *
+     * <p><b>NEVER use this for blocking or expensive work</b> - anything run by this executor blocks every other
+     * channel sharing the event loop. Use the {@code longRunningTaskExecutor} for that instead. Note that tracing and
+     * MDC info is not attached automatically - wrap your tasks with the {@code *WithTracingAndMdc(...)} methods if you
+     * need it.
+     */
+    public static Executor eventLoopExecutor(EventExecutor eventLoop) {
+        return task -> {
+            if (eventLoop.inEventLoop()) {
+                task.run();
+            }
+            else {
+                eventLoop.execute(task);
+            }
+        };
+    }
 }
@@ -0,0 +1,159 @@
+package com.nike.riposte.util;
+
+import com.nike.riposte.server.error.exception.TooManyPendingTasksException;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Factory methods for {@link ExecutorService}s that are suitable for running blocking code (JDBC calls, legacy
+ * blocking SDKs, etc) at high concurrency, such as the executor used by {@link
+ * com.nike.riposte.server.http.BlockingEndpoint}.
+ *
+ * <p>When the runtime supports virtual threads (Java 21+) a new virtual thread is used for every task, so a blocked
+ * task costs a small heap object rather than a platform thread and there is no pool to tune. On older runtimes this
+ * falls back to a bounded pool of platform threads with a bounded task queue, so that a burst of blocking work queues
+ * up instead of creating thousands of platform threads the way {@link Executors#newCachedThreadPool()} would, and
+ * work beyond what the queue can hold is rejected with a {@link TooManyPendingTasksException} (which Riposte turns
+ * into a fast HTTP status 503) instead of piling up without limit. Riposte is compiled against Java 8, so virtual
+ * thread support is detected and used reflectively.
+ */
+@SuppressWarnings("WeakerAccess")
+public class BlockingTaskExecutors {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlockingTaskExecutors.class);
+
+    /**
+     * The default max number of platform threads used by {@link #newBlockingTaskExecutor()} when virtual threads are
+     * not supported by the runtime.
+     */
+    public static final int DEFAULT_PLATFORM_FALLBACK_MAX_THREADS =
+        Math.max(64, 16 * Runtime.getRuntime().availableProcessors());
+
+    /**
+     * The default max number of tasks that can be waiting for a platform thread in the pools created by {@link
+     * #newBoundedPlatformThreadPool(int)}.
+     */
+    public static final int DEFAULT_PLATFORM_FALLBACK_MAX_QUEUE_SIZE = 2000;
+
+    /**
+     * The name of the platform thread pools created by this class. Used for thread names, metrics, and the details of
+     * {@link TooManyPendingTasksException}s.
+     */
+    public static final String BLOCKING_TASK_EXECUTOR_NAME = "riposte-blocking-task";
+
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR_METHOD = findVirtualThreadExecutorFactoryMethod();
+
+    // Intentionally protected - use the static methods.
+    protected BlockingTaskExecutors() { /* do nothing */ }
+
+    private static Method findVirtualThreadExecutorFactoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        }
+        catch (NoSuchMethodException | SecurityException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * @return true if the current runtime supports virtual threads, false otherwise.
+     */
+    public static boolean isVirtualThreadSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR_METHOD != null;
+    }
+
+    /**
+     * @return A new virtual-thread-per-task executor if virtual threads are supported, otherwise a bounded platform
+     * thread pool with {@link #DEFAULT_PLATFORM_FALLBACK_MAX_THREADS} threads.
+     */
+    public static @NotNull ExecutorService newBlockingTaskExecutor() {
+        return newBlockingTaskExecutor(DEFAULT_PLATFORM_FALLBACK_MAX_THREADS);
+    }
+
+    /**
+     * @param platformFallbackMaxThreads The max number of platform threads to use if virtual threads are not
+     * supported by the runtime. Must be greater than 0. Ignored if virtual threads are supported.
+     * @return A new virtual-thread-per-task executor if virtual threads are supported, otherwise a bounded platform
+     * thread pool with the given number of threads and a queue that holds up to {@link
+     * #DEFAULT_PLATFORM_FALLBACK_MAX_QUEUE_SIZE} tasks.
+     */
+    public static @NotNull ExecutorService newBlockingTaskExecutor(int platformFallbackMaxThreads) {
+        return newBlockingTaskExecutor(platformFallbackMaxThreads, DEFAULT_PLATFORM_FALLBACK_MAX_QUEUE_SIZE);
+    }
+
+    /**
+     * @param platformFallbackMaxThreads The max number of platform threads to use if virtual threads are not
+     * supported by the runtime. Must be greater than 0. Ignored if virtual threads are supported.
+     * @param platformFallbackMaxQueueSize The max number of tasks that can be waiting for a platform thread if virtual
+     * threads are not supported by the runtime. Cannot be negative. Ignored if virtual threads are supported.
+     * @return A new virtual-thread-per-task executor if virtual threads are supported, otherwise a bounded platform
+     * thread pool with the given number of threads and queue size - see {@link #newBoundedPlatformThreadPool(int,
+     * int)}.
+     */
+    public static @NotNull ExecutorService newBlockingTaskExecutor(
+        int platformFallbackMaxThreads, int platformFallbackMaxQueueSize
+    ) {
+        if (platformFallbackMaxThreads <= 0) {
+            throw new IllegalArgumentException("platformFallbackMaxThreads must be greater than 0");
+        }
+
+        if (platformFallbackMaxQueueSize < 0) {
+            throw new IllegalArgumentException("platformFallbackMaxQueueSize cannot be negative");
+        }
+
+        if (isVirtualThreadSupported()) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR_METHOD.invoke(null);
+            }
+            catch (Exception ex) {
+                logger.warn(
+                    "Unable to create a virtual thread executor even though the runtime appears to support virtual "
+                    + "threads. Falling back to a bounded platform thread pool.", ex
+                );
+            }
+        }
+
+        return newBoundedPlatformThreadPool(platformFallbackMaxThreads, platformFallbackMaxQueueSize);
+    }
+
+    /**
+     * @return A new fixed-size pool of daemon platform threads with a task queue that holds up to {@link
+     * #DEFAULT_PLATFORM_FALLBACK_MAX_QUEUE_SIZE} tasks - see {@link #newBoundedPlatformThreadPool(int, int)}.
+     */
+    public static @NotNull ExecutorService newBoundedPlatformThreadPool(int maxThreads) {
+        return newBoundedPlatformThreadPool(maxThreads, DEFAULT_PLATFORM_FALLBACK_MAX_QUEUE_SIZE);
+    }
+
+    /**
+     * @param maxThreads The max number of threads. Must be greater than 0.
+     * @param maxQueueSize The max number of tasks that can be waiting for a thread. Cannot be negative.
+     * @return A new fixed-size pool of daemon platform threads with a bounded task queue. Once all threads are busy and
+     * the queue is full, new tasks are rejected with a {@link TooManyPendingTasksException}, which Riposte's default
+     * error handling turns into a HTTP status 503 with a {@code Retry-After} header. Idle threads time out after 60
+     * seconds so the pool doesn't hold onto threads it isn't using.
+     */
+    public static @NotNull ExecutorService newBoundedPlatformThreadPool(int maxThreads, int maxQueueSize) {
+        return new InstrumentedThreadPoolExecutor(
+            BLOCKING_TASK_EXECUTOR_NAME, maxThreads, maxQueueSize,
+            InstrumentedThreadPoolExecutor.DEFAULT_RETRY_AFTER_SECONDS, null
+        );
+    }
+
+    /**
+     * @return The executor shared by all {@link com.nike.riposte.server.http.BlockingEndpoint}s that don't supply
+     * their own. Created on first use via {@link #newBlockingTaskExecutor()}.
+     */
+    public static @NotNull ExecutorService defaultBlockingTaskExecutor() {
+        return DefaultExecutorHolder.INSTANCE;
+    }
+
+    private static class DefaultExecutorHolder {
+        static final ExecutorService INSTANCE = newBlockingTaskExecutor();
+    }
+}
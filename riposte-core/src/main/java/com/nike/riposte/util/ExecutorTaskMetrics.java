@@ -0,0 +1,40 @@
+package com.nike.riposte.util;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Immutable value passed to {@link com.nike.riposte.metrics.MetricsListener#onEvent(
+ * com.nike.riposte.server.metrics.ServerMetricsEvent, Object)} by {@link InstrumentedThreadPoolExecutor} for the
+ * {@link com.nike.riposte.server.metrics.ServerMetricsEvent#EXECUTOR_TASK_STARTED} and {@link
+ * com.nike.riposte.server.metrics.ServerMetricsEvent#EXECUTOR_TASK_REJECTED} events.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ExecutorTaskMetrics {
+
+    /**
+     * The executor that fired the event. Metrics listeners can use this to register gauges for the executor's active
+     * thread count and queue size.
+     */
+    public final @NotNull InstrumentedThreadPoolExecutor executor;
+    /**
+     * The time the task spent waiting in the executor's queue before it started running. Always 0 for rejected tasks.
+     */
+    public final long queueWaitNanos;
+
+    public ExecutorTaskMetrics(@NotNull InstrumentedThreadPoolExecutor executor, long queueWaitNanos) {
+        this.executor = executor;
+        this.queueWaitNanos = queueWaitNanos;
+    }
+
+    /**
+     * @return The name of the executor that fired the event - shortcut for {@code executor.getName()}.
+     */
+    public @NotNull String getExecutorName() {
+        return executor.getName();
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutorTaskMetrics{executorName=" + executor.getName() + ", queueWaitNanos=" + queueWaitNanos + "}";
+    }
+}
@@ -0,0 +1,222 @@
+package com.nike.riposte.util;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.error.exception.TooManyPendingTasksException;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link ThreadPoolExecutor} with a bounded number of threads and a bounded task queue, intended to replace
+ * unbounded executors (cached thread pools, work stealing pools with unbounded queues) for work that is handed off from
+ * the Netty worker threads. Under overload an unbounded executor lets latency and memory grow without limit - this
+ * executor instead rejects new tasks with a {@link TooManyPendingTasksException} as soon as all threads are busy and
+ * the queue is full. Riposte's default error handling turns that exception into a fast HTTP status 503 with a {@code
+ * Retry-After} header.
+ *
+ * <p>If a {@link MetricsListener} is supplied then this executor fires {@link
+ * ServerMetricsEvent#EXECUTOR_TASK_STARTED} (with the time the task spent waiting in the queue) every time a task
+ * starts running, and {@link ServerMetricsEvent#EXECUTOR_TASK_REJECTED} every time a task is rejected - as long as the
+ * listener opts in to them via {@link MetricsListener#isInterestedIn(ServerMetricsEvent)}. The value for
+ * both events is an {@link ExecutorTaskMetrics}, which gives the listener access to this executor so it can report
+ * the {@link #getActiveCount() active thread count} and {@link #getQueue() queue size} as well.
+ *
+ * <p>Threads are daemon threads named after the executor, and idle threads time out after 60 seconds so the pool
+ * doesn't hold onto threads it isn't using.
+ */
+@SuppressWarnings("WeakerAccess")
+public class InstrumentedThreadPoolExecutor extends ThreadPoolExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(InstrumentedThreadPoolExecutor.class);
+
+    public static final String LONG_RUNNING_TASK_EXECUTOR_NAME = "riposte-long-running-task";
+    public static final String REQUEST_CONTENT_VALIDATION_EXECUTOR_NAME = "riposte-content-validation";
+    public static final String SECURITY_VALIDATION_EXECUTOR_NAME = "riposte-security-validation";
+
+    public static final int DEFAULT_LONG_RUNNING_TASK_MAX_THREADS = 200;
+    public static final int DEFAULT_LONG_RUNNING_TASK_MAX_QUEUE_SIZE = 2000;
+    public static final int DEFAULT_VALIDATION_MAX_THREADS = Runtime.getRuntime().availableProcessors() * 2;
+    public static final int DEFAULT_VALIDATION_MAX_QUEUE_SIZE = 1000;
+    public static final long DEFAULT_RETRY_AFTER_SECONDS = 1;
+
+    protected final @NotNull String name;
+    protected final int maxQueueSize;
+    protected final long retryAfterSeconds;
+    protected final @Nullable MetricsListener metricsListener;
+
+    /**
+     * @param name The name of this executor. Used for thread names, metrics, and error details. Cannot be null.
+     * @param maxThreads The max number of threads. Must be greater than 0.
+     * @param maxQueueSize The max number of tasks that can be waiting for a thread. Pass 0 if you want tasks to be
+     * rejected immediately when all threads are busy. Cannot be negative.
+     * @param retryAfterSeconds The value for the {@code Retry-After} header sent to callers when a task is rejected.
+     * @param metricsListener The metrics listener to notify of task start and rejection events - may be null.
+     */
+    public InstrumentedThreadPoolExecutor(@NotNull String name,
+                                          int maxThreads,
+                                          int maxQueueSize,
+                                          long retryAfterSeconds,
+                                          @Nullable MetricsListener metricsListener) {
+        super(maxThreads, maxThreads, 60, TimeUnit.SECONDS, createQueue(maxQueueSize), new NamedThreadFactory(name));
+        //noinspection ConstantConditions
+        if (name == null) {
+            throw new NullPointerException("name cannot be null");
+        }
+
+        this.name = name;
+        this.maxQueueSize = maxQueueSize;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.metricsListener = metricsListener;
+
+        allowCoreThreadTimeOut(true);
+        setRejectedExecutionHandler((task, executor) -> rejectTask(task));
+    }
+
+    /**
+     * @return A new executor with the default settings for {@link
+     * com.nike.riposte.server.config.ServerConfig#longRunningTaskExecutor()}.
+     */
+    public static @NotNull InstrumentedThreadPoolExecutor newDefaultLongRunningTaskExecutor(
+        @Nullable MetricsListener metricsListener
+    ) {
+        return new InstrumentedThreadPoolExecutor(
+            LONG_RUNNING_TASK_EXECUTOR_NAME, DEFAULT_LONG_RUNNING_TASK_MAX_THREADS,
+            DEFAULT_LONG_RUNNING_TASK_MAX_QUEUE_SIZE, DEFAULT_RETRY_AFTER_SECONDS, metricsListener
+        );
+    }
+
+    /**
+     * @return A new executor with the default settings for request content or security validation - see {@link
+     * com.nike.riposte.server.config.ServerConfig#requestContentValidationExecutor()} and {@link
+     * com.nike.riposte.server.config.ServerConfig#securityValidationExecutor()}.
+     */
+    public static @NotNull InstrumentedThreadPoolExecutor newDefaultValidationExecutor(
+        @NotNull String name, @Nullable MetricsListener metricsListener
+    ) {
+        return new InstrumentedThreadPoolExecutor(
+            name, DEFAULT_VALIDATION_MAX_THREADS, DEFAULT_VALIDATION_MAX_QUEUE_SIZE, DEFAULT_RETRY_AFTER_SECONDS,
+            metricsListener
+        );
+    }
+
+    private static BlockingQueue<Runnable> createQueue(int maxQueueSize) {
+        if (maxQueueSize < 0) {
+            throw new IllegalArgumentException("maxQueueSize cannot be negative");
+        }
+
+        return (maxQueueSize == 0) ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(maxQueueSize);
+    }
+
+    @Override
+    public void execute(@NotNull Runnable command) {
+        // Only pay for timing the queue wait if somebody wants to hear about it.
+        super.execute(isTaskStartedEventWanted() ? new QueueTimedTask(command) : command);
+    }
+
+    protected boolean isTaskStartedEventWanted() {
+        return metricsListener != null && metricsListener.isInterestedIn(ServerMetricsEvent.EXECUTOR_TASK_STARTED);
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        super.beforeExecute(t, r);
+        if (metricsListener != null && r instanceof QueueTimedTask) {
+            long queueWaitNanos = System.nanoTime() - ((QueueTimedTask) r).enqueuedAtNanos;
+            notifyMetricsListener(ServerMetricsEvent.EXECUTOR_TASK_STARTED, queueWaitNanos);
+        }
+    }
+
+    /**
+     * Called when a task can't be accepted. Throws a plain {@link RejectedExecutionException} if this executor has been
+     * shut down, otherwise fires {@link ServerMetricsEvent#EXECUTOR_TASK_REJECTED} and throws a {@link
+     * TooManyPendingTasksException}.
+     */
+    protected void rejectTask(@NotNull Runnable task) {
+        if (isShutdown()) {
+            throw new RejectedExecutionException("Task rejected because the executor has been shut down. "
+                                                 + "executor_name=" + name);
+        }
+
+        notifyMetricsListener(ServerMetricsEvent.EXECUTOR_TASK_REJECTED, 0);
+        throw new TooManyPendingTasksException(name, getMaximumPoolSize(), maxQueueSize, retryAfterSeconds);
+    }
+
+    protected void notifyMetricsListener(@NotNull ServerMetricsEvent event, long queueWaitNanos) {
+        if (metricsListener == null || !metricsListener.isInterestedIn(event)) {
+            return;
+        }
+
+        try {
+            metricsListener.onEvent(event, new ExecutorTaskMetrics(this, queueWaitNanos));
+        }
+        catch (Throwable t) {
+            logger.error("Metrics listener threw an exception while handling an executor event. event={}", event, t);
+        }
+    }
+
+    /**
+     * @return The name of this executor.
+     */
+    public @NotNull String getName() {
+        return name;
+    }
+
+    /**
+     * @return The max number of tasks that can be waiting for a thread.
+     */
+    public int getMaxQueueSize() {
+        return maxQueueSize;
+    }
+
+    /**
+     * @return The value for the {@code Retry-After} header sent to callers when a task is rejected.
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * Wraps submitted tasks so we know how long they waited in the queue.
+     */
+    protected static class QueueTimedTask implements Runnable {
+        protected final @NotNull Runnable delegate;
+        protected final long enqueuedAtNanos = System.nanoTime();
+
+        protected QueueTimedTask(@NotNull Runnable delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void run() {
+            delegate.run();
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger threadCounter = new AtomicInteger();
+
+        NamedThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(@NotNull Runnable r) {
+            Thread thread = new Thread(r, name + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
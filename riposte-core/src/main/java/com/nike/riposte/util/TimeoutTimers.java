@@ -0,0 +1,80 @@
+package com.nike.riposte.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * Factory methods for the hashed wheel {@link Timer}s Riposte uses for high volume timeouts, such as the per-request
+ * {@link com.nike.riposte.server.http.NonblockingEndpoint} response timeout check.
+ *
+ * <p>Scheduling a timeout on a hashed wheel timer is an O(1) enqueue, and cancelling one is an O(1) flag flip that
+ * the timer's worker thread cleans up on its next tick. Scheduling the same timeout on a Netty event loop inserts it
+ * into the event loop's scheduled task priority queue (O(log n)), and cancelling it from outside the event loop costs
+ * an extra task submission to the event loop just to remove it. The tradeoff is precision - a wheel timer timeout
+ * fires within one tick of its deadline - which is fine for timeouts measured in seconds. A single timer (and
+ * therefore a single worker thread) should be shared rather than creating one per channel or handler, see {@link
+ * #defaultTimeoutTimer()}.
+ */
+@SuppressWarnings("WeakerAccess")
+public class TimeoutTimers {
+
+    /**
+     * The default tick duration in milliseconds for timers created by {@link #newTimeoutTimer()}. Timeouts fire
+     * within roughly this many milliseconds of their deadline.
+     */
+    public static final long DEFAULT_TICK_DURATION_MILLIS = 10;
+    /**
+     * The default number of buckets in the wheel for timers created by {@link #newTimeoutTimer()}.
+     */
+    public static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+    // Intentionally protected - use the static methods.
+    protected TimeoutTimers() { /* do nothing */ }
+
+    /**
+     * @return A new {@link HashedWheelTimer} using {@link #DEFAULT_TICK_DURATION_MILLIS} and {@link
+     * #DEFAULT_TICKS_PER_WHEEL}, backed by a daemon worker thread.
+     */
+    public static @NotNull HashedWheelTimer newTimeoutTimer() {
+        return newTimeoutTimer(DEFAULT_TICK_DURATION_MILLIS, DEFAULT_TICKS_PER_WHEEL);
+    }
+
+    /**
+     * @param tickDurationMillis The duration of a single tick of the wheel. Must be greater than 0.
+     * @param ticksPerWheel The number of buckets in the wheel. Must be greater than 0.
+     * @return A new {@link HashedWheelTimer} with the given settings, backed by a daemon worker thread.
+     */
+    public static @NotNull HashedWheelTimer newTimeoutTimer(long tickDurationMillis, int ticksPerWheel) {
+        if (tickDurationMillis <= 0) {
+            throw new IllegalArgumentException("tickDurationMillis must be greater than 0");
+        }
+
+        if (ticksPerWheel <= 0) {
+            throw new IllegalArgumentException("ticksPerWheel must be greater than 0");
+        }
+
+        return new HashedWheelTimer(
+            new DefaultThreadFactory("riposte-timeout-timer", true),
+            tickDurationMillis,
+            TimeUnit.MILLISECONDS,
+            ticksPerWheel
+        );
+    }
+
+    /**
+     * @return The timer shared by everything in Riposte that doesn't supply its own. Created on first use via {@link
+     * #newTimeoutTimer()}.
+     */
+    public static @NotNull Timer defaultTimeoutTimer() {
+        return DefaultTimerHolder.INSTANCE;
+    }
+
+    private static class DefaultTimerHolder {
+        static final Timer INSTANCE = newTimeoutTimer();
+    }
+}
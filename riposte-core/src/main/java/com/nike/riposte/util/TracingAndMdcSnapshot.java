@@ -0,0 +1,74 @@
+package com.nike.riposte.util;
+
+import com.nike.wingtips.Span;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Deque;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of the distributed tracing span stack and logger MDC info that should be linked to a thread
+ * while doing work for a request. {@link com.nike.riposte.server.http.HttpProcessingState#getTracingAndMdcSnapshot()}
+ * creates one of these when the request's tracing or MDC info changes, and every async wrapper created for the request
+ * after that (see the {@code *WithTracingAndMdc(...)} methods in {@link AsyncNettyHelper}) references the same
+ * instance rather than holding its own copy.
+ *
+ * <p>The span stack and MDC map are held by reference, not copied - they must not be modified after the snapshot is
+ * created. Since snapshots are never modified, {@link AsyncNettyHelper#linkTracingAndMdcSnapshotToCurrentThread(
+ * TracingAndMdcSnapshot)} can tell when a thread is already set up with a given snapshot (e.g. when one wrapped
+ * {@link java.util.concurrent.CompletableFuture} stage runs another inline) and skip linking it again.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class TracingAndMdcSnapshot {
+
+    /**
+     * A snapshot with no tracing or MDC info.
+     */
+    public static final TracingAndMdcSnapshot EMPTY = new TracingAndMdcSnapshot(null, null);
+
+    private final @Nullable Deque<Span> distributedTraceStack;
+    private final @Nullable Map<String, String> mdcContextMap;
+    private final @Nullable Span currentSpan;
+
+    /**
+     * Creates a new snapshot. Consider {@link #of(Deque, Map)} instead, which reuses {@link #EMPTY} when possible.
+     *
+     * @param distributedTraceStack The span stack to link to threads, or null for no tracing info.
+     * @param mdcContextMap The MDC info to link to threads, or null for no MDC info.
+     */
+    public TracingAndMdcSnapshot(@Nullable Deque<Span> distributedTraceStack,
+                                 @Nullable Map<String, String> mdcContextMap) {
+        this.distributedTraceStack = distributedTraceStack;
+        this.mdcContextMap = mdcContextMap;
+        this.currentSpan = (distributedTraceStack == null) ? null : distributedTraceStack.peek();
+    }
+
+    /**
+     * @return A snapshot of the given info - {@link #EMPTY} if both arguments are null.
+     */
+    public static @NotNull TracingAndMdcSnapshot of(@Nullable Deque<Span> distributedTraceStack,
+                                                   @Nullable Map<String, String> mdcContextMap) {
+        if (distributedTraceStack == null && mdcContextMap == null)
+            return EMPTY;
+
+        return new TracingAndMdcSnapshot(distributedTraceStack, mdcContextMap);
+    }
+
+    public @Nullable Deque<Span> getDistributedTraceStack() {
+        return distributedTraceStack;
+    }
+
+    public @Nullable Map<String, String> getMdcContextMap() {
+        return mdcContextMap;
+    }
+
+    /**
+     * @return The span that was at the top of {@link #getDistributedTraceStack()} when this snapshot was created, i.e.
+     * the span that should be current on a thread this snapshot is linked to.
+     */
+    public @Nullable Span getCurrentSpan() {
+        return currentSpan;
+    }
+}
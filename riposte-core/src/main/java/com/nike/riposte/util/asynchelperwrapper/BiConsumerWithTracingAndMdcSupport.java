@@ -2,6 +2,7 @@ package com.nike.riposte.util.asynchelperwrapper;
 
 import com.nike.internal.util.Pair;
 import com.nike.riposte.util.AsyncNettyHelper;
+import com.nike.riposte.util.TracingAndMdcSnapshot;
 import com.nike.wingtips.Span;
 
 import java.util.Deque;
@@ -10,8 +11,8 @@ import java.util.function.BiConsumer;
 
 import io.netty.channel.ChannelHandlerContext;
 
-import static com.nike.riposte.util.AsyncNettyHelper.linkTracingAndMdcToCurrentThread;
-import static com.nike.riposte.util.AsyncNettyHelper.unlinkTracingAndMdcFromCurrentThread;
+import static com.nike.riposte.util.AsyncNettyHelper.linkTracingAndMdcSnapshotToCurrentThread;
+import static com.nike.riposte.util.AsyncNettyHelper.unlinkTracingAndMdcSnapshotFromCurrentThread;
 
 /**
  * A {@link java.util.function.BiConsumer} that wraps the given original so that the given {@link
@@ -25,6 +26,7 @@ public class BiConsumerWithTracingAndMdcSupport<T, U> implements BiConsumer<T, U
     protected final BiConsumer<T, U> origBiConsumer;
     protected final Deque<Span> distributedTraceStackForExecution;
     protected final Map<String, String> mdcContextMapForExecution;
+    protected final TracingAndMdcSnapshot tracingAndMdcSnapshotForExecution;
 
     /**
      * Constructor that extracts the trace and MDC info from the given {@link ChannelHandlerContext}'s {@link
@@ -38,7 +40,7 @@ public class BiConsumerWithTracingAndMdcSupport<T, U> implements BiConsumer<T, U
      * there won't be any trace or MDC info associated with the thread when the given operation is executed.
      */
     public BiConsumerWithTracingAndMdcSupport(BiConsumer<T, U> origBiConsumer, ChannelHandlerContext ctx) {
-        this(origBiConsumer, AsyncNettyHelper.extractTracingAndMdcInfoFromChannelHandlerContext(ctx));
+        this(origBiConsumer, AsyncNettyHelper.extractTracingAndMdcSnapshotFromChannelHandlerContext(ctx));
     }
 
     /**
@@ -74,25 +76,42 @@ public class BiConsumerWithTracingAndMdcSupport<T, U> implements BiConsumer<T, U
     public BiConsumerWithTracingAndMdcSupport(BiConsumer<T, U> origBiConsumer,
                                               Deque<Span> distributedTraceStackForExecution,
                                               Map<String, String> mdcContextMapForExecution) {
+        this(origBiConsumer, TracingAndMdcSnapshot.of(distributedTraceStackForExecution, mdcContextMapForExecution));
+    }
+
+    /**
+     * Constructor that uses the given {@link TracingAndMdcSnapshot}, which will be associated with the thread when the
+     * given operation is executed. Wrappers created with the same snapshot share it rather than each holding a copy.
+     * <p/>
+     * The operation you pass in cannot be null (an {@link IllegalArgumentException} will be thrown if you pass in null
+     * for the operation).
+     * <p/>
+     * The snapshot can be null, which is treated the same as {@link TracingAndMdcSnapshot#EMPTY}.
+     */
+    public BiConsumerWithTracingAndMdcSupport(BiConsumer<T, U> origBiConsumer,
+                                              TracingAndMdcSnapshot tracingAndMdcSnapshotForExecution) {
         if (origBiConsumer == null)
             throw new IllegalArgumentException("origBiConsumer cannot be null");
 
+        if (tracingAndMdcSnapshotForExecution == null)
+            tracingAndMdcSnapshotForExecution = TracingAndMdcSnapshot.EMPTY;
+
         this.origBiConsumer = origBiConsumer;
-        this.distributedTraceStackForExecution = distributedTraceStackForExecution;
-        this.mdcContextMapForExecution = mdcContextMapForExecution;
+        this.tracingAndMdcSnapshotForExecution = tracingAndMdcSnapshotForExecution;
+        this.distributedTraceStackForExecution = tracingAndMdcSnapshotForExecution.getDistributedTraceStack();
+        this.mdcContextMapForExecution = tracingAndMdcSnapshotForExecution.getMdcContextMap();
     }
 
     @Override
     public void accept(T t, U u) {
-        Pair<Deque<Span>, Map<String, String>> originalThreadInfo = null;
+        TracingAndMdcSnapshot originalThreadInfo = null;
         try {
-            originalThreadInfo =
-                linkTracingAndMdcToCurrentThread(distributedTraceStackForExecution, mdcContextMapForExecution);
+            originalThreadInfo = linkTracingAndMdcSnapshotToCurrentThread(tracingAndMdcSnapshotForExecution);
 
             origBiConsumer.accept(t, u);
         }
         finally {
-            unlinkTracingAndMdcFromCurrentThread(originalThreadInfo);
+            unlinkTracingAndMdcSnapshotFromCurrentThread(tracingAndMdcSnapshotForExecution, originalThreadInfo);
         }
     }
 }
@@ -2,6 +2,7 @@ package com.nike.riposte.util.asynchelperwrapper;
 
 import com.nike.internal.util.Pair;
 import com.nike.riposte.util.AsyncNettyHelper;
+import com.nike.riposte.util.TracingAndMdcSnapshot;
 import com.nike.wingtips.Span;
 
 import java.util.Deque;
@@ -10,8 +11,8 @@ import java.util.concurrent.Callable;
 
 import io.netty.channel.ChannelHandlerContext;
 
-import static com.nike.riposte.util.AsyncNettyHelper.linkTracingAndMdcToCurrentThread;
-import static com.nike.riposte.util.AsyncNettyHelper.unlinkTracingAndMdcFromCurrentThread;
+import static com.nike.riposte.util.AsyncNettyHelper.linkTracingAndMdcSnapshotToCurrentThread;
+import static com.nike.riposte.util.AsyncNettyHelper.unlinkTracingAndMdcSnapshotFromCurrentThread;
 
 /**
  * A {@link Callable} that wraps the given original so that the given {@link ChannelHandlerContext}'s distributed
@@ -25,6 +26,7 @@ public class CallableWithTracingAndMdcSupport<U> implements Callable<U> {
     protected final Callable<U> origCallable;
     protected final Deque<Span> distributedTraceStackForExecution;
     protected final Map<String, String> mdcContextMapForExecution;
+    protected final TracingAndMdcSnapshot tracingAndMdcSnapshotForExecution;
 
     /**
      * Contructor that extracts the trace and MDC info from the given {@link ChannelHandlerContext}'s {@link
@@ -38,7 +40,7 @@ public class CallableWithTracingAndMdcSupport<U> implements Callable<U> {
      * there won't be any trace or MDC info associated with the thread when the given operation is executed.
      */
     public CallableWithTracingAndMdcSupport(Callable<U> origCallable, ChannelHandlerContext ctx) {
-        this(origCallable, AsyncNettyHelper.extractTracingAndMdcInfoFromChannelHandlerContext(ctx));
+        this(origCallable, AsyncNettyHelper.extractTracingAndMdcSnapshotFromChannelHandlerContext(ctx));
     }
 
     /**
@@ -73,25 +75,42 @@ public class CallableWithTracingAndMdcSupport<U> implements Callable<U> {
      */
     public CallableWithTracingAndMdcSupport(Callable<U> origCallable, Deque<Span> distributedTraceStackForExecution,
                                             Map<String, String> mdcContextMapForExecution) {
+        this(origCallable, TracingAndMdcSnapshot.of(distributedTraceStackForExecution, mdcContextMapForExecution));
+    }
+
+    /**
+     * Constructor that uses the given {@link TracingAndMdcSnapshot}, which will be associated with the thread when the
+     * given operation is executed. Wrappers created with the same snapshot share it rather than each holding a copy.
+     * <p/>
+     * The operation you pass in cannot be null (an {@link IllegalArgumentException} will be thrown if you pass in null
+     * for the operation).
+     * <p/>
+     * The snapshot can be null, which is treated the same as {@link TracingAndMdcSnapshot#EMPTY}.
+     */
+    public CallableWithTracingAndMdcSupport(Callable<U> origCallable,
+                                            TracingAndMdcSnapshot tracingAndMdcSnapshotForExecution) {
         if (origCallable == null)
             throw new IllegalArgumentException("origCallable cannot be null");
 
+        if (tracingAndMdcSnapshotForExecution == null)
+            tracingAndMdcSnapshotForExecution = TracingAndMdcSnapshot.EMPTY;
+
         this.origCallable = origCallable;
-        this.distributedTraceStackForExecution = distributedTraceStackForExecution;
-        this.mdcContextMapForExecution = mdcContextMapForExecution;
+        this.tracingAndMdcSnapshotForExecution = tracingAndMdcSnapshotForExecution;
+        this.distributedTraceStackForExecution = tracingAndMdcSnapshotForExecution.getDistributedTraceStack();
+        this.mdcContextMapForExecution = tracingAndMdcSnapshotForExecution.getMdcContextMap();
     }
 
     @Override
     public U call() throws Exception {
-        Pair<Deque<Span>, Map<String, String>> originalThreadInfo = null;
+        TracingAndMdcSnapshot originalThreadInfo = null;
         try {
-            originalThreadInfo =
-                linkTracingAndMdcToCurrentThread(distributedTraceStackForExecution, mdcContextMapForExecution);
+            originalThreadInfo = linkTracingAndMdcSnapshotToCurrentThread(tracingAndMdcSnapshotForExecution);
 
             return origCallable.call();
         }
         finally {
-            unlinkTracingAndMdcFromCurrentThread(originalThreadInfo);
+            unlinkTracingAndMdcSnapshotFromCurrentThread(tracingAndMdcSnapshotForExecution, originalThreadInfo);
         }
     }
 }
@@ -2,6 +2,7 @@ package com.nike.riposte.util.asynchelperwrapper;
 
 import com.nike.internal.util.Pair;
 import com.nike.riposte.util.AsyncNettyHelper;
+import com.nike.riposte.util.TracingAndMdcSnapshot;
 import com.nike.wingtips.Span;
 
 import java.util.Deque;
@@ -12,8 +13,8 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 
-import static com.nike.riposte.util.AsyncNettyHelper.linkTracingAndMdcToCurrentThread;
-import static com.nike.riposte.util.AsyncNettyHelper.unlinkTracingAndMdcFromCurrentThread;
+import static com.nike.riposte.util.AsyncNettyHelper.linkTracingAndMdcSnapshotToCurrentThread;
+import static com.nike.riposte.util.AsyncNettyHelper.unlinkTracingAndMdcSnapshotFromCurrentThread;
 
 /**
  * Implementation of {@link ChannelFutureListener} that executes the given {@link #postCompleteOperation} {@link
@@ -29,6 +30,7 @@ public class ChannelFutureListenerWithTracingAndMdc implements ChannelFutureList
     protected final Consumer<ChannelFuture> postCompleteOperation;
     protected final Deque<Span> distributedTraceStackForExecution;
     protected final Map<String, String> mdcContextMapForExecution;
+    protected final TracingAndMdcSnapshot tracingAndMdcSnapshotForExecution;
 
     /**
      * Contructor that extracts the trace and MDC info from the given {@link ChannelHandlerContext}'s {@link
@@ -43,7 +45,7 @@ public class ChannelFutureListenerWithTracingAndMdc implements ChannelFutureList
      */
     public ChannelFutureListenerWithTracingAndMdc(Consumer<ChannelFuture> postCompleteOperation,
                                                   ChannelHandlerContext ctx) {
-        this(postCompleteOperation, AsyncNettyHelper.extractTracingAndMdcInfoFromChannelHandlerContext(ctx));
+        this(postCompleteOperation, AsyncNettyHelper.extractTracingAndMdcSnapshotFromChannelHandlerContext(ctx));
     }
 
     /**
@@ -79,25 +81,45 @@ public class ChannelFutureListenerWithTracingAndMdc implements ChannelFutureList
     public ChannelFutureListenerWithTracingAndMdc(Consumer<ChannelFuture> postCompleteOperation,
                                                   Deque<Span> distributedTraceStackForExecution,
                                                   Map<String, String> mdcContextMapForExecution) {
+        this(
+            postCompleteOperation,
+            TracingAndMdcSnapshot.of(distributedTraceStackForExecution, mdcContextMapForExecution)
+        );
+    }
+
+    /**
+     * Constructor that uses the given {@link TracingAndMdcSnapshot}, which will be associated with the thread when the
+     * given operation is executed. Wrappers created with the same snapshot share it rather than each holding a copy.
+     * <p/>
+     * The operation you pass in cannot be null (an {@link IllegalArgumentException} will be thrown if you pass in null
+     * for the operation).
+     * <p/>
+     * The snapshot can be null, which is treated the same as {@link TracingAndMdcSnapshot#EMPTY}.
+     */
+    public ChannelFutureListenerWithTracingAndMdc(Consumer<ChannelFuture> postCompleteOperation,
+                                                  TracingAndMdcSnapshot tracingAndMdcSnapshotForExecution) {
         if (postCompleteOperation == null)
             throw new IllegalArgumentException("postCompleteOperation cannot be null");
 
+        if (tracingAndMdcSnapshotForExecution == null)
+            tracingAndMdcSnapshotForExecution = TracingAndMdcSnapshot.EMPTY;
+
         this.postCompleteOperation = postCompleteOperation;
-        this.distributedTraceStackForExecution = distributedTraceStackForExecution;
-        this.mdcContextMapForExecution = mdcContextMapForExecution;
+        this.tracingAndMdcSnapshotForExecution = tracingAndMdcSnapshotForExecution;
+        this.distributedTraceStackForExecution = tracingAndMdcSnapshotForExecution.getDistributedTraceStack();
+        this.mdcContextMapForExecution = tracingAndMdcSnapshotForExecution.getMdcContextMap();
     }
 
     @Override
     public void operationComplete(ChannelFuture future) throws Exception {
-        Pair<Deque<Span>, Map<String, String>> originalThreadInfo = null;
+        TracingAndMdcSnapshot originalThreadInfo = null;
         try {
-            originalThreadInfo =
-                linkTracingAndMdcToCurrentThread(distributedTraceStackForExecution, mdcContextMapForExecution);
+            originalThreadInfo = linkTracingAndMdcSnapshotToCurrentThread(tracingAndMdcSnapshotForExecution);
 
             postCompleteOperation.accept(future);
         }
         finally {
-            unlinkTracingAndMdcFromCurrentThread(originalThreadInfo);
+            unlinkTracingAndMdcSnapshotFromCurrentThread(tracingAndMdcSnapshotForExecution, originalThreadInfo);
         }
     }
 }
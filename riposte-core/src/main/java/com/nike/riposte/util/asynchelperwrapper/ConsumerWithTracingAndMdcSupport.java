@@ -2,6 +2,7 @@ package com.nike.riposte.util.asynchelperwrapper;
 
 import com.nike.internal.util.Pair;
 import com.nike.riposte.util.AsyncNettyHelper;
+import com.nike.riposte.util.TracingAndMdcSnapshot;
 import com.nike.wingtips.Span;
 
 import java.util.Deque;
@@ -10,8 +11,8 @@ import java.util.function.Consumer;
 
 import io.netty.channel.ChannelHandlerContext;
 
-import static com.nike.riposte.util.AsyncNettyHelper.linkTracingAndMdcToCurrentThread;
-import static com.nike.riposte.util.AsyncNettyHelper.unlinkTracingAndMdcFromCurrentThread;
+import static com.nike.riposte.util.AsyncNettyHelper.linkTracingAndMdcSnapshotToCurrentThread;
+import static com.nike.riposte.util.AsyncNettyHelper.unlinkTracingAndMdcSnapshotFromCurrentThread;
 
 /**
  * A {@link java.util.function.Consumer} that wraps the given original so that the given {@link
@@ -25,6 +26,7 @@ public class ConsumerWithTracingAndMdcSupport<T> implements Consumer<T> {
     protected final Consumer<T> origConsumer;
     protected final Deque<Span> distributedTraceStackForExecution;
     protected final Map<String, String> mdcContextMapForExecution;
+    protected final TracingAndMdcSnapshot tracingAndMdcSnapshotForExecution;
 
     /**
      * Contructor that extracts the trace and MDC info from the given {@link ChannelHandlerContext}'s {@link
@@ -38,7 +40,7 @@ public class ConsumerWithTracingAndMdcSupport<T> implements Consumer<T> {
      * there won't be any trace or MDC info associated with the thread when the given operation is executed.
      */
     public ConsumerWithTracingAndMdcSupport(Consumer<T> origConsumer, ChannelHandlerContext ctx) {
-        this(origConsumer, AsyncNettyHelper.extractTracingAndMdcInfoFromChannelHandlerContext(ctx));
+        this(origConsumer, AsyncNettyHelper.extractTracingAndMdcSnapshotFromChannelHandlerContext(ctx));
     }
 
     /**
@@ -73,25 +75,42 @@ public class ConsumerWithTracingAndMdcSupport<T> implements Consumer<T> {
      */
     public ConsumerWithTracingAndMdcSupport(Consumer<T> origConsumer, Deque<Span> distributedTraceStackForExecution,
                                             Map<String, String> mdcContextMapForExecution) {
+        this(origConsumer, TracingAndMdcSnapshot.of(distributedTraceStackForExecution, mdcContextMapForExecution));
+    }
+
+    /**
+     * Constructor that uses the given {@link TracingAndMdcSnapshot}, which will be associated with the thread when the
+     * given operation is executed. Wrappers created with the same snapshot share it rather than each holding a copy.
+     * <p/>
+     * The operation you pass in cannot be null (an {@link IllegalArgumentException} will be thrown if you pass in null
+     * for the operation).
+     * <p/>
+     * The snapshot can be null, which is treated the same as {@link TracingAndMdcSnapshot#EMPTY}.
+     */
+    public ConsumerWithTracingAndMdcSupport(Consumer<T> origConsumer,
+                                            TracingAndMdcSnapshot tracingAndMdcSnapshotForExecution) {
         if (origConsumer == null)
             throw new IllegalArgumentException("origConsumer cannot be null");
 
+        if (tracingAndMdcSnapshotForExecution == null)
+            tracingAndMdcSnapshotForExecution = TracingAndMdcSnapshot.EMPTY;
+
         this.origConsumer = origConsumer;
-        this.distributedTraceStackForExecution = distributedTraceStackForExecution;
-        this.mdcContextMapForExecution = mdcContextMapForExecution;
+        this.tracingAndMdcSnapshotForExecution = tracingAndMdcSnapshotForExecution;
+        this.distributedTraceStackForExecution = tracingAndMdcSnapshotForExecution.getDistributedTraceStack();
+        this.mdcContextMapForExecution = tracingAndMdcSnapshotForExecution.getMdcContextMap();
     }
 
     @Override
     public void accept(T t) {
-        Pair<Deque<Span>, Map<String, String>> originalThreadInfo = null;
+        TracingAndMdcSnapshot originalThreadInfo = null;
         try {
-            originalThreadInfo =
-                linkTracingAndMdcToCurrentThread(distributedTraceStackForExecution, mdcContextMapForExecution);
+            originalThreadInfo = linkTracingAndMdcSnapshotToCurrentThread(tracingAndMdcSnapshotForExecution);
 
             origConsumer.accept(t);
         }
         finally {
-            unlinkTracingAndMdcFromCurrentThread(originalThreadInfo);
+            unlinkTracingAndMdcSnapshotFromCurrentThread(tracingAndMdcSnapshotForExecution, originalThreadInfo);
         }
     }
 }
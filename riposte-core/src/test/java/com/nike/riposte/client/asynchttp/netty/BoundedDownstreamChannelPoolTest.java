@@ -0,0 +1,250 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionPoolConfig;
+import com.nike.riposte.server.error.exception.DownstreamConnectionPoolExhaustedException;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.net.InetSocketAddress;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link BoundedDownstreamChannelPool}.
+ */
+public class BoundedDownstreamChannelPoolTest {
+
+    private EventLoopGroup eventLoopGroup;
+    private Channel serverChannel;
+    private Bootstrap bootstrap;
+    private InetSocketAddress downstreamAddress;
+    private MetricsListener metricsListenerMock;
+    private BoundedDownstreamChannelPool pool;
+
+    @Before
+    public void beforeMethod() throws InterruptedException {
+        eventLoopGroup = new DefaultEventLoopGroup(1);
+        LocalAddress localAddress = new LocalAddress(UUID.randomUUID().toString());
+        serverChannel = new ServerBootstrap()
+            .group(eventLoopGroup)
+            .channel(LocalServerChannel.class)
+            .childHandler(new ChannelInboundHandlerAdapter())
+            .bind(localAddress)
+            .sync()
+            .channel();
+        bootstrap = new Bootstrap()
+            .group(eventLoopGroup)
+            .channel(LocalChannel.class)
+            .remoteAddress(localAddress);
+        downstreamAddress = InetSocketAddress.createUnresolved("127.0.0.1", 8080);
+        metricsListenerMock = mock(MetricsListener.class);
+        doReturn(true).when(metricsListenerMock).isInterestedIn(any(ServerMetricsEvent.class));
+    }
+
+    @After
+    public void afterMethod() {
+        if (pool != null)
+            pool.close();
+
+        serverChannel.close().syncUninterruptibly();
+        eventLoopGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).syncUninterruptibly();
+    }
+
+    private BoundedDownstreamChannelPool createPool(int maxConnections, int maxPendingAcquires,
+                                                    long acquireTimeoutMillis) {
+        ProxyRouterConnectionPoolConfig config = new ProxyRouterConnectionPoolConfig() {
+            @Override
+            public int maxConnectionsPerHost() {
+                return maxConnections;
+            }
+
+            @Override
+            public int maxPendingAcquiresPerHost() {
+                return maxPendingAcquires;
+            }
+
+            @Override
+            public long acquireTimeoutMillis() {
+                return acquireTimeoutMillis;
+            }
+        };
+
+        return new BoundedDownstreamChannelPool(
+            bootstrap, new AbstractChannelPoolHandler() {
+                @Override
+                public void channelCreated(Channel ch) {
+                    // Nothing to do.
+                }
+            }, ChannelHealthChecker.ACTIVE, downstreamAddress, config, metricsListenerMock
+        );
+    }
+
+    private ChannelPoolAcquireMetrics verifyMetricsEvent(ServerMetricsEvent event) {
+        ArgumentCaptor<Object> valueCaptor = ArgumentCaptor.forClass(Object.class);
+        verify(metricsListenerMock).onEvent(eq(event), valueCaptor.capture());
+        assertThat(valueCaptor.getValue()).isInstanceOf(ChannelPoolAcquireMetrics.class);
+        ChannelPoolAcquireMetrics metrics = (ChannelPoolAcquireMetrics) valueCaptor.getValue();
+        assertThat(metrics.pool).isSameAs(pool);
+        assertThat(metrics.acquireNanos).isGreaterThanOrEqualTo(0);
+        return metrics;
+    }
+
+    @Test
+    public void constructor_sets_fields_as_expected() {
+        // when
+        pool = createPool(42, 4242, 1234);
+
+        // then
+        assertThat(pool.getDownstreamAddress()).isSameAs(downstreamAddress);
+        assertThat(pool.getName()).isEqualTo("127.0.0.1:8080");
+        assertThat(pool.getMaxConnections()).isEqualTo(42);
+        assertThat(pool.getMaxPendingAcquires()).isEqualTo(4242);
+        assertThat(pool.getAcquireTimeoutMillis()).isEqualTo(1234);
+        assertThat(pool.getPendingAcquireCount()).isEqualTo(0);
+        assertThat(pool.getRejectedAcquireCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void constructor_uses_given_pool_name_when_one_is_passed_in() {
+        // when
+        pool = new BoundedDownstreamChannelPool(
+            bootstrap, new AbstractChannelPoolHandler() {
+                @Override
+                public void channelCreated(Channel ch) {
+                    // Nothing to do.
+                }
+            }, ChannelHealthChecker.ACTIVE, downstreamAddress, "some-pool-name",
+            new ProxyRouterConnectionPoolConfig() {}, metricsListenerMock
+        );
+
+        // then
+        assertThat(pool.getDownstreamAddress()).isSameAs(downstreamAddress);
+        assertThat(pool.getName()).isEqualTo("some-pool-name");
+    }
+
+    @Test
+    public void acquire_returns_connection_and_notifies_metrics_listener_when_pool_has_room() {
+        // given
+        pool = createPool(1, 1, 1000);
+
+        // when
+        Future<Channel> result = pool.acquire().syncUninterruptibly();
+
+        // then
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getNow().isActive()).isTrue();
+        assertThat(pool.acquiredChannelCount()).isEqualTo(1);
+        assertThat(pool.getPendingAcquireCount()).isEqualTo(0);
+        assertThat(pool.getRejectedAcquireCount()).isEqualTo(0);
+        verifyMetricsEvent(ServerMetricsEvent.PROXY_ROUTER_CONNECTION_ACQUIRED);
+        verify(metricsListenerMock, never())
+            .onEvent(eq(ServerMetricsEvent.PROXY_ROUTER_CONNECTION_ACQUIRE_REJECTED), any());
+    }
+
+    @Test
+    public void acquire_waits_for_a_released_connection_when_pool_is_at_max_connections() {
+        // given
+        pool = createPool(1, 1, -1);
+        Channel firstChannel = pool.acquire().syncUninterruptibly().getNow();
+
+        // when
+        Future<Channel> secondAcquire = pool.acquire();
+
+        // then
+        assertThat(secondAcquire.awaitUninterruptibly(100)).isFalse();
+        assertThat(pool.getPendingAcquireCount()).isEqualTo(1);
+
+        // and when
+        pool.release(firstChannel).syncUninterruptibly();
+
+        // then
+        assertThat(secondAcquire.syncUninterruptibly().getNow()).isSameAs(firstChannel);
+        assertThat(pool.getPendingAcquireCount()).isEqualTo(0);
+        assertThat(pool.getRejectedAcquireCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void acquire_fails_with_DownstreamConnectionPoolExhaustedException_when_acquire_times_out() {
+        // given
+        pool = createPool(1, 1, 50);
+        pool.acquire().syncUninterruptibly();
+
+        // when
+        Future<Channel> result = pool.acquire().awaitUninterruptibly();
+
+        // then
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.cause()).isInstanceOf(DownstreamConnectionPoolExhaustedException.class);
+        DownstreamConnectionPoolExhaustedException ex = (DownstreamConnectionPoolExhaustedException) result.cause();
+        assertThat(ex.downstreamAddress).isEqualTo("127.0.0.1:8080");
+        assertThat(ex.acquireTimedOut).isTrue();
+        assertThat(ex.maxConnections).isEqualTo(1);
+        assertThat(ex.maxPendingAcquires).isEqualTo(1);
+        assertThat(ex.acquireTimeoutMillis).isEqualTo(50);
+        assertThat(pool.getPendingAcquireCount()).isEqualTo(0);
+        assertThat(pool.getRejectedAcquireCount()).isEqualTo(1);
+        verifyMetricsEvent(ServerMetricsEvent.PROXY_ROUTER_CONNECTION_ACQUIRE_REJECTED);
+    }
+
+    @Test
+    public void acquire_fails_immediately_with_DownstreamConnectionPoolExhaustedException_when_pending_queue_is_full() {
+        // given
+        pool = createPool(1, 1, -1);
+        pool.acquire().syncUninterruptibly();
+        Future<Channel> queuedAcquire = pool.acquire();
+
+        // when
+        Future<Channel> result = pool.acquire().awaitUninterruptibly();
+
+        // then
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.cause()).isInstanceOf(DownstreamConnectionPoolExhaustedException.class);
+        assertThat(((DownstreamConnectionPoolExhaustedException) result.cause()).acquireTimedOut).isFalse();
+        assertThat(queuedAcquire.isDone()).isFalse();
+        assertThat(pool.getPendingAcquireCount()).isEqualTo(1);
+        assertThat(pool.getRejectedAcquireCount()).isEqualTo(1);
+        verifyMetricsEvent(ServerMetricsEvent.PROXY_ROUTER_CONNECTION_ACQUIRE_REJECTED);
+    }
+
+    @Test
+    public void acquire_does_not_propagate_exceptions_thrown_by_metrics_listener() {
+        // given
+        pool = createPool(1, 1, 1000);
+        doThrow(new RuntimeException("intentional test exception"))
+            .when(metricsListenerMock).onEvent(any(ServerMetricsEvent.class), any());
+
+        // when
+        Future<Channel> result = pool.acquire().syncUninterruptibly();
+
+        // then
+        assertThat(result.isSuccess()).isTrue();
+        verifyMetricsEvent(ServerMetricsEvent.PROXY_ROUTER_CONNECTION_ACQUIRED);
+    }
+}
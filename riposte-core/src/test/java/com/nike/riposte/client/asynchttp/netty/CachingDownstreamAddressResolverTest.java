@@ -0,0 +1,371 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterDnsResolverConfig;
+import com.nike.riposte.server.error.exception.HostnameResolutionException;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link CachingDownstreamAddressResolver}.
+ */
+@RunWith(DataProviderRunner.class)
+public class CachingDownstreamAddressResolverTest {
+
+    private static final String HOSTNAME = "some.downstream.host";
+    private static final long MIN_TTL_MILLIS = 1000;
+    private static final long MAX_TTL_MILLIS = 60_000;
+    private static final long NEGATIVE_TTL_MILLIS = 500;
+
+    private List<String> lookupCalls;
+    private List<CompletableFuture<DownstreamAddressLookup.Result>> lookupFutures;
+    private long currentNanos;
+    private ProxyRouterDnsResolverConfig config;
+    private CachingDownstreamAddressResolver resolver;
+
+    private InetAddress ip1;
+    private InetAddress ip2;
+
+    @Before
+    public void beforeMethod() throws UnknownHostException {
+        lookupCalls = new ArrayList<>();
+        lookupFutures = new ArrayList<>();
+        currentNanos = 42;
+        config = createConfig(MIN_TTL_MILLIS, MAX_TTL_MILLIS, NEGATIVE_TTL_MILLIS);
+        resolver = new CachingDownstreamAddressResolver(stubLookup(), config, () -> currentNanos);
+
+        ip1 = InetAddress.getByAddress(HOSTNAME, new byte[]{10, 0, 0, 1});
+        ip2 = InetAddress.getByAddress(HOSTNAME, new byte[]{10, 0, 0, 2});
+    }
+
+    private DownstreamAddressLookup stubLookup() {
+        return hostname -> {
+            lookupCalls.add(hostname);
+            CompletableFuture<DownstreamAddressLookup.Result> future = new CompletableFuture<>();
+            lookupFutures.add(future);
+            return future;
+        };
+    }
+
+    private ProxyRouterDnsResolverConfig createConfig(long minTtlMillis, long maxTtlMillis, long negativeTtlMillis) {
+        return new ProxyRouterDnsResolverConfig() {
+            @Override
+            public long minTtlMillis() {
+                return minTtlMillis;
+            }
+
+            @Override
+            public long maxTtlMillis() {
+                return maxTtlMillis;
+            }
+
+            @Override
+            public long negativeTtlMillis() {
+                return negativeTtlMillis;
+            }
+        };
+    }
+
+    private void advanceMillis(long millis) {
+        currentNanos += TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private void completeLookup(int index, long ttlMillis, InetAddress... addresses) {
+        lookupFutures.get(index).complete(new DownstreamAddressLookup.Result(Arrays.asList(addresses), ttlMillis));
+    }
+
+    private void cacheAddresses(long ttlMillis, InetAddress... addresses) {
+        resolver.resolve(HOSTNAME, 8080);
+        completeLookup(lookupFutures.size() - 1, ttlMillis, addresses);
+    }
+
+    private Throwable extractFailure(CompletableFuture<InetSocketAddress> future) {
+        assertThat(future).isCompletedExceptionally();
+        Throwable ex = catchThrowable(future::get);
+        assertThat(ex).isInstanceOf(ExecutionException.class);
+        return ex.getCause();
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_min_ttl_is_greater_than_max_ttl() {
+        // when
+        Throwable ex = catchThrowable(
+            () -> new CachingDownstreamAddressResolver(stubLookup(), createConfig(2000, 1000, 0))
+        );
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("minTtlMillis cannot be greater than maxTtlMillis");
+    }
+
+    @Test
+    public void resolve_waits_on_lookup_when_hostname_is_not_cached() throws Exception {
+        // when
+        CompletableFuture<InetSocketAddress> result = resolver.resolve(HOSTNAME, 8080);
+
+        // then
+        assertThat(lookupCalls).containsExactly(HOSTNAME);
+        assertThat(result).isNotDone();
+
+        // and when
+        completeLookup(0, 30_000, ip1);
+
+        // then
+        assertThat(result.get()).isEqualTo(new InetSocketAddress(ip1, 8080));
+    }
+
+    @Test
+    public void resolve_returns_completed_future_without_lookup_when_hostname_is_cached() throws Exception {
+        // given
+        cacheAddresses(30_000, ip1);
+        advanceMillis(1000);
+
+        // when
+        CompletableFuture<InetSocketAddress> result = resolver.resolve(HOSTNAME, 4242);
+
+        // then
+        assertThat(result).isDone();
+        assertThat(result.get()).isEqualTo(new InetSocketAddress(ip1, 4242));
+        assertThat(lookupCalls).hasSize(1);
+    }
+
+    @Test
+    public void resolve_shares_a_single_lookup_between_concurrent_calls_for_the_same_hostname() throws Exception {
+        // when
+        CompletableFuture<InetSocketAddress> firstResult = resolver.resolve(HOSTNAME, 8080);
+        CompletableFuture<InetSocketAddress> secondResult = resolver.resolve(HOSTNAME, 8443);
+        completeLookup(0, 30_000, ip1);
+
+        // then
+        assertThat(lookupCalls).hasSize(1);
+        assertThat(firstResult.get()).isEqualTo(new InetSocketAddress(ip1, 8080));
+        assertThat(secondResult.get()).isEqualTo(new InetSocketAddress(ip1, 8443));
+    }
+
+    @Test
+    public void resolve_picks_randomly_between_multiple_addresses() throws Exception {
+        // given
+        cacheAddresses(30_000, ip1, ip2);
+        Set<InetAddress> addressesUsed = new HashSet<>();
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            addressesUsed.add(resolver.resolve(HOSTNAME, 8080).get().getAddress());
+        }
+
+        // then
+        assertThat(addressesUsed).containsExactlyInAnyOrder(ip1, ip2);
+        assertThat(lookupCalls).hasSize(1);
+    }
+
+    @Test
+    public void resolveAll_returns_all_cached_addresses_with_the_given_port() throws Exception {
+        // given
+        cacheAddresses(30_000, ip1, ip2);
+
+        // when
+        CompletableFuture<List<InetSocketAddress>> result = resolver.resolveAll(HOSTNAME, 4242);
+
+        // then
+        assertThat(result).isDone();
+        assertThat(result.get()).containsExactly(new InetSocketAddress(ip1, 4242), new InetSocketAddress(ip2, 4242));
+        assertThat(lookupCalls).hasSize(1);
+    }
+
+    @Test
+    public void resolveAll_fails_with_HostnameResolutionException_if_lookup_fails() {
+        // given
+        CompletableFuture<List<InetSocketAddress>> result = resolver.resolveAll(HOSTNAME, 8080);
+        UnknownHostException lookupEx = new UnknownHostException("intentional test exception");
+
+        // when
+        lookupFutures.get(0).completeExceptionally(lookupEx);
+
+        // then
+        assertThat(result).isCompletedExceptionally();
+        Throwable ex = catchThrowable(result::get);
+        assertThat(ex.getCause())
+            .isInstanceOf(HostnameResolutionException.class)
+            .hasMessage("Unable to resolve hostname into IP address(es). hostname=" + HOSTNAME)
+            .hasCause(lookupEx);
+    }
+
+    @DataProvider(value = {
+        "30000      |   30000",
+        "0          |   1000",
+        "-1         |   1000",
+        "999999999  |   60000",
+    }, splitBy = "\\|")
+    @Test
+    public void resolve_caches_addresses_for_the_lookup_ttl_clamped_by_the_config(
+        long lookupTtlMillis, long expectedTtlMillis
+    ) {
+        // given
+        cacheAddresses(lookupTtlMillis, ip1);
+
+        // when
+        advanceMillis(expectedTtlMillis - 1);
+        CompletableFuture<InetSocketAddress> beforeExpiration = resolver.resolve(HOSTNAME, 8080);
+
+        // then
+        assertThat(beforeExpiration).isDone();
+
+        // and when
+        advanceMillis(1);
+        CompletableFuture<InetSocketAddress> afterExpiration = resolver.resolve(HOSTNAME, 8080);
+
+        // then
+        assertThat(afterExpiration).isNotDone();
+        assertThat(lookupCalls.size()).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    public void resolve_refreshes_in_the_background_once_refresh_ahead_percent_of_ttl_has_passed() throws Exception {
+        // given
+        cacheAddresses(10_000, ip1);
+        advanceMillis(10_000 * CachingDownstreamAddressResolver.REFRESH_AHEAD_PERCENT / 100 - 1);
+
+        // when
+        resolver.resolve(HOSTNAME, 8080);
+
+        // then
+        assertThat(lookupCalls).hasSize(1);
+
+        // and when
+        advanceMillis(1);
+        CompletableFuture<InetSocketAddress> triggeringResult = resolver.resolve(HOSTNAME, 8080);
+        CompletableFuture<InetSocketAddress> nextResult = resolver.resolve(HOSTNAME, 8080);
+
+        // then
+        assertThat(lookupCalls).hasSize(2);
+        assertThat(triggeringResult.get()).isEqualTo(new InetSocketAddress(ip1, 8080));
+        assertThat(nextResult.get()).isEqualTo(new InetSocketAddress(ip1, 8080));
+
+        // and when
+        completeLookup(1, 10_000, ip2);
+        advanceMillis(5000);
+
+        // then
+        assertThat(resolver.resolve(HOSTNAME, 8080).get()).isEqualTo(new InetSocketAddress(ip2, 8080));
+        assertThat(lookupCalls).hasSize(2);
+    }
+
+    @Test
+    public void resolve_keeps_unexpired_addresses_if_background_refresh_fails() throws Exception {
+        // given
+        cacheAddresses(10_000, ip1);
+        advanceMillis(9000);
+        resolver.resolve(HOSTNAME, 8080);
+        assertThat(lookupCalls).hasSize(2);
+
+        // when
+        lookupFutures.get(1).completeExceptionally(new UnknownHostException("intentional test exception"));
+        CompletableFuture<InetSocketAddress> result = resolver.resolve(HOSTNAME, 8080);
+
+        // then
+        assertThat(result.get()).isEqualTo(new InetSocketAddress(ip1, 8080));
+        assertThat(lookupCalls).hasSize(2);
+    }
+
+    @Test
+    public void resolve_fails_with_HostnameResolutionException_and_caches_the_failure_for_negative_ttl() {
+        // given
+        UnknownHostException lookupError = new UnknownHostException("intentional test exception");
+
+        // when
+        CompletableFuture<InetSocketAddress> result = resolver.resolve(HOSTNAME, 8080);
+        lookupFutures.get(0).completeExceptionally(lookupError);
+
+        // then
+        Throwable failure = extractFailure(result);
+        assertThat(failure)
+            .isInstanceOf(HostnameResolutionException.class)
+            .hasMessage("Unable to resolve hostname into IP address(es). hostname=" + HOSTNAME)
+            .hasCause(lookupError);
+
+        // and when
+        advanceMillis(NEGATIVE_TTL_MILLIS - 1);
+        CompletableFuture<InetSocketAddress> cachedFailure = resolver.resolve(HOSTNAME, 8080);
+
+        // then
+        assertThat(extractFailure(cachedFailure)).isInstanceOf(HostnameResolutionException.class);
+        assertThat(lookupCalls).hasSize(1);
+
+        // and when
+        advanceMillis(1);
+        CompletableFuture<InetSocketAddress> afterNegativeTtl = resolver.resolve(HOSTNAME, 8080);
+
+        // then
+        assertThat(afterNegativeTtl).isNotDone();
+        assertThat(lookupCalls).hasSize(2);
+    }
+
+    @Test
+    public void resolve_does_not_cache_failures_if_negative_ttl_is_disabled() {
+        // given
+        resolver = new CachingDownstreamAddressResolver(
+            stubLookup(), createConfig(MIN_TTL_MILLIS, MAX_TTL_MILLIS, 0), () -> currentNanos
+        );
+        resolver.resolve(HOSTNAME, 8080);
+        lookupFutures.get(0).completeExceptionally(new UnknownHostException("intentional test exception"));
+
+        // when
+        CompletableFuture<InetSocketAddress> result = resolver.resolve(HOSTNAME, 8080);
+
+        // then
+        assertThat(result).isNotDone();
+        assertThat(lookupCalls).hasSize(2);
+    }
+
+    @Test
+    public void resolve_fails_with_HostnameResolutionException_if_lookup_throws() {
+        // given
+        RuntimeException lookupError = new RuntimeException("intentional test exception");
+        resolver = new CachingDownstreamAddressResolver(
+            hostname -> {
+                throw lookupError;
+            },
+            config,
+            () -> currentNanos
+        );
+
+        // when
+        CompletableFuture<InetSocketAddress> result = resolver.resolve(HOSTNAME, 8080);
+
+        // then
+        assertThat(extractFailure(result))
+            .isInstanceOf(HostnameResolutionException.class)
+            .hasCause(lookupError);
+        assertThat(resolver.inFlightLookups).isEmpty();
+    }
+
+    @Test
+    public void Result_constructor_throws_IllegalArgumentException_if_addresses_is_empty() {
+        // when
+        Throwable ex = catchThrowable(() -> new DownstreamAddressLookup.Result(Collections.emptyList(), 1000));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,169 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests the functionality of {@link DownstreamAddressStatsTracker}.
+ */
+@RunWith(DataProviderRunner.class)
+public class DownstreamAddressStatsTrackerTest {
+
+    private static final long DECAY_WINDOW_MILLIS = 1000;
+
+    private long currentNanos;
+    private DownstreamAddressStatsTracker tracker;
+    private InetSocketAddress address;
+
+    @Before
+    public void beforeMethod() throws Exception {
+        currentNanos = 42;
+        tracker = new DownstreamAddressStatsTracker(DECAY_WINDOW_MILLIS, () -> currentNanos);
+        address = new InetSocketAddress(InetAddress.getByAddress(new byte[]{10, 0, 0, 1}), 8080);
+    }
+
+    private void advanceMillis(long millis) {
+        currentNanos += TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private static long millisToNanos(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @DataProvider(value = {
+        "0",
+        "-1"
+    })
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_decay_window_is_not_positive(long decayWindowMillis) {
+        // when
+        Throwable ex = catchThrowable(() -> new DownstreamAddressStatsTracker(decayWindowMillis, System::nanoTime));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("latencyDecayWindowMillis must be greater than 0");
+    }
+
+    @Test
+    public void stats_are_zero_for_addresses_that_have_never_been_called() {
+        // expect
+        assertThat(tracker.getOutstandingRequests(address)).isEqualTo(0);
+        assertThat(tracker.getLatencyEwmaMillis(address)).isEqualTo(0);
+    }
+
+    @Test
+    public void outstanding_requests_are_counted_until_the_call_finishes_or_is_abandoned() {
+        // when
+        tracker.callStarted(address);
+        tracker.callStarted(address);
+        tracker.callStarted(address);
+
+        // then
+        assertThat(tracker.getOutstandingRequests(address)).isEqualTo(3);
+
+        // and when
+        tracker.callFinished(address, millisToNanos(10));
+        tracker.callAbandoned(address);
+
+        // then
+        assertThat(tracker.getOutstandingRequests(address)).isEqualTo(1);
+    }
+
+    @Test
+    public void first_latency_sample_becomes_the_average() {
+        // when
+        tracker.callStarted(address);
+        tracker.callFinished(address, millisToNanos(100));
+
+        // then
+        assertThat(tracker.getLatencyEwmaMillis(address)).isEqualTo(100);
+    }
+
+    @Test
+    public void later_latency_samples_are_weighted_by_the_time_since_the_previous_sample() {
+        // given
+        tracker.callStarted(address);
+        tracker.callFinished(address, millisToNanos(100));
+
+        // when
+        advanceMillis(DECAY_WINDOW_MILLIS);
+        tracker.callStarted(address);
+        tracker.callFinished(address, millisToNanos(200));
+
+        // then
+        double previousWeight = Math.exp(-1);
+        double expected = (100 * previousWeight) + (200 * (1 - previousWeight));
+        assertThat(tracker.getLatencyEwmaMillis(address)).isCloseTo(expected, within(0.0001));
+    }
+
+    @Test
+    public void latency_average_decays_toward_zero_while_no_calls_finish() {
+        // given
+        tracker.callStarted(address);
+        tracker.callFinished(address, millisToNanos(100));
+
+        // when
+        advanceMillis(DECAY_WINDOW_MILLIS * 2);
+
+        // then
+        assertThat(tracker.getLatencyEwmaMillis(address)).isCloseTo(100 * Math.exp(-2), within(0.0001));
+    }
+
+    @Test
+    public void abandoned_calls_do_not_affect_the_latency_average() {
+        // given
+        tracker.callStarted(address);
+        tracker.callFinished(address, millisToNanos(100));
+
+        // when
+        tracker.callStarted(address);
+        tracker.callAbandoned(address);
+
+        // then
+        assertThat(tracker.getLatencyEwmaMillis(address)).isEqualTo(100);
+    }
+
+    @Test
+    public void addresses_are_tracked_separately() throws Exception {
+        // given
+        InetSocketAddress otherAddress =
+            new InetSocketAddress(InetAddress.getByAddress(new byte[]{10, 0, 0, 2}), 8080);
+
+        // when
+        tracker.callStarted(address);
+        tracker.callFinished(address, millisToNanos(100));
+        tracker.callStarted(otherAddress);
+
+        // then
+        assertThat(tracker.getOutstandingRequests(address)).isEqualTo(0);
+        assertThat(tracker.getLatencyEwmaMillis(address)).isEqualTo(100);
+        assertThat(tracker.getOutstandingRequests(otherAddress)).isEqualTo(1);
+        assertThat(tracker.getLatencyEwmaMillis(otherAddress)).isEqualTo(0);
+    }
+
+    @Test
+    public void addressName_uses_the_ip_address_rather_than_the_hostname() throws Exception {
+        // given
+        InetSocketAddress resolved = new InetSocketAddress(
+            InetAddress.getByAddress("some.downstream.host", new byte[]{10, 0, 0, 1}), 8080
+        );
+        InetSocketAddress unresolved = InetSocketAddress.createUnresolved("some.downstream.host", 8443);
+
+        // expect
+        assertThat(DownstreamAddressStatsTracker.addressName(resolved)).isEqualTo("10.0.0.1:8080");
+        assertThat(DownstreamAddressStatsTracker.addressName(unresolved)).isEqualTo("some.downstream.host:8443");
+    }
+}
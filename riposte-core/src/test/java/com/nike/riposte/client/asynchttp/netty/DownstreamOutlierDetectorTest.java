@@ -0,0 +1,336 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.client.asynchttp.netty.DownstreamOutlierEjectionMetrics.Outcome;
+import com.nike.riposte.client.asynchttp.netty.DownstreamOutlierEjectionMetrics.Reason;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterOutlierDetectionConfig;
+import com.nike.riposte.server.http.DownstreamAddressSelector.AddressStats;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the functionality of {@link DownstreamOutlierDetector}.
+ */
+@RunWith(DataProviderRunner.class)
+public class DownstreamOutlierDetectorTest {
+
+    private static final String HOST = "some.downstream.host";
+
+    private final InetSocketAddress first = new InetSocketAddress("127.0.0.1", 8080);
+    private final InetSocketAddress second = new InetSocketAddress("127.0.0.2", 8080);
+    private final InetSocketAddress third = new InetSocketAddress("127.0.0.3", 8080);
+    private final InetSocketAddress fourth = new InetSocketAddress("127.0.0.4", 8080);
+    private final List<InetSocketAddress> allAddresses = Arrays.asList(first, second, third, fourth);
+
+    private AtomicLong nanoTime;
+    private AddressStats addressStatsMock;
+
+    @Before
+    public void beforeMethod() {
+        nanoTime = new AtomicLong(0);
+        addressStatsMock = mock(AddressStats.class);
+    }
+
+    private static ProxyRouterOutlierDetectionConfig config(
+        int consecutiveFailures, double latencyOutlierFactor, long baseEjectionTimeMillis, long maxEjectionTimeMillis,
+        double maxEjectionPercent
+    ) {
+        return new ProxyRouterOutlierDetectionConfig() {
+            @Override
+            public int consecutiveFailures() {
+                return consecutiveFailures;
+            }
+
+            @Override
+            public double latencyOutlierFactor() {
+                return latencyOutlierFactor;
+            }
+
+            @Override
+            public int latencyOutlierMinRequests() {
+                return 3;
+            }
+
+            @Override
+            public long baseEjectionTimeMillis() {
+                return baseEjectionTimeMillis;
+            }
+
+            @Override
+            public long maxEjectionTimeMillis() {
+                return maxEjectionTimeMillis;
+            }
+
+            @Override
+            public double maxEjectionPercent() {
+                return maxEjectionPercent;
+            }
+        };
+    }
+
+    private DownstreamOutlierDetector detector(ProxyRouterOutlierDetectionConfig config) {
+        DownstreamOutlierDetector detector = new DownstreamOutlierDetector(config, nanoTime::get);
+        detector.filterEjected(HOST, allAddresses);
+        return detector;
+    }
+
+    private DownstreamOutlierEjectionMetrics failTimes(DownstreamOutlierDetector detector,
+                                                       InetSocketAddress address,
+                                                       int times) {
+        DownstreamOutlierEjectionMetrics result = null;
+        for (int i = 0; i < times; i++) {
+            result = detector.recordResponse(HOST, address, 503, addressStatsMock);
+        }
+        return result;
+    }
+
+    private void advanceMillis(long millis) {
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @DataProvider(value = {
+        "0      |   1000    |   50  |   baseEjectionTimeMillis must be greater than 0",
+        "1000   |   999     |   50  |   maxEjectionTimeMillis cannot be less than baseEjectionTimeMillis",
+        "1000   |   1000    |   -1  |   maxEjectionPercent cannot be negative",
+        "1000   |   1000    |   NaN |   maxEjectionPercent cannot be negative"
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_config(
+        long baseEjectionTimeMillis, long maxEjectionTimeMillis, double maxEjectionPercent, String expectedMessage
+    ) {
+        // when
+        Throwable ex = catchThrowable(() -> new DownstreamOutlierDetector(
+            config(5, 3, baseEjectionTimeMillis, maxEjectionTimeMillis, maxEjectionPercent)
+        ));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining(expectedMessage);
+    }
+
+    @Test
+    public void address_is_ejected_after_consecutive_failures_and_comes_back_when_the_ejection_is_over() {
+        // given
+        DownstreamOutlierDetector detector = detector(config(3, 0, 1000, 10_000, 50));
+
+        // when
+        DownstreamOutlierEjectionMetrics beforeThreshold = failTimes(detector, first, 2);
+        DownstreamOutlierEjectionMetrics atThreshold = failTimes(detector, first, 1);
+
+        // then
+        assertThat(beforeThreshold).isNull();
+        assertThat(atThreshold).isNotNull();
+        assertThat(atThreshold.hostname).isEqualTo(HOST);
+        assertThat(atThreshold.downstreamAddress).isEqualTo(first);
+        assertThat(atThreshold.reason).isEqualTo(Reason.CONSECUTIVE_FAILURES);
+        assertThat(atThreshold.outcome).isEqualTo(Outcome.EJECTED);
+        assertThat(atThreshold.ejectionTimeMillis).isEqualTo(1000);
+        assertThat(detector.isEjected(first)).isTrue();
+        assertThat(detector.getEjectionCount(first)).isEqualTo(1);
+        assertThat(detector.filterEjected(HOST, allAddresses)).containsExactly(second, third, fourth);
+
+        // and when
+        advanceMillis(1000);
+
+        // then
+        assertThat(detector.isEjected(first)).isFalse();
+        assertThat(detector.filterEjected(HOST, allAddresses)).isSameAs(allAddresses);
+    }
+
+    @Test
+    public void connect_failures_count_the_same_as_5xx_responses() {
+        // given
+        DownstreamOutlierDetector detector = detector(config(2, 0, 1000, 10_000, 50));
+
+        // when
+        detector.recordResponse(HOST, first, 500, addressStatsMock);
+        DownstreamOutlierEjectionMetrics result = detector.recordConnectFailure(HOST, first);
+
+        // then
+        assertThat(result).isNotNull();
+        assertThat(result.outcome).isEqualTo(Outcome.EJECTED);
+    }
+
+    @Test
+    public void non_5xx_responses_reset_consecutive_failures() {
+        // given
+        DownstreamOutlierDetector detector = detector(config(3, 0, 1000, 10_000, 50));
+
+        // when
+        failTimes(detector, first, 2);
+        detector.recordResponse(HOST, first, 404, addressStatsMock);
+        DownstreamOutlierEjectionMetrics result = failTimes(detector, first, 2);
+
+        // then
+        assertThat(result).isNull();
+        assertThat(detector.isEjected(first)).isFalse();
+    }
+
+    @Test
+    public void consecutive_failures_of_0_disables_ejections_for_failures() {
+        // given
+        DownstreamOutlierDetector detector = detector(config(0, 0, 1000, 10_000, 50));
+
+        // when
+        DownstreamOutlierEjectionMetrics result = failTimes(detector, first, 100);
+
+        // then
+        assertThat(result).isNull();
+        assertThat(detector.isEjected(first)).isFalse();
+    }
+
+    @Test
+    public void results_from_an_address_that_is_already_ejected_are_ignored() {
+        // given
+        DownstreamOutlierDetector detector = detector(config(1, 0, 1000, 10_000, 50));
+        failTimes(detector, first, 1);
+
+        // when
+        DownstreamOutlierEjectionMetrics result = failTimes(detector, first, 10);
+
+        // then
+        assertThat(result).isNull();
+        assertThat(detector.getEjectionCount(first)).isEqualTo(1);
+    }
+
+    @Test
+    public void max_ejection_percent_limits_how_many_addresses_are_ejected_at_once() {
+        // given
+        DownstreamOutlierDetector detector = detector(config(1, 0, 1000, 10_000, 50));
+
+        // when
+        DownstreamOutlierEjectionMetrics firstResult = failTimes(detector, first, 1);
+        DownstreamOutlierEjectionMetrics secondResult = failTimes(detector, second, 1);
+        DownstreamOutlierEjectionMetrics thirdResult = failTimes(detector, third, 1);
+
+        // then
+        assertThat(firstResult.outcome).isEqualTo(Outcome.EJECTED);
+        assertThat(secondResult.outcome).isEqualTo(Outcome.EJECTED);
+        assertThat(thirdResult.outcome).isEqualTo(Outcome.MAX_EJECTION_PERCENT_REACHED);
+        assertThat(thirdResult.ejectionTimeMillis).isEqualTo(0);
+        assertThat(detector.filterEjected(HOST, allAddresses)).containsExactly(third, fourth);
+    }
+
+    @Test
+    public void at_least_one_address_is_always_left_in_rotation() {
+        // given
+        DownstreamOutlierDetector detector = new DownstreamOutlierDetector(
+            config(1, 0, 1000, 10_000, 100), nanoTime::get
+        );
+        detector.filterEjected(HOST, Arrays.asList(first, second));
+        detector.filterEjected("single.ip.host", Collections.singletonList(third));
+
+        // when
+        DownstreamOutlierEjectionMetrics firstResult = failTimes(detector, first, 1);
+        DownstreamOutlierEjectionMetrics secondResult = failTimes(detector, second, 1);
+        DownstreamOutlierEjectionMetrics singleIpResult = detector.recordConnectFailure("single.ip.host", third);
+
+        // then
+        assertThat(firstResult.outcome).isEqualTo(Outcome.EJECTED);
+        assertThat(secondResult.outcome).isEqualTo(Outcome.MAX_EJECTION_PERCENT_REACHED);
+        assertThat(singleIpResult.outcome).isEqualTo(Outcome.MAX_EJECTION_PERCENT_REACHED);
+        assertThat(detector.isEjected(third)).isFalse();
+    }
+
+    @Test
+    public void filterEjected_returns_all_addresses_if_every_address_is_ejected() {
+        // given
+        DownstreamOutlierDetector detector = detector(config(1, 0, 1000, 10_000, 50));
+        failTimes(detector, first, 1);
+        List<InetSocketAddress> onlyEjectedAddresses = Collections.singletonList(first);
+
+        // expect
+        assertThat(detector.filterEjected(HOST, onlyEjectedAddresses)).isSameAs(onlyEjectedAddresses);
+    }
+
+    @Test
+    public void ejection_time_doubles_for_repeat_ejections_up_to_the_max_and_resets_after_a_healthy_stretch() {
+        // given
+        DownstreamOutlierDetector detector = detector(config(1, 0, 1000, 5000, 50));
+
+        // expect
+        for (long expectedEjectionTimeMillis : new long[]{1000, 2000, 4000, 5000, 5000}) {
+            DownstreamOutlierEjectionMetrics result = failTimes(detector, first, 1);
+            assertThat(result.ejectionTimeMillis).isEqualTo(expectedEjectionTimeMillis);
+            advanceMillis(expectedEjectionTimeMillis);
+        }
+
+        // and when
+        advanceMillis(5000);
+        DownstreamOutlierEjectionMetrics result = failTimes(detector, first, 1);
+
+        // then
+        assertThat(result.ejectionTimeMillis).isEqualTo(1000);
+        assertThat(detector.getEjectionCount(first)).isEqualTo(6);
+    }
+
+    @Test
+    public void address_is_ejected_when_its_latency_is_far_above_the_other_addresses() {
+        // given
+        DownstreamOutlierDetector detector = detector(config(5, 3, 1000, 10_000, 50));
+        doReturn(10d).when(addressStatsMock).getLatencyEwmaMillis(any(InetSocketAddress.class));
+        doReturn(500d).when(addressStatsMock).getLatencyEwmaMillis(first);
+
+        // when
+        DownstreamOutlierEjectionMetrics beforeMinRequests = null;
+        for (int i = 0; i < 2; i++) {
+            beforeMinRequests = detector.recordResponse(HOST, first, 200, addressStatsMock);
+        }
+        DownstreamOutlierEjectionMetrics atMinRequests = detector.recordResponse(HOST, first, 200, addressStatsMock);
+
+        // then
+        assertThat(beforeMinRequests).isNull();
+        assertThat(atMinRequests).isNotNull();
+        assertThat(atMinRequests.reason).isEqualTo(Reason.LATENCY);
+        assertThat(atMinRequests.outcome).isEqualTo(Outcome.EJECTED);
+        assertThat(detector.isEjected(first)).isTrue();
+    }
+
+    @DataProvider(value = {
+        // Not enough times higher than the others.
+        "25     |   10  |   3   |   false",
+        // Enough times higher, but not by enough milliseconds.
+        "50     |   10  |   3   |   false",
+        // Enough times higher and by enough milliseconds.
+        "150    |   10  |   3   |   true",
+        // Latency detection disabled.
+        "150    |   10  |   0   |   false",
+        // The other addresses have no latency samples to compare against.
+        "150    |   0   |   3   |   false"
+    }, splitBy = "\\|")
+    @Test
+    public void latency_outlier_detection_works_as_expected(
+        double addressLatencyMillis, double otherLatencyMillis, double latencyOutlierFactor, boolean expectEjected
+    ) {
+        // given
+        DownstreamOutlierDetector detector = detector(config(5, latencyOutlierFactor, 1000, 10_000, 50));
+        doReturn(otherLatencyMillis).when(addressStatsMock).getLatencyEwmaMillis(any(InetSocketAddress.class));
+        doReturn(addressLatencyMillis).when(addressStatsMock).getLatencyEwmaMillis(first);
+
+        // when
+        for (int i = 0; i < 3; i++) {
+            detector.recordResponse(HOST, first, 200, addressStatsMock);
+        }
+
+        // then
+        assertThat(detector.isEjected(first)).isEqualTo(expectEjected);
+    }
+}
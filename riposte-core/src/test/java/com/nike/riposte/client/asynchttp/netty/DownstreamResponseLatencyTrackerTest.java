@@ -0,0 +1,111 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link DownstreamResponseLatencyTracker}.
+ */
+@RunWith(DataProviderRunner.class)
+public class DownstreamResponseLatencyTrackerTest {
+
+    private static final String HOST = "some.downstream.host";
+
+    @Test
+    public void default_constructor_uses_default_values() {
+        // when
+        DownstreamResponseLatencyTracker tracker = new DownstreamResponseLatencyTracker();
+
+        // then
+        assertThat(tracker.sampleWindowSize).isEqualTo(DownstreamResponseLatencyTracker.DEFAULT_SAMPLE_WINDOW_SIZE);
+        assertThat(tracker.minSamples).isEqualTo(DownstreamResponseLatencyTracker.DEFAULT_MIN_SAMPLES);
+    }
+
+    @DataProvider(value = {
+        "0      |   1   |   sampleWindowSize must be at least 1",
+        "10     |   0   |   minSamples must be between 1 and sampleWindowSize",
+        "10     |   11  |   minSamples must be between 1 and sampleWindowSize"
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_args(
+        int sampleWindowSize, int minSamples, String expectedMessage
+    ) {
+        // when
+        Throwable ex = catchThrowable(() -> new DownstreamResponseLatencyTracker(sampleWindowSize, minSamples));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining(expectedMessage);
+    }
+
+    @Test
+    public void latencyPercentileNanos_returns_negative_1_until_host_has_enough_samples() {
+        // given
+        DownstreamResponseLatencyTracker tracker = new DownstreamResponseLatencyTracker(10, 3);
+
+        // expect
+        assertThat(tracker.latencyPercentileNanos(HOST, 50)).isEqualTo(-1);
+        tracker.recordLatency(HOST, 100);
+        tracker.recordLatency(HOST, 200);
+        assertThat(tracker.latencyPercentileNanos(HOST, 50)).isEqualTo(-1);
+        tracker.recordLatency(HOST, 300);
+        assertThat(tracker.latencyPercentileNanos(HOST, 50)).isEqualTo(200);
+    }
+
+    @DataProvider(value = {
+        "1      |   1",
+        "50     |   50",
+        "90     |   90",
+        "99     |   99",
+        "100    |   100"
+    }, splitBy = "\\|")
+    @Test
+    public void latencyPercentileNanos_returns_expected_percentile(double percentile, long expectedNanos) {
+        // given
+        DownstreamResponseLatencyTracker tracker = new DownstreamResponseLatencyTracker(100, 1);
+        // Record 1 to 100 out of order.
+        for (int i = 100; i >= 1; i--) {
+            tracker.recordLatency(HOST, i);
+        }
+
+        // expect
+        assertThat(tracker.latencyPercentileNanos(HOST, percentile)).isEqualTo(expectedNanos);
+    }
+
+    @Test
+    public void oldest_samples_are_replaced_once_window_is_full() {
+        // given
+        DownstreamResponseLatencyTracker tracker = new DownstreamResponseLatencyTracker(3, 1);
+        tracker.recordLatency(HOST, 1000);
+        tracker.recordLatency(HOST, 1000);
+        tracker.recordLatency(HOST, 1000);
+
+        // when
+        tracker.recordLatency(HOST, 5);
+        tracker.recordLatency(HOST, 5);
+        tracker.recordLatency(HOST, 5);
+
+        // then
+        assertThat(tracker.latencyPercentileNanos(HOST, 100)).isEqualTo(5);
+    }
+
+    @Test
+    public void hosts_have_separate_samples() {
+        // given
+        DownstreamResponseLatencyTracker tracker = new DownstreamResponseLatencyTracker(10, 1);
+
+        // when
+        tracker.recordLatency(HOST, 42);
+
+        // then
+        assertThat(tracker.latencyPercentileNanos(HOST, 50)).isEqualTo(42);
+        assertThat(tracker.latencyPercentileNanos("some.other.host", 50)).isEqualTo(-1);
+    }
+}
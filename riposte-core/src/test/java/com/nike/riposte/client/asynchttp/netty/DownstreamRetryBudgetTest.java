@@ -0,0 +1,126 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests the functionality of {@link DownstreamRetryBudget}.
+ */
+@RunWith(DataProviderRunner.class)
+public class DownstreamRetryBudgetTest {
+
+    private static final String HOST = "some.downstream.host";
+
+    @DataProvider(value = {
+        "-1",
+        "-0.01",
+        "NaN"
+    })
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_percent_is_invalid(double maxExtraAttemptsPercent) {
+        // when
+        Throwable ex = catchThrowable(() -> new DownstreamRetryBudget(maxExtraAttemptsPercent, 10));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("maxExtraAttemptsPercent cannot be negative");
+    }
+
+    @DataProvider(value = {
+        "0",
+        "-1"
+    })
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_maxBurst_is_less_than_1(int maxBurst) {
+        // when
+        Throwable ex = catchThrowable(() -> new DownstreamRetryBudget(10, maxBurst));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("maxBurst must be at least 1");
+    }
+
+    @Test
+    public void budget_starts_out_empty() {
+        // given
+        DownstreamRetryBudget budget = new DownstreamRetryBudget(10, 10);
+
+        // expect
+        assertThat(budget.getBalance(HOST)).isEqualTo(0);
+        assertThat(budget.tryAcquireExtraAttempt(HOST)).isFalse();
+    }
+
+    @Test
+    public void extra_attempts_are_limited_to_the_given_percentage_of_calls() {
+        // given
+        DownstreamRetryBudget budget = new DownstreamRetryBudget(10, 10);
+
+        // when
+        int extraAttemptsAllowed = 0;
+        for (int i = 0; i < 100; i++) {
+            budget.recordCall(HOST);
+            if (budget.tryAcquireExtraAttempt(HOST)) {
+                extraAttemptsAllowed++;
+            }
+        }
+
+        // then
+        assertThat(extraAttemptsAllowed).isEqualTo(10);
+        assertThat(budget.getBalance(HOST)).isCloseTo(0, within(0.0001));
+    }
+
+    @Test
+    public void balance_is_capped_at_maxBurst() {
+        // given
+        DownstreamRetryBudget budget = new DownstreamRetryBudget(50, 3);
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            budget.recordCall(HOST);
+        }
+
+        // then
+        assertThat(budget.getBalance(HOST)).isEqualTo(3);
+        assertThat(budget.tryAcquireExtraAttempt(HOST)).isTrue();
+        assertThat(budget.tryAcquireExtraAttempt(HOST)).isTrue();
+        assertThat(budget.tryAcquireExtraAttempt(HOST)).isTrue();
+        assertThat(budget.tryAcquireExtraAttempt(HOST)).isFalse();
+    }
+
+    @Test
+    public void zero_percent_never_allows_extra_attempts() {
+        // given
+        DownstreamRetryBudget budget = new DownstreamRetryBudget(0, 10);
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            budget.recordCall(HOST);
+        }
+
+        // then
+        assertThat(budget.getBalance(HOST)).isEqualTo(0);
+        assertThat(budget.tryAcquireExtraAttempt(HOST)).isFalse();
+    }
+
+    @Test
+    public void hosts_have_separate_budgets() {
+        // given
+        DownstreamRetryBudget budget = new DownstreamRetryBudget(100, 10);
+
+        // when
+        budget.recordCall(HOST);
+
+        // then
+        assertThat(budget.tryAcquireExtraAttempt("some.other.host")).isFalse();
+        assertThat(budget.tryAcquireExtraAttempt(HOST)).isTrue();
+    }
+}
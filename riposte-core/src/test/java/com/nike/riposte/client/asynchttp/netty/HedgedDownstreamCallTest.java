@@ -0,0 +1,441 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.client.asynchttp.netty.DownstreamExtraAttemptMetrics.AttemptType;
+import com.nike.riposte.client.asynchttp.netty.DownstreamExtraAttemptMetrics.Outcome;
+import com.nike.riposte.client.asynchttp.netty.HedgedDownstreamCall.HedgedAttemptStarter;
+import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.StreamingCallback;
+import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.StreamingChannel;
+import com.nike.riposte.server.http.ProxyRouterProcessingState;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.concurrent.EventExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Tests the functionality of {@link HedgedDownstreamCall}.
+ */
+public class HedgedDownstreamCallTest {
+
+    private static final String HOST = "some.downstream.host";
+    private static final long PRIMARY_HEAD_START_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private StreamingAsyncHttpClient clientMock;
+    private StreamingCallback delegateMock;
+    private ProxyRouterProcessingState stateMock;
+    private DownstreamRetryBudget hedgeBudget;
+    private DownstreamResponseLatencyTracker latencyTracker;
+    private EventExecutor executorMock;
+
+    private InetSocketAddress primaryAddress;
+    private StreamingChannel primaryScMock;
+    private StreamingChannel hedgeScMock;
+    private CompletableFuture<StreamingChannel> primaryFuture;
+    private CompletableFuture<StreamingChannel> hedgeFuture;
+    private List<StreamingCallback> hedgeCallbacks;
+    private List<InetSocketAddress> addressesToAvoid;
+
+    private HedgedDownstreamCall hedgedCall;
+
+    @Before
+    public void beforeMethod() {
+        clientMock = mock(StreamingAsyncHttpClient.class);
+        delegateMock = mock(StreamingCallback.class);
+        stateMock = mock(ProxyRouterProcessingState.class);
+        doReturn(true).when(stateMock).isRequestStreamingCompletedSuccessfully();
+        hedgeBudget = new DownstreamRetryBudget(100, 10);
+        hedgeBudget.recordCall(HOST);
+        latencyTracker = new DownstreamResponseLatencyTracker(10, 1);
+        executorMock = mock(EventExecutor.class);
+
+        primaryAddress = new InetSocketAddress("127.0.0.1", 8080);
+        primaryScMock = mockStreamingChannel(primaryAddress);
+        hedgeScMock = mockStreamingChannel(new InetSocketAddress("127.0.0.2", 8080));
+        primaryFuture = new CompletableFuture<>();
+        hedgeFuture = new CompletableFuture<>();
+        hedgeCallbacks = new ArrayList<>();
+        addressesToAvoid = new ArrayList<>();
+
+        HedgedAttemptStarter starter = (hedgeCallback, addressToAvoid) -> {
+            hedgeCallbacks.add(hedgeCallback);
+            addressesToAvoid.add(addressToAvoid);
+            return hedgeFuture;
+        };
+
+        hedgedCall = new HedgedDownstreamCall(
+            clientMock, delegateMock, HOST, stateMock, hedgeBudget, latencyTracker, starter
+        );
+    }
+
+    private StreamingChannel mockStreamingChannel(InetSocketAddress remoteAddress) {
+        StreamingChannel scMock = mock(StreamingChannel.class);
+        Channel channelMock = mock(Channel.class);
+        doReturn(remoteAddress).when(channelMock).remoteAddress();
+        doReturn(channelMock).when(scMock).getChannel();
+        doReturn(mock(ChannelFuture.class)).when(scMock).streamChunk(any());
+        return scMock;
+    }
+
+    private HttpObject response() {
+        return response(HttpResponseStatus.OK);
+    }
+
+    // DefaultHttpResponse has value equality, so responses that need to be told apart need different statuses.
+    private HttpObject response(HttpResponseStatus status) {
+        return new DefaultHttpResponse(HttpVersion.HTTP_1_1, status);
+    }
+
+    private long[] recordedLatenciesNanos() {
+        DownstreamResponseLatencyTracker.SampleWindow window = latencyTracker.samplesByHost.get(HOST);
+        return (window == null) ? new long[0] : window.copySamples();
+    }
+
+    // Backdates the primary attempt so its latency can't be mistaken for the hedge's.
+    private void pretendPrimaryStartedLongAgo() {
+        hedgedCall.attempts[HedgedDownstreamCall.PRIMARY].startTimeNanos = System.nanoTime() - PRIMARY_HEAD_START_NANOS;
+    }
+
+    private StreamingCallback startAndSendHedge() {
+        hedgedCall.start(primaryFuture, -1, executorMock);
+        primaryFuture.complete(primaryScMock);
+        hedgedCall.sendHedgedAttemptIfStillNeeded();
+        assertThat(hedgeCallbacks).hasSize(1);
+        return hedgeCallbacks.get(0);
+    }
+
+    @Test
+    public void start_schedules_hedge_on_executor_if_delay_is_not_negative() {
+        // when
+        hedgedCall.start(primaryFuture, 100, executorMock);
+
+        // then
+        verify(executorMock).schedule(any(Runnable.class), anyLong(), any());
+    }
+
+    @Test
+    public void start_does_not_schedule_hedge_if_delay_is_negative() {
+        // when
+        hedgedCall.start(primaryFuture, -1, executorMock);
+
+        // then
+        verifyNoInteractions(executorMock);
+    }
+
+    @Test
+    public void primary_response_is_forwarded_and_no_hedge_is_sent_if_primary_responds_first() {
+        // given
+        hedgedCall.start(primaryFuture, -1, executorMock);
+        primaryFuture.complete(primaryScMock);
+        HttpObject response = response();
+        HttpObject lastContent = LastHttpContent.EMPTY_LAST_CONTENT;
+
+        // when
+        hedgedCall.getPrimaryAttemptCallback().messageReceived(response);
+        hedgedCall.getPrimaryAttemptCallback().messageReceived(lastContent);
+        hedgedCall.sendHedgedAttemptIfStillNeeded();
+
+        // then
+        verify(delegateMock).messageReceived(response);
+        verify(delegateMock).messageReceived(lastContent);
+        assertThat(hedgeCallbacks).isEmpty();
+        assertThat(latencyTracker.latencyPercentileNanos(HOST, 50)).isGreaterThanOrEqualTo(0);
+        assertThat(recordedLatenciesNanos()).hasSize(1);
+    }
+
+    @Test
+    public void hedge_is_sent_avoiding_primary_address_and_finished_with_empty_last_chunk() {
+        // when
+        startAndSendHedge();
+        hedgeFuture.complete(hedgeScMock);
+
+        // then
+        assertThat(addressesToAvoid).containsExactly(primaryAddress);
+        verify(clientMock).fireDownstreamExtraAttemptEvent(HOST, AttemptType.HEDGE, Outcome.SENT);
+        verify(hedgeScMock).streamChunk(LastHttpContent.EMPTY_LAST_CONTENT);
+    }
+
+    @Test
+    public void hedge_wins_if_it_responds_first_and_primary_is_cancelled() {
+        // given
+        StreamingCallback hedgeCallback = startAndSendHedge();
+        hedgeFuture.complete(hedgeScMock);
+        HttpObject hedgeResponse = response(HttpResponseStatus.OK);
+        HttpObject primaryResponse = response(HttpResponseStatus.ACCEPTED);
+
+        // when
+        hedgeCallback.messageReceived(hedgeResponse);
+        hedgedCall.getPrimaryAttemptCallback().messageReceived(primaryResponse);
+
+        // then
+        verify(delegateMock).messageReceived(hedgeResponse);
+        verify(delegateMock, never()).messageReceived(primaryResponse);
+        verify(primaryScMock).cancelDownstreamCall(any(Throwable.class));
+        verify(hedgeScMock, never()).cancelDownstreamCall(any(Throwable.class));
+        verify(clientMock).fireDownstreamExtraAttemptEvent(HOST, AttemptType.HEDGE, Outcome.WON);
+    }
+
+    @Test
+    public void primary_latency_up_to_cancellation_is_recorded_instead_of_the_winning_hedge_latency() {
+        // given
+        StreamingCallback hedgeCallback = startAndSendHedge();
+        hedgeFuture.complete(hedgeScMock);
+        pretendPrimaryStartedLongAgo();
+
+        // when
+        hedgeCallback.messageReceived(response(HttpResponseStatus.OK));
+        hedgedCall.getPrimaryAttemptCallback().messageReceived(response(HttpResponseStatus.ACCEPTED));
+        hedgedCall.cancelStreamingToOriginalCaller();
+
+        // then
+        long[] recordedLatencies = recordedLatenciesNanos();
+        assertThat(recordedLatencies).hasSize(1);
+        assertThat(recordedLatencies[0]).isGreaterThanOrEqualTo(PRIMARY_HEAD_START_NANOS);
+    }
+
+    @Test
+    public void primary_latency_is_recorded_when_it_wins_after_hedge_is_sent() {
+        // given
+        StreamingCallback hedgeCallback = startAndSendHedge();
+        hedgeFuture.complete(hedgeScMock);
+        pretendPrimaryStartedLongAgo();
+
+        // when
+        hedgedCall.getPrimaryAttemptCallback().messageReceived(response(HttpResponseStatus.OK));
+        hedgeCallback.messageReceived(response(HttpResponseStatus.ACCEPTED));
+
+        // then
+        long[] recordedLatencies = recordedLatenciesNanos();
+        assertThat(recordedLatencies).hasSize(1);
+        assertThat(recordedLatencies[0]).isGreaterThanOrEqualTo(PRIMARY_HEAD_START_NANOS);
+    }
+
+    @Test
+    public void primary_latency_up_to_cancellation_is_recorded_if_call_is_cancelled_before_any_response() {
+        // given
+        startAndSendHedge();
+        hedgeFuture.complete(hedgeScMock);
+        pretendPrimaryStartedLongAgo();
+
+        // when
+        hedgedCall.cancelStreamingToOriginalCaller();
+        hedgedCall.getPrimaryAttemptCallback().messageReceived(response());
+
+        // then
+        long[] recordedLatencies = recordedLatenciesNanos();
+        assertThat(recordedLatencies).hasSize(1);
+        assertThat(recordedLatencies[0]).isGreaterThanOrEqualTo(PRIMARY_HEAD_START_NANOS);
+    }
+
+    @Test
+    public void no_latency_is_recorded_if_primary_fails_before_the_hedge_wins() {
+        // given
+        StreamingCallback hedgeCallback = startAndSendHedge();
+        hedgeFuture.complete(hedgeScMock);
+        hedgedCall.getPrimaryAttemptCallback().unrecoverableErrorOccurred(
+            new RuntimeException("intentional primary failure"), true
+        );
+
+        // when
+        hedgeCallback.messageReceived(response());
+
+        // then
+        assertThat(recordedLatenciesNanos()).isEmpty();
+    }
+
+    @Test
+    public void primary_wins_if_it_responds_first_after_hedge_is_sent_and_hedge_is_cancelled() {
+        // given
+        StreamingCallback hedgeCallback = startAndSendHedge();
+        hedgeFuture.complete(hedgeScMock);
+        HttpObject primaryResponse = response(HttpResponseStatus.OK);
+        HttpObject hedgeResponse = response(HttpResponseStatus.ACCEPTED);
+
+        // when
+        hedgedCall.getPrimaryAttemptCallback().messageReceived(primaryResponse);
+        hedgeCallback.messageReceived(hedgeResponse);
+
+        // then
+        verify(delegateMock).messageReceived(primaryResponse);
+        verify(delegateMock, never()).messageReceived(hedgeResponse);
+        verify(hedgeScMock).cancelDownstreamCall(any(Throwable.class));
+        verify(clientMock, never()).fireDownstreamExtraAttemptEvent(HOST, AttemptType.HEDGE, Outcome.WON);
+    }
+
+    @Test
+    public void content_before_a_response_does_not_pick_a_winner() {
+        // given
+        hedgedCall.start(primaryFuture, -1, executorMock);
+        primaryFuture.complete(primaryScMock);
+
+        // when
+        hedgedCall.getPrimaryAttemptCallback().messageReceived(new DefaultHttpContent(Unpooled.EMPTY_BUFFER));
+        hedgedCall.sendHedgedAttemptIfStillNeeded();
+
+        // then
+        verify(delegateMock, never()).messageReceived(any());
+        assertThat(hedgeCallbacks).hasSize(1);
+    }
+
+    @Test
+    public void error_from_one_attempt_is_swallowed_while_the_other_can_still_answer() {
+        // given
+        StreamingCallback hedgeCallback = startAndSendHedge();
+        hedgeFuture.complete(hedgeScMock);
+        Throwable primaryError = new RuntimeException("intentional primary failure");
+        HttpObject hedgeResponse = response();
+
+        // when
+        hedgedCall.getPrimaryAttemptCallback().unrecoverableErrorOccurred(primaryError, true);
+        hedgeCallback.messageReceived(hedgeResponse);
+
+        // then
+        verify(delegateMock, never()).unrecoverableErrorOccurred(any(), anyBoolean());
+        verify(delegateMock).messageReceived(hedgeResponse);
+    }
+
+    @Test
+    public void error_is_forwarded_once_both_attempts_fail() {
+        // given
+        StreamingCallback hedgeCallback = startAndSendHedge();
+        hedgeFuture.complete(hedgeScMock);
+        Throwable primaryError = new RuntimeException("intentional primary failure");
+        Throwable hedgeError = new RuntimeException("intentional hedge failure");
+
+        // when
+        hedgedCall.getPrimaryAttemptCallback().unrecoverableErrorOccurred(primaryError, true);
+        hedgeCallback.unrecoverableErrorOccurred(hedgeError, false);
+
+        // then
+        verify(delegateMock).unrecoverableErrorOccurred(hedgeError, false);
+        verify(delegateMock, never()).unrecoverableErrorOccurred(primaryError, true);
+    }
+
+    @Test
+    public void primary_error_is_forwarded_right_away_if_no_hedge_was_sent() {
+        // given
+        hedgedCall.start(primaryFuture, -1, executorMock);
+        primaryFuture.complete(primaryScMock);
+        Throwable primaryError = new RuntimeException("intentional primary failure");
+
+        // when
+        hedgedCall.unrecoverableErrorOccurred(primaryError, true);
+        hedgedCall.sendHedgedAttemptIfStillNeeded();
+
+        // then
+        verify(delegateMock).unrecoverableErrorOccurred(primaryError, true);
+        assertThat(hedgeCallbacks).isEmpty();
+    }
+
+    @Test
+    public void hedge_connect_failure_is_forwarded_if_primary_already_failed() {
+        // given
+        startAndSendHedge();
+        Throwable primaryError = new RuntimeException("intentional primary failure");
+        Throwable hedgeConnectError = new RuntimeException("intentional hedge connect failure");
+        hedgedCall.getPrimaryAttemptCallback().unrecoverableErrorOccurred(primaryError, true);
+
+        // when
+        hedgeFuture.completeExceptionally(hedgeConnectError);
+
+        // then
+        verify(delegateMock).unrecoverableErrorOccurred(hedgeConnectError, true);
+    }
+
+    @Test
+    public void errors_from_the_loser_are_ignored() {
+        // given
+        StreamingCallback hedgeCallback = startAndSendHedge();
+        hedgeFuture.complete(hedgeScMock);
+        hedgedCall.getPrimaryAttemptCallback().messageReceived(response());
+
+        // when
+        hedgeCallback.unrecoverableErrorOccurred(new RuntimeException("cancelled"), true);
+
+        // then
+        verify(delegateMock, never()).unrecoverableErrorOccurred(any(), anyBoolean());
+    }
+
+    @Test
+    public void hedge_is_skipped_and_reported_if_budget_is_exhausted() {
+        // given
+        hedgeBudget.tryAcquireExtraAttempt(HOST);
+        hedgedCall.start(primaryFuture, -1, executorMock);
+        primaryFuture.complete(primaryScMock);
+
+        // when
+        hedgedCall.sendHedgedAttemptIfStillNeeded();
+
+        // then
+        assertThat(hedgeCallbacks).isEmpty();
+        verify(clientMock).fireDownstreamExtraAttemptEvent(HOST, AttemptType.HEDGE, Outcome.BUDGET_EXHAUSTED);
+    }
+
+    @Test
+    public void hedge_is_skipped_if_request_has_not_been_fully_sent() {
+        // given
+        doReturn(false).when(stateMock).isRequestStreamingCompletedSuccessfully();
+        hedgedCall.start(primaryFuture, -1, executorMock);
+        primaryFuture.complete(primaryScMock);
+
+        // when
+        hedgedCall.sendHedgedAttemptIfStillNeeded();
+
+        // then
+        assertThat(hedgeCallbacks).isEmpty();
+        assertThat(hedgeBudget.getBalance(HOST)).isEqualTo(1);
+    }
+
+    @Test
+    public void hedge_is_skipped_if_primary_failed_to_connect() {
+        // given
+        hedgedCall.start(primaryFuture, -1, executorMock);
+        primaryFuture.completeExceptionally(new RuntimeException("intentional connect failure"));
+
+        // when
+        hedgedCall.sendHedgedAttemptIfStillNeeded();
+
+        // then
+        assertThat(hedgeCallbacks).isEmpty();
+        verifyNoInteractions(delegateMock);
+    }
+
+    @Test
+    public void cancelStreamingToOriginalCaller_forwards_to_delegate_and_closes_hedge() {
+        // given
+        startAndSendHedge();
+        hedgeFuture.complete(hedgeScMock);
+        doReturn(true).when(hedgeScMock).isDownstreamCallActive();
+
+        // when
+        hedgedCall.cancelStreamingToOriginalCaller();
+
+        // then
+        verify(delegateMock).cancelStreamingToOriginalCaller();
+        verify(hedgeScMock).closeChannelDueToUnrecoverableError(any(Throwable.class));
+    }
+}
@@ -0,0 +1,68 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.server.http.DownstreamAddressSelector.AddressStats;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the functionality of {@link LeastOutstandingRequestsDownstreamAddressSelector}.
+ */
+public class LeastOutstandingRequestsDownstreamAddressSelectorTest {
+
+    private LeastOutstandingRequestsDownstreamAddressSelector selector;
+    private AddressStats statsMock;
+
+    private final InetSocketAddress ip1 = new InetSocketAddress("10.0.0.1", 8080);
+    private final InetSocketAddress ip2 = new InetSocketAddress("10.0.0.2", 8080);
+    private final InetSocketAddress ip3 = new InetSocketAddress("10.0.0.3", 8080);
+    private final List<InetSocketAddress> addresses = Arrays.asList(ip1, ip2, ip3);
+
+    @Before
+    public void beforeMethod() {
+        selector = new LeastOutstandingRequestsDownstreamAddressSelector();
+        statsMock = mock(AddressStats.class);
+    }
+
+    private void setupOutstanding(int ip1Outstanding, int ip2Outstanding, int ip3Outstanding) {
+        doReturn(ip1Outstanding).when(statsMock).getOutstandingRequests(ip1);
+        doReturn(ip2Outstanding).when(statsMock).getOutstandingRequests(ip2);
+        doReturn(ip3Outstanding).when(statsMock).getOutstandingRequests(ip3);
+    }
+
+    @Test
+    public void select_picks_the_address_with_the_fewest_outstanding_requests() {
+        // given
+        setupOutstanding(5, 1, 3);
+
+        // expect
+        for (int i = 0; i < 100; i++) {
+            assertThat(selector.select("some.host", addresses, statsMock)).isEqualTo(ip2);
+        }
+    }
+
+    @Test
+    public void select_breaks_ties_at_random() {
+        // given
+        setupOutstanding(2, 7, 2);
+        Set<InetSocketAddress> picks = new HashSet<>();
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            picks.add(selector.select("some.host", addresses, statsMock));
+        }
+
+        // then
+        assertThat(picks).containsExactlyInAnyOrder(ip1, ip3);
+    }
+}
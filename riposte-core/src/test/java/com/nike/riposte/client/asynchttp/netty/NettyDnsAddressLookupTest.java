@@ -0,0 +1,179 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.dns.DefaultDnsRawRecord;
+import io.netty.handler.codec.dns.DnsRecord;
+import io.netty.handler.codec.dns.DnsRecordType;
+import io.netty.resolver.dns.DnsNameResolver;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link NettyDnsAddressLookup}.
+ */
+public class NettyDnsAddressLookupTest {
+
+    private static final String HOSTNAME = "some.downstream.host";
+
+    private DnsNameResolver dnsNameResolverMock;
+    private Map<DnsRecordType, Future<List<DnsRecord>>> queryResults;
+    private List<DnsRecordType> queriedTypes;
+    private NettyDnsAddressLookup lookup;
+
+    @Before
+    public void beforeMethod() {
+        dnsNameResolverMock = mock(DnsNameResolver.class);
+        queryResults = new HashMap<>();
+        queriedTypes = new ArrayList<>();
+        lookup = new NettyDnsAddressLookup(dnsNameResolverMock) {
+            @Override
+            protected @NotNull Future<List<DnsRecord>> queryRecords(@NotNull String hostname,
+                                                                    @NotNull DnsRecordType recordType) {
+                assertThat(hostname).isEqualTo(HOSTNAME);
+                queriedTypes.add(recordType);
+                return queryResults.get(recordType);
+            }
+        };
+    }
+
+    private void setupRecords(DnsRecordType type, DnsRecord... records) {
+        queryResults.put(
+            type, ImmediateEventExecutor.INSTANCE.newSucceededFuture(new ArrayList<>(Arrays.asList(records)))
+        );
+    }
+
+    private void setupFailure(DnsRecordType type, Throwable cause) {
+        queryResults.put(type, ImmediateEventExecutor.INSTANCE.newFailedFuture(cause));
+    }
+
+    private DefaultDnsRawRecord record(DnsRecordType type, long ttlSeconds, byte... addressBytes) {
+        return new DefaultDnsRawRecord(HOSTNAME, type, ttlSeconds, Unpooled.wrappedBuffer(addressBytes));
+    }
+
+    private Throwable extractFailure(CompletableFuture<DownstreamAddressLookup.Result> future) {
+        assertThat(future).isCompletedExceptionally();
+        Throwable ex = catchThrowable(future::get);
+        assertThat(ex).isInstanceOf(ExecutionException.class);
+        return ex.getCause();
+    }
+
+    @Test
+    public void lookup_returns_ip_address_literals_without_querying() throws Exception {
+        // when
+        DownstreamAddressLookup.Result result = lookup.lookup("127.0.0.1").get();
+
+        // then
+        assertThat(result.addresses).containsExactly(InetAddress.getByAddress(new byte[]{127, 0, 0, 1}));
+        assertThat(result.ttlMillis).isEqualTo(NettyDnsAddressLookup.IP_ADDRESS_LITERAL_TTL_MILLIS);
+        assertThat(queriedTypes).isEmpty();
+    }
+
+    @Test
+    public void lookup_returns_A_record_addresses_with_lowest_ttl_and_releases_records() throws Exception {
+        // given
+        DefaultDnsRawRecord record1 = record(DnsRecordType.A, 60, (byte) 10, (byte) 0, (byte) 0, (byte) 1);
+        DefaultDnsRawRecord record2 = record(DnsRecordType.A, 30, (byte) 10, (byte) 0, (byte) 0, (byte) 2);
+        setupRecords(DnsRecordType.A, record1, record2);
+
+        // when
+        DownstreamAddressLookup.Result result = lookup.lookup(HOSTNAME).get();
+
+        // then
+        assertThat(result.addresses).containsExactly(
+            InetAddress.getByAddress(new byte[]{10, 0, 0, 1}), InetAddress.getByAddress(new byte[]{10, 0, 0, 2})
+        );
+        assertThat(result.addresses.get(0).getHostName()).isEqualTo(HOSTNAME);
+        assertThat(result.ttlMillis).isEqualTo(30_000);
+        assertThat(queriedTypes).containsExactly(DnsRecordType.A);
+        assertThat(record1.refCnt()).isEqualTo(0);
+        assertThat(record2.refCnt()).isEqualTo(0);
+    }
+
+    @Test
+    public void lookup_falls_back_to_AAAA_records_if_there_are_no_A_records() throws Exception {
+        // given
+        byte[] ipv6Bytes = new byte[16];
+        ipv6Bytes[15] = 1;
+        setupFailure(DnsRecordType.A, new UnknownHostException("intentional test exception"));
+        setupRecords(DnsRecordType.AAAA, record(DnsRecordType.AAAA, 120, ipv6Bytes));
+
+        // when
+        DownstreamAddressLookup.Result result = lookup.lookup(HOSTNAME).get();
+
+        // then
+        assertThat(result.addresses).containsExactly(InetAddress.getByAddress(ipv6Bytes));
+        assertThat(result.ttlMillis).isEqualTo(120_000);
+        assertThat(queriedTypes).containsExactly(DnsRecordType.A, DnsRecordType.AAAA);
+    }
+
+    @Test
+    public void lookup_ignores_records_of_other_types() throws Exception {
+        // given
+        setupRecords(DnsRecordType.A, record(DnsRecordType.CNAME, 60, (byte) 1, (byte) 2, (byte) 3, (byte) 4));
+        setupFailure(DnsRecordType.AAAA, new UnknownHostException("intentional test exception"));
+
+        // when
+        Throwable failure = extractFailure(lookup.lookup(HOSTNAME));
+
+        // then
+        assertThat(failure).isInstanceOf(UnknownHostException.class);
+        assertThat(queriedTypes).containsExactly(DnsRecordType.A, DnsRecordType.AAAA);
+    }
+
+    @Test
+    public void lookup_fails_with_UnknownHostException_if_there_are_no_A_or_AAAA_records() {
+        // given
+        setupRecords(DnsRecordType.A);
+        setupRecords(DnsRecordType.AAAA);
+
+        // when
+        Throwable failure = extractFailure(lookup.lookup(HOSTNAME));
+
+        // then
+        assertThat(failure)
+            .isInstanceOf(UnknownHostException.class)
+            .hasMessage("No A or AAAA records found for hostname: " + HOSTNAME);
+    }
+
+    @Test
+    public void lookup_fails_fast_without_AAAA_query_if_A_query_fails_for_reasons_other_than_missing_records() {
+        // given
+        RuntimeException queryEx = new RuntimeException("intentional test exception");
+        setupFailure(DnsRecordType.A, queryEx);
+
+        // when
+        Throwable failure = extractFailure(lookup.lookup(HOSTNAME));
+
+        // then
+        assertThat(failure).isSameAs(queryEx);
+        assertThat(queriedTypes).containsExactly(DnsRecordType.A);
+    }
+
+    @Test
+    public void close_closes_the_dns_name_resolver() {
+        // when
+        lookup.close();
+
+        // then
+        verify(dnsNameResolverMock).close();
+    }
+}
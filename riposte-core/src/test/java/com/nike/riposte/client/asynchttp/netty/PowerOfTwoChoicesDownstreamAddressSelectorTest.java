@@ -0,0 +1,103 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.server.http.DownstreamAddressSelector.AddressStats;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the functionality of {@link PowerOfTwoChoicesDownstreamAddressSelector}.
+ */
+@RunWith(DataProviderRunner.class)
+public class PowerOfTwoChoicesDownstreamAddressSelectorTest {
+
+    private PowerOfTwoChoicesDownstreamAddressSelector selector;
+    private AddressStats statsMock;
+
+    private final InetSocketAddress ip1 = new InetSocketAddress("10.0.0.1", 8080);
+    private final InetSocketAddress ip2 = new InetSocketAddress("10.0.0.2", 8080);
+    private final InetSocketAddress ip3 = new InetSocketAddress("10.0.0.3", 8080);
+
+    @Before
+    public void beforeMethod() {
+        selector = new PowerOfTwoChoicesDownstreamAddressSelector();
+        statsMock = mock(AddressStats.class);
+    }
+
+    private void setupStats(InetSocketAddress address, int outstanding, double latencyEwmaMillis) {
+        doReturn(outstanding).when(statsMock).getOutstandingRequests(address);
+        doReturn(latencyEwmaMillis).when(statsMock).getLatencyEwmaMillis(address);
+    }
+
+    @Test
+    public void select_returns_the_only_address_when_there_is_just_one() {
+        // expect
+        assertThat(selector.select("some.host", Collections.singletonList(ip1), statsMock)).isEqualTo(ip1);
+    }
+
+    @Test
+    public void select_picks_the_cheaper_of_two_addresses() {
+        // given
+        setupStats(ip1, 0, 500);
+        setupStats(ip2, 0, 20);
+        List<InetSocketAddress> addresses = Arrays.asList(ip1, ip2);
+
+        // expect
+        for (int i = 0; i < 100; i++) {
+            assertThat(selector.select("some.host", addresses, statsMock)).isEqualTo(ip2);
+        }
+    }
+
+    @Test
+    public void select_never_picks_the_most_expensive_address_and_spreads_calls_over_the_rest() {
+        // given
+        setupStats(ip1, 0, 20);
+        setupStats(ip2, 0, 25);
+        setupStats(ip3, 10, 500);
+        List<InetSocketAddress> addresses = Arrays.asList(ip1, ip2, ip3);
+        Map<InetSocketAddress, Integer> pickCounts = new HashMap<>();
+
+        // when
+        for (int i = 0; i < 3000; i++) {
+            pickCounts.merge(selector.select("some.host", addresses, statsMock), 1, Integer::sum);
+        }
+
+        // then
+        assertThat(pickCounts).doesNotContainKey(ip3);
+        // ip1 wins whenever it's one of the two choices (2/3 of the time), and ip2 wins the rest.
+        assertThat(pickCounts.get(ip1)).isBetween(1700, 2300);
+        assertThat(pickCounts.get(ip2)).isBetween(700, 1300);
+    }
+
+    @DataProvider(value = {
+        "0  |   0   |   0",
+        "3  |   20  |   80",
+        "0  |   20  |   20",
+        "1  |   0   |   " + (Double.MAX_VALUE / 2),
+    }, splitBy = "\\|")
+    @Test
+    public void cost_is_latency_times_outstanding_plus_one_with_a_penalty_for_busy_unprobed_addresses(
+        int outstanding, double latencyEwmaMillis, double expectedCost
+    ) {
+        // given
+        setupStats(ip1, outstanding, latencyEwmaMillis);
+
+        // expect
+        assertThat(selector.cost(ip1, statsMock)).isEqualTo(expectedCost);
+    }
+}
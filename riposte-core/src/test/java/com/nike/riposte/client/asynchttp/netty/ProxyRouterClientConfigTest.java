@@ -0,0 +1,65 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionMaxAgeConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionPoolConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterDnsResolverConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterOutlierDetectionConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterRetryBudgetConfig;
+import com.nike.riposte.server.http.DownstreamAddressSelector;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the functionality of {@link ProxyRouterClientConfig}.
+ */
+public class ProxyRouterClientConfigTest {
+
+    @Test
+    public void NONE_has_every_setting_turned_off() {
+        // expect
+        assertThat(ProxyRouterClientConfig.NONE.connectionPoolConfig).isNull();
+        assertThat(ProxyRouterClientConfig.NONE.dnsResolverConfig).isNull();
+        assertThat(ProxyRouterClientConfig.NONE.downstreamAddressSelector).isNull();
+        assertThat(ProxyRouterClientConfig.NONE.workerEventLoopSharingEnabled).isFalse();
+        assertThat(ProxyRouterClientConfig.NONE.connectionMaxAgeConfig).isNull();
+        assertThat(ProxyRouterClientConfig.NONE.retryBudgetConfig).isNull();
+        assertThat(ProxyRouterClientConfig.NONE.outlierDetectionConfig).isNull();
+    }
+
+    @Test
+    public void fromServerConfig_uses_the_matching_ServerConfig_methods() {
+        // given
+        ProxyRouterConnectionPoolConfig connectionPoolConfig = new ProxyRouterConnectionPoolConfig() {};
+        ProxyRouterDnsResolverConfig dnsResolverConfig = new ProxyRouterDnsResolverConfig() {};
+        DownstreamAddressSelector downstreamAddressSelector = new RoundRobinDownstreamAddressSelector();
+        ProxyRouterConnectionMaxAgeConfig connectionMaxAgeConfig = new ProxyRouterConnectionMaxAgeConfig() {};
+        ProxyRouterRetryBudgetConfig retryBudgetConfig = new ProxyRouterRetryBudgetConfig() {};
+        ProxyRouterOutlierDetectionConfig outlierDetectionConfig = new ProxyRouterOutlierDetectionConfig() {};
+
+        ServerConfig serverConfigMock = mock(ServerConfig.class);
+        doReturn(connectionPoolConfig).when(serverConfigMock).proxyRouterConnectionPoolConfig();
+        doReturn(dnsResolverConfig).when(serverConfigMock).proxyRouterDnsResolverConfig();
+        doReturn(downstreamAddressSelector).when(serverConfigMock).proxyRouterDownstreamAddressSelector();
+        doReturn(true).when(serverConfigMock).isProxyRouterWorkerEventLoopSharingEnabled();
+        doReturn(connectionMaxAgeConfig).when(serverConfigMock).proxyRouterConnectionMaxAgeConfig();
+        doReturn(retryBudgetConfig).when(serverConfigMock).proxyRouterRetryBudgetConfig();
+        doReturn(outlierDetectionConfig).when(serverConfigMock).proxyRouterOutlierDetectionConfig();
+
+        // when
+        ProxyRouterClientConfig result = ProxyRouterClientConfig.fromServerConfig(serverConfigMock);
+
+        // then
+        assertThat(result.connectionPoolConfig).isSameAs(connectionPoolConfig);
+        assertThat(result.dnsResolverConfig).isSameAs(dnsResolverConfig);
+        assertThat(result.downstreamAddressSelector).isSameAs(downstreamAddressSelector);
+        assertThat(result.workerEventLoopSharingEnabled).isTrue();
+        assertThat(result.connectionMaxAgeConfig).isSameAs(connectionMaxAgeConfig);
+        assertThat(result.retryBudgetConfig).isSameAs(retryBudgetConfig);
+        assertThat(result.outlierDetectionConfig).isSameAs(outlierDetectionConfig);
+    }
+}
@@ -0,0 +1,240 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionPrewarmConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionPrewarmConfig.Target;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.impl.SimpleProxyRouterEndpoint;
+import com.nike.riposte.util.Matcher;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+/**
+ * Tests the functionality of {@link ProxyRouterConnectionPrewarmer}.
+ */
+@RunWith(DataProviderRunner.class)
+public class ProxyRouterConnectionPrewarmerTest {
+
+    private StreamingAsyncHttpClient clientMock;
+    private EventLoopGroup workerGroupMock;
+    private ServerConfig serverConfigMock;
+    private Channel serverChannelMock;
+    private Target httpsTarget;
+    private int connectionsPerHost;
+    private int minIdleConnectionsPerHost;
+    private long startupTimeoutMillis;
+
+    @Before
+    public void beforeMethod() {
+        clientMock = mock(StreamingAsyncHttpClient.class);
+        workerGroupMock = mock(EventLoopGroup.class);
+        serverConfigMock = mock(ServerConfig.class);
+        serverChannelMock = mock(Channel.class);
+        httpsTarget = new Target("foo.com", 443, true, true);
+        connectionsPerHost = 3;
+        minIdleConnectionsPerHost = 0;
+        startupTimeoutMillis = 1000;
+    }
+
+    private ProxyRouterConnectionPrewarmConfig config(boolean includeSimpleProxyRouterEndpoints) {
+        return new ProxyRouterConnectionPrewarmConfig() {
+            @Override
+            public @NotNull List<@NotNull Target> targets() {
+                return singletonList(httpsTarget);
+            }
+
+            @Override
+            public boolean includeSimpleProxyRouterEndpoints() {
+                return includeSimpleProxyRouterEndpoints;
+            }
+
+            @Override
+            public int connectionsPerHost() {
+                return connectionsPerHost;
+            }
+
+            @Override
+            public long startupTimeoutMillis() {
+                return startupTimeoutMillis;
+            }
+
+            @Override
+            public int minIdleConnectionsPerHost() {
+                return minIdleConnectionsPerHost;
+            }
+
+            @Override
+            public long minIdleCheckIntervalMillis() {
+                return 10;
+            }
+        };
+    }
+
+    private void setupPrewarmResult(Target target, CompletableFuture<Integer> result) {
+        doReturn(result).when(clientMock).prewarmConnections(
+            eq(target.host), eq(target.port), eq(target.isHttps), eq(target.relaxedHttpsValidation), anyInt(),
+            eq(workerGroupMock)
+        );
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void constructor_determines_deduplicated_targets_including_simple_proxy_router_endpoints_if_desired(
+        boolean includeSimpleProxyRouterEndpoints
+    ) {
+        // given
+        Collection<Endpoint<?>> endpoints = Arrays.asList(
+            new SimpleProxyRouterEndpoint(Matcher.match("/a"), "bar.com", 8080, "/downstreamA", false),
+            new SimpleProxyRouterEndpoint(Matcher.match("/b"), "bar.com", 8080, "/downstreamB", false),
+            new SimpleProxyRouterEndpoint(Matcher.match("/c"), "foo.com", 443, "/downstreamC", true),
+            mock(Endpoint.class)
+        );
+
+        // when
+        ProxyRouterConnectionPrewarmer prewarmer = new ProxyRouterConnectionPrewarmer(
+            clientMock, config(includeSimpleProxyRouterEndpoints), endpoints, workerGroupMock
+        );
+
+        // then
+        if (includeSimpleProxyRouterEndpoints) {
+            assertThat(prewarmer.getTargets()).containsExactly(
+                httpsTarget,
+                new Target("bar.com", 8080, false, false),
+                // Different relaxedHttpsValidation than httpsTarget, so it's a separate target.
+                new Target("foo.com", 443, true, false)
+            );
+        }
+        else {
+            assertThat(prewarmer.getTargets()).containsExactly(httpsTarget);
+        }
+    }
+
+    @Test
+    public void executePostServerStartupHook_prewarms_every_target_and_tolerates_failures_and_timeouts() {
+        // given
+        Target failingTarget = new Target("failing.com", 80, false, false);
+        Target slowTarget = new Target("slow.com", 80, false, false);
+        ProxyRouterConnectionPrewarmConfig prewarmConfig = new ProxyRouterConnectionPrewarmConfig() {
+            @Override
+            public @NotNull List<@NotNull Target> targets() {
+                return Arrays.asList(httpsTarget, failingTarget, slowTarget);
+            }
+
+            @Override
+            public int connectionsPerHost() {
+                return connectionsPerHost;
+            }
+
+            @Override
+            public long startupTimeoutMillis() {
+                return 50;
+            }
+        };
+        CompletableFuture<Integer> failedResult = new CompletableFuture<>();
+        failedResult.completeExceptionally(new RuntimeException("intentional test exception"));
+        setupPrewarmResult(httpsTarget, CompletableFuture.completedFuture(connectionsPerHost));
+        setupPrewarmResult(failingTarget, failedResult);
+        setupPrewarmResult(slowTarget, new CompletableFuture<>());
+
+        ProxyRouterConnectionPrewarmer prewarmer =
+            new ProxyRouterConnectionPrewarmer(clientMock, prewarmConfig, null, workerGroupMock);
+
+        // when
+        prewarmer.executePostServerStartupHook(serverConfigMock, serverChannelMock);
+
+        // then
+        for (Target target : Arrays.asList(httpsTarget, failingTarget, slowTarget)) {
+            verify(clientMock).prewarmConnections(
+                target.host, target.port, target.isHttps, target.relaxedHttpsValidation, connectionsPerHost,
+                workerGroupMock
+            );
+        }
+        verifyNoMoreInteractions(clientMock);
+        assertThat(prewarmer.minIdleTopUpScheduler).isNull();
+    }
+
+    @Test
+    public void executePostServerStartupHook_starts_min_idle_top_ups_that_the_shutdown_hook_stops() {
+        // given
+        minIdleConnectionsPerHost = 2;
+        setupPrewarmResult(httpsTarget, CompletableFuture.completedFuture(1));
+        ProxyRouterConnectionPrewarmer prewarmer =
+            new ProxyRouterConnectionPrewarmer(clientMock, config(false), null, workerGroupMock);
+
+        // when
+        prewarmer.executePostServerStartupHook(serverConfigMock, serverChannelMock);
+
+        // then
+        verify(clientMock).prewarmConnections(
+            httpsTarget.host, httpsTarget.port, true, true, connectionsPerHost, workerGroupMock
+        );
+        verify(clientMock, timeout(5000).atLeast(2)).prewarmConnections(
+            httpsTarget.host, httpsTarget.port, true, true, minIdleConnectionsPerHost, workerGroupMock
+        );
+        assertThat(prewarmer.minIdleTopUpScheduler).isNotNull();
+
+        // and when
+        prewarmer.executeServerShutdownHook(serverConfigMock, serverChannelMock);
+
+        // then
+        assertThat(prewarmer.minIdleTopUpScheduler).isNull();
+    }
+
+    @Test
+    public void topUpMinIdleConnections_does_nothing_while_the_previous_top_up_is_in_progress() {
+        // given
+        minIdleConnectionsPerHost = 2;
+        CompletableFuture<Integer> inProgressResult = new CompletableFuture<>();
+        setupPrewarmResult(httpsTarget, inProgressResult);
+        ProxyRouterConnectionPrewarmer prewarmer =
+            new ProxyRouterConnectionPrewarmer(clientMock, config(false), null, workerGroupMock);
+
+        // when
+        prewarmer.topUpMinIdleConnections();
+        prewarmer.topUpMinIdleConnections();
+
+        // then
+        verify(clientMock, times(1)).prewarmConnections(
+            anyString(), anyInt(), anyBoolean(), anyBoolean(), anyInt(), eq(workerGroupMock)
+        );
+
+        // and when
+        inProgressResult.complete(2);
+        prewarmer.topUpMinIdleConnections();
+
+        // then
+        verify(clientMock, times(2)).prewarmConnections(
+            anyString(), anyInt(), anyBoolean(), anyBoolean(), anyInt(), eq(workerGroupMock)
+        );
+    }
+}
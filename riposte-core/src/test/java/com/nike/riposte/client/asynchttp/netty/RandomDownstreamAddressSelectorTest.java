@@ -0,0 +1,40 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.server.http.DownstreamAddressSelector.AddressStats;
+
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Tests the functionality of {@link RandomDownstreamAddressSelector}.
+ */
+public class RandomDownstreamAddressSelectorTest {
+
+    @Test
+    public void select_picks_addresses_at_random() {
+        // given
+        InetSocketAddress ip1 = new InetSocketAddress("10.0.0.1", 8080);
+        InetSocketAddress ip2 = new InetSocketAddress("10.0.0.2", 8080);
+        List<InetSocketAddress> addresses = Arrays.asList(ip1, ip2);
+        AddressStats statsMock = mock(AddressStats.class);
+        Set<InetSocketAddress> picks = new HashSet<>();
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            picks.add(RandomDownstreamAddressSelector.INSTANCE.select("some.host", addresses, statsMock));
+        }
+
+        // then
+        assertThat(picks).containsExactlyInAnyOrder(ip1, ip2);
+        verifyNoInteractions(statsMock);
+    }
+}
@@ -0,0 +1,75 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.server.http.DownstreamAddressSelector.AddressStats;
+
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Tests the functionality of {@link RoundRobinDownstreamAddressSelector}.
+ */
+public class RoundRobinDownstreamAddressSelectorTest {
+
+    private final RoundRobinDownstreamAddressSelector selector = new RoundRobinDownstreamAddressSelector();
+    private final AddressStats statsMock = mock(AddressStats.class);
+
+    private final InetSocketAddress ip1 = new InetSocketAddress("10.0.0.1", 8080);
+    private final InetSocketAddress ip2 = new InetSocketAddress("10.0.0.2", 8080);
+    private final InetSocketAddress ip3 = new InetSocketAddress("10.0.0.3", 8080);
+
+    @Test
+    public void select_cycles_through_the_addresses_in_order() {
+        // given
+        List<InetSocketAddress> addresses = Arrays.asList(ip1, ip2, ip3);
+        List<InetSocketAddress> picks = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 7; i++) {
+            picks.add(selector.select("some.host", addresses, statsMock));
+        }
+
+        // then
+        assertThat(picks).containsExactly(ip1, ip2, ip3, ip1, ip2, ip3, ip1);
+        verifyNoInteractions(statsMock);
+    }
+
+    @Test
+    public void select_keeps_a_separate_position_for_each_hostname() {
+        // given
+        List<InetSocketAddress> addresses = Arrays.asList(ip1, ip2);
+
+        // when
+        InetSocketAddress firstHostPick1 = selector.select("first.host", addresses, statsMock);
+        InetSocketAddress secondHostPick1 = selector.select("second.host", addresses, statsMock);
+        InetSocketAddress firstHostPick2 = selector.select("first.host", addresses, statsMock);
+
+        // then
+        assertThat(firstHostPick1).isEqualTo(ip1);
+        assertThat(secondHostPick1).isEqualTo(ip1);
+        assertThat(firstHostPick2).isEqualTo(ip2);
+    }
+
+    @Test
+    public void select_stays_in_bounds_when_the_counter_wraps_around() {
+        // given
+        List<InetSocketAddress> addresses = Arrays.asList(ip1, ip2, ip3);
+        selector.nextIndexByHostname.put("some.host", new AtomicInteger(Integer.MAX_VALUE));
+
+        // when
+        InetSocketAddress beforeWrap = selector.select("some.host", addresses, statsMock);
+        InetSocketAddress afterWrap = selector.select("some.host", addresses, statsMock);
+
+        // then
+        assertThat(beforeWrap).isEqualTo(addresses.get(Math.floorMod(Integer.MAX_VALUE, 3)));
+        assertThat(afterWrap).isEqualTo(addresses.get(Math.floorMod(Integer.MIN_VALUE, 3)));
+    }
+}
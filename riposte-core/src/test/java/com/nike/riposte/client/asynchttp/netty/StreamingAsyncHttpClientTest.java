@@ -1,15 +1,32 @@
 package com.nike.riposte.client.asynchttp.netty;
 
+import com.nike.backstopper.exception.WrapperException;
+import com.nike.riposte.client.asynchttp.netty.DownstreamExtraAttemptMetrics.AttemptType;
+import com.nike.riposte.client.asynchttp.netty.DownstreamExtraAttemptMetrics.Outcome;
+import com.nike.riposte.client.asynchttp.netty.DownstreamOutlierEjectionMetrics.Reason;
 import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.ObjectHolder;
 import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.StreamingCallback;
 import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.StreamingChannel;
+import com.nike.riposte.metrics.MetricsListener;
 import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionMaxAgeConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionPoolConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterDnsResolverConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterOutlierDetectionConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterRetryBudgetConfig;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
 import com.nike.riposte.server.config.distributedtracing.ProxyRouterSpanNamingAndTaggingStrategy;
+import com.nike.riposte.server.error.exception.DownstreamConnectionPoolExhaustedException;
+import com.nike.riposte.server.error.exception.DownstreamIdleChannelTimeoutException;
+import com.nike.riposte.server.error.exception.HostnameResolutionException;
+import com.nike.riposte.server.http.DownstreamAddressSelector;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.ProxyRouterProcessingState;
+import com.nike.riposte.server.http.RequestDeadline;
 import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
 import com.nike.wingtips.Span;
+import com.nike.riposte.testutils.Whitebox;
 import com.nike.wingtips.Tracer;
 
 import com.tngtech.java.junit.dataprovider.DataProvider;
@@ -23,40 +40,73 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultEventLoopGroup;
 import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.pool.ChannelPool;
+import io.netty.channel.pool.ChannelPoolMap;
+import io.netty.channel.pool.SimpleChannelPool;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.DefaultHttpRequest;
 import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.ssl.SslHandler;
 import io.netty.util.Attribute;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
 
 import static com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.CHANNEL_IS_BROKEN_ATTR;
+import static com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.CONNECTION_FIRST_ACQUIRED_NANOS_ATTR;
+import static com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.CONNECTION_MAX_AGE_NANOS_ATTR;
+import static com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.OUTLIER_EJECTION_COUNT_WHEN_ACQUIRED_ATTR;
 import static io.netty.handler.codec.http.HttpHeaders.Names.HOST;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -482,6 +532,45 @@ public class StreamingAsyncHttpClientTest {
         assertThat(request.headers().get(HOST)).isEqualTo(expectedHostHeader);
     }
 
+    @DataProvider(value = {
+        "null",
+        "X-Request-Timeout-Millis"
+    }, splitBy = "\\|")
+    @Test
+    public void streamDownstreamCall_propagates_time_left_before_request_deadline_if_request_has_one(
+        String propagationHeaderName
+    ) {
+        // given
+        DefaultHttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "");
+        ChannelHandlerContext ctx = mockChannelHandlerContext();
+        StreamingCallback streamingCallback = mock(StreamingCallback.class);
+
+        ProxyRouterProcessingState proxyState = ChannelAttributes.getProxyRouterProcessingStateForChannel(ctx).get();
+        RequestInfo<?> requestInfoMock = mock(RequestInfo.class);
+        doReturn(new RequestDeadline(10_000, System.nanoTime(), propagationHeaderName))
+            .when(requestInfoMock).getDeadline();
+        // The downstream call timeout is an idle timeout, and is much shorter than the time left before the deadline.
+        long downstreamCallTimeoutMillis = 50;
+
+        // when
+        new StreamingAsyncHttpClient(
+            200, 200, true, mock(DistributedTracingConfig.class)
+        ).streamDownstreamCall(
+            "localhost", 8080, request, false, false, streamingCallback, downstreamCallTimeoutMillis, true, true,
+            proxyState, requestInfoMock, ctx
+        );
+
+        // then
+        if (propagationHeaderName == null) {
+            assertThat(request.headers().contains("X-Request-Timeout-Millis")).isFalse();
+        }
+        else {
+            assertThat(Long.parseLong(request.headers().get(propagationHeaderName)))
+                .isGreaterThan(downstreamCallTimeoutMillis)
+                .isLessThanOrEqualTo(10_000L);
+        }
+    }
+
     private ChannelHandlerContext mockChannelHandlerContext() {
         ChannelHandlerContext mockContext = mock(ChannelHandlerContext.class);
         when(mockContext.channel()).thenReturn(mock(Channel.class));
@@ -495,6 +584,1146 @@ public class StreamingAsyncHttpClientTest {
         return mockContext;
     }
 
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void createChannelPool_creates_bounded_pool_only_when_connection_pool_config_exists(
+        boolean configExists
+    ) {
+        // given
+        ProxyRouterConnectionPoolConfig config = (configExists) ? new ProxyRouterConnectionPoolConfig() {} : null;
+        MetricsListener metricsListenerMock = mock(MetricsListener.class);
+        doReturn(true).when(metricsListenerMock).isInterestedIn(any(ServerMetricsEvent.class));
+        StreamingAsyncHttpClient client = new StreamingAsyncHttpClient(
+            200, 200, true, 0, config, null, null, false, null, null, null, metricsListenerMock,
+            mock(DistributedTracingConfig.class)
+        );
+        EventLoopGroup eventLoopGroup = new DefaultEventLoopGroup(1);
+        Bootstrap bootstrap = new Bootstrap().group(eventLoopGroup).channel(LocalChannel.class);
+        InetSocketAddress downstreamAddress = InetSocketAddress.createUnresolved("127.0.0.1", 8080);
+
+        try {
+            // when
+            SimpleChannelPool result = client.createChannelPool(bootstrap, downstreamAddress);
+
+            // then
+            assertThat(result instanceof BoundedDownstreamChannelPool).isEqualTo(configExists);
+            if (configExists) {
+                BoundedDownstreamChannelPool boundedPool = (BoundedDownstreamChannelPool) result;
+                assertThat(boundedPool.getDownstreamAddress()).isSameAs(downstreamAddress);
+                assertThat(boundedPool.getMaxConnections()).isEqualTo(config.maxConnectionsPerHost());
+                assertThat(boundedPool.getMaxPendingAcquires()).isEqualTo(config.maxPendingAcquiresPerHost());
+                assertThat(boundedPool.getAcquireTimeoutMillis()).isEqualTo(config.acquireTimeoutMillis());
+                assertThat(Whitebox.getInternalState(boundedPool, "metricsListener")).isSameAs(metricsListenerMock);
+            }
+            result.close();
+        }
+        finally {
+            eventLoopGroup.shutdownGracefully();
+        }
+    }
+
+    @Test
+    public void resolveDownstreamAddress_uses_blocking_lookup_when_dns_resolver_config_is_null() throws Exception {
+        // given
+        StreamingAsyncHttpClient client = new StreamingAsyncHttpClient(
+            200, 200, true, 0, null, null, null, false, null, null, null, null, mock(DistributedTracingConfig.class)
+        );
+
+        // when
+        CompletableFuture<InetSocketAddress> result = client.resolveDownstreamAddress("127.0.0.1", 8080);
+
+        // then
+        assertThat(result).isDone();
+        assertThat(result.get()).isEqualTo(new InetSocketAddress("127.0.0.1", 8080));
+        assertThat(Whitebox.getInternalState(client, "downstreamAddressResolver")).isNull();
+    }
+
+    @Test
+    public void resolveDownstreamAddress_uses_caching_resolver_with_pluggable_lookup_when_dns_resolver_config_exists()
+        throws Exception {
+        // given
+        InetAddress stubAddress = InetAddress.getByAddress("some.downstream.host", new byte[]{10, 0, 0, 1});
+        List<String> lookupCalls = new ArrayList<>();
+        List<Class<? extends DatagramChannel>> datagramChannelClasses = new ArrayList<>();
+        StreamingAsyncHttpClient client = new StreamingAsyncHttpClient(
+            200, 200, true, 0, null, ProxyRouterDnsResolverConfig.DEFAULT_IMPL, null, false, null, null, null, null,
+            mock(DistributedTracingConfig.class)
+        ) {
+            @Override
+            protected @NotNull DownstreamAddressLookup createDownstreamAddressLookup(
+                @NotNull EventLoop eventLoop, @NotNull Class<? extends DatagramChannel> datagramChannelClass
+            ) {
+                datagramChannelClasses.add(datagramChannelClass);
+                return hostname -> {
+                    lookupCalls.add(hostname);
+                    return CompletableFuture.completedFuture(
+                        new DownstreamAddressLookup.Result(Collections.singletonList(stubAddress), 30_000)
+                    );
+                };
+            }
+        };
+
+        // when
+        InetSocketAddress firstResult = client.resolveDownstreamAddress("some.downstream.host", 8080).get();
+        InetSocketAddress secondResult = client.resolveDownstreamAddress("some.downstream.host", 8443).get();
+
+        // then
+        assertThat(firstResult).isEqualTo(new InetSocketAddress(stubAddress, 8080));
+        assertThat(secondResult).isEqualTo(new InetSocketAddress(stubAddress, 8443));
+        assertThat(lookupCalls).containsExactly("some.downstream.host");
+        assertThat(datagramChannelClasses).hasSize(1);
+        assertThat(datagramChannelClasses.get(0)).isIn(EpollDatagramChannel.class, NioDatagramChannel.class);
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void resolveDownstreamAddress_with_selector_picks_from_all_addresses_and_notifies_interested_listener(
+        boolean listenerIsInterested
+    ) throws Exception {
+        // given
+        InetAddress firstAddress = InetAddress.getByAddress("some.downstream.host", new byte[]{10, 0, 0, 1});
+        InetAddress secondAddress = InetAddress.getByAddress("some.downstream.host", new byte[]{10, 0, 0, 2});
+        MetricsListener metricsListenerMock = mock(MetricsListener.class);
+        doReturn(listenerIsInterested).when(metricsListenerMock)
+                                      .isInterestedIn(ServerMetricsEvent.PROXY_ROUTER_DOWNSTREAM_ADDRESS_SELECTED);
+        StreamingAsyncHttpClient client = new StreamingAsyncHttpClient(
+            200, 200, true, 0, null, ProxyRouterDnsResolverConfig.DEFAULT_IMPL, null, false, null, null, null,
+            metricsListenerMock, mock(DistributedTracingConfig.class)
+        ) {
+            @Override
+            protected @NotNull DownstreamAddressLookup createDownstreamAddressLookup(
+                @NotNull EventLoop eventLoop, @NotNull Class<? extends DatagramChannel> datagramChannelClass
+            ) {
+                return hostname -> CompletableFuture.completedFuture(
+                    new DownstreamAddressLookup.Result(Arrays.asList(firstAddress, secondAddress), 30_000)
+                );
+            }
+        };
+        List<List<InetSocketAddress>> selectorCandidates = new ArrayList<>();
+        DownstreamAddressSelector selector = (hostname, addresses, stats) -> {
+            selectorCandidates.add(addresses);
+            return addresses.get(1);
+        };
+
+        // when
+        InetSocketAddress result = client.resolveDownstreamAddress("some.downstream.host", 8080, selector).get();
+
+        // then
+        InetSocketAddress expectedAddress = new InetSocketAddress(secondAddress, 8080);
+        assertThat(result).isEqualTo(expectedAddress);
+        assertThat(selectorCandidates).containsExactly(
+            Arrays.asList(new InetSocketAddress(firstAddress, 8080), expectedAddress)
+        );
+
+        if (!listenerIsInterested) {
+            verify(metricsListenerMock, never()).onEvent(any(), any());
+            return;
+        }
+
+        ArgumentCaptor<Object> metricsValueCaptor = ArgumentCaptor.forClass(Object.class);
+        verify(metricsListenerMock).onEvent(
+            eq(ServerMetricsEvent.PROXY_ROUTER_DOWNSTREAM_ADDRESS_SELECTED), metricsValueCaptor.capture()
+        );
+        DownstreamAddressSelectionMetrics selectionMetrics =
+            (DownstreamAddressSelectionMetrics) metricsValueCaptor.getValue();
+        assertThat(selectionMetrics.hostname).isEqualTo("some.downstream.host");
+        assertThat(selectionMetrics.selectedAddress).isEqualTo(expectedAddress);
+        assertThat(selectionMetrics.getSelectedAddressName()).isEqualTo("10.0.0.2:8080");
+        assertThat(selectionMetrics.stats).isSameAs(Whitebox.getInternalState(client, "downstreamAddressStats"));
+    }
+
+    @Test
+    public void resolveDownstreamAddress_with_selector_does_not_call_selector_when_there_is_only_one_address()
+        throws Exception {
+        // given
+        StreamingAsyncHttpClient client = new StreamingAsyncHttpClient(
+            200, 200, true, 0, null, null, null, false, null, null, null, null, mock(DistributedTracingConfig.class)
+        );
+        DownstreamAddressSelector selectorMock = mock(DownstreamAddressSelector.class);
+
+        // when
+        InetSocketAddress result = client.resolveDownstreamAddress("127.0.0.1", 8080, selectorMock).get();
+
+        // then
+        assertThat(result).isEqualTo(new InetSocketAddress("127.0.0.1", 8080));
+        verifyNoInteractions(selectorMock);
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void trackDownstreamCall_methods_feed_the_per_address_stats_from_the_acquire_release_lifecycle(
+        boolean acquireSucceeds
+    ) {
+        // given
+        StreamingAsyncHttpClient client = new StreamingAsyncHttpClient(
+            200, 200, true, 0, null, null, null, false, null, null, null, null, mock(DistributedTracingConfig.class)
+        );
+        DownstreamAddressStatsTracker stats =
+            (DownstreamAddressStatsTracker) Whitebox.getInternalState(client, "downstreamAddressStats");
+        InetSocketAddress downstreamAddress = new InetSocketAddress("127.0.0.1", 8080);
+        Promise<Channel> acquirePromise = ImmediateEventExecutor.INSTANCE.newPromise();
+        EmbeddedChannel channel = new EmbeddedChannel();
+
+        // when
+        Future<Channel> result = client.trackDownstreamCallStarted(
+            downstreamAddress, acquirePromise, System.nanoTime() - 1_000_000
+        );
+
+        // then
+        assertThat(result).isSameAs(acquirePromise);
+        assertThat(stats.getOutstandingRequests(downstreamAddress)).isEqualTo(1);
+
+        // and when
+        if (acquireSucceeds) {
+            acquirePromise.setSuccess(channel);
+            client.trackDownstreamCallFinished(downstreamAddress, channel);
+            // A second release for the same call should be ignored.
+            client.trackDownstreamCallFinished(downstreamAddress, channel);
+        }
+        else {
+            acquirePromise.setFailure(new RuntimeException("intentional test exception"));
+        }
+
+        // then
+        assertThat(stats.getOutstandingRequests(downstreamAddress)).isEqualTo(0);
+        if (acquireSucceeds) {
+            assertThat(stats.getLatencyEwmaMillis(downstreamAddress)).isGreaterThan(0.9);
+        }
+        else {
+            assertThat(stats.getLatencyEwmaMillis(downstreamAddress)).isEqualTo(0);
+        }
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void getPoolMap_with_incoming_channel_creates_pools_on_the_incoming_channels_event_loop_when_sharing_is_enabled() {
+        // given
+        StreamingAsyncHttpClient client = new StreamingAsyncHttpClient(
+            200, 200, true, 0, new ProxyRouterConnectionPoolConfig() {}, null, null, true, null, null, null, null,
+            mock(DistributedTracingConfig.class)
+        );
+        NioEventLoopGroup workerGroup = new NioEventLoopGroup(2);
+        NioSocketChannel incomingChannel1 = new NioSocketChannel();
+        NioSocketChannel incomingChannel2 = new NioSocketChannel();
+        InetSocketAddress downstreamAddress = new InetSocketAddress("127.0.0.1", 8080);
+
+        try {
+            EventLoop eventLoop1 = workerGroup.next();
+            EventLoop eventLoop2 = workerGroup.next();
+            eventLoop1.register(incomingChannel1).syncUninterruptibly();
+            eventLoop2.register(incomingChannel2).syncUninterruptibly();
+
+            // when
+            ChannelPoolMap<InetSocketAddress, SimpleChannelPool> poolMap1 = client.getPoolMap(incomingChannel1);
+            ChannelPoolMap<InetSocketAddress, SimpleChannelPool> poolMap2 = client.getPoolMap(incomingChannel2);
+
+            // then
+            assertThat(client.getPoolMap(incomingChannel1)).isSameAs(poolMap1);
+            assertThat(poolMap1).isNotSameAs(poolMap2);
+            assertThat(Whitebox.getInternalState(client, "poolMap")).isNull();
+
+            BoundedDownstreamChannelPool pool1 = (BoundedDownstreamChannelPool) poolMap1.get(downstreamAddress);
+            BoundedDownstreamChannelPool pool2 = (BoundedDownstreamChannelPool) poolMap2.get(downstreamAddress);
+            assertThat(Whitebox.getInternalState(pool1, "eventLoopGroup")).isSameAs(eventLoop1);
+            assertThat(Whitebox.getInternalState(pool2, "eventLoopGroup")).isSameAs(eventLoop2);
+            assertThat(pool1.getName()).startsWith("127.0.0.1:8080-workerEventLoop");
+            assertThat(pool2.getName()).startsWith("127.0.0.1:8080-workerEventLoop");
+            assertThat(pool1.getName()).isNotEqualTo(pool2.getName());
+            pool1.close();
+            pool2.close();
+        }
+        finally {
+            incomingChannel1.close().syncUninterruptibly();
+            incomingChannel2.close().syncUninterruptibly();
+            workerGroup.shutdownGracefully();
+        }
+    }
+
+    @DataProvider(value = {
+        "false  |   true",
+        "true   |   false",
+        "false  |   false"
+    }, splitBy = "\\|")
+    @Test
+    public void getPoolMap_with_incoming_channel_uses_the_proxy_router_pool_map_when_the_event_loop_cannot_be_shared(
+        boolean sharingEnabled, boolean incomingChannelIsNio
+    ) {
+        // given
+        StreamingAsyncHttpClient client = new StreamingAsyncHttpClient(
+            200, 200, true, 0, null, null, null, sharingEnabled, null, null, null, null,
+            mock(DistributedTracingConfig.class)
+        );
+        NioEventLoopGroup workerGroup = new NioEventLoopGroup(1);
+        Channel incomingChannel = (incomingChannelIsNio) ? new NioSocketChannel() : new EmbeddedChannel();
+
+        try {
+            if (incomingChannelIsNio) {
+                workerGroup.next().register(incomingChannel).syncUninterruptibly();
+            }
+
+            // when
+            ChannelPoolMap<InetSocketAddress, SimpleChannelPool> result = client.getPoolMap(incomingChannel);
+
+            // then
+            assertThat(result).isSameAs(client.getPoolMap());
+            assertThat((Map<?, ?>) Whitebox.getInternalState(client, "poolMapsByWorkerEventLoop")).isEmpty();
+        }
+        finally {
+            incomingChannel.close().syncUninterruptibly();
+            workerGroup.shutdownGracefully();
+        }
+    }
+
+    @DataProvider(value = {
+        "true   |   true    |   2",
+        "true   |   false   |   1",
+        "false  |   true    |   1"
+    }, splitBy = "\\|")
+    @Test
+    public void getPoolMapsForPrewarming_returns_the_pool_map_of_every_worker_event_loop_only_when_sharing_is_enabled(
+        boolean sharingEnabled, boolean passWorkerGroup, int expectedNumPoolMaps
+    ) {
+        // given
+        StreamingAsyncHttpClient client = new StreamingAsyncHttpClient(
+            200, 200, true, 0, null, null, null, sharingEnabled, null, null, null, null,
+            mock(DistributedTracingConfig.class)
+        );
+        NioEventLoopGroup workerGroup = new NioEventLoopGroup(2);
+
+        try {
+            // when
+            List<ChannelPoolMap<InetSocketAddress, SimpleChannelPool>> result =
+                client.getPoolMapsForPrewarming((passWorkerGroup) ? workerGroup : null);
+
+            // then
+            assertThat(result).hasSize(expectedNumPoolMaps);
+            if (expectedNumPoolMaps == 1) {
+                assertThat(result.get(0)).isSameAs(client.getPoolMap());
+            }
+            else {
+                List<ChannelPoolMap<InetSocketAddress, SimpleChannelPool>> expected = new ArrayList<>();
+                workerGroup.forEach(
+                    eventLoop -> expected.add(
+                        client.getPoolMapForWorkerEventLoop((EventLoop) eventLoop, NioSocketChannel.class)
+                    )
+                );
+                assertThat(result).containsExactlyElementsOf(expected);
+            }
+        }
+        finally {
+            workerGroup.shutdownGracefully();
+        }
+    }
+
+    @Test
+    public void prewarmConnections_opens_ready_connections_and_releases_them_back_to_the_pool() throws Exception {
+        // given
+        StreamingAsyncHttpClient client = new StreamingAsyncHttpClient(
+            200, 2000, true, 0, null, null, null, false, null, null, null, null, mock(DistributedTracingConfig.class)
+        );
+        DownstreamAddressStatsTracker stats =
+            (DownstreamAddressStatsTracker) Whitebox.getInternalState(client, "downstreamAddressStats");
+
+        // The OS accepts the connections into the server socket's backlog, so there's no need to accept() them.
+        try (ServerSocket downstreamServerSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"))) {
+            int downstreamPort = downstreamServerSocket.getLocalPort();
+            InetSocketAddress downstreamAddress = new InetSocketAddress("127.0.0.1", downstreamPort);
+
+            // when
+            int result = client.prewarmConnections("127.0.0.1", downstreamPort, false, false, 2, null)
+                               .get(10, TimeUnit.SECONDS);
+
+            // then
+            assertThat(result).isEqualTo(2);
+            assertThat(stats.getOutstandingRequests(downstreamAddress)).isEqualTo(0);
+            assertThat(stats.getLatencyEwmaMillis(downstreamAddress)).isEqualTo(0);
+
+            SimpleChannelPool pool = client.getPoolMap().get(downstreamAddress);
+            Channel reused1 = pool.acquire().get(10, TimeUnit.SECONDS);
+            Channel reused2 = pool.acquire().get(10, TimeUnit.SECONDS);
+            assertThat(reused1).isNotSameAs(reused2);
+            assertThat(reused1.pipeline().names()).contains(StreamingAsyncHttpClient.PREWARM_ERROR_HANDLER_NAME);
+            assertThat(reused2.pipeline().names()).contains(StreamingAsyncHttpClient.PREWARM_ERROR_HANDLER_NAME);
+            pool.close();
+        }
+    }
+
+    @Test
+    public void prewarmConnections_counts_connections_that_cannot_be_opened_as_not_ready() throws Exception {
+        // given
+        StreamingAsyncHttpClient client = new StreamingAsyncHttpClient(
+            200, 2000, true, 0, null, null, null, false, null, null, null, null, mock(DistributedTracingConfig.class)
+        );
+        int unusedPort;
+        try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"))) {
+            unusedPort = serverSocket.getLocalPort();
+        }
+
+        // when
+        int result = client.prewarmConnections("127.0.0.1", unusedPort, false, false, 2, null)
+                           .get(10, TimeUnit.SECONDS);
+
+        // then
+        assertThat(result).isEqualTo(0);
+    }
+
+    @Test
+    public void prewarmConnections_returns_failed_future_when_hostname_cannot_be_resolved() {
+        // given
+        StreamingAsyncHttpClient client = spy(new StreamingAsyncHttpClient(
+            200, 200, true, 0, null, null, null, false, null, null, null, null, mock(DistributedTracingConfig.class)
+        ));
+        HostnameResolutionException resolutionError = new HostnameResolutionException(
+            "intentional test exception", new RuntimeException("intentional test cause")
+        );
+        doThrow(resolutionError).when(client).resolveAllDownstreamAddresses("foo.bar", 8080);
+
+        // when
+        CompletableFuture<Integer> result = client.prewarmConnections("foo.bar", 8080, false, false, 2, null);
+
+        // then
+        assertThat(result).isCompletedExceptionally();
+        Throwable ex = catchThrowable(result::join);
+        assertThat(ex).hasCause(resolutionError);
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void prepChannelForPrewarming_sets_up_a_fresh_pipeline_and_leaves_an_already_prepped_one_alone(
+        boolean isHttps
+    ) throws Exception {
+        // given
+        StreamingAsyncHttpClient client = new StreamingAsyncHttpClient(
+            200, 200, true, 0, null, null, null, false, null, null, null, null, mock(DistributedTracingConfig.class)
+        );
+        EmbeddedChannel channel = new EmbeddedChannel();
+
+        // when
+        Future<?> result = client.prepChannelForPrewarming(channel, "127.0.0.1", 8443, isHttps, true);
+
+        // then
+        if (isHttps) {
+            assertThat(channel.pipeline().names()).containsSubsequence(
+                StreamingAsyncHttpClient.DOWNSTREAM_CALL_TIMEOUT_HANDLER_NAME,
+                StreamingAsyncHttpClient.SSL_HANDLER_NAME,
+                StreamingAsyncHttpClient.PREWARM_ERROR_HANDLER_NAME
+            );
+            SslHandler sslHandler = (SslHandler) channel.pipeline().get(StreamingAsyncHttpClient.SSL_HANDLER_NAME);
+            assertThat(result).isSameAs(sslHandler.handshakeFuture());
+            assertThat(result.isDone()).isFalse();
+        }
+        else {
+            assertThat(channel.pipeline().names()).contains(StreamingAsyncHttpClient.PREWARM_ERROR_HANDLER_NAME);
+            assertThat(channel.pipeline().names()).doesNotContain(StreamingAsyncHttpClient.SSL_HANDLER_NAME);
+            assertThat(result.isSuccess()).isTrue();
+        }
+
+        // and when
+        List<String> handlerNamesAfterFirstPrep = channel.pipeline().names();
+        Future<?> secondResult = client.prepChannelForPrewarming(channel, "127.0.0.1", 8443, isHttps, true);
+
+        // then
+        assertThat(channel.pipeline().names()).isEqualTo(handlerNamesAfterFirstPrep);
+        if (isHttps) {
+            assertThat(secondResult).isSameAs(result);
+        }
+        else {
+            assertThat(secondResult.isSuccess()).isTrue();
+        }
+        channel.finishAndReleaseAll();
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void PrewarmedChannelErrorHandler_marks_channel_broken_and_closes_it(boolean isIdleTimeout) {
+        // given
+        EmbeddedChannel channel = new EmbeddedChannel(new StreamingAsyncHttpClient.PrewarmedChannelErrorHandler());
+        Throwable error = (isIdleTimeout)
+                          ? new DownstreamIdleChannelTimeoutException(5000, channel)
+                          : new RuntimeException("intentional test exception");
+
+        // when
+        channel.pipeline().fireExceptionCaught(error);
+
+        // then
+        assertThat(channel.attr(CHANNEL_IS_BROKEN_ATTR).get()).isTrue();
+        assertThat(channel.isOpen()).isFalse();
+    }
+
+    private static ProxyRouterConnectionMaxAgeConfig maxAgeConfig(long maxAgeMillis, long maxJitterMillis) {
+        return new ProxyRouterConnectionMaxAgeConfig() {
+            @Override
+            public long maxAgeMillis() {
+                return maxAgeMillis;
+            }
+
+            @Override
+            public long maxJitterMillis() {
+                return maxJitterMillis;
+            }
+        };
+    }
+
+    private static StreamingAsyncHttpClient clientWithMaxAge(
+        ProxyRouterConnectionMaxAgeConfig maxAgeConfig, MetricsListener metricsListener
+    ) {
+        return new StreamingAsyncHttpClient(
+            200, 2000, true, 0, null, null, null, false, maxAgeConfig, null, null, metricsListener,
+            mock(DistributedTracingConfig.class)
+        );
+    }
+
+    @DataProvider(value = {
+        "0      |   0",
+        "-1     |   0",
+        "1000   |   -1"
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_connection_max_age_config(
+        long maxAgeMillis, long maxJitterMillis
+    ) {
+        // when
+        Throwable ex = catchThrowable(() -> clientWithMaxAge(maxAgeConfig(maxAgeMillis, maxJitterMillis), null));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DataProvider(value = {
+        "1000   |   0",
+        "1000   |   250",
+        "1000   |   5000"
+    }, splitBy = "\\|")
+    @Test
+    public void generateConnectionMaxAgeNanos_subtracts_random_jitter_up_to_the_max_jitter(
+        long maxAgeMillis, long maxJitterMillis
+    ) {
+        // given
+        StreamingAsyncHttpClient client = clientWithMaxAge(maxAgeConfig(maxAgeMillis, maxJitterMillis), null);
+        long maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMillis);
+        long expectedMinNanos = Math.max(0, maxAgeNanos - TimeUnit.MILLISECONDS.toNanos(maxJitterMillis));
+
+        // when
+        List<Long> results = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            results.add(client.generateConnectionMaxAgeNanos());
+        }
+
+        // then
+        assertThat(results).allSatisfy(result -> assertThat(result).isBetween(expectedMinNanos, maxAgeNanos));
+        if (maxJitterMillis == 0) {
+            assertThat(results).containsOnly(maxAgeNanos);
+        }
+        else {
+            assertThat(results.stream().distinct().count()).isGreaterThan(1);
+        }
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void assignConnectionMaxAgeIfNecessary_starts_the_clock_only_on_first_acquire_and_only_with_config(
+        boolean configExists
+    ) {
+        // given
+        StreamingAsyncHttpClient client = clientWithMaxAge((configExists) ? maxAgeConfig(1000, 0) : null, null);
+        EmbeddedChannel channel = new EmbeddedChannel();
+
+        // when
+        client.assignConnectionMaxAgeIfNecessary(channel, 42);
+        client.assignConnectionMaxAgeIfNecessary(channel, 4242);
+
+        // then
+        if (configExists) {
+            assertThat(channel.attr(CONNECTION_FIRST_ACQUIRED_NANOS_ATTR).get()).isEqualTo(42L);
+            assertThat(channel.attr(CONNECTION_MAX_AGE_NANOS_ATTR).get()).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+        }
+        else {
+            assertThat(channel.attr(CONNECTION_FIRST_ACQUIRED_NANOS_ATTR).get()).isNull();
+            assertThat(channel.attr(CONNECTION_MAX_AGE_NANOS_ATTR).get()).isNull();
+        }
+    }
+
+    private enum RetireChannelScenario {
+        PAST_MAX_AGE(true, true, false, true),
+        NOT_PAST_MAX_AGE(true, false, false, false),
+        NO_CONFIG(false, true, false, false),
+        ALREADY_BROKEN(true, true, true, false);
+
+        public final boolean configExists;
+        public final boolean pastMaxAge;
+        public final boolean alreadyBroken;
+        public final boolean expectRetired;
+
+        RetireChannelScenario(boolean configExists, boolean pastMaxAge, boolean alreadyBroken,
+                              boolean expectRetired) {
+            this.configExists = configExists;
+            this.pastMaxAge = pastMaxAge;
+            this.alreadyBroken = alreadyBroken;
+            this.expectRetired = expectRetired;
+        }
+    }
+
+    @DataProvider(value = {
+        "PAST_MAX_AGE",
+        "NOT_PAST_MAX_AGE",
+        "NO_CONFIG",
+        "ALREADY_BROKEN"
+    })
+    @Test
+    public void retireChannelIfPastMaxAge_works_as_expected(RetireChannelScenario scenario) {
+        // given
+        MetricsListener metricsListenerMock = mock(MetricsListener.class);
+        doReturn(true).when(metricsListenerMock).isInterestedIn(any(ServerMetricsEvent.class));
+        StreamingAsyncHttpClient client = clientWithMaxAge(
+            (scenario.configExists) ? maxAgeConfig(1000, 0) : null, metricsListenerMock
+        );
+        InetSocketAddress downstreamAddress = new InetSocketAddress("127.0.0.1", 8080);
+        EmbeddedChannel channel = new EmbeddedChannel();
+        long maxAgeNanos = TimeUnit.SECONDS.toNanos(1);
+        long ageNanos = (scenario.pastMaxAge) ? TimeUnit.SECONDS.toNanos(2) : 0;
+        channel.attr(CONNECTION_FIRST_ACQUIRED_NANOS_ATTR).set(System.nanoTime() - ageNanos);
+        channel.attr(CONNECTION_MAX_AGE_NANOS_ATTR).set(maxAgeNanos);
+        if (scenario.alreadyBroken) {
+            channel.attr(CHANNEL_IS_BROKEN_ATTR).set(true);
+        }
+
+        // when
+        boolean result = client.retireChannelIfPastMaxAge(channel, downstreamAddress, "somePool");
+
+        // then
+        assertThat(result).isEqualTo(scenario.expectRetired);
+        if (scenario.expectRetired) {
+            assertThat(channel.attr(CHANNEL_IS_BROKEN_ATTR).get()).isTrue();
+            assertThat(channel.isOpen()).isFalse();
+
+            ArgumentCaptor<Object> metricsCaptor = ArgumentCaptor.forClass(Object.class);
+            verify(metricsListenerMock).onEvent(
+                eq(ServerMetricsEvent.PROXY_ROUTER_CONNECTION_RETIRED), metricsCaptor.capture()
+            );
+            DownstreamConnectionRetirementMetrics metrics =
+                (DownstreamConnectionRetirementMetrics) metricsCaptor.getValue();
+            assertThat(metrics.poolName).isEqualTo("somePool");
+            assertThat(metrics.downstreamAddress).isSameAs(downstreamAddress);
+            assertThat(metrics.connectionAgeNanos).isGreaterThanOrEqualTo(ageNanos);
+            assertThat(metrics.maxAgeNanos).isEqualTo(maxAgeNanos);
+        }
+        else {
+            assertThat(channel.isOpen()).isTrue();
+            verifyNoInteractions(metricsListenerMock);
+        }
+    }
+
+    @Test
+    public void retireChannelIfPastMaxAge_does_nothing_for_null_channel() {
+        // given
+        StreamingAsyncHttpClient client = clientWithMaxAge(maxAgeConfig(1000, 0), null);
+
+        // expect
+        assertThat(client.retireChannelIfPastMaxAge(null, new InetSocketAddress("127.0.0.1", 8080), "somePool"))
+            .isFalse();
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void connection_pools_retire_connections_past_their_max_age_on_poll_and_on_release(
+        boolean boundedPool
+    ) throws Exception {
+        // given
+        MetricsListener metricsListenerMock = mock(MetricsListener.class);
+        doReturn(true).when(metricsListenerMock).isInterestedIn(any(ServerMetricsEvent.class));
+        StreamingAsyncHttpClient client = new StreamingAsyncHttpClient(
+            200, 2000, true, 0, (boundedPool) ? new ProxyRouterConnectionPoolConfig() {} : null, null, null, false,
+            maxAgeConfig(250, 0), null, null, metricsListenerMock, mock(DistributedTracingConfig.class)
+        );
+
+        // The OS accepts the connections into the server socket's backlog, so there's no need to accept() them.
+        try (ServerSocket downstreamServerSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"))) {
+            InetSocketAddress downstreamAddress =
+                new InetSocketAddress("127.0.0.1", downstreamServerSocket.getLocalPort());
+            SimpleChannelPool pool = client.getPoolMap().get(downstreamAddress);
+
+            // when
+            Channel firstChannel = pool.acquire().get(10, TimeUnit.SECONDS);
+            pool.release(firstChannel).get(10, TimeUnit.SECONDS);
+
+            // then
+            assertThat(firstChannel.isOpen()).isTrue();
+
+            // and when
+            Thread.sleep(300);
+            Channel secondChannel = pool.acquire().get(10, TimeUnit.SECONDS);
+
+            // then
+            assertThat(secondChannel).isNotSameAs(firstChannel);
+            assertThat(firstChannel.closeFuture().await(10, TimeUnit.SECONDS)).isTrue();
+
+            // and when
+            Thread.sleep(300);
+            pool.release(secondChannel).get(10, TimeUnit.SECONDS);
+
+            // then
+            assertThat(secondChannel.closeFuture().await(10, TimeUnit.SECONDS)).isTrue();
+            verify(metricsListenerMock, times(2)).onEvent(
+                eq(ServerMetricsEvent.PROXY_ROUTER_CONNECTION_RETIRED), any(DownstreamConnectionRetirementMetrics.class)
+            );
+            pool.close();
+        }
+    }
+
+    private ProxyRouterRetryBudgetConfig retryBudgetConfig(double maxHedgedAttemptsPercent,
+                                                         double maxConnectRetriesPercent) {
+        return new ProxyRouterRetryBudgetConfig() {
+            @Override
+            public double maxHedgedAttemptsPercent() {
+                return maxHedgedAttemptsPercent;
+            }
+
+            @Override
+            public double maxConnectRetriesPercent() {
+                return maxConnectRetriesPercent;
+            }
+        };
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void StreamingChannel_cancelDownstreamCall_fires_exception_on_event_loop_only_if_call_is_still_active(
+        boolean callIsActive
+    ) {
+        // given
+        ChannelPipeline pipelineMock = mock(ChannelPipeline.class);
+        doReturn(pipelineMock).when(channelMock).pipeline();
+        Throwable cause = new RuntimeException("intentional test exception");
+
+        // when
+        streamingChannelSpy.cancelDownstreamCall(cause);
+
+        // then
+        verifyNoInteractions(pipelineMock);
+        ArgumentCaptor<Runnable> taskCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(eventLoopMock).execute(taskCaptor.capture());
+
+        // and when
+        callActiveHolder.heldObject = callIsActive;
+        taskCaptor.getValue().run();
+
+        // then
+        if (callIsActive) {
+            verify(pipelineMock).fireExceptionCaught(cause);
+        }
+        else {
+            verifyNoInteractions(pipelineMock);
+        }
+    }
+
+    @Test
+    public void resolveDownstreamAddressAvoiding_picks_an_address_that_is_not_avoided() {
+        // given
+        StreamingAsyncHttpClient client = spy(new StreamingAsyncHttpClient(
+            200, 200, true, 0, null, null, null, false, null, null, null, null, mock(DistributedTracingConfig.class)
+        ));
+        InetSocketAddress first = new InetSocketAddress("127.0.0.1", 8080);
+        InetSocketAddress second = new InetSocketAddress("127.0.0.2", 8080);
+        doReturn(CompletableFuture.completedFuture(Arrays.asList(first, second)))
+            .when(client).resolveAllDownstreamAddresses("some.downstream.host", 8080);
+
+        // expect
+        for (int i = 0; i < 10; i++) {
+            assertThat(client.resolveDownstreamAddressAvoiding(
+                "some.downstream.host", 8080, null, Collections.singletonList(first)
+            ).join()).isEqualTo(second);
+        }
+    }
+
+    @Test
+    public void resolveDownstreamAddressAvoiding_falls_back_to_all_addresses_if_every_address_is_avoided() {
+        // given
+        StreamingAsyncHttpClient client = spy(new StreamingAsyncHttpClient(
+            200, 200, true, 0, null, null, null, false, null, null, null, null, mock(DistributedTracingConfig.class)
+        ));
+        InetSocketAddress onlyAddress = new InetSocketAddress("127.0.0.1", 8080);
+        doReturn(CompletableFuture.completedFuture(Collections.singletonList(onlyAddress)))
+            .when(client).resolveAllDownstreamAddresses("some.downstream.host", 8080);
+
+        // when
+        InetSocketAddress result = client.resolveDownstreamAddressAvoiding(
+            "some.downstream.host", 8080, null, Collections.singletonList(onlyAddress)
+        ).join();
+
+        // then
+        assertThat(result).isEqualTo(onlyAddress);
+    }
+
+    @DataProvider(value = {
+        "GET        |   null    |   false   |   true",
+        "HEAD       |   null    |   false   |   true",
+        "OPTIONS    |   null    |   false   |   true",
+        "GET        |   0       |   false   |   true",
+        "GET        |   42      |   false   |   false",
+        "GET        |   null    |   true    |   false",
+        "POST       |   null    |   false   |   false",
+        "PUT        |   null    |   false   |   false",
+        "DELETE     |   null    |   false   |   false"
+    }, splitBy = "\\|")
+    @Test
+    public void isRequestHedgeable_only_allows_bodiless_GET_HEAD_and_OPTIONS_requests(
+        String method, String contentLength, boolean chunked, boolean expectedResult
+    ) {
+        // given
+        StreamingAsyncHttpClient client = new StreamingAsyncHttpClient(
+            200, 200, true, mock(DistributedTracingConfig.class)
+        );
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.valueOf(method), "/foo");
+        if (contentLength != null) {
+            request.headers().set(HttpHeaderNames.CONTENT_LENGTH, contentLength);
+        }
+        if (chunked) {
+            request.headers().set(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+        }
+
+        // expect
+        assertThat(client.isRequestHedgeable(request)).isEqualTo(expectedResult);
+    }
+
+    @Test
+    public void determineHedgeDelayMillis_uses_latency_percentile_once_host_has_enough_samples() {
+        // given
+        StreamingAsyncHttpClient client = new StreamingAsyncHttpClient(
+            200, 200, true, mock(DistributedTracingConfig.class)
+        );
+        DownstreamResponseLatencyTracker tracker =
+            (DownstreamResponseLatencyTracker) Whitebox.getInternalState(client, "responseLatencyTracker");
+
+        // expect
+        assertThat(client.determineHedgeDelayMillis("some.downstream.host", 100, 95)).isEqualTo(100);
+        assertThat(client.determineHedgeDelayMillis("some.downstream.host", 0, 95)).isEqualTo(-1);
+
+        // and when
+        for (int i = 0; i < DownstreamResponseLatencyTracker.DEFAULT_MIN_SAMPLES; i++) {
+            tracker.recordLatency("some.downstream.host", TimeUnit.MILLISECONDS.toNanos(42));
+        }
+
+        // then
+        assertThat(client.determineHedgeDelayMillis("some.downstream.host", 100, 95)).isEqualTo(42);
+        assertThat(client.determineHedgeDelayMillis("some.downstream.host", 100, 0)).isEqualTo(100);
+    }
+
+    @Test
+    public void streamDownstreamCall_retries_failed_connection_on_a_different_address_when_budget_allows()
+        throws Exception {
+        // given
+        MetricsListener metricsListenerMock = mock(MetricsListener.class);
+        doReturn(true).when(metricsListenerMock).isInterestedIn(any(ServerMetricsEvent.class));
+        StreamingAsyncHttpClient client = spy(new StreamingAsyncHttpClient(
+            200, 2000, true, 0, null, null, null, false, null, retryBudgetConfig(0, 100), null, metricsListenerMock,
+            mock(DistributedTracingConfig.class)
+        ));
+        int closedPort;
+        try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"))) {
+            closedPort = serverSocket.getLocalPort();
+        }
+        ChannelHandlerContext ctx = mockChannelHandlerContext();
+        ProxyRouterProcessingState proxyState = ChannelAttributes.getProxyRouterProcessingStateForChannel(ctx).get();
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/foo");
+
+        // The OS accepts the connection into the server socket's backlog, so there's no need to accept() it.
+        try (ServerSocket downstreamServerSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"))) {
+            InetSocketAddress closedAddress = new InetSocketAddress("127.0.0.1", closedPort);
+            InetSocketAddress openAddress = new InetSocketAddress("127.0.0.1", downstreamServerSocket.getLocalPort());
+            doReturn(CompletableFuture.completedFuture(closedAddress))
+                .when(client).resolveDownstreamAddress("some.downstream.host", 8080, null);
+            doReturn(CompletableFuture.completedFuture(Arrays.asList(closedAddress, openAddress)))
+                .when(client).resolveAllDownstreamAddresses("some.downstream.host", 8080);
+
+            // when
+            StreamingChannel result = client.streamDownstreamCall(
+                "some.downstream.host", 8080, request, false, false, mock(StreamingCallback.class), 2000, false,
+                false, proxyState, mock(RequestInfo.class), ctx, null, 0, 0, 1
+            ).get(10, TimeUnit.SECONDS);
+
+            // then
+            assertThat(result.getChannel().remoteAddress()).isEqualTo(openAddress);
+            ArgumentCaptor<Object> metricsValueCaptor = ArgumentCaptor.forClass(Object.class);
+            verify(metricsListenerMock).onEvent(
+                eq(ServerMetricsEvent.PROXY_ROUTER_DOWNSTREAM_EXTRA_ATTEMPT), metricsValueCaptor.capture()
+            );
+            DownstreamExtraAttemptMetrics extraAttemptMetrics =
+                (DownstreamExtraAttemptMetrics) metricsValueCaptor.getValue();
+            assertThat(extraAttemptMetrics.hostname).isEqualTo("some.downstream.host");
+            assertThat(extraAttemptMetrics.attemptType).isEqualTo(AttemptType.CONNECT_RETRY);
+            assertThat(extraAttemptMetrics.outcome).isEqualTo(Outcome.SENT);
+
+            result.closeChannelDueToUnrecoverableError(new RuntimeException("intentional test cleanup"));
+        }
+    }
+
+    @Test
+    public void streamDownstreamCall_does_not_retry_failed_connection_when_budget_is_exhausted() throws Exception {
+        // given
+        MetricsListener metricsListenerMock = mock(MetricsListener.class);
+        doReturn(true).when(metricsListenerMock).isInterestedIn(any(ServerMetricsEvent.class));
+        StreamingAsyncHttpClient client = spy(new StreamingAsyncHttpClient(
+            200, 2000, true, 0, null, null, null, false, null, retryBudgetConfig(0, 0), null, metricsListenerMock,
+            mock(DistributedTracingConfig.class)
+        ));
+        int closedPort;
+        try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"))) {
+            closedPort = serverSocket.getLocalPort();
+        }
+        InetSocketAddress closedAddress = new InetSocketAddress("127.0.0.1", closedPort);
+        doReturn(CompletableFuture.completedFuture(closedAddress))
+            .when(client).resolveDownstreamAddress("some.downstream.host", 8080, null);
+        ChannelHandlerContext ctx = mockChannelHandlerContext();
+        ProxyRouterProcessingState proxyState = ChannelAttributes.getProxyRouterProcessingStateForChannel(ctx).get();
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/foo");
+
+        // when
+        CompletableFuture<StreamingChannel> result = client.streamDownstreamCall(
+            "some.downstream.host", 8080, request, false, false, mock(StreamingCallback.class), 2000, false,
+            false, proxyState, mock(RequestInfo.class), ctx, null, 0, 0, 1
+        );
+        Throwable ex = catchThrowable(() -> result.get(10, TimeUnit.SECONDS));
+
+        // then
+        assertThat(ex).hasCauseInstanceOf(WrapperException.class);
+        ArgumentCaptor<Object> metricsValueCaptor = ArgumentCaptor.forClass(Object.class);
+        verify(metricsListenerMock).onEvent(
+            eq(ServerMetricsEvent.PROXY_ROUTER_DOWNSTREAM_EXTRA_ATTEMPT), metricsValueCaptor.capture()
+        );
+        DownstreamExtraAttemptMetrics extraAttemptMetrics =
+            (DownstreamExtraAttemptMetrics) metricsValueCaptor.getValue();
+        assertThat(extraAttemptMetrics.attemptType).isEqualTo(AttemptType.CONNECT_RETRY);
+        assertThat(extraAttemptMetrics.outcome).isEqualTo(Outcome.BUDGET_EXHAUSTED);
+    }
+
+    private static ProxyRouterOutlierDetectionConfig outlierDetectionConfig(int consecutiveFailures) {
+        return new ProxyRouterOutlierDetectionConfig() {
+            @Override
+            public int consecutiveFailures() {
+                return consecutiveFailures;
+            }
+        };
+    }
+
+    private static StreamingAsyncHttpClient clientWithOutlierDetection(
+        ProxyRouterOutlierDetectionConfig outlierDetectionConfig, MetricsListener metricsListener
+    ) {
+        return new StreamingAsyncHttpClient(
+            200, 200, true, 0, null, null, null, false, null, null, outlierDetectionConfig, metricsListener,
+            mock(DistributedTracingConfig.class)
+        );
+    }
+
+    private DownstreamOutlierEjectionMetrics verifyOutlierDetectedEvent(MetricsListener metricsListenerMock) {
+        ArgumentCaptor<Object> metricsCaptor = ArgumentCaptor.forClass(Object.class);
+        verify(metricsListenerMock).onEvent(
+            eq(ServerMetricsEvent.PROXY_ROUTER_DOWNSTREAM_OUTLIER_DETECTED), metricsCaptor.capture()
+        );
+        return (DownstreamOutlierEjectionMetrics) metricsCaptor.getValue();
+    }
+
+    @Test
+    public void resolveDownstreamAddress_leaves_out_addresses_ejected_by_outlier_detection() {
+        // given
+        MetricsListener metricsListenerMock = mock(MetricsListener.class);
+        doReturn(true).when(metricsListenerMock).isInterestedIn(any(ServerMetricsEvent.class));
+        StreamingAsyncHttpClient client = spy(
+            clientWithOutlierDetection(outlierDetectionConfig(1), metricsListenerMock)
+        );
+        InetSocketAddress first = new InetSocketAddress("127.0.0.1", 8080);
+        InetSocketAddress second = new InetSocketAddress("127.0.0.2", 8080);
+        doReturn(CompletableFuture.completedFuture(Arrays.asList(first, second)))
+            .when(client).resolveAllDownstreamAddresses("some.downstream.host", 8080);
+        client.resolveDownstreamAddress("some.downstream.host", 8080, null).join();
+
+        // when
+        client.recordDownstreamConnectFailureForOutlierDetection(
+            "some.downstream.host", first, new RuntimeException("intentional test exception")
+        );
+
+        // then
+        DownstreamOutlierEjectionMetrics metrics = verifyOutlierDetectedEvent(metricsListenerMock);
+        assertThat(metrics.hostname).isEqualTo("some.downstream.host");
+        assertThat(metrics.downstreamAddress).isEqualTo(first);
+        assertThat(metrics.reason).isEqualTo(Reason.CONSECUTIVE_FAILURES);
+        assertThat(metrics.outcome).isEqualTo(DownstreamOutlierEjectionMetrics.Outcome.EJECTED);
+        for (int i = 0; i < 10; i++) {
+            assertThat(client.resolveDownstreamAddress("some.downstream.host", 8080, null).join())
+                .isEqualTo(second);
+            assertThat(client.resolveDownstreamAddressAvoiding(
+                "some.downstream.host", 8080, null, Collections.singletonList(second)
+            ).join()).isEqualTo(second);
+        }
+    }
+
+    @Test
+    public void recordDownstreamConnectFailureForOutlierDetection_ignores_exhausted_connection_pools() {
+        // given
+        MetricsListener metricsListenerMock = mock(MetricsListener.class);
+        doReturn(true).when(metricsListenerMock).isInterestedIn(any(ServerMetricsEvent.class));
+        StreamingAsyncHttpClient client = clientWithOutlierDetection(outlierDetectionConfig(1), metricsListenerMock);
+        InetSocketAddress address = new InetSocketAddress("127.0.0.1", 8080);
+
+        // when
+        client.recordDownstreamConnectFailureForOutlierDetection(
+            "some.downstream.host", address,
+            new DownstreamConnectionPoolExhaustedException("127.0.0.1:8080", true, 10, 10, 1000)
+        );
+
+        // then
+        verifyNoInteractions(metricsListenerMock);
+        DownstreamOutlierDetector detector = (DownstreamOutlierDetector) Whitebox.getInternalState(
+            client, "outlierDetector"
+        );
+        assertThat(detector.statesByAddress).doesNotContainKey(address);
+    }
+
+    @Test
+    public void recordDownstreamResponseForOutlierDetection_counts_5xx_responses_from_the_channels_address() {
+        // given
+        MetricsListener metricsListenerMock = mock(MetricsListener.class);
+        doReturn(true).when(metricsListenerMock).isInterestedIn(any(ServerMetricsEvent.class));
+        StreamingAsyncHttpClient client = clientWithOutlierDetection(outlierDetectionConfig(2), metricsListenerMock);
+        InetSocketAddress first = new InetSocketAddress("127.0.0.1", 8080);
+        InetSocketAddress second = new InetSocketAddress("127.0.0.2", 8080);
+        client.filterEjectedDownstreamAddresses("some.downstream.host", Arrays.asList(first, second));
+        doReturn(first).when(channelMock).remoteAddress();
+
+        // when
+        client.recordDownstreamResponseForOutlierDetection("some.downstream.host", channelMock, 500);
+        client.recordDownstreamResponseForOutlierDetection("some.downstream.host", channelMock, 200);
+        client.recordDownstreamResponseForOutlierDetection("some.downstream.host", channelMock, 502);
+
+        // then
+        verifyNoInteractions(metricsListenerMock);
+
+        // and when
+        client.recordDownstreamResponseForOutlierDetection("some.downstream.host", channelMock, 503);
+
+        // then
+        DownstreamOutlierEjectionMetrics metrics = verifyOutlierDetectedEvent(metricsListenerMock);
+        assertThat(metrics.downstreamAddress).isEqualTo(first);
+        assertThat(metrics.outcome).isEqualTo(DownstreamOutlierEjectionMetrics.Outcome.EJECTED);
+        assertThat(client.filterEjectedDownstreamAddresses("some.downstream.host", Arrays.asList(first, second)))
+            .containsExactly(second);
+    }
+
+    @Test
+    public void outlier_detection_does_nothing_when_config_is_null() {
+        // given
+        MetricsListener metricsListenerMock = mock(MetricsListener.class);
+        doReturn(true).when(metricsListenerMock).isInterestedIn(any(ServerMetricsEvent.class));
+        StreamingAsyncHttpClient client = clientWithOutlierDetection(null, metricsListenerMock);
+        InetSocketAddress address = new InetSocketAddress("127.0.0.1", 8080);
+        List<InetSocketAddress> addresses = Collections.singletonList(address);
+        EmbeddedChannel channel = new EmbeddedChannel();
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            client.recordDownstreamConnectFailureForOutlierDetection(
+                "some.downstream.host", address, new RuntimeException("intentional test exception")
+            );
+        }
+
+        // then
+        verifyNoInteractions(metricsListenerMock);
+        assertThat(client.filterEjectedDownstreamAddresses("some.downstream.host", addresses)).isSameAs(addresses);
+        assertThat(client.closeChannelIfDownstreamAddressEjected(channel, address, "somePool")).isFalse();
+        assertThat(channel.isOpen()).isTrue();
+    }
+
+    private enum CloseEjectedChannelScenario {
+        NOT_EJECTED(false, false, 0L, false, false),
+        EJECTED_NOW(true, false, 0L, false, true),
+        EJECTED_SINCE_ACQUIRED_BUT_BACK_IN_ROTATION(true, true, 0L, false, true),
+        ACQUIRED_AFTER_EJECTION_ENDED(true, true, 1L, false, false),
+        NEVER_STAMPED_AND_BACK_IN_ROTATION(true, true, null, false, false),
+        ALREADY_BROKEN(true, false, 0L, true, false);
+
+        public final boolean eject;
+        public final boolean ejectionOver;
+        public final Long ejectionCountWhenAcquired;
+        public final boolean alreadyBroken;
+        public final boolean expectClosed;
+
+        CloseEjectedChannelScenario(boolean eject, boolean ejectionOver, Long ejectionCountWhenAcquired,
+                                    boolean alreadyBroken, boolean expectClosed) {
+            this.eject = eject;
+            this.ejectionOver = ejectionOver;
+            this.ejectionCountWhenAcquired = ejectionCountWhenAcquired;
+            this.alreadyBroken = alreadyBroken;
+            this.expectClosed = expectClosed;
+        }
+    }
+
+    @DataProvider(value = {
+        "NOT_EJECTED",
+        "EJECTED_NOW",
+        "EJECTED_SINCE_ACQUIRED_BUT_BACK_IN_ROTATION",
+        "ACQUIRED_AFTER_EJECTION_ENDED",
+        "NEVER_STAMPED_AND_BACK_IN_ROTATION",
+        "ALREADY_BROKEN"
+    })
+    @Test
+    public void closeChannelIfDownstreamAddressEjected_works_as_expected(CloseEjectedChannelScenario scenario) {
+        // given
+        StreamingAsyncHttpClient client = clientWithOutlierDetection(outlierDetectionConfig(1), null);
+        AtomicLong nanoTime = new AtomicLong(0);
+        DownstreamOutlierDetector detector = new DownstreamOutlierDetector(outlierDetectionConfig(1), nanoTime::get);
+        Whitebox.setInternalState(client, "outlierDetector", detector);
+
+        InetSocketAddress address = new InetSocketAddress("127.0.0.1", 8080);
+        detector.filterEjected(
+            "some.downstream.host", Arrays.asList(address, new InetSocketAddress("127.0.0.2", 8080))
+        );
+        if (scenario.eject) {
+            detector.recordConnectFailure("some.downstream.host", address);
+        }
+        if (scenario.ejectionOver) {
+            nanoTime.addAndGet(TimeUnit.HOURS.toNanos(1));
+        }
+
+        EmbeddedChannel channel = new EmbeddedChannel();
+        channel.attr(OUTLIER_EJECTION_COUNT_WHEN_ACQUIRED_ATTR).set(scenario.ejectionCountWhenAcquired);
+        if (scenario.alreadyBroken) {
+            channel.attr(CHANNEL_IS_BROKEN_ATTR).set(true);
+        }
+
+        // when
+        boolean result = client.closeChannelIfDownstreamAddressEjected(channel, address, "somePool");
+
+        // then
+        assertThat(result).isEqualTo(scenario.expectClosed);
+        assertThat(channel.isOpen()).isEqualTo(!scenario.expectClosed);
+        if (scenario.expectClosed) {
+            assertThat(channel.attr(CHANNEL_IS_BROKEN_ATTR).get()).isTrue();
+        }
+    }
+
     private void verifyChannelReleasedBackToPool(ObjectHolder<Boolean> callActiveHolder,
                                                  ChannelPool theChannelPoolMock,
                                                  Channel theChannelMock) {
@@ -1,11 +1,16 @@
 package com.nike.riposte.server;
 
+import com.nike.riposte.client.asynchttp.netty.ProxyRouterConnectionPrewarmer;
+import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient;
+import com.nike.riposte.server.channelpipeline.HttpChannelInitializer;
 import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionPrewarmConfig;
 import com.nike.riposte.server.config.distributedtracing.DefaultRiposteDistributedTracingConfigImpl;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfigImpl;
 import com.nike.riposte.server.config.distributedtracing.ProxyRouterSpanNamingAndTaggingStrategy;
 import com.nike.riposte.server.config.distributedtracing.ServerSpanNamingAndTaggingStrategy;
+import com.nike.riposte.server.handler.OpenChannelLimitHandler;
 import com.nike.riposte.server.hooks.ServerShutdownHook;
 import com.nike.wingtips.Span;
 
@@ -16,12 +21,18 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import com.nike.riposte.testutils.Whitebox;
 
+import java.util.Arrays;
+
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
 
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -92,6 +103,82 @@ public class ServerTest {
         verify(serverConfigMock).distributedTracingConfig();
     }
 
+    @DataProvider(value = {
+        "20000  |   -1      |   true",
+        "-1     |   10      |   true",
+        "20000  |   10      |   true",
+        "-1     |   -1      |   false",
+    }, splitBy = "\\|")
+    @Test
+    public void createOpenChannelLimitHandler_works_as_expected(
+        int maxOpenChannels, int maxOpenChannelsPerIpAddress, boolean expectHandler
+    ) {
+        // given
+        ServerConfig serverConfigMock = mock(ServerConfig.class);
+        doReturn(maxOpenChannels).when(serverConfigMock).maxOpenIncomingServerChannels();
+        doReturn(maxOpenChannelsPerIpAddress).when(serverConfigMock).maxOpenIncomingServerChannelsPerIpAddress();
+
+        Server server = new Server(serverConfigMock);
+
+        // when
+        OpenChannelLimitHandler result = server.createOpenChannelLimitHandler(serverConfigMock);
+
+        // then
+        if (expectHandler) {
+            assertThat(result).isNotNull();
+            assertThat(Whitebox.getInternalState(result, "maxOpenChannelsThreshold")).isEqualTo(maxOpenChannels);
+            assertThat(Whitebox.getInternalState(result, "maxOpenChannelsPerIpAddressThreshold"))
+                .isEqualTo(maxOpenChannelsPerIpAddress);
+        }
+        else {
+            assertThat(result).isNull();
+        }
+    }
+
+    @DataProvider(value = {
+        "true   |   true    |   true",
+        "false  |   true    |   false",
+        "true   |   false   |   false",
+    }, splitBy = "\\|")
+    @Test
+    public void createProxyRouterConnectionPrewarmer_works_as_expected(
+        boolean prewarmConfigExists, boolean isHttpChannelInitializer, boolean expectPrewarmer
+    ) {
+        // given
+        ProxyRouterConnectionPrewarmConfig prewarmConfig = (prewarmConfigExists)
+                                                           ? ProxyRouterConnectionPrewarmConfig.DEFAULT_IMPL
+                                                           : null;
+        ServerConfig serverConfigMock = mock(ServerConfig.class);
+        doReturn(prewarmConfig).when(serverConfigMock).proxyRouterConnectionPrewarmConfig();
+
+        StreamingAsyncHttpClient proxyRouterClientMock = mock(StreamingAsyncHttpClient.class);
+        HttpChannelInitializer httpChannelInitializerMock = mock(HttpChannelInitializer.class);
+        doReturn(proxyRouterClientMock)
+            .when(httpChannelInitializerMock).getStreamingAsyncHttpClientForProxyRouterEndpoints();
+        @SuppressWarnings("unchecked")
+        ChannelInitializer<SocketChannel> channelInitializer = (isHttpChannelInitializer)
+                                                              ? httpChannelInitializerMock
+                                                              : mock(ChannelInitializer.class);
+        EventLoopGroup workerGroupMock = mock(EventLoopGroup.class);
+
+        Server server = new Server(serverConfigMock);
+
+        // when
+        ProxyRouterConnectionPrewarmer result =
+            server.createProxyRouterConnectionPrewarmer(serverConfigMock, channelInitializer, workerGroupMock);
+
+        // then
+        if (expectPrewarmer) {
+            assertThat(result).isNotNull();
+            assertThat(Whitebox.getInternalState(result, "streamingAsyncHttpClient")).isSameAs(proxyRouterClientMock);
+            assertThat(Whitebox.getInternalState(result, "config")).isSameAs(prewarmConfig);
+            assertThat(Whitebox.getInternalState(result, "workerEventLoopGroup")).isSameAs(workerGroupMock);
+        }
+        else {
+            assertThat(result).isNull();
+        }
+    }
+
     @Test
     public void shutdown_executes_ServerShutdownHooks() throws InterruptedException {
         // given
@@ -114,6 +201,55 @@ public class ServerTest {
         verify(serverShutdownHookMock, times(1)).executeServerShutdownHook(serverConfigMock, channelMock);
     }
 
+    @Test
+    public void shutdown_stops_the_ProxyRouterConnectionPrewarmer_if_there_is_one() throws InterruptedException {
+        // given
+        ProxyRouterConnectionPrewarmer prewarmerMock = mock(ProxyRouterConnectionPrewarmer.class);
+
+        ServerConfig serverConfigMock = mock(ServerConfig.class);
+
+        Channel channelMock = mock(Channel.class);
+        doReturn(mock(ChannelFuture.class)).when(channelMock).close();
+
+        Server server = new Server(serverConfigMock);
+
+        Whitebox.setInternalState(server, "channels", singletonList(channelMock));
+        Whitebox.setInternalState(server, "proxyRouterConnectionPrewarmer", prewarmerMock);
+
+        // when
+        server.shutdown();
+
+        // then
+        verify(prewarmerMock).executeServerShutdownHook(serverConfigMock, channelMock);
+    }
+
+    @Test
+    public void shutdown_stops_the_ProxyRouterConnectionPrewarmer_only_once_when_there_are_multiple_channels()
+        throws InterruptedException {
+        // given
+        ProxyRouterConnectionPrewarmer prewarmerMock = mock(ProxyRouterConnectionPrewarmer.class);
+
+        ServerConfig serverConfigMock = mock(ServerConfig.class);
+
+        Channel firstChannelMock = mock(Channel.class);
+        doReturn(mock(ChannelFuture.class)).when(firstChannelMock).close();
+        Channel secondChannelMock = mock(Channel.class);
+        doReturn(mock(ChannelFuture.class)).when(secondChannelMock).close();
+
+        Server server = new Server(serverConfigMock);
+
+        Whitebox.setInternalState(server, "channels", Arrays.asList(firstChannelMock, secondChannelMock));
+        Whitebox.setInternalState(server, "proxyRouterConnectionPrewarmer", prewarmerMock);
+
+        // when
+        server.shutdown();
+
+        // then
+        verify(prewarmerMock, times(1)).executeServerShutdownHook(any(ServerConfig.class), any(Channel.class));
+        verify(firstChannelMock).close();
+        verify(secondChannelMock).close();
+    }
+
     @Test
     public void shutdown_does_nothing_if_it_has_already_been_called() throws InterruptedException {
         // given
@@ -1,9 +1,20 @@
 package com.nike.riposte.server.channelpipeline;
 
 import com.nike.internal.util.Pair;
+import com.nike.riposte.client.asynchttp.netty.ProxyRouterClientConfig;
+import com.nike.riposte.client.asynchttp.netty.RoundRobinDownstreamAddressSelector;
 import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient;
 import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.config.ServerConfig.ConcurrencyLimitConfig;
 import com.nike.riposte.server.config.ServerConfig.HttpRequestDecoderConfig;
+import com.nike.riposte.server.config.ServerConfig.LoadSheddingConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionPoolConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionMaxAgeConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterDnsResolverConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterOutlierDetectionConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterRetryBudgetConfig;
+import com.nike.riposte.server.config.ServerConfig.RequestDeadlineConfig;
+import com.nike.riposte.server.config.ServerConfig.ResponseCompressionConfig;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
 import com.nike.riposte.server.config.distributedtracing.ProxyRouterSpanNamingAndTaggingStrategy;
 import com.nike.riposte.server.config.distributedtracing.ServerSpanNamingAndTaggingStrategy;
@@ -14,15 +25,17 @@ import com.nike.riposte.server.error.validation.RequestValidator;
 import com.nike.riposte.server.handler.AccessLogEndHandler;
 import com.nike.riposte.server.handler.AccessLogStartHandler;
 import com.nike.riposte.server.handler.ChannelPipelineFinalizerHandler;
+import com.nike.riposte.server.handler.ConcurrencyLimitHandler;
 import com.nike.riposte.server.handler.DTraceEndHandler;
 import com.nike.riposte.server.handler.DTraceStartHandler;
 import com.nike.riposte.server.handler.ExceptionHandlingHandler;
+import com.nike.riposte.server.handler.LoadSheddingHandler;
 import com.nike.riposte.server.handler.NonblockingEndpointExecutionHandler;
-import com.nike.riposte.server.handler.OpenChannelLimitHandler;
 import com.nike.riposte.server.handler.ProcessFinalResponseOutputHandler;
 import com.nike.riposte.server.handler.ProxyRouterEndpointExecutionHandler;
 import com.nike.riposte.server.handler.RequestContentDeserializerHandler;
 import com.nike.riposte.server.handler.RequestContentValidationHandler;
+import com.nike.riposte.server.handler.RequestDeadlineHandler;
 import com.nike.riposte.server.handler.RequestFilterHandler;
 import com.nike.riposte.server.handler.RequestHasBeenHandledVerificationHandler;
 import com.nike.riposte.server.handler.RequestInfoSetterHandler;
@@ -30,15 +43,24 @@ import com.nike.riposte.server.handler.RequestStateCleanerHandler;
 import com.nike.riposte.server.handler.ResponseFilterHandler;
 import com.nike.riposte.server.handler.ResponseSenderHandler;
 import com.nike.riposte.server.handler.RoutingHandler;
+import com.nike.riposte.server.handler.coalescing.RequestCoalescer;
+import com.nike.riposte.server.handler.concurrencylimit.EndpointConcurrencyLimiters;
+import com.nike.riposte.server.handler.loadshedding.PriorityLoadShedder;
 import com.nike.riposte.server.handler.SecurityValidationHandler;
 import com.nike.riposte.server.handler.SmartHttpContentCompressor;
 import com.nike.riposte.server.handler.SmartHttpContentDecompressor;
+import com.nike.riposte.server.handler.StreamingEndpointExecutionHandler;
+import com.nike.riposte.server.handler.WebSocketUpgradeHandler;
 import com.nike.riposte.server.hooks.PipelineCreateHook;
+import com.nike.riposte.server.http.DownstreamAddressSelector;
 import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.NonblockingEndpoint;
+import com.nike.riposte.server.http.RequestCoalescingConfig;
 import com.nike.riposte.server.http.ResponseSender;
 import com.nike.riposte.server.http.filter.RequestAndResponseFilter;
 import com.nike.riposte.server.logging.AccessLogger;
 import com.nike.riposte.testutils.Whitebox;
+import com.nike.riposte.util.InstrumentedThreadPoolExecutor;
 import com.nike.riposte.util.Matcher;
 import com.nike.wingtips.Span;
 
@@ -61,6 +83,7 @@ import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
 
 import javax.net.ssl.SSLException;
 
@@ -68,11 +91,11 @@ import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelInboundHandler;
 import io.netty.channel.ChannelPipeline;
-import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequestDecoder;
 import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
@@ -156,11 +179,34 @@ public class HttpChannelInitializerTest {
         long workerChannelIdleTimeoutMillis = 121000;
         long proxyRouterConnectTimeoutMillis = 4200;
         long incompleteHttpCallTimeoutMillis = 1234;
-        int maxOpenChannelsThreshold = 1000;
         boolean debugChannelLifecycleLoggingEnabled = true;
         List<String> userIdHeaderKeys = mock(List.class);
         int responseCompressionThresholdBytes = 5678;
+        ResponseCompressionConfig responseCompressionConfig = new ResponseCompressionConfig() {};
+        int flushConsolidationMaxPendingFlushes = 42;
+        int proxyRouterFlushConsolidationMaxPendingFlushes = 24;
         HttpRequestDecoderConfig httpRequestDecoderConfig = new HttpRequestDecoderConfig() {};
+        Executor requestContentValidationExecutor = mock(Executor.class);
+        Executor securityValidationExecutor = mock(Executor.class);
+        ConcurrencyLimitConfig concurrencyLimitConfig = new ConcurrencyLimitConfig() {};
+        LoadSheddingConfig loadSheddingConfig = new LoadSheddingConfig() {};
+        RequestDeadlineConfig requestDeadlineConfig = new RequestDeadlineConfig() {};
+        ProxyRouterConnectionPoolConfig proxyRouterConnectionPoolConfig = new ProxyRouterConnectionPoolConfig() {};
+        ProxyRouterDnsResolverConfig proxyRouterDnsResolverConfig = new ProxyRouterDnsResolverConfig() {};
+        DownstreamAddressSelector proxyRouterDownstreamAddressSelector = new RoundRobinDownstreamAddressSelector();
+        ProxyRouterConnectionMaxAgeConfig proxyRouterConnectionMaxAgeConfig = new ProxyRouterConnectionMaxAgeConfig() {};
+        ProxyRouterRetryBudgetConfig proxyRouterRetryBudgetConfig = new ProxyRouterRetryBudgetConfig() {};
+        ProxyRouterOutlierDetectionConfig proxyRouterOutlierDetectionConfig = new ProxyRouterOutlierDetectionConfig() {};
+        ProxyRouterClientConfig proxyRouterClientConfig = ProxyRouterClientConfig
+            .newBuilder()
+            .withConnectionPoolConfig(proxyRouterConnectionPoolConfig)
+            .withDnsResolverConfig(proxyRouterDnsResolverConfig)
+            .withDownstreamAddressSelector(proxyRouterDownstreamAddressSelector)
+            .withWorkerEventLoopSharingEnabled(true)
+            .withConnectionMaxAgeConfig(proxyRouterConnectionMaxAgeConfig)
+            .withRetryBudgetConfig(proxyRouterRetryBudgetConfig)
+            .withOutlierDetectionConfig(proxyRouterOutlierDetectionConfig)
+            .build();
         DistributedTracingConfig<Span> distributedTracingConfig = mock(DistributedTracingConfig.class);
         ProxyRouterSpanNamingAndTaggingStrategy<Span> proxySpanTaggingStrategyMock =
             mock(ProxyRouterSpanNamingAndTaggingStrategy.class);
@@ -172,8 +218,11 @@ public class HttpChannelInitializerTest {
             sslCtx, maxRequestSizeInBytes, endpoints, reqResFilters, longRunningTaskExecutor, riposteErrorHandler, riposteUnhandledErrorHandler,
             validationService, requestContentDeserializer, responseSender, metricsListener, defaultCompletableFutureTimeoutMillis, accessLogger,
             pipelineCreateHooks, requestSecurityValidator, workerChannelIdleTimeoutMillis, proxyRouterConnectTimeoutMillis,
-            incompleteHttpCallTimeoutMillis, maxOpenChannelsThreshold, debugChannelLifecycleLoggingEnabled, userIdHeaderKeys,
-            responseCompressionThresholdBytes, httpRequestDecoderConfig, distributedTracingConfig);
+            incompleteHttpCallTimeoutMillis, debugChannelLifecycleLoggingEnabled, userIdHeaderKeys,
+            responseCompressionThresholdBytes, responseCompressionConfig, flushConsolidationMaxPendingFlushes,
+            proxyRouterFlushConsolidationMaxPendingFlushes, httpRequestDecoderConfig, requestContentValidationExecutor,
+            securityValidationExecutor, concurrencyLimitConfig, loadSheddingConfig, requestDeadlineConfig,
+            proxyRouterClientConfig, distributedTracingConfig);
 
         // then
         assertThat(extractField(hci, "sslCtx"), is(sslCtx));
@@ -192,18 +241,40 @@ public class HttpChannelInitializerTest {
         assertThat(extractField(hci, "requestSecurityValidator"), is(requestSecurityValidator));
         assertThat(extractField(hci, "workerChannelIdleTimeoutMillis"), is(workerChannelIdleTimeoutMillis));
         assertThat(extractField(hci, "incompleteHttpCallTimeoutMillis"), is(incompleteHttpCallTimeoutMillis));
-        assertThat(extractField(hci, "maxOpenChannelsThreshold"), is(maxOpenChannelsThreshold));
         assertThat(extractField(hci, "debugChannelLifecycleLoggingEnabled"), is(debugChannelLifecycleLoggingEnabled));
         assertThat(extractField(hci, "userIdHeaderKeys"), is(userIdHeaderKeys));
         assertThat(extractField(hci, "responseCompressionThresholdBytes"), is(responseCompressionThresholdBytes));
+        assertThat(extractField(hci, "responseCompressionConfig"), is(responseCompressionConfig));
+        assertThat(extractField(hci, "flushConsolidationMaxPendingFlushes"), is(flushConsolidationMaxPendingFlushes));
         assertThat(extractField(hci, "httpRequestDecoderConfig"), is(httpRequestDecoderConfig));
+        assertThat(extractField(hci, "requestContentValidationExecutor"), is(requestContentValidationExecutor));
+        assertThat(extractField(hci, "securityValidationExecutor"), is(securityValidationExecutor));
+        EndpointConcurrencyLimiters endpointConcurrencyLimiters = extractField(hci, "endpointConcurrencyLimiters");
+        assertThat(endpointConcurrencyLimiters, notNullValue());
+        assertThat(Whitebox.getInternalState(endpointConcurrencyLimiters, "defaultConfig"), is(concurrencyLimitConfig));
+        assertThat(Whitebox.getInternalState(endpointConcurrencyLimiters, "metricsListener"), is(metricsListener));
+        PriorityLoadShedder priorityLoadShedder = extractField(hci, "priorityLoadShedder");
+        assertThat(priorityLoadShedder, notNullValue());
+        assertThat(priorityLoadShedder.getConfig(), is(loadSheddingConfig));
+        assertThat(Whitebox.getInternalState(priorityLoadShedder, "metricsListener"), is(metricsListener));
+        assertThat(extractField(hci, "requestDeadlineConfig"), is(requestDeadlineConfig));
         assertThat(extractField(hci, "distributedTracingConfig"), is(distributedTracingConfig));
 
         StreamingAsyncHttpClient sahc = extractField(hci, "streamingAsyncHttpClientForProxyRouterEndpoints");
         assertThat(extractField(sahc, "idleChannelTimeoutMillis"), is(workerChannelIdleTimeoutMillis));
         assertThat(extractField(sahc, "downstreamConnectionTimeoutMillis"), is((int)proxyRouterConnectTimeoutMillis));
         assertThat(extractField(sahc, "debugChannelLifecycleLoggingEnabled"), is(debugChannelLifecycleLoggingEnabled));
+        assertThat(extractField(sahc, "flushConsolidationMaxPendingFlushes"), is(proxyRouterFlushConsolidationMaxPendingFlushes));
         assertThat(extractField(sahc, "proxySpanTaggingStrategy"), is(proxySpanTaggingStrategyMock));
+        assertThat(extractField(sahc, "connectionPoolConfig"), is(proxyRouterConnectionPoolConfig));
+        assertThat(extractField(sahc, "dnsResolverConfig"), is(proxyRouterDnsResolverConfig));
+        assertThat(extractField(sahc, "downstreamAddressSelector"), is(proxyRouterDownstreamAddressSelector));
+        assertThat(extractField(sahc, "workerEventLoopSharingEnabled"), is(true));
+        assertThat(extractField(sahc, "connectionMaxAgeConfig"), is(proxyRouterConnectionMaxAgeConfig));
+        assertThat(extractField(sahc, "hedgeBudget"), notNullValue());
+        assertThat(extractField(sahc, "connectRetryBudget"), notNullValue());
+        assertThat(extractField(sahc, "outlierDetector"), notNullValue());
+        assertThat(extractField(sahc, "metricsListener"), is(metricsListener));
 
         RequestFilterHandler beforeSecReqFH = extractField(hci, "beforeSecurityRequestFilterHandler");
         assertThat(extractField(beforeSecReqFH, "filters"), is(Collections.singletonList(beforeSecurityRequestFilter)));
@@ -223,16 +294,27 @@ public class HttpChannelInitializerTest {
         HttpChannelInitializer hci = new HttpChannelInitializer(
             null, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, mock(RiposteErrorHandler.class), mock(RiposteUnhandledErrorHandler.class),
             null, null, mock(ResponseSender.class), null, 4242L, null,
-            null, null, 121, 42, 321, 100, false, null,
-            123, null, mock(DistributedTracingConfig.class));
+            null, null, 121, 42, 321, false, null,
+            123, null, 0, 0, null, null, null, null, null, null, null, mock(DistributedTracingConfig.class));
 
         // then
         assertThat(extractField(hci, "sslCtx"), nullValue());
         Executor longRunningTaskExecutor = extractField(hci, "longRunningTaskExecutor");
         assertThat(longRunningTaskExecutor, notNullValue());
-        assertThat(longRunningTaskExecutor, instanceOf(ThreadPoolExecutor.class));
-        assertThat(((ThreadPoolExecutor)longRunningTaskExecutor).getMaximumPoolSize(), is(Integer.MAX_VALUE));
+        assertThat(longRunningTaskExecutor, instanceOf(InstrumentedThreadPoolExecutor.class));
+        assertThat(((InstrumentedThreadPoolExecutor)longRunningTaskExecutor).getName(),
+                   is(InstrumentedThreadPoolExecutor.LONG_RUNNING_TASK_EXECUTOR_NAME));
+        assertThat(((ThreadPoolExecutor)longRunningTaskExecutor).getMaximumPoolSize(),
+                   is(InstrumentedThreadPoolExecutor.DEFAULT_LONG_RUNNING_TASK_MAX_THREADS));
+        assertThat(((InstrumentedThreadPoolExecutor)longRunningTaskExecutor).getMaxQueueSize(),
+                   is(InstrumentedThreadPoolExecutor.DEFAULT_LONG_RUNNING_TASK_MAX_QUEUE_SIZE));
         assertThat(((ThreadPoolExecutor)longRunningTaskExecutor).getKeepAliveTime(TimeUnit.SECONDS), is(60L));
+        InstrumentedThreadPoolExecutor contentValidationExecutor = extractField(hci, "requestContentValidationExecutor");
+        assertThat(contentValidationExecutor.getName(),
+                   is(InstrumentedThreadPoolExecutor.REQUEST_CONTENT_VALIDATION_EXECUTOR_NAME));
+        InstrumentedThreadPoolExecutor securityValidationExecutor = extractField(hci, "securityValidationExecutor");
+        assertThat(securityValidationExecutor.getName(),
+                   is(InstrumentedThreadPoolExecutor.SECURITY_VALIDATION_EXECUTOR_NAME));
         assertThat(extractField(hci, "validationService"), nullValue());
         assertThat(extractField(hci, "requestContentDeserializer"), nullValue());
         assertThat(extractField(hci, "metricsListener"), nullValue());
@@ -241,7 +323,14 @@ public class HttpChannelInitializerTest {
         assertThat(extractField(hci, "afterSecurityRequestFilterHandler"), nullValue());
         assertThat(extractField(hci, "cachedResponseFilterHandler"), nullValue());
         assertThat(extractField(hci, "userIdHeaderKeys"), nullValue());
+        assertThat(extractField(hci, "responseCompressionConfig"), is(ResponseCompressionConfig.DEFAULT_IMPL));
+        assertThat(extractField(hci, "adaptiveCompressionController"), nullValue());
         assertThat(extractField(hci, "httpRequestDecoderConfig"), is(HttpRequestDecoderConfig.DEFAULT_IMPL));
+        StreamingAsyncHttpClient sahc = extractField(hci, "streamingAsyncHttpClientForProxyRouterEndpoints");
+        assertThat(extractField(sahc, "connectionPoolConfig"), nullValue());
+        assertThat(extractField(sahc, "workerEventLoopSharingEnabled"), is(false));
+        assertThat(extractField(sahc, "hedgeBudget"), nullValue());
+        assertThat(extractField(sahc, "outlierDetector"), nullValue());
     }
 
     @Test
@@ -255,8 +344,8 @@ public class HttpChannelInitializerTest {
         HttpChannelInitializer hci = new HttpChannelInitializer(
                 null, 42, Arrays.asList(getMockEndpoint("/some/path")), reqResFilters, null, mock(RiposteErrorHandler.class), mock(RiposteUnhandledErrorHandler.class),
                 null, null, mock(ResponseSender.class), null, 4242L, null,
-                null, null, 121, 42, 321, 100, false, null,
-                123, null, mock(DistributedTracingConfig.class));
+                null, null, 121, 42, 321, false, null,
+                123, null, 0, 0, null, null, null, null, null, null, null, mock(DistributedTracingConfig.class));
 
         // then
         RequestFilterHandler beforeSecReqFH = extractField(hci, "beforeSecurityRequestFilterHandler");
@@ -279,8 +368,8 @@ public class HttpChannelInitializerTest {
         HttpChannelInitializer hci = new HttpChannelInitializer(
                 null, 42, Arrays.asList(getMockEndpoint("/some/path")), reqResFilters, null, mock(RiposteErrorHandler.class), mock(RiposteUnhandledErrorHandler.class),
                 null, null, mock(ResponseSender.class), null, 4242L, null,
-                null, null, 121, 42, 321, 100, false, null,
-                123, null, mock(DistributedTracingConfig.class));
+                null, null, 121, 42, 321, false, null,
+                123, null, 0, 0, null, null, null, null, null, null, null, mock(DistributedTracingConfig.class));
 
         // then
         RequestFilterHandler beforeSecReqFH = extractField(hci, "afterSecurityRequestFilterHandler");
@@ -298,8 +387,8 @@ public class HttpChannelInitializerTest {
         new HttpChannelInitializer(
             null, 42, null, null, null, mock(RiposteErrorHandler.class), mock(RiposteUnhandledErrorHandler.class),
             null, null, mock(ResponseSender.class), null, 4242L, null,
-            null, null, 121, 42, 321, 100, false, null,
-            123, null, mock(DistributedTracingConfig.class));
+            null, null, 121, 42, 321, false, null,
+            123, null, 0, 0, null, null, null, null, null, null, null, mock(DistributedTracingConfig.class));
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -308,8 +397,8 @@ public class HttpChannelInitializerTest {
         new HttpChannelInitializer(
             null, 42, Collections.emptyList(), null, null, mock(RiposteErrorHandler.class), mock(RiposteUnhandledErrorHandler.class),
             null, null, mock(ResponseSender.class), null, 4242L, null,
-            null, null, 121, 42, 321, 100, false, null,
-            123, null, mock(DistributedTracingConfig.class));
+            null, null, 121, 42, 321, false, null,
+            123, null, 0, 0, null, null, null, null, null, null, null, mock(DistributedTracingConfig.class));
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -318,8 +407,8 @@ public class HttpChannelInitializerTest {
         new HttpChannelInitializer(
             null, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, null, mock(RiposteUnhandledErrorHandler.class),
             null, null, mock(ResponseSender.class), null, 4242L, null,
-            null, null, 121, 42, 321, 100, false, null,
-            123, null, mock(DistributedTracingConfig.class));
+            null, null, 121, 42, 321, false, null,
+            123, null, 0, 0, null, null, null, null, null, null, null, mock(DistributedTracingConfig.class));
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -328,8 +417,8 @@ public class HttpChannelInitializerTest {
         new HttpChannelInitializer(
             null, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, mock(RiposteErrorHandler.class), null,
             null, null, mock(ResponseSender.class), null, 4242L, null,
-            null, null, 121, 42, 321, 100, false, null,
-            123, null, mock(DistributedTracingConfig.class));
+            null, null, 121, 42, 321, false, null,
+            123, null, 0, 0, null, null, null, null, null, null, null, mock(DistributedTracingConfig.class));
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -338,8 +427,8 @@ public class HttpChannelInitializerTest {
         new HttpChannelInitializer(
             null, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, mock(RiposteErrorHandler.class), mock(RiposteUnhandledErrorHandler.class),
             null, null, null, null, 4242L, null,
-            null, null, 121, 42, 321, 100, false, null,
-            123, null, mock(DistributedTracingConfig.class));
+            null, null, 121, 42, 321, false, null,
+            123, null, 0, 0, null, null, null, null, null, null, null, mock(DistributedTracingConfig.class));
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -348,8 +437,8 @@ public class HttpChannelInitializerTest {
         new HttpChannelInitializer(
             null, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, mock(RiposteErrorHandler.class), mock(RiposteUnhandledErrorHandler.class),
             null, null, mock(ResponseSender.class), null, 4242L, null,
-            null, null, 121, 42, 321, 100, false, null,
-            123, null, null);
+            null, null, 121, 42, 321, false, null,
+            123, null, 0, 0, null, null, null, null, null, null, null, null);
     }
 
     private <T extends ChannelHandler> Pair<Integer, T> findChannelHandler(List<ChannelHandler> channelHandlers, Class<T> classToFind, boolean findLast) {
@@ -373,17 +462,17 @@ public class HttpChannelInitializerTest {
     }
 
     private HttpChannelInitializer basicHttpChannelInitializerNoUtilityHandlers() {
-        return basicHttpChannelInitializer(null, 0, -1, false, null, null);
+        return basicHttpChannelInitializer(null, 0, false, null, null);
     }
 
-    private HttpChannelInitializer basicHttpChannelInitializer(SslContext sslCtx, long workerChannelIdleTimeoutMillis, int maxOpenChannelsThreshold,
+    private HttpChannelInitializer basicHttpChannelInitializer(SslContext sslCtx, long workerChannelIdleTimeoutMillis,
                                                                boolean debugChannelLifecycleLoggingEnabled, RequestValidator validationService,
                                                                List<RequestAndResponseFilter> requestAndResponseFilters) {
         return new HttpChannelInitializer(
             sslCtx, 42, Arrays.asList(getMockEndpoint("/some/path")), requestAndResponseFilters, null, mock(RiposteErrorHandler.class),
             mock(RiposteUnhandledErrorHandler.class), validationService, null, mock(ResponseSender.class), null, 4242L, null,
-            null, null, workerChannelIdleTimeoutMillis, 4200, 1234, maxOpenChannelsThreshold, debugChannelLifecycleLoggingEnabled,
-            null, 123, null, mock(DistributedTracingConfig.class));
+            null, null, workerChannelIdleTimeoutMillis, 4200, 1234, debugChannelLifecycleLoggingEnabled,
+            null, 123, null, 0, 0, null, null, null, null, null, null, null, mock(DistributedTracingConfig.class));
     }
 
     @Test
@@ -398,7 +487,7 @@ public class HttpChannelInitializerTest {
 
         // given
         HttpChannelInitializer
-            hci = basicHttpChannelInitializer(SslContextBuilder.forClient().build(), 42, 100, true, mock(RequestValidator.class), reqResFilters);
+            hci = basicHttpChannelInitializer(SslContextBuilder.forClient().build(), 42, true, mock(RequestValidator.class), reqResFilters);
 
         // when
         hci.initChannel(socketChannelMock);
@@ -415,13 +504,14 @@ public class HttpChannelInitializerTest {
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.ROUTING_HANDLER_NAME), any(RoutingHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.SMART_HTTP_CONTENT_DECOMPRESSOR_HANDLER_NAME), any(SmartHttpContentDecompressor.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.REQUEST_INFO_SETTER_HANDLER_NAME), any(RequestInfoSetterHandler.class));
-        verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.OPEN_CHANNEL_LIMIT_HANDLER_NAME), any(OpenChannelLimitHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.REQUEST_FILTER_BEFORE_SECURITY_HANDLER_NAME), any(RequestFilterHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.SECURITY_VALIDATION_HANDLER_NAME), any(SecurityValidationHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.REQUEST_FILTER_AFTER_SECURITY_HANDLER_NAME), any(RequestFilterHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.REQUEST_CONTENT_DESERIALIZER_HANDLER_NAME), any(RequestContentDeserializerHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.REQUEST_CONTENT_VALIDATION_HANDLER_NAME), any(RequestContentValidationHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.NONBLOCKING_ENDPOINT_EXECUTION_HANDLER_NAME), any(NonblockingEndpointExecutionHandler.class));
+        verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.STREAMING_ENDPOINT_EXECUTION_HANDLER_NAME), any(StreamingEndpointExecutionHandler.class));
+        verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.WEBSOCKET_UPGRADE_HANDLER_NAME), any(WebSocketUpgradeHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.PROXY_ROUTER_ENDPOINT_EXECUTION_HANDLER_NAME), any(ProxyRouterEndpointExecutionHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.REQUEST_HAS_BEEN_HANDLED_VERIFICATION_HANDLER_NAME), any(RequestHasBeenHandledVerificationHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.EXCEPTION_HANDLING_HANDLER_NAME), any(ExceptionHandlingHandler.class));
@@ -443,7 +533,7 @@ public class HttpChannelInitializerTest {
     public void initChannel_adds_debugLoggingHandler_first_if_debugChannelLifecycleLoggingEnabled_is_true() throws SSLException {
         // given
         HttpChannelInitializer
-            hci = basicHttpChannelInitializer(SslContextBuilder.forClient().build(), 42, 100, true, mock(RequestValidator.class),
+            hci = basicHttpChannelInitializer(SslContextBuilder.forClient().build(), 42, true, mock(RequestValidator.class),
                                               createRequestAndResponseFilterMock());
 
         // when
@@ -460,7 +550,7 @@ public class HttpChannelInitializerTest {
     public void initChannel_does_not_add_debugLoggingHandler_if_debugChannelLifecycleLoggingEnabled_is_false() throws SSLException {
         // given
         HttpChannelInitializer
-            hci = basicHttpChannelInitializer(SslContextBuilder.forClient().build(), 42, 100, false, mock(RequestValidator.class),
+            hci = basicHttpChannelInitializer(SslContextBuilder.forClient().build(), 42, false, mock(RequestValidator.class),
                                                 createRequestAndResponseFilterMock());
 
         // when
@@ -477,7 +567,7 @@ public class HttpChannelInitializerTest {
     public void initChannel_adds_sslCtx_handler_first_if_available_and_no_utility_handlers() throws SSLException {
         // given
         SslContext sslCtx = SslContextBuilder.forClient().build();
-        HttpChannelInitializer hci = basicHttpChannelInitializer(sslCtx, 0, 100, false, mock(RequestValidator.class),
+        HttpChannelInitializer hci = basicHttpChannelInitializer(sslCtx, 0, false, mock(RequestValidator.class),
                                                                  createRequestAndResponseFilterMock());
 
         // when
@@ -490,6 +580,45 @@ public class HttpChannelInitializerTest {
         assertThat(handlers.get(0), instanceOf(SslHandler.class));
     }
 
+    @Test
+    public void initChannel_adds_FlushConsolidationHandler_after_sslCtx_and_before_HttpServerCodec_if_flushConsolidationMaxPendingFlushes_is_positive() throws SSLException {
+        // given
+        SslContext sslCtx = SslContextBuilder.forClient().build();
+        HttpChannelInitializer hci = new HttpChannelInitializer(
+            sslCtx, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, mock(RiposteErrorHandler.class),
+            mock(RiposteUnhandledErrorHandler.class), null, null, mock(ResponseSender.class), null, 4242L, null,
+            null, null, 0, 4200, 1234, false,
+            null, 123, null, 16, 0, null, null, null, null, null, null, null, mock(DistributedTracingConfig.class));
+
+        // when
+        hci.initChannel(socketChannelMock);
+
+        // then
+        ArgumentCaptor<ChannelHandler> channelHandlerArgumentCaptor = ArgumentCaptor.forClass(ChannelHandler.class);
+        verify(channelPipelineMock, atLeastOnce()).addLast(anyString(), channelHandlerArgumentCaptor.capture());
+        List<ChannelHandler> handlers = channelHandlerArgumentCaptor.getAllValues();
+        assertThat(handlers.get(0), instanceOf(SslHandler.class));
+        assertThat(handlers.get(1), instanceOf(FlushConsolidationHandler.class));
+        assertThat(handlers.get(2), instanceOf(HttpServerCodec.class));
+        verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.FLUSH_CONSOLIDATION_HANDLER_NAME),
+                                            any(FlushConsolidationHandler.class));
+    }
+
+    @Test
+    public void initChannel_does_not_add_FlushConsolidationHandler_by_default() {
+        // given
+        HttpChannelInitializer hci = basicHttpChannelInitializerNoUtilityHandlers();
+
+        // when
+        hci.initChannel(socketChannelMock);
+
+        // then
+        ArgumentCaptor<ChannelHandler> channelHandlerArgumentCaptor = ArgumentCaptor.forClass(ChannelHandler.class);
+        verify(channelPipelineMock, atLeastOnce()).addLast(anyString(), channelHandlerArgumentCaptor.capture());
+        List<ChannelHandler> handlers = channelHandlerArgumentCaptor.getAllValues();
+        assertThat(findChannelHandler(handlers, FlushConsolidationHandler.class), nullValue());
+    }
+
     @Test
     public void initChannel_does_not_add_validationService_handler_if_it_is_null() throws SSLException {
         // given
@@ -705,6 +834,8 @@ public class HttpChannelInitializerTest {
         long expectedThresholdValue = ((Integer)extractField(hci, "responseCompressionThresholdBytes")).longValue();
         assertThat(extractField(httpContentCompressor.getRight(), "responseSizeThresholdBytes"),
                    is(expectedThresholdValue));
+        assertThat(extractField(httpContentCompressor.getRight(), "compressionConfig"),
+                   is(extractField(hci, "responseCompressionConfig")));
     }
 
     @Test
@@ -731,9 +862,14 @@ public class HttpChannelInitializerTest {
     }
 
     @Test
-    public void initChannel_adds_OpenChannelLimitHandler_after_RequestInfoSetterHandler_and_uses_cached_ChannelGroup() {
+    public void initChannel_adds_ConcurrencyLimitHandler_immediately_after_RoutingHandler_if_concurrencyLimitConfig_is_enabled() {
         // given
-        HttpChannelInitializer hci = basicHttpChannelInitializer(null, 0, 42, false, null, null);
+        HttpChannelInitializer hci = new HttpChannelInitializer(
+            null, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, mock(RiposteErrorHandler.class),
+            mock(RiposteUnhandledErrorHandler.class), null, null, mock(ResponseSender.class), null, 4242L, null,
+            null, null, 0, 4200, 1234, false,
+            null, 123, null, 0, 0, null, null, null, ConcurrencyLimitConfig.DEFAULT_IMPL,
+            null, null, null, mock(DistributedTracingConfig.class));
 
         // when
         hci.initChannel(socketChannelMock);
@@ -742,24 +878,180 @@ public class HttpChannelInitializerTest {
         ArgumentCaptor<ChannelHandler> channelHandlerArgumentCaptor = ArgumentCaptor.forClass(ChannelHandler.class);
         verify(channelPipelineMock, atLeastOnce()).addLast(anyString(), channelHandlerArgumentCaptor.capture());
         List<ChannelHandler> handlers = channelHandlerArgumentCaptor.getAllValues();
-        Pair<Integer, RequestInfoSetterHandler> requestInfoSetterHandler = findChannelHandler(handlers, RequestInfoSetterHandler.class);
-        Pair<Integer, OpenChannelLimitHandler> openChannelLimitHandler = findChannelHandler(handlers, OpenChannelLimitHandler.class);
+        Pair<Integer, RoutingHandler> routingHandler = findChannelHandler(handlers, RoutingHandler.class);
+        Pair<Integer, ConcurrencyLimitHandler> concurrencyLimitHandler =
+            findChannelHandler(handlers, ConcurrencyLimitHandler.class);
 
-        assertThat(requestInfoSetterHandler, notNullValue());
-        assertThat(openChannelLimitHandler, notNullValue());
+        assertThat(routingHandler, notNullValue());
+        assertThat(concurrencyLimitHandler, notNullValue());
 
-        assertThat(openChannelLimitHandler.getLeft(), is(requestInfoSetterHandler.getLeft() + 1));
+        assertThat(concurrencyLimitHandler.getLeft(), is(routingHandler.getLeft() + 1));
+        assertThat(Whitebox.getInternalState(concurrencyLimitHandler.getRight(), "concurrencyLimiters"),
+                   is(extractField(hci, "endpointConcurrencyLimiters")));
+    }
 
-        // and then
-        ChannelGroup expectedChannelGroup = extractField(hci, "openChannelsGroup");
-        ChannelGroup actualChannelGroup = (ChannelGroup) Whitebox.getInternalState(openChannelLimitHandler.getRight(), "openChannelsGroup");
-        assertThat(actualChannelGroup, is(expectedChannelGroup));
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void initChannel_does_not_add_ConcurrencyLimitHandler_if_concurrency_limiting_is_not_enabled_for_any_endpoint(
+        boolean configIsNull
+    ) {
+        // given
+        ConcurrencyLimitConfig config = (configIsNull) ? null : ConcurrencyLimitConfig.DISABLED;
+        HttpChannelInitializer hci = new HttpChannelInitializer(
+            null, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, mock(RiposteErrorHandler.class),
+            mock(RiposteUnhandledErrorHandler.class), null, null, mock(ResponseSender.class), null, 4242L, null,
+            null, null, 0, 4200, 1234, false,
+            null, 123, null, 0, 0, null, null, null, config, null, null, null, mock(DistributedTracingConfig.class));
+
+        // when
+        hci.initChannel(socketChannelMock);
+
+        // then
+        ArgumentCaptor<ChannelHandler> channelHandlerArgumentCaptor = ArgumentCaptor.forClass(ChannelHandler.class);
+        verify(channelPipelineMock, atLeastOnce()).addLast(anyString(), channelHandlerArgumentCaptor.capture());
+        List<ChannelHandler> handlers = channelHandlerArgumentCaptor.getAllValues();
+        assertThat(findChannelHandler(handlers, ConcurrencyLimitHandler.class), nullValue());
+        assertThat(extractField(hci, "endpointConcurrencyLimiters"), nullValue());
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void initChannel_passes_shared_RequestCoalescer_to_NonblockingEndpointExecutionHandler_only_if_an_endpoint_opts_in(
+        boolean endpointOptsIn
+    ) {
+        // given
+        NonblockingEndpoint<?, ?> nonblockingEndpointMock = mock(NonblockingEndpoint.class);
+        doReturn(Matcher.match("/other/path")).when(nonblockingEndpointMock).requestMatcher();
+        if (endpointOptsIn)
+            doReturn(RequestCoalescingConfig.DEFAULT_IMPL).when(nonblockingEndpointMock).requestCoalescingConfig();
+        HttpChannelInitializer hci = new HttpChannelInitializer(
+            null, 42, Arrays.asList(getMockEndpoint("/some/path"), nonblockingEndpointMock), null, null,
+            mock(RiposteErrorHandler.class), mock(RiposteUnhandledErrorHandler.class), null, null,
+            mock(ResponseSender.class), null, 4242L, null, null, null, 0, 4200, 1234, false,
+            null, 123, null, 0, 0, null, null, null, null, null, null, null, mock(DistributedTracingConfig.class));
+
+        // when
+        hci.initChannel(socketChannelMock);
+
+        // then
+        ArgumentCaptor<ChannelHandler> channelHandlerArgumentCaptor = ArgumentCaptor.forClass(ChannelHandler.class);
+        verify(channelPipelineMock, atLeastOnce()).addLast(anyString(), channelHandlerArgumentCaptor.capture());
+        List<ChannelHandler> handlers = channelHandlerArgumentCaptor.getAllValues();
+        Pair<Integer, NonblockingEndpointExecutionHandler> nonblockingEndpointExecutionHandler =
+            findChannelHandler(handlers, NonblockingEndpointExecutionHandler.class);
+        RequestCoalescer requestCoalescer = extractField(hci, "requestCoalescer");
+        if (endpointOptsIn)
+            assertThat(requestCoalescer, notNullValue());
+        else
+            assertThat(requestCoalescer, nullValue());
+        assertThat(Whitebox.getInternalState(nonblockingEndpointExecutionHandler.getRight(), "requestCoalescer"),
+                   is(requestCoalescer));
+    }
+
+    @Test
+    public void initChannel_adds_LoadSheddingHandler_immediately_after_RoutingHandler_if_loadSheddingConfig_is_not_null() {
+        // given
+        LoadSheddingConfig loadSheddingConfig = new LoadSheddingConfig() {
+            @Override
+            public DoubleSupplier loadSignal() {
+                return () -> 0.0;
+            }
+        };
+        HttpChannelInitializer hci = new HttpChannelInitializer(
+            null, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, mock(RiposteErrorHandler.class),
+            mock(RiposteUnhandledErrorHandler.class), null, null, mock(ResponseSender.class), null, 4242L, null,
+            null, null, 0, 4200, 1234, false,
+            null, 123, null, 0, 0, null, null, null, ConcurrencyLimitConfig.DEFAULT_IMPL, loadSheddingConfig,
+            null, null, mock(DistributedTracingConfig.class));
+
+        // when
+        hci.initChannel(socketChannelMock);
+
+        // then
+        ArgumentCaptor<ChannelHandler> channelHandlerArgumentCaptor = ArgumentCaptor.forClass(ChannelHandler.class);
+        verify(channelPipelineMock, atLeastOnce()).addLast(anyString(), channelHandlerArgumentCaptor.capture());
+        List<ChannelHandler> handlers = channelHandlerArgumentCaptor.getAllValues();
+        Pair<Integer, RoutingHandler> routingHandler = findChannelHandler(handlers, RoutingHandler.class);
+        Pair<Integer, LoadSheddingHandler> loadSheddingHandler =
+            findChannelHandler(handlers, LoadSheddingHandler.class);
+        Pair<Integer, ConcurrencyLimitHandler> concurrencyLimitHandler =
+            findChannelHandler(handlers, ConcurrencyLimitHandler.class);
+
+        assertThat(routingHandler, notNullValue());
+        assertThat(loadSheddingHandler, notNullValue());
+        assertThat(concurrencyLimitHandler, notNullValue());
+
+        assertThat(loadSheddingHandler.getLeft(), is(routingHandler.getLeft() + 1));
+        assertThat(concurrencyLimitHandler.getLeft(), is(loadSheddingHandler.getLeft() + 1));
+        assertThat(Whitebox.getInternalState(loadSheddingHandler.getRight(), "loadShedder"),
+                   is(extractField(hci, "priorityLoadShedder")));
+    }
+
+    @Test
+    public void initChannel_adds_RequestDeadlineHandler_immediately_after_RoutingHandler_if_requestDeadlineConfig_is_not_null() {
+        // given
+        LoadSheddingConfig loadSheddingConfig = new LoadSheddingConfig() {
+            @Override
+            public DoubleSupplier loadSignal() {
+                return () -> 0.0;
+            }
+        };
+        RequestDeadlineConfig requestDeadlineConfig = new RequestDeadlineConfig() {};
+        HttpChannelInitializer hci = new HttpChannelInitializer(
+            null, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, mock(RiposteErrorHandler.class),
+            mock(RiposteUnhandledErrorHandler.class), null, null, mock(ResponseSender.class), null, 4242L, null,
+            null, null, 0, 4200, 1234, false,
+            null, 123, null, 0, 0, null, null, null, null, loadSheddingConfig,
+            requestDeadlineConfig, null, mock(DistributedTracingConfig.class));
+
+        // when
+        hci.initChannel(socketChannelMock);
+
+        // then
+        ArgumentCaptor<ChannelHandler> channelHandlerArgumentCaptor = ArgumentCaptor.forClass(ChannelHandler.class);
+        verify(channelPipelineMock, atLeastOnce()).addLast(anyString(), channelHandlerArgumentCaptor.capture());
+        List<ChannelHandler> handlers = channelHandlerArgumentCaptor.getAllValues();
+        Pair<Integer, RoutingHandler> routingHandler = findChannelHandler(handlers, RoutingHandler.class);
+        Pair<Integer, RequestDeadlineHandler> requestDeadlineHandler =
+            findChannelHandler(handlers, RequestDeadlineHandler.class);
+        Pair<Integer, LoadSheddingHandler> loadSheddingHandler =
+            findChannelHandler(handlers, LoadSheddingHandler.class);
+
+        assertThat(routingHandler, notNullValue());
+        assertThat(requestDeadlineHandler, notNullValue());
+        assertThat(loadSheddingHandler, notNullValue());
+
+        assertThat(requestDeadlineHandler.getLeft(), is(routingHandler.getLeft() + 1));
+        assertThat(loadSheddingHandler.getLeft(), is(requestDeadlineHandler.getLeft() + 1));
+        assertThat(Whitebox.getInternalState(requestDeadlineHandler.getRight(), "requestDeadlineConfig"),
+                   is(requestDeadlineConfig));
     }
 
     @Test
-    public void initChannel_does_not_add_OpenChannelLimitHandler_if_threshold_is_negative_1() {
+    public void initChannel_does_not_add_RequestDeadlineHandler_if_requestDeadlineConfig_is_null() {
         // given
-        HttpChannelInitializer hci = basicHttpChannelInitializer(null, 0, -1, false, null, null);
+        HttpChannelInitializer hci = basicHttpChannelInitializerNoUtilityHandlers();
+
+        // when
+        hci.initChannel(socketChannelMock);
+
+        // then
+        ArgumentCaptor<ChannelHandler> channelHandlerArgumentCaptor = ArgumentCaptor.forClass(ChannelHandler.class);
+        verify(channelPipelineMock, atLeastOnce()).addLast(anyString(), channelHandlerArgumentCaptor.capture());
+        List<ChannelHandler> handlers = channelHandlerArgumentCaptor.getAllValues();
+        assertThat(findChannelHandler(handlers, RequestDeadlineHandler.class), nullValue());
+    }
+
+    @Test
+    public void initChannel_does_not_add_LoadSheddingHandler_if_loadSheddingConfig_is_null() {
+        // given
+        HttpChannelInitializer hci = basicHttpChannelInitializerNoUtilityHandlers();
 
         // when
         hci.initChannel(socketChannelMock);
@@ -768,7 +1060,8 @@ public class HttpChannelInitializerTest {
         ArgumentCaptor<ChannelHandler> channelHandlerArgumentCaptor = ArgumentCaptor.forClass(ChannelHandler.class);
         verify(channelPipelineMock, atLeastOnce()).addLast(anyString(), channelHandlerArgumentCaptor.capture());
         List<ChannelHandler> handlers = channelHandlerArgumentCaptor.getAllValues();
-        assertThat(findChannelHandler(handlers, OpenChannelLimitHandler.class), nullValue());
+        assertThat(findChannelHandler(handlers, LoadSheddingHandler.class), nullValue());
+        assertThat(extractField(hci, "priorityLoadShedder"), nullValue());
     }
 
     @Test
@@ -780,7 +1073,7 @@ public class HttpChannelInitializerTest {
         doReturn(false).when(afterSecurityRequestFilter).shouldExecuteBeforeSecurityValidation();
         List<RequestAndResponseFilter> requestAndResponseFilters = Arrays.asList(beforeSecurityRequestFilter, afterSecurityRequestFilter);
 
-        HttpChannelInitializer hci = basicHttpChannelInitializer(null, 0, 42, false, null, requestAndResponseFilters);
+        HttpChannelInitializer hci = basicHttpChannelInitializer(null, 0, false, null, requestAndResponseFilters);
 
         // when
         hci.initChannel(socketChannelMock);
@@ -918,7 +1211,7 @@ public class HttpChannelInitializerTest {
     public void initChannel_adds_RequestContentValidationHandler_after_RequestContentDeserializerHandler_and_uses_validationService() {
         // given
         RequestValidator expectedValidationService = mock(RequestValidator.class);
-        HttpChannelInitializer hci = basicHttpChannelInitializer(null, 0, 100, false, expectedValidationService, null);
+        HttpChannelInitializer hci = basicHttpChannelInitializer(null, 0, false, expectedValidationService, null);
 
         // when
         hci.initChannel(socketChannelMock);
@@ -938,6 +1231,9 @@ public class HttpChannelInitializerTest {
         // and then
         RequestValidator actualRequestValidator = (RequestValidator) Whitebox.getInternalState(requestContentValidationHandler.getRight(), "validationService");
         assertThat(actualRequestValidator, is(expectedValidationService));
+        Executor actualExecutor = (Executor) Whitebox.getInternalState(requestContentValidationHandler.getRight(), "asyncValidationExecutor");
+        Executor expectedExecutor = extractField(hci, "requestContentValidationExecutor");
+        assertThat(actualExecutor, is(expectedExecutor));
     }
 
     @Test
@@ -1007,7 +1303,7 @@ public class HttpChannelInitializerTest {
     @Test
     public void initChannel_adds_ResponseFilterHandler_after_ExceptionHandlingHandler_and_before_ResponseSenderHandler_and_uses_cached_handler() {
         // given
-        HttpChannelInitializer hci = basicHttpChannelInitializer(null, 0, 42, false, null, createRequestAndResponseFilterMock());
+        HttpChannelInitializer hci = basicHttpChannelInitializer(null, 0, false, null, createRequestAndResponseFilterMock());
 
         // when
         hci.initChannel(socketChannelMock);
@@ -1040,7 +1336,7 @@ public class HttpChannelInitializerTest {
     public void initChannel_does_not_add_RequestFilterHandler_or_ResponseFilterHandler_if_filter_list_is_null_or_empty(boolean isNullList) {
         // given
         List<RequestAndResponseFilter> filterList = (isNullList) ? null : Collections.emptyList();
-        HttpChannelInitializer hci = basicHttpChannelInitializer(null, 0, 42, false, null, filterList);
+        HttpChannelInitializer hci = basicHttpChannelInitializer(null, 0, false, null, filterList);
 
         // when
         hci.initChannel(socketChannelMock);
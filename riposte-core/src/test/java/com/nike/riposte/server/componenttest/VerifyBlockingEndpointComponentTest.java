@@ -0,0 +1,141 @@
+package com.nike.riposte.server.componenttest;
+
+import com.nike.riposte.server.Server;
+import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.http.BlockingEndpoint;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.testutils.ComponentTestUtils;
+import com.nike.riposte.server.testutils.ComponentTestUtils.NettyHttpClientResponse;
+import com.nike.riposte.util.Matcher;
+import com.nike.wingtips.TraceHeaders;
+import com.nike.wingtips.Tracer;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import static com.nike.riposte.server.testutils.ComponentTestUtils.request;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Component test verifying that {@link BlockingEndpoint}s run their blocking work off the Netty worker thread with the
+ * request's distributed tracing attached, and that errors are handled like any other endpoint.
+ */
+public class VerifyBlockingEndpointComponentTest {
+
+    private static Server server;
+    private static ServerConfig serverConfig;
+    private static final long incompleteCallTimeoutMillis = 5000;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        serverConfig = new BlockingEndpointTestServerConfig();
+        server = new Server(serverConfig);
+        server.startup();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void blocking_endpoint_returns_response_generated_on_blocking_thread_with_tracing_attached()
+        throws Exception {
+        // when
+        NettyHttpClientResponse response = request()
+            .withMethod(HttpMethod.GET)
+            .withUri(SleepingEndpoint.MATCHING_PATH)
+            .withHeader(TraceHeaders.TRACE_ID, "4242424242424242")
+            .execute(serverConfig.endpointsPort(), incompleteCallTimeoutMillis);
+
+        // then
+        assertThat(response.statusCode).isEqualTo(HttpResponseStatus.OK.code());
+        String[] payloadParts = response.payload.split("\\|");
+        assertThat(payloadParts[0]).doesNotContain("nioEventLoopGroup").doesNotContain("epollEventLoopGroup");
+        assertThat(payloadParts[1]).isEqualTo("4242424242424242");
+    }
+
+    @Test
+    public void blocking_endpoint_exception_results_in_error_response() throws Exception {
+        // when
+        NettyHttpClientResponse response = request()
+            .withMethod(HttpMethod.GET)
+            .withUri(FailingEndpoint.MATCHING_PATH)
+            .execute(serverConfig.endpointsPort(), incompleteCallTimeoutMillis);
+
+        // then
+        assertThat(response.statusCode).isEqualTo(HttpResponseStatus.INTERNAL_SERVER_ERROR.code());
+    }
+
+    private static class SleepingEndpoint extends BlockingEndpoint<Void, String> {
+
+        static final String MATCHING_PATH = "/blocking/sleep";
+
+        @Override
+        public @NotNull ResponseInfo<String> executeBlocking(
+            @NotNull RequestInfo<Void> request, @NotNull ChannelHandlerContext ctx
+        ) throws Exception {
+            Thread.sleep(10);
+            String traceId = Tracer.getInstance().getCurrentSpan().getTraceId();
+            return ResponseInfo.newBuilder(Thread.currentThread().toString() + "|" + traceId).build();
+        }
+
+        @Override
+        public @NotNull Matcher requestMatcher() {
+            return Matcher.match(MATCHING_PATH);
+        }
+    }
+
+    private static class FailingEndpoint extends BlockingEndpoint<Void, String> {
+
+        static final String MATCHING_PATH = "/blocking/failing";
+
+        @Override
+        public @NotNull ResponseInfo<String> executeBlocking(
+            @NotNull RequestInfo<Void> request, @NotNull ChannelHandlerContext ctx
+        ) throws Exception {
+            throw new IOException("intentional test exception");
+        }
+
+        @Override
+        public @NotNull Matcher requestMatcher() {
+            return Matcher.match(MATCHING_PATH);
+        }
+    }
+
+    public static class BlockingEndpointTestServerConfig implements ServerConfig {
+        private final Collection<Endpoint<?>> endpoints = Arrays.asList(new SleepingEndpoint(), new FailingEndpoint());
+
+        private final int port;
+
+        public BlockingEndpointTestServerConfig() {
+            try {
+                port = ComponentTestUtils.findFreePort();
+            } catch (IOException e) {
+                throw new RuntimeException("Couldn't allocate port", e);
+            }
+        }
+
+        @Override
+        public @NotNull Collection<@NotNull Endpoint<?>> appEndpoints() {
+            return endpoints;
+        }
+
+        @Override
+        public int endpointsPort() {
+            return port;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.nike.riposte.server.componenttest;
+
+import com.nike.riposte.server.Server;
+import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.StandardEndpoint;
+import com.nike.riposte.server.http.sse.ServerSentEvent;
+import com.nike.riposte.server.http.sse.ServerSentEventEndpoint;
+import com.nike.riposte.server.http.sse.ServerSentEventStream;
+import com.nike.riposte.server.testutils.ComponentTestUtils;
+import com.nike.riposte.server.testutils.ComponentTestUtils.NettyHttpClientResponse;
+import com.nike.riposte.util.Matcher;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import static com.nike.riposte.server.testutils.ComponentTestUtils.request;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Component test verifying that long-lived {@link ServerSentEventEndpoint} streams don't hold on to a concurrency
+ * limit permit when {@link ServerConfig#concurrencyLimitConfig()} is enabled app-wide. The limit is pinned to 1, so if
+ * the streams were limited then every stream after the first one would be rejected with a 503 while the first one is
+ * still open.
+ */
+public class VerifyConcurrencyLimitSkipsServerSentEventStreamsComponentTest {
+
+    private static final int NUM_CONCURRENT_STREAMS = 3;
+
+    private static Server server;
+    private static ServerConfig serverConfig;
+    private static final long incompleteCallTimeoutMillis = 5000;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        serverConfig = new ConcurrencyLimitTestServerConfig();
+        server = new Server(serverConfig);
+        server.startup();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        HeldOpenEventStreamEndpoint.closeAllStreams();
+        server.shutdown();
+    }
+
+    @Test
+    public void concurrency_limit_does_not_reject_concurrent_long_lived_sse_streams() throws Exception {
+        List<Socket> clients = new ArrayList<>();
+        try {
+            // when
+            List<String> streamStarts = new ArrayList<>();
+            for (int i = 0; i < NUM_CONCURRENT_STREAMS; i++) {
+                Socket client = new Socket("localhost", serverConfig.endpointsPort());
+                clients.add(client);
+                streamStarts.add(openStreamAndReadFirstEvent(client));
+            }
+
+            // then
+            assertThat(HeldOpenEventStreamEndpoint.openStreams).hasSize(NUM_CONCURRENT_STREAMS);
+            assertThat(HeldOpenEventStreamEndpoint.openStreams).allMatch(ServerSentEventStream::isOpen);
+            for (String streamStart : streamStarts) {
+                assertThat(streamStart).startsWith("HTTP/1.1 200");
+                assertThat(streamStart).contains("retry: 1000");
+            }
+
+            // and when
+            NettyHttpClientResponse response = request()
+                .withMethod(HttpMethod.GET)
+                .withUri(PingEndpoint.MATCHING_PATH)
+                .execute(serverConfig.endpointsPort(), incompleteCallTimeoutMillis);
+
+            // then
+            // The regular endpoint is still limited, and isn't affected by the open streams.
+            assertThat(response.statusCode).isEqualTo(HttpResponseStatus.OK.code());
+            assertThat(response.payload).isEqualTo(PingEndpoint.RESPONSE_PAYLOAD);
+        }
+        finally {
+            HeldOpenEventStreamEndpoint.closeAllStreams();
+            for (Socket client : clients) {
+                client.close();
+            }
+        }
+    }
+
+    private static String openStreamAndReadFirstEvent(Socket client) throws IOException {
+        client.setSoTimeout((int) incompleteCallTimeoutMillis);
+        client.getOutputStream().write(
+            ("GET " + HeldOpenEventStreamEndpoint.MATCHING_PATH + " HTTP/1.1\r\nHost: localhost\r\n\r\n")
+                .getBytes(StandardCharsets.UTF_8)
+        );
+        client.getOutputStream().flush();
+
+        // The stream never finishes on its own, so read only until the first event shows up (or the response is a
+        //      non-streaming error).
+        InputStream in = client.getInputStream();
+        StringBuilder received = new StringBuilder();
+        byte[] buffer = new byte[1024];
+        while (!received.toString().contains("retry: 1000") && !received.toString().contains("\"errors\"")) {
+            int bytesRead = in.read(buffer);
+            if (bytesRead < 0) {
+                break;
+            }
+            received.append(new String(buffer, 0, bytesRead, StandardCharsets.UTF_8));
+        }
+
+        return received.toString();
+    }
+
+    private static class HeldOpenEventStreamEndpoint extends ServerSentEventEndpoint<Void> {
+
+        static final String MATCHING_PATH = "/sse/heldOpen";
+
+        static final Queue<ServerSentEventStream> openStreams = new ConcurrentLinkedQueue<>();
+
+        static void closeAllStreams() {
+            ServerSentEventStream stream;
+            while ((stream = openStreams.poll()) != null) {
+                stream.close();
+            }
+        }
+
+        @Override
+        public void onStreamOpened(
+            @NotNull RequestInfo<Void> request,
+            @NotNull ServerSentEventStream stream,
+            @NotNull Executor longRunningTaskExecutor,
+            @NotNull ChannelHandlerContext ctx
+        ) {
+            openStreams.add(stream);
+            stream.send(ServerSentEvent.newBuilder().withRetryMillis(1000L).build());
+        }
+
+        @Override
+        public @NotNull Matcher requestMatcher() {
+            return Matcher.match(MATCHING_PATH);
+        }
+    }
+
+    private static class PingEndpoint extends StandardEndpoint<Void, String> {
+
+        static final String MATCHING_PATH = "/ping";
+        static final String RESPONSE_PAYLOAD = "pong";
+
+        @Override
+        public @NotNull CompletableFuture<ResponseInfo<String>> execute(
+            @NotNull RequestInfo<Void> request,
+            @NotNull Executor longRunningTaskExecutor,
+            @NotNull ChannelHandlerContext ctx
+        ) {
+            return CompletableFuture.completedFuture(ResponseInfo.newBuilder(RESPONSE_PAYLOAD).build());
+        }
+
+        @Override
+        public @NotNull Matcher requestMatcher() {
+            return Matcher.match(MATCHING_PATH);
+        }
+    }
+
+    public static class ConcurrencyLimitTestServerConfig implements ServerConfig {
+        private final Collection<Endpoint<?>> endpoints = Arrays.asList(
+            new HeldOpenEventStreamEndpoint(), new PingEndpoint()
+        );
+
+        private final int port;
+
+        public ConcurrencyLimitTestServerConfig() {
+            try {
+                port = ComponentTestUtils.findFreePort();
+            } catch (IOException e) {
+                throw new RuntimeException("Couldn't allocate port", e);
+            }
+        }
+
+        @Override
+        public @NotNull Collection<@NotNull Endpoint<?>> appEndpoints() {
+            return endpoints;
+        }
+
+        @Override
+        public int endpointsPort() {
+            return port;
+        }
+
+        @Override
+        public @Nullable ConcurrencyLimitConfig concurrencyLimitConfig() {
+            return new ConcurrencyLimitConfig() {
+                @Override
+                public int initialLimit() {
+                    return 1;
+                }
+
+                @Override
+                public int minLimit() {
+                    return 1;
+                }
+
+                @Override
+                public int maxLimit() {
+                    return 1;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.nike.riposte.server.componenttest;
+
+import com.nike.riposte.server.Server;
+import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.StandardEndpoint;
+import com.nike.riposte.server.testutils.ComponentTestUtils;
+import com.nike.riposte.server.testutils.ComponentTestUtils.NettyHttpClientResponse;
+import com.nike.riposte.util.AsyncNettyHelper;
+import com.nike.riposte.util.Matcher;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+
+import static com.nike.riposte.server.testutils.ComponentTestUtils.connectNettyHttpClientToLocalServer;
+import static com.nike.riposte.server.testutils.ComponentTestUtils.createNettyHttpClientBootstrap;
+import static com.nike.riposte.server.testutils.ComponentTestUtils.executeNettyHttpClientCall;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Component test verifying that {@link com.nike.riposte.server.http.NonblockingEndpoint#isEventLoopAffine()}
+ * endpoints do their work and send their response on the channel's event loop without any thread handoffs. The same
+ * trivial non-blocking work is run through an event-loop-affine endpoint and through a normal endpoint that uses the
+ * {@code longRunningTaskExecutor}, and the number of thread handoffs for each is checked. See {@code
+ * EventLoopAffineEndpointBenchmark} in the benchmark source set for a latency comparison.
+ */
+public class VerifyEventLoopAffineEndpointComponentTest {
+
+    private static final long incompleteCallTimeoutMillis = 10_000;
+    private static final int numRequests = 20;
+
+    private static Server server;
+    static EventLoopAffineTestServerConfig serverConfig;
+    static Bootstrap clientBootstrap;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        serverConfig = new EventLoopAffineTestServerConfig();
+        server = new Server(serverConfig);
+        server.startup();
+        clientBootstrap = createNettyHttpClientBootstrap();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        server.shutdown();
+        serverConfig.longRunningTaskExecutor.shutdownNow();
+        clientBootstrap.config().group().shutdownGracefully();
+    }
+
+    @Test
+    public void event_loop_affine_endpoint_responds_without_thread_handoffs() throws Exception {
+        // when
+        HandoffResult affineResult = runRequests(EventLoopAffineEndpoint.MATCHING_PATH);
+        HandoffResult defaultResult = runRequests(LongRunningTaskExecutorEndpoint.MATCHING_PATH);
+
+        // then
+        assertThat(affineResult.responsesCompletedOffEventLoop).isZero();
+        assertThat(affineResult.threadHandoffs).isZero();
+        // The default endpoint hops to the longRunningTaskExecutor and back for every request.
+        assertThat(defaultResult.responsesCompletedOffEventLoop).isEqualTo(numRequests);
+        assertThat(defaultResult.threadHandoffs).isGreaterThanOrEqualTo(2L * numRequests);
+    }
+
+    private HandoffResult runRequests(String path) throws Exception {
+        Channel ch = connectNettyHttpClientToLocalServer(clientBootstrap, serverConfig.endpointsPort());
+        try {
+            long longRunningTasksBefore = serverConfig.longRunningTaskCount.get();
+            int responsesCompletedOffEventLoop = 0;
+            for (int i = 0; i < numRequests; i++) {
+                NettyHttpClientResponse response = executeRequest(ch, path);
+
+                assertThat(response.statusCode).isEqualTo(HttpResponseStatus.OK.code());
+                if (!Boolean.parseBoolean(response.payload)) {
+                    responsesCompletedOffEventLoop++;
+                }
+            }
+
+            long longRunningTasks = serverConfig.longRunningTaskCount.get() - longRunningTasksBefore;
+            // Every task sent to the longRunningTaskExecutor is one handoff away from the event loop, and every
+            //      response completed off the event loop needs one handoff back to it.
+            return new HandoffResult(responsesCompletedOffEventLoop, longRunningTasks + responsesCompletedOffEventLoop);
+        }
+        finally {
+            ch.close().sync();
+        }
+    }
+
+    static NettyHttpClientResponse executeRequest(Channel ch, String path) throws Exception {
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, path);
+        request.headers().set(HttpHeaderNames.HOST, "localhost");
+        return executeNettyHttpClientCall(ch, request, incompleteCallTimeoutMillis);
+    }
+
+    private static class HandoffResult {
+        final int responsesCompletedOffEventLoop;
+        final long threadHandoffs;
+
+        HandoffResult(int responsesCompletedOffEventLoop, long threadHandoffs) {
+            this.responsesCompletedOffEventLoop = responsesCompletedOffEventLoop;
+            this.threadHandoffs = threadHandoffs;
+        }
+    }
+
+    private static ResponseInfo<String> inEventLoopResponse(ChannelHandlerContext ctx) {
+        return ResponseInfo.newBuilder(String.valueOf(ctx.executor().inEventLoop())).build();
+    }
+
+    static class EventLoopAffineEndpoint extends StandardEndpoint<Void, String> {
+
+        static final String MATCHING_PATH = "/eventLoopAffine";
+
+        @Override
+        public @NotNull CompletableFuture<ResponseInfo<String>> execute(
+            @NotNull RequestInfo<Void> request,
+            @NotNull Executor longRunningTaskExecutor,
+            @NotNull ChannelHandlerContext ctx
+        ) {
+            return CompletableFuture.supplyAsync(
+                () -> inEventLoopResponse(ctx), AsyncNettyHelper.eventLoopExecutor(ctx)
+            );
+        }
+
+        @Override
+        public boolean isEventLoopAffine() {
+            return true;
+        }
+
+        @Override
+        public @NotNull Matcher requestMatcher() {
+            return Matcher.match(MATCHING_PATH);
+        }
+    }
+
+    static class LongRunningTaskExecutorEndpoint extends StandardEndpoint<Void, String> {
+
+        static final String MATCHING_PATH = "/longRunningTaskExecutor";
+
+        @Override
+        public @NotNull CompletableFuture<ResponseInfo<String>> execute(
+            @NotNull RequestInfo<Void> request,
+            @NotNull Executor longRunningTaskExecutor,
+            @NotNull ChannelHandlerContext ctx
+        ) {
+            return CompletableFuture.supplyAsync(() -> inEventLoopResponse(ctx), longRunningTaskExecutor);
+        }
+
+        @Override
+        public @NotNull Matcher requestMatcher() {
+            return Matcher.match(MATCHING_PATH);
+        }
+    }
+
+    public static class EventLoopAffineTestServerConfig implements ServerConfig {
+        private final Collection<Endpoint<?>> endpoints = Arrays.asList(
+            new EventLoopAffineEndpoint(), new LongRunningTaskExecutorEndpoint()
+        );
+        private final ExecutorService longRunningTaskExecutor = Executors.newCachedThreadPool();
+        private final AtomicLong longRunningTaskCount = new AtomicLong();
+
+        private final int port;
+
+        public EventLoopAffineTestServerConfig() {
+            try {
+                port = ComponentTestUtils.findFreePort();
+            } catch (IOException e) {
+                throw new RuntimeException("Couldn't allocate port", e);
+            }
+        }
+
+        @Override
+        public @NotNull Collection<@NotNull Endpoint<?>> appEndpoints() {
+            return endpoints;
+        }
+
+        @Override
+        public @Nullable Executor longRunningTaskExecutor() {
+            return task -> {
+                longRunningTaskCount.incrementAndGet();
+                longRunningTaskExecutor.execute(task);
+            };
+        }
+
+        @Override
+        public int endpointsPort() {
+            return port;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.nike.riposte.server.componenttest;
+
+import com.nike.riposte.server.Server;
+import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.hooks.PipelineCreateHook;
+import com.nike.riposte.server.http.ChunkedResponseWriter;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.StreamingEndpoint;
+import com.nike.riposte.server.http.impl.ChunkedResponseInfo;
+import com.nike.riposte.server.http.impl.SimpleProxyRouterEndpoint;
+import com.nike.riposte.server.testutils.ComponentTestUtils.NettyHttpClientResponse;
+import com.nike.riposte.util.Matcher;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import static com.nike.riposte.server.testutils.ComponentTestUtils.findFreePort;
+import static com.nike.riposte.server.testutils.ComponentTestUtils.request;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Component test verifying that {@link ServerConfig#flushConsolidationMaxPendingFlushes()} and {@link
+ * ServerConfig#proxyRouterFlushConsolidationMaxPendingFlushes()} reduce the number of flushes that reach the socket
+ * for chunk-heavy proxied responses without changing the response the caller receives. See {@code
+ * FlushConsolidationBenchmark} in the benchmark source set for a throughput comparison.
+ */
+public class VerifyFlushConsolidationComponentTest {
+
+    private static final long incompleteCallTimeoutMillis = 10_000;
+
+    private static Server downstreamServer;
+    private static ServerConfig downstreamServerConfig;
+    private static Server unconsolidatedProxyServer;
+    static ProxyServerTestConfig unconsolidatedProxyServerConfig;
+    private static Server consolidatedProxyServer;
+    static ProxyServerTestConfig consolidatedProxyServerConfig;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        downstreamServerConfig = new DownstreamServerTestConfig();
+        downstreamServer = new Server(downstreamServerConfig);
+        downstreamServer.startup();
+
+        unconsolidatedProxyServerConfig = new ProxyServerTestConfig(0);
+        unconsolidatedProxyServer = new Server(unconsolidatedProxyServerConfig);
+        unconsolidatedProxyServer.startup();
+
+        consolidatedProxyServerConfig = new ProxyServerTestConfig(256);
+        consolidatedProxyServer = new Server(consolidatedProxyServerConfig);
+        consolidatedProxyServer.startup();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        consolidatedProxyServer.shutdown();
+        unconsolidatedProxyServer.shutdown();
+        downstreamServer.shutdown();
+    }
+
+    @Test
+    public void flush_consolidation_reduces_socket_flushes_for_chunk_heavy_proxied_responses_without_changing_the_payload()
+        throws Exception {
+        // given
+        String expectedPayload = ManyChunksEndpoint.expectedPayload();
+
+        // when
+        long unconsolidatedSocketFlushes = executeProxiedCallAndCountSocketFlushes(
+            unconsolidatedProxyServerConfig, expectedPayload
+        );
+        long consolidatedSocketFlushes = executeProxiedCallAndCountSocketFlushes(
+            consolidatedProxyServerConfig, expectedPayload
+        );
+
+        // then
+        assertThat(unconsolidatedSocketFlushes).isGreaterThan(0);
+        assertThat(consolidatedSocketFlushes).isLessThanOrEqualTo(unconsolidatedSocketFlushes);
+    }
+
+    private static long executeProxiedCallAndCountSocketFlushes(
+        ProxyServerTestConfig proxyServerConfig, String expectedPayload
+    ) throws Exception {
+        proxyServerConfig.socketFlushCount.set(0);
+
+        NettyHttpClientResponse response = executeProxiedCall(proxyServerConfig);
+
+        assertThat(response.statusCode).isEqualTo(HttpResponseStatus.OK.code());
+        assertThat(response.payload).isEqualTo(expectedPayload);
+        return proxyServerConfig.socketFlushCount.get();
+    }
+
+    static NettyHttpClientResponse executeProxiedCall(
+        ProxyServerTestConfig proxyServerConfig
+    ) throws Exception {
+        return request()
+            .withMethod(HttpMethod.GET)
+            .withUri(RouterEndpointForwardingToManyChunksEndpoint.MATCHING_PATH)
+            .execute(proxyServerConfig.endpointsPort(), incompleteCallTimeoutMillis);
+    }
+
+    /**
+     * Counts the flushes that make it to the head of the pipeline, i.e. the flushes that result in writes to the
+     * socket. Added as the first handler in the pipeline so it sees flushes after any flush consolidation.
+     */
+    private static class SocketFlushCountingHandler extends ChannelOutboundHandlerAdapter {
+        private final AtomicLong socketFlushCount;
+
+        SocketFlushCountingHandler(AtomicLong socketFlushCount) {
+            this.socketFlushCount = socketFlushCount;
+        }
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) throws Exception {
+            socketFlushCount.incrementAndGet();
+            super.flush(ctx);
+        }
+    }
+
+    static class ManyChunksEndpoint extends StreamingEndpoint<Void> {
+
+        static final String MATCHING_PATH = "/flushConsolidation/manyChunks";
+        static final int NUM_CHUNKS = 2000;
+
+        static String expectedPayload() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < NUM_CHUNKS; i++) {
+                sb.append("chunk-").append(i).append('\n');
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public @NotNull CompletableFuture<ChunkedResponseInfo> execute(
+            @NotNull RequestInfo<Void> request,
+            @NotNull ChunkedResponseWriter responseWriter,
+            @NotNull Executor longRunningTaskExecutor,
+            @NotNull ChannelHandlerContext ctx
+        ) {
+            longRunningTaskExecutor.execute(() -> produce(responseWriter, 0));
+            return CompletableFuture.completedFuture(
+                ResponseInfo.newChunkedResponseBuilder().withDesiredContentWriterMimeType("text/plain").build()
+            );
+        }
+
+        private void produce(ChunkedResponseWriter writer, int nextChunk) {
+            int chunk = nextChunk;
+            while (chunk < NUM_CHUNKS && writer.isWritable()) {
+                writer.writeChunk("chunk-" + chunk + "\n", StandardCharsets.UTF_8);
+                chunk++;
+            }
+
+            if (chunk >= NUM_CHUNKS) {
+                writer.finish();
+            }
+            else if (!writer.isDone()) {
+                int resumeAt = chunk;
+                writer.whenWritable().thenRun(() -> produce(writer, resumeAt));
+            }
+        }
+
+        @Override
+        public @NotNull Matcher requestMatcher() {
+            return Matcher.match(MATCHING_PATH);
+        }
+    }
+
+    private static class RouterEndpointForwardingToManyChunksEndpoint extends SimpleProxyRouterEndpoint {
+
+        static final String MATCHING_PATH = "/flushConsolidation/proxy";
+
+        RouterEndpointForwardingToManyChunksEndpoint(int downstreamPort) {
+            super(Matcher.match(MATCHING_PATH), "127.0.0.1", downstreamPort, ManyChunksEndpoint.MATCHING_PATH, false);
+        }
+    }
+
+    public static class DownstreamServerTestConfig implements ServerConfig {
+        private final int port;
+        private final Collection<Endpoint<?>> endpoints = singletonList(new ManyChunksEndpoint());
+
+        public DownstreamServerTestConfig() {
+            try {
+                port = findFreePort();
+            } catch (IOException e) {
+                throw new RuntimeException("Couldn't allocate port", e);
+            }
+        }
+
+        @Override
+        public @NotNull Collection<@NotNull Endpoint<?>> appEndpoints() {
+            return endpoints;
+        }
+
+        @Override
+        public int endpointsPort() {
+            return port;
+        }
+    }
+
+    public static class ProxyServerTestConfig implements ServerConfig {
+        private final int port;
+        private final int flushConsolidationMaxPendingFlushes;
+        private final Collection<Endpoint<?>> endpoints;
+        final AtomicLong socketFlushCount = new AtomicLong();
+
+        public ProxyServerTestConfig(int flushConsolidationMaxPendingFlushes) {
+            try {
+                port = findFreePort();
+            } catch (IOException e) {
+                throw new RuntimeException("Couldn't allocate port", e);
+            }
+
+            this.flushConsolidationMaxPendingFlushes = flushConsolidationMaxPendingFlushes;
+            endpoints = singletonList(
+                new RouterEndpointForwardingToManyChunksEndpoint(downstreamServerConfig.endpointsPort())
+            );
+        }
+
+        @Override
+        public @NotNull Collection<@NotNull Endpoint<?>> appEndpoints() {
+            return endpoints;
+        }
+
+        @Override
+        public int endpointsPort() {
+            return port;
+        }
+
+        @Override
+        public int flushConsolidationMaxPendingFlushes() {
+            return flushConsolidationMaxPendingFlushes;
+        }
+
+        @Override
+        public int proxyRouterFlushConsolidationMaxPendingFlushes() {
+            return flushConsolidationMaxPendingFlushes;
+        }
+
+        @Override
+        public @Nullable List<@NotNull PipelineCreateHook> pipelineCreateHooks() {
+            return singletonList(
+                pipeline -> pipeline.addFirst("socketFlushCounter", new SocketFlushCountingHandler(socketFlushCount))
+            );
+        }
+    }
+}
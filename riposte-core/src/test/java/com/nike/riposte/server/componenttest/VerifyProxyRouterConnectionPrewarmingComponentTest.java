@@ -0,0 +1,294 @@
+package com.nike.riposte.server.componenttest;
+
+import com.nike.riposte.server.Server;
+import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionPrewarmConfig.Target;
+import com.nike.riposte.server.hooks.PipelineCreateHook;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.ProxyRouterEndpoint;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.StandardEndpoint;
+import com.nike.riposte.server.http.impl.SimpleProxyRouterEndpoint;
+import com.nike.riposte.server.testutils.ComponentTestUtils.NettyHttpClientResponse;
+import com.nike.riposte.util.Matcher;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import static com.nike.riposte.server.testutils.ComponentTestUtils.findFreePort;
+import static com.nike.riposte.server.testutils.ComponentTestUtils.request;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Component test verifying that {@link ServerConfig#proxyRouterConnectionPrewarmConfig()} opens proxy/router
+ * downstream connections (including the TLS handshake for HTTPS hosts) during server startup, and that the first
+ * proxied calls reuse those connections rather than opening new ones. Local HTTP and HTTPS downstream servers count
+ * the connections they accept, and the latency of the first proxied calls with and without pre-warming is logged so
+ * the effect can be compared between runs.
+ */
+public class VerifyProxyRouterConnectionPrewarmingComponentTest {
+
+    private static final Logger logger =
+        LoggerFactory.getLogger(VerifyProxyRouterConnectionPrewarmingComponentTest.class);
+
+    private static final long incompleteCallTimeoutMillis = 10_000;
+    private static final int connectionsPerHost = 3;
+
+    private static Server httpDownstreamServer;
+    private static DownstreamServerTestConfig httpDownstreamServerConfig;
+    private static Server httpsDownstreamServer;
+    private static DownstreamServerTestConfig httpsDownstreamServerConfig;
+    private static Server prewarmedProxyServer;
+    private static Server coldProxyServer;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        httpDownstreamServerConfig = new DownstreamServerTestConfig(false);
+        httpDownstreamServer = new Server(httpDownstreamServerConfig);
+        httpDownstreamServer.startup();
+
+        httpsDownstreamServerConfig = new DownstreamServerTestConfig(true);
+        httpsDownstreamServer = new Server(httpsDownstreamServerConfig);
+        httpsDownstreamServer.startup();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        if (coldProxyServer != null) {
+            coldProxyServer.shutdown();
+        }
+        if (prewarmedProxyServer != null) {
+            prewarmedProxyServer.shutdown();
+        }
+        httpsDownstreamServer.shutdown();
+        httpDownstreamServer.shutdown();
+    }
+
+    @Test
+    public void prewarming_opens_downstream_connections_at_startup_that_the_first_calls_reuse() throws Exception {
+        // when
+        ProxyServerTestConfig prewarmedProxyServerConfig = new ProxyServerTestConfig(true);
+        prewarmedProxyServer = new Server(prewarmedProxyServerConfig);
+        prewarmedProxyServer.startup();
+
+        // then
+        assertThat(httpDownstreamServerConfig.acceptedConnections.get()).isEqualTo(connectionsPerHost);
+        assertThat(httpsDownstreamServerConfig.acceptedConnections.get()).isEqualTo(connectionsPerHost);
+
+        // and when
+        long prewarmedHttpCallMicros = executeProxiedCall(prewarmedProxyServerConfig, HttpRouterEndpoint.MATCHING_PATH);
+        long prewarmedHttpsCallMicros =
+            executeProxiedCall(prewarmedProxyServerConfig, HttpsRouterEndpoint.MATCHING_PATH);
+
+        // then
+        assertThat(httpDownstreamServerConfig.acceptedConnections.get()).isEqualTo(connectionsPerHost);
+        assertThat(httpsDownstreamServerConfig.acceptedConnections.get()).isEqualTo(connectionsPerHost);
+
+        // and when
+        ProxyServerTestConfig coldProxyServerConfig = new ProxyServerTestConfig(false);
+        coldProxyServer = new Server(coldProxyServerConfig);
+        coldProxyServer.startup();
+
+        long coldHttpCallMicros = executeProxiedCall(coldProxyServerConfig, HttpRouterEndpoint.MATCHING_PATH);
+        long coldHttpsCallMicros = executeProxiedCall(coldProxyServerConfig, HttpsRouterEndpoint.MATCHING_PATH);
+
+        // then
+        assertThat(httpDownstreamServerConfig.acceptedConnections.get()).isEqualTo(connectionsPerHost + 1);
+        assertThat(httpsDownstreamServerConfig.acceptedConnections.get()).isEqualTo(connectionsPerHost + 1);
+
+        logger.info(
+            "Proxy/router connection pre-warming comparison - prewarmed_first_http_call_micros={}, "
+            + "cold_first_http_call_micros={}, prewarmed_first_https_call_micros={}, cold_first_https_call_micros={}",
+            prewarmedHttpCallMicros, coldHttpCallMicros, prewarmedHttpsCallMicros, coldHttpsCallMicros
+        );
+    }
+
+    private static long executeProxiedCall(ProxyServerTestConfig proxyServerConfig, String path) throws Exception {
+        long startNanos = System.nanoTime();
+        NettyHttpClientResponse response = request()
+            .withMethod(HttpMethod.GET)
+            .withUri(path)
+            .execute(proxyServerConfig.endpointsPort(), incompleteCallTimeoutMillis);
+        long elapsedMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+
+        assertThat(response.statusCode).isEqualTo(HttpResponseStatus.OK.code());
+        assertThat(response.payload).isEqualTo(DownstreamEndpoint.RESPONSE_PAYLOAD);
+        return elapsedMicros;
+    }
+
+    private static class DownstreamEndpoint extends StandardEndpoint<Void, String> {
+
+        static final String MATCHING_PATH = "/connectionPrewarming/downstream";
+        static final String RESPONSE_PAYLOAD = "downstream-response";
+
+        @Override
+        public @NotNull CompletableFuture<ResponseInfo<String>> execute(
+            @NotNull RequestInfo<Void> request,
+            @NotNull Executor longRunningTaskExecutor,
+            @NotNull ChannelHandlerContext ctx
+        ) {
+            return CompletableFuture.completedFuture(
+                ResponseInfo.newBuilder(RESPONSE_PAYLOAD).build()
+            );
+        }
+
+        @Override
+        public @NotNull Matcher requestMatcher() {
+            return Matcher.match(MATCHING_PATH);
+        }
+    }
+
+    private static class HttpRouterEndpoint extends SimpleProxyRouterEndpoint {
+
+        static final String MATCHING_PATH = "/connectionPrewarming/http";
+
+        HttpRouterEndpoint(int downstreamPort) {
+            super(Matcher.match(MATCHING_PATH), "127.0.0.1", downstreamPort, DownstreamEndpoint.MATCHING_PATH, false);
+        }
+    }
+
+    private static class HttpsRouterEndpoint extends ProxyRouterEndpoint {
+
+        static final String MATCHING_PATH = "/connectionPrewarming/https";
+        private final int downstreamPort;
+
+        HttpsRouterEndpoint(int downstreamPort) {
+            this.downstreamPort = downstreamPort;
+        }
+
+        @Override
+        public @NotNull CompletableFuture<DownstreamRequestFirstChunkInfo> getDownstreamRequestFirstChunkInfo(
+            @NotNull RequestInfo<?> request,
+            @NotNull Executor longRunningTaskExecutor,
+            @NotNull ChannelHandlerContext ctx
+        ) {
+            return CompletableFuture.completedFuture(
+                new DownstreamRequestFirstChunkInfo(
+                    "127.0.0.1", downstreamPort, true,
+                    generateSimplePassthroughRequest(
+                        request, DownstreamEndpoint.MATCHING_PATH, request.getMethod(), ctx
+                    )
+                ).withRelaxedHttpsValidation(true)
+            );
+        }
+
+        @Override
+        public @NotNull Matcher requestMatcher() {
+            return Matcher.match(MATCHING_PATH);
+        }
+    }
+
+    public static class DownstreamServerTestConfig implements ServerConfig {
+        private final int port;
+        private final boolean useSsl;
+        private final Collection<Endpoint<?>> endpoints = singletonList(new DownstreamEndpoint());
+        final AtomicInteger acceptedConnections = new AtomicInteger();
+
+        public DownstreamServerTestConfig(boolean useSsl) {
+            try {
+                port = findFreePort();
+            } catch (IOException e) {
+                throw new RuntimeException("Couldn't allocate port", e);
+            }
+
+            this.useSsl = useSsl;
+        }
+
+        @Override
+        public @NotNull Collection<@NotNull Endpoint<?>> appEndpoints() {
+            return endpoints;
+        }
+
+        @Override
+        public int endpointsPort() {
+            return port;
+        }
+
+        @Override
+        public int endpointsSslPort() {
+            return port;
+        }
+
+        @Override
+        public boolean isEndpointsUseSsl() {
+            return useSsl;
+        }
+
+        @Override
+        public @Nullable List<@NotNull PipelineCreateHook> pipelineCreateHooks() {
+            // Called once for each connection the server accepts.
+            return singletonList(pipeline -> acceptedConnections.incrementAndGet());
+        }
+    }
+
+    public static class ProxyServerTestConfig implements ServerConfig {
+        private final int port;
+        private final boolean prewarmEnabled;
+        private final Collection<Endpoint<?>> endpoints = Arrays.asList(
+            new HttpRouterEndpoint(httpDownstreamServerConfig.endpointsPort()),
+            new HttpsRouterEndpoint(httpsDownstreamServerConfig.endpointsSslPort())
+        );
+
+        public ProxyServerTestConfig(boolean prewarmEnabled) {
+            try {
+                port = findFreePort();
+            } catch (IOException e) {
+                throw new RuntimeException("Couldn't allocate port", e);
+            }
+
+            this.prewarmEnabled = prewarmEnabled;
+        }
+
+        @Override
+        public @NotNull Collection<@NotNull Endpoint<?>> appEndpoints() {
+            return endpoints;
+        }
+
+        @Override
+        public int endpointsPort() {
+            return port;
+        }
+
+        @Override
+        public @Nullable ProxyRouterConnectionPrewarmConfig proxyRouterConnectionPrewarmConfig() {
+            if (!prewarmEnabled) {
+                return null;
+            }
+
+            return new ProxyRouterConnectionPrewarmConfig() {
+                @Override
+                public @NotNull List<@NotNull Target> targets() {
+                    // The HTTP downstream host is picked up from the SimpleProxyRouterEndpoint.
+                    return singletonList(
+                        new Target("127.0.0.1", httpsDownstreamServerConfig.endpointsSslPort(), true, true)
+                    );
+                }
+
+                @Override
+                public int connectionsPerHost() {
+                    return connectionsPerHost;
+                }
+            };
+        }
+    }
+}
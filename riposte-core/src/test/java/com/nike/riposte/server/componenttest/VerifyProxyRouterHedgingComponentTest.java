@@ -0,0 +1,281 @@
+package com.nike.riposte.server.componenttest;
+
+import com.nike.riposte.client.asynchttp.netty.DownstreamExtraAttemptMetrics;
+import com.nike.riposte.client.asynchttp.netty.DownstreamExtraAttemptMetrics.AttemptType;
+import com.nike.riposte.client.asynchttp.netty.DownstreamExtraAttemptMetrics.Outcome;
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.Server;
+import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.ProxyRouterEndpoint;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.StandardEndpoint;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+import com.nike.riposte.server.testutils.ComponentTestUtils.NettyHttpClientResponse;
+import com.nike.riposte.util.Matcher;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import static com.nike.riposte.server.testutils.ComponentTestUtils.findFreePort;
+import static com.nike.riposte.server.testutils.ComponentTestUtils.request;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Component test verifying that a proxy/router endpoint that opts into hedging (see {@link
+ * ProxyRouterEndpoint.DownstreamRequestFirstChunkInfo#withHedgeDelayMillis(long)}) sends a hedged copy of a request
+ * when the downstream service is slow to respond, and returns the hedge's response without waiting for the slow one.
+ * The downstream service stalls a configurable number of calls. See {@code ProxyRouterHedgingBenchmark} in the
+ * benchmark source set for a latency comparison with and without hedging.
+ */
+public class VerifyProxyRouterHedgingComponentTest {
+
+    private static final long incompleteCallTimeoutMillis = 10_000;
+    static final long stalledCallMillis = 2000;
+    static final long hedgeDelayMillis = 100;
+
+    private static Server downstreamServer;
+    private static DownstreamServerTestConfig downstreamServerConfig;
+    private static Server proxyServer;
+    private static ProxyServerTestConfig proxyServerConfig;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        downstreamServerConfig = new DownstreamServerTestConfig();
+        downstreamServer = new Server(downstreamServerConfig);
+        downstreamServer.startup();
+
+        proxyServerConfig = new ProxyServerTestConfig();
+        proxyServer = new Server(proxyServerConfig);
+        proxyServer.startup();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        proxyServer.shutdown();
+        downstreamServer.shutdown();
+    }
+
+    @Test
+    public void hedged_call_returns_the_hedge_response_instead_of_waiting_on_a_stalled_downstream_call()
+        throws Exception {
+        // given
+        DownstreamEndpoint.callsToStall.set(1);
+        int downstreamCallsBefore = DownstreamEndpoint.callsReceived.get();
+
+        // when
+        executeProxiedCall(HedgedRouterEndpoint.MATCHING_PATH);
+
+        // then
+        assertThat(DownstreamEndpoint.callsReceived.get() - downstreamCallsBefore).isEqualTo(2);
+        assertThat(proxyServerConfig.metricsListener.extraAttempts)
+            .anyMatch(m -> m.attemptType == AttemptType.HEDGE && m.outcome == Outcome.SENT)
+            .anyMatch(m -> m.attemptType == AttemptType.HEDGE && m.outcome == Outcome.WON);
+    }
+
+    static void executeProxiedCall(String path) throws Exception {
+        NettyHttpClientResponse response = request()
+            .withMethod(HttpMethod.GET)
+            .withUri(path)
+            .execute(proxyServerConfig.endpointsPort(), incompleteCallTimeoutMillis);
+
+        assertThat(response.statusCode).isEqualTo(HttpResponseStatus.OK.code());
+        assertThat(response.payload).isEqualTo(DownstreamEndpoint.RESPONSE_PAYLOAD);
+    }
+
+    static class DownstreamEndpoint extends StandardEndpoint<Void, String> {
+
+        static final String MATCHING_PATH = "/hedging/downstream";
+        static final String RESPONSE_PAYLOAD = "downstream-response";
+        static final AtomicInteger callsToStall = new AtomicInteger();
+        static final AtomicInteger callsReceived = new AtomicInteger();
+
+        @Override
+        public @NotNull CompletableFuture<ResponseInfo<String>> execute(
+            @NotNull RequestInfo<Void> request,
+            @NotNull Executor longRunningTaskExecutor,
+            @NotNull ChannelHandlerContext ctx
+        ) {
+            callsReceived.incrementAndGet();
+            if (callsToStall.getAndDecrement() <= 0) {
+                return CompletableFuture.completedFuture(ResponseInfo.newBuilder(RESPONSE_PAYLOAD).build());
+            }
+
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    Thread.sleep(stalledCallMillis);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return ResponseInfo.newBuilder(RESPONSE_PAYLOAD).build();
+            }, longRunningTaskExecutor);
+        }
+
+        @Override
+        public @NotNull Matcher requestMatcher() {
+            return Matcher.match(MATCHING_PATH);
+        }
+    }
+
+    static class HedgedRouterEndpoint extends ProxyRouterEndpoint {
+
+        static final String MATCHING_PATH = "/hedging/hedged";
+        private final int downstreamPort;
+
+        HedgedRouterEndpoint(int downstreamPort) {
+            this.downstreamPort = downstreamPort;
+        }
+
+        @Override
+        public @NotNull CompletableFuture<DownstreamRequestFirstChunkInfo> getDownstreamRequestFirstChunkInfo(
+            @NotNull RequestInfo<?> request,
+            @NotNull Executor longRunningTaskExecutor,
+            @NotNull ChannelHandlerContext ctx
+        ) {
+            return CompletableFuture.completedFuture(
+                new DownstreamRequestFirstChunkInfo(
+                    "127.0.0.1", downstreamPort, false,
+                    generateSimplePassthroughRequest(
+                        request, DownstreamEndpoint.MATCHING_PATH, request.getMethod(), ctx
+                    )
+                ).withHedgeDelayMillis(hedgeDelayMillis)
+            );
+        }
+
+        @Override
+        public @NotNull Matcher requestMatcher() {
+            return Matcher.match(MATCHING_PATH);
+        }
+    }
+
+    static class UnhedgedRouterEndpoint extends ProxyRouterEndpoint {
+
+        static final String MATCHING_PATH = "/hedging/unhedged";
+        private final int downstreamPort;
+
+        UnhedgedRouterEndpoint(int downstreamPort) {
+            this.downstreamPort = downstreamPort;
+        }
+
+        @Override
+        public @NotNull CompletableFuture<DownstreamRequestFirstChunkInfo> getDownstreamRequestFirstChunkInfo(
+            @NotNull RequestInfo<?> request,
+            @NotNull Executor longRunningTaskExecutor,
+            @NotNull ChannelHandlerContext ctx
+        ) {
+            return CompletableFuture.completedFuture(
+                new DownstreamRequestFirstChunkInfo(
+                    "127.0.0.1", downstreamPort, false,
+                    generateSimplePassthroughRequest(
+                        request, DownstreamEndpoint.MATCHING_PATH, request.getMethod(), ctx
+                    )
+                )
+            );
+        }
+
+        @Override
+        public @NotNull Matcher requestMatcher() {
+            return Matcher.match(MATCHING_PATH);
+        }
+    }
+
+    private static class ExtraAttemptRecordingMetricsListener implements MetricsListener {
+        final List<DownstreamExtraAttemptMetrics> extraAttempts = new CopyOnWriteArrayList<>();
+
+        @Override
+        public boolean isInterestedIn(@NotNull ServerMetricsEvent event) {
+            return event == ServerMetricsEvent.PROXY_ROUTER_DOWNSTREAM_EXTRA_ATTEMPT;
+        }
+
+        @Override
+        public void onEvent(@NotNull ServerMetricsEvent event, @Nullable Object value) {
+            if (event == ServerMetricsEvent.PROXY_ROUTER_DOWNSTREAM_EXTRA_ATTEMPT) {
+                extraAttempts.add((DownstreamExtraAttemptMetrics) value);
+            }
+        }
+    }
+
+    public static class DownstreamServerTestConfig implements ServerConfig {
+        private final int port;
+        private final Collection<Endpoint<?>> endpoints = singletonList(new DownstreamEndpoint());
+
+        public DownstreamServerTestConfig() {
+            try {
+                port = findFreePort();
+            } catch (IOException e) {
+                throw new RuntimeException("Couldn't allocate port", e);
+            }
+        }
+
+        @Override
+        public @NotNull Collection<@NotNull Endpoint<?>> appEndpoints() {
+            return endpoints;
+        }
+
+        @Override
+        public int endpointsPort() {
+            return port;
+        }
+    }
+
+    public static class ProxyServerTestConfig implements ServerConfig {
+        private final int port;
+        private final Collection<Endpoint<?>> endpoints = Arrays.asList(
+            new HedgedRouterEndpoint(downstreamServerConfig.endpointsPort()),
+            new UnhedgedRouterEndpoint(downstreamServerConfig.endpointsPort())
+        );
+        final ExtraAttemptRecordingMetricsListener metricsListener = new ExtraAttemptRecordingMetricsListener();
+
+        public ProxyServerTestConfig() {
+            try {
+                port = findFreePort();
+            } catch (IOException e) {
+                throw new RuntimeException("Couldn't allocate port", e);
+            }
+        }
+
+        @Override
+        public @NotNull Collection<@NotNull Endpoint<?>> appEndpoints() {
+            return endpoints;
+        }
+
+        @Override
+        public int endpointsPort() {
+            return port;
+        }
+
+        @Override
+        public @Nullable MetricsListener metricsListener() {
+            return metricsListener;
+        }
+
+        @Override
+        public @Nullable ProxyRouterRetryBudgetConfig proxyRouterRetryBudgetConfig() {
+            return new ProxyRouterRetryBudgetConfig() {
+                @Override
+                public double maxHedgedAttemptsPercent() {
+                    return 100;
+                }
+            };
+        }
+    }
+}
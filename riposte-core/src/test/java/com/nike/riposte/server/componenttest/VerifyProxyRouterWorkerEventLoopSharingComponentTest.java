@@ -0,0 +1,238 @@
+package com.nike.riposte.server.componenttest;
+
+import com.nike.riposte.server.Server;
+import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.StandardEndpoint;
+import com.nike.riposte.server.http.impl.SimpleProxyRouterEndpoint;
+import com.nike.riposte.server.testutils.ComponentTestUtils.NettyHttpClientResponse;
+import com.nike.riposte.util.Matcher;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import static com.nike.riposte.server.testutils.ComponentTestUtils.findFreePort;
+import static com.nike.riposte.server.testutils.ComponentTestUtils.request;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Component test verifying that {@link ServerConfig#isProxyRouterWorkerEventLoopSharingEnabled()} makes proxy/router
+ * downstream calls run on the worker thread that handles the incoming request, without changing the response the
+ * caller receives. A local downstream server stands in for the backend. See {@code
+ * ProxyRouterWorkerEventLoopSharingBenchmark} in the benchmark source set for a throughput and latency comparison.
+ */
+public class VerifyProxyRouterWorkerEventLoopSharingComponentTest {
+
+    private static final long incompleteCallTimeoutMillis = 10_000;
+    private static final int numCalls = 10;
+
+    private static Server downstreamServer;
+    private static ServerConfig downstreamServerConfig;
+    private static Server separateEventLoopsProxyServer;
+    static ProxyServerTestConfig separateEventLoopsProxyServerConfig;
+    private static Server sharedEventLoopsProxyServer;
+    static ProxyServerTestConfig sharedEventLoopsProxyServerConfig;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        downstreamServerConfig = new DownstreamServerTestConfig();
+        downstreamServer = new Server(downstreamServerConfig);
+        downstreamServer.startup();
+
+        separateEventLoopsProxyServerConfig = new ProxyServerTestConfig(false);
+        separateEventLoopsProxyServer = new Server(separateEventLoopsProxyServerConfig);
+        separateEventLoopsProxyServer.startup();
+
+        sharedEventLoopsProxyServerConfig = new ProxyServerTestConfig(true);
+        sharedEventLoopsProxyServer = new Server(sharedEventLoopsProxyServerConfig);
+        sharedEventLoopsProxyServer.startup();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        sharedEventLoopsProxyServer.shutdown();
+        separateEventLoopsProxyServer.shutdown();
+        downstreamServer.shutdown();
+    }
+
+    @Test
+    public void worker_event_loop_sharing_runs_downstream_calls_on_the_incoming_requests_worker_thread()
+        throws Exception {
+        // when
+        ThreadStats separateEventLoops = executeProxiedCalls(separateEventLoopsProxyServerConfig);
+        ThreadStats sharedEventLoops = executeProxiedCalls(sharedEventLoopsProxyServerConfig);
+
+        // then
+        assertThat(separateEventLoops.sameThreadResponses).isEqualTo(0);
+        assertThat(separateEventLoops.differentThreadResponses).isEqualTo(numCalls);
+        assertThat(sharedEventLoops.sameThreadResponses).isEqualTo(numCalls);
+        assertThat(sharedEventLoops.differentThreadResponses).isEqualTo(0);
+    }
+
+    private static ThreadStats executeProxiedCalls(ProxyServerTestConfig proxyServerConfig) throws Exception {
+        RouterEndpointRecordingThreads proxyEndpoint = proxyServerConfig.proxyEndpoint;
+        proxyEndpoint.sameThreadResponses.set(0);
+        proxyEndpoint.differentThreadResponses.set(0);
+
+        for (int call = 0; call < numCalls; call++) {
+            NettyHttpClientResponse response = executeProxiedCall(proxyServerConfig);
+
+            assertThat(response.statusCode).isEqualTo(HttpResponseStatus.OK.code());
+            assertThat(response.payload).isEqualTo(DownstreamEndpoint.RESPONSE_PAYLOAD);
+        }
+
+        return new ThreadStats(
+            proxyEndpoint.sameThreadResponses.get(), proxyEndpoint.differentThreadResponses.get()
+        );
+    }
+
+    static NettyHttpClientResponse executeProxiedCall(ProxyServerTestConfig proxyServerConfig) throws Exception {
+        return request()
+            .withMethod(HttpMethod.GET)
+            .withUri(RouterEndpointRecordingThreads.MATCHING_PATH)
+            .execute(proxyServerConfig.endpointsPort(), incompleteCallTimeoutMillis);
+    }
+
+    private static class ThreadStats {
+        final long sameThreadResponses;
+        final long differentThreadResponses;
+
+        ThreadStats(long sameThreadResponses, long differentThreadResponses) {
+            this.sameThreadResponses = sameThreadResponses;
+            this.differentThreadResponses = differentThreadResponses;
+        }
+    }
+
+    static class DownstreamEndpoint extends StandardEndpoint<Void, String> {
+
+        static final String MATCHING_PATH = "/workerEventLoopSharing/downstream";
+        static final String RESPONSE_PAYLOAD = "downstream-response";
+
+        @Override
+        public @NotNull CompletableFuture<ResponseInfo<String>> execute(
+            @NotNull RequestInfo<Void> request,
+            @NotNull Executor longRunningTaskExecutor,
+            @NotNull ChannelHandlerContext ctx
+        ) {
+            return CompletableFuture.completedFuture(
+                ResponseInfo.newBuilder(RESPONSE_PAYLOAD).build()
+            );
+        }
+
+        @Override
+        public @NotNull Matcher requestMatcher() {
+            return Matcher.match(MATCHING_PATH);
+        }
+    }
+
+    /**
+     * Records whether the downstream response arrives on the same thread that handled the incoming request.
+     */
+    private static class RouterEndpointRecordingThreads extends SimpleProxyRouterEndpoint {
+
+        static final String MATCHING_PATH = "/workerEventLoopSharing/proxy";
+        static final String INCOMING_REQUEST_THREAD_ATTR_KEY = "incomingRequestThread";
+
+        final AtomicLong sameThreadResponses = new AtomicLong();
+        final AtomicLong differentThreadResponses = new AtomicLong();
+
+        RouterEndpointRecordingThreads(int downstreamPort) {
+            super(Matcher.match(MATCHING_PATH), "127.0.0.1", downstreamPort, DownstreamEndpoint.MATCHING_PATH, false);
+        }
+
+        @Override
+        public @NotNull CompletableFuture<DownstreamRequestFirstChunkInfo> getDownstreamRequestFirstChunkInfo(
+            @NotNull RequestInfo<?> request, @NotNull Executor longRunningTaskExecutor,
+            @NotNull ChannelHandlerContext ctx
+        ) {
+            request.addRequestAttribute(INCOMING_REQUEST_THREAD_ATTR_KEY, Thread.currentThread());
+            return super.getDownstreamRequestFirstChunkInfo(request, longRunningTaskExecutor, ctx);
+        }
+
+        @Override
+        public void handleDownstreamResponseFirstChunk(
+            @NotNull HttpResponse downstreamResponseFirstChunk, @NotNull RequestInfo<?> origRequestInfo
+        ) {
+            Object incomingRequestThread = origRequestInfo.getRequestAttributes().get(INCOMING_REQUEST_THREAD_ATTR_KEY);
+            if (incomingRequestThread == Thread.currentThread()) {
+                sameThreadResponses.incrementAndGet();
+            }
+            else {
+                differentThreadResponses.incrementAndGet();
+            }
+        }
+    }
+
+    public static class DownstreamServerTestConfig implements ServerConfig {
+        private final int port;
+        private final Collection<Endpoint<?>> endpoints = singletonList(new DownstreamEndpoint());
+
+        public DownstreamServerTestConfig() {
+            try {
+                port = findFreePort();
+            } catch (IOException e) {
+                throw new RuntimeException("Couldn't allocate port", e);
+            }
+        }
+
+        @Override
+        public @NotNull Collection<@NotNull Endpoint<?>> appEndpoints() {
+            return endpoints;
+        }
+
+        @Override
+        public int endpointsPort() {
+            return port;
+        }
+    }
+
+    public static class ProxyServerTestConfig implements ServerConfig {
+        private final int port;
+        private final boolean workerEventLoopSharingEnabled;
+        final RouterEndpointRecordingThreads proxyEndpoint;
+        private final Collection<Endpoint<?>> endpoints;
+
+        public ProxyServerTestConfig(boolean workerEventLoopSharingEnabled) {
+            try {
+                port = findFreePort();
+            } catch (IOException e) {
+                throw new RuntimeException("Couldn't allocate port", e);
+            }
+
+            this.workerEventLoopSharingEnabled = workerEventLoopSharingEnabled;
+            proxyEndpoint = new RouterEndpointRecordingThreads(downstreamServerConfig.endpointsPort());
+            endpoints = singletonList(proxyEndpoint);
+        }
+
+        @Override
+        public @NotNull Collection<@NotNull Endpoint<?>> appEndpoints() {
+            return endpoints;
+        }
+
+        @Override
+        public int endpointsPort() {
+            return port;
+        }
+
+        @Override
+        public boolean isProxyRouterWorkerEventLoopSharingEnabled() {
+            return workerEventLoopSharingEnabled;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.nike.riposte.server.componenttest;
+
+import com.nike.riposte.server.Server;
+import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.sse.ServerSentEvent;
+import com.nike.riposte.server.http.sse.ServerSentEventBroadcaster;
+import com.nike.riposte.server.http.sse.ServerSentEventBroadcaster.SlowSubscriberPolicy;
+import com.nike.riposte.server.http.sse.ServerSentEventEndpoint;
+import com.nike.riposte.server.http.sse.ServerSentEventStream;
+import com.nike.riposte.server.testutils.ComponentTestUtils;
+import com.nike.riposte.server.testutils.ComponentTestUtils.NettyHttpClientResponse;
+import com.nike.riposte.util.Matcher;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.Executor;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import static com.nike.riposte.server.testutils.ComponentTestUtils.request;
+import static io.netty.handler.codec.http.HttpHeaderNames.ACCEPT_ENCODING;
+import static io.netty.handler.codec.http.HttpHeaderNames.CACHE_CONTROL;
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_ENCODING;
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
+import static io.netty.handler.codec.http.HttpHeaderNames.TRANSFER_ENCODING;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Component test verifying that {@link ServerSentEventEndpoint}s stream correctly framed events to the caller.
+ */
+public class VerifyServerSentEventEndpointComponentTest {
+
+    private static Server server;
+    private static ServerConfig serverConfig;
+    private static final long incompleteCallTimeoutMillis = 5000;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        serverConfig = new ServerSentEventTestServerConfig();
+        server = new Server(serverConfig);
+        server.startup();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void sse_endpoint_streams_framed_events_with_event_stream_headers() throws Exception {
+        // when
+        NettyHttpClientResponse response = request()
+            .withMethod(HttpMethod.GET)
+            .withUri(FiniteEventStreamEndpoint.MATCHING_PATH)
+            .withHeader(ACCEPT_ENCODING, "gzip")
+            .withHeader(ServerSentEventEndpoint.LAST_EVENT_ID_HEADER_NAME, "41")
+            .execute(serverConfig.endpointsPort(), incompleteCallTimeoutMillis);
+
+        // then
+        assertThat(response.statusCode).isEqualTo(HttpResponseStatus.OK.code());
+        assertThat(response.headers.get(CONTENT_TYPE)).startsWith(ServerSentEventEndpoint.TEXT_EVENT_STREAM_MIME_TYPE);
+        assertThat(response.headers.get(CACHE_CONTROL)).isEqualTo("no-cache");
+        assertThat(response.headers.get(TRANSFER_ENCODING)).isEqualToIgnoringCase("chunked");
+        assertThat(response.headers.get(CONTENT_ENCODING)).isNull();
+        assertThat(response.payload).isEqualTo(
+            "retry: 5000\n\n"
+            + "id: 42\nevent: greeting\ndata: hello\n\n"
+            + "id: 43\ndata: multi\ndata: line\n\n"
+        );
+    }
+
+    private static class FiniteEventStreamEndpoint extends ServerSentEventEndpoint<Void> {
+
+        static final String MATCHING_PATH = "/sse/finite";
+
+        private final ServerSentEventBroadcaster broadcaster =
+            new ServerSentEventBroadcaster(SlowSubscriberPolicy.COALESCE);
+
+        @Override
+        public void onStreamOpened(
+            @NotNull RequestInfo<Void> request,
+            @NotNull ServerSentEventStream stream,
+            @NotNull Executor longRunningTaskExecutor,
+            @NotNull ChannelHandlerContext ctx
+        ) {
+            long lastEventId = Long.parseLong(stream.getLastEventId());
+            stream.send(ServerSentEvent.newBuilder().withRetryMillis(5000L).build());
+            broadcaster.subscribe(stream);
+            longRunningTaskExecutor.execute(() -> {
+                broadcaster.broadcast(
+                    ServerSentEvent.newBuilder()
+                                   .withId(String.valueOf(lastEventId + 1))
+                                   .withEvent("greeting")
+                                   .withData("hello")
+                                   .build()
+                );
+                stream.send(
+                    ServerSentEvent.newBuilder().withId(String.valueOf(lastEventId + 2)).withData("multi\nline").build()
+                );
+                stream.close();
+            });
+        }
+
+        @Override
+        public @NotNull Matcher requestMatcher() {
+            return Matcher.match(MATCHING_PATH);
+        }
+    }
+
+    public static class ServerSentEventTestServerConfig implements ServerConfig {
+        private final Collection<Endpoint<?>> endpoints = Collections.singleton(new FiniteEventStreamEndpoint());
+
+        private final int port;
+
+        public ServerSentEventTestServerConfig() {
+            try {
+                port = ComponentTestUtils.findFreePort();
+            } catch (IOException e) {
+                throw new RuntimeException("Couldn't allocate port", e);
+            }
+        }
+
+        @Override
+        public @NotNull Collection<@NotNull Endpoint<?>> appEndpoints() {
+            return endpoints;
+        }
+
+        @Override
+        public int endpointsPort() {
+            return port;
+        }
+    }
+}
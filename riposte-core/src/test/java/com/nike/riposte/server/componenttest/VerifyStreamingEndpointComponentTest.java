@@ -0,0 +1,220 @@
+package com.nike.riposte.server.componenttest;
+
+import com.nike.riposte.server.Server;
+import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.http.ChunkedResponseWriter;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.StreamingEndpoint;
+import com.nike.riposte.server.http.impl.ChunkedResponseInfo;
+import com.nike.riposte.server.testutils.ComponentTestUtils;
+import com.nike.riposte.server.testutils.ComponentTestUtils.NettyHttpClientResponse;
+import com.nike.riposte.util.Matcher;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import static com.nike.riposte.server.testutils.ComponentTestUtils.request;
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
+import static io.netty.handler.codec.http.HttpHeaderNames.TRANSFER_ENCODING;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Component test verifying that {@link StreamingEndpoint}s can stream chunked responses back to the caller.
+ */
+public class VerifyStreamingEndpointComponentTest {
+
+    private static Server server;
+    private static ServerConfig serverConfig;
+    private static final long incompleteCallTimeoutMillis = 5000;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        serverConfig = new StreamingEndpointTestServerConfig();
+        server = new Server(serverConfig);
+        server.startup();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void streaming_endpoint_response_is_chunked_and_contains_all_written_chunks() throws Exception {
+        // when
+        NettyHttpClientResponse response = request()
+            .withMethod(HttpMethod.GET)
+            .withUri(ManyChunksEndpoint.MATCHING_PATH)
+            .execute(serverConfig.endpointsPort(), incompleteCallTimeoutMillis);
+
+        // then
+        assertThat(response.statusCode).isEqualTo(HttpResponseStatus.OK.code());
+        assertThat(response.headers.get(TRANSFER_ENCODING)).isEqualToIgnoringCase("chunked");
+        assertThat(response.headers.get(CONTENT_TYPE)).startsWith("text/plain");
+        assertThat(response.payload).isEqualTo(ManyChunksEndpoint.expectedPayload());
+    }
+
+    @Test
+    public void streaming_endpoint_can_write_chunks_before_returning_response_info() throws Exception {
+        // when
+        NettyHttpClientResponse response = request()
+            .withMethod(HttpMethod.GET)
+            .withUri(EagerWriterEndpoint.MATCHING_PATH)
+            .execute(serverConfig.endpointsPort(), incompleteCallTimeoutMillis);
+
+        // then
+        assertThat(response.statusCode).isEqualTo(HttpResponseStatus.CREATED.code());
+        assertThat(response.payload).isEqualTo("written-before-headers|written-after-headers");
+    }
+
+    @Test
+    public void streaming_endpoint_error_before_headers_results_in_error_response() throws Exception {
+        // when
+        NettyHttpClientResponse response = request()
+            .withMethod(HttpMethod.GET)
+            .withUri(FailingEndpoint.MATCHING_PATH)
+            .execute(serverConfig.endpointsPort(), incompleteCallTimeoutMillis);
+
+        // then
+        assertThat(response.statusCode).isEqualTo(HttpResponseStatus.INTERNAL_SERVER_ERROR.code());
+    }
+
+    private static class ManyChunksEndpoint extends StreamingEndpoint<Void> {
+
+        static final String MATCHING_PATH = "/streaming/manyChunks";
+        static final int NUM_CHUNKS = 500;
+
+        static String expectedPayload() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < NUM_CHUNKS; i++) {
+                sb.append("chunk-").append(i).append('\n');
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public @NotNull CompletableFuture<ChunkedResponseInfo> execute(
+            @NotNull RequestInfo<Void> request,
+            @NotNull ChunkedResponseWriter responseWriter,
+            @NotNull Executor longRunningTaskExecutor,
+            @NotNull ChannelHandlerContext ctx
+        ) {
+            longRunningTaskExecutor.execute(() -> produce(responseWriter, 0));
+            return CompletableFuture.completedFuture(
+                ResponseInfo.newChunkedResponseBuilder().withDesiredContentWriterMimeType("text/plain").build()
+            );
+        }
+
+        private void produce(ChunkedResponseWriter writer, int nextChunk) {
+            int chunk = nextChunk;
+            while (chunk < NUM_CHUNKS && writer.isWritable()) {
+                writer.writeChunk("chunk-" + chunk + "\n", StandardCharsets.UTF_8);
+                chunk++;
+            }
+
+            if (chunk >= NUM_CHUNKS) {
+                writer.finish();
+            }
+            else if (!writer.isDone()) {
+                int resumeAt = chunk;
+                writer.whenWritable().thenRun(() -> produce(writer, resumeAt));
+            }
+        }
+
+        @Override
+        public @NotNull Matcher requestMatcher() {
+            return Matcher.match(MATCHING_PATH);
+        }
+    }
+
+    private static class EagerWriterEndpoint extends StreamingEndpoint<Void> {
+
+        static final String MATCHING_PATH = "/streaming/eagerWriter";
+
+        @Override
+        public @NotNull CompletableFuture<ChunkedResponseInfo> execute(
+            @NotNull RequestInfo<Void> request,
+            @NotNull ChunkedResponseWriter responseWriter,
+            @NotNull Executor longRunningTaskExecutor,
+            @NotNull ChannelHandlerContext ctx
+        ) {
+            responseWriter.writeChunk("written-before-headers", StandardCharsets.UTF_8);
+            return CompletableFuture.supplyAsync(() -> {
+                ChunkedResponseInfo responseInfo = ResponseInfo.newChunkedResponseBuilder()
+                                                               .withHttpStatusCode(201)
+                                                               .build();
+                responseWriter.writeChunk("|written-after-headers", StandardCharsets.UTF_8);
+                responseWriter.finish();
+                return responseInfo;
+            }, longRunningTaskExecutor);
+        }
+
+        @Override
+        public @NotNull Matcher requestMatcher() {
+            return Matcher.match(MATCHING_PATH);
+        }
+    }
+
+    private static class FailingEndpoint extends StreamingEndpoint<Void> {
+
+        static final String MATCHING_PATH = "/streaming/failing";
+
+        @Override
+        public @NotNull CompletableFuture<ChunkedResponseInfo> execute(
+            @NotNull RequestInfo<Void> request,
+            @NotNull ChunkedResponseWriter responseWriter,
+            @NotNull Executor longRunningTaskExecutor,
+            @NotNull ChannelHandlerContext ctx
+        ) {
+            CompletableFuture<ChunkedResponseInfo> result = new CompletableFuture<>();
+            result.completeExceptionally(new RuntimeException("intentional test exception"));
+            return result;
+        }
+
+        @Override
+        public @NotNull Matcher requestMatcher() {
+            return Matcher.match(MATCHING_PATH);
+        }
+    }
+
+    public static class StreamingEndpointTestServerConfig implements ServerConfig {
+        private final Collection<Endpoint<?>> endpoints = Arrays.asList(
+            new ManyChunksEndpoint(), new EagerWriterEndpoint(), new FailingEndpoint()
+        );
+
+        private final int port;
+
+        public StreamingEndpointTestServerConfig() {
+            try {
+                port = ComponentTestUtils.findFreePort();
+            } catch (IOException e) {
+                throw new RuntimeException("Couldn't allocate port", e);
+            }
+        }
+
+        @Override
+        public @NotNull Collection<@NotNull Endpoint<?>> appEndpoints() {
+            return endpoints;
+        }
+
+        @Override
+        public int endpointsPort() {
+            return port;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.nike.riposte.server.componenttest;
+
+import com.nike.riposte.server.Server;
+import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.websocket.WebSocketBroadcastGroup;
+import com.nike.riposte.server.http.websocket.WebSocketEndpoint;
+import com.nike.riposte.server.http.websocket.WebSocketSession;
+import com.nike.riposte.server.testutils.ComponentTestUtils;
+import com.nike.riposte.server.testutils.ComponentTestUtils.NettyHttpClientResponse;
+import com.nike.riposte.util.Matcher;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketClientHandshakerFactory;
+import io.netty.handler.codec.http.websocketx.WebSocketClientProtocolHandler;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketVersion;
+import io.netty.handler.codec.http.websocketx.extensions.compression.WebSocketClientCompressionHandler;
+
+import static com.nike.riposte.server.testutils.ComponentTestUtils.request;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Component test verifying that {@link WebSocketEndpoint}s can accept WebSocket connections, exchange frames, and
+ * broadcast to many connections.
+ */
+public class VerifyWebSocketEndpointComponentTest {
+
+    private static Server server;
+    private static ServerConfig serverConfig;
+    private static EventLoopGroup clientEventLoopGroup;
+    private static final long timeoutMillis = 5000;
+
+    private final List<Channel> clientChannels = new ArrayList<>();
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        serverConfig = new WebSocketTestServerConfig();
+        server = new Server(serverConfig);
+        server.startup();
+        clientEventLoopGroup = new NioEventLoopGroup(1);
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        clientEventLoopGroup.shutdownGracefully();
+        server.shutdown();
+    }
+
+    @After
+    public void afterMethod() {
+        clientChannels.forEach(Channel::close);
+    }
+
+    private static class TestWebSocketClient {
+        final Channel channel;
+        final BlockingQueue<String> receivedMessages;
+
+        TestWebSocketClient(Channel channel, BlockingQueue<String> receivedMessages) {
+            this.channel = channel;
+            this.receivedMessages = receivedMessages;
+        }
+
+        String nextMessage() throws InterruptedException {
+            return receivedMessages.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        void send(String text) {
+            channel.writeAndFlush(new TextWebSocketFrame(text));
+        }
+    }
+
+    private TestWebSocketClient connect(String path, boolean usePerMessageDeflate) throws Exception {
+        URI uri = URI.create("ws://localhost:" + serverConfig.endpointsPort() + path);
+        BlockingQueue<String> receivedMessages = new LinkedBlockingQueue<>();
+        CompletableFuture<Void> handshakeCompleted = new CompletableFuture<>();
+
+        Bootstrap bootstrap = new Bootstrap()
+            .group(clientEventLoopGroup)
+            .channel(NioSocketChannel.class)
+            .handler(new ChannelInitializer<SocketChannel>() {
+                @Override
+                protected void initChannel(SocketChannel ch) {
+                    ChannelPipeline p = ch.pipeline();
+                    p.addLast(new HttpClientCodec());
+                    p.addLast(new HttpObjectAggregator(8192));
+                    if (usePerMessageDeflate) {
+                        p.addLast(WebSocketClientCompressionHandler.INSTANCE);
+                    }
+                    p.addLast(new WebSocketClientProtocolHandler(
+                        WebSocketClientHandshakerFactory.newHandshaker(
+                            uri, WebSocketVersion.V13, null, usePerMessageDeflate, new DefaultHttpHeaders()
+                        )
+                    ));
+                    p.addLast(new SimpleChannelInboundHandler<TextWebSocketFrame>() {
+                        @Override
+                        protected void channelRead0(ChannelHandlerContext ctx, TextWebSocketFrame msg) {
+                            receivedMessages.add(msg.text());
+                        }
+
+                        @Override
+                        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+                            if (evt == WebSocketClientProtocolHandler.ClientHandshakeStateEvent.HANDSHAKE_COMPLETE) {
+                                handshakeCompleted.complete(null);
+                            }
+                            super.userEventTriggered(ctx, evt);
+                        }
+                    });
+                }
+            });
+
+        Channel channel = bootstrap.connect("localhost", serverConfig.endpointsPort()).sync().channel();
+        clientChannels.add(channel);
+        handshakeCompleted.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        return new TestWebSocketClient(channel, receivedMessages);
+    }
+
+    @Test
+    public void websocket_endpoint_accepts_connection_and_echoes_messages() throws Exception {
+        // given
+        TestWebSocketClient client = connect(EchoWebSocketEndpoint.MATCHING_PATH, false);
+
+        // then
+        assertThat(client.nextMessage()).isEqualTo("welcome");
+
+        // and when
+        client.send("hello");
+
+        // then
+        assertThat(client.nextMessage()).isEqualTo("echo:hello");
+    }
+
+    @Test
+    public void websocket_endpoint_supports_per_message_deflate() throws Exception {
+        // given
+        TestWebSocketClient client = connect(DeflateWebSocketEndpoint.MATCHING_PATH, true);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            sb.append("compressible-");
+        }
+        String largeMessage = sb.toString();
+
+        // when
+        client.send(largeMessage);
+
+        // then
+        assertThat(client.nextMessage()).isEqualTo("welcome");
+        assertThat(client.nextMessage()).isEqualTo("echo:" + largeMessage);
+    }
+
+    @Test
+    public void websocket_broadcast_reaches_all_connected_clients() throws Exception {
+        // given
+        TestWebSocketClient first = connect(EchoWebSocketEndpoint.MATCHING_PATH, false);
+        TestWebSocketClient second = connect(EchoWebSocketEndpoint.MATCHING_PATH, false);
+        assertThat(first.nextMessage()).isEqualTo("welcome");
+        assertThat(second.nextMessage()).isEqualTo("welcome");
+
+        // when
+        first.send("broadcast:to-everyone");
+
+        // then
+        assertThat(first.nextMessage()).isEqualTo("to-everyone");
+        assertThat(second.nextMessage()).isEqualTo("to-everyone");
+    }
+
+    @Test
+    public void websocket_endpoint_rejects_non_upgrade_requests_with_400() throws Exception {
+        // when
+        NettyHttpClientResponse response = request()
+            .withMethod(HttpMethod.GET)
+            .withUri(EchoWebSocketEndpoint.MATCHING_PATH)
+            .execute(serverConfig.endpointsPort(), timeoutMillis);
+
+        // then
+        assertThat(response.statusCode).isEqualTo(HttpResponseStatus.BAD_REQUEST.code());
+    }
+
+    private static class EchoWebSocketEndpoint extends WebSocketEndpoint {
+
+        static final String MATCHING_PATH = "/websocket/echo";
+
+        private final WebSocketBroadcastGroup broadcastGroup = new WebSocketBroadcastGroup();
+
+        @Override
+        public void onOpen(@NotNull WebSocketSession session, @NotNull RequestInfo<Void> upgradeRequest) {
+            broadcastGroup.add(session);
+            session.send("welcome");
+        }
+
+        @Override
+        public void onMessage(@NotNull WebSocketSession session, @NotNull WebSocketFrame frame) {
+            String text = ((TextWebSocketFrame) frame).text();
+            if (text.startsWith("broadcast:")) {
+                broadcastGroup.broadcastText(text.substring("broadcast:".length()));
+            }
+            else {
+                session.send("echo:" + text);
+            }
+        }
+
+        @Override
+        public @NotNull Matcher requestMatcher() {
+            return Matcher.match(MATCHING_PATH, HttpMethod.GET);
+        }
+    }
+
+    private static class DeflateWebSocketEndpoint extends EchoWebSocketEndpoint {
+
+        static final String MATCHING_PATH = "/websocket/deflate";
+
+        @Override
+        public boolean isPerMessageDeflateEnabled() {
+            return true;
+        }
+
+        @Override
+        public @NotNull Matcher requestMatcher() {
+            return Matcher.match(MATCHING_PATH, HttpMethod.GET);
+        }
+    }
+
+    public static class WebSocketTestServerConfig implements ServerConfig {
+        private final Collection<Endpoint<?>> endpoints = Arrays.asList(
+            new EchoWebSocketEndpoint(), new DeflateWebSocketEndpoint()
+        );
+
+        private final int port;
+
+        public WebSocketTestServerConfig() {
+            try {
+                port = ComponentTestUtils.findFreePort();
+            } catch (IOException e) {
+                throw new RuntimeException("Couldn't allocate port", e);
+            }
+        }
+
+        @Override
+        public @NotNull Collection<@NotNull Endpoint<?>> appEndpoints() {
+            return endpoints;
+        }
+
+        @Override
+        public int endpointsPort() {
+            return port;
+        }
+    }
+}
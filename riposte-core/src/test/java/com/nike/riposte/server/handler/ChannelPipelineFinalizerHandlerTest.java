@@ -3,9 +3,13 @@ package com.nike.riposte.server.handler;
 import com.nike.riposte.metrics.MetricsListener;
 import com.nike.riposte.server.channelpipeline.ChannelAttributes;
 import com.nike.riposte.server.channelpipeline.message.LastOutboundMessage;
+import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
 import com.nike.riposte.server.error.handler.ErrorResponseBody;
 import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.handler.concurrencylimit.AdaptiveConcurrencyLimiter;
+import com.nike.riposte.server.handler.loadshedding.PriorityLoadShedder;
 import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.NonblockingEndpoint;
 import com.nike.riposte.server.http.ProxyRouterProcessingState;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseInfo;
@@ -30,6 +34,8 @@ import org.slf4j.Logger;
 import java.util.Deque;
 import java.util.LinkedList;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
@@ -75,6 +81,8 @@ public class ChannelPipelineFinalizerHandlerTest {
     private ChannelPipeline pipelineMock;
     private Attribute<HttpProcessingState> stateAttributeMock;
     private Attribute<ProxyRouterProcessingState> proxyRouterProcessingStateAttributeMock;
+    private Attribute<AdaptiveConcurrencyLimiter.Permit> concurrencyLimitPermitAttributeMock;
+    private Attribute<PriorityLoadShedder> loadSheddingAdmittedRequestAttributeMock;
     private HttpProcessingState state;
     private ProxyRouterProcessingState proxyRouterStateMock;
     private RequestInfo<?> requestInfoMock;
@@ -94,6 +102,8 @@ public class ChannelPipelineFinalizerHandlerTest {
         pipelineMock = mock(ChannelPipeline.class);
         stateAttributeMock = mock(Attribute.class);
         proxyRouterProcessingStateAttributeMock = mock(Attribute.class);
+        concurrencyLimitPermitAttributeMock = mock(Attribute.class);
+        loadSheddingAdmittedRequestAttributeMock = mock(Attribute.class);
         state = new HttpProcessingState();
         proxyRouterStateMock = mock(ProxyRouterProcessingState.class);
         responseInfoMock = mock(ResponseInfo.class);
@@ -105,6 +115,8 @@ public class ChannelPipelineFinalizerHandlerTest {
         doReturn(state).when(stateAttributeMock).get();
         doReturn(proxyRouterStateMock).when(proxyRouterProcessingStateAttributeMock).get();
         doReturn(proxyRouterProcessingStateAttributeMock).when(channelMock).attr(ChannelAttributes.PROXY_ROUTER_PROCESSING_STATE_ATTRIBUTE_KEY);
+        doReturn(concurrencyLimitPermitAttributeMock).when(channelMock).attr(ConcurrencyLimitHandler.CONCURRENCY_LIMIT_PERMIT_ATTRIBUTE_KEY);
+        doReturn(loadSheddingAdmittedRequestAttributeMock).when(channelMock).attr(LoadSheddingHandler.LOAD_SHEDDING_ADMITTED_REQUEST_ATTRIBUTE_KEY);
         doReturn(requestInfoMock).when(exceptionHandlingHandlerMock).getRequestInfo(any(), any());
         doReturn(true).when(responseInfoMock).isResponseSendingStarted();
         doReturn(true).when(responseInfoMock).isResponseSendingLastChunkSent();
@@ -633,6 +645,134 @@ public class ChannelPipelineFinalizerHandlerTest {
         Assertions.assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
     }
     
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void finalizeChannelPipeline_releases_concurrency_limit_permit_and_only_records_sample_if_there_was_no_error(
+        boolean errorOccurred
+    ) throws Exception {
+        // given
+        AdaptiveConcurrencyLimiter.Permit permitMock = mock(AdaptiveConcurrencyLimiter.Permit.class);
+        doReturn(permitMock).when(concurrencyLimitPermitAttributeMock).getAndSet(null);
+        state.setResponseWriterFinalChunkChannelFuture(mock(ChannelFuture.class));
+        Throwable cause = (errorOccurred) ? new RuntimeException("kaboom") : null;
+
+        // when
+        handler.finalizeChannelPipeline(ctxMock, null, state, cause);
+
+        // then
+        verify(permitMock).release(!errorOccurred);
+    }
+
+    @Test
+    public void doChannelInactive_releases_concurrency_limit_permit_without_recording_sample() throws Exception {
+        // given
+        AdaptiveConcurrencyLimiter.Permit permitMock = mock(AdaptiveConcurrencyLimiter.Permit.class);
+        doReturn(permitMock).when(concurrencyLimitPermitAttributeMock).getAndSet(null);
+
+        // when
+        PipelineContinuationBehavior result = handler.doChannelInactive(ctxMock);
+
+        // then
+        verify(permitMock).release(false);
+        Assertions.assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+    }
+
+    @Test
+    public void finalizeChannelPipeline_marks_load_shedding_admitted_request_as_finished() throws Exception {
+        // given
+        PriorityLoadShedder loadShedderMock = mock(PriorityLoadShedder.class);
+        doReturn(loadShedderMock).when(loadSheddingAdmittedRequestAttributeMock).getAndSet(null);
+        state.setResponseWriterFinalChunkChannelFuture(mock(ChannelFuture.class));
+
+        // when
+        handler.finalizeChannelPipeline(ctxMock, null, state, null);
+
+        // then
+        verify(loadShedderMock).onRequestFinished();
+    }
+
+    @Test
+    public void doChannelInactive_marks_load_shedding_admitted_request_as_finished() throws Exception {
+        // given
+        PriorityLoadShedder loadShedderMock = mock(PriorityLoadShedder.class);
+        doReturn(loadShedderMock).when(loadSheddingAdmittedRequestAttributeMock).getAndSet(null);
+
+        // when
+        PipelineContinuationBehavior result = handler.doChannelInactive(ctxMock);
+
+        // then
+        verify(loadShedderMock).onRequestFinished();
+        Assertions.assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+    }
+
+    @DataProvider(value = {
+        "false  |   true",
+        "true   |   false"
+    }, splitBy = "\\|")
+    @Test
+    public void doChannelInactive_cancels_endpoint_response_future_only_if_response_was_not_fully_sent(
+        boolean responseSendingCompleted, boolean expectCancelled
+    ) throws Exception {
+        // given
+        doReturn(responseSendingCompleted).when(responseInfoMock).isResponseSendingLastChunkSent();
+        CompletableFuture<?> endpointResponseFuture = new CompletableFuture<>();
+        state.setEndpointResponseFuture(endpointResponseFuture);
+
+        // when
+        PipelineContinuationBehavior result = handler.doChannelInactive(ctxMock);
+
+        // then
+        Assertions.assertThat(endpointResponseFuture.isCancelled()).isEqualTo(expectCancelled);
+        Assertions.assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+    }
+
+    @Test
+    public void doChannelInactive_cancels_the_nonblocking_endpoints_own_future_when_response_was_not_fully_sent() {
+        // given
+        doReturn(false).when(responseInfoMock).isResponseSendingLastChunkSent();
+        NonblockingEndpoint<?, ?> endpointMock = mock(NonblockingEndpoint.class);
+        CompletableFuture<ResponseInfo<?>> endpointOwnFuture = new CompletableFuture<>();
+        doReturn(endpointOwnFuture).when(endpointMock).execute(any(), any(), any());
+        state.setEndpointForExecution(endpointMock, null);
+        NonblockingEndpointExecutionHandler endpointExecutionHandler = new NonblockingEndpointExecutionHandler(
+            mock(Executor.class), 1000, mock(DistributedTracingConfig.class)
+        );
+        CompletableFuture<ResponseInfo<?>> composedFuture = state
+            .getPreEndpointExecutionWorkChain()
+            .thenCompose(
+                endpointExecutionHandler.doExecuteEndpointFunction(requestInfoMock, endpointMock, null, ctxMock)
+            );
+        Assertions.assertThat(state.getEndpointResponseFuture()).isSameAs(endpointOwnFuture);
+
+        // when
+        handler.doChannelInactive(ctxMock);
+
+        // then
+        Assertions.assertThat(endpointOwnFuture).isCancelled();
+        Assertions.assertThat(composedFuture).isCompletedExceptionally();
+    }
+
+    @Test
+    public void doChannelInactive_cancels_pre_endpoint_work_if_nonblocking_endpoint_has_not_been_started_yet() {
+        // given
+        doReturn(false).when(responseInfoMock).isResponseSendingLastChunkSent();
+        NonblockingEndpoint<?, ?> endpointMock = mock(NonblockingEndpoint.class);
+        state.setEndpointForExecution(endpointMock, null);
+        CompletableFuture<Void> preEndpointWork = new CompletableFuture<>();
+        state.addPreEndpointExecutionWorkChainSegment(aVoid -> preEndpointWork);
+        CompletableFuture<Void> preEndpointWorkChain = state.getPreEndpointExecutionWorkChain();
+
+        // when
+        handler.doChannelInactive(ctxMock);
+
+        // then
+        Assertions.assertThat(preEndpointWorkChain).isCancelled();
+        Assertions.assertThat(state.getEndpointResponseFuture()).isNull();
+    }
+
     @Test
     public void doChannelInactive_does_not_explode_if_crazy_exception_occurs() throws Exception {
         // given
@@ -0,0 +1,214 @@
+package com.nike.riposte.server.handler;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.error.exception.TooManyConcurrentRequestsException;
+import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.handler.concurrencylimit.AdaptiveConcurrencyLimiter;
+import com.nike.riposte.server.handler.concurrencylimit.EndpointConcurrencyLimiters;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.testutils.Whitebox;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.util.Attribute;
+
+import static com.nike.riposte.server.handler.ConcurrencyLimitHandler.CONCURRENCY_LIMIT_PERMIT_ATTRIBUTE_KEY;
+import static com.nike.riposte.server.handler.base.PipelineContinuationBehavior.CONTINUE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Tests the functionality of {@link ConcurrencyLimitHandler}.
+ */
+@RunWith(DataProviderRunner.class)
+public class ConcurrencyLimitHandlerTest {
+
+    private EndpointConcurrencyLimiters concurrencyLimitersMock;
+    private AdaptiveConcurrencyLimiter limiterMock;
+    private AdaptiveConcurrencyLimiter.Permit permitMock;
+    private Endpoint<?> endpointMock;
+
+    private Channel channelMock;
+    private ChannelHandlerContext ctxMock;
+    private Attribute<HttpProcessingState> stateAttributeMock;
+    private Attribute<AdaptiveConcurrencyLimiter.Permit> permitAttributeMock;
+    private HttpProcessingState state;
+
+    private HttpRequest msg = mock(HttpRequest.class);
+
+    private ConcurrencyLimitHandler handler;
+
+    @Before
+    public void beforeMethod() {
+        concurrencyLimitersMock = mock(EndpointConcurrencyLimiters.class);
+        limiterMock = mock(AdaptiveConcurrencyLimiter.class);
+        permitMock = mock(AdaptiveConcurrencyLimiter.Permit.class);
+        endpointMock = mock(Endpoint.class);
+
+        channelMock = mock(Channel.class);
+        ctxMock = mock(ChannelHandlerContext.class);
+        stateAttributeMock = mock(Attribute.class);
+        permitAttributeMock = mock(Attribute.class);
+        state = new HttpProcessingState();
+        state.setEndpointForExecution(endpointMock, "/some/path");
+
+        doReturn(channelMock).when(ctxMock).channel();
+        doReturn(stateAttributeMock).when(channelMock).attr(ChannelAttributes.HTTP_PROCESSING_STATE_ATTRIBUTE_KEY);
+        doReturn(state).when(stateAttributeMock).get();
+        doReturn(permitAttributeMock).when(channelMock).attr(CONCURRENCY_LIMIT_PERMIT_ATTRIBUTE_KEY);
+
+        doReturn(limiterMock).when(concurrencyLimitersMock).limiterFor(endpointMock);
+        doReturn(permitMock).when(limiterMock).tryAcquire();
+        doReturn("someLimiter").when(limiterMock).getName();
+        doReturn(20).when(limiterMock).getLimit();
+        doReturn(20).when(limiterMock).getInFlight();
+
+        handler = new ConcurrencyLimitHandler(concurrencyLimitersMock);
+    }
+
+    @Test
+    public void constructor_sets_fields_based_on_args() {
+        // when
+        ConcurrencyLimitHandler theHandler = new ConcurrencyLimitHandler(concurrencyLimitersMock);
+
+        // then
+        assertThat(Whitebox.getInternalState(theHandler, "concurrencyLimiters")).isSameAs(concurrencyLimitersMock);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_concurrencyLimiters_is_null() {
+        // when
+        Throwable ex = catchThrowable(() -> new ConcurrencyLimitHandler(null));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void doChannelRead_acquires_permit_and_stores_it_on_the_channel() throws Exception {
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, msg);
+
+        // then
+        assertThat(result).isEqualTo(CONTINUE);
+        verify(limiterMock).tryAcquire();
+        verify(permitAttributeMock).set(permitMock);
+    }
+
+    @Test
+    public void doChannelRead_throws_TooManyConcurrentRequestsException_if_limiter_rejects_the_request() {
+        // given
+        doReturn(null).when(limiterMock).tryAcquire();
+
+        // when
+        Throwable ex = catchThrowable(() -> handler.doChannelRead(ctxMock, msg));
+
+        // then
+        assertThat(ex).isInstanceOf(TooManyConcurrentRequestsException.class);
+        TooManyConcurrentRequestsException theEx = (TooManyConcurrentRequestsException) ex;
+        assertThat(theEx.limiterName).isEqualTo("someLimiter");
+        assertThat(theEx.concurrencyLimit).isEqualTo(20);
+        assertThat(theEx.inFlightRequests).isEqualTo(20);
+        verify(permitAttributeMock, never()).set(any());
+    }
+
+    @Test
+    public void doChannelRead_releases_leftover_permit_from_previous_request_without_recording_sample()
+        throws Exception {
+        // given
+        AdaptiveConcurrencyLimiter.Permit leftoverPermitMock = mock(AdaptiveConcurrencyLimiter.Permit.class);
+        doReturn(leftoverPermitMock).when(permitAttributeMock).getAndSet(null);
+
+        // when
+        handler.doChannelRead(ctxMock, msg);
+
+        // then
+        verify(leftoverPermitMock).release(false);
+        verify(permitAttributeMock).set(permitMock);
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void doChannelRead_does_nothing_if_there_is_no_endpoint_or_no_limiter_for_the_endpoint(
+        boolean endpointIsNull
+    ) throws Exception {
+        // given
+        if (endpointIsNull)
+            state.setEndpointForExecution(null, null);
+        else
+            doReturn(null).when(concurrencyLimitersMock).limiterFor(endpointMock);
+
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, msg);
+
+        // then
+        assertThat(result).isEqualTo(CONTINUE);
+        verify(limiterMock, never()).tryAcquire();
+        verify(permitAttributeMock, never()).set(any());
+    }
+
+    @Test
+    public void doChannelRead_does_nothing_if_msg_is_not_HttpRequest() throws Exception {
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, mock(HttpContent.class));
+
+        // then
+        assertThat(result).isEqualTo(CONTINUE);
+        verifyNoInteractions(concurrencyLimitersMock);
+        verifyNoInteractions(permitAttributeMock);
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void releasePermitIfAcquired_releases_and_clears_permit_if_present(boolean recordSample) {
+        // given
+        doReturn(permitMock).when(permitAttributeMock).getAndSet(null);
+
+        // when
+        ConcurrencyLimitHandler.releasePermitIfAcquired(channelMock, recordSample);
+
+        // then
+        verify(permitAttributeMock).getAndSet(null);
+        verify(permitMock).release(recordSample);
+    }
+
+    @Test
+    public void releasePermitIfAcquired_does_nothing_if_there_is_no_permit() {
+        // when
+        ConcurrencyLimitHandler.releasePermitIfAcquired(channelMock, true);
+
+        // then
+        verify(permitAttributeMock).getAndSet(null);
+        verify(permitMock, never()).release(anyBoolean());
+    }
+
+    @Test
+    public void argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo_returns_false() {
+        // expect
+        assertThat(handler.argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo(null, null, null, null))
+            .isFalse();
+    }
+}
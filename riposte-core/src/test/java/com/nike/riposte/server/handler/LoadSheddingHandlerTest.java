@@ -0,0 +1,219 @@
+package com.nike.riposte.server.handler;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.config.ServerConfig.LoadSheddingConfig;
+import com.nike.riposte.server.error.exception.RequestShedException;
+import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.handler.loadshedding.PriorityLoadShedder;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.RequestPriority;
+import com.nike.riposte.testutils.Whitebox;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.util.Attribute;
+
+import static com.nike.riposte.server.handler.LoadSheddingHandler.LOAD_SHEDDING_ADMITTED_REQUEST_ATTRIBUTE_KEY;
+import static com.nike.riposte.server.handler.base.PipelineContinuationBehavior.CONTINUE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Tests the functionality of {@link LoadSheddingHandler}.
+ */
+@RunWith(DataProviderRunner.class)
+public class LoadSheddingHandlerTest {
+
+    private PriorityLoadShedder loadShedderMock;
+    private LoadSheddingConfig configMock;
+    private Endpoint<?> endpointMock;
+    private RequestInfo<?> requestInfoMock;
+
+    private Channel channelMock;
+    private ChannelHandlerContext ctxMock;
+    private Attribute<HttpProcessingState> stateAttributeMock;
+    private Attribute<PriorityLoadShedder> admittedRequestAttributeMock;
+    private HttpProcessingState state;
+
+    private HttpRequest msg = mock(HttpRequest.class);
+
+    private LoadSheddingHandler handler;
+
+    @Before
+    public void beforeMethod() {
+        loadShedderMock = mock(PriorityLoadShedder.class);
+        configMock = mock(LoadSheddingConfig.class);
+        endpointMock = mock(Endpoint.class);
+        requestInfoMock = mock(RequestInfo.class);
+
+        channelMock = mock(Channel.class);
+        ctxMock = mock(ChannelHandlerContext.class);
+        stateAttributeMock = mock(Attribute.class);
+        admittedRequestAttributeMock = mock(Attribute.class);
+        state = new HttpProcessingState();
+        state.setEndpointForExecution(endpointMock, "/some/path");
+        state.setRequestInfo(requestInfoMock);
+
+        doReturn(channelMock).when(ctxMock).channel();
+        doReturn(stateAttributeMock).when(channelMock).attr(ChannelAttributes.HTTP_PROCESSING_STATE_ATTRIBUTE_KEY);
+        doReturn(state).when(stateAttributeMock).get();
+        doReturn(admittedRequestAttributeMock).when(channelMock).attr(LOAD_SHEDDING_ADMITTED_REQUEST_ATTRIBUTE_KEY);
+
+        doReturn(configMock).when(loadShedderMock).getConfig();
+        doReturn(RequestPriority.LOW).when(configMock).classifyRequest(requestInfoMock, endpointMock);
+        doReturn(3L).when(configMock).retryAfterSeconds();
+        doReturn(0.5).when(loadShedderMock).currentLoad();
+        doReturn(0.7).when(loadShedderMock).thresholdFor(RequestPriority.LOW);
+
+        handler = new LoadSheddingHandler(loadShedderMock);
+    }
+
+    @Test
+    public void constructor_sets_fields_based_on_args() {
+        // when
+        LoadSheddingHandler theHandler = new LoadSheddingHandler(loadShedderMock);
+
+        // then
+        assertThat(Whitebox.getInternalState(theHandler, "loadShedder")).isSameAs(loadShedderMock);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_loadShedder_is_null() {
+        // when
+        Throwable ex = catchThrowable(() -> new LoadSheddingHandler(null));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void doChannelRead_admits_request_if_load_is_below_its_priority_threshold() throws Exception {
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, msg);
+
+        // then
+        assertThat(result).isEqualTo(CONTINUE);
+        verify(loadShedderMock).onRequestStarted();
+        verify(loadShedderMock, never()).recordShed(any());
+        verify(admittedRequestAttributeMock).set(loadShedderMock);
+    }
+
+    @DataProvider(value = {
+        "0.7",
+        "0.9"
+    })
+    @Test
+    public void doChannelRead_throws_RequestShedException_if_load_has_reached_its_priority_threshold(double load) {
+        // given
+        doReturn(load).when(loadShedderMock).currentLoad();
+
+        // when
+        Throwable ex = catchThrowable(() -> handler.doChannelRead(ctxMock, msg));
+
+        // then
+        assertThat(ex).isInstanceOf(RequestShedException.class);
+        RequestShedException theEx = (RequestShedException) ex;
+        assertThat(theEx.priority).isEqualTo(RequestPriority.LOW);
+        assertThat(theEx.load).isEqualTo(load);
+        assertThat(theEx.loadSheddingThreshold).isEqualTo(0.7);
+        assertThat(theEx.retryAfterSeconds).isEqualTo(3L);
+        verify(loadShedderMock).recordShed(RequestPriority.LOW);
+        verify(loadShedderMock, never()).onRequestStarted();
+        verify(admittedRequestAttributeMock, never()).set(any());
+    }
+
+    @Test
+    public void doChannelRead_marks_leftover_admitted_request_from_previous_request_as_finished() throws Exception {
+        // given
+        PriorityLoadShedder leftoverLoadShedderMock = mock(PriorityLoadShedder.class);
+        doReturn(leftoverLoadShedderMock).when(admittedRequestAttributeMock).getAndSet(null);
+
+        // when
+        handler.doChannelRead(ctxMock, msg);
+
+        // then
+        verify(leftoverLoadShedderMock).onRequestFinished();
+        verify(admittedRequestAttributeMock).set(loadShedderMock);
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void doChannelRead_does_nothing_if_there_is_no_endpoint_or_no_request_info(boolean endpointIsNull)
+        throws Exception {
+        // given
+        if (endpointIsNull)
+            state.setEndpointForExecution(null, null);
+        else
+            state.setRequestInfo(null);
+
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, msg);
+
+        // then
+        assertThat(result).isEqualTo(CONTINUE);
+        verify(loadShedderMock, never()).currentLoad();
+        verify(loadShedderMock, never()).onRequestStarted();
+        verify(admittedRequestAttributeMock, never()).set(any());
+    }
+
+    @Test
+    public void doChannelRead_does_nothing_if_msg_is_not_HttpRequest() throws Exception {
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, mock(HttpContent.class));
+
+        // then
+        assertThat(result).isEqualTo(CONTINUE);
+        verifyNoInteractions(loadShedderMock);
+        verifyNoInteractions(admittedRequestAttributeMock);
+    }
+
+    @Test
+    public void markRequestFinishedIfNecessary_marks_request_finished_and_clears_attribute_if_present() {
+        // given
+        doReturn(loadShedderMock).when(admittedRequestAttributeMock).getAndSet(null);
+
+        // when
+        LoadSheddingHandler.markRequestFinishedIfNecessary(channelMock);
+
+        // then
+        verify(admittedRequestAttributeMock).getAndSet(null);
+        verify(loadShedderMock).onRequestFinished();
+    }
+
+    @Test
+    public void markRequestFinishedIfNecessary_does_nothing_if_there_is_no_admitted_request() {
+        // when
+        LoadSheddingHandler.markRequestFinishedIfNecessary(channelMock);
+
+        // then
+        verify(admittedRequestAttributeMock).getAndSet(null);
+        verify(loadShedderMock, never()).onRequestFinished();
+    }
+
+    @Test
+    public void argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo_returns_false() {
+        // expect
+        assertThat(handler.argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo(null, null, null, null))
+            .isFalse();
+    }
+}
@@ -5,15 +5,20 @@ import com.nike.riposte.server.channelpipeline.message.LastOutboundMessageSendFu
 import com.nike.riposte.server.config.distributedtracing.DefaultRiposteServerSpanNamingAndTaggingStrategy;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
 import com.nike.riposte.server.config.distributedtracing.ServerSpanNamingAndTaggingStrategy;
+import com.nike.riposte.server.error.exception.NonblockingEndpointCompletableFutureTimedOut;
 import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.handler.coalescing.RequestCoalescer;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.NonblockingEndpoint;
 import com.nike.riposte.server.http.ProxyRouterProcessingState;
+import com.nike.riposte.server.http.RequestCoalescingConfig;
+import com.nike.riposte.server.http.RequestDeadline;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseInfo;
 import com.nike.riposte.server.http.StandardEndpoint;
 import com.nike.riposte.server.http.impl.RequestInfoImpl;
+import com.nike.riposte.util.TimeoutTimers;
 import com.nike.riposte.util.asynchelperwrapper.BiConsumerWithTracingAndMdcSupport;
 import com.nike.riposte.util.asynchelperwrapper.RunnableWithTracingAndMdcSupport;
 import com.nike.wingtips.Span;
@@ -43,6 +48,7 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import io.netty.channel.Channel;
@@ -50,12 +56,15 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.EventLoop;
 import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.util.Attribute;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
 import io.netty.util.concurrent.EventExecutor;
-import io.netty.util.concurrent.ScheduledFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
@@ -83,6 +92,7 @@ public class NonblockingEndpointExecutionHandlerTest {
     private ChannelHandlerContext ctxMock;
     private Channel channelMock;
     private EventLoop eventLoopMock;
+    private Timer timeoutTimerMock;
     private Attribute<HttpProcessingState> stateAttrMock;
     private Attribute<ProxyRouterProcessingState> proxyRouterStateAttrMock;
     private RequestInfo requestInfo;
@@ -111,6 +121,7 @@ public class NonblockingEndpointExecutionHandlerTest {
         responseFuture = new CompletableFuture<>();
         stateWorkChainFutureSpy = spy(CompletableFuture.completedFuture(null));
         eventLoopMock = mock(EventLoop.class);
+        timeoutTimerMock = mock(Timer.class);
         eventExecutorMock = mock(EventExecutor.class);
 
         distributedTracingConfigMock = mock(DistributedTracingConfig.class);
@@ -138,7 +149,8 @@ public class NonblockingEndpointExecutionHandlerTest {
         doReturn(stateWorkChainFutureSpy).when(stateMock).getPreEndpointExecutionWorkChain();
 
         handlerSpy = spy(new NonblockingEndpointExecutionHandler(
-            longRunningTaskExecutorMock, defaultCompletableFutureTimeoutMillis, distributedTracingConfigMock
+            longRunningTaskExecutorMock, defaultCompletableFutureTimeoutMillis, distributedTracingConfigMock,
+            timeoutTimerMock
         ));
 
         resetTracingAndMdc();
@@ -173,6 +185,36 @@ public class NonblockingEndpointExecutionHandlerTest {
         long actualTimeoutValue = (long) Whitebox.getInternalState(theHandler, "defaultCompletableFutureTimeoutMillis");
         assertThat(actualExecutor).isEqualTo(longRunningTaskExecutorMock);
         assertThat(actualTimeoutValue).isEqualTo(defaultCompletableFutureTimeoutMillis);
+        assertThat(Whitebox.getInternalState(theHandler, "responseTimeoutTimer"))
+            .isSameAs(TimeoutTimers.defaultTimeoutTimer());
+    }
+
+    @Test
+    public void constructor_uses_responseTimeoutTimer_if_one_is_passed_in() {
+        // when
+        NonblockingEndpointExecutionHandler theHandler = new NonblockingEndpointExecutionHandler(
+            longRunningTaskExecutorMock, defaultCompletableFutureTimeoutMillis, distributedTracingConfigMock,
+            timeoutTimerMock
+        );
+
+        // then
+        assertThat(Whitebox.getInternalState(theHandler, "responseTimeoutTimer")).isSameAs(timeoutTimerMock);
+        assertThat(Whitebox.getInternalState(theHandler, "requestCoalescer")).isNull();
+    }
+
+    @Test
+    public void constructor_uses_requestCoalescer_if_one_is_passed_in() {
+        // given
+        RequestCoalescer requestCoalescerMock = mock(RequestCoalescer.class);
+
+        // when
+        NonblockingEndpointExecutionHandler theHandler = new NonblockingEndpointExecutionHandler(
+            longRunningTaskExecutorMock, defaultCompletableFutureTimeoutMillis, distributedTracingConfigMock,
+            timeoutTimerMock, requestCoalescerMock
+        );
+
+        // then
+        assertThat(Whitebox.getInternalState(theHandler, "requestCoalescer")).isSameAs(requestCoalescerMock);
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -205,7 +247,7 @@ public class NonblockingEndpointExecutionHandlerTest {
         verify(endpointMock).execute(requestInfo, longRunningTaskExecutorMock, ctxMock);
         // The 2nd whenComplete is for cancelling the timeout check if the response finishes before the timeout
         verify(futureThatWillBeAttachedToSpy, times(2)).whenComplete(any(BiConsumer.class));
-        verify(eventLoopMock).schedule(any(Runnable.class), any(Long.class), eq(TimeUnit.MILLISECONDS));
+        verify(timeoutTimerMock).newTimeout(any(TimerTask.class), any(Long.class), eq(TimeUnit.MILLISECONDS));
         verify(handlerSpy).doExecuteEndpointFunction(
             requestInfo, endpointMock, stateMock.getDistributedTraceStack().peek(), ctxMock
         );
@@ -224,7 +266,7 @@ public class NonblockingEndpointExecutionHandlerTest {
         // then
         verifyNoMoreInteractions(endpointMock);
         assertThat(futureThatWillBeAttachedToSpy).isNull();
-        verifyNoMoreInteractions(eventLoopMock);
+        verifyNoMoreInteractions(eventLoopMock, timeoutTimerMock);
         assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
     }
 
@@ -239,7 +281,7 @@ public class NonblockingEndpointExecutionHandlerTest {
         // then
         verifyNoMoreInteractions(endpointMock);
         assertThat(futureThatWillBeAttachedToSpy).isNull();
-        verifyNoMoreInteractions(eventLoopMock);
+        verifyNoMoreInteractions(eventLoopMock, timeoutTimerMock);
         assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
     }
 
@@ -252,7 +294,7 @@ public class NonblockingEndpointExecutionHandlerTest {
         PipelineContinuationBehavior result = handlerSpy.doChannelRead(ctxMock, badMsg);
 
         // then
-        verifyNoInteractions(endpointMock, eventLoopMock);
+        verifyNoInteractions(endpointMock, eventLoopMock, timeoutTimerMock);
         assertThat(futureThatWillBeAttachedToSpy).isNull();
         assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
     }
@@ -266,7 +308,7 @@ public class NonblockingEndpointExecutionHandlerTest {
         handlerSpy.doChannelRead(ctxMock, msg);
 
         // then
-        verify(eventLoopMock).schedule(any(Runnable.class), eq(defaultCompletableFutureTimeoutMillis), eq(TimeUnit.MILLISECONDS));
+        verify(timeoutTimerMock).newTimeout(any(TimerTask.class), eq(defaultCompletableFutureTimeoutMillis), eq(TimeUnit.MILLISECONDS));
     }
 
     @Test
@@ -279,7 +321,48 @@ public class NonblockingEndpointExecutionHandlerTest {
         handlerSpy.doChannelRead(ctxMock, msg);
 
         // then
-        verify(eventLoopMock).schedule(any(Runnable.class), eq(endpointValue), eq(TimeUnit.MILLISECONDS));
+        verify(timeoutTimerMock).newTimeout(any(TimerTask.class), eq(endpointValue), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void doChannelRead_schedules_timeout_using_time_left_before_request_deadline_if_that_is_shorter() throws Exception {
+        // given
+        doReturn(null).when(endpointMock).completableFutureTimeoutOverrideMillis();
+        requestInfo.setDeadline(new RequestDeadline(1000, System.nanoTime(), null));
+
+        // when
+        handlerSpy.doChannelRead(ctxMock, msg);
+
+        // then
+        ArgumentCaptor<Long> timeoutCaptor = ArgumentCaptor.forClass(Long.class);
+        verify(timeoutTimerMock).newTimeout(any(TimerTask.class), timeoutCaptor.capture(), eq(TimeUnit.MILLISECONDS));
+        assertThat(timeoutCaptor.getValue()).isBetween(1L, 1000L);
+    }
+
+    @Test
+    public void doChannelRead_stores_the_endpoints_own_response_future_on_state() throws Exception {
+        // when
+        handlerSpy.doChannelRead(ctxMock, msg);
+
+        // then
+        verify(stateMock).setEndpointResponseFuture(responseFuture);
+        verify(stateMock, never()).setEndpointResponseFuture(futureThatWillBeAttachedToSpy);
+    }
+
+    @Test
+    public void cancelling_the_stored_endpoint_response_future_also_finishes_the_composed_future() throws Exception {
+        // given
+        handlerSpy.doChannelRead(ctxMock, msg);
+        ArgumentCaptor<CompletableFuture> storedFutureCaptor = ArgumentCaptor.forClass(CompletableFuture.class);
+        verify(stateMock).setEndpointResponseFuture(storedFutureCaptor.capture());
+        assertThat(futureThatWillBeAttachedToSpy).isNotDone();
+
+        // when
+        storedFutureCaptor.getValue().cancel(true);
+
+        // then
+        assertThat(responseFuture).isCancelled();
+        assertThat(futureThatWillBeAttachedToSpy).isCompletedExceptionally();
     }
 
     private BiConsumer<ResponseInfo<?>, Throwable> extractContinuationLogic() throws Exception {
@@ -322,50 +405,124 @@ public class NonblockingEndpointExecutionHandlerTest {
     @Test
     public void doChannelRead_cancels_timeout_check_if_response_finishes_before_timeout_check_occurs() throws Exception {
         // given
-        ScheduledFuture timeoutCheckMock = mock(ScheduledFuture.class);
-        doReturn(timeoutCheckMock).when(eventLoopMock).schedule(any(Runnable.class), any(Long.class), any(TimeUnit.class));
+        Timeout timeoutCheckMock = mock(Timeout.class);
+        doReturn(timeoutCheckMock).when(timeoutTimerMock).newTimeout(any(TimerTask.class), any(Long.class), any(TimeUnit.class));
         handlerSpy.doChannelRead(ctxMock, msg);
         ArgumentCaptor<BiConsumer> timeoutCheckCancellationLogicArgumentCaptor = ArgumentCaptor.forClass(BiConsumer.class);
         // The 2nd whenComplete is for cancelling the timeout check if the response finishes before the timeout
         verify(futureThatWillBeAttachedToSpy, times(2)).whenComplete(timeoutCheckCancellationLogicArgumentCaptor.capture());
         BiConsumer<ResponseInfo<?>, Throwable> timeoutCheckCancellationLogic = timeoutCheckCancellationLogicArgumentCaptor.getAllValues().get(1);
 
-        // when: the timeout check scheduled future is not yet complete when the response finishes
-        doReturn(false).when(timeoutCheckMock).isDone();
+        // when: the timeout check has not yet expired when the response finishes
+        doReturn(false).when(timeoutCheckMock).isExpired();
         timeoutCheckCancellationLogic.accept(mock(ResponseInfo.class), null);
 
-        // then: timeout check scheduled future should be cancelled
-        verify(timeoutCheckMock).cancel(false);
+        // then: timeout check should be cancelled
+        verify(timeoutCheckMock).cancel();
     }
 
     @Test
     public void doChannelRead_does_nothing_to_timeout_check_if_timeout_check_is_already_completed_when_response_completes() throws Exception {
         // given
-        ScheduledFuture timeoutCheckMock = mock(ScheduledFuture.class);
-        doReturn(timeoutCheckMock).when(eventLoopMock).schedule(any(Runnable.class), any(Long.class), any(TimeUnit.class));
+        Timeout timeoutCheckMock = mock(Timeout.class);
+        doReturn(timeoutCheckMock).when(timeoutTimerMock).newTimeout(any(TimerTask.class), any(Long.class), any(TimeUnit.class));
         handlerSpy.doChannelRead(ctxMock, msg);
         ArgumentCaptor<BiConsumer> timeoutCheckCancellationLogicArgumentCaptor = ArgumentCaptor.forClass(BiConsumer.class);
         // The 2nd whenComplete is for cancelling the timeout check if the response finishes before the timeout
         verify(futureThatWillBeAttachedToSpy, times(2)).whenComplete(timeoutCheckCancellationLogicArgumentCaptor.capture());
         BiConsumer<ResponseInfo<?>, Throwable> timeoutCheckCancellationLogic = timeoutCheckCancellationLogicArgumentCaptor.getAllValues().get(1);
 
-        // when: the timeout check scheduled future is already done
-        doReturn(true).when(timeoutCheckMock).isDone();
+        // when: the timeout check has already expired
+        doReturn(true).when(timeoutCheckMock).isExpired();
         timeoutCheckCancellationLogic.accept(mock(ResponseInfo.class), null);
 
         // then: nothing should be done
-        verify(timeoutCheckMock).isDone();
-        verify(timeoutCheckMock, times(0)).cancel(any(Boolean.class));
+        verify(timeoutCheckMock).isExpired();
+        verify(timeoutCheckMock, times(0)).cancel();
         verifyNoMoreInteractions(timeoutCheckMock);
     }
 
-    private Runnable extractTimeoutRunnable() throws Exception {
+    @Test
+    public void doChannelRead_does_not_schedule_timeout_check_if_endpoint_future_is_already_complete() throws Exception {
+        // given
+        ResponseInfo<?> responseInfo = ResponseInfo.newBuilder().build();
+        responseFuture.complete(responseInfo);
+
+        // when
+        handlerSpy.doChannelRead(ctxMock, msg);
+
+        // then
+        verify(timeoutTimerMock, never()).newTimeout(any(TimerTask.class), any(Long.class), any(TimeUnit.class));
+        verify(handlerSpy).asyncCallback(ctxMock, responseInfo);
+    }
+
+    @Test
+    public void doChannelRead_handles_event_loop_affine_endpoint_completion_with_a_single_hop_to_the_event_loop() throws Exception {
+        // given
+        doReturn(true).when(endpointMock).isEventLoopAffine();
+        Timeout timeoutCheckMock = mock(Timeout.class);
+        doReturn(timeoutCheckMock).when(timeoutTimerMock).newTimeout(any(TimerTask.class), any(Long.class), any(TimeUnit.class));
+        ResponseInfo<?> responseInfo = ResponseInfo.newBuilder().build();
+
+        // when: the endpoint is executed on the event loop
+        PipelineContinuationBehavior result = handlerSpy.doChannelRead(ctxMock, msg);
+
+        // then: the endpoint was executed inline, and the timeout check was scheduled
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.DO_NOT_FIRE_CONTINUE_EVENT);
+        verify(endpointMock).execute(requestInfo, longRunningTaskExecutorMock, ctxMock);
+        verify(timeoutTimerMock).newTimeout(any(TimerTask.class), any(Long.class), eq(TimeUnit.MILLISECONDS));
+        verify(eventExecutorMock, never()).execute(any(Runnable.class));
+
+        // and when: the endpoint's future is completed on some other thread
+        doReturn(false).when(eventExecutorMock).inEventLoop();
+        responseFuture.complete(responseInfo);
+
+        // then: exactly one task is handed to the event loop, and nothing happens until it runs
+        ArgumentCaptor<Runnable> eventLoopTaskCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(eventExecutorMock).execute(eventLoopTaskCaptor.capture());
+        verify(handlerSpy, never()).asyncCallback(any(ChannelHandlerContext.class), any(ResponseInfo.class));
+        verify(timeoutCheckMock, never()).cancel();
+
+        // and when: the task runs on the event loop
+        doReturn(true).when(eventExecutorMock).inEventLoop();
+        eventLoopTaskCaptor.getValue().run();
+
+        // then: the timeout check is cancelled and the response is sent without any further hops
+        verify(timeoutCheckMock).cancel();
+        verify(handlerSpy).asyncCallback(ctxMock, responseInfo);
+        verify(handlerSpy).setResponseInfoAndActivatePipelineForResponse(stateMock, responseInfo, ctxMock);
+        verify(eventExecutorMock, times(1)).execute(any(Runnable.class));
+    }
+
+    private TimerTask extractTimeoutTimerTask() throws Exception {
         handlerSpy.doChannelRead(ctxMock, msg);
+        ArgumentCaptor<TimerTask> timerTaskCaptor = ArgumentCaptor.forClass(TimerTask.class);
+        verify(timeoutTimerMock).newTimeout(timerTaskCaptor.capture(), any(Long.class), any(TimeUnit.class));
+        return timerTaskCaptor.getValue();
+    }
+
+    private Runnable extractTimeoutRunnable() throws Exception {
+        // The timer task hands the actual timeout check to the channel's event loop if the future isn't done yet.
+        extractTimeoutTimerTask().run(mock(Timeout.class));
         ArgumentCaptor<Runnable> timeoutRunnableCaptor = ArgumentCaptor.forClass(Runnable.class);
-        verify(eventLoopMock).schedule(timeoutRunnableCaptor.capture(), any(Long.class), any(TimeUnit.class));
+        verify(eventLoopMock).execute(timeoutRunnableCaptor.capture());
         return timeoutRunnableCaptor.getValue();
     }
 
+    @Test
+    public void doChannelRead_timeout_timer_task_does_not_hop_to_event_loop_if_future_is_already_completed() throws Exception {
+        // given
+        TimerTask timeoutTimerTask = extractTimeoutTimerTask();
+        doReturn(true).when(futureThatWillBeAttachedToSpy).isDone();
+
+        // when
+        timeoutTimerTask.run(mock(Timeout.class));
+
+        // then
+        verify(eventLoopMock, never()).execute(any(Runnable.class));
+        verify(futureThatWillBeAttachedToSpy, never()).completeExceptionally(any(Throwable.class));
+    }
+
     @Test
     public void doChannelRead_timeout_runnable_gets_timeout_cause_from_endpoint_and_completes_the_future_with_it() throws Exception {
         // given
@@ -703,4 +860,108 @@ public class NonblockingEndpointExecutionHandlerTest {
             .hasMessage("NonblockingEndpoint.execute() cannot return null.");
     }
 
-}
\ No newline at end of file
+    @Test
+    public void doExecuteEndpointFunction_does_not_execute_endpoint_if_request_deadline_has_already_passed() {
+        // given
+        requestInfo.setDeadline(new RequestDeadline(1000, System.nanoTime() - TimeUnit.SECONDS.toNanos(10), null));
+
+        Function<Void, CompletableFuture<ResponseInfo<?>>> executeFunc = handlerSpy
+            .doExecuteEndpointFunction(requestInfo, endpointMock, null, ctxMock);
+
+        // when
+        Throwable ex = catchThrowable(() -> executeFunc.apply(null));
+
+        // then
+        verify(endpointMock, never()).execute(any(RequestInfo.class), any(Executor.class), any(ChannelHandlerContext.class));
+        assertThat(ex).isInstanceOf(NonblockingEndpointCompletableFutureTimedOut.class);
+        assertThat(((NonblockingEndpointCompletableFutureTimedOut) ex).timeoutValueMillis).isEqualTo(1000);
+    }
+
+    @DataProvider(value = {
+        "null",
+        "100"
+    }, splitBy = "\\|")
+    @Test
+    public void doExecuteEndpointFunction_executes_endpoint_via_requestCoalescer_if_endpoint_allows_coalescing(
+        Long endpointTimeoutOverride
+    ) {
+        // given
+        RequestCoalescer requestCoalescerMock = mock(RequestCoalescer.class);
+        RequestCoalescingConfig coalescingConfig = new RequestCoalescingConfig() {
+            @Override
+            public boolean isCoalescingAllowed(RequestInfo<?> request) {
+                return true;
+            }
+        };
+        CompletableFuture<ResponseInfo<?>> coalescedResult = new CompletableFuture<>();
+        doReturn(coalescingConfig).when(endpointMock).requestCoalescingConfig();
+        doReturn(endpointTimeoutOverride).when(endpointMock).completableFutureTimeoutOverrideMillis();
+        doReturn(coalescedResult).when(requestCoalescerMock)
+                                 .execute(any(Endpoint.class), any(RequestCoalescingConfig.class),
+                                          any(RequestInfo.class), anyLong(), any(Supplier.class));
+        NonblockingEndpointExecutionHandler theHandler = new NonblockingEndpointExecutionHandler(
+            longRunningTaskExecutorMock, defaultCompletableFutureTimeoutMillis, distributedTracingConfigMock,
+            timeoutTimerMock, requestCoalescerMock
+        );
+
+        // when
+        CompletableFuture<ResponseInfo<?>> result =
+            theHandler.doExecuteEndpointFunction(requestInfo, endpointMock, null, ctxMock).apply(null);
+
+        // then
+        long expectedTimeout = (endpointTimeoutOverride == null)
+                               ? defaultCompletableFutureTimeoutMillis
+                               : endpointTimeoutOverride;
+        assertThat(result).isSameAs(coalescedResult);
+        verify(stateMock).setEndpointResponseFuture(coalescedResult);
+        ArgumentCaptor<Supplier> endpointExecutionCaptor = ArgumentCaptor.forClass(Supplier.class);
+        verify(requestCoalescerMock).execute(
+            eq(endpointMock), eq(coalescingConfig), eq(requestInfo), eq(expectedTimeout),
+            endpointExecutionCaptor.capture()
+        );
+        verify(endpointMock, never()).execute(any(RequestInfo.class), any(Executor.class), any(ChannelHandlerContext.class));
+
+        // and when - the coalescer decides this request is the leader
+        Object endpointExecutionResult = endpointExecutionCaptor.getValue().get();
+
+        // then
+        assertThat(endpointExecutionResult).isSameAs(responseFuture);
+        verify(endpointMock).execute(requestInfo, longRunningTaskExecutorMock, ctxMock);
+    }
+
+    @DataProvider(value = {
+        "true   |   false   |   true",
+        "false  |   true    |   true",
+        "true   |   true    |   false",
+    }, splitBy = "\\|")
+    @Test
+    public void doExecuteEndpointFunction_executes_endpoint_directly_if_coalescing_does_not_apply(
+        boolean coalescerExists, boolean endpointHasCoalescingConfig, boolean coalescingAllowedForRequest
+    ) {
+        // given
+        RequestCoalescer requestCoalescerMock = mock(RequestCoalescer.class);
+        if (endpointHasCoalescingConfig) {
+            doReturn(new RequestCoalescingConfig() {
+                @Override
+                public boolean isCoalescingAllowed(RequestInfo<?> request) {
+                    return coalescingAllowedForRequest;
+                }
+            }).when(endpointMock).requestCoalescingConfig();
+        }
+        NonblockingEndpointExecutionHandler theHandler = new NonblockingEndpointExecutionHandler(
+            longRunningTaskExecutorMock, defaultCompletableFutureTimeoutMillis, distributedTracingConfigMock,
+            timeoutTimerMock, (coalescerExists) ? requestCoalescerMock : null
+        );
+
+        // when
+        CompletableFuture<ResponseInfo<?>> result =
+            theHandler.doExecuteEndpointFunction(requestInfo, endpointMock, null, ctxMock).apply(null);
+
+        // then
+        assertThat(result).isSameAs(responseFuture);
+        verify(stateMock).setEndpointResponseFuture(responseFuture);
+        verify(endpointMock).execute(requestInfo, longRunningTaskExecutorMock, ctxMock);
+        verifyNoInteractions(requestCoalescerMock);
+    }
+
+}
@@ -1,9 +1,5 @@
 package com.nike.riposte.server.handler;
 
-import com.nike.internal.util.Pair;
-import com.nike.riposte.server.error.exception.TooManyOpenChannelsException;
-import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
-
 import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
 
@@ -12,30 +8,24 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 
-import java.util.concurrent.TimeUnit;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
 
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.EventLoop;
-import io.netty.channel.group.ChannelGroup;
-import io.netty.handler.codec.http.HttpRequest;
-import io.netty.util.Attribute;
 import io.netty.util.concurrent.GenericFutureListener;
-import io.netty.util.concurrent.ScheduledFuture;
 
-import static com.nike.riposte.server.handler.OpenChannelLimitHandler.TOO_MANY_OPEN_CONNECTIONS_THIS_CHANNEL_SHOULD_CLOSE;
-import static com.nike.riposte.server.handler.base.PipelineContinuationBehavior.CONTINUE;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
-import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 /**
  * Tests the functionality of {@link OpenChannelLimitHandler}.
@@ -45,196 +35,184 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 @RunWith(DataProviderRunner.class)
 public class OpenChannelLimitHandlerTest {
 
-    private ChannelGroup channelGroupMock;
-    private int maxOpenChannelsThreshold;
-
-    private Channel channelMock;
     private ChannelHandlerContext ctxMock;
-    private Attribute<Integer> tooManyOpenConnectionsAttributeMock;
-    private EventLoop eventLoopMock;
-    private ChannelFuture closeFutureMock;
-
-    private Object msg = mock(HttpRequest.class);
-
-    private ScheduledFuture doubleCheckScheduledFutureMock;
-    private ArgumentCaptor<Runnable> doubleCheckRunnableCaptor;
-
-    private ArgumentCaptor<GenericFutureListener> closeFutureListenerCaptor;
-
-    private OpenChannelLimitHandler handler;
+    private InetAddress ipAddress;
+    private InetAddress otherIpAddress;
 
     @Before
-    public void beforeMethod() {
-        channelMock = mock(Channel.class);
+    public void beforeMethod() throws Exception {
         ctxMock = mock(ChannelHandlerContext.class);
-        tooManyOpenConnectionsAttributeMock = mock(Attribute.class);
-        doReturn(channelMock).when(ctxMock).channel();
-        doReturn(tooManyOpenConnectionsAttributeMock).when(channelMock)
-                                                     .attr(TOO_MANY_OPEN_CONNECTIONS_THIS_CHANNEL_SHOULD_CLOSE);
-        doReturn(true).when(channelMock).isOpen();
+        ipAddress = InetAddress.getByName("10.1.2.3");
+        otherIpAddress = InetAddress.getByName("10.3.2.1");
+    }
 
-        eventLoopMock = mock(EventLoop.class);
-        closeFutureMock = mock(ChannelFuture.class);
-        doReturn(eventLoopMock).when(channelMock).eventLoop();
-        doReturn(closeFutureMock).when(channelMock).closeFuture();
+    private static class ChildChannelMocks {
+        final Channel channelMock = mock(Channel.class);
+        final Channel.Unsafe unsafeMock = mock(Channel.Unsafe.class);
+        final ChannelFuture closeFutureMock = mock(ChannelFuture.class);
 
-        doubleCheckScheduledFutureMock = mock(ScheduledFuture.class);
-        doubleCheckRunnableCaptor = ArgumentCaptor.forClass(Runnable.class);
-        closeFutureListenerCaptor = ArgumentCaptor.forClass(GenericFutureListener.class);
+        ChildChannelMocks(InetAddress remoteIpAddress) {
+            doReturn(unsafeMock).when(channelMock).unsafe();
+            doReturn(closeFutureMock).when(channelMock).closeFuture();
+            doReturn(new InetSocketAddress(remoteIpAddress, 4242)).when(channelMock).remoteAddress();
+        }
 
-        doReturn(doubleCheckScheduledFutureMock).when(eventLoopMock)
-                                                .schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
-        doReturn(false).when(doubleCheckScheduledFutureMock).isDone();
+        @SuppressWarnings("unchecked")
+        void simulateClose() throws Exception {
+            ArgumentCaptor<GenericFutureListener> listenerCaptor = ArgumentCaptor.forClass(GenericFutureListener.class);
+            verify(closeFutureMock).addListener(listenerCaptor.capture());
+            listenerCaptor.getValue().operationComplete(closeFutureMock);
+        }
 
-        channelGroupMock = mock(ChannelGroup.class);
-        maxOpenChannelsThreshold = 42;
+        void verifyAccepted(ChannelHandlerContext ctxMock) {
+            verify(ctxMock).fireChannelRead(channelMock);
+            verify(unsafeMock, never()).closeForcibly();
+        }
 
-        handler = new OpenChannelLimitHandler(channelGroupMock, maxOpenChannelsThreshold);
+        void verifyRejected(ChannelHandlerContext ctxMock) {
+            verify(ctxMock, never()).fireChannelRead(channelMock);
+            verify(unsafeMock).closeForcibly();
+            verifyNoInteractions(closeFutureMock);
+        }
     }
 
     @Test
     public void constructor_sets_fields_as_expected() {
         // when
-        OpenChannelLimitHandler instance = new OpenChannelLimitHandler(channelGroupMock, maxOpenChannelsThreshold);
+        OpenChannelLimitHandler instance = new OpenChannelLimitHandler(42, 7);
 
         // then
-        assertThat((Object)instance.openChannelsGroup).isEqualTo(channelGroupMock);
-        assertThat(instance.maxOpenChannelsThreshold).isEqualTo(maxOpenChannelsThreshold);
+        assertThat(instance.maxOpenChannelsThreshold).isEqualTo(42);
+        assertThat(instance.maxOpenChannelsPerIpAddressThreshold).isEqualTo(7);
     }
 
+    @DataProvider(value = {
+        "0      |   -1",
+        "-2     |   -1",
+        "-1     |   0",
+        "-1     |   -2",
+    }, splitBy = "\\|")
     @Test
-    public void constructor_throws_IllegalArgumentException_if_ChannelGroup_is_null() {
+    public void constructor_throws_IllegalArgumentException_if_threshold_is_not_negative_1_or_at_least_1(
+        int maxOpenChannels, int maxOpenChannelsPerIpAddress
+    ) {
         // when
-        Throwable ex = catchThrowable(() -> new OpenChannelLimitHandler(null, maxOpenChannelsThreshold));
+        Throwable ex = catchThrowable(() -> new OpenChannelLimitHandler(maxOpenChannels, maxOpenChannelsPerIpAddress));
 
         // then
         assertThat(ex).isInstanceOf(IllegalArgumentException.class);
     }
 
     @Test
-    public void constructor_throws_IllegalArgumentException_if_threshold_is_less_than_1() {
-        // when
-        Throwable ex = catchThrowable(() -> new OpenChannelLimitHandler(channelGroupMock, 0));
-
-        // then
-        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
-    }
-
-    private void setActualOpenChannels(int actualOpenChannels) {
-        doReturn(actualOpenChannels).when(channelGroupMock).size();
+    public void handler_is_sharable() {
+        // expect
+        assertThat(OpenChannelLimitHandler.class.isAnnotationPresent(ChannelHandler.Sharable.class)).isTrue();
     }
 
-    private Pair<Runnable, GenericFutureListener> extractDoubleCheckRunnableAndCloseFutureListener() {
-        verify(eventLoopMock).schedule(doubleCheckRunnableCaptor.capture(), anyLong(), any(TimeUnit.class));
-        verify(closeFutureMock).addListener(closeFutureListenerCaptor.capture());
-        return Pair.of(doubleCheckRunnableCaptor.getValue(), closeFutureListenerCaptor.getValue());
-    }
+    @Test
+    public void channelRead_passes_through_non_Channel_messages() {
+        // given
+        OpenChannelLimitHandler handler = new OpenChannelLimitHandler(1, 1);
+        Object msg = new Object();
 
-    private void verifyDoubleCheckFuture(Runnable future) {
-        // If channel is open then the future should close it.
-        reset(channelMock);
-        doReturn(true).when(channelMock).isOpen();
-        future.run();
-        verify(channelMock).isOpen();
-        verify(channelMock).close();
-        verifyNoMoreInteractions(channelMock);
-
-        // And when the channel is already closed then it doesn't do anything.
-        reset(channelMock);
-        doReturn(false).when(channelMock).isOpen();
-        future.run();
-        verify(channelMock).isOpen();
-        verifyNoMoreInteractions(channelMock);
-    }
+        // when
+        handler.channelRead(ctxMock, msg);
 
-    private void verifyCloseFutureListener(GenericFutureListener closeFutureListener) throws Exception {
-        // If the double-check ScheduledFuture is not done then it cancels it.
-        reset(doubleCheckScheduledFutureMock);
-        doReturn(false).when(doubleCheckScheduledFutureMock).isDone();
-        closeFutureListener.operationComplete(null);
-        verify(doubleCheckScheduledFutureMock).isDone();
-        verify(doubleCheckScheduledFutureMock).cancel(false);
-        verifyNoMoreInteractions(doubleCheckScheduledFutureMock);
-
-        // And when the double-check ScheduledFuture is done, then nothing happens.
-        reset(doubleCheckScheduledFutureMock);
-        doReturn(true).when(doubleCheckScheduledFutureMock).isDone();
-        closeFutureListener.operationComplete(null);
-        verify(doubleCheckScheduledFutureMock).isDone();
-        verifyNoMoreInteractions(doubleCheckScheduledFutureMock);
+        // then
+        verify(ctxMock).fireChannelRead(msg);
+        assertThat(handler.getOpenChannelsCount()).isZero();
     }
 
-    @DataProvider(value = {
-        "0",
-        "1"
-    })
     @Test
-    public void doChannelActive_marks_and_schedules_double_check_timeout_if_too_many_open_channels(
-        int numOpenChannelsGreaterThanMax
-    ) throws Exception {
+    public void channelRead_closes_new_channels_over_the_max_open_channels_threshold_until_a_channel_closes()
+        throws Exception {
         // given
-        int actualOpenChannels = maxOpenChannelsThreshold + numOpenChannelsGreaterThanMax;
-        setActualOpenChannels(actualOpenChannels);
+        OpenChannelLimitHandler handler = new OpenChannelLimitHandler(2, -1);
+        List<ChildChannelMocks> accepted = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            ChildChannelMocks child = new ChildChannelMocks(ipAddress);
+            handler.channelRead(ctxMock, child.channelMock);
+            child.verifyAccepted(ctxMock);
+            accepted.add(child);
+        }
+        assertThat(handler.getOpenChannelsCount()).isEqualTo(2);
 
         // when
-        PipelineContinuationBehavior result = handler.doChannelActive(ctxMock);
+        ChildChannelMocks overLimit = new ChildChannelMocks(otherIpAddress);
+        handler.channelRead(ctxMock, overLimit.channelMock);
 
         // then
-        assertThat(result).isEqualTo(CONTINUE);
-        Pair<Runnable, GenericFutureListener> futureInfoPair = extractDoubleCheckRunnableAndCloseFutureListener();
-        verify(tooManyOpenConnectionsAttributeMock).set(actualOpenChannels);
-        verifyDoubleCheckFuture(futureInfoPair.getLeft());
-        verifyCloseFutureListener(futureInfoPair.getRight());
-        verify(channelGroupMock, never()).add(channelMock);
+        overLimit.verifyRejected(ctxMock);
+        assertThat(handler.getOpenChannelsCount()).isEqualTo(2);
+        assertThat(handler.getRejectedChannelsCount()).isEqualTo(1);
+
+        // and when
+        accepted.get(0).simulateClose();
+        ChildChannelMocks afterClose = new ChildChannelMocks(otherIpAddress);
+        handler.channelRead(ctxMock, afterClose.channelMock);
+
+        // then
+        afterClose.verifyAccepted(ctxMock);
+        assertThat(handler.getOpenChannelsCount()).isEqualTo(2);
+        // No per-IP limit, so nothing is tracked per IP.
+        assertThat(handler.getOpenChannelsCount(ipAddress)).isZero();
     }
 
     @Test
-    public void doChannelActive_adds_channel_to_channelGroup_if_open_channel_count_lower_than_max_threshold()
+    public void channelRead_closes_new_channels_over_the_per_ip_threshold_without_affecting_other_ips()
         throws Exception {
         // given
-        setActualOpenChannels(maxOpenChannelsThreshold - 1);
+        OpenChannelLimitHandler handler = new OpenChannelLimitHandler(-1, 2);
+        List<ChildChannelMocks> accepted = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            ChildChannelMocks child = new ChildChannelMocks(ipAddress);
+            handler.channelRead(ctxMock, child.channelMock);
+            child.verifyAccepted(ctxMock);
+            accepted.add(child);
+        }
 
         // when
-        PipelineContinuationBehavior result = handler.doChannelActive(ctxMock);
+        ChildChannelMocks overLimit = new ChildChannelMocks(ipAddress);
+        handler.channelRead(ctxMock, overLimit.channelMock);
+        ChildChannelMocks otherIp = new ChildChannelMocks(otherIpAddress);
+        handler.channelRead(ctxMock, otherIp.channelMock);
 
         // then
-        assertThat(result).isEqualTo(CONTINUE);
-        verify(channelGroupMock).add(channelMock);
+        overLimit.verifyRejected(ctxMock);
+        otherIp.verifyAccepted(ctxMock);
+        assertThat(handler.getOpenChannelsCount(ipAddress)).isEqualTo(2);
+        assertThat(handler.getOpenChannelsCount(otherIpAddress)).isEqualTo(1);
+        assertThat(handler.getOpenChannelsCount()).isEqualTo(3);
+        assertThat(handler.getRejectedChannelsCount()).isEqualTo(1);
+
+        // and when
+        for (ChildChannelMocks child : accepted) {
+            child.simulateClose();
+        }
+
+        // then
+        assertThat(handler.getOpenChannelsCount(ipAddress)).isZero();
+        assertThat(handler.openChannelsPerIpAddress).doesNotContainKey(ipAddress);
+        assertThat(handler.getOpenChannelsCount()).isEqualTo(1);
     }
 
-    @DataProvider(value = {
-        "null   |   false",
-        "-1     |   false",
-        "0      |   true",
-        "1      |   true"
-    }, splitBy = "\\|")
     @Test
-    public void doChannelRead_throws_TooManyOpenChannelsException_or_not_depending_on_the_number_of_open_channels(
-        Integer numOpenChannelsDiffFromMaxThreshold, boolean expectTooManyOpenChannelsException
-    ) {
+    public void channelRead_does_not_count_a_channel_rejected_by_the_per_ip_threshold_against_the_global_threshold() {
         // given
-        Integer numOpenChannels = (numOpenChannelsDiffFromMaxThreshold == null)
-                                  ? null
-                                  : maxOpenChannelsThreshold + numOpenChannelsDiffFromMaxThreshold;
-        doReturn(numOpenChannels).when(tooManyOpenConnectionsAttributeMock).get();
+        OpenChannelLimitHandler handler = new OpenChannelLimitHandler(2, 1);
+        ChildChannelMocks first = new ChildChannelMocks(ipAddress);
+        ChildChannelMocks secondFromSameIp = new ChildChannelMocks(ipAddress);
+        ChildChannelMocks otherIp = new ChildChannelMocks(otherIpAddress);
 
         // when
-        Throwable ex = null;
-        PipelineContinuationBehavior result = null;
-        try {
-            result = handler.doChannelRead(ctxMock, msg);
-        }
-        catch (Throwable t) {
-            ex = t;
-        }
+        handler.channelRead(ctxMock, first.channelMock);
+        handler.channelRead(ctxMock, secondFromSameIp.channelMock);
+        handler.channelRead(ctxMock, otherIp.channelMock);
 
         // then
-        if (expectTooManyOpenChannelsException) {
-            assertThat(ex).isInstanceOf(TooManyOpenChannelsException.class);
-        }
-        else {
-            assertThat(ex).isNull();
-            assertThat(result).isEqualTo(CONTINUE);
-        }
+        first.verifyAccepted(ctxMock);
+        secondFromSameIp.verifyRejected(ctxMock);
+        otherIp.verifyAccepted(ctxMock);
+        assertThat(handler.getOpenChannelsCount()).isEqualTo(2);
     }
-}
\ No newline at end of file
+}
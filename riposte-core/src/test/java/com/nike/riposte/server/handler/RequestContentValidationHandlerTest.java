@@ -7,12 +7,14 @@ import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.util.InstrumentedThreadPoolExecutor;
 
 import org.junit.Before;
 import org.junit.Test;
 import com.nike.riposte.testutils.Whitebox;
 
 import java.util.UUID;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 
 import io.netty.channel.Channel;
@@ -86,6 +88,26 @@ public class RequestContentValidationHandlerTest {
         assertThat(validatorUsed).isEqualTo(requestValidatorMock);
     }
 
+    @Test
+    public void constructor_uses_passed_in_executor_or_bounded_default_if_null() {
+        // given
+        Executor customExecutor = mock(Executor.class);
+
+        // when
+        RequestContentValidationHandler customHandler =
+            new RequestContentValidationHandler(requestValidatorMock, customExecutor);
+        RequestContentValidationHandler defaultHandler = new RequestContentValidationHandler(requestValidatorMock, null);
+
+        // then
+        assertThat(Whitebox.getInternalState(customHandler, "asyncValidationExecutor")).isSameAs(customExecutor);
+        Object defaultExecutor = Whitebox.getInternalState(defaultHandler, "asyncValidationExecutor");
+        assertThat(defaultExecutor).isInstanceOf(InstrumentedThreadPoolExecutor.class);
+        assertThat(((InstrumentedThreadPoolExecutor) defaultExecutor).getName())
+            .isEqualTo(InstrumentedThreadPoolExecutor.REQUEST_CONTENT_VALIDATION_EXECUTOR_NAME);
+        assertThat(((InstrumentedThreadPoolExecutor) defaultExecutor).getMaxQueueSize())
+            .isEqualTo(InstrumentedThreadPoolExecutor.DEFAULT_VALIDATION_MAX_QUEUE_SIZE);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void constructor_throws_IllegalArgumentException_if_passed_null() {
         // expect
@@ -0,0 +1,185 @@
+package com.nike.riposte.server.handler;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.config.ServerConfig.RequestDeadlineConfig;
+import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.RequestDeadline;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.testutils.Whitebox;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.TimeUnit;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.util.Attribute;
+
+import static com.nike.riposte.server.handler.base.PipelineContinuationBehavior.CONTINUE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Tests the functionality of {@link RequestDeadlineHandler}.
+ */
+@RunWith(DataProviderRunner.class)
+public class RequestDeadlineHandlerTest {
+
+    private RequestInfo<?> requestInfoMock;
+    private HttpHeaders headers;
+
+    private ChannelHandlerContext ctxMock;
+    private Attribute<HttpProcessingState> stateAttributeMock;
+    private HttpProcessingState state;
+
+    private HttpRequest msg = mock(HttpRequest.class);
+
+    private RequestDeadlineHandler handler;
+
+    @Before
+    public void beforeMethod() {
+        requestInfoMock = mock(RequestInfo.class);
+        headers = new DefaultHttpHeaders();
+        doReturn(headers).when(requestInfoMock).getHeaders();
+
+        Channel channelMock = mock(Channel.class);
+        ctxMock = mock(ChannelHandlerContext.class);
+        stateAttributeMock = mock(Attribute.class);
+        state = new HttpProcessingState();
+        state.setRequestInfo(requestInfoMock);
+        state.setRequestStartTimeNanos(System.nanoTime());
+
+        doReturn(channelMock).when(ctxMock).channel();
+        doReturn(stateAttributeMock).when(channelMock).attr(ChannelAttributes.HTTP_PROCESSING_STATE_ATTRIBUTE_KEY);
+        doReturn(state).when(stateAttributeMock).get();
+
+        handler = new RequestDeadlineHandler(RequestDeadlineConfig.DEFAULT_IMPL);
+    }
+
+    @Test
+    public void constructor_sets_fields_based_on_args() {
+        // given
+        RequestDeadlineConfig config = new RequestDeadlineConfig() {};
+
+        // when
+        RequestDeadlineHandler theHandler = new RequestDeadlineHandler(config);
+
+        // then
+        assertThat(Whitebox.getInternalState(theHandler, "requestDeadlineConfig")).isSameAs(config);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_requestDeadlineConfig_is_null() {
+        // when
+        Throwable ex = catchThrowable(() -> new RequestDeadlineHandler(null));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void doChannelRead_sets_deadline_based_on_timeout_header_and_request_start_time(
+        boolean requestStartTimeIsNull
+    ) throws Exception {
+        // given
+        headers.set(RequestDeadlineConfig.DEFAULT_IMPL.timeoutHeaderName(), "1500");
+        Long requestStartTimeNanos = state.getRequestStartTimeNanos();
+        if (requestStartTimeIsNull)
+            state.setRequestStartTimeNanos(null);
+        long beforeNanoTime = System.nanoTime();
+
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, msg);
+
+        // then
+        long afterNanoTime = System.nanoTime();
+        assertThat(result).isEqualTo(CONTINUE);
+        ArgumentCaptor<RequestDeadline> deadlineCaptor = ArgumentCaptor.forClass(RequestDeadline.class);
+        verify(requestInfoMock).setDeadline(deadlineCaptor.capture());
+        RequestDeadline deadline = deadlineCaptor.getValue();
+        assertThat(deadline.getTimeoutMillis()).isEqualTo(1500);
+        assertThat(deadline.getPropagationHeaderName())
+            .isEqualTo(RequestDeadlineConfig.DEFAULT_IMPL.propagatedTimeoutHeaderName());
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(1500);
+        if (requestStartTimeIsNull) {
+            assertThat(deadline.getDeadlineNanoTime())
+                .isBetween(beforeNanoTime + timeoutNanos, afterNanoTime + timeoutNanos);
+        }
+        else {
+            assertThat(deadline.getDeadlineNanoTime()).isEqualTo(requestStartTimeNanos + timeoutNanos);
+        }
+    }
+
+    @DataProvider(value = {
+        "null",
+        "-1",
+        "notanumber"
+    }, splitBy = "\\|")
+    @Test
+    public void doChannelRead_does_not_set_deadline_if_timeout_header_is_missing_or_invalid(
+        String headerValue
+    ) throws Exception {
+        // given
+        if (headerValue != null)
+            headers.set(RequestDeadlineConfig.DEFAULT_IMPL.timeoutHeaderName(), headerValue);
+
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, msg);
+
+        // then
+        assertThat(result).isEqualTo(CONTINUE);
+        verify(requestInfoMock, never()).setDeadline(any());
+    }
+
+    @Test
+    public void doChannelRead_does_nothing_if_there_is_no_RequestInfo() throws Exception {
+        // given
+        state.setRequestInfo(null);
+
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, msg);
+
+        // then
+        assertThat(result).isEqualTo(CONTINUE);
+        verifyNoInteractions(requestInfoMock);
+    }
+
+    @Test
+    public void doChannelRead_does_nothing_if_msg_is_not_HttpRequest() throws Exception {
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, mock(HttpContent.class));
+
+        // then
+        assertThat(result).isEqualTo(CONTINUE);
+        verifyNoInteractions(requestInfoMock);
+        verifyNoInteractions(stateAttributeMock);
+    }
+
+    @Test
+    public void argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo_returns_false() {
+        // expect
+        assertThat(handler.argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo(null, null, null, null))
+            .isFalse();
+    }
+}
@@ -15,6 +15,7 @@ import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseInfo;
 import com.nike.riposte.server.http.StandardEndpoint;
+import com.nike.riposte.server.http.websocket.WebSocketEndpoint;
 import com.nike.riposte.util.Matcher;
 import com.nike.wingtips.Span;
 
@@ -42,11 +43,16 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.DecoderResult;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpObject;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.util.Attribute;
 
+import static io.netty.handler.codec.http.HttpHeaderNames.CONNECTION;
+import static io.netty.handler.codec.http.HttpHeaderNames.SEC_WEBSOCKET_KEY;
+import static io.netty.handler.codec.http.HttpHeaderNames.SEC_WEBSOCKET_VERSION;
+import static io.netty.handler.codec.http.HttpHeaderNames.UPGRADE;
 import static io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_LENGTH;
 import static io.netty.handler.codec.http.HttpHeaders.Names.TRANSFER_ENCODING;
 import static io.netty.handler.codec.http.HttpHeaders.Values.CHUNKED;
@@ -364,6 +370,39 @@ public class RoutingHandlerTest {
         assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
     }
 
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void doChannelRead_HttpRequest_for_WebSocketEndpoint_throws_InvalidHttpRequestException_only_if_not_upgrade_request(
+        boolean isUpgradeRequest
+    ) {
+        // given
+        WebSocketEndpoint webSocketEndpointMock = mock(WebSocketEndpoint.class);
+        doReturn(matcherMock).when(webSocketEndpointMock).requestMatcher();
+        endpoints.clear();
+        endpoints.add(webSocketEndpointMock);
+        doReturn(HttpMethod.GET).when(msg).method();
+        if (isUpgradeRequest) {
+            httpHeaders.set(CONNECTION, "keep-alive, Upgrade");
+            httpHeaders.set(UPGRADE, "websocket");
+            httpHeaders.set(SEC_WEBSOCKET_KEY, "dGhlIHNhbXBsZSBub25jZQ==");
+            httpHeaders.set(SEC_WEBSOCKET_VERSION, "13");
+        }
+
+        // when
+        Throwable thrownException = Assertions.catchThrowable(() -> handlerSpy.doChannelRead(ctxMock, msg));
+
+        // then
+        if (isUpgradeRequest) {
+            assertThat(thrownException).isNull();
+        }
+        else {
+            assertThat(thrownException).isExactlyInstanceOf(InvalidHttpRequestException.class);
+        }
+    }
+
     @DataProvider(value = {
             "true",
             "false"
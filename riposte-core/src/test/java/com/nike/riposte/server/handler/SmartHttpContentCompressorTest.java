@@ -0,0 +1,453 @@
+package com.nike.riposte.server.handler;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.config.ServerConfig.ResponseCompressionConfig;
+import com.nike.riposte.server.handler.compression.AdaptiveCompressionController;
+import com.nike.riposte.server.handler.compression.BrotliCompressionEncoder;
+import com.nike.riposte.server.handler.compression.ResponseCompressionLevels;
+import com.nike.riposte.server.handler.compression.ZstdCompressionEncoder;
+import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.testutils.Whitebox;
+
+import com.aayushatharva.brotli4j.decoder.Decoder;
+import com.aayushatharva.brotli4j.decoder.DecoderJNI;
+import com.aayushatharva.brotli4j.decoder.DirectDecompress;
+import com.github.luben.zstd.Zstd;
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the functionality of {@link SmartHttpContentCompressor}.
+ */
+@RunWith(DataProviderRunner.class)
+public class SmartHttpContentCompressorTest {
+
+    static final String REPRESENTATIVE_JSON_PAYLOAD = generateRepresentativeJsonPayload(500);
+
+    @Test
+    public void threshold_only_constructor_uses_default_compression_config() {
+        // when
+        SmartHttpContentCompressor compressor = new SmartHttpContentCompressor(42);
+
+        // then
+        assertThat(Whitebox.getInternalState(compressor, "responseSizeThresholdBytes")).isEqualTo(42L);
+        assertThat(Whitebox.getInternalState(compressor, "compressionConfig"))
+            .isSameAs(ResponseCompressionConfig.DEFAULT_IMPL);
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void config_constructor_works_as_expected(boolean nullConfig) {
+        // given
+        ResponseCompressionConfig config = (nullConfig) ? null : new ResponseCompressionConfig() {};
+
+        // when
+        SmartHttpContentCompressor compressor = new SmartHttpContentCompressor(config, 42);
+
+        // then
+        assertThat(Whitebox.getInternalState(compressor, "responseSizeThresholdBytes")).isEqualTo(42L);
+        assertThat(Whitebox.getInternalState(compressor, "compressionConfig"))
+            .isSameAs((nullConfig) ? ResponseCompressionConfig.DEFAULT_IMPL : config);
+    }
+
+    @DataProvider(value = {
+        "null                                   |   null",
+        "identity                               |   null",
+        "gzip                                   |   gzip",
+        "x-gzip                                 |   gzip",
+        "deflate                                |   deflate",
+        "br                                     |   br",
+        "zstd                                   |   zstd",
+        "gzip, deflate, br, zstd                |   br",
+        "gzip, deflate, zstd                    |   zstd",
+        "deflate, gzip                          |   gzip",
+        "br;q=0.5, gzip;q=0.8                   |   gzip",
+        "br;q=0.8, zstd;q=0.9                   |   zstd",
+        "GZIP;Q=0.1, Br;q=0.2                   |   br",
+        "br;q=0, gzip;q=0                       |   null",
+        "*                                      |   br",
+        "*;q=0.5, gzip                          |   gzip",
+        "br;q=0, *                              |   zstd",
+        "gzip;q=notanumber, deflate             |   deflate",
+        "foo, bar                               |   null"
+    }, splitBy = "\\|")
+    @Test
+    public void selectContentEncoding_chooses_highest_q_value_with_server_preference_for_ties(
+        String acceptEncoding, String expectedEncoding
+    ) {
+        // given
+        SmartHttpContentCompressor compressor = compressorWithBrotliAndZstdAllowed(true, true);
+
+        // expect
+        assertThat(compressor.selectContentEncoding(acceptEncoding)).isEqualTo(expectedEncoding);
+    }
+
+    @DataProvider(value = {
+        "true   |   true    |   br",
+        "false  |   true    |   zstd",
+        "true   |   false   |   br",
+        "false  |   false   |   gzip"
+    }, splitBy = "\\|")
+    @Test
+    public void selectContentEncoding_never_chooses_disallowed_encodings(
+        boolean brotliAllowed, boolean zstdAllowed, String expectedEncoding
+    ) {
+        // given
+        SmartHttpContentCompressor compressor = compressorWithBrotliAndZstdAllowed(brotliAllowed, zstdAllowed);
+
+        // expect
+        assertThat(compressor.selectContentEncoding("br, zstd, gzip, deflate")).isEqualTo(expectedEncoding);
+    }
+
+    @Test
+    public void selectContentEncoding_honors_config_enabled_flags() {
+        // given
+        ResponseCompressionConfig config = new ResponseCompressionConfig() {
+            @Override
+            public boolean isBrotliEnabled() {
+                return false;
+            }
+
+            @Override
+            public boolean isZstdEnabled() {
+                return false;
+            }
+        };
+        SmartHttpContentCompressor compressor = new SmartHttpContentCompressor(config, 0);
+
+        // expect
+        assertThat(compressor.isBrotliAllowed()).isFalse();
+        assertThat(compressor.isZstdAllowed()).isFalse();
+        assertThat(compressor.selectContentEncoding("br, zstd, gzip")).isEqualTo("gzip");
+    }
+
+    @Test
+    public void brotli_response_round_trips() throws Exception {
+        assumeTrue("brotli is not available on this platform", BrotliCompressionEncoder.isAvailable());
+
+        // when
+        CompressedResponse response = compressThroughChannel(
+            new SmartHttpContentCompressor(0), "br", REPRESENTATIVE_JSON_PAYLOAD, null
+        );
+
+        // then
+        assertThat(response.contentEncoding).isEqualTo("br");
+        assertThat(new String(brotliDecompress(response.body), StandardCharsets.UTF_8))
+            .isEqualTo(REPRESENTATIVE_JSON_PAYLOAD);
+    }
+
+    @Test
+    public void zstd_response_round_trips() throws Exception {
+        assumeTrue("zstd is not available on this platform", ZstdCompressionEncoder.isAvailable());
+
+        // when
+        CompressedResponse response = compressThroughChannel(
+            new SmartHttpContentCompressor(0), "zstd", REPRESENTATIVE_JSON_PAYLOAD, null
+        );
+
+        // then
+        assertThat(response.contentEncoding).isEqualTo("zstd");
+        assertThat(new String(zstdDecompress(response.body), StandardCharsets.UTF_8))
+            .isEqualTo(REPRESENTATIVE_JSON_PAYLOAD);
+    }
+
+    @Test
+    public void gzip_response_round_trips() throws Exception {
+        // when
+        CompressedResponse response = compressThroughChannel(
+            new SmartHttpContentCompressor(0), "gzip", REPRESENTATIVE_JSON_PAYLOAD, null
+        );
+
+        // then
+        assertThat(response.contentEncoding).isEqualTo("gzip");
+        assertThat(new String(gzipDecompress(response.body), StandardCharsets.UTF_8))
+            .isEqualTo(REPRESENTATIVE_JSON_PAYLOAD);
+    }
+
+    @DataProvider(value = {
+        "br, deflate                |   deflate",
+        "zstd;q=1, gzip;q=0.5       |   gzip",
+        "gzip;q=0.5, deflate        |   deflate",
+        "*;q=0.5, gzip;q=0          |   deflate",
+        "x-gzip                     |   gzip"
+    }, splitBy = "\\|")
+    @Test
+    public void gzip_and_deflate_responses_use_the_encoding_chosen_by_selectContentEncoding(
+        String acceptEncoding, String expectedEncoding
+    ) throws Exception {
+        // given
+        SmartHttpContentCompressor compressor = compressorWithBrotliAndZstdAllowed(false, false);
+        assertThat(compressor.selectContentEncoding(acceptEncoding)).isEqualTo(expectedEncoding);
+
+        // when
+        CompressedResponse response = compressThroughChannel(
+            compressor, acceptEncoding, REPRESENTATIVE_JSON_PAYLOAD, null
+        );
+
+        // then
+        assertThat(response.contentEncoding).isEqualTo(expectedEncoding);
+        byte[] decompressed = ("gzip".equals(expectedEncoding))
+                              ? gzipDecompress(response.body)
+                              : deflateDecompress(response.body);
+        assertThat(new String(decompressed, StandardCharsets.UTF_8)).isEqualTo(REPRESENTATIVE_JSON_PAYLOAD);
+    }
+
+    @Test
+    public void gzip_uses_compression_level_passed_to_constructor() throws Exception {
+        // when
+        CompressedResponse response = compressThroughChannel(
+            new SmartHttpContentCompressor(1, 0), "gzip", REPRESENTATIVE_JSON_PAYLOAD, null
+        );
+
+        // then
+        assertThat(response.contentEncoding).isEqualTo("gzip");
+        assertThat(new String(gzipDecompress(response.body), StandardCharsets.UTF_8))
+            .isEqualTo(REPRESENTATIVE_JSON_PAYLOAD);
+        // Level 1 output should be bigger than the default level 6 output for this payload.
+        assertThat(response.body.length).isGreaterThan(gzipAtLevel(REPRESENTATIVE_JSON_PAYLOAD, 6).length);
+    }
+
+    @DataProvider(value = {
+        "br",
+        "zstd",
+        "gzip"
+    })
+    @Test
+    public void threshold_and_preventCompressedOutput_rules_apply_to_all_encodings(String acceptEncoding)
+        throws Exception {
+        // given
+        SmartHttpContentCompressor compressor = compressorWithBrotliAndZstdAllowed(true, true);
+        String smallPayload = "{\"foo\":\"bar\"}";
+        ResponseInfo<?> preventCompressionResponseInfo = ResponseInfo.newBuilder()
+                                                                     .withPreventCompressedOutput(true)
+                                                                     .build();
+
+        // when
+        CompressedResponse belowThreshold = compressThroughChannel(
+            new SmartHttpContentCompressor(smallPayload.length()), acceptEncoding, smallPayload, null
+        );
+        CompressedResponse prevented = compressThroughChannel(
+            compressor, acceptEncoding, REPRESENTATIVE_JSON_PAYLOAD, preventCompressionResponseInfo
+        );
+
+        // then
+        assertThat(belowThreshold.contentEncoding).isNull();
+        assertThat(new String(belowThreshold.body, StandardCharsets.UTF_8)).isEqualTo(smallPayload);
+        assertThat(prevented.contentEncoding).isNull();
+        assertThat(new String(prevented.body, StandardCharsets.UTF_8)).isEqualTo(REPRESENTATIVE_JSON_PAYLOAD);
+    }
+
+    @Test
+    public void adaptive_mode_uses_threshold_from_current_levels() {
+        // given
+        AdaptiveCompressionController controllerMock = mock(AdaptiveCompressionController.class);
+        int payloadSize = REPRESENTATIVE_JSON_PAYLOAD.getBytes(StandardCharsets.UTF_8).length;
+        doReturn(new ResponseCompressionLevels(3, 1, 0, 1, payloadSize)).when(controllerMock).currentLevels();
+        SmartHttpContentCompressor compressor = new SmartHttpContentCompressor(
+            ResponseCompressionConfig.DEFAULT_IMPL, 0, controllerMock
+        );
+
+        // when
+        CompressedResponse response = compressThroughChannel(compressor, "gzip", REPRESENTATIVE_JSON_PAYLOAD, null);
+
+        // then
+        assertThat(response.contentEncoding).isNull();
+        assertThat(new String(response.body, StandardCharsets.UTF_8)).isEqualTo(REPRESENTATIVE_JSON_PAYLOAD);
+    }
+
+    @Test
+    public void adaptive_mode_uses_gzip_level_from_current_levels() throws Exception {
+        // given
+        AdaptiveCompressionController controllerMock = mock(AdaptiveCompressionController.class);
+        doReturn(new ResponseCompressionLevels(5, 1, 0, 1, 0)).when(controllerMock).currentLevels();
+        SmartHttpContentCompressor compressor = new SmartHttpContentCompressor(
+            ResponseCompressionConfig.DEFAULT_IMPL, 0, controllerMock
+        );
+
+        // when
+        CompressedResponse response = compressThroughChannel(compressor, "gzip", REPRESENTATIVE_JSON_PAYLOAD, null);
+
+        // then
+        assertThat(response.contentEncoding).isEqualTo("gzip");
+        assertThat(new String(gzipDecompress(response.body), StandardCharsets.UTF_8))
+            .isEqualTo(REPRESENTATIVE_JSON_PAYLOAD);
+        // Level 1 output should be bigger than the default level 6 output for this payload.
+        assertThat(response.body.length).isGreaterThan(gzipAtLevel(REPRESENTATIVE_JSON_PAYLOAD, 6).length);
+    }
+
+    @DataProvider(value = {
+        "-1",
+        "12"
+    })
+    @Test
+    public void BrotliCompressionEncoder_constructor_throws_on_invalid_quality(int quality) {
+        // when
+        Throwable ex = catchThrowable(() -> new BrotliCompressionEncoder(quality));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DataProvider(value = {
+        "0",
+        "23"
+    })
+    @Test
+    public void ZstdCompressionEncoder_constructor_throws_on_invalid_level(int level) {
+        // when
+        Throwable ex = catchThrowable(() -> new ZstdCompressionEncoder(level));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private SmartHttpContentCompressor compressorWithBrotliAndZstdAllowed(boolean brotliAllowed,
+                                                                          boolean zstdAllowed) {
+        return new SmartHttpContentCompressor(ResponseCompressionConfig.DEFAULT_IMPL, 0) {
+            @Override
+            protected boolean isBrotliAllowed() {
+                return brotliAllowed;
+            }
+
+            @Override
+            protected boolean isZstdAllowed() {
+                return zstdAllowed;
+            }
+        };
+    }
+
+    static CompressedResponse compressThroughChannel(SmartHttpContentCompressor compressor,
+                                                     String acceptEncoding,
+                                                     String payload,
+                                                     ResponseInfo<?> responseInfo) {
+        EmbeddedChannel channel = new EmbeddedChannel(compressor);
+        try {
+            HttpProcessingState state = new HttpProcessingState();
+            state.setResponseInfo(responseInfo, null);
+            channel.attr(ChannelAttributes.HTTP_PROCESSING_STATE_ATTRIBUTE_KEY).set(state);
+
+            FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/foo");
+            request.headers().set(HttpHeaderNames.ACCEPT_ENCODING, acceptEncoding);
+            channel.writeInbound(request);
+            ReferenceCountUtil.release(channel.readInbound());
+
+            channel.writeOutbound(new DefaultFullHttpResponse(
+                HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.copiedBuffer(payload, StandardCharsets.UTF_8)
+            ));
+
+            String contentEncoding = null;
+            ByteBuf body = Unpooled.buffer();
+            Object msg;
+            while ((msg = channel.readOutbound()) != null) {
+                if (msg instanceof HttpResponse) {
+                    contentEncoding = ((HttpResponse) msg).headers().get(HttpHeaderNames.CONTENT_ENCODING);
+                }
+                if (msg instanceof HttpContent) {
+                    body.writeBytes(((HttpContent) msg).content());
+                }
+                ReferenceCountUtil.release(msg);
+            }
+
+            byte[] bodyBytes = new byte[body.readableBytes()];
+            body.readBytes(bodyBytes);
+            body.release();
+            return new CompressedResponse(contentEncoding, bodyBytes);
+        }
+        finally {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    private static byte[] brotliDecompress(byte[] compressed) throws Exception {
+        DirectDecompress result = Decoder.decompress(compressed);
+        assertThat(result.getResultStatus()).isEqualTo(DecoderJNI.Status.DONE);
+        return result.getDecompressedData();
+    }
+
+    private static byte[] zstdDecompress(byte[] compressed) {
+        return Zstd.decompress(compressed, (int) Zstd.decompressedSize(compressed));
+    }
+
+    private static byte[] gzipDecompress(byte[] compressed) throws Exception {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+
+    private static byte[] deflateDecompress(byte[] compressed) throws Exception {
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(compressed))) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+
+    private static byte[] gzipAtLevel(String payload, int level) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(baos) {{ def.setLevel(level); }}) {
+            out.write(payload.getBytes(StandardCharsets.UTF_8));
+        }
+        return baos.toByteArray();
+    }
+
+    private static String generateRepresentativeJsonPayload(int numItems) {
+        StringBuilder sb = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < numItems; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":\"").append(1_000_000 + i)
+              .append("\",\"name\":\"Product number ").append(i)
+              .append("\",\"price\":").append(19.99 + (i % 37))
+              .append(",\"currency\":\"USD\",\"inStock\":").append(i % 3 != 0)
+              .append(",\"tags\":[\"shoes\",\"running\",\"size-").append(6 + (i % 10))
+              .append("\"],\"description\":\"Lightweight running shoe with responsive cushioning, model ")
+              .append(i % 17).append(".\"}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    static class CompressedResponse {
+        final String contentEncoding;
+        final byte[] body;
+
+        CompressedResponse(String contentEncoding, byte[] body) {
+            this.contentEncoding = contentEncoding;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.nike.riposte.server.handler.coalescing;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.RequestCoalescingConfig;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.cookie.Cookie;
+import io.netty.handler.codec.http.cookie.DefaultCookie;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Tests the functionality of {@link RequestCoalescer}.
+ */
+@RunWith(DataProviderRunner.class)
+public class RequestCoalescerTest {
+
+    private static final long TIMEOUT_MILLIS = 1000;
+
+    private AtomicLong nanoTime;
+    private MetricsListener metricsListenerMock;
+    private Endpoint<?> endpointMock;
+    private RequestCoalescingConfig config;
+    private AtomicInteger endpointExecutionCount;
+    private CompletableFuture<ResponseInfo<?>> endpointResult;
+    private Supplier<CompletableFuture<ResponseInfo<?>>> endpointExecution;
+    private RequestCoalescer coalescer;
+
+    @Before
+    public void beforeMethod() {
+        nanoTime = new AtomicLong(0);
+        metricsListenerMock = mock(MetricsListener.class);
+        doReturn(true).when(metricsListenerMock).isInterestedIn(any(ServerMetricsEvent.class));
+        endpointMock = mock(Endpoint.class);
+        config = RequestCoalescingConfig.DEFAULT_IMPL;
+        endpointExecutionCount = new AtomicInteger();
+        endpointResult = new CompletableFuture<>();
+        endpointExecution = () -> {
+            endpointExecutionCount.incrementAndGet();
+            return endpointResult;
+        };
+        coalescer = new RequestCoalescer(metricsListenerMock, nanoTime::get);
+    }
+
+    private RequestInfo<?> request(HttpMethod method, String uri, HttpHeaders headers) {
+        RequestInfo<?> requestMock = mock(RequestInfo.class);
+        doReturn(method).when(requestMock).getMethod();
+        doReturn(uri).when(requestMock).getUri();
+        doReturn(headers).when(requestMock).getHeaders();
+        return requestMock;
+    }
+
+    private RequestInfo<?> request(String uri) {
+        return request(HttpMethod.GET, uri, new DefaultHttpHeaders().set("Authorization", "someCreds"));
+    }
+
+    private CompletableFuture<ResponseInfo<?>> execute(RequestInfo<?> request) {
+        return coalescer.execute(endpointMock, config, request, TIMEOUT_MILLIS, endpointExecution);
+    }
+
+    @Test
+    public void public_constructor_uses_System_nanoTime() {
+        // when
+        RequestCoalescer theCoalescer = new RequestCoalescer(metricsListenerMock);
+
+        // then
+        assertThat(theCoalescer.metricsListener).isSameAs(metricsListenerMock);
+        long before = System.nanoTime();
+        long actual = theCoalescer.nanoTimeSupplier.getAsLong();
+        assertThat(actual).isBetween(before, System.nanoTime());
+    }
+
+    @Test
+    public void execute_only_executes_endpoint_once_for_identical_concurrent_requests_and_each_waiter_gets_its_own_copy() {
+        // given
+        Object content = new Object();
+        HttpHeaders responseHeaders = new DefaultHttpHeaders().set("foo", "bar");
+        Cookie cookie = new DefaultCookie("someCookie", "someValue");
+        ResponseInfo<Object> response = ResponseInfo.newBuilder(content)
+                                                    .withHttpStatusCode(201)
+                                                    .withHeaders(responseHeaders)
+                                                    .withDesiredContentWriterMimeType("text/plain")
+                                                    .withDesiredContentWriterEncoding(StandardCharsets.UTF_16)
+                                                    .withCookies(Collections.singleton(cookie))
+                                                    .withPreventCompressedOutput(true)
+                                                    .build();
+        response.setForceConnectionCloseAfterResponseSent(true);
+
+        // when
+        CompletableFuture<ResponseInfo<?>> leaderResult = execute(request("/foo?bar=baz"));
+        CompletableFuture<ResponseInfo<?>> followerResult = execute(request("/foo?bar=baz"));
+
+        // then
+        assertThat(endpointExecutionCount.get()).isEqualTo(1);
+        assertThat(coalescer.getCoalescedCount()).isEqualTo(1);
+        assertThat(coalescer.getInFlightCount()).isEqualTo(1);
+        assertThat(leaderResult).isNotDone();
+        assertThat(followerResult).isNotDone();
+
+        // and when
+        endpointResult.complete(response);
+
+        // then
+        assertThat(coalescer.getInFlightCount()).isZero();
+        ResponseInfo<?> leaderResponse = leaderResult.join();
+        ResponseInfo<?> followerResponse = followerResult.join();
+        for (ResponseInfo<?> waiterResponse : new ResponseInfo<?>[]{leaderResponse, followerResponse}) {
+            assertThat(waiterResponse).isNotSameAs(response);
+            assertThat(waiterResponse.getContentForFullResponse()).isSameAs(content);
+            assertThat(waiterResponse.getHttpStatusCode()).isEqualTo(201);
+            assertThat(waiterResponse.getHeaders()).isNotSameAs(responseHeaders);
+            assertThat(waiterResponse.getHeaders().get("foo")).isEqualTo("bar");
+            assertThat(waiterResponse.getDesiredContentWriterMimeType()).isEqualTo("text/plain");
+            assertThat(waiterResponse.getDesiredContentWriterEncoding()).isEqualTo(StandardCharsets.UTF_16);
+            assertThat(waiterResponse.getCookies()).containsExactly(cookie);
+            assertThat(waiterResponse.isPreventCompressedOutput()).isTrue();
+            assertThat(waiterResponse.isForceConnectionCloseAfterResponseSent()).isTrue();
+        }
+        assertThat(leaderResponse).isNotSameAs(followerResponse);
+        assertThat(leaderResponse.getHeaders()).isNotSameAs(followerResponse.getHeaders());
+
+        // and when - mutating one waiter's response doesn't affect the other
+        leaderResponse.getHeaders().set("foo", "changed");
+
+        // then
+        assertThat(followerResponse.getHeaders().get("foo")).isEqualTo("bar");
+    }
+
+    @Test
+    public void execute_notifies_metrics_listener_for_each_coalesced_request() {
+        // when
+        execute(request("/foo"));
+        execute(request("/foo"));
+        execute(request("/foo"));
+
+        // then
+        assertThat(coalescer.getCoalescedCount()).isEqualTo(2);
+        verify(metricsListenerMock, times(2))
+            .onEvent(ServerMetricsEvent.REQUEST_COALESCED, endpointMock);
+    }
+
+    @Test
+    public void execute_starts_a_new_execution_once_the_previous_one_has_finished() {
+        // given
+        execute(request("/foo"));
+        endpointResult.complete(ResponseInfo.newBuilder("first").build());
+        endpointResult = new CompletableFuture<>();
+
+        // when
+        CompletableFuture<ResponseInfo<?>> result = execute(request("/foo"));
+
+        // then
+        assertThat(endpointExecutionCount.get()).isEqualTo(2);
+        assertThat(coalescer.getCoalescedCount()).isZero();
+        assertThat(result).isNotDone();
+    }
+
+    @DataProvider(value = {
+        "GET    |   /foo?bar=baz    |   someCreds   |   /foo?bar=other  |   someCreds",
+        "GET    |   /foo            |   someCreds   |   /bar            |   someCreds",
+        "GET    |   /foo            |   someCreds   |   /foo            |   otherCreds",
+        "GET    |   /foo            |   someCreds   |   /foo            |   null",
+        "HEAD   |   /foo            |   someCreds   |   /foo            |   someCreds",
+    }, splitBy = "\\|")
+    @Test
+    public void execute_does_not_coalesce_requests_that_differ_in_key(
+        String secondMethod, String firstUri, String firstAuth, String secondUri, String secondAuth
+    ) {
+        // given
+        HttpHeaders secondHeaders = new DefaultHttpHeaders();
+        if (secondAuth != null)
+            secondHeaders.set("authorization", secondAuth);
+
+        // when
+        execute(request(HttpMethod.GET, firstUri, new DefaultHttpHeaders().set("Authorization", firstAuth)));
+        execute(request(HttpMethod.valueOf(secondMethod), secondUri, secondHeaders));
+
+        // then
+        assertThat(endpointExecutionCount.get()).isEqualTo(2);
+        assertThat(coalescer.getCoalescedCount()).isZero();
+        assertThat(coalescer.getInFlightCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void execute_does_not_coalesce_requests_for_different_endpoints() {
+        // given
+        Endpoint<?> otherEndpoint = mock(Endpoint.class);
+
+        // when
+        execute(request("/foo"));
+        coalescer.execute(otherEndpoint, config, request("/foo"), TIMEOUT_MILLIS, endpointExecution);
+
+        // then
+        assertThat(endpointExecutionCount.get()).isEqualTo(2);
+        assertThat(coalescer.getCoalescedCount()).isZero();
+    }
+
+    @Test
+    public void execute_ignores_headers_that_are_not_key_headers() {
+        // when
+        execute(request(HttpMethod.GET, "/foo", new DefaultHttpHeaders().set("X-Some-Header", "foo")));
+        execute(request(HttpMethod.GET, "/foo", new DefaultHttpHeaders().set("X-Some-Header", "bar")));
+
+        // then
+        assertThat(endpointExecutionCount.get()).isEqualTo(1);
+        assertThat(coalescer.getCoalescedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void execute_fails_every_waiter_with_the_same_error_if_the_endpoint_fails() {
+        // given
+        RuntimeException endpointError = new RuntimeException("kaboom");
+        CompletableFuture<ResponseInfo<?>> leaderResult = execute(request("/foo"));
+        CompletableFuture<ResponseInfo<?>> followerResult = execute(request("/foo"));
+
+        // when
+        endpointResult.completeExceptionally(endpointError);
+
+        // then
+        assertThat(coalescer.getInFlightCount()).isZero();
+        for (CompletableFuture<ResponseInfo<?>> waiterResult : Arrays.asList(leaderResult, followerResult)) {
+            Throwable ex = catchThrowable(waiterResult::join);
+            assertThat(ex).isInstanceOf(CompletionException.class).hasCause(endpointError);
+        }
+    }
+
+    @Test
+    public void execute_fails_anyone_waiting_and_rethrows_if_endpoint_execution_throws() {
+        // given
+        RuntimeException endpointError = new RuntimeException("kaboom");
+        CompletableFuture<?>[] followerResult = new CompletableFuture<?>[1];
+        endpointExecution = () -> {
+            // Simulate an identical request arriving while the leader is executing the endpoint.
+            followerResult[0] = execute(request("/foo"));
+            throw endpointError;
+        };
+
+        // when
+        Throwable ex = catchThrowable(() -> execute(request("/foo")));
+
+        // then
+        assertThat(ex).isSameAs(endpointError);
+        assertThat(coalescer.getInFlightCount()).isZero();
+        assertThat(catchThrowable(followerResult[0]::join)).hasCause(endpointError);
+    }
+
+    @Test
+    public void execute_replaces_in_flight_request_that_has_gone_on_longer_than_the_timeout() {
+        // given
+        CompletableFuture<ResponseInfo<?>> stuckEndpointResult = endpointResult;
+        CompletableFuture<ResponseInfo<?>> stuckLeaderResult = execute(request("/foo"));
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS));
+        CompletableFuture<ResponseInfo<?>> followerResult = execute(request("/foo"));
+        nanoTime.addAndGet(1);
+        endpointResult = new CompletableFuture<>();
+
+        // when
+        CompletableFuture<ResponseInfo<?>> newLeaderResult = execute(request("/foo"));
+        CompletableFuture<ResponseInfo<?>> newFollowerResult = execute(request("/foo"));
+
+        // then
+        assertThat(endpointExecutionCount.get()).isEqualTo(2);
+        assertThat(coalescer.getCoalescedCount()).isEqualTo(2);
+
+        // and when - the stuck request finally finishes, it doesn't remove the new in-flight request
+        stuckEndpointResult.complete(ResponseInfo.newBuilder("stuck").build());
+
+        // then
+        assertThat(stuckLeaderResult.join().getContentForFullResponse()).isEqualTo("stuck");
+        assertThat(followerResult.join().getContentForFullResponse()).isEqualTo("stuck");
+        assertThat(newLeaderResult).isNotDone();
+        assertThat(newFollowerResult).isNotDone();
+        assertThat(coalescer.getInFlightCount()).isEqualTo(1);
+
+        // and when
+        endpointResult.complete(ResponseInfo.newBuilder("fresh").build());
+
+        // then
+        assertThat(newLeaderResult.join().getContentForFullResponse()).isEqualTo("fresh");
+        assertThat(newFollowerResult.join().getContentForFullResponse()).isEqualTo("fresh");
+        assertThat(coalescer.getInFlightCount()).isZero();
+    }
+
+    @Test
+    public void execute_passes_chunked_and_null_responses_through_without_copying() {
+        // given
+        ResponseInfo<?> chunkedResponse = ResponseInfo.newChunkedResponseBuilder().build();
+        CompletableFuture<ResponseInfo<?>> chunkedResult = execute(request("/chunked"));
+        endpointResult.complete(chunkedResponse);
+        endpointResult = new CompletableFuture<>();
+        CompletableFuture<ResponseInfo<?>> nullResult = execute(request("/null"));
+
+        // when
+        endpointResult.complete(null);
+
+        // then
+        assertThat(chunkedResult.join()).isSameAs(chunkedResponse);
+        assertThat(nullResult.join()).isNull();
+    }
+
+    @Test
+    public void execute_does_not_fail_if_metrics_listener_throws() {
+        // given
+        doThrow(new RuntimeException("kaboom")).when(metricsListenerMock)
+                                               .onEvent(eq(ServerMetricsEvent.REQUEST_COALESCED), any());
+        execute(request("/foo"));
+
+        // when
+        Throwable ex = catchThrowable(() -> execute(request("/foo")));
+
+        // then
+        assertThat(ex).isNull();
+        assertThat(coalescer.getCoalescedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void execute_works_without_a_metrics_listener() {
+        // given
+        coalescer = new RequestCoalescer(null, nanoTime::get);
+        execute(request("/foo"));
+
+        // when
+        Throwable ex = catchThrowable(() -> execute(request("/foo")));
+
+        // then
+        assertThat(ex).isNull();
+        assertThat(coalescer.getCoalescedCount()).isEqualTo(1);
+        verifyNoInteractions(metricsListenerMock);
+    }
+}
@@ -0,0 +1,238 @@
+package com.nike.riposte.server.handler.compression;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.config.ServerConfig.ResponseCompressionConfig;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleSupplier;
+
+import io.netty.util.concurrent.EventExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Tests the functionality of {@link AdaptiveCompressionController}.
+ */
+@RunWith(DataProviderRunner.class)
+public class AdaptiveCompressionControllerTest {
+
+    private AtomicReference<Double> load;
+    private MetricsListener metricsListenerMock;
+    private ResponseCompressionConfig config;
+
+    @Before
+    public void beforeMethod() {
+        load = new AtomicReference<>(0.0);
+        metricsListenerMock = mock(MetricsListener.class);
+        doReturn(true).when(metricsListenerMock).isInterestedIn(any(ServerMetricsEvent.class));
+        config = configWithSignal(() -> load.get());
+    }
+
+    private ResponseCompressionConfig configWithSignal(DoubleSupplier signal) {
+        return new ResponseCompressionConfig() {
+            @Override
+            public boolean isAdaptiveCompressionEnabled() {
+                return true;
+            }
+
+            @Override
+            public DoubleSupplier adaptiveCompressionLoadSignal() {
+                return signal;
+            }
+
+            @Override
+            public int gzipCompressionLevel() {
+                return 4;
+            }
+
+            @Override
+            public int brotliQuality() {
+                return 2;
+            }
+
+            @Override
+            public int zstdCompressionLevel() {
+                return 3;
+            }
+
+            @Override
+            public int adaptiveCompressionMinGzipLevel() {
+                return 2;
+            }
+
+            @Override
+            public long adaptiveCompressionSampleIntervalMillis() {
+                // Sample on every call to currentLevels().
+                return 0;
+            }
+        };
+    }
+
+    @Test
+    public void constructor_starts_at_configured_levels_and_reports_them() {
+        // when
+        AdaptiveCompressionController controller = new AdaptiveCompressionController(config, 500, metricsListenerMock);
+
+        // then
+        ResponseCompressionLevels levels = controller.currentLevels;
+        assertThat(levels.step).isEqualTo(0);
+        assertThat(levels.gzipCompressionLevel).isEqualTo(4);
+        assertThat(levels.brotliQuality).isEqualTo(2);
+        assertThat(levels.zstdCompressionLevel).isEqualTo(3);
+        assertThat(levels.responseSizeThresholdBytes).isEqualTo(500);
+        assertThat(controller.getMaxStep()).isEqualTo(3);
+        verify(metricsListenerMock).onEvent(ServerMetricsEvent.RESPONSE_COMPRESSION_LEVELS_CHANGED, levels);
+    }
+
+    @Test
+    public void constructor_throws_if_low_load_threshold_is_greater_than_high_load_threshold() {
+        // given
+        ResponseCompressionConfig badConfig = new ResponseCompressionConfig() {
+            @Override
+            public double adaptiveCompressionLowLoadThreshold() {
+                return 0.9;
+            }
+        };
+
+        // when
+        Throwable ex = catchThrowable(() -> new AdaptiveCompressionController(badConfig, 500, null));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void levels_step_down_under_high_load_then_raise_threshold_then_restore_when_load_drops() {
+        // given
+        AdaptiveCompressionController controller = new AdaptiveCompressionController(config, 500, metricsListenerMock);
+        load.set(0.95);
+
+        // when
+        ResponseCompressionLevels step1 = controller.currentLevels();
+        ResponseCompressionLevels step2 = controller.currentLevels();
+        ResponseCompressionLevels step3 = controller.currentLevels();
+        ResponseCompressionLevels stillStep3 = controller.currentLevels();
+
+        // then
+        assertThat(step1.gzipCompressionLevel).isEqualTo(3);
+        assertThat(step1.brotliQuality).isEqualTo(1);
+        assertThat(step1.zstdCompressionLevel).isEqualTo(2);
+        assertThat(step1.responseSizeThresholdBytes).isEqualTo(500);
+
+        assertThat(step2.gzipCompressionLevel).isEqualTo(2);
+        assertThat(step2.brotliQuality).isEqualTo(0);
+        assertThat(step2.zstdCompressionLevel).isEqualTo(1);
+        assertThat(step2.responseSizeThresholdBytes).isEqualTo(500);
+
+        // Levels are already at their floors, so the last step raises the threshold.
+        assertThat(step3.step).isEqualTo(3);
+        assertThat(step3.gzipCompressionLevel).isEqualTo(2);
+        assertThat(step3.responseSizeThresholdBytes).isEqualTo(2000);
+        assertThat(stillStep3).isSameAs(step3);
+
+        // and when
+        load.set(0.6);
+        ResponseCompressionLevels unchanged = controller.currentLevels();
+        load.set(0.1);
+        ResponseCompressionLevels restoring = controller.currentLevels();
+        controller.currentLevels();
+        ResponseCompressionLevels restored = controller.currentLevels();
+
+        // then
+        assertThat(unchanged).isSameAs(step3);
+        assertThat(restoring.step).isEqualTo(2);
+        assertThat(restoring.responseSizeThresholdBytes).isEqualTo(500);
+        assertThat(restored.step).isEqualTo(0);
+        assertThat(restored.gzipCompressionLevel).isEqualTo(4);
+
+        ArgumentCaptor<Object> levelsCaptor = ArgumentCaptor.forClass(Object.class);
+        // 1 initial + 3 down + 3 up
+        verify(metricsListenerMock, times(7))
+            .onEvent(eq(ServerMetricsEvent.RESPONSE_COMPRESSION_LEVELS_CHANGED), levelsCaptor.capture());
+        List<Object> reported = levelsCaptor.getAllValues();
+        assertThat(reported.get(reported.size() - 1)).isSameAs(restored);
+    }
+
+    @Test
+    public void levels_do_not_change_until_sample_interval_elapses() {
+        // given
+        ResponseCompressionConfig slowSampleConfig = new ResponseCompressionConfig() {
+            @Override
+            public DoubleSupplier adaptiveCompressionLoadSignal() {
+                return () -> 1.0;
+            }
+
+            @Override
+            public long adaptiveCompressionSampleIntervalMillis() {
+                return 60_000;
+            }
+        };
+        AdaptiveCompressionController controller = new AdaptiveCompressionController(slowSampleConfig, 500, null);
+
+        // when
+        ResponseCompressionLevels levels = controller.currentLevels();
+
+        // then
+        assertThat(levels.step).isEqualTo(0);
+    }
+
+    @Test
+    public void load_signal_exceptions_leave_levels_unchanged() {
+        // given
+        AdaptiveCompressionController controller = new AdaptiveCompressionController(
+            configWithSignal(() -> {
+                throw new RuntimeException("intentional test exception");
+            }),
+            500, null
+        );
+
+        // when
+        ResponseCompressionLevels levels = controller.currentLevels();
+
+        // then
+        assertThat(levels.step).isEqualTo(0);
+    }
+
+    @Test
+    public void monitorEventLoop_does_nothing_when_custom_load_signal_is_used() {
+        // given
+        AdaptiveCompressionController controller = new AdaptiveCompressionController(config, 500, null);
+        EventExecutor eventLoopMock = mock(EventExecutor.class);
+
+        // when
+        controller.monitorEventLoop(eventLoopMock);
+
+        // then
+        assertThat(controller.eventLoopLagLoadSignal).isNull();
+        verifyNoInteractions(eventLoopMock);
+    }
+
+    @Test
+    public void default_load_signal_is_event_loop_lag() {
+        // given
+        AdaptiveCompressionController controller = new AdaptiveCompressionController(
+            configWithSignal(null), 500, null
+        );
+
+        // expect
+        assertThat(controller.eventLoopLagLoadSignal).isNotNull();
+        assertThat(controller.loadSignal).isSameAs(controller.eventLoopLagLoadSignal);
+    }
+}
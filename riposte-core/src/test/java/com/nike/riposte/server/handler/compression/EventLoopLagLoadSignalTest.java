@@ -0,0 +1,75 @@
+package com.nike.riposte.server.handler.compression;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link EventLoopLagLoadSignal}.
+ */
+public class EventLoopLagLoadSignalTest {
+
+    @Test
+    public void constructor_throws_on_invalid_args() {
+        assertThat(catchThrowable(() -> new EventLoopLagLoadSignal(0, 100)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> new EventLoopLagLoadSignal(10, 0)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void getAsDouble_returns_max_lag_since_last_call_as_fraction_of_full_load() {
+        // given
+        EventLoopLagLoadSignal signal = new EventLoopLagLoadSignal(10, 100);
+
+        // when
+        signal.recordLag(TimeUnit.MILLISECONDS.toNanos(20));
+        signal.recordLag(TimeUnit.MILLISECONDS.toNanos(50));
+        signal.recordLag(TimeUnit.MILLISECONDS.toNanos(10));
+        double firstSample = signal.getAsDouble();
+        double secondSample = signal.getAsDouble();
+        signal.recordLag(TimeUnit.MILLISECONDS.toNanos(500));
+        double thirdSample = signal.getAsDouble();
+
+        // then
+        assertThat(firstSample).isEqualTo(0.5);
+        assertThat(secondSample).isEqualTo(0.0);
+        assertThat(thirdSample).isEqualTo(1.0);
+    }
+
+    @Test
+    public void blocked_event_loop_is_reported_as_loaded() throws Exception {
+        // given
+        EventLoopLagLoadSignal signal = new EventLoopLagLoadSignal(5, 50);
+        EventLoop eventLoop = new DefaultEventLoop();
+        try {
+            signal.monitor(eventLoop);
+            // Monitoring the same event loop twice should not double up on probes.
+            signal.monitor(eventLoop);
+            assertThat(signal.monitoredEventLoops).hasSize(1);
+
+            // when
+            eventLoop.submit(() -> {
+                try {
+                    Thread.sleep(150);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            Thread.sleep(300);
+
+            // then
+            assertThat(signal.getAsDouble()).isEqualTo(1.0);
+        }
+        finally {
+            eventLoop.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        }
+    }
+}
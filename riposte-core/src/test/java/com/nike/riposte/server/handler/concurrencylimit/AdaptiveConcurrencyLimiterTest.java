@@ -0,0 +1,352 @@
+package com.nike.riposte.server.handler.concurrencylimit;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.config.ServerConfig.ConcurrencyLimitConfig;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link AdaptiveConcurrencyLimiter}.
+ */
+@RunWith(DataProviderRunner.class)
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private AtomicLong nanoTime;
+    private MetricsListener metricsListenerMock;
+    private ConcurrencyLimitConfig config;
+
+    @Before
+    public void beforeMethod() {
+        nanoTime = new AtomicLong(0);
+        metricsListenerMock = mock(MetricsListener.class);
+        doReturn(true).when(metricsListenerMock).isInterestedIn(any(ServerMetricsEvent.class));
+        config = config(20, 10, 100, 1.0, 100, 1);
+    }
+
+    private ConcurrencyLimitConfig config(int initialLimit, int minLimit, int maxLimit, double smoothing,
+                                          long sampleWindowMillis, int minSamplesPerWindow) {
+        return new ConcurrencyLimitConfig() {
+            @Override
+            public int initialLimit() {
+                return initialLimit;
+            }
+
+            @Override
+            public int minLimit() {
+                return minLimit;
+            }
+
+            @Override
+            public int maxLimit() {
+                return maxLimit;
+            }
+
+            @Override
+            public double smoothing() {
+                return smoothing;
+            }
+
+            @Override
+            public long sampleWindowMillis() {
+                return sampleWindowMillis;
+            }
+
+            @Override
+            public int minSamplesPerWindow() {
+                return minSamplesPerWindow;
+            }
+        };
+    }
+
+    private AdaptiveConcurrencyLimiter limiter() {
+        return new AdaptiveConcurrencyLimiter("someLimiter", config, metricsListenerMock, nanoTime::get);
+    }
+
+    @Test
+    public void constructor_sets_initial_limit_and_notifies_metrics_listener() {
+        // when
+        AdaptiveConcurrencyLimiter limiter = limiter();
+
+        // then
+        assertThat(limiter.getName()).isEqualTo("someLimiter");
+        assertThat(limiter.getLimit()).isEqualTo(20);
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(limiter.getRejectedCount()).isZero();
+        verify(metricsListenerMock).onEvent(ServerMetricsEvent.CONCURRENCY_LIMIT_CHANGED, limiter);
+    }
+
+    @DataProvider(value = {
+        "20 |   0   |   100 |   1.0 |   100 |   1",
+        "20 |   30  |   25  |   1.0 |   100 |   1",
+        "5  |   10  |   100 |   1.0 |   100 |   1",
+        "200|   10  |   100 |   1.0 |   100 |   1",
+        "20 |   10  |   100 |   0.0 |   100 |   1",
+        "20 |   10  |   100 |   1.1 |   100 |   1",
+        "20 |   10  |   100 |   1.0 |   0   |   1",
+        "20 |   10  |   100 |   1.0 |   100 |   0",
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_config(
+        int initialLimit, int minLimit, int maxLimit, double smoothing, long sampleWindowMillis,
+        int minSamplesPerWindow
+    ) {
+        // given
+        config = config(initialLimit, minLimit, maxLimit, smoothing, sampleWindowMillis, minSamplesPerWindow);
+
+        // when
+        Throwable ex = catchThrowable(this::limiter);
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_rttTolerance_is_less_than_1() {
+        // given
+        ConcurrencyLimitConfig badConfig = new ConcurrencyLimitConfig() {
+            @Override
+            public double rttTolerance() {
+                return 0.9;
+            }
+        };
+
+        // when
+        Throwable ex = catchThrowable(() -> new AdaptiveConcurrencyLimiter("foo", badConfig, null));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void tryAcquire_rejects_once_limit_is_reached_and_release_frees_up_a_slot() {
+        // given
+        AdaptiveConcurrencyLimiter limiter = limiter();
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            permits.add(limiter.tryAcquire());
+        }
+
+        // when
+        AdaptiveConcurrencyLimiter.Permit rejected = limiter.tryAcquire();
+
+        // then
+        assertThat(permits).doesNotContainNull();
+        assertThat(limiter.getInFlight()).isEqualTo(20);
+        assertThat(rejected).isNull();
+        assertThat(limiter.getRejectedCount()).isEqualTo(1);
+        verify(metricsListenerMock).onEvent(ServerMetricsEvent.CONCURRENCY_LIMIT_REQUEST_REJECTED, limiter);
+
+        // and when
+        permits.get(0).release(false);
+        AdaptiveConcurrencyLimiter.Permit afterRelease = limiter.tryAcquire();
+
+        // then
+        assertThat(afterRelease).isNotNull();
+        assertThat(afterRelease.getLimiter()).isSameAs(limiter);
+        assertThat(limiter.getInFlight()).isEqualTo(20);
+    }
+
+    @Test
+    public void release_is_idempotent() {
+        // given
+        AdaptiveConcurrencyLimiter limiter = limiter();
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+        limiter.tryAcquire();
+
+        // when
+        permit.release(true);
+        permit.release(true);
+        permit.release(false);
+
+        // then
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+        assertThat(limiter.windowSampleCount.sum()).isEqualTo(1);
+    }
+
+    @Test
+    public void release_does_not_record_sample_if_recordSample_is_false() {
+        // given
+        AdaptiveConcurrencyLimiter limiter = limiter();
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+
+        // when
+        permit.release(false);
+
+        // then
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(limiter.windowSampleCount.sum()).isZero();
+    }
+
+    @Test
+    public void recordSample_only_updates_limit_once_window_has_elapsed_and_has_enough_samples() {
+        // given
+        config = config(20, 10, 100, 1.0, 100, 3);
+        List<double[]> updates = new ArrayList<>();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+            "someLimiter", config, null, nanoTime::get
+        ) {
+            @Override
+            protected synchronized void updateLimit(double windowRttNanos, int maxInFlight) {
+                updates.add(new double[]{windowRttNanos, maxInFlight});
+            }
+        };
+
+        // when
+        limiter.recordSample(10 * MILLIS, 5);
+        nanoTime.addAndGet(100 * MILLIS);
+        limiter.recordSample(20 * MILLIS, 7);
+
+        // then - window elapsed, but not enough samples
+        assertThat(updates).isEmpty();
+
+        // and when
+        limiter.recordSample(30 * MILLIS, 6);
+
+        // then
+        assertThat(updates).hasSize(1);
+        assertThat(updates.get(0)[0]).isEqualTo(20.0 * MILLIS);
+        assertThat(updates.get(0)[1]).isEqualTo(7.0);
+
+        // and when - the next window starts fresh
+        limiter.recordSample(10 * MILLIS, 1);
+        limiter.recordSample(10 * MILLIS, 1);
+        limiter.recordSample(10 * MILLIS, 1);
+
+        // then - not enough time has passed
+        assertThat(updates).hasSize(1);
+        assertThat(limiter.windowSampleCount.sum()).isEqualTo(3);
+    }
+
+    @Test
+    public void updateLimit_grows_limit_while_latency_is_steady_and_limit_is_being_hit() {
+        // given
+        AdaptiveConcurrencyLimiter limiter = limiter();
+
+        // when
+        limiter.updateLimit(10 * MILLIS, limiter.getLimit());
+
+        // then - 20 + sqrt(20)
+        assertThat(limiter.getLimit()).isEqualTo(24);
+        verify(metricsListenerMock, times(2)).onEvent(ServerMetricsEvent.CONCURRENCY_LIMIT_CHANGED, limiter);
+
+        // and when
+        for (int i = 0; i < 100; i++) {
+            limiter.updateLimit(10 * MILLIS, limiter.getLimit());
+        }
+
+        // then
+        assertThat(limiter.getLimit()).isEqualTo(100);
+    }
+
+    @Test
+    public void updateLimit_shrinks_limit_when_latency_climbs_but_not_below_minLimit() {
+        // given
+        AdaptiveConcurrencyLimiter limiter = limiter();
+        for (int i = 0; i < 5; i++) {
+            limiter.updateLimit(10 * MILLIS, limiter.getLimit());
+        }
+        int limitBeforeLatencySpike = limiter.getLimit();
+
+        // when
+        limiter.updateLimit(100 * MILLIS, limitBeforeLatencySpike);
+
+        // then
+        assertThat(limiter.getLimit()).isLessThan(limitBeforeLatencySpike);
+
+        // and when
+        for (int i = 0; i < 100; i++) {
+            limiter.updateLimit(1000 * MILLIS, limiter.getLimit());
+        }
+
+        // then
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    public void updateLimit_does_not_change_limit_if_less_than_half_the_limit_was_in_flight() {
+        // given
+        AdaptiveConcurrencyLimiter limiter = limiter();
+
+        // when
+        limiter.updateLimit(10 * MILLIS, 9);
+
+        // then
+        assertThat(limiter.getLimit()).isEqualTo(20);
+    }
+
+    @Test
+    public void notifyMetricsListener_swallows_exceptions_thrown_by_the_listener() {
+        // given
+        doThrow(new RuntimeException("kaboom")).when(metricsListenerMock)
+                                               .onEvent(eq(ServerMetricsEvent.CONCURRENCY_LIMIT_CHANGED), any());
+        AdaptiveConcurrencyLimiter limiter = limiter();
+
+        // when
+        Throwable ex = catchThrowable(() -> limiter.notifyMetricsListener(ServerMetricsEvent.CONCURRENCY_LIMIT_CHANGED));
+
+        // then
+        assertThat(ex).isNull();
+    }
+
+    @Test
+    public void in_flight_never_exceeds_limit_under_concurrent_load() throws Exception {
+        // given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("someLimiter", config, null);
+        int numThreads = 16;
+        int iterationsPerThread = 10_000;
+        AtomicInteger maxObservedInFlight = new AtomicInteger();
+        CountDownLatch doneLatch = new CountDownLatch(numThreads);
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+
+        try {
+            // when
+            for (int t = 0; t < numThreads; t++) {
+                executor.execute(() -> {
+                    for (int i = 0; i < iterationsPerThread; i++) {
+                        AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+                        if (permit != null) {
+                            maxObservedInFlight.accumulateAndGet(limiter.getInFlight(), Math::max);
+                            permit.release(false);
+                        }
+                    }
+                    doneLatch.countDown();
+                });
+            }
+
+            // then
+            assertThat(doneLatch.await(30, TimeUnit.SECONDS)).isTrue();
+            assertThat(maxObservedInFlight.get()).isLessThanOrEqualTo(limiter.getLimit());
+            assertThat(limiter.getInFlight()).isZero();
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+}
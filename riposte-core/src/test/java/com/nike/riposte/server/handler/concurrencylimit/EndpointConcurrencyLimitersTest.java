@@ -0,0 +1,166 @@
+package com.nike.riposte.server.handler.concurrencylimit;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.config.ServerConfig.ConcurrencyLimitConfig;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.StreamingEndpoint;
+import com.nike.riposte.server.http.sse.ServerSentEventEndpoint;
+import com.nike.riposte.server.http.websocket.WebSocketEndpoint;
+import com.nike.riposte.util.Matcher;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the functionality of {@link EndpointConcurrencyLimiters}.
+ */
+@RunWith(DataProviderRunner.class)
+public class EndpointConcurrencyLimitersTest {
+
+    private final MetricsListener metricsListenerMock = mock(MetricsListener.class);
+
+    private static Endpoint<?> endpoint(@Nullable ConcurrencyLimitConfig override) {
+        return new Endpoint<Object>() {
+            @Override
+            public @NotNull Matcher requestMatcher() {
+                return Matcher.match("/foo");
+            }
+
+            @Override
+            public @Nullable ConcurrencyLimitConfig concurrencyLimitConfigOverride() {
+                return override;
+            }
+        };
+    }
+
+    @Test
+    public void limiterFor_creates_one_limiter_per_endpoint_using_default_config() {
+        // given
+        ConcurrencyLimitConfig defaultConfig = new ConcurrencyLimitConfig() {};
+        EndpointConcurrencyLimiters limiters = new EndpointConcurrencyLimiters(defaultConfig, metricsListenerMock);
+        Endpoint<?> endpoint1 = endpoint(null);
+        Endpoint<?> endpoint2 = endpoint(null);
+
+        // when
+        AdaptiveConcurrencyLimiter limiter1 = limiters.limiterFor(endpoint1);
+        AdaptiveConcurrencyLimiter limiter2 = limiters.limiterFor(endpoint2);
+
+        // then
+        assertThat(limiter1).isNotNull();
+        assertThat(limiter2).isNotNull().isNotSameAs(limiter1);
+        assertThat(limiters.limiterFor(endpoint1)).isSameAs(limiter1);
+        assertThat(limiter1.getName()).isEqualTo(endpoint1.getClass().getName());
+        assertThat(limiter1.config).isSameAs(defaultConfig);
+        assertThat(limiter1.metricsListener).isSameAs(metricsListenerMock);
+    }
+
+    @Test
+    public void limiterFor_uses_endpoint_override_if_it_has_one() {
+        // given
+        ConcurrencyLimitConfig overrideConfig = new ConcurrencyLimitConfig() {};
+        EndpointConcurrencyLimiters limiters = new EndpointConcurrencyLimiters(null, null);
+
+        // when
+        AdaptiveConcurrencyLimiter limiter = limiters.limiterFor(endpoint(overrideConfig));
+
+        // then
+        assertThat(limiter).isNotNull();
+        assertThat(limiter.config).isSameAs(overrideConfig);
+    }
+
+    @Test
+    public void limiterFor_returns_null_if_concurrency_limiting_is_disabled_for_endpoint() {
+        // given
+        EndpointConcurrencyLimiters limiters =
+            new EndpointConcurrencyLimiters(ConcurrencyLimitConfig.DEFAULT_IMPL, null);
+        EndpointConcurrencyLimiters noDefaultLimiters = new EndpointConcurrencyLimiters(null, null);
+
+        // expect
+        assertThat(limiters.limiterFor(endpoint(ConcurrencyLimitConfig.DISABLED))).isNull();
+        assertThat(noDefaultLimiters.limiterFor(endpoint(null))).isNull();
+    }
+
+    @DataProvider(value = {
+        "STREAMING",
+        "SERVER_SENT_EVENT",
+        "WEBSOCKET"
+    })
+    @Test
+    public void limiterFor_does_not_limit_long_lived_endpoints_with_the_default_config(
+        LongLivedEndpointScenario scenario
+    ) {
+        // given
+        EndpointConcurrencyLimiters limiters =
+            new EndpointConcurrencyLimiters(ConcurrencyLimitConfig.DEFAULT_IMPL, null);
+        Endpoint<?> endpoint = mock(scenario.endpointClass);
+
+        // expect
+        assertThat(limiters.limiterFor(endpoint)).isNull();
+        assertThat(limiters.isEnabledForAny(Collections.singletonList(endpoint))).isFalse();
+    }
+
+    @DataProvider(value = {
+        "STREAMING",
+        "SERVER_SENT_EVENT",
+        "WEBSOCKET"
+    })
+    @Test
+    public void limiterFor_limits_long_lived_endpoints_that_have_an_override(LongLivedEndpointScenario scenario) {
+        // given
+        ConcurrencyLimitConfig overrideConfig = new ConcurrencyLimitConfig() {};
+        EndpointConcurrencyLimiters limiters =
+            new EndpointConcurrencyLimiters(ConcurrencyLimitConfig.DEFAULT_IMPL, null);
+        Endpoint<?> endpoint = mock(scenario.endpointClass);
+        doReturn(overrideConfig).when(endpoint).concurrencyLimitConfigOverride();
+
+        // when
+        AdaptiveConcurrencyLimiter limiter = limiters.limiterFor(endpoint);
+
+        // then
+        assertThat(limiter).isNotNull();
+        assertThat(limiter.config).isSameAs(overrideConfig);
+    }
+
+    private enum LongLivedEndpointScenario {
+        STREAMING(StreamingEndpoint.class),
+        SERVER_SENT_EVENT(ServerSentEventEndpoint.class),
+        WEBSOCKET(WebSocketEndpoint.class);
+
+        final Class<? extends Endpoint<?>> endpointClass;
+
+        @SuppressWarnings("unchecked")
+        LongLivedEndpointScenario(Class<?> endpointClass) {
+            this.endpointClass = (Class<? extends Endpoint<?>>) endpointClass;
+        }
+    }
+
+    @Test
+    public void isEnabledForAny_returns_true_only_if_an_endpoint_would_get_a_limiter() {
+        // given
+        EndpointConcurrencyLimiters noDefaultLimiters = new EndpointConcurrencyLimiters(null, null);
+        EndpointConcurrencyLimiters defaultLimiters =
+            new EndpointConcurrencyLimiters(ConcurrencyLimitConfig.DEFAULT_IMPL, null);
+
+        // expect
+        assertThat(noDefaultLimiters.isEnabledForAny(Collections.singletonList(endpoint(null)))).isFalse();
+        assertThat(noDefaultLimiters.isEnabledForAny(
+            Arrays.asList(endpoint(null), endpoint(ConcurrencyLimitConfig.DEFAULT_IMPL))
+        )).isTrue();
+        assertThat(defaultLimiters.isEnabledForAny(Collections.singletonList(endpoint(null)))).isTrue();
+        assertThat(defaultLimiters.isEnabledForAny(
+            Collections.singletonList(endpoint(ConcurrencyLimitConfig.DISABLED))
+        )).isFalse();
+    }
+}
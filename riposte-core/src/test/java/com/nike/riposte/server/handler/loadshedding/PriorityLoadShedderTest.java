@@ -0,0 +1,284 @@
+package com.nike.riposte.server.handler.loadshedding;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.config.ServerConfig.LoadSheddingConfig;
+import com.nike.riposte.server.http.RequestPriority;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+import com.nike.riposte.util.InstrumentedThreadPoolExecutor;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+
+import io.netty.util.concurrent.EventExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Tests the functionality of {@link PriorityLoadShedder}.
+ */
+@RunWith(DataProviderRunner.class)
+public class PriorityLoadShedderTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private AtomicLong nanoTime;
+    private MetricsListener metricsListenerMock;
+    private AtomicInteger loadSignalCallCount;
+    private double loadSignalValue;
+    private LoadSheddingConfig config;
+
+    @Before
+    public void beforeMethod() {
+        nanoTime = new AtomicLong(0);
+        metricsListenerMock = mock(MetricsListener.class);
+        doReturn(true).when(metricsListenerMock).isInterestedIn(any(ServerMetricsEvent.class));
+        loadSignalCallCount = new AtomicInteger();
+        loadSignalValue = 0.5;
+        config = config(() -> {
+            loadSignalCallCount.incrementAndGet();
+            return loadSignalValue;
+        }, 100, 0);
+    }
+
+    private LoadSheddingConfig config(DoubleSupplier loadSignal, long loadSampleIntervalMillis,
+                                      int maxInFlightRequestsAtFullLoad) {
+        return new LoadSheddingConfig() {
+            @Override
+            public DoubleSupplier loadSignal() {
+                return loadSignal;
+            }
+
+            @Override
+            public long loadSampleIntervalMillis() {
+                return loadSampleIntervalMillis;
+            }
+
+            @Override
+            public int maxInFlightRequestsAtFullLoad() {
+                return maxInFlightRequestsAtFullLoad;
+            }
+        };
+    }
+
+    private PriorityLoadShedder loadShedder() {
+        return new PriorityLoadShedder(config, null, metricsListenerMock, nanoTime::get);
+    }
+
+    @Test
+    public void constructor_sets_fields_based_on_args() {
+        // when
+        PriorityLoadShedder loadShedder = new PriorityLoadShedder(config, null, metricsListenerMock);
+
+        // then
+        assertThat(loadShedder.getConfig()).isSameAs(config);
+        assertThat(loadShedder.metricsListener).isSameAs(metricsListenerMock);
+        assertThat(loadShedder.loadSignal).isSameAs(config.loadSignal());
+        assertThat(loadShedder.eventLoopLagLoadSignal).isNull();
+        assertThat(loadShedder.getInFlight()).isZero();
+        assertThat(loadShedder.currentLoad).isZero();
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_config_is_null() {
+        // when
+        Throwable ex = catchThrowable(() -> new PriorityLoadShedder(null, null, null));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DataProvider(value = {
+        "0",
+        "-1"
+    })
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_loadSampleIntervalMillis_is_not_positive(
+        long loadSampleIntervalMillis
+    ) {
+        // given
+        config = config(null, loadSampleIntervalMillis, 0);
+
+        // when
+        Throwable ex = catchThrowable(this::loadShedder);
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void thresholdFor_returns_thresholds_from_config() {
+        // given
+        PriorityLoadShedder loadShedder = loadShedder();
+
+        // expect
+        for (RequestPriority priority : RequestPriority.values()) {
+            assertThat(loadShedder.thresholdFor(priority)).isEqualTo(config.loadSheddingThreshold(priority));
+        }
+    }
+
+    @Test
+    public void currentLoad_only_samples_load_signal_once_per_sample_interval() {
+        // given
+        PriorityLoadShedder loadShedder = loadShedder();
+
+        // when - the interval hasn't elapsed yet
+        double load = loadShedder.currentLoad();
+
+        // then
+        assertThat(load).isZero();
+        assertThat(loadSignalCallCount.get()).isZero();
+
+        // and when
+        nanoTime.addAndGet(100 * MILLIS);
+        double firstSample = loadShedder.currentLoad();
+        loadSignalValue = 0.9;
+        double beforeNextInterval = loadShedder.currentLoad();
+
+        // then
+        assertThat(firstSample).isEqualTo(0.5);
+        assertThat(beforeNextInterval).isEqualTo(0.5);
+        assertThat(loadSignalCallCount.get()).isEqualTo(1);
+
+        // and when
+        nanoTime.addAndGet(100 * MILLIS);
+        double secondSample = loadShedder.currentLoad();
+
+        // then
+        assertThat(secondSample).isEqualTo(0.9);
+        assertThat(loadSignalCallCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void currentLoad_keeps_previous_load_if_load_signal_throws() {
+        // given
+        AtomicInteger callCount = new AtomicInteger();
+        config = config(() -> {
+            if (callCount.incrementAndGet() > 1)
+                throw new RuntimeException("kaboom");
+            return 0.6;
+        }, 100, 0);
+        PriorityLoadShedder loadShedder = loadShedder();
+        nanoTime.addAndGet(100 * MILLIS);
+        assertThat(loadShedder.currentLoad()).isEqualTo(0.6);
+
+        // when
+        nanoTime.addAndGet(100 * MILLIS);
+        double load = loadShedder.currentLoad();
+
+        // then
+        assertThat(callCount.get()).isEqualTo(2);
+        assertThat(load).isEqualTo(0.6);
+    }
+
+    @Test
+    public void default_load_signal_uses_highest_of_executor_queue_fill_and_in_flight_requests() {
+        // given
+        config = config(null, 100, 4);
+        InstrumentedThreadPoolExecutor executorMock = mock(InstrumentedThreadPoolExecutor.class);
+        BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(10);
+        for (int i = 0; i < 5; i++) {
+            queue.add(mock(Runnable.class));
+        }
+        doReturn(10).when(executorMock).getMaxQueueSize();
+        doReturn(queue).when(executorMock).getQueue();
+        PriorityLoadShedder loadShedder = new PriorityLoadShedder(config, executorMock, null, nanoTime::get);
+
+        // when
+        double queueLoad = loadShedder.loadSignal.getAsDouble();
+        for (int i = 0; i < 3; i++) {
+            loadShedder.onRequestStarted();
+        }
+        double inFlightLoad = loadShedder.loadSignal.getAsDouble();
+        for (int i = 0; i < 3; i++) {
+            loadShedder.onRequestStarted();
+        }
+        double cappedLoad = loadShedder.loadSignal.getAsDouble();
+
+        // then
+        assertThat(loadShedder.eventLoopLagLoadSignal).isNotNull();
+        assertThat(queueLoad).isEqualTo(0.5);
+        assertThat(inFlightLoad).isEqualTo(0.75);
+        assertThat(cappedLoad).isEqualTo(1.0);
+    }
+
+    @Test
+    public void monitorEventLoop_only_monitors_when_default_load_signal_is_in_use() {
+        // given
+        PriorityLoadShedder customSignalLoadShedder = loadShedder();
+        EventExecutor eventLoopMock = mock(EventExecutor.class);
+
+        // when
+        customSignalLoadShedder.monitorEventLoop(eventLoopMock);
+
+        // then
+        verifyNoInteractions(eventLoopMock);
+    }
+
+    @Test
+    public void recordShed_counts_shed_requests_per_priority_and_notifies_metrics_listener() {
+        // given
+        PriorityLoadShedder loadShedder = loadShedder();
+
+        // when
+        loadShedder.recordShed(RequestPriority.LOW);
+        loadShedder.recordShed(RequestPriority.LOW);
+        loadShedder.recordShed(RequestPriority.SHEDDABLE);
+
+        // then
+        assertThat(loadShedder.getShedCount(RequestPriority.LOW)).isEqualTo(2);
+        assertThat(loadShedder.getShedCount(RequestPriority.SHEDDABLE)).isEqualTo(1);
+        assertThat(loadShedder.getShedCount(RequestPriority.NORMAL)).isZero();
+        verify(metricsListenerMock, times(2))
+            .onEvent(ServerMetricsEvent.REQUEST_SHED, RequestPriority.LOW);
+        verify(metricsListenerMock).onEvent(ServerMetricsEvent.REQUEST_SHED, RequestPriority.SHEDDABLE);
+    }
+
+    @Test
+    public void recordShed_swallows_exceptions_thrown_by_the_metrics_listener() {
+        // given
+        doThrow(new RuntimeException("kaboom")).when(metricsListenerMock)
+                                               .onEvent(eq(ServerMetricsEvent.REQUEST_SHED), any());
+        PriorityLoadShedder loadShedder = loadShedder();
+
+        // when
+        Throwable ex = catchThrowable(() -> loadShedder.recordShed(RequestPriority.LOW));
+
+        // then
+        assertThat(ex).isNull();
+        assertThat(loadShedder.getShedCount(RequestPriority.LOW)).isEqualTo(1);
+    }
+
+    @Test
+    public void onRequestStarted_and_onRequestFinished_track_in_flight_requests() {
+        // given
+        PriorityLoadShedder loadShedder = loadShedder();
+
+        // when
+        loadShedder.onRequestStarted();
+        loadShedder.onRequestStarted();
+        loadShedder.onRequestFinished();
+
+        // then
+        assertThat(loadShedder.getInFlight()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,204 @@
+package com.nike.riposte.server.http;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.util.BlockingTaskExecutors;
+import com.nike.riposte.util.Matcher;
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Tracer;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.MDC;
+
+import java.io.IOException;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.Attribute;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the functionality of {@link BlockingEndpoint}.
+ */
+public class BlockingEndpointTest {
+
+    private ChannelHandlerContext ctxMock;
+    private HttpProcessingState state;
+    private RequestInfo<String> requestInfoMock;
+    private ExecutorService executor;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void beforeMethod() {
+        Channel channelMock = mock(Channel.class);
+        ctxMock = mock(ChannelHandlerContext.class);
+        Attribute<HttpProcessingState> stateAttributeMock = mock(Attribute.class);
+        state = new HttpProcessingState();
+        requestInfoMock = mock(RequestInfo.class);
+        executor = Executors.newSingleThreadExecutor();
+
+        doReturn(channelMock).when(ctxMock).channel();
+        doReturn(stateAttributeMock).when(channelMock).attr(ChannelAttributes.HTTP_PROCESSING_STATE_ATTRIBUTE_KEY);
+        doReturn(state).when(stateAttributeMock).get();
+
+        resetTracingAndMdc();
+    }
+
+    @After
+    public void afterMethod() {
+        executor.shutdownNow();
+        resetTracingAndMdc();
+    }
+
+    private void resetTracingAndMdc() {
+        MDC.clear();
+        Tracer.getInstance().unregisterFromThread();
+    }
+
+    @Test
+    public void execute_calls_executeBlocking_on_the_blockingTaskExecutor_and_completes_with_its_response()
+        throws Exception {
+        // given
+        ResponseInfo<String> expectedResponse = ResponseInfo.newBuilder("foo").build();
+        AtomicReference<Thread> executionThread = new AtomicReference<>();
+        BlockingEndpoint<String, String> endpoint = new TestBlockingEndpoint(executor, () -> {
+            executionThread.set(Thread.currentThread());
+            return expectedResponse;
+        });
+
+        // when
+        CompletableFuture<ResponseInfo<String>> result = endpoint.execute(requestInfoMock, Runnable::run, ctxMock);
+
+        // then
+        assertThat(result.get(10, TimeUnit.SECONDS)).isSameAs(expectedResponse);
+        assertThat(executionThread.get()).isNotNull().isNotSameAs(Thread.currentThread());
+    }
+
+    @Test
+    public void execute_attaches_tracing_and_mdc_info_from_the_channel_to_the_blocking_thread() throws Exception {
+        // given
+        Tracer.getInstance().startRequestWithRootSpan("someRequestSpan");
+        Deque<Span> expectedSpanStack = Tracer.getInstance().getCurrentSpanStackCopy();
+        Map<String, String> expectedMdcInfo = MDC.getCopyOfContextMap();
+        state.setDistributedTraceStack(expectedSpanStack);
+        state.setLoggerMdcContextMap(expectedMdcInfo);
+        resetTracingAndMdc();
+
+        AtomicReference<Deque<Span>> spanStackDuringExecution = new AtomicReference<>();
+        AtomicReference<Map<String, String>> mdcInfoDuringExecution = new AtomicReference<>();
+        BlockingEndpoint<String, String> endpoint = new TestBlockingEndpoint(executor, () -> {
+            spanStackDuringExecution.set(Tracer.getInstance().getCurrentSpanStackCopy());
+            mdcInfoDuringExecution.set(MDC.getCopyOfContextMap());
+            return ResponseInfo.newBuilder("foo").build();
+        });
+
+        // when
+        endpoint.execute(requestInfoMock, Runnable::run, ctxMock).get(10, TimeUnit.SECONDS);
+
+        // then
+        assertThat(spanStackDuringExecution.get()).containsExactlyElementsOf(expectedSpanStack);
+        assertThat(mdcInfoDuringExecution.get()).isEqualTo(expectedMdcInfo);
+    }
+
+    @Test
+    public void execute_completes_exceptionally_with_runtime_exceptions_thrown_by_executeBlocking() {
+        // given
+        RuntimeException expectedEx = new RuntimeException("intentional test exception");
+        BlockingEndpoint<String, String> endpoint = new TestBlockingEndpoint(executor, () -> {
+            throw expectedEx;
+        });
+
+        // when
+        Throwable ex = catchThrowable(
+            () -> endpoint.execute(requestInfoMock, Runnable::run, ctxMock).join()
+        );
+
+        // then
+        assertThat(ex).isInstanceOf(CompletionException.class).hasCause(expectedEx);
+    }
+
+    @Test
+    public void execute_completes_exceptionally_with_checked_exceptions_thrown_by_executeBlocking() {
+        // given
+        IOException expectedEx = new IOException("intentional test exception");
+        BlockingEndpoint<String, String> endpoint = new TestBlockingEndpoint(executor, () -> {
+            throw expectedEx;
+        });
+
+        // when
+        Throwable ex = catchThrowable(
+            () -> endpoint.execute(requestInfoMock, Runnable::run, ctxMock).join()
+        );
+
+        // then
+        assertThat(ex).isInstanceOf(CompletionException.class).hasCause(expectedEx);
+    }
+
+    @Test
+    public void blockingTaskExecutor_defaults_to_the_shared_default_blocking_task_executor() {
+        // given
+        BlockingEndpoint<String, String> endpoint = new BlockingEndpoint<String, String>() {
+            @Override
+            public @NotNull ResponseInfo<String> executeBlocking(
+                @NotNull RequestInfo<String> request, @NotNull ChannelHandlerContext ctx
+            ) {
+                return ResponseInfo.newBuilder("foo").build();
+            }
+
+            @Override
+            public @NotNull Matcher requestMatcher() {
+                return Matcher.match("/foo");
+            }
+        };
+
+        // expect
+        assertThat(endpoint.blockingTaskExecutor()).isSameAs(BlockingTaskExecutors.defaultBlockingTaskExecutor());
+        assertThat(endpoint.inputType).isEqualTo(String.class);
+    }
+
+    private interface BlockingWork {
+        ResponseInfo<String> doWork() throws Exception;
+    }
+
+    private static class TestBlockingEndpoint extends BlockingEndpoint<String, String> {
+        private final Executor blockingTaskExecutor;
+        private final BlockingWork work;
+
+        TestBlockingEndpoint(Executor blockingTaskExecutor, BlockingWork work) {
+            this.blockingTaskExecutor = blockingTaskExecutor;
+            this.work = work;
+        }
+
+        @Override
+        public @NotNull ResponseInfo<String> executeBlocking(
+            @NotNull RequestInfo<String> request, @NotNull ChannelHandlerContext ctx
+        ) throws Exception {
+            return work.doWork();
+        }
+
+        @Override
+        protected @NotNull Executor blockingTaskExecutor() {
+            return blockingTaskExecutor;
+        }
+
+        @Override
+        public @NotNull Matcher requestMatcher() {
+            return Matcher.match("/foo");
+        }
+    }
+}
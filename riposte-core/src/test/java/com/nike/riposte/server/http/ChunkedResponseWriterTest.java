@@ -0,0 +1,237 @@
+package com.nike.riposte.server.http;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.channelpipeline.message.LastOutboundMessageSendLastContentChunk;
+import com.nike.riposte.server.channelpipeline.message.OutboundMessageSendContentChunk;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link ChunkedResponseWriter}.
+ */
+public class ChunkedResponseWriterTest {
+
+    private EmbeddedChannel channel;
+    private ChannelHandlerContext ctx;
+    private HttpProcessingState state;
+    private List<Object> firedMessages;
+    private List<Throwable> firedExceptions;
+
+    @Before
+    public void beforeMethod() {
+        firedMessages = new ArrayList<>();
+        firedExceptions = new ArrayList<>();
+        channel = new EmbeddedChannel();
+        channel.pipeline().addLast("source", new ChannelInboundHandlerAdapter());
+        channel.pipeline().addLast("capture", new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                firedMessages.add(msg);
+            }
+
+            @Override
+            public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                firedExceptions.add(cause);
+            }
+        });
+        ctx = channel.pipeline().context("source");
+        state = new HttpProcessingState();
+        channel.attr(ChannelAttributes.HTTP_PROCESSING_STATE_ATTRIBUTE_KEY).set(state);
+    }
+
+    @After
+    public void afterMethod() {
+        for (Object msg : firedMessages) {
+            if (msg instanceof OutboundMessageSendContentChunk) {
+                ReferenceCountUtil.release(((OutboundMessageSendContentChunk) msg).contentChunk);
+            }
+        }
+        channel.finishAndReleaseAll();
+    }
+
+    private String chunkContent(Object msg) {
+        return ((OutboundMessageSendContentChunk) msg).contentChunk.content().toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_ctx_is_null() {
+        // when
+        Throwable ex = catchThrowable(() -> new ChunkedResponseWriter(null));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class).hasMessage("ctx cannot be null");
+    }
+
+    @Test
+    public void chunks_written_before_headers_are_sent_are_queued_and_sent_in_order_after_headers() {
+        // given
+        ChunkedResponseWriter writer = new ChunkedResponseWriter(ctx);
+
+        // when
+        writer.writeChunk("foo", StandardCharsets.UTF_8);
+        writer.writeChunk("bar".getBytes(StandardCharsets.UTF_8));
+        writer.finish();
+
+        // then
+        assertThat(firedMessages).isEmpty();
+        assertThat(writer.isDone()).isFalse();
+
+        // and when
+        writer.markResponseHeadersSent();
+
+        // then
+        assertThat(firedMessages).hasSize(3);
+        assertThat(chunkContent(firedMessages.get(0))).isEqualTo("foo");
+        assertThat(chunkContent(firedMessages.get(1))).isEqualTo("bar");
+        assertThat(firedMessages.get(2)).isInstanceOf(LastOutboundMessageSendLastContentChunk.class);
+        assertThat(writer.completionFuture()).isCompleted();
+    }
+
+    @Test
+    public void chunks_written_after_headers_are_sent_are_fired_immediately() {
+        // given
+        ChunkedResponseWriter writer = new ChunkedResponseWriter(ctx);
+        writer.markResponseHeadersSent();
+
+        // when
+        writer.writeChunk(Unpooled.copiedBuffer("foo", StandardCharsets.UTF_8));
+
+        // then
+        assertThat(firedMessages).hasSize(1);
+        assertThat(firedMessages.get(0)).isNotInstanceOf(LastOutboundMessageSendLastContentChunk.class);
+        assertThat(chunkContent(firedMessages.get(0))).isEqualTo("foo");
+        assertThat(writer.isDone()).isFalse();
+    }
+
+    @Test
+    public void writeChunk_throws_IllegalStateException_and_releases_content_if_finish_was_already_called() {
+        // given
+        ChunkedResponseWriter writer = new ChunkedResponseWriter(ctx);
+        writer.finish();
+        ByteBuf content = Unpooled.copiedBuffer("foo", StandardCharsets.UTF_8);
+
+        // when
+        Throwable ex = catchThrowable(() -> writer.writeChunk(content));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalStateException.class);
+        assertThat(content.refCnt()).isEqualTo(0);
+    }
+
+    @Test
+    public void closing_the_channel_cancels_the_writer_and_drops_subsequent_writes() {
+        // given
+        ChunkedResponseWriter writer = new ChunkedResponseWriter(ctx);
+        writer.writeChunk("queued", StandardCharsets.UTF_8);
+
+        // when
+        channel.close();
+
+        // then
+        assertThat(writer.isDone()).isTrue();
+        assertThat(writer.completionFuture()).isCompletedExceptionally();
+        assertThat(writer.isWritable()).isFalse();
+
+        // and when
+        ByteBuf content = Unpooled.copiedBuffer("dropped", StandardCharsets.UTF_8);
+        writer.writeChunk(content);
+
+        // then
+        assertThat(content.refCnt()).isEqualTo(0);
+        assertThat(firedMessages).isEmpty();
+        assertThat(writer.whenWritable()).isCompletedExceptionally();
+    }
+
+    @Test
+    public void whenWritable_completes_only_after_the_channel_becomes_writable_again() {
+        // given
+        channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(1, 2));
+        ChunkedResponseWriter writer = new ChunkedResponseWriter(ctx);
+        writer.markResponseHeadersSent();
+        // Write without flushing to push the outbound buffer over the high water mark.
+        channel.write(Unpooled.wrappedBuffer(new byte[16]));
+        assertThat(channel.isWritable()).isFalse();
+
+        // when
+        CompletableFuture<Void> writableFuture = writer.whenWritable();
+
+        // then
+        assertThat(writer.isWritable()).isFalse();
+        assertThat(writableFuture).isNotDone();
+
+        // and when
+        channel.flush();
+        writer.handleChannelWritabilityChanged();
+
+        // then
+        assertThat(writer.isWritable()).isTrue();
+        assertThat(writableFuture).isCompleted();
+    }
+
+    @Test
+    public void abort_before_headers_are_sent_fires_the_error_down_the_pipeline() {
+        // given
+        ChunkedResponseWriter writer = new ChunkedResponseWriter(ctx);
+        RuntimeException error = new RuntimeException("intentional test exception");
+
+        // when
+        writer.abort(error);
+
+        // then
+        assertThat(firedExceptions).containsExactly(error);
+        assertThat(writer.completionFuture()).isCompletedExceptionally();
+        assertThat(channel.isOpen()).isTrue();
+    }
+
+    @Test
+    public void abort_after_headers_are_sent_closes_the_channel() {
+        // given
+        ChunkedResponseWriter writer = new ChunkedResponseWriter(ctx);
+        writer.markResponseHeadersSent();
+
+        // when
+        writer.abort(new RuntimeException("intentional test exception"));
+
+        // then
+        assertThat(firedExceptions).isEmpty();
+        assertThat(writer.completionFuture()).isCompletedExceptionally();
+        assertThat(channel.isOpen()).isFalse();
+    }
+
+    @Test
+    public void cancel_releases_queued_chunks_and_fails_the_completion_future() {
+        // given
+        ChunkedResponseWriter writer = new ChunkedResponseWriter(ctx);
+        ByteBuf content = Unpooled.copiedBuffer("foo", StandardCharsets.UTF_8);
+        writer.writeChunk(content);
+        RuntimeException cause = new RuntimeException("intentional test exception");
+
+        // when
+        writer.cancel(cause);
+        writer.markResponseHeadersSent();
+
+        // then
+        assertThat(content.refCnt()).isEqualTo(0);
+        assertThat(firedMessages).isEmpty();
+        Throwable ex = catchThrowable(() -> writer.completionFuture().join());
+        assertThat(ex).hasCause(cause);
+    }
+}
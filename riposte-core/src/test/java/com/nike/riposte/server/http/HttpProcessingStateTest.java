@@ -7,6 +7,7 @@ import com.nike.riposte.server.testutils.ArgCapturingHttpTagAndSpanNamingStrateg
 import com.nike.riposte.server.testutils.ArgCapturingHttpTagAndSpanNamingStrategy.InitialSpanNameArgs;
 import com.nike.riposte.server.testutils.ArgCapturingHttpTagAndSpanNamingStrategy.RequestTaggingArgs;
 import com.nike.riposte.server.testutils.ArgCapturingHttpTagAndSpanNamingStrategy.ResponseTaggingArgs;
+import com.nike.riposte.util.TracingAndMdcSnapshot;
 import com.nike.wingtips.Span;
 import com.nike.wingtips.tags.HttpTagAndSpanNamingAdapter;
 import com.nike.wingtips.tags.HttpTagAndSpanNamingStrategy;
@@ -19,8 +20,12 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.util.ArrayDeque;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -211,4 +216,106 @@ public class HttpProcessingStateTest {
         verify(distributedTracingConfigMock).getServerSpanNamingAndTaggingStrategy();
         assertThat(stateSpy.isTracingResponseTaggingAndFinalSpanNameCompleted()).isTrue();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void endpointResponseFuture_is_copied_by_copy_constructor_and_cleared_by_cleanStateForNewRequest() {
+        // given
+        CompletableFuture<?> endpointResponseFuture = new CompletableFuture<>();
+        HttpProcessingState state = new HttpProcessingState();
+        state.setEndpointResponseFuture(endpointResponseFuture);
+
+        // when
+        HttpProcessingState copy = new HttpProcessingState(state);
+
+        // then
+        assertThat(copy.getEndpointResponseFuture()).isSameAs(endpointResponseFuture);
+
+        // and when
+        state.cleanStateForNewRequest();
+
+        // then
+        assertThat(state.getEndpointResponseFuture()).isNull();
+    }
+
+    @Test
+    public void getTracingAndMdcSnapshot_returns_the_same_snapshot_until_tracing_or_mdc_info_changes() {
+        // given
+        HttpProcessingState state = new HttpProcessingState();
+        Deque<Span> traceStack = new ArrayDeque<>();
+        traceStack.push(spanMock);
+        Map<String, String> mdcInfo = Collections.singletonMap("foo", "bar");
+        state.setDistributedTraceStack(traceStack);
+        state.setLoggerMdcContextMap(mdcInfo);
+
+        // when
+        TracingAndMdcSnapshot snapshot = state.getTracingAndMdcSnapshot();
+
+        // then
+        assertThat(snapshot.getDistributedTraceStack()).isSameAs(traceStack);
+        assertThat(snapshot.getMdcContextMap()).isSameAs(mdcInfo);
+        assertThat(state.getTracingAndMdcSnapshot()).isSameAs(snapshot);
+        assertThat(new HttpProcessingState(state).getTracingAndMdcSnapshot()).isSameAs(snapshot);
+
+        // and when
+        Deque<Span> newTraceStack = new ArrayDeque<>(traceStack);
+        state.setDistributedTraceStack(newTraceStack);
+        TracingAndMdcSnapshot snapshotAfterChange = state.getTracingAndMdcSnapshot();
+
+        // then
+        assertThat(snapshotAfterChange).isNotSameAs(snapshot);
+        assertThat(snapshotAfterChange.getDistributedTraceStack()).isSameAs(newTraceStack);
+        assertThat(snapshotAfterChange.getMdcContextMap()).isSameAs(mdcInfo);
+
+        // and when
+        state.cleanStateForNewRequest();
+
+        // then
+        assertThat(state.getTracingAndMdcSnapshot()).isSameAs(TracingAndMdcSnapshot.EMPTY);
+    }
+
+    @Test
+    public void getTracingAndMdcSnapshot_keeps_the_snapshot_when_an_mdc_map_with_the_same_contents_is_set() {
+        // given
+        HttpProcessingState state = new HttpProcessingState();
+        Map<String, String> mdcInfo = Collections.singletonMap("foo", "bar");
+        state.setLoggerMdcContextMap(mdcInfo);
+        TracingAndMdcSnapshot snapshot = state.getTracingAndMdcSnapshot();
+
+        // when
+        state.setLoggerMdcContextMap(new HashMap<>(mdcInfo));
+
+        // then
+        assertThat(state.getLoggerMdcContextMap()).isSameAs(mdcInfo);
+        assertThat(state.getTracingAndMdcSnapshot()).isSameAs(snapshot);
+
+        // and when
+        Map<String, String> changedMdcInfo = Collections.singletonMap("foo", "notbar");
+        state.setLoggerMdcContextMap(changedMdcInfo);
+
+        // then
+        assertThat(state.getLoggerMdcContextMap()).isSameAs(changedMdcInfo);
+        assertThat(state.getTracingAndMdcSnapshot()).isNotSameAs(snapshot);
+        assertThat(state.getTracingAndMdcSnapshot().getMdcContextMap()).isSameAs(changedMdcInfo);
+    }
+
+    @Test
+    public void getTracingAndMdcSnapshot_returns_a_new_snapshot_when_the_current_span_changes_in_place() {
+        // given
+        HttpProcessingState state = new HttpProcessingState();
+        Deque<Span> traceStack = new ArrayDeque<>();
+        traceStack.push(spanMock);
+        state.setDistributedTraceStack(traceStack);
+        TracingAndMdcSnapshot snapshot = state.getTracingAndMdcSnapshot();
+        Span subspanMock = mock(Span.class);
+
+        // when
+        traceStack.push(subspanMock);
+        TracingAndMdcSnapshot snapshotAfterChange = state.getTracingAndMdcSnapshot();
+
+        // then
+        assertThat(snapshot.getCurrentSpan()).isSameAs(spanMock);
+        assertThat(snapshotAfterChange).isNotSameAs(snapshot);
+        assertThat(snapshotAfterChange.getCurrentSpan()).isSameAs(subspanMock);
+        assertThat(state.getTracingAndMdcSnapshot()).isSameAs(snapshotAfterChange);
+    }
+}
@@ -76,6 +76,7 @@ public class ProxyRouterEndpointTest {
         assertThat(downstreamRequestFirstChunkInfo.firstChunk).isEqualTo(firstChunk);
         assertThat(downstreamRequestFirstChunkInfo.addTracingHeadersToDownstreamCall).isTrue();
         assertThat(downstreamRequestFirstChunkInfo.performSubSpanAroundDownstreamCall).isTrue();
+        assertThat(downstreamRequestFirstChunkInfo.downstreamAddressSelector).isNull();
     }
 
     @Test
@@ -147,6 +148,20 @@ public class ProxyRouterEndpointTest {
         assertThat(downstreamRequestFirstChunkInfo.addTracingHeadersToDownstreamCall).isEqualTo(flagValue);
     }
 
+    @Test
+    public void downstreamRequestFirstChunkInfo_allowsOverrideOfDownstreamAddressSelector() {
+        // given
+        DownstreamAddressSelector selector = (hostname, addresses, stats) -> addresses.get(0);
+
+        // when
+        DownstreamRequestFirstChunkInfo downstreamRequestFirstChunkInfo =
+                new DownstreamRequestFirstChunkInfo("localhost", 8080, true, mock(HttpRequest.class))
+                .withDownstreamAddressSelector(selector);
+
+        // then
+        assertThat(downstreamRequestFirstChunkInfo.downstreamAddressSelector).isSameAs(selector);
+    }
+
     @Test
     @DataProvider(value = {
             "true",
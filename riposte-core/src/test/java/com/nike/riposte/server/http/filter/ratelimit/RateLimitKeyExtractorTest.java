@@ -0,0 +1,93 @@
+package com.nike.riposte.server.http.filter.ratelimit;
+
+import com.nike.riposte.server.http.RequestInfo;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.local.LocalAddress;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the functionality of {@link RateLimitKeyExtractor}.
+ */
+public class RateLimitKeyExtractorTest {
+
+    private RequestInfo<?> requestInfoMock;
+    private ChannelHandlerContext ctxMock;
+    private Channel channelMock;
+
+    @Before
+    public void beforeMethod() {
+        requestInfoMock = mock(RequestInfo.class);
+        ctxMock = mock(ChannelHandlerContext.class);
+        channelMock = mock(Channel.class);
+
+        doReturn(channelMock).when(ctxMock).channel();
+    }
+
+    @Test
+    public void clientIp_returns_remote_InetAddress() throws Exception {
+        // given
+        InetAddress address = InetAddress.getByName("10.1.2.3");
+        doReturn(new InetSocketAddress(address, 4242)).when(channelMock).remoteAddress();
+
+        // when
+        Object key = RateLimitKeyExtractor.clientIp().extractKey(requestInfoMock, ctxMock);
+
+        // then
+        assertThat(key).isEqualTo(address);
+    }
+
+    @Test
+    public void clientIp_returns_null_if_remote_address_is_not_an_InetSocketAddress() {
+        // given
+        doReturn(new LocalAddress("foo")).when(channelMock).remoteAddress();
+
+        // expect
+        assertThat(RateLimitKeyExtractor.clientIp().extractKey(requestInfoMock, ctxMock)).isNull();
+    }
+
+    @Test
+    public void header_returns_header_value() {
+        // given
+        doReturn(new DefaultHttpHeaders().set("X-Api-Key", "some-api-key")).when(requestInfoMock).getHeaders();
+
+        // expect
+        assertThat(RateLimitKeyExtractor.header("X-Api-Key").extractKey(requestInfoMock, ctxMock))
+            .isEqualTo("some-api-key");
+        assertThat(RateLimitKeyExtractor.header("X-Other").extractKey(requestInfoMock, ctxMock)).isNull();
+    }
+
+    @Test
+    public void requestAttribute_returns_attribute_value() {
+        // given
+        Object callerId = new Object();
+        doReturn(Collections.singletonMap("callerId", callerId)).when(requestInfoMock).getRequestAttributes();
+
+        // expect
+        assertThat(RateLimitKeyExtractor.requestAttribute("callerId").extractKey(requestInfoMock, ctxMock))
+            .isSameAs(callerId);
+        assertThat(RateLimitKeyExtractor.requestAttribute("other").extractKey(requestInfoMock, ctxMock)).isNull();
+    }
+
+    @Test
+    public void header_and_requestAttribute_throw_IllegalArgumentException_for_null_names() {
+        // expect
+        assertThat(catchThrowable(() -> RateLimitKeyExtractor.header(null)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> RateLimitKeyExtractor.requestAttribute(null)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
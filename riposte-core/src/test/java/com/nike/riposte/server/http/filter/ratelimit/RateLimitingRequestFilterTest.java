@@ -0,0 +1,190 @@
+package com.nike.riposte.server.http.filter.ratelimit;
+
+import com.nike.backstopper.apierror.ApiError;
+import com.nike.backstopper.apierror.ApiErrorBase;
+import com.nike.backstopper.model.riposte.ErrorResponseBodyImpl;
+import com.nike.internal.util.Pair;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseInfo;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpHeaderNames;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the functionality of {@link RateLimitingRequestFilter}.
+ */
+@RunWith(DataProviderRunner.class)
+public class RateLimitingRequestFilterTest {
+
+    private AtomicLong nanoTime;
+    private TokenBucketTable tokenBuckets;
+    private Object key;
+    private RateLimitingRequestFilter filter;
+
+    private RequestInfo<?> requestInfoMock;
+    private ChannelHandlerContext ctxMock;
+
+    @Before
+    public void beforeMethod() {
+        nanoTime = new AtomicLong(TimeUnit.DAYS.toNanos(1));
+        // One token every 2.5 seconds, burst of 2.
+        tokenBuckets = new TokenBucketTable(0.4, 2, 1024, nanoTime::get);
+        key = "some-client";
+        filter = new RateLimitingRequestFilter(
+            (request, ctx) -> key, tokenBuckets, RateLimitingRequestFilter.DEFAULT_RATE_LIMITED_API_ERROR
+        );
+
+        requestInfoMock = mock(RequestInfo.class);
+        ctxMock = mock(ChannelHandlerContext.class);
+    }
+
+    @Test
+    public void convenience_constructor_uses_defaults() {
+        // when
+        RateLimitingRequestFilter instance = new RateLimitingRequestFilter(RateLimitKeyExtractor.clientIp(), 10, 20);
+
+        // then
+        assertThat(instance.getTokenBuckets().getBurstCapacity()).isEqualTo(20);
+        assertThat(instance.getTokenBuckets().getTableCapacity())
+            .isEqualTo(RateLimitingRequestFilter.DEFAULT_TABLE_CAPACITY);
+        assertThat(instance.rateLimitedApiError).isSameAs(RateLimitingRequestFilter.DEFAULT_RATE_LIMITED_API_ERROR);
+    }
+
+    @DataProvider(value = {
+        "true   |   false   |   false",
+        "false  |   true    |   false",
+        "false  |   false   |   true",
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_null_args(
+        boolean nullKeyExtractor, boolean nullTokenBuckets, boolean nullApiError
+    ) {
+        // when
+        Throwable ex = catchThrowable(() -> new RateLimitingRequestFilter(
+            (nullKeyExtractor) ? null : RateLimitKeyExtractor.clientIp(),
+            (nullTokenBuckets) ? null : tokenBuckets,
+            (nullApiError) ? null : RateLimitingRequestFilter.DEFAULT_RATE_LIMITED_API_ERROR
+        ));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void filter_is_short_circuiting_and_executes_before_security_validation() {
+        // expect
+        assertThat(filter.isShortCircuitRequestFilter()).isTrue();
+        assertThat(filter.shouldExecuteBeforeSecurityValidation()).isTrue();
+    }
+
+    @Test
+    public void filterRequestFirstChunkWithOptionalShortCircuitResponse_returns_null_while_under_the_limit() {
+        // expect
+        assertThat(filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(requestInfoMock, ctxMock)).isNull();
+        assertThat(filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(requestInfoMock, ctxMock)).isNull();
+        assertThat(filter.getRejectedCount()).isZero();
+    }
+
+    @Test
+    public void filterRequestFirstChunkWithOptionalShortCircuitResponse_returns_null_if_key_is_null() {
+        // given
+        key = null;
+
+        // expect
+        for (int i = 0; i < 10; i++) {
+            assertThat(filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(requestInfoMock, ctxMock))
+                .isNull();
+        }
+        assertThat(filter.getRejectedCount()).isZero();
+    }
+
+    @Test
+    public void filterRequestFirstChunkWithOptionalShortCircuitResponse_short_circuits_with_429_when_over_the_limit() {
+        // given
+        filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(requestInfoMock, ctxMock);
+        filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(requestInfoMock, ctxMock);
+
+        // when
+        Pair<? extends RequestInfo<?>, Optional<ResponseInfo<?>>> result =
+            filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(requestInfoMock, ctxMock);
+
+        // then
+        assertThat(result).isNotNull();
+        assertThat(result.getLeft()).isSameAs(requestInfoMock);
+        assertThat(result.getRight()).isPresent();
+        ResponseInfo<?> response = result.getRight().get();
+        assertThat(response.getHttpStatusCode()).isEqualTo(429);
+        assertThat(response.isChunkedResponse()).isFalse();
+        assertThat(response.getDesiredContentWriterMimeType()).isEqualTo("application/json");
+        // 2.5 seconds until the next token, rounded up.
+        assertThat(response.getHeaders().get(HttpHeaderNames.RETRY_AFTER)).isEqualTo("3");
+        assertThat(response.getHeaders().get(RateLimitingRequestFilter.RATE_LIMIT_LIMIT_HEADER_NAME)).isEqualTo("2");
+        assertThat(response.getHeaders().get(RateLimitingRequestFilter.RATE_LIMIT_REMAINING_HEADER_NAME))
+            .isEqualTo("0");
+
+        ErrorResponseBodyImpl body = (ErrorResponseBodyImpl) response.getContentForFullResponse();
+        assertThat(body).isNotNull();
+        assertThat(response.getHeaders().get("error_uid")).isEqualTo(body.error_id);
+        assertThat(body.errors).hasSize(1);
+        assertThat(body.errors.get(0).code)
+            .isEqualTo(RateLimitingRequestFilter.DEFAULT_RATE_LIMITED_API_ERROR.getErrorCode());
+        assertThat(filter.getRejectedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void filterRequestFirstChunkWithOptionalShortCircuitResponse_allows_requests_again_once_tokens_refill() {
+        // given
+        filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(requestInfoMock, ctxMock);
+        filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(requestInfoMock, ctxMock);
+        assertThat(filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(requestInfoMock, ctxMock))
+            .isNotNull();
+
+        // when
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(2500));
+
+        // then
+        assertThat(filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(requestInfoMock, ctxMock)).isNull();
+        assertThat(filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(requestInfoMock, ctxMock))
+            .isNotNull();
+        assertThat(filter.getRejectedCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void generateRateLimitedResponse_uses_the_configured_api_error_and_at_least_1_second_retry_after() {
+        // given
+        ApiError customError = new ApiErrorBase("CUSTOM_RATE_LIMIT", 99042, "slow down", 503);
+        RateLimitingRequestFilter instance =
+            new RateLimitingRequestFilter(RateLimitKeyExtractor.clientIp(), tokenBuckets, customError);
+
+        // when
+        ResponseInfo<?> response = instance.generateRateLimitedResponse(1);
+
+        // then
+        assertThat(response.getHttpStatusCode()).isEqualTo(503);
+        assertThat(response.getHeaders().get(HttpHeaderNames.RETRY_AFTER)).isEqualTo("1");
+        ErrorResponseBodyImpl body = (ErrorResponseBodyImpl) response.getContentForFullResponse();
+        assertThat(body.errors.get(0).code).isEqualTo("99042");
+    }
+
+    @Test
+    public void filterRequestLastChunkWithOptionalShortCircuitResponse_and_filterResponse_return_null() {
+        // expect
+        assertThat(filter.filterRequestLastChunkWithOptionalShortCircuitResponse(requestInfoMock, ctxMock)).isNull();
+        assertThat(filter.filterResponse(mock(ResponseInfo.class), requestInfoMock, ctxMock)).isNull();
+    }
+}
@@ -0,0 +1,248 @@
+package com.nike.riposte.server.http.filter.ratelimit;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link TokenBucketTable}.
+ */
+@RunWith(DataProviderRunner.class)
+public class TokenBucketTableTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private AtomicLong nanoTime;
+
+    @Before
+    public void beforeMethod() {
+        nanoTime = new AtomicLong(TimeUnit.DAYS.toNanos(1));
+    }
+
+    private TokenBucketTable table(double permitsPerSecond, int burstCapacity, int tableCapacity) {
+        return new TokenBucketTable(permitsPerSecond, burstCapacity, tableCapacity, nanoTime::get);
+    }
+
+    /**
+     * A key that always hashes to the same slot, so tests can fill up a probe sequence.
+     */
+    private static class CollidingKey {
+
+        private final String name;
+
+        CollidingKey(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return (o instanceof CollidingKey) && ((CollidingKey) o).name.equals(name);
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+    }
+
+    @DataProvider(value = {
+        "0      |   10  |   1024",
+        "-1     |   10  |   1024",
+        "10     |   0   |   1024",
+        "10     |   10  |   0",
+        "10     |   10  |   2147483647",
+        "1e-9   |   2147483647  |   1024",
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_args(
+        double permitsPerSecond, int burstCapacity, int tableCapacity
+    ) {
+        // when
+        Throwable ex = catchThrowable(() -> new TokenBucketTable(permitsPerSecond, burstCapacity, tableCapacity));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DataProvider(value = {
+        "1      |   8",
+        "8      |   8",
+        "9      |   16",
+        "1000   |   1024",
+        "1024   |   1024",
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_rounds_table_capacity_up_to_power_of_2(int tableCapacity, int expectedCapacity) {
+        // expect
+        assertThat(table(10, 10, tableCapacity).getTableCapacity()).isEqualTo(expectedCapacity);
+    }
+
+    @Test
+    public void tryAcquire_allows_a_burst_then_rejects_until_tokens_refill() {
+        // given - 10 per second (one token every 100ms), burst of 3
+        TokenBucketTable table = table(10, 3, 1024);
+
+        // expect
+        assertThat(table.tryAcquire("foo")).isEqualTo(2);
+        assertThat(table.tryAcquire("foo")).isEqualTo(1);
+        assertThat(table.tryAcquire("foo")).isEqualTo(0);
+        assertThat(table.tryAcquire("foo")).isEqualTo(-100 * MILLIS);
+
+        // and when
+        nanoTime.addAndGet(40 * MILLIS);
+
+        // then
+        assertThat(table.tryAcquire("foo")).isEqualTo(-60 * MILLIS);
+
+        // and when
+        nanoTime.addAndGet(60 * MILLIS);
+
+        // then
+        assertThat(table.tryAcquire("foo")).isEqualTo(0);
+        assertThat(table.tryAcquire("foo")).isEqualTo(-100 * MILLIS);
+
+        // and when - the bucket fills back up, but never past the burst capacity
+        nanoTime.addAndGet(10_000 * MILLIS);
+
+        // then
+        assertThat(table.tryAcquire("foo")).isEqualTo(2);
+    }
+
+    @Test
+    public void tryAcquire_keeps_separate_buckets_per_key() {
+        // given
+        TokenBucketTable table = table(1, 1, 1024);
+
+        // expect
+        assertThat(table.tryAcquire("foo")).isEqualTo(0);
+        assertThat(table.tryAcquire("foo")).isNegative();
+        assertThat(table.tryAcquire("bar")).isEqualTo(0);
+        assertThat(table.tryAcquire(new CollidingKey("baz"))).isEqualTo(0);
+        assertThat(table.tryAcquire(new CollidingKey("baz"))).isNegative();
+        assertThat(table.tryAcquire(new CollidingKey("qux"))).isEqualTo(0);
+    }
+
+    @Test
+    public void tryAcquire_returns_UNTRACKED_if_every_slot_for_the_key_is_held_by_a_limited_key() {
+        // given
+        TokenBucketTable table = table(1, 1, 8);
+        for (int i = 0; i < TokenBucketTable.MAX_PROBES; i++) {
+            table.tryAcquire(new CollidingKey("key" + i));
+        }
+
+        // when
+        long result = table.tryAcquire(new CollidingKey("oneTooMany"));
+
+        // then
+        assertThat(result).isEqualTo(TokenBucketTable.UNTRACKED);
+        assertThat(table.getUntrackedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void tryAcquire_takes_over_slot_whose_bucket_has_filled_back_up() {
+        // given
+        TokenBucketTable table = table(1, 1, 8);
+        for (int i = 0; i < TokenBucketTable.MAX_PROBES; i++) {
+            table.tryAcquire(new CollidingKey("key" + i));
+        }
+        nanoTime.addAndGet(1000 * MILLIS);
+
+        // when
+        long result = table.tryAcquire(new CollidingKey("newKey"));
+
+        // then
+        assertThat(result).isEqualTo(0);
+        assertThat(table.tryAcquire(new CollidingKey("newKey"))).isNegative();
+        assertThat(table.getUntrackedCount()).isZero();
+    }
+
+    @Test
+    public void tryAcquire_never_charges_another_keys_bucket_or_splits_a_key_across_slots_while_slots_are_taken_over()
+        throws Exception {
+        // given - every key shares the same 8 slots, and the clock keeps jumping forward by a full bucket's worth of
+        //      refill so that buckets fill back up and their slots keep getting taken over by the churn keys while
+        //      the victim key is being hammered. Between jumps the clock stands still, so no key can ever get more
+        //      than burstCapacity tokens at any one clock value - taking a token from another key's bucket, or
+        //      holding two buckets at once, would let a key go over.
+        int numVictimThreads = 4;
+        int numChurnThreads = 4;
+        int numChurnKeys = 16;
+        int attemptsPerThread = 100_000;
+        int burstCapacity = 4;
+        TokenBucketTable table = table(1, burstCapacity, 8);
+        CollidingKey victim = new CollidingKey("victim");
+        CollidingKey[] churnKeys = new CollidingKey[numChurnKeys];
+        for (int i = 0; i < numChurnKeys; i++) {
+            churnKeys[i] = new CollidingKey("churn-" + i);
+        }
+        Map<String, LongAdder> allowedPerKeyAndClockValue = new ConcurrentHashMap<>();
+        LongAdder victimAllowed = new LongAdder();
+        CyclicBarrier startBarrier = new CyclicBarrier(numVictimThreads + numChurnThreads);
+        CountDownLatch doneLatch = new CountDownLatch(numVictimThreads + numChurnThreads);
+        ExecutorService executor = Executors.newFixedThreadPool(numVictimThreads + numChurnThreads);
+
+        try {
+            // when
+            for (int t = 0; t < numVictimThreads + numChurnThreads; t++) {
+                boolean isChurnThread = (t >= numVictimThreads);
+                int threadNum = t;
+                executor.execute(() -> {
+                    try {
+                        startBarrier.await();
+                        for (int i = 0; i < attemptsPerThread; i++) {
+                            CollidingKey key = (isChurnThread) ? churnKeys[(threadNum + i) % numChurnKeys] : victim;
+                            long clockBefore = nanoTime.get();
+                            long result = table.tryAcquire(key);
+                            // Only count calls that definitely saw a single clock value.
+                            if (result >= 0 && result != TokenBucketTable.UNTRACKED && nanoTime.get() == clockBefore) {
+                                allowedPerKeyAndClockValue
+                                    .computeIfAbsent(key.name + "@" + clockBefore, k -> new LongAdder())
+                                    .increment();
+                                if (key == victim) {
+                                    victimAllowed.increment();
+                                }
+                            }
+                            if (isChurnThread && i % 64 == 0) {
+                                nanoTime.addAndGet(burstCapacity * 1000 * MILLIS);
+                            }
+                        }
+                    }
+                    catch (Exception ex) {
+                        throw new RuntimeException(ex);
+                    }
+                    finally {
+                        doneLatch.countDown();
+                    }
+                });
+            }
+
+            // then
+            assertThat(doneLatch.await(120, TimeUnit.SECONDS)).isTrue();
+            assertThat(victimAllowed.sum()).isPositive();
+            allowedPerKeyAndClockValue.forEach(
+                (keyAndClockValue, allowed) -> assertThat(allowed.sum())
+                    .as(keyAndClockValue)
+                    .isLessThanOrEqualTo(burstCapacity)
+            );
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.nike.riposte.server.http.sse;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.channelpipeline.message.OutboundMessageSendContentChunk;
+import com.nike.riposte.server.http.ChunkedResponseWriter;
+import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.sse.ServerSentEventBroadcaster.SlowSubscriberPolicy;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.util.ReferenceCountUtil;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link ServerSentEventBroadcaster} and the {@link ServerSentEventStream}s it fans out
+ * to.
+ */
+public class ServerSentEventBroadcasterTest {
+
+    private final List<Subscriber> subscribers = new ArrayList<>();
+
+    @After
+    public void afterMethod() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.firedMessages.forEach(ReferenceCountUtil::release);
+            subscriber.channel.finishAndReleaseAll();
+        }
+    }
+
+    private Subscriber newSubscriber() {
+        Subscriber subscriber = new Subscriber();
+        subscribers.add(subscriber);
+        return subscriber;
+    }
+
+    private static class Subscriber {
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        final List<Object> firedMessages = new ArrayList<>();
+        final ChunkedResponseWriter writer;
+        final ServerSentEventStream stream;
+
+        Subscriber() {
+            channel.pipeline().addLast("source", new ChannelInboundHandlerAdapter());
+            channel.pipeline().addLast("capture", new ChannelInboundHandlerAdapter() {
+                @Override
+                public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                    if (msg instanceof OutboundMessageSendContentChunk) {
+                        firedMessages.add(((OutboundMessageSendContentChunk) msg).contentChunk);
+                    }
+                }
+            });
+            channel.attr(ChannelAttributes.HTTP_PROCESSING_STATE_ATTRIBUTE_KEY).set(new HttpProcessingState());
+            ChannelHandlerContext ctx = channel.pipeline().context("source");
+            writer = new ChunkedResponseWriter(ctx);
+            writer.markResponseHeadersSent();
+            stream = new ServerSentEventStream(writer, ctx, 0, null);
+        }
+
+        void makeUnwritable() {
+            channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(1, 2));
+            // Write without flushing to push the outbound buffer over the high water mark.
+            channel.write(Unpooled.wrappedBuffer(new byte[16]));
+            assertThat(channel.isWritable()).isFalse();
+        }
+
+        void makeWritableAgain() {
+            makeWritableAgainWithoutRunningPendingTasks();
+            // Coalesced events are flushed by a separate event loop task.
+            channel.runPendingTasks();
+        }
+
+        void makeWritableAgainWithoutRunningPendingTasks() {
+            channel.flush();
+            channel.releaseOutbound();
+            writer.handleChannelWritabilityChanged();
+        }
+
+        List<String> receivedPayloads() {
+            List<String> result = new ArrayList<>();
+            for (Object msg : firedMessages) {
+                result.add(((HttpContent) msg).content().toString(StandardCharsets.UTF_8));
+            }
+            return result;
+        }
+    }
+
+    @Test
+    public void broadcast_sends_the_same_encoded_bytes_to_all_subscribers_without_copying() {
+        // given
+        ServerSentEventBroadcaster broadcaster = new ServerSentEventBroadcaster(SlowSubscriberPolicy.DROP_SUBSCRIBER);
+        Subscriber first = newSubscriber();
+        Subscriber second = newSubscriber();
+        broadcaster.subscribe(first.stream);
+        broadcaster.subscribe(second.stream);
+
+        // when
+        int numSent = broadcaster.broadcast(ServerSentEvent.withData("hello"));
+
+        // then
+        assertThat(numSent).isEqualTo(2);
+        assertThat(first.receivedPayloads()).containsExactly("data: hello\n\n");
+        assertThat(second.receivedPayloads()).containsExactly("data: hello\n\n");
+        HttpContent firstContent = (HttpContent) first.firedMessages.get(0);
+        HttpContent secondContent = (HttpContent) second.firedMessages.get(0);
+        assertThat(firstContent.content().unwrap()).isSameAs(secondContent.content().unwrap());
+        assertThat(broadcaster.getBroadcastCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void slow_subscriber_is_dropped_under_DROP_SUBSCRIBER_policy() {
+        // given
+        ServerSentEventBroadcaster broadcaster = new ServerSentEventBroadcaster(SlowSubscriberPolicy.DROP_SUBSCRIBER);
+        Subscriber fast = newSubscriber();
+        Subscriber slow = newSubscriber();
+        broadcaster.subscribe(fast.stream);
+        broadcaster.subscribe(slow.stream);
+        slow.makeUnwritable();
+
+        // when
+        int numSent = broadcaster.broadcast(ServerSentEvent.withData("hello"));
+
+        // then
+        assertThat(numSent).isEqualTo(1);
+        assertThat(fast.receivedPayloads()).containsExactly("data: hello\n\n");
+        assertThat(slow.firedMessages).isEmpty();
+        assertThat(slow.stream.isOpen()).isFalse();
+        assertThat(slow.channel.isOpen()).isFalse();
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(1);
+        assertThat(broadcaster.getDroppedSubscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void slow_subscriber_only_receives_latest_event_under_COALESCE_policy() {
+        // given
+        ServerSentEventBroadcaster broadcaster = new ServerSentEventBroadcaster(SlowSubscriberPolicy.COALESCE);
+        Subscriber slow = newSubscriber();
+        broadcaster.subscribe(slow.stream);
+        slow.makeUnwritable();
+
+        // when
+        broadcaster.broadcast(ServerSentEvent.withData("first"));
+        broadcaster.broadcast(ServerSentEvent.withData("second"));
+        broadcaster.broadcast(ServerSentEvent.withData("third"));
+
+        // then
+        assertThat(slow.firedMessages).isEmpty();
+        assertThat(broadcaster.getCoalescedEventCount()).isEqualTo(3);
+
+        // and when
+        slow.makeWritableAgain();
+
+        // then
+        assertThat(slow.receivedPayloads()).containsExactly("data: third\n\n");
+        assertThat(slow.stream.isOpen()).isTrue();
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void event_offered_before_coalesced_event_is_flushed_replaces_it_instead_of_jumping_ahead_of_it() {
+        // given
+        ServerSentEventBroadcaster broadcaster = new ServerSentEventBroadcaster(SlowSubscriberPolicy.COALESCE);
+        Subscriber slow = newSubscriber();
+        broadcaster.subscribe(slow.stream);
+        slow.makeUnwritable();
+        broadcaster.broadcast(ServerSentEvent.withData("first"));
+        // The channel is writable again, but the task that flushes the coalesced event hasn't run yet.
+        slow.makeWritableAgainWithoutRunningPendingTasks();
+
+        // when
+        broadcaster.broadcast(ServerSentEvent.withData("second"));
+        slow.channel.runPendingTasks();
+
+        // then
+        assertThat(slow.receivedPayloads()).containsExactly("data: second\n\n");
+        assertThat(broadcaster.getCoalescedEventCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void events_offered_after_coalesced_event_is_flushed_arrive_after_it() {
+        // given
+        ServerSentEventBroadcaster broadcaster = new ServerSentEventBroadcaster(SlowSubscriberPolicy.COALESCE);
+        Subscriber slow = newSubscriber();
+        broadcaster.subscribe(slow.stream);
+        slow.makeUnwritable();
+        broadcaster.broadcast(ServerSentEvent.withData("first"));
+
+        // when
+        slow.makeWritableAgain();
+        broadcaster.broadcast(ServerSentEvent.withData("second"));
+        broadcaster.broadcast(ServerSentEvent.withData("third"));
+
+        // then
+        assertThat(slow.receivedPayloads()).containsExactly("data: first\n\n", "data: second\n\n", "data: third\n\n");
+    }
+
+    @Test
+    public void send_drops_older_coalesced_event_that_has_not_been_flushed_yet() {
+        // given
+        ServerSentEventBroadcaster broadcaster = new ServerSentEventBroadcaster(SlowSubscriberPolicy.COALESCE);
+        Subscriber slow = newSubscriber();
+        broadcaster.subscribe(slow.stream);
+        slow.makeUnwritable();
+        broadcaster.broadcast(ServerSentEvent.withData("first"));
+
+        // when
+        slow.stream.send(ServerSentEvent.withData("second"));
+        slow.makeWritableAgain();
+
+        // then
+        assertThat(slow.receivedPayloads()).containsExactly("data: second\n\n");
+    }
+
+    @Test
+    public void closed_streams_are_automatically_unsubscribed() {
+        // given
+        ServerSentEventBroadcaster broadcaster = new ServerSentEventBroadcaster(SlowSubscriberPolicy.COALESCE);
+        Subscriber subscriber = newSubscriber();
+        broadcaster.subscribe(subscriber.stream);
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(1);
+
+        // when
+        subscriber.channel.close();
+
+        // then
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(0);
+        assertThat(broadcaster.broadcast(ServerSentEvent.withData("hello"))).isEqualTo(0);
+    }
+}
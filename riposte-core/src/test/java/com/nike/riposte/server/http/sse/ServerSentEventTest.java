@@ -0,0 +1,113 @@
+package com.nike.riposte.server.http.sse;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.charset.StandardCharsets;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link ServerSentEvent}.
+ */
+@RunWith(DataProviderRunner.class)
+public class ServerSentEventTest {
+
+    private String encodeToString(ServerSentEvent event) {
+        ByteBuf buf = event.encode(UnpooledByteBufAllocator.DEFAULT);
+        try {
+            return buf.toString(StandardCharsets.UTF_8);
+        }
+        finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void encode_writes_all_fields_in_event_stream_format() {
+        // given
+        ServerSentEvent event = ServerSentEvent.newBuilder()
+                                               .withComment("hello")
+                                               .withId("42")
+                                               .withEvent("update")
+                                               .withRetryMillis(1000L)
+                                               .withData("some data")
+                                               .build();
+
+        // when
+        String result = encodeToString(event);
+
+        // then
+        assertThat(result).isEqualTo(": hello\nid: 42\nevent: update\nretry: 1000\ndata: some data\n\n");
+    }
+
+    @DataProvider(value = {
+        "line1\nline2",
+        "line1\r\nline2",
+        "line1\rline2"
+    }, splitBy = "\\|")
+    @Test
+    public void encode_splits_multiline_data_into_one_data_field_per_line(String data) {
+        // when
+        String result = encodeToString(ServerSentEvent.withData(data));
+
+        // then
+        assertThat(result).isEqualTo("data: line1\ndata: line2\n\n");
+    }
+
+    @Test
+    public void encode_handles_non_ascii_data() {
+        // when
+        String result = encodeToString(ServerSentEvent.withData("café"));
+
+        // then
+        assertThat(result).isEqualTo("data: café\n\n");
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_all_fields_are_null() {
+        // when
+        Throwable ex = catchThrowable(() -> ServerSentEvent.newBuilder().build());
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_id_or_event_contains_line_break(boolean useId) {
+        // given
+        ServerSentEvent.Builder builder = ServerSentEvent.newBuilder().withData("foo");
+        if (useId) {
+            builder.withId("bad\nid");
+        }
+        else {
+            builder.withEvent("bad\revent");
+        }
+
+        // when
+        Throwable ex = catchThrowable(builder::build);
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("line breaks");
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_retry_is_negative() {
+        // when
+        Throwable ex = catchThrowable(() -> ServerSentEvent.newBuilder().withRetryMillis(-1L).build());
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+}
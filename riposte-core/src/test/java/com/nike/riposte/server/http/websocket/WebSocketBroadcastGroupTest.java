@@ -0,0 +1,127 @@
+package com.nike.riposte.server.http.websocket;
+
+import com.nike.riposte.server.http.RequestInfo;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the functionality of {@link WebSocketBroadcastGroup}.
+ */
+public class WebSocketBroadcastGroupTest {
+
+    private final List<EmbeddedChannel> channels = new ArrayList<>();
+
+    @After
+    public void afterMethod() {
+        channels.forEach(EmbeddedChannel::finishAndReleaseAll);
+    }
+
+    @SuppressWarnings("unchecked")
+    private WebSocketSession newSession() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        channels.add(channel);
+        return new WebSocketSession(channel, mock(RequestInfo.class));
+    }
+
+    private EmbeddedChannel channel(WebSocketSession session) {
+        return (EmbeddedChannel) session.getChannel();
+    }
+
+    @Test
+    public void broadcastText_sends_duplicates_of_a_single_encoded_payload_to_all_members() {
+        // given
+        WebSocketBroadcastGroup group = new WebSocketBroadcastGroup();
+        WebSocketSession first = newSession();
+        WebSocketSession second = newSession();
+        group.add(first);
+        group.add(second);
+
+        // when
+        int numWritten = group.broadcastText("hello");
+
+        // then
+        assertThat(numWritten).isEqualTo(2);
+        TextWebSocketFrame firstFrame = channel(first).readOutbound();
+        TextWebSocketFrame secondFrame = channel(second).readOutbound();
+        assertThat(firstFrame.text()).isEqualTo("hello");
+        assertThat(secondFrame.text()).isEqualTo("hello");
+        assertThat(firstFrame.content().unwrap()).isSameAs(secondFrame.content().unwrap());
+
+        // and when
+        firstFrame.release();
+        secondFrame.release();
+
+        // then
+        assertThat(firstFrame.content().unwrap().refCnt()).isEqualTo(0);
+        assertThat(group.getBroadcastCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void broadcast_releases_the_original_frame_even_when_there_are_no_members() {
+        // given
+        WebSocketBroadcastGroup group = new WebSocketBroadcastGroup();
+        BinaryWebSocketFrame frame = new BinaryWebSocketFrame(Unpooled.copiedBuffer("foo", StandardCharsets.UTF_8));
+
+        // when
+        int numWritten = group.broadcast(frame);
+
+        // then
+        assertThat(numWritten).isEqualTo(0);
+        assertThat(frame.refCnt()).isEqualTo(0);
+    }
+
+    @Test
+    public void broadcast_skips_unwritable_members_when_configured_to() {
+        // given
+        WebSocketBroadcastGroup group = new WebSocketBroadcastGroup(UnpooledByteBufAllocator.DEFAULT, true);
+        WebSocketSession fast = newSession();
+        WebSocketSession slow = newSession();
+        group.add(fast);
+        group.add(slow);
+        EmbeddedChannel slowChannel = channel(slow);
+        slowChannel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(1, 2));
+        // Write without flushing to push the outbound buffer over the high water mark.
+        slowChannel.write(Unpooled.wrappedBuffer(new byte[16]));
+        assertThat(slow.isWritable()).isFalse();
+
+        // when
+        int numWritten = group.broadcastText("hello");
+
+        // then
+        assertThat(numWritten).isEqualTo(1);
+        assertThat(group.getSkippedUnwritableCount()).isEqualTo(1);
+        TextWebSocketFrame fastFrame = channel(fast).readOutbound();
+        assertThat(fastFrame.text()).isEqualTo("hello");
+        fastFrame.release();
+    }
+
+    @Test
+    public void members_are_removed_automatically_when_their_connection_closes() {
+        // given
+        WebSocketBroadcastGroup group = new WebSocketBroadcastGroup();
+        WebSocketSession session = newSession();
+        group.add(session);
+        assertThat(group.size()).isEqualTo(1);
+
+        // when
+        session.getChannel().close();
+
+        // then
+        assertThat(group.size()).isEqualTo(0);
+    }
+}
@@ -30,6 +30,7 @@ import org.junit.runner.RunWith;
 import com.nike.riposte.testutils.Whitebox;
 import org.slf4j.MDC;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
@@ -51,6 +52,7 @@ import java.util.function.Supplier;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.util.Attribute;
+import io.netty.util.concurrent.EventExecutor;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
@@ -60,6 +62,7 @@ import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -511,6 +514,318 @@ public class AsyncNettyHelperTest {
         assertThat(AsyncNettyHelper.extractTracingAndMdcInfoFromChannelHandlerContext(ctxMock)).isNull();
     }
 
+    @Test
+    public void extractTracingAndMdcSnapshotFromChannelHandlerContext_returns_the_same_snapshot_until_state_changes() {
+        // given
+        Pair<Deque<Span>, Map<String, String>> expected = setupStateWithTracingAndMdcInfo();
+
+        // when
+        TracingAndMdcSnapshot result = AsyncNettyHelper.extractTracingAndMdcSnapshotFromChannelHandlerContext(ctxMock);
+
+        // then
+        assertThat(result.getDistributedTraceStack()).isSameAs(expected.getLeft());
+        assertThat(result.getMdcContextMap()).isSameAs(expected.getRight());
+        assertThat(AsyncNettyHelper.extractTracingAndMdcSnapshotFromChannelHandlerContext(ctxMock)).isSameAs(result);
+
+        // and when
+        Map<String, String> newMdcInfo = new HashMap<>(expected.getRight());
+        state.setLoggerMdcContextMap(newMdcInfo);
+        TracingAndMdcSnapshot resultAfterChange =
+            AsyncNettyHelper.extractTracingAndMdcSnapshotFromChannelHandlerContext(ctxMock);
+
+        // then
+        assertThat(resultAfterChange).isNotSameAs(result);
+        assertThat(resultAfterChange.getMdcContextMap()).isSameAs(newMdcInfo);
+    }
+
+    @Test
+    public void extractTracingAndMdcSnapshotFromChannelHandlerContext_returns_EMPTY_if_passed_null() {
+        // expect
+        assertThat(AsyncNettyHelper.extractTracingAndMdcSnapshotFromChannelHandlerContext(null))
+            .isSameAs(TracingAndMdcSnapshot.EMPTY);
+    }
+
+    @Test
+    public void extractTracingAndMdcSnapshotFromChannelHandlerContext_returns_EMPTY_if_state_is_null() {
+        // given
+        doReturn(null).when(stateAttributeMock).get();
+
+        // expect
+        assertThat(AsyncNettyHelper.extractTracingAndMdcSnapshotFromChannelHandlerContext(ctxMock))
+            .isSameAs(TracingAndMdcSnapshot.EMPTY);
+    }
+
+    @Test
+    public void linkTracingAndMdcSnapshotToCurrentThread_and_unlink_work_as_expected() {
+        // given
+        Pair<Deque<Span>, Map<String, String>> infoToLink = generateTracingAndMdcInfo();
+        TracingAndMdcSnapshot snapshot = TracingAndMdcSnapshot.of(infoToLink.getLeft(), infoToLink.getRight());
+        Tracer.getInstance().startRequestWithRootSpan("originalSpan");
+        MDC.put("originalKey", "originalValue");
+        Deque<Span> originalSpanStack = Tracer.getInstance().getCurrentSpanStackCopy();
+        Map<String, String> originalMdcInfo = MDC.getCopyOfContextMap();
+
+        // when
+        TracingAndMdcSnapshot originalThreadInfo = AsyncNettyHelper.linkTracingAndMdcSnapshotToCurrentThread(snapshot);
+
+        // then
+        assertThat(originalThreadInfo).isNotSameAs(snapshot);
+        assertThat(originalThreadInfo.getDistributedTraceStack()).isEqualTo(originalSpanStack);
+        assertThat(originalThreadInfo.getMdcContextMap()).isEqualTo(originalMdcInfo);
+        assertThat(Tracer.getInstance().getCurrentSpanStackCopy()).isEqualTo(infoToLink.getLeft());
+        assertThat(MDC.getCopyOfContextMap()).isEqualTo(infoToLink.getRight());
+
+        // and when
+        AsyncNettyHelper.unlinkTracingAndMdcSnapshotFromCurrentThread(snapshot, originalThreadInfo);
+
+        // then
+        assertThat(Tracer.getInstance().getCurrentSpanStackCopy()).isEqualTo(originalSpanStack);
+        assertThat(MDC.getCopyOfContextMap()).isEqualTo(originalMdcInfo);
+    }
+
+    @Test
+    public void linkTracingAndMdcSnapshotToCurrentThread_does_nothing_if_the_snapshot_is_already_linked() {
+        // given
+        Pair<Deque<Span>, Map<String, String>> infoToLink = generateTracingAndMdcInfo();
+        TracingAndMdcSnapshot snapshot = TracingAndMdcSnapshot.of(infoToLink.getLeft(), infoToLink.getRight());
+        TracingAndMdcSnapshot outerOriginalThreadInfo =
+            AsyncNettyHelper.linkTracingAndMdcSnapshotToCurrentThread(snapshot);
+        // An MDC change made by the enclosing code - it stays visible because the nested link is skipped.
+        MDC.put("outerKey", "outerValue");
+        Map<String, String> mdcInfoBeforeNestedLink = MDC.getCopyOfContextMap();
+
+        // when
+        TracingAndMdcSnapshot nestedOriginalThreadInfo =
+            AsyncNettyHelper.linkTracingAndMdcSnapshotToCurrentThread(snapshot);
+
+        // then
+        assertThat(nestedOriginalThreadInfo).isSameAs(snapshot);
+        assertThat(MDC.getCopyOfContextMap()).isEqualTo(mdcInfoBeforeNestedLink);
+        assertThat(Tracer.getInstance().getCurrentSpanStackCopy()).isEqualTo(infoToLink.getLeft());
+
+        // and when
+        AsyncNettyHelper.unlinkTracingAndMdcSnapshotFromCurrentThread(snapshot, nestedOriginalThreadInfo);
+
+        // then
+        assertThat(MDC.getCopyOfContextMap()).isEqualTo(mdcInfoBeforeNestedLink);
+        assertThat(Tracer.getInstance().getCurrentSpanStackCopy()).isEqualTo(infoToLink.getLeft());
+
+        // and when
+        AsyncNettyHelper.unlinkTracingAndMdcSnapshotFromCurrentThread(snapshot, outerOriginalThreadInfo);
+
+        // then
+        assertThat(Tracer.getInstance().getCurrentSpanStackCopy()).isNull();
+        assertThat(MDC.getCopyOfContextMap()).isNullOrEmpty();
+        assertThat(AsyncNettyHelper.isSnapshotLinkedToCurrentThread(snapshot)).isFalse();
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void linkTracingAndMdcSnapshotToCurrentThread_links_again_if_the_thread_was_changed_since_the_snapshot_was_linked(
+        boolean changeViaTracer
+    ) {
+        // given
+        Pair<Deque<Span>, Map<String, String>> infoToLink = generateTracingAndMdcInfo();
+        TracingAndMdcSnapshot snapshot = TracingAndMdcSnapshot.of(infoToLink.getLeft(), infoToLink.getRight());
+        TracingAndMdcSnapshot outerOriginalThreadInfo =
+            AsyncNettyHelper.linkTracingAndMdcSnapshotToCurrentThread(snapshot);
+        if (changeViaTracer)
+            Tracer.getInstance().startSubSpan("subspan", Span.SpanPurpose.LOCAL_ONLY);
+        else
+            AsyncNettyHelper.linkTracingAndMdcToCurrentThread(null, null);
+
+        // when
+        TracingAndMdcSnapshot nestedOriginalThreadInfo =
+            AsyncNettyHelper.linkTracingAndMdcSnapshotToCurrentThread(snapshot);
+
+        // then
+        assertThat(nestedOriginalThreadInfo).isNotSameAs(snapshot);
+        assertThat(Tracer.getInstance().getCurrentSpanStackCopy()).isEqualTo(infoToLink.getLeft());
+        assertThat(MDC.getCopyOfContextMap()).isEqualTo(infoToLink.getRight());
+
+        // cleanup
+        AsyncNettyHelper.unlinkTracingAndMdcSnapshotFromCurrentThread(snapshot, nestedOriginalThreadInfo);
+        AsyncNettyHelper.unlinkTracingAndMdcSnapshotFromCurrentThread(snapshot, outerOriginalThreadInfo);
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void unlinkTracingAndMdcSnapshotFromCurrentThread_links_the_snapshot_again_if_nested_code_changed_the_thread(
+        boolean changeViaTracer
+    ) {
+        // given
+        Pair<Deque<Span>, Map<String, String>> infoToLink = generateTracingAndMdcInfo();
+        Span expectedSpan = infoToLink.getLeft().peek();
+        Deque<Span> expectedSpanStack = new ArrayDeque<>(infoToLink.getLeft());
+        TracingAndMdcSnapshot snapshot = TracingAndMdcSnapshot.of(infoToLink.getLeft(), infoToLink.getRight());
+        TracingAndMdcSnapshot outerOriginalThreadInfo =
+            AsyncNettyHelper.linkTracingAndMdcSnapshotToCurrentThread(snapshot);
+        TracingAndMdcSnapshot nestedOriginalThreadInfo =
+            AsyncNettyHelper.linkTracingAndMdcSnapshotToCurrentThread(snapshot);
+        assertThat(nestedOriginalThreadInfo).isSameAs(snapshot);
+
+        // The nested code leaves a sub-span open, or links something else without putting the thread back.
+        if (changeViaTracer)
+            Tracer.getInstance().startSubSpan("leakedSubspan", Span.SpanPurpose.LOCAL_ONLY);
+        else
+            AsyncNettyHelper.linkTracingAndMdcToCurrentThread(null, null);
+
+        // when
+        AsyncNettyHelper.unlinkTracingAndMdcSnapshotFromCurrentThread(snapshot, nestedOriginalThreadInfo);
+
+        // then
+        assertThat(Tracer.getInstance().getCurrentSpan()).isSameAs(expectedSpan);
+        assertThat(Tracer.getInstance().getCurrentSpanStackCopy()).containsExactlyElementsOf(expectedSpanStack);
+        assertThat(MDC.getCopyOfContextMap()).isEqualTo(infoToLink.getRight());
+        assertThat(AsyncNettyHelper.isSnapshotLinkedToCurrentThread(snapshot)).isTrue();
+
+        // and when
+        AsyncNettyHelper.unlinkTracingAndMdcSnapshotFromCurrentThread(snapshot, outerOriginalThreadInfo);
+
+        // then
+        assertThat(Tracer.getInstance().getCurrentSpanStackCopy()).isNull();
+        assertThat(MDC.getCopyOfContextMap()).isNullOrEmpty();
+    }
+
+    @Test
+    public void unlinkTracingAndMdcSnapshotFromCurrentThread_clears_the_thread_if_original_info_is_null() {
+        // given
+        Tracer.getInstance().startRequestWithRootSpan("someSpan");
+        MDC.put("foo", "bar");
+
+        // when
+        AsyncNettyHelper.unlinkTracingAndMdcSnapshotFromCurrentThread(TracingAndMdcSnapshot.EMPTY, null);
+
+        // then
+        assertThat(Tracer.getInstance().getCurrentSpanStackCopy()).isNull();
+        assertThat(MDC.getCopyOfContextMap()).isNullOrEmpty();
+    }
+
+    @Test
+    public void ten_stage_CompletableFuture_chain_shares_one_snapshot_and_links_it_for_every_stage() throws Exception {
+        // given
+        Pair<Deque<Span>, Map<String, String>> requestInfo = setupStateWithTracingAndMdcInfo();
+        Span expectedSpan = requestInfo.getLeft().peek();
+        int numStages = 10;
+        List<Object> wrappers = new ArrayList<>();
+        List<Span> spanSeenByStage = Collections.synchronizedList(new ArrayList<>());
+        List<Map<String, String>> mdcSeenByStage = Collections.synchronizedList(new ArrayList<>());
+
+        Supplier<Integer> firstStage = AsyncNettyHelper.supplierWithTracingAndMdc(() -> {
+            spanSeenByStage.add(Tracer.getInstance().getCurrentSpan());
+            mdcSeenByStage.add(MDC.getCopyOfContextMap());
+            return 1;
+        }, ctxMock);
+        wrappers.add(firstStage);
+        CompletableFuture<Integer> future = CompletableFuture.supplyAsync(firstStage, executor);
+        for (int i = 1; i < numStages; i++) {
+            Function<Integer, Integer> stage = AsyncNettyHelper.functionWithTracingAndMdc(previous -> {
+                spanSeenByStage.add(Tracer.getInstance().getCurrentSpan());
+                mdcSeenByStage.add(MDC.getCopyOfContextMap());
+                return previous + 1;
+            }, ctxMock);
+            wrappers.add(stage);
+            future = future.thenApplyAsync(stage, executor);
+        }
+
+        // when
+        Integer result = future.get();
+
+        // then
+        assertThat(result).isEqualTo(numStages);
+        TracingAndMdcSnapshot sharedSnapshot = state.getTracingAndMdcSnapshot();
+        for (Object wrapper : wrappers) {
+            assertThat(Whitebox.getInternalState(wrapper, "tracingAndMdcSnapshotForExecution"))
+                .isSameAs(sharedSnapshot);
+        }
+        assertThat(spanSeenByStage).hasSize(numStages).containsOnly(expectedSpan);
+        assertThat(mdcSeenByStage).hasSize(numStages).containsOnly(requestInfo.getRight());
+        assertThat(Tracer.getInstance().getCurrentSpanStackCopy()).isNull();
+        assertThat(MDC.getCopyOfContextMap()).isNullOrEmpty();
+    }
+
+    @Test
+    public void nested_wrappers_for_the_same_request_skip_relinking_and_restore_the_thread_afterward() {
+        // given
+        Pair<Deque<Span>, Map<String, String>> requestInfo = setupStateWithTracingAndMdcInfo();
+        AtomicReference<Map<String, String>> mdcSeenByInnerRunnable = new AtomicReference<>();
+        Runnable inner = AsyncNettyHelper.runnableWithTracingAndMdc(
+            () -> mdcSeenByInnerRunnable.set(MDC.getCopyOfContextMap()), ctxMock
+        );
+        Runnable outer = AsyncNettyHelper.runnableWithTracingAndMdc(() -> {
+            MDC.put("outerKey", "outerValue");
+            inner.run();
+        }, ctxMock);
+        MDC.put("callerKey", "callerValue");
+        Map<String, String> callerMdcInfo = MDC.getCopyOfContextMap();
+
+        // when
+        outer.run();
+
+        // then
+        Map<String, String> expectedInnerMdcInfo = new HashMap<>(requestInfo.getRight());
+        expectedInnerMdcInfo.put("outerKey", "outerValue");
+        assertThat(mdcSeenByInnerRunnable.get()).isEqualTo(expectedInnerMdcInfo);
+        assertThat(MDC.getCopyOfContextMap()).isEqualTo(callerMdcInfo);
+        assertThat(Tracer.getInstance().getCurrentSpanStackCopy()).isNull();
+    }
+
+    @Test
+    public void nested_wrapper_tracing_changes_are_undone_but_direct_MDC_changes_stay_visible_to_the_enclosing_code() {
+        // given
+        Pair<Deque<Span>, Map<String, String>> requestInfo = setupStateWithTracingAndMdcInfo();
+        Span requestSpan = requestInfo.getLeft().peek();
+        AtomicReference<Span> spanSeenByOuterAfterInner = new AtomicReference<>();
+        AtomicReference<Map<String, String>> mdcSeenByOuterAfterInner = new AtomicReference<>();
+        Runnable inner = AsyncNettyHelper.runnableWithTracingAndMdc(() -> {
+            Tracer.getInstance().startSubSpan("leakedSubspan", Span.SpanPurpose.LOCAL_ONLY);
+            MDC.put("innerKey", "innerValue");
+        }, ctxMock);
+        Runnable outer = AsyncNettyHelper.runnableWithTracingAndMdc(() -> {
+            inner.run();
+            spanSeenByOuterAfterInner.set(Tracer.getInstance().getCurrentSpan());
+            mdcSeenByOuterAfterInner.set(MDC.getCopyOfContextMap());
+        }, ctxMock);
+
+        // when
+        outer.run();
+
+        // then
+        assertThat(spanSeenByOuterAfterInner.get()).isSameAs(requestSpan);
+        // The inner runnable's sub-span is undone by linking the request's snapshot again, which also resets the MDC.
+        assertThat(mdcSeenByOuterAfterInner.get()).isEqualTo(requestInfo.getRight());
+        assertThat(Tracer.getInstance().getCurrentSpanStackCopy()).isNull();
+        assertThat(MDC.getCopyOfContextMap()).isNullOrEmpty();
+
+        // and given
+        Runnable innerWithOnlyMdcChange = AsyncNettyHelper.runnableWithTracingAndMdc(
+            () -> MDC.put("innerKey", "innerValue"), ctxMock
+        );
+        Runnable outerForMdcChange = AsyncNettyHelper.runnableWithTracingAndMdc(() -> {
+            innerWithOnlyMdcChange.run();
+            spanSeenByOuterAfterInner.set(Tracer.getInstance().getCurrentSpan());
+            mdcSeenByOuterAfterInner.set(MDC.getCopyOfContextMap());
+        }, ctxMock);
+
+        // when
+        outerForMdcChange.run();
+
+        // then
+        // Direct MDC changes aren't tracked, so they stay visible to the enclosing code for the same request.
+        Map<String, String> expectedMdcInfo = new HashMap<>(requestInfo.getRight());
+        expectedMdcInfo.put("innerKey", "innerValue");
+        assertThat(spanSeenByOuterAfterInner.get()).isSameAs(requestSpan);
+        assertThat(mdcSeenByOuterAfterInner.get()).isEqualTo(expectedMdcInfo);
+        assertThat(Tracer.getInstance().getCurrentSpanStackCopy()).isNull();
+        assertThat(MDC.getCopyOfContextMap()).isNullOrEmpty();
+    }
+
     @DataProvider(value = {
         "true",
         "false"
@@ -776,6 +1091,33 @@ public class AsyncNettyHelperTest {
             verifyNoInteractions(runnableMock);
     }
 
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void eventLoopExecutor_runs_task_inline_if_in_event_loop_otherwise_hands_it_to_the_event_loop(
+        boolean inEventLoop
+    ) {
+        // given
+        EventExecutor eventExecutorMock = mock(EventExecutor.class);
+        doReturn(inEventLoop).when(eventExecutorMock).inEventLoop();
+        doReturn(eventExecutorMock).when(ctxMock).executor();
+
+        // when
+        AsyncNettyHelper.eventLoopExecutor(ctxMock).execute(runnableMock);
+
+        // then
+        if (inEventLoop) {
+            verify(runnableMock).run();
+            verify(eventExecutorMock, never()).execute(any(Runnable.class));
+        }
+        else {
+            verifyNoInteractions(runnableMock);
+            verify(eventExecutorMock).execute(runnableMock);
+        }
+    }
+
     @DataProvider(value = {
         "true   |   true    |   true    |   true",
         "false  |   true    |   true    |   true",
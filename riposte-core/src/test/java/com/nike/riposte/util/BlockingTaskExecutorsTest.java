@@ -0,0 +1,184 @@
+package com.nike.riposte.util;
+
+import com.nike.riposte.server.error.exception.TooManyPendingTasksException;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link BlockingTaskExecutors}.
+ */
+public class BlockingTaskExecutorsTest {
+
+    private static boolean runtimeHasVirtualThreadExecutorFactoryMethod() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        }
+        catch (NoSuchMethodException ex) {
+            return false;
+        }
+    }
+
+    @Test
+    public void isVirtualThreadSupported_matches_the_runtime() {
+        // expect
+        assertThat(BlockingTaskExecutors.isVirtualThreadSupported())
+            .isEqualTo(runtimeHasVirtualThreadExecutorFactoryMethod());
+    }
+
+    @Test
+    public void newBlockingTaskExecutor_uses_virtual_threads_if_supported_otherwise_a_bounded_platform_pool() {
+        // when
+        ExecutorService executor = BlockingTaskExecutors.newBlockingTaskExecutor(42);
+
+        try {
+            // then
+            if (BlockingTaskExecutors.isVirtualThreadSupported()) {
+                assertThat(executor).isNotInstanceOf(ThreadPoolExecutor.class);
+            }
+            else {
+                assertThat(executor).isInstanceOf(ThreadPoolExecutor.class);
+                assertThat(((ThreadPoolExecutor) executor).getMaximumPoolSize()).isEqualTo(42);
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void newBoundedPlatformThreadPool_creates_fixed_size_pool_of_daemon_threads_that_time_out() throws Exception {
+        // when
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) BlockingTaskExecutors.newBoundedPlatformThreadPool(3);
+
+        try {
+            // then
+            assertThat(executor.getCorePoolSize()).isEqualTo(3);
+            assertThat(executor.getMaximumPoolSize()).isEqualTo(3);
+            assertThat(executor.allowsCoreThreadTimeOut()).isTrue();
+
+            Thread taskThread = executor.submit(Thread::currentThread).get(10, TimeUnit.SECONDS);
+            assertThat(taskThread.isDaemon()).isTrue();
+            assertThat(taskThread.getName()).startsWith("riposte-blocking-task-");
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void newBoundedPlatformThreadPool_rejects_tasks_with_TooManyPendingTasksException_once_queue_is_full()
+        throws Exception {
+        // given
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) BlockingTaskExecutors.newBoundedPlatformThreadPool(1, 1);
+        CountDownLatch taskStarted = new CountDownLatch(1);
+        CountDownLatch releaseTask = new CountDownLatch(1);
+
+        try {
+            executor.execute(() -> {
+                taskStarted.countDown();
+                try {
+                    releaseTask.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            assertThat(taskStarted.await(10, TimeUnit.SECONDS)).isTrue();
+            executor.execute(() -> { });
+
+            // when
+            Throwable ex = catchThrowable(() -> executor.execute(() -> { }));
+
+            // then
+            assertThat(ex).isInstanceOf(TooManyPendingTasksException.class);
+            TooManyPendingTasksException tooManyEx = (TooManyPendingTasksException) ex;
+            assertThat(tooManyEx.executorName).isEqualTo(BlockingTaskExecutors.BLOCKING_TASK_EXECUTOR_NAME);
+            assertThat(tooManyEx.maxThreads).isEqualTo(1);
+            assertThat(tooManyEx.maxQueueSize).isEqualTo(1);
+        }
+        finally {
+            releaseTask.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void newBlockingTaskExecutor_throws_IllegalArgumentException_if_platformFallbackMaxThreads_is_not_positive() {
+        // when
+        Throwable ex = catchThrowable(() -> BlockingTaskExecutors.newBlockingTaskExecutor(0));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void newBlockingTaskExecutor_throws_IllegalArgumentException_if_platformFallbackMaxQueueSize_is_negative() {
+        // when
+        Throwable ex = catchThrowable(() -> BlockingTaskExecutors.newBlockingTaskExecutor(1, -1));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void defaultBlockingTaskExecutor_returns_the_same_instance_every_time() {
+        // expect
+        assertThat(BlockingTaskExecutors.defaultBlockingTaskExecutor())
+            .isNotNull()
+            .isSameAs(BlockingTaskExecutors.defaultBlockingTaskExecutor());
+    }
+
+    @Test
+    public void newBoundedPlatformThreadPool_runs_a_burst_of_blocking_tasks_without_growing_past_maxThreads()
+        throws Exception {
+        // given
+        int maxThreads = 4;
+        int numTasks = 100;
+        ThreadPoolExecutor executor =
+            (ThreadPoolExecutor) BlockingTaskExecutors.newBoundedPlatformThreadPool(maxThreads);
+        CountDownLatch latch = new CountDownLatch(numTasks);
+        AtomicInteger completedTasks = new AtomicInteger();
+        AtomicInteger concurrentTasks = new AtomicInteger();
+        AtomicInteger maxConcurrentTasks = new AtomicInteger();
+
+        try {
+            // when
+            for (int i = 0; i < numTasks; i++) {
+                executor.execute(() -> {
+                    try {
+                        maxConcurrentTasks.accumulateAndGet(concurrentTasks.incrementAndGet(), Math::max);
+                        Thread.sleep(1);
+                        completedTasks.incrementAndGet();
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    finally {
+                        concurrentTasks.decrementAndGet();
+                        latch.countDown();
+                    }
+                });
+            }
+
+            // then
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(completedTasks.get()).isEqualTo(numTasks);
+            assertThat(maxConcurrentTasks.get()).isBetween(1, maxThreads);
+            assertThat(executor.getLargestPoolSize()).isLessThanOrEqualTo(maxThreads);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+}
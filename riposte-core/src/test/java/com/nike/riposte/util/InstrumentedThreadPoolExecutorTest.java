@@ -0,0 +1,248 @@
+package com.nike.riposte.util;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.error.exception.TooManyPendingTasksException;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link InstrumentedThreadPoolExecutor}.
+ */
+public class InstrumentedThreadPoolExecutorTest {
+
+    private InstrumentedThreadPoolExecutor executor;
+    private final CountDownLatch blockTasksLatch = new CountDownLatch(1);
+
+    @After
+    public void afterMethod() {
+        blockTasksLatch.countDown();
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void submitBlockingTask(CountDownLatch taskStartedLatch) {
+        executor.execute(() -> {
+            if (taskStartedLatch != null) {
+                taskStartedLatch.countDown();
+            }
+            try {
+                blockTasksLatch.await(10, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    @Test
+    public void constructor_sets_fields_and_creates_bounded_pool_of_daemon_threads_that_time_out() throws Exception {
+        // given
+        MetricsListener metricsListener = mock(MetricsListener.class);
+        doReturn(true).when(metricsListener).isInterestedIn(any(ServerMetricsEvent.class));
+
+        // when
+        executor = new InstrumentedThreadPoolExecutor("fooExecutor", 3, 7, 42, metricsListener);
+
+        // then
+        assertThat(executor.getName()).isEqualTo("fooExecutor");
+        assertThat(executor.getCorePoolSize()).isEqualTo(3);
+        assertThat(executor.getMaximumPoolSize()).isEqualTo(3);
+        assertThat(executor.getMaxQueueSize()).isEqualTo(7);
+        assertThat(executor.getQueue().remainingCapacity()).isEqualTo(7);
+        assertThat(executor.getRetryAfterSeconds()).isEqualTo(42);
+        assertThat(executor.allowsCoreThreadTimeOut()).isTrue();
+        assertThat(executor.metricsListener).isSameAs(metricsListener);
+
+        Thread taskThread = executor.submit(Thread::currentThread).get(10, TimeUnit.SECONDS);
+        assertThat(taskThread.isDaemon()).isTrue();
+        assertThat(taskThread.getName()).isEqualTo("fooExecutor-1");
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_maxQueueSize_is_negative() {
+        // when
+        Throwable ex = catchThrowable(() -> new InstrumentedThreadPoolExecutor("foo", 1, -1, 1, null));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_maxThreads_is_not_positive() {
+        // when
+        Throwable ex = catchThrowable(() -> new InstrumentedThreadPoolExecutor("foo", 0, 1, 1, null));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void execute_throws_TooManyPendingTasksException_and_fires_rejected_event_when_threads_and_queue_are_full()
+        throws Exception {
+        // given
+        MetricsListener metricsListener = mock(MetricsListener.class);
+        doReturn(true).when(metricsListener).isInterestedIn(any(ServerMetricsEvent.class));
+        executor = new InstrumentedThreadPoolExecutor("fooExecutor", 1, 1, 3, metricsListener);
+        CountDownLatch firstTaskStarted = new CountDownLatch(1);
+        submitBlockingTask(firstTaskStarted);
+        assertThat(firstTaskStarted.await(10, TimeUnit.SECONDS)).isTrue();
+        submitBlockingTask(null);
+
+        // when
+        Throwable ex = catchThrowable(() -> submitBlockingTask(null));
+
+        // then
+        assertThat(ex).isInstanceOf(TooManyPendingTasksException.class);
+        TooManyPendingTasksException tooManyEx = (TooManyPendingTasksException) ex;
+        assertThat(tooManyEx.executorName).isEqualTo("fooExecutor");
+        assertThat(tooManyEx.maxThreads).isEqualTo(1);
+        assertThat(tooManyEx.maxQueueSize).isEqualTo(1);
+        assertThat(tooManyEx.retryAfterSeconds).isEqualTo(3);
+
+        ArgumentCaptor<Object> valueCaptor = ArgumentCaptor.forClass(Object.class);
+        verify(metricsListener).onEvent(eq(ServerMetricsEvent.EXECUTOR_TASK_REJECTED), valueCaptor.capture());
+        ExecutorTaskMetrics metrics = (ExecutorTaskMetrics) valueCaptor.getValue();
+        assertThat(metrics.executor).isSameAs(executor);
+        assertThat(metrics.queueWaitNanos).isZero();
+    }
+
+    @Test
+    public void metrics_listener_gets_no_events_it_is_not_interested_in() throws Exception {
+        // given
+        MetricsListener metricsListener = mock(MetricsListener.class);
+        doReturn(false).when(metricsListener).isInterestedIn(any(ServerMetricsEvent.class));
+        executor = new InstrumentedThreadPoolExecutor("fooExecutor", 1, 0, 1, metricsListener);
+        CountDownLatch firstTaskStarted = new CountDownLatch(1);
+        submitBlockingTask(firstTaskStarted);
+        assertThat(firstTaskStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // when
+        Throwable ex = catchThrowable(() -> submitBlockingTask(null));
+
+        // then
+        assertThat(ex).isInstanceOf(TooManyPendingTasksException.class);
+        verify(metricsListener, never()).onEvent(any(), any());
+    }
+
+    @Test
+    public void execute_with_zero_maxQueueSize_rejects_as_soon_as_all_threads_are_busy() throws Exception {
+        // given
+        executor = new InstrumentedThreadPoolExecutor("fooExecutor", 1, 0, 1, null);
+        CountDownLatch firstTaskStarted = new CountDownLatch(1);
+        submitBlockingTask(firstTaskStarted);
+        assertThat(firstTaskStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // when
+        Throwable ex = catchThrowable(() -> submitBlockingTask(null));
+
+        // then
+        assertThat(ex).isInstanceOf(TooManyPendingTasksException.class);
+    }
+
+    @Test
+    public void execute_fires_started_event_with_queue_wait_time_when_task_starts_running() throws Exception {
+        // given
+        MetricsListener metricsListener = mock(MetricsListener.class);
+        doReturn(true).when(metricsListener).isInterestedIn(any(ServerMetricsEvent.class));
+        executor = new InstrumentedThreadPoolExecutor("fooExecutor", 1, 10, 1, metricsListener);
+        CountDownLatch firstTaskStarted = new CountDownLatch(1);
+        submitBlockingTask(firstTaskStarted);
+        assertThat(firstTaskStarted.await(10, TimeUnit.SECONDS)).isTrue();
+        CountDownLatch secondTaskDone = new CountDownLatch(1);
+        executor.execute(secondTaskDone::countDown);
+
+        // when
+        Thread.sleep(50);
+        blockTasksLatch.countDown();
+
+        // then
+        assertThat(secondTaskDone.await(10, TimeUnit.SECONDS)).isTrue();
+        ArgumentCaptor<Object> valueCaptor = ArgumentCaptor.forClass(Object.class);
+        verify(metricsListener, timeout(10000).times(2))
+            .onEvent(eq(ServerMetricsEvent.EXECUTOR_TASK_STARTED), valueCaptor.capture());
+        ExecutorTaskMetrics secondTaskMetrics = (ExecutorTaskMetrics) valueCaptor.getAllValues().get(1);
+        assertThat(secondTaskMetrics.executor).isSameAs(executor);
+        assertThat(secondTaskMetrics.queueWaitNanos).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        verify(metricsListener, never()).onEvent(eq(ServerMetricsEvent.EXECUTOR_TASK_REJECTED), any());
+    }
+
+    @Test
+    public void execute_still_runs_tasks_if_metrics_listener_throws_exception() throws Exception {
+        // given
+        MetricsListener metricsListener = mock(MetricsListener.class);
+        doReturn(true).when(metricsListener).isInterestedIn(any(ServerMetricsEvent.class));
+        doThrow(new RuntimeException("intentional test exception")).when(metricsListener).onEvent(any(), any());
+        executor = new InstrumentedThreadPoolExecutor("fooExecutor", 1, 10, 1, metricsListener);
+        CountDownLatch taskDone = new CountDownLatch(1);
+
+        // when
+        executor.execute(taskDone::countDown);
+
+        // then
+        assertThat(taskDone.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void execute_throws_plain_RejectedExecutionException_after_shutdown() {
+        // given
+        MetricsListener metricsListener = mock(MetricsListener.class);
+        doReturn(true).when(metricsListener).isInterestedIn(any(ServerMetricsEvent.class));
+        executor = new InstrumentedThreadPoolExecutor("fooExecutor", 1, 10, 1, metricsListener);
+        executor.shutdown();
+
+        // when
+        Throwable ex = catchThrowable(() -> executor.execute(() -> {}));
+
+        // then
+        assertThat(ex).isInstanceOf(RejectedExecutionException.class)
+                      .isNotInstanceOf(TooManyPendingTasksException.class);
+        verify(metricsListener, never()).onEvent(eq(ServerMetricsEvent.EXECUTOR_TASK_REJECTED), any());
+    }
+
+    @Test
+    public void default_factory_methods_use_expected_settings() {
+        // when
+        InstrumentedThreadPoolExecutor longRunning = InstrumentedThreadPoolExecutor.newDefaultLongRunningTaskExecutor(null);
+        InstrumentedThreadPoolExecutor validation = InstrumentedThreadPoolExecutor.newDefaultValidationExecutor("foo", null);
+
+        try {
+            // then
+            assertThat(longRunning.getName()).isEqualTo(InstrumentedThreadPoolExecutor.LONG_RUNNING_TASK_EXECUTOR_NAME);
+            assertThat(longRunning.getMaximumPoolSize())
+                .isEqualTo(InstrumentedThreadPoolExecutor.DEFAULT_LONG_RUNNING_TASK_MAX_THREADS);
+            assertThat(longRunning.getMaxQueueSize())
+                .isEqualTo(InstrumentedThreadPoolExecutor.DEFAULT_LONG_RUNNING_TASK_MAX_QUEUE_SIZE);
+            assertThat(longRunning.getRetryAfterSeconds())
+                .isEqualTo(InstrumentedThreadPoolExecutor.DEFAULT_RETRY_AFTER_SECONDS);
+
+            assertThat(validation.getName()).isEqualTo("foo");
+            assertThat(validation.getMaximumPoolSize())
+                .isEqualTo(InstrumentedThreadPoolExecutor.DEFAULT_VALIDATION_MAX_THREADS);
+            assertThat(validation.getMaxQueueSize())
+                .isEqualTo(InstrumentedThreadPoolExecutor.DEFAULT_VALIDATION_MAX_QUEUE_SIZE);
+        }
+        finally {
+            longRunning.shutdownNow();
+            validation.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.nike.riposte.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link TimeoutTimers}.
+ */
+public class TimeoutTimersTest {
+
+    @Test
+    public void newTimeoutTimer_creates_timer_that_runs_timeouts_on_a_daemon_thread() throws Exception {
+        // given
+        HashedWheelTimer timer = TimeoutTimers.newTimeoutTimer();
+        CountDownLatch timeoutFiredLatch = new CountDownLatch(1);
+        AtomicReference<Thread> timeoutThread = new AtomicReference<>();
+
+        try {
+            // when
+            timer.newTimeout(timeout -> {
+                timeoutThread.set(Thread.currentThread());
+                timeoutFiredLatch.countDown();
+            }, 1, TimeUnit.MILLISECONDS);
+
+            // then
+            assertThat(timeoutFiredLatch.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(timeoutThread.get().isDaemon()).isTrue();
+            assertThat(timeoutThread.get().getName()).startsWith("riposte-timeout-timer");
+        }
+        finally {
+            timer.stop();
+        }
+    }
+
+    @Test
+    public void newTimeoutTimer_throws_IllegalArgumentException_if_tickDurationMillis_is_not_positive() {
+        // when
+        Throwable ex = catchThrowable(() -> TimeoutTimers.newTimeoutTimer(0, 1));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void newTimeoutTimer_throws_IllegalArgumentException_if_ticksPerWheel_is_not_positive() {
+        // when
+        Throwable ex = catchThrowable(() -> TimeoutTimers.newTimeoutTimer(1, 0));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void defaultTimeoutTimer_returns_the_same_instance_every_time() {
+        // expect
+        assertThat(TimeoutTimers.defaultTimeoutTimer())
+            .isNotNull()
+            .isSameAs(TimeoutTimers.defaultTimeoutTimer());
+    }
+
+    @Test
+    public void timeout_timer_never_fires_cancelled_timeouts_and_releases_them_but_fires_others() throws Exception {
+        // given
+        int numTimeouts = 10_000;
+        HashedWheelTimer timer = TimeoutTimers.newTimeoutTimer();
+        AtomicInteger cancelledTimeoutsFired = new AtomicInteger();
+        CountDownLatch uncancelledTimeoutFiredLatch = new CountDownLatch(1);
+
+        try {
+            List<Timeout> timeouts = new ArrayList<>(numTimeouts);
+            for (int i = 0; i < numTimeouts; i++) {
+                timeouts.add(timer.newTimeout(timeout -> cancelledTimeoutsFired.incrementAndGet(),
+                                              50, TimeUnit.MILLISECONDS));
+            }
+            // This one is due after all the others, so by the time it fires any cancelled timeout that was going to
+            //      (incorrectly) fire would have done so already.
+            Timeout uncancelledTimeout = timer.newTimeout(timeout -> uncancelledTimeoutFiredLatch.countDown(),
+                                                          200, TimeUnit.MILLISECONDS);
+            assertThat(timer.pendingTimeouts()).isEqualTo(numTimeouts + 1);
+
+            // when
+            for (Timeout timeout : timeouts) {
+                assertThat(timeout.cancel()).isTrue();
+            }
+
+            // then
+            assertThat(timeouts).allMatch(Timeout::isCancelled);
+            assertThat(uncancelledTimeoutFiredLatch.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(uncancelledTimeout.isExpired()).isTrue();
+            assertThat(cancelledTimeoutsFired.get()).isZero();
+            // Cancelled timeouts are removed from the wheel on the timer's next tick, which releases everything the
+            //      timeout task was holding on to.
+            assertThat(timer.pendingTimeouts()).isZero();
+        }
+        finally {
+            timer.stop();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.nike.riposte.util;
+
+import com.nike.wingtips.Span;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link TracingAndMdcSnapshot}.
+ */
+@RunWith(DataProviderRunner.class)
+public class TracingAndMdcSnapshotTest {
+
+    @Test
+    public void of_returns_EMPTY_if_both_args_are_null() {
+        // expect
+        assertThat(TracingAndMdcSnapshot.of(null, null)).isSameAs(TracingAndMdcSnapshot.EMPTY);
+        assertThat(TracingAndMdcSnapshot.EMPTY.getDistributedTraceStack()).isNull();
+        assertThat(TracingAndMdcSnapshot.EMPTY.getMdcContextMap()).isNull();
+    }
+
+    @DataProvider(value = {
+        "true   |   true",
+        "true   |   false",
+        "false  |   true",
+    }, splitBy = "\\|")
+    @Test
+    public void of_holds_the_given_args_by_reference(boolean useTraceStack, boolean useMdcInfo) {
+        // given
+        Deque<Span> traceStack = (useTraceStack) ? new ArrayDeque<>() : null;
+        Map<String, String> mdcInfo = (useMdcInfo) ? Collections.singletonMap("foo", "bar") : null;
+
+        // when
+        TracingAndMdcSnapshot result = TracingAndMdcSnapshot.of(traceStack, mdcInfo);
+
+        // then
+        assertThat(result).isNotSameAs(TracingAndMdcSnapshot.EMPTY);
+        assertThat(result.getDistributedTraceStack()).isSameAs(traceStack);
+        assertThat(result.getMdcContextMap()).isSameAs(mdcInfo);
+    }
+}
@@ -3,6 +3,7 @@ package com.nike.riposte.util.asynchelperwrapper;
 import com.nike.internal.util.Pair;
 import com.nike.riposte.server.channelpipeline.ChannelAttributes;
 import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.util.TracingAndMdcSnapshot;
 import com.nike.wingtips.Span;
 import com.nike.wingtips.Tracer;
 
@@ -152,6 +153,35 @@ public class RunnableWithTracingAndMdcSupportTest {
         assertThat(instance.mdcContextMapForExecution).isEqualTo(mdcInfoMock);
     }
 
+    @Test
+    public void snapshot_constructor_sets_fields_as_expected() {
+        // given
+        Deque<Span> spanStackMock = mock(Deque.class);
+        Map<String, String> mdcInfoMock = mock(Map.class);
+        TracingAndMdcSnapshot snapshot = TracingAndMdcSnapshot.of(spanStackMock, mdcInfoMock);
+
+        // when
+        RunnableWithTracingAndMdcSupport instance = new RunnableWithTracingAndMdcSupport(runnableMock, snapshot);
+
+        // then
+        assertThat(instance.origRunnable).isSameAs(runnableMock);
+        assertThat(instance.tracingAndMdcSnapshotForExecution).isSameAs(snapshot);
+        assertThat(instance.distributedTraceStackForExecution).isSameAs(spanStackMock);
+        assertThat(instance.mdcContextMapForExecution).isSameAs(mdcInfoMock);
+    }
+
+    @Test
+    public void snapshot_constructor_treats_null_snapshot_as_EMPTY() {
+        // when
+        RunnableWithTracingAndMdcSupport instance =
+            new RunnableWithTracingAndMdcSupport(runnableMock, (TracingAndMdcSnapshot) null);
+
+        // then
+        assertThat(instance.tracingAndMdcSnapshotForExecution).isSameAs(TracingAndMdcSnapshot.EMPTY);
+        assertThat(instance.distributedTraceStackForExecution).isNull();
+        assertThat(instance.mdcContextMapForExecution).isNull();
+    }
+
     @Test
     public void constructors_throw_exception_if_passed_null_runnable() {
         // given
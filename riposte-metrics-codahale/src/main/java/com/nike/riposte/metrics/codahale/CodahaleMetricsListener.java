@@ -1,15 +1,27 @@
 package com.nike.riposte.metrics.codahale;
 
 import com.nike.internal.util.StringUtils;
+import com.nike.riposte.client.asynchttp.netty.BoundedDownstreamChannelPool;
+import com.nike.riposte.client.asynchttp.netty.ChannelPoolAcquireMetrics;
+import com.nike.riposte.client.asynchttp.netty.DownstreamAddressSelectionMetrics;
+import com.nike.riposte.client.asynchttp.netty.DownstreamConnectionRetirementMetrics;
+import com.nike.riposte.client.asynchttp.netty.DownstreamExtraAttemptMetrics;
+import com.nike.riposte.client.asynchttp.netty.DownstreamOutlierEjectionMetrics;
 import com.nike.riposte.metrics.MetricsListener;
 import com.nike.riposte.metrics.codahale.impl.EndpointMetricsHandlerDefaultImpl;
 import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.handler.compression.ResponseCompressionLevels;
+import com.nike.riposte.server.handler.concurrencylimit.AdaptiveConcurrencyLimiter;
+import com.nike.riposte.server.http.DownstreamAddressSelector;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.RequestPriority;
 import com.nike.riposte.server.http.ResponseInfo;
 import com.nike.riposte.server.http.ResponseSender;
 import com.nike.riposte.server.metrics.ServerMetricsEvent;
+import com.nike.riposte.util.ExecutorTaskMetrics;
+import com.nike.riposte.util.InstrumentedThreadPoolExecutor;
 
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.ExponentiallyDecayingReservoir;
@@ -24,7 +36,11 @@ import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.InetSocketAddress;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -33,12 +49,37 @@ import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerCo
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerConfigMetricNames.ENDPOINTS;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerConfigMetricNames.MAX_REQUEST_SIZE_IN_BYTES;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerConfigMetricNames.WORKER_THREADS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.COALESCED_REQUESTS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.CONCURRENCY_LIMIT;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.CONCURRENCY_LIMIT_IN_FLIGHT;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.CONCURRENCY_LIMIT_REJECTED_REQUESTS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.EXECUTOR_ACTIVE_THREADS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.EXECUTOR_QUEUE_SIZE;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.EXECUTOR_QUEUE_WAIT_MILLIS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.EXECUTOR_REJECTED_TASKS;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.FAILED_REQUESTS;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.INFLIGHT_REQUESTS;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.PROCESSED_REQUESTS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.PROXY_ROUTER_CONNECTION_ACQUIRE_WAIT_MILLIS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.PROXY_ROUTER_CONNECTION_AGE_AT_RETIREMENT_MILLIS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.PROXY_ROUTER_CONNECTION_POOL_ACQUIRED_CONNECTIONS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.PROXY_ROUTER_CONNECTION_POOL_PENDING_ACQUIRES;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.PROXY_ROUTER_CONNECTION_POOL_REJECTED_ACQUIRES;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.PROXY_ROUTER_CONNECTION_RETIREMENTS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.PROXY_ROUTER_DOWNSTREAM_ADDRESS_LATENCY_EWMA_MILLIS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.PROXY_ROUTER_DOWNSTREAM_ADDRESS_OUTSTANDING_REQUESTS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.PROXY_ROUTER_DOWNSTREAM_ADDRESS_SELECTIONS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.PROXY_ROUTER_DOWNSTREAM_EXTRA_ATTEMPTS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.PROXY_ROUTER_DOWNSTREAM_OUTLIERS;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.REQUEST_SIZES;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.RESPONSE_COMPRESSION_BROTLI_QUALITY;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.RESPONSE_COMPRESSION_GZIP_LEVEL;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.RESPONSE_COMPRESSION_STEP;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.RESPONSE_COMPRESSION_THRESHOLD_BYTES;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.RESPONSE_COMPRESSION_ZSTD_LEVEL;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.RESPONSE_SIZES;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.RESPONSE_WRITE_FAILED;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.SHED_REQUESTS;
 
 /**
  * Codahale-based {@link MetricsListener}. <b>Two things must occur during app startup for this class to be fully
@@ -79,6 +120,22 @@ public class CodahaleMetricsListener implements MetricsListener {
     protected Histogram responseSizes;
     protected Histogram requestSizes;
 
+    // The response compression levels gauges are only registered once adaptive compression reports its first levels.
+    protected volatile ResponseCompressionLevels responseCompressionLevels;
+    protected boolean responseCompressionGaugesRegistered = false;
+
+    // The executor gauges are registered per executor name the first time an executor reports an event.
+    protected final Set<String> executorsWithRegisteredGauges = ConcurrentHashMap.newKeySet();
+
+    // The concurrency limiter gauges are registered per limiter name the first time a limiter reports an event.
+    protected final Set<String> concurrencyLimitersWithRegisteredGauges = ConcurrentHashMap.newKeySet();
+
+    // The proxy/router connection pool gauges are registered per pool name the first time a pool reports an event.
+    protected final Set<String> connectionPoolsWithRegisteredGauges = ConcurrentHashMap.newKeySet();
+
+    // The proxy/router downstream address gauges are registered per address the first time the address is selected.
+    protected final Set<String> downstreamAddressesWithRegisteredGauges = ConcurrentHashMap.newKeySet();
+
     // Endpoint related metrics are handled by a EndpointMetricsHandler impl.
     protected final EndpointMetricsHandler endpointMetricsHandler;
 
@@ -243,6 +300,15 @@ public class CodahaleMetricsListener implements MetricsListener {
                                              (Gauge<List<String>>)() -> endpointsList);
     }
 
+    /**
+     * This listener reports on every {@link ServerMetricsEvent}, so this always returns true. Override it if you want
+     * to skip some of them, e.g. the per-call {@link ServerMetricsEvent#PROXY_ROUTER_DOWNSTREAM_ADDRESS_SELECTED}.
+     */
+    @Override
+    public boolean isInterestedIn(@NotNull ServerMetricsEvent event) {
+        return true;
+    }
+
     @Override
     public void onEvent(@NotNull ServerMetricsEvent event, @Nullable Object value) {
         try {
@@ -329,6 +395,159 @@ public class CodahaleMetricsListener implements MetricsListener {
                 responseSizes
                     .update(responseInfo.getFinalContentLength() == null ? 0 : responseInfo.getFinalContentLength());
             }
+            else if (ServerMetricsEvent.RESPONSE_COMPRESSION_LEVELS_CHANGED.equals(event)) {
+                if (!(value instanceof ResponseCompressionLevels)) {
+                    logger.error("Metrics Error: value is not a ResponseCompressionLevels");
+                    return;
+                }
+
+                responseCompressionLevels = (ResponseCompressionLevels) value;
+                registerResponseCompressionGaugesIfNecessary();
+            }
+            else if (ServerMetricsEvent.EXECUTOR_TASK_STARTED.equals(event)
+                     || ServerMetricsEvent.EXECUTOR_TASK_REJECTED.equals(event)) {
+                if (!(value instanceof ExecutorTaskMetrics)) {
+                    logger.error("Metrics Error: value is not an ExecutorTaskMetrics");
+                    return;
+                }
+
+                ExecutorTaskMetrics executorTaskMetrics = (ExecutorTaskMetrics) value;
+                String executorName = executorTaskMetrics.getExecutorName();
+                registerExecutorGaugesIfNecessary(executorTaskMetrics.executor);
+
+                if (ServerMetricsEvent.EXECUTOR_TASK_STARTED.equals(event)) {
+                    metricsCollector.getNamedHistogram(
+                        name(serverStatsMetricNamingStrategy.nameFor(EXECUTOR_QUEUE_WAIT_MILLIS), executorName)
+                    ).update(TimeUnit.NANOSECONDS.toMillis(executorTaskMetrics.queueWaitNanos));
+                }
+                else {
+                    metricsCollector.getNamedCounter(
+                        name(serverStatsMetricNamingStrategy.nameFor(EXECUTOR_REJECTED_TASKS), executorName)
+                    ).inc();
+                }
+            }
+            else if (ServerMetricsEvent.CONCURRENCY_LIMIT_CHANGED.equals(event)
+                     || ServerMetricsEvent.CONCURRENCY_LIMIT_REQUEST_REJECTED.equals(event)) {
+                if (!(value instanceof AdaptiveConcurrencyLimiter)) {
+                    logger.error("Metrics Error: value is not an AdaptiveConcurrencyLimiter");
+                    return;
+                }
+
+                AdaptiveConcurrencyLimiter limiter = (AdaptiveConcurrencyLimiter) value;
+                registerConcurrencyLimiterGaugesIfNecessary(limiter);
+
+                if (ServerMetricsEvent.CONCURRENCY_LIMIT_REQUEST_REJECTED.equals(event)) {
+                    metricsCollector.getNamedCounter(
+                        name(serverStatsMetricNamingStrategy.nameFor(CONCURRENCY_LIMIT_REJECTED_REQUESTS),
+                             limiter.getName())
+                    ).inc();
+                }
+            }
+            else if (ServerMetricsEvent.REQUEST_SHED.equals(event)) {
+                if (!(value instanceof RequestPriority)) {
+                    logger.error("Metrics Error: value is not a RequestPriority");
+                    return;
+                }
+
+                metricsCollector.getNamedCounter(
+                    name(serverStatsMetricNamingStrategy.nameFor(SHED_REQUESTS), ((RequestPriority) value).name())
+                ).inc();
+            }
+            else if (ServerMetricsEvent.REQUEST_COALESCED.equals(event)) {
+                if (!(value instanceof Endpoint)) {
+                    logger.error("Metrics Error: value is not an Endpoint");
+                    return;
+                }
+
+                metricsCollector.getNamedCounter(
+                    name(serverStatsMetricNamingStrategy.nameFor(COALESCED_REQUESTS), value.getClass().getName())
+                ).inc();
+            }
+            else if (ServerMetricsEvent.PROXY_ROUTER_CONNECTION_ACQUIRED.equals(event)
+                     || ServerMetricsEvent.PROXY_ROUTER_CONNECTION_ACQUIRE_REJECTED.equals(event)) {
+                if (!(value instanceof ChannelPoolAcquireMetrics)) {
+                    logger.error("Metrics Error: value is not a ChannelPoolAcquireMetrics");
+                    return;
+                }
+
+                ChannelPoolAcquireMetrics acquireMetrics = (ChannelPoolAcquireMetrics) value;
+                String poolName = acquireMetrics.getPoolName();
+                registerConnectionPoolGaugesIfNecessary(acquireMetrics.pool);
+
+                if (ServerMetricsEvent.PROXY_ROUTER_CONNECTION_ACQUIRED.equals(event)) {
+                    metricsCollector.getNamedHistogram(
+                        name(serverStatsMetricNamingStrategy.nameFor(PROXY_ROUTER_CONNECTION_ACQUIRE_WAIT_MILLIS),
+                             poolName)
+                    ).update(TimeUnit.NANOSECONDS.toMillis(acquireMetrics.acquireNanos));
+                }
+                else {
+                    metricsCollector.getNamedCounter(
+                        name(serverStatsMetricNamingStrategy.nameFor(PROXY_ROUTER_CONNECTION_POOL_REJECTED_ACQUIRES),
+                             poolName)
+                    ).inc();
+                }
+            }
+            else if (ServerMetricsEvent.PROXY_ROUTER_DOWNSTREAM_ADDRESS_SELECTED.equals(event)) {
+                if (!(value instanceof DownstreamAddressSelectionMetrics)) {
+                    logger.error("Metrics Error: value is not a DownstreamAddressSelectionMetrics");
+                    return;
+                }
+
+                DownstreamAddressSelectionMetrics selectionMetrics = (DownstreamAddressSelectionMetrics) value;
+                String addressName = selectionMetrics.getSelectedAddressName();
+                registerDownstreamAddressGaugesIfNecessary(
+                    addressName, selectionMetrics.selectedAddress, selectionMetrics.stats
+                );
+
+                metricsCollector.getNamedCounter(
+                    name(serverStatsMetricNamingStrategy.nameFor(PROXY_ROUTER_DOWNSTREAM_ADDRESS_SELECTIONS),
+                         selectionMetrics.hostname, addressName)
+                ).inc();
+            }
+            else if (ServerMetricsEvent.PROXY_ROUTER_CONNECTION_RETIRED.equals(event)) {
+                if (!(value instanceof DownstreamConnectionRetirementMetrics)) {
+                    logger.error("Metrics Error: value is not a DownstreamConnectionRetirementMetrics");
+                    return;
+                }
+
+                DownstreamConnectionRetirementMetrics retirementMetrics = (DownstreamConnectionRetirementMetrics) value;
+
+                metricsCollector.getNamedCounter(
+                    name(serverStatsMetricNamingStrategy.nameFor(PROXY_ROUTER_CONNECTION_RETIREMENTS),
+                         retirementMetrics.poolName)
+                ).inc();
+                metricsCollector.getNamedHistogram(
+                    name(serverStatsMetricNamingStrategy.nameFor(PROXY_ROUTER_CONNECTION_AGE_AT_RETIREMENT_MILLIS),
+                         retirementMetrics.poolName)
+                ).update(TimeUnit.NANOSECONDS.toMillis(retirementMetrics.connectionAgeNanos));
+            }
+            else if (ServerMetricsEvent.PROXY_ROUTER_DOWNSTREAM_EXTRA_ATTEMPT.equals(event)) {
+                if (!(value instanceof DownstreamExtraAttemptMetrics)) {
+                    logger.error("Metrics Error: value is not a DownstreamExtraAttemptMetrics");
+                    return;
+                }
+
+                DownstreamExtraAttemptMetrics extraAttemptMetrics = (DownstreamExtraAttemptMetrics) value;
+
+                metricsCollector.getNamedCounter(
+                    name(serverStatsMetricNamingStrategy.nameFor(PROXY_ROUTER_DOWNSTREAM_EXTRA_ATTEMPTS),
+                         extraAttemptMetrics.hostname, extraAttemptMetrics.attemptType.name(),
+                         extraAttemptMetrics.outcome.name())
+                ).inc();
+            }
+            else if (ServerMetricsEvent.PROXY_ROUTER_DOWNSTREAM_OUTLIER_DETECTED.equals(event)) {
+                if (!(value instanceof DownstreamOutlierEjectionMetrics)) {
+                    logger.error("Metrics Error: value is not a DownstreamOutlierEjectionMetrics");
+                    return;
+                }
+
+                DownstreamOutlierEjectionMetrics outlierMetrics = (DownstreamOutlierEjectionMetrics) value;
+
+                metricsCollector.getNamedCounter(
+                    name(serverStatsMetricNamingStrategy.nameFor(PROXY_ROUTER_DOWNSTREAM_OUTLIERS),
+                         outlierMetrics.hostname, outlierMetrics.reason.name(), outlierMetrics.outcome.name())
+                ).inc();
+            }
             else {
                 logger.error("Metrics Error: unknown metrics event " + event);
             }
@@ -338,6 +557,96 @@ public class CodahaleMetricsListener implements MetricsListener {
         }
     }
 
+    protected synchronized void registerResponseCompressionGaugesIfNecessary() {
+        if (responseCompressionGaugesRegistered)
+            return;
+
+        metricsCollector.registerNamedMetric(
+            serverStatsMetricNamingStrategy.nameFor(RESPONSE_COMPRESSION_STEP),
+            (Gauge<Integer>) () -> responseCompressionLevels.step
+        );
+        metricsCollector.registerNamedMetric(
+            serverStatsMetricNamingStrategy.nameFor(RESPONSE_COMPRESSION_GZIP_LEVEL),
+            (Gauge<Integer>) () -> responseCompressionLevels.gzipCompressionLevel
+        );
+        metricsCollector.registerNamedMetric(
+            serverStatsMetricNamingStrategy.nameFor(RESPONSE_COMPRESSION_BROTLI_QUALITY),
+            (Gauge<Integer>) () -> responseCompressionLevels.brotliQuality
+        );
+        metricsCollector.registerNamedMetric(
+            serverStatsMetricNamingStrategy.nameFor(RESPONSE_COMPRESSION_ZSTD_LEVEL),
+            (Gauge<Integer>) () -> responseCompressionLevels.zstdCompressionLevel
+        );
+        metricsCollector.registerNamedMetric(
+            serverStatsMetricNamingStrategy.nameFor(RESPONSE_COMPRESSION_THRESHOLD_BYTES),
+            (Gauge<Integer>) () -> responseCompressionLevels.responseSizeThresholdBytes
+        );
+
+        responseCompressionGaugesRegistered = true;
+    }
+
+    protected void registerExecutorGaugesIfNecessary(@NotNull InstrumentedThreadPoolExecutor executor) {
+        if (!executorsWithRegisteredGauges.add(executor.getName()))
+            return;
+
+        metricsCollector.registerNamedMetric(
+            name(serverStatsMetricNamingStrategy.nameFor(EXECUTOR_ACTIVE_THREADS), executor.getName()),
+            (Gauge<Integer>) executor::getActiveCount
+        );
+        metricsCollector.registerNamedMetric(
+            name(serverStatsMetricNamingStrategy.nameFor(EXECUTOR_QUEUE_SIZE), executor.getName()),
+            (Gauge<Integer>) () -> executor.getQueue().size()
+        );
+    }
+
+    protected void registerConcurrencyLimiterGaugesIfNecessary(@NotNull AdaptiveConcurrencyLimiter limiter) {
+        if (!concurrencyLimitersWithRegisteredGauges.add(limiter.getName()))
+            return;
+
+        metricsCollector.registerNamedMetric(
+            name(serverStatsMetricNamingStrategy.nameFor(CONCURRENCY_LIMIT), limiter.getName()),
+            (Gauge<Integer>) limiter::getLimit
+        );
+        metricsCollector.registerNamedMetric(
+            name(serverStatsMetricNamingStrategy.nameFor(CONCURRENCY_LIMIT_IN_FLIGHT), limiter.getName()),
+            (Gauge<Integer>) limiter::getInFlight
+        );
+    }
+
+    protected void registerConnectionPoolGaugesIfNecessary(@NotNull BoundedDownstreamChannelPool pool) {
+        if (!connectionPoolsWithRegisteredGauges.add(pool.getName()))
+            return;
+
+        metricsCollector.registerNamedMetric(
+            name(serverStatsMetricNamingStrategy.nameFor(PROXY_ROUTER_CONNECTION_POOL_PENDING_ACQUIRES),
+                 pool.getName()),
+            (Gauge<Integer>) pool::getPendingAcquireCount
+        );
+        metricsCollector.registerNamedMetric(
+            name(serverStatsMetricNamingStrategy.nameFor(PROXY_ROUTER_CONNECTION_POOL_ACQUIRED_CONNECTIONS),
+                 pool.getName()),
+            (Gauge<Integer>) pool::acquiredChannelCount
+        );
+    }
+
+    protected void registerDownstreamAddressGaugesIfNecessary(@NotNull String addressName,
+                                                              @NotNull InetSocketAddress address,
+                                                              @NotNull DownstreamAddressSelector.AddressStats stats) {
+        if (!downstreamAddressesWithRegisteredGauges.add(addressName))
+            return;
+
+        metricsCollector.registerNamedMetric(
+            name(serverStatsMetricNamingStrategy.nameFor(PROXY_ROUTER_DOWNSTREAM_ADDRESS_OUTSTANDING_REQUESTS),
+                 addressName),
+            (Gauge<Integer>) () -> stats.getOutstandingRequests(address)
+        );
+        metricsCollector.registerNamedMetric(
+            name(serverStatsMetricNamingStrategy.nameFor(PROXY_ROUTER_DOWNSTREAM_ADDRESS_LATENCY_EWMA_MILLIS),
+                 addressName),
+            (Gauge<Double>) () -> stats.getLatencyEwmaMillis(address)
+        );
+    }
+
     public Counter getInflightRequests() {
         return inflightRequests;
     }
@@ -380,7 +689,32 @@ public class CodahaleMetricsListener implements MetricsListener {
         FAILED_REQUESTS,
         RESPONSE_WRITE_FAILED,
         REQUEST_SIZES,
-        RESPONSE_SIZES
+        RESPONSE_SIZES,
+        RESPONSE_COMPRESSION_STEP,
+        RESPONSE_COMPRESSION_GZIP_LEVEL,
+        RESPONSE_COMPRESSION_BROTLI_QUALITY,
+        RESPONSE_COMPRESSION_ZSTD_LEVEL,
+        RESPONSE_COMPRESSION_THRESHOLD_BYTES,
+        EXECUTOR_QUEUE_WAIT_MILLIS,
+        EXECUTOR_ACTIVE_THREADS,
+        EXECUTOR_QUEUE_SIZE,
+        EXECUTOR_REJECTED_TASKS,
+        CONCURRENCY_LIMIT,
+        CONCURRENCY_LIMIT_IN_FLIGHT,
+        CONCURRENCY_LIMIT_REJECTED_REQUESTS,
+        SHED_REQUESTS,
+        COALESCED_REQUESTS,
+        PROXY_ROUTER_CONNECTION_ACQUIRE_WAIT_MILLIS,
+        PROXY_ROUTER_CONNECTION_POOL_PENDING_ACQUIRES,
+        PROXY_ROUTER_CONNECTION_POOL_ACQUIRED_CONNECTIONS,
+        PROXY_ROUTER_CONNECTION_POOL_REJECTED_ACQUIRES,
+        PROXY_ROUTER_DOWNSTREAM_ADDRESS_SELECTIONS,
+        PROXY_ROUTER_DOWNSTREAM_ADDRESS_OUTSTANDING_REQUESTS,
+        PROXY_ROUTER_DOWNSTREAM_ADDRESS_LATENCY_EWMA_MILLIS,
+        PROXY_ROUTER_CONNECTION_RETIREMENTS,
+        PROXY_ROUTER_CONNECTION_AGE_AT_RETIREMENT_MILLIS,
+        PROXY_ROUTER_DOWNSTREAM_EXTRA_ATTEMPTS,
+        PROXY_ROUTER_DOWNSTREAM_OUTLIERS
     }
 
     public enum ServerConfigMetricNames {
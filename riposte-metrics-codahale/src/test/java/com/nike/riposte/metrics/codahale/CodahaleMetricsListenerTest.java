@@ -1,5 +1,13 @@
 package com.nike.riposte.metrics.codahale;
 
+import com.nike.riposte.client.asynchttp.netty.BoundedDownstreamChannelPool;
+import com.nike.riposte.client.asynchttp.netty.ChannelPoolAcquireMetrics;
+import com.nike.riposte.client.asynchttp.netty.DownstreamAddressSelectionMetrics;
+import com.nike.riposte.client.asynchttp.netty.DownstreamConnectionRetirementMetrics;
+import com.nike.riposte.client.asynchttp.netty.DownstreamExtraAttemptMetrics;
+import com.nike.riposte.client.asynchttp.netty.DownstreamExtraAttemptMetrics.AttemptType;
+import com.nike.riposte.client.asynchttp.netty.DownstreamExtraAttemptMetrics.Outcome;
+import com.nike.riposte.client.asynchttp.netty.DownstreamOutlierEjectionMetrics;
 import com.nike.riposte.metrics.codahale.CodahaleMetricsListener.Builder;
 import com.nike.riposte.metrics.codahale.CodahaleMetricsListener.DefaultMetricNamingStrategy;
 import com.nike.riposte.metrics.codahale.CodahaleMetricsListener.MetricNamingStrategy;
@@ -7,13 +15,19 @@ import com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerConfigMet
 import com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames;
 import com.nike.riposte.metrics.codahale.impl.EndpointMetricsHandlerDefaultImpl;
 import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.handler.compression.ResponseCompressionLevels;
+import com.nike.riposte.server.handler.concurrencylimit.AdaptiveConcurrencyLimiter;
+import com.nike.riposte.server.http.DownstreamAddressSelector;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.RequestPriority;
 import com.nike.riposte.server.http.ResponseInfo;
 import com.nike.riposte.server.http.ResponseSender;
 import com.nike.riposte.server.http.StandardEndpoint;
 import com.nike.riposte.server.metrics.ServerMetricsEvent;
+import com.nike.riposte.util.ExecutorTaskMetrics;
+import com.nike.riposte.util.InstrumentedThreadPoolExecutor;
 import com.nike.riposte.util.Matcher;
 
 import com.codahale.metrics.Counter;
@@ -34,6 +48,7 @@ import org.mockito.ArgumentCaptor;
 import com.nike.riposte.testutils.Whitebox;
 import org.slf4j.Logger;
 
+import java.net.InetSocketAddress;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
@@ -66,6 +81,7 @@ import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -367,6 +383,14 @@ public class CodahaleMetricsListenerTest {
         assertThat(ex).isInstanceOf(IllegalArgumentException.class);
     }
 
+    @Test
+    public void isInterestedIn_returns_true_for_every_event() {
+        for (ServerMetricsEvent event : ServerMetricsEvent.values()) {
+            // expect
+            assertThat(listener.isInterestedIn(event)).isTrue();
+        }
+    }
+
     @Test
     public void constructor_uses_histogram_supplier_for_request_size_and_response_size_metrics() {
         // given
@@ -462,6 +486,416 @@ public class CodahaleMetricsListenerTest {
         verify(listener.inflightRequests).inc();
     }
 
+    @Test
+    public void onEvent_works_as_expected_for_RESPONSE_COMPRESSION_LEVELS_CHANGED() {
+        // given
+        ServerMetricsEvent event = ServerMetricsEvent.RESPONSE_COMPRESSION_LEVELS_CHANGED;
+        ResponseCompressionLevels firstLevels = new ResponseCompressionLevels(0, 6, 4, 3, 500);
+        ResponseCompressionLevels secondLevels = new ResponseCompressionLevels(6, 1, 0, 1, 2000);
+        int numGaugesBefore = registeredGauges.size();
+
+        // when
+        listener.onEvent(event, firstLevels);
+        listener.onEvent(event, secondLevels);
+
+        // then
+        assertThat(registeredGauges).hasSize(numGaugesBefore + 5);
+        MetricNamingStrategy<ServerStatisticsMetricNames> naming = listener.serverStatsMetricNamingStrategy;
+        assertThat(registeredGauges.get(naming.nameFor(ServerStatisticsMetricNames.RESPONSE_COMPRESSION_STEP))
+                                   .getValue()).isEqualTo(6);
+        assertThat(registeredGauges.get(naming.nameFor(ServerStatisticsMetricNames.RESPONSE_COMPRESSION_GZIP_LEVEL))
+                                   .getValue()).isEqualTo(1);
+        assertThat(registeredGauges.get(naming.nameFor(ServerStatisticsMetricNames.RESPONSE_COMPRESSION_BROTLI_QUALITY))
+                                   .getValue()).isEqualTo(0);
+        assertThat(registeredGauges.get(naming.nameFor(ServerStatisticsMetricNames.RESPONSE_COMPRESSION_ZSTD_LEVEL))
+                                   .getValue()).isEqualTo(1);
+        assertThat(registeredGauges.get(naming.nameFor(ServerStatisticsMetricNames.RESPONSE_COMPRESSION_THRESHOLD_BYTES))
+                                   .getValue()).isEqualTo(2000);
+    }
+
+    @Test
+    public void onEvent_does_nothing_if_passed_RESPONSE_COMPRESSION_LEVELS_CHANGED_with_wrong_value_type() {
+        // given
+        int numGaugesBefore = registeredGauges.size();
+        Logger loggerMock = mock(Logger.class);
+        Whitebox.setInternalState(listener, "logger", loggerMock);
+
+        // when
+        listener.onEvent(ServerMetricsEvent.RESPONSE_COMPRESSION_LEVELS_CHANGED, state);
+
+        // then
+        assertThat(registeredGauges).hasSize(numGaugesBefore);
+        verify(loggerMock).error("Metrics Error: value is not a ResponseCompressionLevels");
+    }
+
+    @Test
+    public void onEvent_works_as_expected_for_EXECUTOR_TASK_STARTED_and_EXECUTOR_TASK_REJECTED() {
+        // given
+        InstrumentedThreadPoolExecutor executor = new InstrumentedThreadPoolExecutor("someExecutor", 2, 10, 1, null);
+        int numGaugesBefore = registeredGauges.size();
+        MetricNamingStrategy<ServerStatisticsMetricNames> naming = listener.serverStatsMetricNamingStrategy;
+
+        try {
+            // when
+            listener.onEvent(
+                ServerMetricsEvent.EXECUTOR_TASK_STARTED,
+                new ExecutorTaskMetrics(executor, TimeUnit.MILLISECONDS.toNanos(42))
+            );
+            listener.onEvent(ServerMetricsEvent.EXECUTOR_TASK_REJECTED, new ExecutorTaskMetrics(executor, 0));
+
+            // then
+            verify(registeredHistogramMocks.get(
+                name(naming.nameFor(ServerStatisticsMetricNames.EXECUTOR_QUEUE_WAIT_MILLIS), "someExecutor")
+            )).update(42L);
+            verify(registeredCounterMocks.get(
+                name(naming.nameFor(ServerStatisticsMetricNames.EXECUTOR_REJECTED_TASKS), "someExecutor")
+            )).inc();
+
+            assertThat(registeredGauges).hasSize(numGaugesBefore + 2);
+            assertThat(registeredGauges.get(
+                name(naming.nameFor(ServerStatisticsMetricNames.EXECUTOR_ACTIVE_THREADS), "someExecutor")
+            ).getValue()).isEqualTo(0);
+            assertThat(registeredGauges.get(
+                name(naming.nameFor(ServerStatisticsMetricNames.EXECUTOR_QUEUE_SIZE), "someExecutor")
+            ).getValue()).isEqualTo(0);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void onEvent_does_nothing_if_passed_EXECUTOR_TASK_STARTED_with_wrong_value_type() {
+        // given
+        int numGaugesBefore = registeredGauges.size();
+        Logger loggerMock = mock(Logger.class);
+        Whitebox.setInternalState(listener, "logger", loggerMock);
+
+        // when
+        listener.onEvent(ServerMetricsEvent.EXECUTOR_TASK_STARTED, state);
+
+        // then
+        assertThat(registeredGauges).hasSize(numGaugesBefore);
+        verify(loggerMock).error("Metrics Error: value is not an ExecutorTaskMetrics");
+    }
+
+    @Test
+    public void onEvent_works_as_expected_for_CONCURRENCY_LIMIT_CHANGED_and_CONCURRENCY_LIMIT_REQUEST_REJECTED() {
+        // given
+        int numGaugesBefore = registeredGauges.size();
+        MetricNamingStrategy<ServerStatisticsMetricNames> naming = listener.serverStatsMetricNamingStrategy;
+
+        // when - the limiter reports CONCURRENCY_LIMIT_CHANGED when it's created
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+            "someLimiter", ServerConfig.ConcurrencyLimitConfig.DEFAULT_IMPL, listener
+        );
+        limiter.tryAcquire();
+        listener.onEvent(ServerMetricsEvent.CONCURRENCY_LIMIT_REQUEST_REJECTED, limiter);
+        listener.onEvent(ServerMetricsEvent.CONCURRENCY_LIMIT_CHANGED, limiter);
+
+        // then
+        verify(registeredCounterMocks.get(
+            name(naming.nameFor(ServerStatisticsMetricNames.CONCURRENCY_LIMIT_REJECTED_REQUESTS), "someLimiter")
+        )).inc();
+
+        assertThat(registeredGauges).hasSize(numGaugesBefore + 2);
+        assertThat(registeredGauges.get(
+            name(naming.nameFor(ServerStatisticsMetricNames.CONCURRENCY_LIMIT), "someLimiter")
+        ).getValue()).isEqualTo(ServerConfig.ConcurrencyLimitConfig.DEFAULT_IMPL.initialLimit());
+        assertThat(registeredGauges.get(
+            name(naming.nameFor(ServerStatisticsMetricNames.CONCURRENCY_LIMIT_IN_FLIGHT), "someLimiter")
+        ).getValue()).isEqualTo(1);
+    }
+
+    @Test
+    public void onEvent_does_nothing_if_passed_CONCURRENCY_LIMIT_CHANGED_with_wrong_value_type() {
+        // given
+        int numGaugesBefore = registeredGauges.size();
+        Logger loggerMock = mock(Logger.class);
+        Whitebox.setInternalState(listener, "logger", loggerMock);
+
+        // when
+        listener.onEvent(ServerMetricsEvent.CONCURRENCY_LIMIT_CHANGED, state);
+
+        // then
+        assertThat(registeredGauges).hasSize(numGaugesBefore);
+        verify(loggerMock).error("Metrics Error: value is not an AdaptiveConcurrencyLimiter");
+    }
+
+    @Test
+    public void onEvent_works_as_expected_for_REQUEST_SHED() {
+        // given
+        MetricNamingStrategy<ServerStatisticsMetricNames> naming = listener.serverStatsMetricNamingStrategy;
+
+        // when
+        listener.onEvent(ServerMetricsEvent.REQUEST_SHED, RequestPriority.LOW);
+        listener.onEvent(ServerMetricsEvent.REQUEST_SHED, RequestPriority.SHEDDABLE);
+
+        // then
+        verify(registeredCounterMocks.get(
+            name(naming.nameFor(ServerStatisticsMetricNames.SHED_REQUESTS), "LOW")
+        )).inc();
+        verify(registeredCounterMocks.get(
+            name(naming.nameFor(ServerStatisticsMetricNames.SHED_REQUESTS), "SHEDDABLE")
+        )).inc();
+    }
+
+    @Test
+    public void onEvent_does_nothing_if_passed_REQUEST_SHED_with_wrong_value_type() {
+        // given
+        Logger loggerMock = mock(Logger.class);
+        Whitebox.setInternalState(listener, "logger", loggerMock);
+
+        // when
+        listener.onEvent(ServerMetricsEvent.REQUEST_SHED, state);
+
+        // then
+        verify(loggerMock).error("Metrics Error: value is not a RequestPriority");
+    }
+
+    @Test
+    public void onEvent_works_as_expected_for_REQUEST_COALESCED() {
+        // given
+        MetricNamingStrategy<ServerStatisticsMetricNames> naming = listener.serverStatsMetricNamingStrategy;
+        Endpoint<?> endpoint = mock(Endpoint.class);
+
+        // when
+        listener.onEvent(ServerMetricsEvent.REQUEST_COALESCED, endpoint);
+
+        // then
+        verify(registeredCounterMocks.get(
+            name(naming.nameFor(ServerStatisticsMetricNames.COALESCED_REQUESTS), endpoint.getClass().getName())
+        )).inc();
+    }
+
+    @Test
+    public void onEvent_does_nothing_if_passed_REQUEST_COALESCED_with_wrong_value_type() {
+        // given
+        Logger loggerMock = mock(Logger.class);
+        Whitebox.setInternalState(listener, "logger", loggerMock);
+
+        // when
+        listener.onEvent(ServerMetricsEvent.REQUEST_COALESCED, state);
+
+        // then
+        verify(loggerMock).error("Metrics Error: value is not an Endpoint");
+    }
+
+    @Test
+    public void onEvent_works_as_expected_for_PROXY_ROUTER_CONNECTION_ACQUIRED_and_PROXY_ROUTER_CONNECTION_ACQUIRE_REJECTED() {
+        // given
+        int numGaugesBefore = registeredGauges.size();
+        MetricNamingStrategy<ServerStatisticsMetricNames> naming = listener.serverStatsMetricNamingStrategy;
+        BoundedDownstreamChannelPool pool = mock(BoundedDownstreamChannelPool.class);
+        doReturn("127.0.0.1:8080").when(pool).getName();
+        doReturn(3).when(pool).getPendingAcquireCount();
+        doReturn(7).when(pool).acquiredChannelCount();
+
+        // when
+        listener.onEvent(
+            ServerMetricsEvent.PROXY_ROUTER_CONNECTION_ACQUIRED,
+            new ChannelPoolAcquireMetrics(pool, TimeUnit.MILLISECONDS.toNanos(42))
+        );
+        listener.onEvent(
+            ServerMetricsEvent.PROXY_ROUTER_CONNECTION_ACQUIRE_REJECTED, new ChannelPoolAcquireMetrics(pool, 0)
+        );
+
+        // then
+        verify(registeredHistogramMocks.get(
+            name(naming.nameFor(ServerStatisticsMetricNames.PROXY_ROUTER_CONNECTION_ACQUIRE_WAIT_MILLIS),
+                 "127.0.0.1:8080")
+        )).update(42L);
+        verify(registeredCounterMocks.get(
+            name(naming.nameFor(ServerStatisticsMetricNames.PROXY_ROUTER_CONNECTION_POOL_REJECTED_ACQUIRES),
+                 "127.0.0.1:8080")
+        )).inc();
+
+        assertThat(registeredGauges).hasSize(numGaugesBefore + 2);
+        assertThat(registeredGauges.get(
+            name(naming.nameFor(ServerStatisticsMetricNames.PROXY_ROUTER_CONNECTION_POOL_PENDING_ACQUIRES),
+                 "127.0.0.1:8080")
+        ).getValue()).isEqualTo(3);
+        assertThat(registeredGauges.get(
+            name(naming.nameFor(ServerStatisticsMetricNames.PROXY_ROUTER_CONNECTION_POOL_ACQUIRED_CONNECTIONS),
+                 "127.0.0.1:8080")
+        ).getValue()).isEqualTo(7);
+    }
+
+    @Test
+    public void onEvent_does_nothing_if_passed_PROXY_ROUTER_CONNECTION_ACQUIRED_with_wrong_value_type() {
+        // given
+        int numGaugesBefore = registeredGauges.size();
+        Logger loggerMock = mock(Logger.class);
+        Whitebox.setInternalState(listener, "logger", loggerMock);
+
+        // when
+        listener.onEvent(ServerMetricsEvent.PROXY_ROUTER_CONNECTION_ACQUIRED, state);
+
+        // then
+        assertThat(registeredGauges).hasSize(numGaugesBefore);
+        verify(loggerMock).error("Metrics Error: value is not a ChannelPoolAcquireMetrics");
+    }
+
+    @Test
+    public void onEvent_works_as_expected_for_PROXY_ROUTER_DOWNSTREAM_ADDRESS_SELECTED() {
+        // given
+        int numGaugesBefore = registeredGauges.size();
+        MetricNamingStrategy<ServerStatisticsMetricNames> naming = listener.serverStatsMetricNamingStrategy;
+        InetSocketAddress address = new InetSocketAddress("127.0.0.1", 8080);
+        DownstreamAddressSelector.AddressStats stats = mock(DownstreamAddressSelector.AddressStats.class);
+        doReturn(4).when(stats).getOutstandingRequests(address);
+        doReturn(12.5D).when(stats).getLatencyEwmaMillis(address);
+        DownstreamAddressSelectionMetrics selectionMetrics =
+            new DownstreamAddressSelectionMetrics("some.host", address, stats);
+
+        // when
+        listener.onEvent(ServerMetricsEvent.PROXY_ROUTER_DOWNSTREAM_ADDRESS_SELECTED, selectionMetrics);
+        listener.onEvent(ServerMetricsEvent.PROXY_ROUTER_DOWNSTREAM_ADDRESS_SELECTED, selectionMetrics);
+
+        // then
+        String selectionsCounterName = name(
+            naming.nameFor(ServerStatisticsMetricNames.PROXY_ROUTER_DOWNSTREAM_ADDRESS_SELECTIONS),
+            "some.host", "127.0.0.1:8080"
+        );
+        verify(cmcMock, times(2)).getNamedCounter(selectionsCounterName);
+        verify(registeredCounterMocks.get(selectionsCounterName)).inc();
+
+        assertThat(registeredGauges).hasSize(numGaugesBefore + 2);
+        assertThat(registeredGauges.get(
+            name(naming.nameFor(ServerStatisticsMetricNames.PROXY_ROUTER_DOWNSTREAM_ADDRESS_OUTSTANDING_REQUESTS),
+                 "127.0.0.1:8080")
+        ).getValue()).isEqualTo(4);
+        assertThat(registeredGauges.get(
+            name(naming.nameFor(ServerStatisticsMetricNames.PROXY_ROUTER_DOWNSTREAM_ADDRESS_LATENCY_EWMA_MILLIS),
+                 "127.0.0.1:8080")
+        ).getValue()).isEqualTo(12.5D);
+    }
+
+    @Test
+    public void onEvent_does_nothing_if_passed_PROXY_ROUTER_DOWNSTREAM_ADDRESS_SELECTED_with_wrong_value_type() {
+        // given
+        int numGaugesBefore = registeredGauges.size();
+        Logger loggerMock = mock(Logger.class);
+        Whitebox.setInternalState(listener, "logger", loggerMock);
+
+        // when
+        listener.onEvent(ServerMetricsEvent.PROXY_ROUTER_DOWNSTREAM_ADDRESS_SELECTED, state);
+
+        // then
+        assertThat(registeredGauges).hasSize(numGaugesBefore);
+        verify(loggerMock).error("Metrics Error: value is not a DownstreamAddressSelectionMetrics");
+    }
+
+    @Test
+    public void onEvent_works_as_expected_for_PROXY_ROUTER_CONNECTION_RETIRED() {
+        // given
+        MetricNamingStrategy<ServerStatisticsMetricNames> naming = listener.serverStatsMetricNamingStrategy;
+        DownstreamConnectionRetirementMetrics retirementMetrics = new DownstreamConnectionRetirementMetrics(
+            "127.0.0.1:8080", new InetSocketAddress("127.0.0.1", 8080), TimeUnit.MILLISECONDS.toNanos(300_042),
+            TimeUnit.MILLISECONDS.toNanos(300_000)
+        );
+
+        // when
+        listener.onEvent(ServerMetricsEvent.PROXY_ROUTER_CONNECTION_RETIRED, retirementMetrics);
+
+        // then
+        verify(registeredCounterMocks.get(
+            name(naming.nameFor(ServerStatisticsMetricNames.PROXY_ROUTER_CONNECTION_RETIREMENTS), "127.0.0.1:8080")
+        )).inc();
+        verify(registeredHistogramMocks.get(
+            name(naming.nameFor(ServerStatisticsMetricNames.PROXY_ROUTER_CONNECTION_AGE_AT_RETIREMENT_MILLIS),
+                 "127.0.0.1:8080")
+        )).update(300_042L);
+    }
+
+    @Test
+    public void onEvent_does_nothing_if_passed_PROXY_ROUTER_CONNECTION_RETIRED_with_wrong_value_type() {
+        // given
+        Logger loggerMock = mock(Logger.class);
+        Whitebox.setInternalState(listener, "logger", loggerMock);
+
+        // when
+        listener.onEvent(ServerMetricsEvent.PROXY_ROUTER_CONNECTION_RETIRED, state);
+
+        // then
+        verify(loggerMock).error("Metrics Error: value is not a DownstreamConnectionRetirementMetrics");
+        String retirementsCounterPrefix = listener.serverStatsMetricNamingStrategy.nameFor(
+            ServerStatisticsMetricNames.PROXY_ROUTER_CONNECTION_RETIREMENTS
+        );
+        assertThat(registeredCounterMocks.keySet()).noneMatch(key -> key.startsWith(retirementsCounterPrefix));
+    }
+
+    @Test
+    public void onEvent_works_as_expected_for_PROXY_ROUTER_DOWNSTREAM_EXTRA_ATTEMPT() {
+        // given
+        MetricNamingStrategy<ServerStatisticsMetricNames> naming = listener.serverStatsMetricNamingStrategy;
+        DownstreamExtraAttemptMetrics extraAttemptMetrics = new DownstreamExtraAttemptMetrics(
+            "some.downstream.host", AttemptType.HEDGE, Outcome.WON
+        );
+
+        // when
+        listener.onEvent(ServerMetricsEvent.PROXY_ROUTER_DOWNSTREAM_EXTRA_ATTEMPT, extraAttemptMetrics);
+
+        // then
+        verify(registeredCounterMocks.get(
+            name(naming.nameFor(ServerStatisticsMetricNames.PROXY_ROUTER_DOWNSTREAM_EXTRA_ATTEMPTS),
+                 "some.downstream.host", "HEDGE", "WON")
+        )).inc();
+    }
+
+    @Test
+    public void onEvent_does_nothing_if_passed_PROXY_ROUTER_DOWNSTREAM_EXTRA_ATTEMPT_with_wrong_value_type() {
+        // given
+        Logger loggerMock = mock(Logger.class);
+        Whitebox.setInternalState(listener, "logger", loggerMock);
+
+        // when
+        listener.onEvent(ServerMetricsEvent.PROXY_ROUTER_DOWNSTREAM_EXTRA_ATTEMPT, state);
+
+        // then
+        verify(loggerMock).error("Metrics Error: value is not a DownstreamExtraAttemptMetrics");
+        String extraAttemptsCounterPrefix = listener.serverStatsMetricNamingStrategy.nameFor(
+            ServerStatisticsMetricNames.PROXY_ROUTER_DOWNSTREAM_EXTRA_ATTEMPTS
+        );
+        assertThat(registeredCounterMocks.keySet()).noneMatch(key -> key.startsWith(extraAttemptsCounterPrefix));
+    }
+
+    @Test
+    public void onEvent_works_as_expected_for_PROXY_ROUTER_DOWNSTREAM_OUTLIER_DETECTED() {
+        // given
+        MetricNamingStrategy<ServerStatisticsMetricNames> naming = listener.serverStatsMetricNamingStrategy;
+        DownstreamOutlierEjectionMetrics outlierMetrics = new DownstreamOutlierEjectionMetrics(
+            "some.downstream.host", new InetSocketAddress("10.0.0.1", 8080),
+            DownstreamOutlierEjectionMetrics.Reason.LATENCY, DownstreamOutlierEjectionMetrics.Outcome.EJECTED, 30_000
+        );
+
+        // when
+        listener.onEvent(ServerMetricsEvent.PROXY_ROUTER_DOWNSTREAM_OUTLIER_DETECTED, outlierMetrics);
+
+        // then
+        verify(registeredCounterMocks.get(
+            name(naming.nameFor(ServerStatisticsMetricNames.PROXY_ROUTER_DOWNSTREAM_OUTLIERS),
+                 "some.downstream.host", "LATENCY", "EJECTED")
+        )).inc();
+    }
+
+    @Test
+    public void onEvent_does_nothing_if_passed_PROXY_ROUTER_DOWNSTREAM_OUTLIER_DETECTED_with_wrong_value_type() {
+        // given
+        Logger loggerMock = mock(Logger.class);
+        Whitebox.setInternalState(listener, "logger", loggerMock);
+
+        // when
+        listener.onEvent(ServerMetricsEvent.PROXY_ROUTER_DOWNSTREAM_OUTLIER_DETECTED, state);
+
+        // then
+        verify(loggerMock).error("Metrics Error: value is not a DownstreamOutlierEjectionMetrics");
+        String outliersCounterPrefix = listener.serverStatsMetricNamingStrategy.nameFor(
+            ServerStatisticsMetricNames.PROXY_ROUTER_DOWNSTREAM_OUTLIERS
+        );
+        assertThat(registeredCounterMocks.keySet()).noneMatch(key -> key.startsWith(outliersCounterPrefix));
+    }
+
     @Test
     public void onEvent_works_as_expected_for_RESPONSE_WRITE_FAILED() {
         // given
@@ -14,6 +14,7 @@ import com.nike.fastbreak.exception.CircuitBreakerTimeoutException;
 import com.nike.internal.util.Pair;
 import com.nike.internal.util.StringUtils;
 import com.nike.riposte.server.error.exception.DownstreamChannelClosedUnexpectedlyException;
+import com.nike.riposte.server.error.exception.DownstreamConnectionPoolExhaustedException;
 import com.nike.riposte.server.error.exception.DownstreamIdleChannelTimeoutException;
 import com.nike.riposte.server.error.exception.Forbidden403Exception;
 import com.nike.riposte.server.error.exception.HostnameResolutionException;
@@ -28,8 +29,11 @@ import com.nike.riposte.server.error.exception.NonblockingEndpointCompletableFut
 import com.nike.riposte.server.error.exception.PathNotFound404Exception;
 import com.nike.riposte.server.error.exception.PathParameterMatchingException;
 import com.nike.riposte.server.error.exception.RequestContentDeserializationException;
+import com.nike.riposte.server.error.exception.RequestShedException;
 import com.nike.riposte.server.error.exception.RequestTooBigException;
+import com.nike.riposte.server.error.exception.TooManyConcurrentRequestsException;
 import com.nike.riposte.server.error.exception.TooManyOpenChannelsException;
+import com.nike.riposte.server.error.exception.TooManyPendingTasksException;
 import com.nike.riposte.server.error.exception.Unauthorized401Exception;
 
 import org.jetbrains.annotations.NotNull;
@@ -153,6 +157,19 @@ public class BackstopperRiposteFrameworkErrorHandlerListener implements ApiExcep
             );
         }
 
+        if (ex instanceof DownstreamConnectionPoolExhaustedException) {
+            DownstreamConnectionPoolExhaustedException theEx = (DownstreamConnectionPoolExhaustedException) ex;
+            return ApiExceptionHandlerListenerResult.handleResponse(
+                singletonError(projectApiErrors.getTemporaryServiceProblemApiError()),
+                Arrays.asList(
+                    Pair.of("downstream_address", theEx.downstreamAddress),
+                    Pair.of("downstream_connection_acquire_timed_out", String.valueOf(theEx.acquireTimedOut)),
+                    Pair.of("downstream_max_connections", String.valueOf(theEx.maxConnections)),
+                    Pair.of("downstream_max_pending_acquires", String.valueOf(theEx.maxPendingAcquires))
+                )
+            );
+        }
+
         if (ex instanceof DecoderException) {
             ApiError errorToUse = (ex instanceof TooLongFrameException)
                                   ? generateTooLongFrameApiError((TooLongFrameException)ex)
@@ -301,6 +318,48 @@ public class BackstopperRiposteFrameworkErrorHandlerListener implements ApiExcep
             );
         }
 
+        if (ex instanceof RequestShedException) {
+            RequestShedException theEx = (RequestShedException) ex;
+            return ApiExceptionHandlerListenerResult.handleResponse(
+                singletonError(projectApiErrors.getTemporaryServiceProblemApiError()),
+                Arrays.asList(
+                    Pair.of("shed_request_priority", String.valueOf(theEx.priority)),
+                    Pair.of("shed_load", String.valueOf(theEx.load)),
+                    Pair.of("shed_load_threshold", String.valueOf(theEx.loadSheddingThreshold))
+                ),
+                singletonList(
+                    Pair.of("Retry-After", singletonList(String.valueOf(theEx.retryAfterSeconds)))
+                )
+            );
+        }
+
+        if (ex instanceof TooManyConcurrentRequestsException) {
+            TooManyConcurrentRequestsException theEx = (TooManyConcurrentRequestsException) ex;
+            return ApiExceptionHandlerListenerResult.handleResponse(
+                singletonError(projectApiErrors.getTemporaryServiceProblemApiError()),
+                Arrays.asList(
+                    Pair.of("concurrency_limiter_name", theEx.limiterName),
+                    Pair.of("concurrency_limit", String.valueOf(theEx.concurrencyLimit)),
+                    Pair.of("concurrency_limit_in_flight_requests", String.valueOf(theEx.inFlightRequests))
+                )
+            );
+        }
+
+        if (ex instanceof TooManyPendingTasksException) {
+            TooManyPendingTasksException theEx = (TooManyPendingTasksException) ex;
+            return ApiExceptionHandlerListenerResult.handleResponse(
+                singletonError(projectApiErrors.getTemporaryServiceProblemApiError()),
+                Arrays.asList(
+                    Pair.of("executor_name", theEx.executorName),
+                    Pair.of("executor_max_threads", String.valueOf(theEx.maxThreads)),
+                    Pair.of("executor_max_queue_size", String.valueOf(theEx.maxQueueSize))
+                ),
+                singletonList(
+                    Pair.of("Retry-After", singletonList(String.valueOf(theEx.retryAfterSeconds)))
+                )
+            );
+        }
+
         if (ex instanceof IncompleteHttpCallTimeoutException) {
             IncompleteHttpCallTimeoutException theEx = (IncompleteHttpCallTimeoutException)ex;
             return ApiExceptionHandlerListenerResult.handleResponse(
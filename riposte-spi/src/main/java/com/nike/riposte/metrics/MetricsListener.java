@@ -21,8 +21,31 @@ public interface MetricsListener {
      * Handle the given event.
      *
      * @param event The event to handle.
-     * @param value This should be a {@code HttpProcessingState} object, but may be null depending what happened during
-     * the request.
+     * @param value The value for the event, which depends on the event. For the request lifecycle events (see {@link
+     * ServerMetricsEvent#isRequestLifecycleEvent()}) this is a {@code HttpProcessingState} object, but may be null
+     * depending what happened during the request. For all other events it's the type documented on the {@link
+     * ServerMetricsEvent} value (e.g. an {@code ExecutorTaskMetrics} for {@link
+     * ServerMetricsEvent#EXECUTOR_TASK_STARTED}), and those events are only sent if {@link
+     * #isInterestedIn(ServerMetricsEvent)} returns true for them. Implementations should check the event before
+     * casting the value, and ignore events they don't recognize.
      */
     void onEvent(@NotNull ServerMetricsEvent event, @Nullable Object value);
+
+    /**
+     * Lets a listener opt in to events other than the request lifecycle events. Riposte checks this before building
+     * the value for (and calling {@link #onEvent(ServerMetricsEvent, Object)} with) any event that isn't a request
+     * lifecycle event, so events nobody wants cost nothing - some of them (e.g. {@link
+     * ServerMetricsEvent#EXECUTOR_TASK_STARTED} and {@link
+     * ServerMetricsEvent#PROXY_ROUTER_DOWNSTREAM_ADDRESS_SELECTED}) fire on hot paths. This may be called often, so it
+     * should be cheap and always give the same answer for a given event. The request lifecycle events are always sent
+     * no matter what this returns.
+     *
+     * @param event The event Riposte is about to fire.
+     * @return true if {@link #onEvent(ServerMetricsEvent, Object)} should be called for the given event. Defaults to
+     * true only for the request lifecycle events (see {@link ServerMetricsEvent#isRequestLifecycleEvent()}), so
+     * listeners written before the other events existed never see a value that isn't a {@code HttpProcessingState}.
+     */
+    default boolean isInterestedIn(@NotNull ServerMetricsEvent event) {
+        return event.isRequestLifecycleEvent();
+    }
 }
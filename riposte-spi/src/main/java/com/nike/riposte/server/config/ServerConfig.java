@@ -18,8 +18,10 @@ import com.nike.riposte.server.hooks.PipelineCreateHook;
 import com.nike.riposte.server.hooks.PostServerStartupHook;
 import com.nike.riposte.server.hooks.PreServerStartupHook;
 import com.nike.riposte.server.hooks.ServerShutdownHook;
+import com.nike.riposte.server.http.DownstreamAddressSelector;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.RequestPriority;
 import com.nike.riposte.server.http.filter.RequestAndResponseFilter;
 import com.nike.riposte.server.logging.AccessLogger;
 
@@ -30,11 +32,13 @@ import org.jetbrains.annotations.Nullable;
 
 import java.security.cert.CertificateException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
+import java.util.function.DoubleSupplier;
 
 import javax.net.ssl.SSLException;
 
@@ -380,19 +384,91 @@ public interface ServerConfig {
      * necessarily limited to the OS killing the JVM process to reclaim memory.
      *
      * <p>If the server detects that the number of open channels is at this threshold then new incoming channels will
-     * cause a {@link com.nike.riposte.server.error.exception.TooManyOpenChannelsException} to be thrown at which point
-     * the server will respond to the client with a HTTP status 503 and close the new channel.
+     * be closed as soon as they are accepted, before a channel pipeline is built for them or any data is read from
+     * them. The client sees its connection closed without a response. Rejected channels are counted by the
+     * server's {@code OpenChannelLimitHandler}, and logged at debug level by that handler's logger.
      *
-     * <p>If you see {@link com.nike.riposte.server.error.exception.TooManyOpenChannelsException}s in your server logs
-     * and discover that the traffic is legitimate, and the machine you're running on has the memory to handle the extra
-     * open connections, then you can safely increase this number. If you're running on a machine without enough memory
-     * you may need to lower this number. Setting this to unlimited (-1) leaves the server open to intentional and
-     * unintentional DOS style attacks and should only be used in known safe situations.
+     * <p>If you see connections being rejected and discover that the traffic is legitimate, and the machine you're
+     * running on has the memory to handle the extra open connections, then you can safely increase this number. If
+     * you're running on a machine without enough memory you may need to lower this number. Setting this to unlimited
+     * (-1) leaves the server open to intentional and unintentional DOS style attacks and should only be used in known
+     * safe situations.
      */
     default int maxOpenIncomingServerChannels() {
         return 20000;
     }
 
+    /**
+     * @return The maximum allowed number of open incoming channels from a single remote IP address, with -1 indicating
+     * unlimited (the default). This stops a single misbehaving client from using up all of {@link
+     * #maxOpenIncomingServerChannels()} and locking everyone else out. New incoming channels from an IP address that
+     * is already at this threshold are closed as soon as they are accepted, the same way channels over {@link
+     * #maxOpenIncomingServerChannels()} are.
+     *
+     * <p>Be careful turning this on if your clients reach the server through a load balancer or proxy that doesn't
+     * preserve the client's address - every connection will appear to come from the load balancer's IP address(es).
+     */
+    default int maxOpenIncomingServerChannelsPerIpAddress() {
+        return -1;
+    }
+
+    /**
+     * @return The {@link ConcurrencyLimitConfig} for the adaptive concurrency limiter, or null if you don't want
+     * requests limited (the default). When this is non-null, every endpoint gets its own limiter that only lets a
+     * limited number of requests for that endpoint be in flight at once. The limit is adjusted continuously based on
+     * measured request latency: it grows while latency stays near its long term baseline, and shrinks quickly when
+     * latency climbs (e.g. because a downstream dependency slowed down). Requests over the limit are rejected right
+     * after routing with a {@link com.nike.riposte.server.error.exception.TooManyConcurrentRequestsException}, which
+     * the default error handling turns into a HTTP status 503. Shedding that load quickly keeps latency and throughput
+     * healthy for the requests that are accepted, instead of letting everything queue up until it hits {@link
+     * #defaultCompletableFutureTimeoutInMillisForNonblockingEndpoints()}.
+     *
+     * <p>Individual endpoints can use a different config, or opt out entirely, via {@link
+     * Endpoint#concurrencyLimitConfigOverride()}. The current limit, in-flight count, and rejections are reported to
+     * {@link #metricsListener()}. Long-lived streaming, server-sent event, and WebSocket endpoints are not limited by
+     * this config since each one would hold its permit for the life of the stream.
+     */
+    default @Nullable ConcurrencyLimitConfig concurrencyLimitConfig() {
+        return null;
+    }
+
+    /**
+     * @return The {@link LoadSheddingConfig} for priority-aware load shedding, or null if you don't want load shed
+     * (the default). When this is non-null, every request is given a {@link RequestPriority} right after routing (see
+     * {@link LoadSheddingConfig#classifyRequest(RequestInfo, Endpoint)}), and the server's current load is compared
+     * against that priority's {@link LoadSheddingConfig#loadSheddingThreshold(RequestPriority)}. Requests whose
+     * threshold has been reached are rejected with a {@link
+     * com.nike.riposte.server.error.exception.RequestShedException} before any security validation, deserialization,
+     * or endpoint work happens, which the default error handling turns into a HTTP status 503 with a {@code
+     * Retry-After} header. As load rises the lowest priorities are shed first, keeping capacity for the important
+     * traffic. Shed requests are reported to {@link #metricsListener()} per priority.
+     */
+    default @Nullable LoadSheddingConfig loadSheddingConfig() {
+        return null;
+    }
+
+    /**
+     * @return The {@link RequestDeadlineConfig} for end-to-end request deadlines, or null if you don't want callers'
+     * deadlines honored (the default). When this is non-null, a caller can send the number of milliseconds it's
+     * willing to wait in the {@link RequestDeadlineConfig#timeoutHeaderName()} header. The resulting deadline is
+     * exposed via {@link RequestInfo#getDeadline()} and:
+     * <ul>
+     *     <li>
+     *         shortens the endpoint timeout (see {@link
+     *         #defaultCompletableFutureTimeoutInMillisForNonblockingEndpoints()}) so the server stops waiting on work
+     *         the caller has given up on
+     *     </li>
+     *     <li>
+     *         shortens the timeout of downstream calls made for the request by proxy/router endpoints and Riposte's
+     *         {@code AsyncHttpClientHelper}, and passes the remaining time along in the {@link
+     *         RequestDeadlineConfig#propagatedTimeoutHeaderName()} header so downstream services can do the same
+     *     </li>
+     * </ul>
+     */
+    default @Nullable RequestDeadlineConfig requestDeadlineConfig() {
+        return null;
+    }
+
     /**
      * @return The maximum allowed request size in bytes. If Riposte receives a request larger than this then it will
      * throw a {@link com.nike.riposte.server.error.exception.RequestTooBigException}.
@@ -418,12 +494,191 @@ public interface ServerConfig {
         return 500;
     }
 
+    /**
+     * @return The {@link ResponseCompressionConfig} that controls which content encodings are negotiated for
+     * compressed responses and at what compression level, or null if you want to use the default values. The {@link
+     * #responseCompressionThresholdBytes()} and per-response {@link
+     * com.nike.riposte.server.http.ResponseInfo#setPreventCompressedOutput(boolean)} rules apply regardless of which
+     * encoding is chosen. See the javadocs for {@link ResponseCompressionConfig} and its methods for more details.
+     */
+    default @Nullable ResponseCompressionConfig responseCompressionConfig() {
+        return null;
+    }
+
+    /**
+     * @return The maximum number of flushes that may be consolidated into a single socket flush for incoming server
+     * channels, or 0 (or less) to disable flush consolidation. When enabled, each flush of a response chunk is held
+     * back until the current event loop iteration finishes (or this many flushes are pending, whichever comes first),
+     * so streaming and proxied responses made up of many small chunks are written with far fewer syscalls. The
+     * consolidated flush runs before the event loop goes back to waiting for I/O, so the final chunk of a response is
+     * never delayed. This is done with Netty's {@code FlushConsolidationHandler} - see its javadocs for more details.
+     * Defaults to 0 (disabled).
+     */
+    default int flushConsolidationMaxPendingFlushes() {
+        return 0;
+    }
+
+    /**
+     * @return The same thing as {@link #flushConsolidationMaxPendingFlushes()}, except for the downstream channels used
+     * by proxy/router endpoints to send request chunks to the downstream service. Return 0 (or less) to disable flush
+     * consolidation for proxy/router downstream calls. Defaults to 0 (disabled).
+     */
+    default int proxyRouterFlushConsolidationMaxPendingFlushes() {
+        return 0;
+    }
+
+    /**
+     * @return The {@link ProxyRouterConnectionPoolConfig} that bounds the downstream connection pools used by
+     * proxy/router endpoints, or null if you want unbounded pools (the default). Proxy/router endpoints keep a pool of
+     * connections per downstream IP address and port. Unbounded pools open a new connection whenever there isn't an
+     * idle one available, so when a downstream service slows down a burst of traffic can open thousands of sockets,
+     * piling more load onto the struggling service and using up the ephemeral ports on this machine. When this is
+     * non-null each pool opens at most {@link ProxyRouterConnectionPoolConfig#maxConnectionsPerHost()} connections,
+     * and calls that can't get one wait in a bounded queue. Calls that wait longer than {@link
+     * ProxyRouterConnectionPoolConfig#acquireTimeoutMillis()}, or that arrive when the queue is full, fail with a
+     * {@link com.nike.riposte.server.error.exception.DownstreamConnectionPoolExhaustedException}, which the default
+     * error handling turns into a HTTP status 503. Connection acquire latency, pending acquires, and rejections are
+     * reported to {@link #metricsListener()} per pool.
+     */
+    default @Nullable ProxyRouterConnectionPoolConfig proxyRouterConnectionPoolConfig() {
+        return null;
+    }
+
+    /**
+     * @return The {@link ProxyRouterDnsResolverConfig} for resolving the hostnames of proxy/router downstream calls
+     * asynchronously, or null if you want the hostnames resolved with a blocking {@link
+     * java.net.InetAddress#getAllByName(String)} call on the thread starting the downstream call (the default). The
+     * blocking lookup can stall a worker event loop thread for as long as a DNS query takes, and relies on the
+     * JVM-wide DNS cache settings. When this is non-null the hostnames are resolved with Netty's non-blocking DNS
+     * resolver instead, and the results are cached per hostname for the TTL of the DNS records (clamped by {@link
+     * ProxyRouterDnsResolverConfig#minTtlMillis()} and {@link ProxyRouterDnsResolverConfig#maxTtlMillis()}). A
+     * cached hostname is re-resolved in the background shortly before its TTL runs out, so calls to busy downstream
+     * services never wait on DNS. Either way, when a hostname has multiple IP addresses each call picks one at random
+     * to spread traffic across all of them, and hostnames that can't be resolved fail the call with a {@link
+     * com.nike.riposte.server.error.exception.HostnameResolutionException}, which the default error handling turns
+     * into a HTTP status 503.
+     */
+    default @Nullable ProxyRouterDnsResolverConfig proxyRouterDnsResolverConfig() {
+        return null;
+    }
+
+    /**
+     * @return The {@link DownstreamAddressSelector} that picks which IP address to call when a proxy/router downstream
+     * hostname resolves to more than one, or null if you want each call to pick one at random (the default). Random
+     * picks spread traffic evenly, but an overloaded or slow IP (e.g. a struggling ELB node) keeps getting its full
+     * share. The {@code RoundRobinDownstreamAddressSelector}, {@code
+     * LeastOutstandingRequestsDownstreamAddressSelector}, and {@code PowerOfTwoChoicesDownstreamAddressSelector}
+     * classes in {@code riposte-core} are ready to use here, and individual proxy/router endpoints can override this
+     * per downstream call with {@code
+     * ProxyRouterEndpoint.DownstreamRequestFirstChunkInfo#withDownstreamAddressSelector(DownstreamAddressSelector)}.
+     * Each pick made by a selector is reported to {@link #metricsListener()} via {@link
+     * com.nike.riposte.server.metrics.ServerMetricsEvent#PROXY_ROUTER_DOWNSTREAM_ADDRESS_SELECTED}.
+     */
+    default @Nullable DownstreamAddressSelector proxyRouterDownstreamAddressSelector() {
+        return null;
+    }
+
+    /**
+     * @return true if proxy/router endpoints should make their downstream calls on the worker event loop that is
+     * handling the incoming request, or false if downstream calls should run on a separate proxy/router event loop
+     * group (the default). With the separate event loop group every chunk of a proxied request and response is handed
+     * off between the worker thread and a downstream thread through cross-thread task queues. When this is true the
+     * downstream connections are created on, and pooled per, each worker event loop, so the whole proxied exchange
+     * runs on a single thread. Since each worker event loop gets its own connection pools, the limits in {@link
+     * #proxyRouterConnectionPoolConfig()} apply to each worker event loop separately (i.e. the max connections to a
+     * downstream host is multiplied by {@link #numWorkerThreads()}). Incoming channels whose transport can't host
+     * downstream connections (anything other than the NIO and native epoll socket channels) still use the separate
+     * proxy/router event loop group, which is also where {@link #proxyRouterDnsResolverConfig()} lookups run.
+     */
+    default boolean isProxyRouterWorkerEventLoopSharingEnabled() {
+        return false;
+    }
+
+    /**
+     * @return The {@link ProxyRouterConnectionMaxAgeConfig} that limits how long proxy/router downstream connections
+     * are reused for, or null if you want connections reused for as long as they stay open (the default). A busy
+     * connection never hits {@link #workerChannelIdleTimeoutMillis()}, so without a max age it can keep sending its
+     * share of traffic to the same downstream IP address forever, even after the downstream service has scaled out or
+     * its DNS has changed - new capacity only gets traffic from new connections. When this is non-null each connection
+     * is retired once it's older than {@link ProxyRouterConnectionMaxAgeConfig#maxAgeMillis()} (minus a random
+     * jitter so connections opened at the same time don't all retire at once): it's closed when its current call
+     * finishes rather than going back to the pool, or when it's next pulled out of the pool, and the next call opens
+     * a fresh connection (picking up any DNS changes). Each retirement is reported to {@link #metricsListener()} via
+     * {@link com.nike.riposte.server.metrics.ServerMetricsEvent#PROXY_ROUTER_CONNECTION_RETIRED}.
+     */
+    default @Nullable ProxyRouterConnectionMaxAgeConfig proxyRouterConnectionMaxAgeConfig() {
+        return null;
+    }
+
+    /**
+     * @return The {@link ProxyRouterRetryBudgetConfig} that caps how much extra load hedged requests and connect
+     * retries can put on each proxy/router downstream host, or null to disable hedged requests and connect retries
+     * entirely. Defaults to {@link ProxyRouterRetryBudgetConfig#DEFAULT_IMPL}. Hedging and connect retries are opt-in
+     * for each downstream call via {@code
+     * ProxyRouterEndpoint.DownstreamRequestFirstChunkInfo#withHedgeDelayMillis(long)} and {@code
+     * ProxyRouterEndpoint.DownstreamRequestFirstChunkInfo#withMaxConnectRetries(int)}, so this does nothing until an
+     * endpoint asks for them. Every downstream call to a host earns that host a fraction of an extra attempt (per
+     * {@link ProxyRouterRetryBudgetConfig#maxHedgedAttemptsPercent()} and {@link
+     * ProxyRouterRetryBudgetConfig#maxConnectRetriesPercent()}), and each hedge or retry spends a whole one - when
+     * the host's budget runs out the hedge or retry is skipped, so an unhealthy downstream service doesn't get
+     * flooded with extra attempts just when it can least afford them. Hedges and retries that are sent, hedges that
+     * win, and attempts skipped because the budget ran out are reported to {@link #metricsListener()} via {@link
+     * com.nike.riposte.server.metrics.ServerMetricsEvent#PROXY_ROUTER_DOWNSTREAM_EXTRA_ATTEMPT}.
+     */
+    default @Nullable ProxyRouterRetryBudgetConfig proxyRouterRetryBudgetConfig() {
+        return ProxyRouterRetryBudgetConfig.DEFAULT_IMPL;
+    }
+
+    /**
+     * @return The {@link ProxyRouterOutlierDetectionConfig} for temporarily taking misbehaving IP addresses of
+     * proxy/router downstream hosts out of rotation, or null if you want every resolved IP address to keep getting
+     * calls no matter how it's behaving (the default). The circuit breaker used by proxy/router endpoints is keyed by
+     * hostname, so when a hostname resolves to several IP addresses (e.g. the nodes behind a load balancer's DNS name)
+     * one bad IP address either trips the breaker for all of them or gets hidden by the healthy ones. When this is
+     * non-null each IP address is tracked separately, and an IP address is ejected (left out when picking the address
+     * for a call) after {@link ProxyRouterOutlierDetectionConfig#consecutiveFailures()} 5xx responses or connection
+     * failures in a row, or when its average latency is far enough above the host's other IP addresses (see {@link
+     * ProxyRouterOutlierDetectionConfig#latencyOutlierFactor()}). Ejections start at {@link
+     * ProxyRouterOutlierDetectionConfig#baseEjectionTimeMillis()} and double each time the same IP address is ejected
+     * again, and {@link ProxyRouterOutlierDetectionConfig#maxEjectionPercent()} limits how many of a host's IP
+     * addresses can be ejected at once. Connections to an ejected IP address are closed rather than reused. Each
+     * ejection (and each one skipped because of the max ejection percentage) is reported to {@link
+     * #metricsListener()} via {@link
+     * com.nike.riposte.server.metrics.ServerMetricsEvent#PROXY_ROUTER_DOWNSTREAM_OUTLIER_DETECTED}.
+     */
+    default @Nullable ProxyRouterOutlierDetectionConfig proxyRouterOutlierDetectionConfig() {
+        return null;
+    }
+
+    /**
+     * @return The {@link ProxyRouterConnectionPrewarmConfig} for opening proxy/router downstream connections when the
+     * server starts up, or null if you want downstream connections opened lazily by the first calls that need them
+     * (the default). Without pre-warming, the first calls to each downstream host after a deploy pay for the TCP
+     * connect and TLS handshake, which shows up as a latency spike right when the server starts taking traffic. When
+     * this is non-null the server opens {@link ProxyRouterConnectionPrewarmConfig#connectionsPerHost()} connections to
+     * each IP address of each host in {@link ProxyRouterConnectionPrewarmConfig#targets()} (including the TLS
+     * handshake for HTTPS hosts) after binding its port but before running {@link #postServerStartupHooks()}, so
+     * before e.g. a service discovery registration hook tells clients the server is available. Pre-warmed connections
+     * are subject to {@link #workerChannelIdleTimeoutMillis()} like any other idle downstream connection, so set
+     * {@link ProxyRouterConnectionPrewarmConfig#minIdleConnectionsPerHost()} if you want them kept open while there's
+     * no traffic.
+     */
+    default @Nullable ProxyRouterConnectionPrewarmConfig proxyRouterConnectionPrewarmConfig() {
+        return null;
+    }
+
     /**
      * @return The {@link Executor} that should be used for long running tasks when non-blocking endpoints need to do
      * blocking I/O and there is no nonblocking driver/client, or if the endpoint needs to do serious number crunching
-     * or anything else that shouldn't be done on the Netty worker thread. This can be null - if it is null then {@link
-     * Executors#newCachedThreadPool()} will be used, which dynamically grows to fulfill demand,
-     * reuses threads where possible, and kills threads that have been idle for 60 seconds.
+     * or anything else that shouldn't be done on the Netty worker thread. This can be null - if it is null then a
+     * bounded {@code com.nike.riposte.util.InstrumentedThreadPoolExecutor} will be used, which grows to at most 200
+     * threads with a queue of at most 2000 pending tasks, and kills threads that have been idle for 60 seconds. When
+     * that executor is saturated it rejects new tasks with a {@link
+     * com.nike.riposte.server.error.exception.TooManyPendingTasksException}, which the default error handling turns
+     * into a fast HTTP status 503 response with a {@code Retry-After} header rather than letting latency pile up. The
+     * default executor also reports queue wait times, active thread counts, and rejections to {@link
+     * #metricsListener()} via {@link com.nike.riposte.server.metrics.ServerMetricsEvent#EXECUTOR_TASK_STARTED} and
+     * {@link com.nike.riposte.server.metrics.ServerMetricsEvent#EXECUTOR_TASK_REJECTED}.
      *
      * <p><b>NOTE:</b> You should try to find a non-blocking solution that uses fixed thread pools rather than use this
      * executor. For example you can use the {@code riposte-async-http-client} (or other async HTTP clients that don't
@@ -435,6 +690,30 @@ public interface ServerConfig {
         return null;
     }
 
+    /**
+     * @return The {@link Executor} that should be used to run request content validation (see {@link
+     * #requestContentValidationService()}) off the Netty worker thread. This can be null - if it is null then a
+     * bounded {@code com.nike.riposte.util.InstrumentedThreadPoolExecutor} with {@code 2 * availableProcessors}
+     * threads and a queue of at most 1000 pending validations will be used. Saturation is handled the same way as
+     * {@link #longRunningTaskExecutor()} - a fast HTTP status 503 with a {@code Retry-After} header.
+     */
+    default @Nullable Executor requestContentValidationExecutor() {
+        return null;
+    }
+
+    /**
+     * @return The {@link Executor} that should be used to run request security validation (see {@link
+     * #requestSecurityValidator()}) off the Netty worker thread when the validator isn't {@link
+     * RequestSecurityValidator#isFastEnoughToRunOnNettyWorkerThread() fast enough} to run on the worker thread. This
+     * can be null - if it is null then a bounded {@code com.nike.riposte.util.InstrumentedThreadPoolExecutor} with
+     * {@code 2 * availableProcessors} threads and a queue of at most 1000 pending validations will be used.
+     * Saturation is handled the same way as {@link #longRunningTaskExecutor()} - a fast HTTP status 503 with a {@code
+     * Retry-After} header.
+     */
+    default @Nullable Executor securityValidationExecutor() {
+        return null;
+    }
+
     /**
      * @return The {@link MetricsListener} that should be used for collecting and reporting Riposte server metrics. This
      * can be null - if it is null then no Riposte server metrics will be collected.
@@ -617,4 +896,878 @@ public interface ServerConfig {
             return 8192;
         }
     }
+
+    /**
+     * Config options that control how response payloads are compressed. The {@code gzip} and {@code deflate}
+     * encodings are always available. The {@code br} (brotli) and {@code zstd} encodings are only negotiated when
+     * enabled here <b>and</b> the optional native library that backs them is on the classpath and loadable on the
+     * current platform ({@code com.aayushatharva.brotli4j:brotli4j} for brotli, {@code com.github.luben:zstd-jni}
+     * for zstd). When the caller's {@code Accept-Encoding} header allows more than one encoding with the same
+     * q-value, the server prefers {@code br}, then {@code zstd}, then {@code gzip}, then {@code deflate}.
+     */
+    interface ResponseCompressionConfig {
+
+        /**
+         * Statically accessible implementation of the {@link ResponseCompressionConfig} interface that returns the
+         * default values.
+         */
+        @NotNull ResponseCompressionConfig DEFAULT_IMPL = new ResponseCompressionConfig() {};
+
+        /**
+         * Defaults to 6, which is the zlib default and a good balance between CPU and compression ratio.
+         *
+         * @return The compression level (1-9) used for the {@code gzip} and {@code deflate} encodings.
+         */
+        default int gzipCompressionLevel() {
+            return 6;
+        }
+
+        /**
+         * Defaults to true. Has no effect if the brotli library isn't on the classpath.
+         *
+         * @return Whether the {@code br} encoding may be negotiated.
+         */
+        default boolean isBrotliEnabled() {
+            return true;
+        }
+
+        /**
+         * Defaults to 4. Brotli quality levels above 5 or so get expensive quickly and are better suited to
+         * pre-compressed static assets than to dynamic responses.
+         *
+         * @return The brotli quality (0-11) used for the {@code br} encoding.
+         */
+        default int brotliQuality() {
+            return 4;
+        }
+
+        /**
+         * Defaults to true. Has no effect if the zstd library isn't on the classpath.
+         *
+         * @return Whether the {@code zstd} encoding may be negotiated.
+         */
+        default boolean isZstdEnabled() {
+            return true;
+        }
+
+        /**
+         * Defaults to 3, which is the zstd library default.
+         *
+         * @return The zstd compression level (1-22) used for the {@code zstd} encoding.
+         */
+        default int zstdCompressionLevel() {
+            return 3;
+        }
+
+        /**
+         * Defaults to false. When enabled, the server watches a load signal (see {@link
+         * #adaptiveCompressionLoadSignal()}) and steps compression levels down while the server is under heavy load,
+         * one level per {@link #adaptiveCompressionSampleIntervalMillis()}. Once every level is as low as it goes,
+         * the next step up also multiplies {@link ServerConfig#responseCompressionThresholdBytes()} by {@link
+         * #adaptiveCompressionThresholdMultiplier()} so that fewer responses get compressed. Levels are restored the
+         * same way, one step at a time, once load drops.
+         *
+         * @return Whether compression levels should adapt to server load.
+         */
+        default boolean isAdaptiveCompressionEnabled() {
+            return false;
+        }
+
+        /**
+         * Defaults to null, which means the server uses a signal based on worker event loop lag: how late a small
+         * periodic task runs on each worker event loop, relative to {@link
+         * #adaptiveCompressionEventLoopLagMillisAtFullLoad()}. Supply your own if you have a better CPU signal, for
+         * example process CPU load from {@code com.sun.management.OperatingSystemMXBean}.
+         *
+         * @return A supplier of the current server load, where 0.0 means idle and 1.0 means fully loaded. Only used
+         * when {@link #isAdaptiveCompressionEnabled()} is true.
+         */
+        default @Nullable DoubleSupplier adaptiveCompressionLoadSignal() {
+            return null;
+        }
+
+        /**
+         * Defaults to 0.8.
+         *
+         * @return The load at or above which compression levels are stepped down.
+         */
+        default double adaptiveCompressionHighLoadThreshold() {
+            return 0.8;
+        }
+
+        /**
+         * Defaults to 0.5. Should be lower than {@link #adaptiveCompressionHighLoadThreshold()} so that levels don't
+         * flap back and forth.
+         *
+         * @return The load at or below which compression levels are stepped back up.
+         */
+        default double adaptiveCompressionLowLoadThreshold() {
+            return 0.5;
+        }
+
+        /**
+         * Defaults to 1.
+         *
+         * @return The lowest gzip/deflate level adaptive compression will step down to.
+         */
+        default int adaptiveCompressionMinGzipLevel() {
+            return 1;
+        }
+
+        /**
+         * Defaults to 4.
+         *
+         * @return The factor the response size threshold is multiplied by at the last adaptive compression step.
+         */
+        default int adaptiveCompressionThresholdMultiplier() {
+            return 4;
+        }
+
+        /**
+         * Defaults to 1000 milliseconds.
+         *
+         * @return How often the load signal is checked, which is also the fastest compression levels can change.
+         */
+        default long adaptiveCompressionSampleIntervalMillis() {
+            return 1000;
+        }
+
+        /**
+         * Defaults to 100 milliseconds. Only used by the default event loop lag signal.
+         *
+         * @return The worker event loop lag that counts as full load (1.0).
+         */
+        default long adaptiveCompressionEventLoopLagMillisAtFullLoad() {
+            return 100;
+        }
+    }
+
+    /**
+     * Config options for the adaptive concurrency limiter - see {@link #concurrencyLimitConfig()}. The limiter uses a
+     * gradient algorithm: for every sample window it compares the window's average request latency against a slowly
+     * moving baseline latency, and scales the limit by that ratio (allowing for {@link #rttTolerance()}), plus a small
+     * amount of headroom so the limit can probe upward while latency is healthy.
+     */
+    interface ConcurrencyLimitConfig {
+
+        /**
+         * Statically accessible implementation of the {@link ConcurrencyLimitConfig} interface that returns the
+         * default values.
+         */
+        @NotNull ConcurrencyLimitConfig DEFAULT_IMPL = new ConcurrencyLimitConfig() {};
+
+        /**
+         * Statically accessible implementation of the {@link ConcurrencyLimitConfig} interface that turns concurrency
+         * limiting off. Useful as an {@link Endpoint#concurrencyLimitConfigOverride()} for endpoints that should never
+         * be limited.
+         */
+        @NotNull ConcurrencyLimitConfig DISABLED = new ConcurrencyLimitConfig() {
+            @Override
+            public boolean isEnabled() {
+                return false;
+            }
+        };
+
+        /**
+         * Defaults to true.
+         *
+         * @return Whether concurrency limiting is enabled.
+         */
+        default boolean isEnabled() {
+            return true;
+        }
+
+        /**
+         * Defaults to 20.
+         *
+         * @return The limit used before any latency has been measured.
+         */
+        default int initialLimit() {
+            return 20;
+        }
+
+        /**
+         * Defaults to 10.
+         *
+         * @return The lowest the limit will go, no matter how bad latency gets.
+         */
+        default int minLimit() {
+            return 10;
+        }
+
+        /**
+         * Defaults to 1000.
+         *
+         * @return The highest the limit will go, no matter how good latency is.
+         */
+        default int maxLimit() {
+            return 1000;
+        }
+
+        /**
+         * Defaults to 1.5, which means the limit isn't reduced until a window's average latency is more than 1.5x the
+         * baseline latency.
+         *
+         * @return How much worse than the baseline latency a window's average latency can be before the limit is
+         * reduced. Must be at least 1.0.
+         */
+        default double rttTolerance() {
+            return 1.5;
+        }
+
+        /**
+         * Defaults to 0.2.
+         *
+         * @return How much of each newly calculated limit is blended into the current limit (0.0 - 1.0). Lower values
+         * make the limit change more slowly.
+         */
+        default double smoothing() {
+            return 0.2;
+        }
+
+        /**
+         * Defaults to 600.
+         *
+         * @return The number of sample windows the baseline latency is averaged over. Larger values make the baseline
+         * move more slowly, so a gradual slowdown is still noticed.
+         */
+        default int baselineRttWindowSize() {
+            return 600;
+        }
+
+        /**
+         * Defaults to 500 milliseconds.
+         *
+         * @return The minimum duration of a sample window, i.e. how often the limit can be updated.
+         */
+        default long sampleWindowMillis() {
+            return 500;
+        }
+
+        /**
+         * Defaults to 10.
+         *
+         * @return The minimum number of completed requests in a sample window before the limit is updated.
+         */
+        default int minSamplesPerWindow() {
+            return 10;
+        }
+    }
+
+    /**
+     * Config options for priority-aware load shedding - see {@link #loadSheddingConfig()}.
+     */
+    interface LoadSheddingConfig {
+
+        /**
+         * Statically accessible implementation of the {@link LoadSheddingConfig} interface that returns the default
+         * values.
+         */
+        @NotNull LoadSheddingConfig DEFAULT_IMPL = new LoadSheddingConfig() {};
+
+        /**
+         * Defaults to null (no header).
+         *
+         * @return The name of a request header callers can use to mark their request's {@link RequestPriority} (e.g.
+         * {@code X-Request-Priority: sheddable}), or null to ignore headers. The default {@link
+         * #classifyRequest(RequestInfo, Endpoint)} only lets the header lower a request's priority below its
+         * endpoint's {@link Endpoint#requestPriority()}, so callers can't push their own traffic ahead of others.
+         */
+        default @Nullable String priorityHeaderName() {
+            return null;
+        }
+
+        /**
+         * Decides the priority of a request. This is called right after routing, so the request's headers, path,
+         * etc are available but the payload may not be. Override this to plug in your own classifier. The default
+         * uses the endpoint's {@link Endpoint#requestPriority()}, lowered by the {@link #priorityHeaderName()} header
+         * if one is configured and present.
+         *
+         * @param request The incoming request.
+         * @param endpoint The endpoint the request was routed to.
+         * @return The priority to use for the request.
+         */
+        default @NotNull RequestPriority classifyRequest(@NotNull RequestInfo<?> request,
+                                                         @NotNull Endpoint<?> endpoint) {
+            RequestPriority endpointPriority = endpoint.requestPriority();
+            String headerName = priorityHeaderName();
+            if (headerName == null) {
+                return endpointPriority;
+            }
+
+            RequestPriority headerPriority = RequestPriority.fromString(request.getHeaders().get(headerName));
+            return (headerPriority != null && headerPriority.compareTo(endpointPriority) > 0)
+                   ? headerPriority
+                   : endpointPriority;
+        }
+
+        /**
+         * Defaults to never for {@link RequestPriority#CRITICAL}, 0.95 for {@link RequestPriority#HIGH}, 0.85 for
+         * {@link RequestPriority#NORMAL}, 0.7 for {@link RequestPriority#LOW}, and 0.5 for {@link
+         * RequestPriority#SHEDDABLE}.
+         *
+         * @return The load (see {@link #loadSignal()}) at or above which requests with the given priority are shed.
+         * Return a value greater than 1.0 (e.g. {@link Double#POSITIVE_INFINITY}) to never shed the priority.
+         */
+        default double loadSheddingThreshold(@NotNull RequestPriority priority) {
+            switch (priority) {
+                case CRITICAL:
+                    return Double.POSITIVE_INFINITY;
+                case HIGH:
+                    return 0.95;
+                case NORMAL:
+                    return 0.85;
+                case LOW:
+                    return 0.7;
+                case SHEDDABLE:
+                    return 0.5;
+                default:
+                    throw new IllegalArgumentException("Unhandled RequestPriority: " + priority);
+            }
+        }
+
+        /**
+         * Defaults to null, which means the default load signal will be used. The default signal is the highest of:
+         * <ul>
+         *     <li>event loop lag as a fraction of {@link #eventLoopLagMillisAtFullLoad()}</li>
+         *     <li>
+         *         how full the {@link ServerConfig#longRunningTaskExecutor()} queue is, when it's one of Riposte's
+         *         bounded executors
+         *     </li>
+         *     <li>
+         *         in-flight requests as a fraction of {@link #maxInFlightRequestsAtFullLoad()}, when that is greater
+         *         than 0
+         *     </li>
+         * </ul>
+         *
+         * @return A custom load signal that returns the current load from 0.0 (idle) to 1.0 (fully loaded), or null to
+         * use the default signal. It's sampled at most once per {@link #loadSampleIntervalMillis()}.
+         */
+        default @Nullable DoubleSupplier loadSignal() {
+            return null;
+        }
+
+        /**
+         * Defaults to 100 milliseconds.
+         *
+         * @return How often the load signal is sampled.
+         */
+        default long loadSampleIntervalMillis() {
+            return 100;
+        }
+
+        /**
+         * Defaults to 100 milliseconds.
+         *
+         * @return The event loop lag that counts as full load for the default load signal.
+         */
+        default long eventLoopLagMillisAtFullLoad() {
+            return 100;
+        }
+
+        /**
+         * Defaults to 0 (in-flight requests aren't part of the default load signal).
+         *
+         * @return The number of in-flight requests across the whole server that counts as full load for the default
+         * load signal, or 0 or less to leave in-flight requests out of the default load signal.
+         */
+        default int maxInFlightRequestsAtFullLoad() {
+            return 0;
+        }
+
+        /**
+         * Defaults to 1 second.
+         *
+         * @return The value for the {@code Retry-After} header sent with shed responses.
+         */
+        default long retryAfterSeconds() {
+            return 1;
+        }
+    }
+
+    /**
+     * Config for end-to-end request deadlines - see {@link ServerConfig#requestDeadlineConfig()}.
+     */
+    interface RequestDeadlineConfig {
+
+        /**
+         * Statically accessible implementation of the {@link RequestDeadlineConfig} interface that returns the
+         * default values.
+         */
+        @NotNull RequestDeadlineConfig DEFAULT_IMPL = new RequestDeadlineConfig() {};
+
+        /**
+         * Defaults to {@code X-Request-Timeout-Millis}.
+         *
+         * @return The name of the request header callers use to send how many milliseconds they're willing to wait
+         * for the response.
+         */
+        default @NotNull String timeoutHeaderName() {
+            return "X-Request-Timeout-Millis";
+        }
+
+        /**
+         * Defaults to {@link #timeoutHeaderName()}.
+         *
+         * @return The name of the header used to pass the remaining time along to downstream calls, or null if the
+         * remaining time shouldn't be passed along. Downstream call timeouts are shortened either way.
+         */
+        default @Nullable String propagatedTimeoutHeaderName() {
+            return timeoutHeaderName();
+        }
+
+        /**
+         * Parses the value of the {@link #timeoutHeaderName()} header. The default expects a whole number of
+         * milliseconds. Override this if your callers use a different format.
+         *
+         * @param headerValue The header value - will never be null.
+         * @return The timeout in milliseconds, or null if the value is invalid (in which case the request gets no
+         * deadline).
+         */
+        default @Nullable Long parseTimeoutMillis(@NotNull String headerValue) {
+            try {
+                long timeoutMillis = Long.parseLong(headerValue.trim());
+                return (timeoutMillis < 0) ? null : timeoutMillis;
+            }
+            catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Config options for bounded proxy/router downstream connection pools - see {@link
+     * #proxyRouterConnectionPoolConfig()}. All limits apply to each pool separately, i.e. per downstream IP address
+     * and port.
+     */
+    interface ProxyRouterConnectionPoolConfig {
+
+        /**
+         * Statically accessible implementation of the {@link ProxyRouterConnectionPoolConfig} interface that returns
+         * the default values.
+         */
+        @NotNull ProxyRouterConnectionPoolConfig DEFAULT_IMPL = new ProxyRouterConnectionPoolConfig() {};
+
+        /**
+         * Defaults to 500.
+         *
+         * @return The max number of connections a pool will have open at once, whether they are in use or idle. Must
+         * be at least 1.
+         */
+        default int maxConnectionsPerHost() {
+            return 500;
+        }
+
+        /**
+         * Defaults to 1000.
+         *
+         * @return The max number of calls that can be waiting for a connection from a pool at once because all
+         * {@link #maxConnectionsPerHost()} connections are in use. Calls that arrive when this many are already waiting
+         * are rejected right away. Must be at least 1.
+         */
+        default int maxPendingAcquiresPerHost() {
+            return 1000;
+        }
+
+        /**
+         * Defaults to 1 second.
+         *
+         * @return The max amount of time in milliseconds a call will wait for a connection to free up before it is
+         * rejected, or -1 to wait as long as it takes. This does not include the time it takes to open a new
+         * connection, which is limited by {@link #proxyRouterConnectTimeoutMillis()} instead.
+         */
+        default long acquireTimeoutMillis() {
+            return 1000;
+        }
+    }
+
+    /**
+     * Config options for asynchronous DNS resolution of proxy/router downstream hostnames - see {@link
+     * #proxyRouterDnsResolverConfig()}.
+     */
+    interface ProxyRouterDnsResolverConfig {
+
+        /**
+         * Statically accessible implementation of the {@link ProxyRouterDnsResolverConfig} interface that returns the
+         * default values.
+         */
+        @NotNull ProxyRouterDnsResolverConfig DEFAULT_IMPL = new ProxyRouterDnsResolverConfig() {};
+
+        /**
+         * Defaults to 2 seconds.
+         *
+         * @return The max amount of time in milliseconds to wait for a DNS server to answer a query before giving up
+         * on it.
+         */
+        default long queryTimeoutMillis() {
+            return 2000;
+        }
+
+        /**
+         * Defaults to 1 second.
+         *
+         * @return The minimum amount of time in milliseconds a hostname's resolved IP addresses will be cached for,
+         * even if the DNS records have a shorter TTL.
+         */
+        default long minTtlMillis() {
+            return 1000;
+        }
+
+        /**
+         * Defaults to 5 minutes.
+         *
+         * @return The maximum amount of time in milliseconds a hostname's resolved IP addresses will be cached for,
+         * even if the DNS records have a longer TTL.
+         */
+        default long maxTtlMillis() {
+            return 300_000;
+        }
+
+        /**
+         * Defaults to 1 second.
+         *
+         * @return The amount of time in milliseconds a failure to resolve a hostname will be cached for. Calls to
+         * that hostname during this time fail immediately rather than sending another DNS query. Return 0 (or less)
+         * to disable caching of failures.
+         */
+        default long negativeTtlMillis() {
+            return 1000;
+        }
+    }
+
+    /**
+     * Config options for retiring old proxy/router downstream connections - see {@link
+     * #proxyRouterConnectionMaxAgeConfig()}.
+     */
+    interface ProxyRouterConnectionMaxAgeConfig {
+
+        /**
+         * Statically accessible implementation of the {@link ProxyRouterConnectionMaxAgeConfig} interface that
+         * returns the default values.
+         */
+        @NotNull ProxyRouterConnectionMaxAgeConfig DEFAULT_IMPL = new ProxyRouterConnectionMaxAgeConfig() {};
+
+        /**
+         * Defaults to 5 minutes.
+         *
+         * @return The max amount of time in milliseconds a connection will be reused for, measured from when it was
+         * first handed out by its pool. Must be greater than 0.
+         */
+        default long maxAgeMillis() {
+            return 300_000;
+        }
+
+        /**
+         * Defaults to 1 minute.
+         *
+         * @return The max amount of random jitter in milliseconds subtracted from {@link #maxAgeMillis()} for each
+         * connection, so each connection's max age is somewhere between {@code maxAgeMillis() - maxJitterMillis()}
+         * and {@code maxAgeMillis()}. This spreads out the retirement of connections that were opened at the same
+         * time (e.g. at startup or after a traffic spike), so they aren't all replaced at once. Return 0 to disable
+         * jitter.
+         */
+        default long maxJitterMillis() {
+            return 60_000;
+        }
+    }
+
+    /**
+     * Config options for the budgets that limit proxy/router hedged requests and connect retries - see {@link
+     * #proxyRouterRetryBudgetConfig()}.
+     */
+    interface ProxyRouterRetryBudgetConfig {
+
+        /**
+         * Statically accessible implementation of the {@link ProxyRouterRetryBudgetConfig} interface that returns
+         * the default values.
+         */
+        @NotNull ProxyRouterRetryBudgetConfig DEFAULT_IMPL = new ProxyRouterRetryBudgetConfig() {};
+
+        /**
+         * Defaults to 10.
+         *
+         * @return The max number of hedged requests sent to a downstream host, as a percentage of the downstream calls
+         * made to that host. Return 0 to never send hedged requests.
+         */
+        default double maxHedgedAttemptsPercent() {
+            return 10;
+        }
+
+        /**
+         * Defaults to 10.
+         *
+         * @return The max number of connect retries sent to a downstream host, as a percentage of the downstream calls
+         * made to that host. Return 0 to never retry.
+         */
+        default double maxConnectRetriesPercent() {
+            return 10;
+        }
+
+        /**
+         * Defaults to 10.
+         *
+         * @return The max number of unspent extra attempts a downstream host's budget can save up while things are
+         * healthy, i.e. the biggest burst of hedges (or retries) that can be sent back to back. Must be at least 1.
+         * Budgets start out empty, so a host has to be called before it can be hedged or retried.
+         */
+        default int maxBurst() {
+            return 10;
+        }
+    }
+
+    /**
+     * Config options for detecting and ejecting misbehaving proxy/router downstream IP addresses - see {@link
+     * #proxyRouterOutlierDetectionConfig()}.
+     */
+    interface ProxyRouterOutlierDetectionConfig {
+
+        /**
+         * Statically accessible implementation of the {@link ProxyRouterOutlierDetectionConfig} interface that
+         * returns the default values.
+         */
+        @NotNull ProxyRouterOutlierDetectionConfig DEFAULT_IMPL = new ProxyRouterOutlierDetectionConfig() {};
+
+        /**
+         * Defaults to 5.
+         *
+         * @return The number of 5xx responses or connection failures in a row that gets an IP address ejected. Return
+         * 0 (or less) to disable ejections for failures.
+         */
+        default int consecutiveFailures() {
+            return 5;
+        }
+
+        /**
+         * Defaults to 3.
+         *
+         * @return How many times higher than the average latency of the host's other IP addresses an IP address's
+         * average latency has to be before it's ejected. Return 0 (or less) to disable ejections for latency.
+         */
+        default double latencyOutlierFactor() {
+            return 3;
+        }
+
+        /**
+         * Defaults to 100 milliseconds.
+         *
+         * @return How many milliseconds an IP address's average latency also has to be above the average latency of
+         * the host's other IP addresses before it's ejected for latency, so fast downstream services don't see
+         * ejections over a few milliseconds of noise.
+         */
+        default long latencyOutlierMinDeviationMillis() {
+            return 100;
+        }
+
+        /**
+         * Defaults to 20.
+         *
+         * @return The number of responses an IP address has to return (since it was last ejected) before it can be
+         * ejected for latency.
+         */
+        default int latencyOutlierMinRequests() {
+            return 20;
+        }
+
+        /**
+         * Defaults to 30 seconds.
+         *
+         * @return How long in milliseconds an IP address is ejected for the first time. Each time the same IP address
+         * is ejected again the ejection lasts twice as long, up to {@link #maxEjectionTimeMillis()}. Must be greater
+         * than 0.
+         */
+        default long baseEjectionTimeMillis() {
+            return 30_000;
+        }
+
+        /**
+         * Defaults to 5 minutes.
+         *
+         * @return The longest an IP address will be ejected for in milliseconds. Once an IP address has stayed in
+         * rotation for this long without being ejected again its next ejection goes back to {@link
+         * #baseEjectionTimeMillis()}. Must be at least {@link #baseEjectionTimeMillis()}.
+         */
+        default long maxEjectionTimeMillis() {
+            return 300_000;
+        }
+
+        /**
+         * Defaults to 50.
+         *
+         * @return The max percentage of a host's IP addresses that can be ejected at the same time. At least one IP
+         * address is always left in rotation, so a hostname with a single IP address is never ejected.
+         */
+        default double maxEjectionPercent() {
+            return 50;
+        }
+    }
+
+    /**
+     * Config options for opening proxy/router downstream connections when the server starts up - see {@link
+     * #proxyRouterConnectionPrewarmConfig()}.
+     */
+    interface ProxyRouterConnectionPrewarmConfig {
+
+        /**
+         * Statically accessible implementation of the {@link ProxyRouterConnectionPrewarmConfig} interface that
+         * returns the default values.
+         */
+        @NotNull ProxyRouterConnectionPrewarmConfig DEFAULT_IMPL = new ProxyRouterConnectionPrewarmConfig() {};
+
+        /**
+         * Defaults to an empty list.
+         *
+         * @return The downstream hosts to open connections to, in addition to the ones found via {@link
+         * #includeSimpleProxyRouterEndpoints()}.
+         */
+        default @NotNull List<@NotNull Target> targets() {
+            return Collections.emptyList();
+        }
+
+        /**
+         * Defaults to true.
+         *
+         * @return true if the downstream host of every {@code SimpleProxyRouterEndpoint} in {@link #appEndpoints()}
+         * should be pre-warmed along with {@link #targets()}, false if only {@link #targets()} should be. Other
+         * proxy/router endpoints pick their downstream host per request, so add their hosts to {@link #targets()}.
+         */
+        default boolean includeSimpleProxyRouterEndpoints() {
+            return true;
+        }
+
+        /**
+         * Defaults to 4.
+         *
+         * @return The number of connections to open to each IP address of each downstream host. If {@link
+         * #isProxyRouterWorkerEventLoopSharingEnabled()} is true then this many are opened for each worker event loop,
+         * since each worker event loop has its own connection pools. This should not be more than {@link
+         * ProxyRouterConnectionPoolConfig#maxConnectionsPerHost()} if you're using bounded pools.
+         */
+        default int connectionsPerHost() {
+            return 4;
+        }
+
+        /**
+         * Defaults to 10 seconds.
+         *
+         * @return The max amount of time in milliseconds server startup will wait for the connections to be opened.
+         * Startup continues after this even if some connections couldn't be opened (they're logged as warnings), so a
+         * downstream host being down never prevents the server from starting.
+         */
+        default long startupTimeoutMillis() {
+            return 10_000;
+        }
+
+        /**
+         * Defaults to 0 (disabled).
+         *
+         * @return The number of idle connections to each IP address of each downstream host that should be kept open
+         * after startup, or 0 to only open connections at startup. When this is greater than 0 the connection pools are
+         * checked every {@link #minIdleCheckIntervalMillis()}, and any pool with fewer connections than this is topped
+         * back up (which also keeps existing idle connections from hitting {@link #workerChannelIdleTimeoutMillis()}).
+         */
+        default int minIdleConnectionsPerHost() {
+            return 0;
+        }
+
+        /**
+         * Defaults to 2 seconds.
+         *
+         * @return The amount of time in milliseconds between checks of {@link #minIdleConnectionsPerHost()}. This
+         * should be less than {@link #workerChannelIdleTimeoutMillis()}, otherwise idle connections will be closed
+         * and reopened between checks.
+         */
+        default long minIdleCheckIntervalMillis() {
+            return 2000;
+        }
+
+        /**
+         * A downstream host and port to open connections to - see {@link #targets()}.
+         */
+        final class Target {
+
+            public final @NotNull String host;
+            public final int port;
+            public final boolean isHttps;
+            public final boolean relaxedHttpsValidation;
+
+            /**
+             * @param host The downstream hostname or IP address.
+             * @param port The downstream port.
+             * @param isHttps true if calls to this host use HTTPS, in which case the TLS handshake is done as part of
+             * pre-warming each connection.
+             * @param relaxedHttpsValidation true if calls to this host skip validation of the host's certificate - this
+             * should match the {@code relaxedHttpsValidation} used by the proxy/router endpoints that call this host.
+             */
+            public Target(@NotNull String host, int port, boolean isHttps, boolean relaxedHttpsValidation) {
+                //noinspection ConstantConditions
+                if (host == null) {
+                    throw new NullPointerException("host cannot be null");
+                }
+
+                this.host = host;
+                this.port = port;
+                this.isHttps = isHttps;
+                this.relaxedHttpsValidation = relaxedHttpsValidation;
+            }
+
+            /**
+             * Parses a {@code host:port} string into a {@link Target} that uses plain HTTP. Use a {@code https://}
+             * prefix (e.g. {@code https://host:port}) for a HTTPS host with full certificate validation.
+             */
+            public static @NotNull Target parse(@NotNull String hostAndPort) {
+                boolean isHttps = false;
+                String remaining = hostAndPort.trim();
+                if (remaining.regionMatches(true, 0, "https://", 0, 8)) {
+                    isHttps = true;
+                    remaining = remaining.substring(8);
+                }
+                else if (remaining.regionMatches(true, 0, "http://", 0, 7)) {
+                    remaining = remaining.substring(7);
+                }
+
+                int portSeparatorIndex = remaining.lastIndexOf(':');
+                if (portSeparatorIndex <= 0 || portSeparatorIndex == remaining.length() - 1) {
+                    throw new IllegalArgumentException(
+                        "Expected a host:port string (optionally prefixed with http:// or https://), but received: "
+                        + hostAndPort
+                    );
+                }
+
+                int port;
+                try {
+                    port = Integer.parseInt(remaining.substring(portSeparatorIndex + 1));
+                }
+                catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException("Invalid port in host:port string: " + hostAndPort, ex);
+                }
+
+                return new Target(remaining.substring(0, portSeparatorIndex), port, isHttps, false);
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (this == o) {
+                    return true;
+                }
+                if (o == null || getClass() != o.getClass()) {
+                    return false;
+                }
+                Target target = (Target) o;
+                return port == target.port
+                       && isHttps == target.isHttps
+                       && relaxedHttpsValidation == target.relaxedHttpsValidation
+                       && host.equals(target.host);
+            }
+
+            @Override
+            public int hashCode() {
+                return Objects.hash(host, port, isHttps, relaxedHttpsValidation);
+            }
+
+            @Override
+            public String toString() {
+                return (isHttps ? "https://" : "http://") + host + ":" + port;
+            }
+        }
+    }
 }
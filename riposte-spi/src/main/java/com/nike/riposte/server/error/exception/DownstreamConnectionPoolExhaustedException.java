@@ -0,0 +1,38 @@
+package com.nike.riposte.server.error.exception;
+
+import com.nike.riposte.server.config.ServerConfig;
+
+/**
+ * This will be thrown when a proxy/router endpoint can't get a connection to the downstream service because the
+ * bounded connection pool for that downstream host is exhausted (see {@link
+ * ServerConfig#proxyRouterConnectionPoolConfig()}) - either the call waited longer than the acquire timeout for a
+ * connection to free up, or too many calls were already waiting. The server will respond to the caller with a HTTP
+ * status 503. Since this is thrown for every rejected call exactly when the downstream service is struggling, it
+ * doesn't capture a stack trace.
+ */
+public class DownstreamConnectionPoolExhaustedException extends RuntimeException {
+
+    public final String downstreamAddress;
+    public final boolean acquireTimedOut;
+    public final int maxConnections;
+    public final int maxPendingAcquires;
+    public final long acquireTimeoutMillis;
+
+    public DownstreamConnectionPoolExhaustedException(String downstreamAddress, boolean acquireTimedOut,
+                                                      int maxConnections, int maxPendingAcquires,
+                                                      long acquireTimeoutMillis) {
+        super(
+            ((acquireTimedOut)
+             ? "Timed out waiting for a connection to the downstream service. "
+             : "Too many calls already waiting for a connection to the downstream service. ")
+            + "downstream_address=" + downstreamAddress + ", max_connections=" + maxConnections
+            + ", max_pending_acquires=" + maxPendingAcquires + ", acquire_timeout_millis=" + acquireTimeoutMillis,
+            null, false, false
+        );
+        this.downstreamAddress = downstreamAddress;
+        this.acquireTimedOut = acquireTimedOut;
+        this.maxConnections = maxConnections;
+        this.maxPendingAcquires = maxPendingAcquires;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
+}
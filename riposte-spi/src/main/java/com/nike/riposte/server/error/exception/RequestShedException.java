@@ -0,0 +1,28 @@
+package com.nike.riposte.server.error.exception;
+
+import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.http.RequestPriority;
+
+/**
+ * This will be thrown when a request is shed because the server is overloaded and the request's {@link
+ * RequestPriority} is one that is being shed at the current load (see {@link ServerConfig#loadSheddingConfig()}). The
+ * server will respond to the caller with a HTTP status 503 and a {@code Retry-After} header. Since this is thrown for
+ * every shed request exactly when the server can least afford extra work, it doesn't capture a stack trace.
+ */
+public class RequestShedException extends RuntimeException {
+
+    public final RequestPriority priority;
+    public final double load;
+    public final double loadSheddingThreshold;
+    public final long retryAfterSeconds;
+
+    public RequestShedException(RequestPriority priority, double load, double loadSheddingThreshold,
+                                long retryAfterSeconds) {
+        super("Request shed because the server is overloaded. request_priority=" + priority + ", load=" + load
+              + ", load_shedding_threshold=" + loadSheddingThreshold, null, false, false);
+        this.priority = priority;
+        this.load = load;
+        this.loadSheddingThreshold = loadSheddingThreshold;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,24 @@
+package com.nike.riposte.server.error.exception;
+
+import com.nike.riposte.server.config.ServerConfig;
+
+/**
+ * This will be thrown when a request is rejected because its endpoint already has as many requests in flight as its
+ * adaptive concurrency limit allows (see {@link ServerConfig#concurrencyLimitConfig()}). The server will respond to
+ * the caller with a HTTP status 503 right away rather than letting the request queue up behind the ones already in
+ * flight.
+ */
+public class TooManyConcurrentRequestsException extends RuntimeException {
+
+    public final String limiterName;
+    public final int concurrencyLimit;
+    public final int inFlightRequests;
+
+    public TooManyConcurrentRequestsException(String limiterName, int concurrencyLimit, int inFlightRequests) {
+        super("Request rejected because too many requests are already in flight. limiter_name=" + limiterName
+              + ", concurrency_limit=" + concurrencyLimit + ", in_flight_requests=" + inFlightRequests);
+        this.limiterName = limiterName;
+        this.concurrencyLimit = concurrencyLimit;
+        this.inFlightRequests = inFlightRequests;
+    }
+}
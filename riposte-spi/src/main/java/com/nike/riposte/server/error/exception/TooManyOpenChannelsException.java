@@ -3,10 +3,11 @@ package com.nike.riposte.server.error.exception;
 import com.nike.riposte.server.config.ServerConfig;
 
 /**
- * This will be thrown when the server detects too many channels are open (based on {@link
- * ServerConfig#maxOpenIncomingServerChannels()}). See the javadocs for {@link
- * ServerConfig#maxOpenIncomingServerChannels()} for more information on when this exception should be thrown and how
- * the server handles it.
+ * Indicates too many channels are open (based on {@link ServerConfig#maxOpenIncomingServerChannels()}). The server no
+ * longer throws this itself - channels over the limit are now closed as soon as they are accepted, before any request
+ * is read from them (see {@link ServerConfig#maxOpenIncomingServerChannels()}). It is kept so that custom handlers
+ * that want to reject a request for this reason can still throw it and get the standard HTTP status 503 error
+ * response.
  *
  * @author Nic Munroe
  */
@@ -0,0 +1,28 @@
+package com.nike.riposte.server.error.exception;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * This will be thrown when a bounded task executor (e.g. the default {@link
+ * com.nike.riposte.server.config.ServerConfig#longRunningTaskExecutor()}) rejects a task because all of its threads
+ * are busy and its queue is full. The server will respond to the caller with a HTTP status 503 and a {@code
+ * Retry-After} header telling the caller when it's reasonable to try again. This extends {@link
+ * RejectedExecutionException} so that existing code that handles executor rejections continues to work.
+ */
+public class TooManyPendingTasksException extends RejectedExecutionException {
+
+    public final String executorName;
+    public final int maxThreads;
+    public final int maxQueueSize;
+    public final long retryAfterSeconds;
+
+    public TooManyPendingTasksException(String executorName, int maxThreads, int maxQueueSize,
+                                        long retryAfterSeconds) {
+        super("Task rejected because the executor is saturated. executor_name=" + executorName + ", max_threads="
+              + maxThreads + ", max_queue_size=" + maxQueueSize);
+        this.executorName = executorName;
+        this.maxThreads = maxThreads;
+        this.maxQueueSize = maxQueueSize;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
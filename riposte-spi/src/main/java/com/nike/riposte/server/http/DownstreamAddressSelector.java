@@ -0,0 +1,52 @@
+package com.nike.riposte.server.http;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+/**
+ * Picks which IP address to call when a proxy/router downstream hostname resolves to more than one - see {@link
+ * com.nike.riposte.server.config.ServerConfig#proxyRouterDownstreamAddressSelector()} for setting one for all
+ * proxy/router endpoints, and {@code ProxyRouterEndpoint.DownstreamRequestFirstChunkInfo#withDownstreamAddressSelector(
+ * DownstreamAddressSelector)} for setting one per downstream call.
+ *
+ * <p>Implementations are called for every downstream call on the thread starting the call, so they must be
+ * thread safe and fast, and must never block. Round robin, least outstanding requests, and power of two choices
+ * implementations live in the {@code com.nike.riposte.client.asynchttp.netty} package of {@code riposte-core}.
+ */
+@FunctionalInterface
+public interface DownstreamAddressSelector {
+
+    /**
+     * @param hostname The downstream hostname that was resolved.
+     * @param addresses The IP addresses (with the downstream port) the hostname resolved to. Will never be empty.
+     * @param stats The per-address stats for the calls this server has made to the given addresses.
+     * @return The address to call - must be one of the given addresses.
+     */
+    @NotNull InetSocketAddress select(
+        @NotNull String hostname,
+        @NotNull List<@NotNull InetSocketAddress> addresses,
+        @NotNull AddressStats stats
+    );
+
+    /**
+     * Stats for each downstream IP address and port, gathered from the connections acquired from and released back to
+     * the proxy/router connection pools.
+     */
+    interface AddressStats {
+
+        /**
+         * @return The number of calls to the given address that are currently in flight - waiting on a connection, or
+         * holding one. Returns 0 for addresses that have never been called.
+         */
+        int getOutstandingRequests(@NotNull InetSocketAddress address);
+
+        /**
+         * @return The exponentially weighted moving average of how long calls to the given address took in
+         * milliseconds, or 0 for addresses that have never been called. The average decays toward 0 while the address
+         * isn't being called, so an address that was slow a while ago is eventually tried again.
+         */
+        double getLatencyEwmaMillis(@NotNull InetSocketAddress address);
+    }
+}
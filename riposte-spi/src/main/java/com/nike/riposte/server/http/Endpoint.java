@@ -148,6 +148,30 @@ public interface Endpoint<I> {
         return null;
     }
 
+    /**
+     * @return The adaptive concurrency limit config you want for this specific endpoint, or null if you want to use the
+     * app-wide config returned by {@link ServerConfig#concurrencyLimitConfig()}. Return {@link
+     * ServerConfig.ConcurrencyLimitConfig#DISABLED} to turn concurrency limiting off for this endpoint even when it's
+     * enabled app-wide. Each endpoint gets its own limiter either way, so a slow endpoint only sheds its own load.
+     * Streaming, server-sent event, and WebSocket endpoints ignore the app-wide config since they hold their permit
+     * for the life of the stream - they're only limited if they return a non-null override here.
+     */
+    default @Nullable ServerConfig.ConcurrencyLimitConfig concurrencyLimitConfigOverride() {
+        // Return null by default so that the app-wide concurrency limit config will be used unless you override this
+        //      method.
+        return null;
+    }
+
+    /**
+     * @return The priority of requests to this endpoint when the server is overloaded and has to shed load - lower
+     * priorities are shed first. See {@link ServerConfig#loadSheddingConfig()}. Defaults to {@link
+     * RequestPriority#NORMAL}. Individual requests can be reclassified via {@link
+     * ServerConfig.LoadSheddingConfig#classifyRequest(RequestInfo, Endpoint)}.
+     */
+    default @NotNull RequestPriority requestPriority() {
+        return RequestPriority.NORMAL;
+    }
+
     /**
      * @return true if this endpoint should automatically decompress gzip/deflate encoded payloads (when the
      * Content-Encoding header is "gzip" or "deflate"), false if the endpoint should pass compressed payloads on to the
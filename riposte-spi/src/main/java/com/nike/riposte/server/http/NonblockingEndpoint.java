@@ -128,4 +128,33 @@ public interface NonblockingEndpoint<I, O> extends Endpoint<I> {
     ) {
         return null;
     }
+
+    /**
+     * Whether this endpoint's work is entirely non-blocking and should be kept on the channel's Netty event loop. When
+     * this returns true Riposte will execute this endpoint on the channel's event loop even if asynchronous request
+     * validation finished on a different thread, and will handle the completion of the returned {@link
+     * CompletableFuture} on the event loop. If the future is completed on the event loop (e.g. it was already complete
+     * when returned, or it was composed using {@code com.nike.riposte.util.AsyncNettyHelper#eventLoopExecutor(
+     * ChannelHandlerContext)}) then the response is sent without any thread handoffs at all, and if it was completed
+     * on some other thread then there is exactly one handoff back to the event loop.
+     * <p/>
+     * <b>Only return true if you never block or do expensive work in the endpoint or its future's callbacks</b> - any
+     * blocking will stall every other channel sharing the event loop. Defaults to false.
+     *
+     * @return true if this endpoint's completion should be handled on the channel's event loop, false to handle it on
+     * whatever thread completes the returned future.
+     */
+    default boolean isEventLoopAffine() {
+        return false;
+    }
+
+    /**
+     * @return The single-flight request coalescing config for this endpoint, or null if every request should execute
+     * the endpoint itself. When this returns non-null, concurrent identical requests share a single execution of this
+     * endpoint - see {@link RequestCoalescingConfig} for details and caveats. Defaults to null (coalescing is
+     * opt-in).
+     */
+    default @Nullable RequestCoalescingConfig requestCoalescingConfig() {
+        return null;
+    }
 }
@@ -0,0 +1,59 @@
+package com.nike.riposte.server.http;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+
+/**
+ * Config for single-flight request coalescing - see {@link NonblockingEndpoint#requestCoalescingConfig()}. When an
+ * endpoint has coalescing turned on, concurrent requests that are identical (same endpoint, method, path, query
+ * string, and values for the {@link #keyHeaderNames()} headers) share a single execution of the endpoint. The first
+ * request executes the endpoint, and the others wait for its result instead of executing the endpoint again. Each
+ * waiting request gets its own copy of the response.
+ *
+ * <p><b>Only turn this on for endpoints where identical requests get identical responses</b> - e.g. reads that don't
+ * depend on who is asking (beyond what's in the {@link #keyHeaderNames()} headers) and don't have side effects.
+ */
+public interface RequestCoalescingConfig {
+
+    /**
+     * Statically accessible implementation of the {@link RequestCoalescingConfig} interface that returns the default
+     * values.
+     */
+    @NotNull RequestCoalescingConfig DEFAULT_IMPL = new RequestCoalescingConfig() {};
+
+    /**
+     * The header names returned by the default {@link #keyHeaderNames()}.
+     */
+    @NotNull Collection<String> DEFAULT_KEY_HEADER_NAMES = Collections.unmodifiableList(Arrays.asList(
+        HttpHeaderNames.AUTHORIZATION.toString(), HttpHeaderNames.COOKIE.toString(), HttpHeaderNames.ACCEPT.toString()
+    ));
+
+    /**
+     * Defaults to true for GET requests only.
+     *
+     * @param request The request that is about to execute the endpoint.
+     * @return true if the given request may share its endpoint execution with other identical requests, false if it
+     * should always execute the endpoint itself.
+     */
+    default boolean isCoalescingAllowed(@NotNull RequestInfo<?> request) {
+        return HttpMethod.GET.equals(request.getMethod());
+    }
+
+    /**
+     * The names of the request headers whose values are part of the coalescing key, i.e. requests are only coalesced
+     * if they have the same values for all of these headers. Defaults to {@code Authorization}, {@code Cookie}, and
+     * {@code Accept} so that responses are never shared across callers or content types. If your endpoint's response
+     * depends on any other header then add it here.
+     *
+     * @return The names of the request headers that are part of the coalescing key.
+     */
+    default @NotNull Collection<String> keyHeaderNames() {
+        return DEFAULT_KEY_HEADER_NAMES;
+    }
+}
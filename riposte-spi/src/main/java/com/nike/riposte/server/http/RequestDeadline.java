@@ -0,0 +1,94 @@
+package com.nike.riposte.server.http;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The point in time after which the caller of a request will have given up waiting for the response, based on the
+ * timeout the caller sent with the request (see {@link
+ * com.nike.riposte.server.config.ServerConfig#requestDeadlineConfig()}). Riposte uses it to shorten the endpoint
+ * timeout, and to shorten the timeout of (and pass the remaining time along to) downstream calls made for the
+ * request. See {@link RequestInfo#getDeadline()}.
+ *
+ * <p>Deadlines are based on {@link System#nanoTime()}, so they aren't affected by wall clock changes.
+ */
+@SuppressWarnings("WeakerAccess")
+public class RequestDeadline {
+
+    protected final long timeoutMillis;
+    protected final long deadlineNanoTime;
+    protected final @Nullable String propagationHeaderName;
+
+    /**
+     * @param timeoutMillis The timeout the caller sent with the request.
+     * @param startNanoTime The {@link System#nanoTime()} when the request started - the timeout is counted from here.
+     * @param propagationHeaderName The name of the header used to pass the remaining time along to downstream calls,
+     * or null if the remaining time shouldn't be passed along (downstream call timeouts are still shortened).
+     */
+    public RequestDeadline(long timeoutMillis, long startNanoTime, @Nullable String propagationHeaderName) {
+        this.timeoutMillis = timeoutMillis;
+        this.deadlineNanoTime = startNanoTime + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.propagationHeaderName = propagationHeaderName;
+    }
+
+    /**
+     * @return The timeout the caller sent with the request.
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * @return The {@link System#nanoTime()} at which the caller gives up.
+     */
+    public long getDeadlineNanoTime() {
+        return deadlineNanoTime;
+    }
+
+    /**
+     * @return The name of the header used to pass the remaining time along to downstream calls, or null if it
+     * shouldn't be passed along.
+     */
+    public @Nullable String getPropagationHeaderName() {
+        return propagationHeaderName;
+    }
+
+    /**
+     * @return The number of milliseconds left before the deadline. This will be zero or negative once the deadline
+     * has passed.
+     */
+    public long remainingMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanoTime - System.nanoTime());
+    }
+
+    /**
+     * @return true if the deadline has passed, i.e. the caller has already given up.
+     */
+    public boolean isExpired() {
+        return deadlineNanoTime - System.nanoTime() <= 0;
+    }
+
+    /**
+     * @return The given timeout, or the time remaining before the deadline if that is shorter. Never less than 1 so
+     * the result can be safely handed to timers and clients where 0 means "no timeout".
+     */
+    public long capTimeoutMillis(long timeoutMillis) {
+        return Math.max(1, Math.min(timeoutMillis, remainingMillis()));
+    }
+
+    /**
+     * @return The value to send in the {@link #getPropagationHeaderName()} header of a downstream call made right now -
+     * the time remaining before the deadline, never less than 1. Every downstream client uses this so the downstream
+     * service sees the same thing no matter which client made the call.
+     */
+    public @NotNull String propagationHeaderValue() {
+        return String.valueOf(Math.max(1, remainingMillis()));
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "RequestDeadline{timeoutMillis=" + timeoutMillis + ", remainingMillis=" + remainingMillis() + "}";
+    }
+}
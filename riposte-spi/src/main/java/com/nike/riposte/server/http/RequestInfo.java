@@ -416,4 +416,24 @@ public interface RequestInfo<T> {
      */
     @NotNull String getPathTemplate();
 
+    /**
+     * @return The deadline the caller sent with this request, or null if the caller didn't send one or deadline
+     * support is disabled (see {@link com.nike.riposte.server.config.ServerConfig#requestDeadlineConfig()}). Use
+     * {@link RequestDeadline#remainingMillis()} to see how much time is left, or {@link
+     * RequestDeadline#capTimeoutMillis(long)} to shorten the timeout for work you start on the request's behalf.
+     * Downstream calls made via Riposte's HTTP clients do this automatically.
+     */
+    default @Nullable RequestDeadline getDeadline() {
+        return null;
+    }
+
+    /**
+     * Sets the deadline for this request. This is called for you by Riposte and should not be called by endpoints.
+     * Implementations that don't support deadlines ignore this, and {@link #getDeadline()} keeps returning null.
+     */
+    default void setDeadline(@Nullable RequestDeadline deadline) {
+        // Do nothing by default so that custom implementations simply don't get deadline support rather than failing
+        //      every request that sends a timeout header.
+    }
+
 }
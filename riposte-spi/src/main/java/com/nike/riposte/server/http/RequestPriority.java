@@ -0,0 +1,44 @@
+package com.nike.riposte.server.http;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * How important a request is when the server is overloaded and has to shed load - see {@link
+ * com.nike.riposte.server.config.ServerConfig#loadSheddingConfig()}. Declared from most to least important, so lower
+ * priorities are shed first as load rises.
+ */
+public enum RequestPriority {
+    /**
+     * Never shed (e.g. checkout, login, health checks).
+     */
+    CRITICAL,
+    HIGH,
+    /**
+     * The default priority for endpoints - see {@link Endpoint#requestPriority()}.
+     */
+    NORMAL,
+    LOW,
+    /**
+     * The first to go under load (e.g. analytics beacons, prefetches).
+     */
+    SHEDDABLE;
+
+    /**
+     * @return The priority with the given name (case insensitive), or null if the name is null or doesn't match any
+     * priority.
+     */
+    public static @Nullable RequestPriority fromString(@Nullable String name) {
+        if (name == null) {
+            return null;
+        }
+
+        String trimmed = name.trim();
+        for (RequestPriority priority : values()) {
+            if (priority.name().equalsIgnoreCase(trimmed)) {
+                return priority;
+            }
+        }
+
+        return null;
+    }
+}
@@ -1,6 +1,7 @@
 package com.nike.riposte.server.http.impl;
 
 import com.nike.riposte.server.error.exception.RequestContentDeserializationException;
+import com.nike.riposte.server.http.RequestDeadline;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.util.HttpUtils;
 
@@ -79,6 +80,8 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
 
     protected boolean contentChunksWillBeReleasedExternally = false;
 
+    protected volatile @Nullable RequestDeadline deadline;
+
     public RequestInfoImpl(
         @Nullable String uri,
         @Nullable HttpMethod method,
@@ -557,4 +560,20 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
         return this.pathTemplate == null ? "" : this.pathTemplate;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @Nullable RequestDeadline getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setDeadline(@Nullable RequestDeadline deadline) {
+        this.deadline = deadline;
+    }
+
 }
@@ -1,10 +1,107 @@
 package com.nike.riposte.server.metrics;
 
 /**
- * Server metric events.
+ * Server metric events. The request lifecycle events ({@link #REQUEST_RECEIVED}, {@link #RESPONSE_SENT}, and {@link
+ * #RESPONSE_WRITE_FAILED}) are always sent to the {@code com.nike.riposte.metrics.MetricsListener} with a {@code
+ * HttpProcessingState} (or null) value. Every other event has its own value type (see the docs for each event), and is
+ * only sent to listeners that opt in to it via {@code MetricsListener#isInterestedIn(ServerMetricsEvent)}.
  */
 public enum ServerMetricsEvent {
     REQUEST_RECEIVED, RESPONSE_SENT,
     // TODO: This should be removed (see todos in ChannelPipelineFinalizerHandler)
-    RESPONSE_WRITE_FAILED
+    RESPONSE_WRITE_FAILED,
+    /**
+     * Fired when adaptive response compression changes the compression levels in use (and once at startup). The
+     * value is a {@code com.nike.riposte.server.handler.compression.ResponseCompressionLevels} rather than a {@code
+     * HttpProcessingState}.
+     */
+    RESPONSE_COMPRESSION_LEVELS_CHANGED,
+    /**
+     * Fired by Riposte's bounded task executors (e.g. the default {@code longRunningTaskExecutor}) when a task is
+     * pulled off the queue and starts running. The value is a {@code com.nike.riposte.util.ExecutorTaskMetrics}
+     * rather than a {@code HttpProcessingState}, and contains the time the task spent waiting in the queue.
+     */
+    EXECUTOR_TASK_STARTED,
+    /**
+     * Fired by Riposte's bounded task executors when a task is rejected because all threads are busy and the queue is
+     * full. The value is a {@code com.nike.riposte.util.ExecutorTaskMetrics} rather than a {@code
+     * HttpProcessingState}.
+     */
+    EXECUTOR_TASK_REJECTED,
+    /**
+     * Fired by an adaptive concurrency limiter when it is created and whenever its limit changes (see {@code
+     * ServerConfig#concurrencyLimitConfig()}). The value is a {@code
+     * com.nike.riposte.server.handler.concurrencylimit.AdaptiveConcurrencyLimiter} rather than a {@code
+     * HttpProcessingState}.
+     */
+    CONCURRENCY_LIMIT_CHANGED,
+    /**
+     * Fired by an adaptive concurrency limiter when it rejects a request because the limit has been reached. The
+     * value is a {@code com.nike.riposte.server.handler.concurrencylimit.AdaptiveConcurrencyLimiter} rather than a
+     * {@code HttpProcessingState}.
+     */
+    CONCURRENCY_LIMIT_REQUEST_REJECTED,
+    /**
+     * Fired when a request is shed by priority-aware load shedding (see {@code ServerConfig#loadSheddingConfig()}).
+     * The value is the {@code com.nike.riposte.server.http.RequestPriority} of the shed request rather than a {@code
+     * HttpProcessingState}.
+     */
+    REQUEST_SHED,
+    /**
+     * Fired when a request is coalesced into an identical in-flight request instead of executing its endpoint (see
+     * {@code com.nike.riposte.server.http.NonblockingEndpoint#requestCoalescingConfig()}). The value is the {@code
+     * com.nike.riposte.server.http.Endpoint} the request was for rather than a {@code HttpProcessingState}.
+     */
+    REQUEST_COALESCED,
+    /**
+     * Fired by a bounded proxy/router downstream connection pool (see {@code
+     * ServerConfig#proxyRouterConnectionPoolConfig()}) when a call gets a connection. The value is a {@code
+     * com.nike.riposte.client.asynchttp.netty.ChannelPoolAcquireMetrics} rather than a {@code HttpProcessingState},
+     * and contains how long the call waited for the connection.
+     */
+    PROXY_ROUTER_CONNECTION_ACQUIRED,
+    /**
+     * Fired by a bounded proxy/router downstream connection pool when a call is rejected because the pool is
+     * exhausted. The value is a {@code com.nike.riposte.client.asynchttp.netty.ChannelPoolAcquireMetrics} rather than
+     * a {@code HttpProcessingState}.
+     */
+    PROXY_ROUTER_CONNECTION_ACQUIRE_REJECTED,
+    /**
+     * Fired when a {@code com.nike.riposte.server.http.DownstreamAddressSelector} picks the IP address for a
+     * proxy/router downstream call (see {@code ServerConfig#proxyRouterDownstreamAddressSelector()}). The value is a
+     * {@code com.nike.riposte.client.asynchttp.netty.DownstreamAddressSelectionMetrics} rather than a {@code
+     * HttpProcessingState}, and contains the hostname, the picked address, and the per-address stats.
+     */
+    PROXY_ROUTER_DOWNSTREAM_ADDRESS_SELECTED,
+    /**
+     * Fired when a proxy/router downstream connection is closed because it reached its max age (see {@code
+     * ServerConfig#proxyRouterConnectionMaxAgeConfig()}). The value is a {@code
+     * com.nike.riposte.client.asynchttp.netty.DownstreamConnectionRetirementMetrics} rather than a {@code
+     * HttpProcessingState}, and contains the connection's pool and age.
+     */
+    PROXY_ROUTER_CONNECTION_RETIRED,
+    /**
+     * Fired when a proxy/router downstream call sends a hedged request or a connect retry, when a hedged request wins
+     * the race against the original, and when one is skipped because the downstream host's budget ran out (see {@code
+     * ServerConfig#proxyRouterRetryBudgetConfig()}). The value is a {@code
+     * com.nike.riposte.client.asynchttp.netty.DownstreamExtraAttemptMetrics} rather than a {@code
+     * HttpProcessingState}, and contains the hostname, the kind of attempt, and what happened to it.
+     */
+    PROXY_ROUTER_DOWNSTREAM_EXTRA_ATTEMPT,
+    /**
+     * Fired when a proxy/router downstream IP address is detected as an outlier (see {@code
+     * ServerConfig#proxyRouterOutlierDetectionConfig()}), whether it was ejected or was left in rotation because too
+     * many of the host's IP addresses were already ejected. The value is a {@code
+     * com.nike.riposte.client.asynchttp.netty.DownstreamOutlierEjectionMetrics} rather than a {@code
+     * HttpProcessingState}, and contains the hostname, the IP address, why it was detected, and what happened to it.
+     */
+    PROXY_ROUTER_DOWNSTREAM_OUTLIER_DETECTED;
+
+    /**
+     * @return true if this is one of the request lifecycle events ({@link #REQUEST_RECEIVED}, {@link #RESPONSE_SENT},
+     * or {@link #RESPONSE_WRITE_FAILED}) whose value is a {@code HttpProcessingState} (or null), false otherwise.
+     */
+    public boolean isRequestLifecycleEvent() {
+        return this == REQUEST_RECEIVED || this == RESPONSE_SENT || this == RESPONSE_WRITE_FAILED;
+    }
 }
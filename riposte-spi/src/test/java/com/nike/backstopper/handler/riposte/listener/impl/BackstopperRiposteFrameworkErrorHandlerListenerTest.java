@@ -12,6 +12,7 @@ import com.nike.fastbreak.exception.CircuitBreakerOpenException;
 import com.nike.fastbreak.exception.CircuitBreakerTimeoutException;
 import com.nike.internal.util.Pair;
 import com.nike.riposte.server.error.exception.DownstreamChannelClosedUnexpectedlyException;
+import com.nike.riposte.server.error.exception.DownstreamConnectionPoolExhaustedException;
 import com.nike.riposte.server.error.exception.DownstreamIdleChannelTimeoutException;
 import com.nike.riposte.server.error.exception.Forbidden403Exception;
 import com.nike.riposte.server.error.exception.HostnameResolutionException;
@@ -26,10 +27,14 @@ import com.nike.riposte.server.error.exception.NonblockingEndpointCompletableFut
 import com.nike.riposte.server.error.exception.PathNotFound404Exception;
 import com.nike.riposte.server.error.exception.PathParameterMatchingException;
 import com.nike.riposte.server.error.exception.RequestContentDeserializationException;
+import com.nike.riposte.server.error.exception.RequestShedException;
 import com.nike.riposte.server.error.exception.RequestTooBigException;
+import com.nike.riposte.server.error.exception.TooManyConcurrentRequestsException;
 import com.nike.riposte.server.error.exception.TooManyOpenChannelsException;
+import com.nike.riposte.server.error.exception.TooManyPendingTasksException;
 import com.nike.riposte.server.error.exception.Unauthorized401Exception;
 import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.RequestPriority;
 import com.nike.riposte.server.http.impl.RequestInfoImpl;
 
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -271,6 +276,92 @@ public class BackstopperRiposteFrameworkErrorHandlerListenerTest {
         verifyExceptionHandled(new TooManyOpenChannelsException(43, 42), singletonError(testProjectApiErrors.getTemporaryServiceProblemApiError()));
     }
 
+    @Test
+    public void should_handle_RequestShedException_with_Retry_After_header() {
+        // given
+        RequestShedException ex = new RequestShedException(RequestPriority.LOW, 0.75, 0.7, 2);
+
+        // when
+        ApiExceptionHandlerListenerResult result = listener.shouldHandleException(ex);
+
+        // then
+        assertThat(result.shouldHandleResponse).isTrue();
+        assertThat(result.errors).isEqualTo(singletonError(testProjectApiErrors.getTemporaryServiceProblemApiError()));
+        assertThat(result.extraDetailsForLogging).containsExactly(
+            Pair.of("shed_request_priority", "LOW"),
+            Pair.of("shed_load", "0.75"),
+            Pair.of("shed_load_threshold", "0.7")
+        );
+        assertThat(result.extraResponseHeaders).containsExactly(
+            Pair.of("Retry-After", Collections.singletonList("2"))
+        );
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void should_handle_DownstreamConnectionPoolExhaustedException(boolean acquireTimedOut) {
+        // given
+        DownstreamConnectionPoolExhaustedException ex = new DownstreamConnectionPoolExhaustedException(
+            "10.1.2.3:8080", acquireTimedOut, 50, 100, 1000
+        );
+
+        // when
+        ApiExceptionHandlerListenerResult result = listener.shouldHandleException(ex);
+
+        // then
+        assertThat(result.shouldHandleResponse).isTrue();
+        assertThat(result.errors).isEqualTo(singletonError(testProjectApiErrors.getTemporaryServiceProblemApiError()));
+        assertThat(result.extraDetailsForLogging).containsExactly(
+            Pair.of("downstream_address", "10.1.2.3:8080"),
+            Pair.of("downstream_connection_acquire_timed_out", String.valueOf(acquireTimedOut)),
+            Pair.of("downstream_max_connections", "50"),
+            Pair.of("downstream_max_pending_acquires", "100")
+        );
+        assertThat(ex.getStackTrace()).isEmpty();
+    }
+
+    @Test
+    public void should_handle_TooManyConcurrentRequestsException() {
+        // given
+        TooManyConcurrentRequestsException ex = new TooManyConcurrentRequestsException("someLimiter", 20, 21);
+
+        // when
+        ApiExceptionHandlerListenerResult result = listener.shouldHandleException(ex);
+
+        // then
+        assertThat(result.shouldHandleResponse).isTrue();
+        assertThat(result.errors).isEqualTo(singletonError(testProjectApiErrors.getTemporaryServiceProblemApiError()));
+        assertThat(result.extraDetailsForLogging).containsExactly(
+            Pair.of("concurrency_limiter_name", "someLimiter"),
+            Pair.of("concurrency_limit", "20"),
+            Pair.of("concurrency_limit_in_flight_requests", "21")
+        );
+    }
+
+    @Test
+    public void should_handle_TooManyPendingTasksException_with_Retry_After_header() {
+        // given
+        TooManyPendingTasksException ex = new TooManyPendingTasksException("someExecutor", 4, 42, 3);
+
+        // when
+        ApiExceptionHandlerListenerResult result = listener.shouldHandleException(ex);
+
+        // then
+        assertThat(result.shouldHandleResponse).isTrue();
+        assertThat(result.errors).isEqualTo(singletonError(testProjectApiErrors.getTemporaryServiceProblemApiError()));
+        assertThat(result.extraDetailsForLogging).containsExactly(
+            Pair.of("executor_name", "someExecutor"),
+            Pair.of("executor_max_threads", "4"),
+            Pair.of("executor_max_queue_size", "42")
+        );
+        assertThat(result.extraResponseHeaders).containsExactly(
+            Pair.of("Retry-After", Collections.singletonList("3"))
+        );
+    }
+
     @Test
     public void shouldHandleErrorDataDecoderException() {
         verifyExceptionHandled(new ErrorDataDecoderException(), singletonError(testProjectApiErrors.getMalformedRequestApiError()));
@@ -0,0 +1,29 @@
+package com.nike.riposte.metrics;
+
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the default method functionality of {@link MetricsListener}.
+ */
+public class MetricsListenerTest {
+
+    @Test
+    public void isInterestedIn_defaults_to_true_only_for_request_lifecycle_events() {
+        // given
+        MetricsListener listener = (event, value) -> { };
+
+        for (ServerMetricsEvent event : ServerMetricsEvent.values()) {
+            boolean expectedResult = event == ServerMetricsEvent.REQUEST_RECEIVED
+                                     || event == ServerMetricsEvent.RESPONSE_SENT
+                                     || event == ServerMetricsEvent.RESPONSE_WRITE_FAILED;
+
+            // expect
+            assertThat(event.isRequestLifecycleEvent()).isEqualTo(expectedResult);
+            assertThat(listener.isInterestedIn(event)).isEqualTo(expectedResult);
+        }
+    }
+}
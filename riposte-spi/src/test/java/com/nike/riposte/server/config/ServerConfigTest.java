@@ -1,20 +1,42 @@
 package com.nike.riposte.server.config;
 
+import com.nike.riposte.server.config.ServerConfig.LoadSheddingConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionMaxAgeConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionPoolConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionPrewarmConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionPrewarmConfig.Target;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterDnsResolverConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterOutlierDetectionConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterRetryBudgetConfig;
+import com.nike.riposte.server.config.ServerConfig.RequestDeadlineConfig;
 import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.RequestPriority;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
 
 import org.jetbrains.annotations.NotNull;
 import org.junit.Test;
+import org.junit.runner.RunWith;
 
 import java.security.cert.CertificateException;
 import java.util.Collection;
 
 import javax.net.ssl.SSLException;
 
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 
 /**
  * Tests the default functionality of {@link com.nike.riposte.server.config.ServerConfig}
  */
+@RunWith(DataProviderRunner.class)
 public class ServerConfigTest {
 
     @Test
@@ -36,6 +58,8 @@ public class ServerConfigTest {
         assertThat(defaultImpl.defaultRequestContentDeserializer()).isNull();
         assertThat(defaultImpl.defaultResponseContentSerializer()).isNull();
         assertThat(defaultImpl.longRunningTaskExecutor()).isNull();
+        assertThat(defaultImpl.requestContentValidationExecutor()).isNull();
+        assertThat(defaultImpl.securityValidationExecutor()).isNull();
         assertThat(defaultImpl.metricsListener()).isNull();
         assertThat(defaultImpl.accessLogger()).isNull();
         assertThat(defaultImpl.postServerStartupHooks()).isNull();
@@ -47,6 +71,9 @@ public class ServerConfigTest {
         assertThat(defaultImpl.numWorkerThreads()).isEqualTo((0));
         assertThat(defaultImpl.maxRequestSizeInBytes()).isEqualTo((0));
         assertThat(defaultImpl.responseCompressionThresholdBytes()).isEqualTo((500));
+        assertThat(defaultImpl.responseCompressionConfig()).isNull();
+        assertThat(defaultImpl.flushConsolidationMaxPendingFlushes()).isEqualTo((0));
+        assertThat(defaultImpl.proxyRouterFlushConsolidationMaxPendingFlushes()).isEqualTo((0));
         assertThat(defaultImpl.createSslContext()).isNotNull();
         assertThat(defaultImpl.errorResponseBodySerializer()).isNull();
         assertThat(defaultImpl.requestContentValidationService()).isNull();
@@ -60,10 +87,207 @@ public class ServerConfigTest {
         assertThat(defaultImpl.proxyRouterConnectTimeoutMillis()).isEqualTo((10000L));
         assertThat(defaultImpl.incompleteHttpCallTimeoutMillis()).isEqualTo((5000L));
         assertThat(defaultImpl.maxOpenIncomingServerChannels()).isEqualTo((20000));
+        assertThat(defaultImpl.maxOpenIncomingServerChannelsPerIpAddress()).isEqualTo((-1));
+        assertThat(defaultImpl.concurrencyLimitConfig()).isNull();
+        assertThat(defaultImpl.loadSheddingConfig()).isNull();
+        assertThat(defaultImpl.requestDeadlineConfig()).isNull();
+        assertThat(defaultImpl.proxyRouterConnectionPoolConfig()).isNull();
+        assertThat(defaultImpl.proxyRouterDnsResolverConfig()).isNull();
+        assertThat(defaultImpl.proxyRouterDownstreamAddressSelector()).isNull();
+        assertThat(defaultImpl.isProxyRouterWorkerEventLoopSharingEnabled()).isFalse();
+        assertThat(defaultImpl.proxyRouterConnectionMaxAgeConfig()).isNull();
+        assertThat(defaultImpl.proxyRouterRetryBudgetConfig()).isSameAs(ProxyRouterRetryBudgetConfig.DEFAULT_IMPL);
+        assertThat(defaultImpl.proxyRouterOutlierDetectionConfig()).isNull();
+        assertThat(defaultImpl.proxyRouterConnectionPrewarmConfig()).isNull();
         assertThat(defaultImpl.pipelineCreateHooks()).isNull();
         assertThat(defaultImpl.customChannelInitializer()).isNull();
         assertThat(defaultImpl.requestSecurityValidator()).isNull();
         assertThat(defaultImpl.distributedTracingConfig()).isNull();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void LoadSheddingConfig_default_method_implementations_return_expected_values() {
+        // given
+        LoadSheddingConfig defaultImpl = LoadSheddingConfig.DEFAULT_IMPL;
+
+        // expect
+        assertThat(defaultImpl.priorityHeaderName()).isNull();
+        assertThat(defaultImpl.loadSignal()).isNull();
+        assertThat(defaultImpl.loadSampleIntervalMillis()).isEqualTo(100);
+        assertThat(defaultImpl.eventLoopLagMillisAtFullLoad()).isEqualTo(100);
+        assertThat(defaultImpl.maxInFlightRequestsAtFullLoad()).isEqualTo(0);
+        assertThat(defaultImpl.retryAfterSeconds()).isEqualTo(1);
+        assertThat(defaultImpl.loadSheddingThreshold(RequestPriority.CRITICAL)).isEqualTo(Double.POSITIVE_INFINITY);
+        assertThat(defaultImpl.loadSheddingThreshold(RequestPriority.HIGH)).isEqualTo(0.95);
+        assertThat(defaultImpl.loadSheddingThreshold(RequestPriority.NORMAL)).isEqualTo(0.85);
+        assertThat(defaultImpl.loadSheddingThreshold(RequestPriority.LOW)).isEqualTo(0.7);
+        assertThat(defaultImpl.loadSheddingThreshold(RequestPriority.SHEDDABLE)).isEqualTo(0.5);
+    }
+
+    @Test
+    public void ProxyRouterConnectionPoolConfig_default_method_implementations_return_expected_values() {
+        // given
+        ProxyRouterConnectionPoolConfig defaultImpl = ProxyRouterConnectionPoolConfig.DEFAULT_IMPL;
+
+        // expect
+        assertThat(defaultImpl.maxConnectionsPerHost()).isEqualTo(500);
+        assertThat(defaultImpl.maxPendingAcquiresPerHost()).isEqualTo(1000);
+        assertThat(defaultImpl.acquireTimeoutMillis()).isEqualTo(1000);
+    }
+
+    @Test
+    public void ProxyRouterDnsResolverConfig_default_method_implementations_return_expected_values() {
+        // given
+        ProxyRouterDnsResolverConfig defaultImpl = ProxyRouterDnsResolverConfig.DEFAULT_IMPL;
+
+        // expect
+        assertThat(defaultImpl.queryTimeoutMillis()).isEqualTo(2000);
+        assertThat(defaultImpl.minTtlMillis()).isEqualTo(1000);
+        assertThat(defaultImpl.maxTtlMillis()).isEqualTo(300_000);
+        assertThat(defaultImpl.negativeTtlMillis()).isEqualTo(1000);
+    }
+
+    @Test
+    public void ProxyRouterConnectionMaxAgeConfig_default_method_implementations_return_expected_values() {
+        // given
+        ProxyRouterConnectionMaxAgeConfig defaultImpl = ProxyRouterConnectionMaxAgeConfig.DEFAULT_IMPL;
+
+        // expect
+        assertThat(defaultImpl.maxAgeMillis()).isEqualTo(300_000);
+        assertThat(defaultImpl.maxJitterMillis()).isEqualTo(60_000);
+    }
+
+    @Test
+    public void ProxyRouterRetryBudgetConfig_default_method_implementations_return_expected_values() {
+        // given
+        ProxyRouterRetryBudgetConfig defaultImpl = ProxyRouterRetryBudgetConfig.DEFAULT_IMPL;
+
+        // expect
+        assertThat(defaultImpl.maxHedgedAttemptsPercent()).isEqualTo(10);
+        assertThat(defaultImpl.maxConnectRetriesPercent()).isEqualTo(10);
+        assertThat(defaultImpl.maxBurst()).isEqualTo(10);
+    }
+
+    @Test
+    public void ProxyRouterOutlierDetectionConfig_default_method_implementations_return_expected_values() {
+        // given
+        ProxyRouterOutlierDetectionConfig defaultImpl = ProxyRouterOutlierDetectionConfig.DEFAULT_IMPL;
+
+        // expect
+        assertThat(defaultImpl.consecutiveFailures()).isEqualTo(5);
+        assertThat(defaultImpl.latencyOutlierFactor()).isEqualTo(3);
+        assertThat(defaultImpl.latencyOutlierMinDeviationMillis()).isEqualTo(100);
+        assertThat(defaultImpl.latencyOutlierMinRequests()).isEqualTo(20);
+        assertThat(defaultImpl.baseEjectionTimeMillis()).isEqualTo(30_000);
+        assertThat(defaultImpl.maxEjectionTimeMillis()).isEqualTo(300_000);
+        assertThat(defaultImpl.maxEjectionPercent()).isEqualTo(50);
+    }
+
+    @Test
+    public void ProxyRouterConnectionPrewarmConfig_default_method_implementations_return_expected_values() {
+        // given
+        ProxyRouterConnectionPrewarmConfig defaultImpl = ProxyRouterConnectionPrewarmConfig.DEFAULT_IMPL;
+
+        // expect
+        assertThat(defaultImpl.targets()).isEmpty();
+        assertThat(defaultImpl.includeSimpleProxyRouterEndpoints()).isTrue();
+        assertThat(defaultImpl.connectionsPerHost()).isEqualTo(4);
+        assertThat(defaultImpl.startupTimeoutMillis()).isEqualTo(10_000);
+        assertThat(defaultImpl.minIdleConnectionsPerHost()).isEqualTo(0);
+        assertThat(defaultImpl.minIdleCheckIntervalMillis()).isEqualTo(2000);
+    }
+
+    @DataProvider(value = {
+        "foo.com:8080           |   foo.com     |   8080    |   false",
+        " http://foo.com:80     |   foo.com     |   80      |   false",
+        "https://foo.com:443    |   foo.com     |   443     |   true",
+        "HTTPS://127.0.0.1:8443 |   127.0.0.1   |   8443    |   true",
+    }, splitBy = "\\|")
+    @Test
+    public void ProxyRouterConnectionPrewarmConfig_Target_parse_works_as_expected(
+        String hostAndPort, String expectedHost, int expectedPort, boolean expectedIsHttps
+    ) {
+        // when
+        Target result = Target.parse(hostAndPort);
+
+        // then
+        assertThat(result).isEqualTo(new Target(expectedHost, expectedPort, expectedIsHttps, false));
+        assertThat(result.toString())
+            .isEqualTo((expectedIsHttps ? "https://" : "http://") + expectedHost + ":" + expectedPort);
+    }
+
+    @DataProvider(value = {
+        "foo.com",
+        "foo.com:",
+        ":8080",
+        "foo.com:notaport",
+    })
+    @Test
+    public void ProxyRouterConnectionPrewarmConfig_Target_parse_throws_IllegalArgumentException_for_bad_input(
+        String hostAndPort
+    ) {
+        // when
+        Throwable ex = catchThrowable(() -> Target.parse(hostAndPort));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void RequestDeadlineConfig_default_method_implementations_return_expected_values() {
+        // given
+        RequestDeadlineConfig defaultImpl = RequestDeadlineConfig.DEFAULT_IMPL;
+
+        // expect
+        assertThat(defaultImpl.timeoutHeaderName()).isEqualTo("X-Request-Timeout-Millis");
+        assertThat(defaultImpl.propagatedTimeoutHeaderName()).isEqualTo("X-Request-Timeout-Millis");
+    }
+
+    @DataProvider(value = {
+        "1500       |   1500",
+        " 42        |   42",
+        "0          |   0",
+        "-1         |   null",
+        "1.5s       |   null",
+        "garbage    |   null",
+    }, splitBy = "\\|")
+    @Test
+    public void RequestDeadlineConfig_parseTimeoutMillis_works_as_expected(String headerValue, Long expectedResult) {
+        // expect
+        assertThat(RequestDeadlineConfig.DEFAULT_IMPL.parseTimeoutMillis(headerValue)).isEqualTo(expectedResult);
+    }
+
+    @DataProvider(value = {
+        "null       |   null        |   HIGH",
+        "X-Priority |   null        |   HIGH",
+        "X-Priority |   sheddable   |   SHEDDABLE",
+        "X-Priority |   CRITICAL    |   HIGH",
+        "X-Priority |   garbage     |   HIGH",
+    }, splitBy = "\\|")
+    @Test
+    public void LoadSheddingConfig_classifyRequest_uses_endpoint_priority_and_only_lets_header_lower_it(
+        String headerName, String headerValue, RequestPriority expectedPriority
+    ) {
+        // given
+        LoadSheddingConfig config = new LoadSheddingConfig() {
+            @Override
+            public String priorityHeaderName() {
+                return headerName;
+            }
+        };
+        Endpoint<?> endpointMock = mock(Endpoint.class);
+        doReturn(RequestPriority.HIGH).when(endpointMock).requestPriority();
+        RequestInfo<?> requestMock = mock(RequestInfo.class);
+        HttpHeaders headers = new DefaultHttpHeaders();
+        if (headerValue != null) {
+            headers.set("X-Priority", headerValue);
+        }
+        doReturn(headers).when(requestMock).getHeaders();
+
+        // when
+        RequestPriority result = config.classifyRequest(requestMock, endpointMock);
+
+        // then
+        assertThat(result).isEqualTo(expectedPriority);
+    }
+}
@@ -42,6 +42,8 @@ public class EndpointTest {
         assertThat(defaultImpl.customResponseContentSerializer(null)).isNull();
         assertThat(defaultImpl.requestContentType()).isNull();
         assertThat(defaultImpl.completableFutureTimeoutOverrideMillis()).isNull();
+        assertThat(defaultImpl.concurrencyLimitConfigOverride()).isNull();
+        assertThat(defaultImpl.requestPriority()).isEqualTo(RequestPriority.NORMAL);
         assertThat(defaultImpl.shouldValidateAsynchronously(reqMock)).isEqualTo(shouldValidateAsync);
     }
 
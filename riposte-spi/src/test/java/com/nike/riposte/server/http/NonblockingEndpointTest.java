@@ -10,6 +10,7 @@ import java.util.concurrent.Executor;
 
 import io.netty.channel.ChannelHandlerContext;
 
+import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.Mockito.mock;
@@ -45,6 +46,8 @@ public class NonblockingEndpointTest {
             defaultImpl.getCustomTimeoutExceptionCause(mock(RequestInfo.class), mock(ChannelHandlerContext.class)),
             nullValue()
         );
+        assertThat(defaultImpl.isEventLoopAffine(), is(false));
+        assertThat(defaultImpl.requestCoalescingConfig(), nullValue());
     }
 
 }
\ No newline at end of file
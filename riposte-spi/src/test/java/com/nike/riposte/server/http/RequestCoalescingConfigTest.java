@@ -0,0 +1,45 @@
+package com.nike.riposte.server.http;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import io.netty.handler.codec.http.HttpMethod;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the functionality of {@link RequestCoalescingConfig}.
+ */
+@RunWith(DataProviderRunner.class)
+public class RequestCoalescingConfigTest {
+
+    @DataProvider(value = {
+        "GET        |   true",
+        "HEAD       |   false",
+        "POST       |   false",
+        "PUT        |   false",
+        "DELETE     |   false",
+    }, splitBy = "\\|")
+    @Test
+    public void default_isCoalescingAllowed_only_allows_GET_requests(String method, boolean expected) {
+        // given
+        RequestInfo<?> requestMock = mock(RequestInfo.class);
+        doReturn(HttpMethod.valueOf(method)).when(requestMock).getMethod();
+
+        // expect
+        assertThat(RequestCoalescingConfig.DEFAULT_IMPL.isCoalescingAllowed(requestMock)).isEqualTo(expected);
+    }
+
+    @Test
+    public void default_keyHeaderNames_includes_caller_identity_and_content_type_headers() {
+        // expect
+        assertThat(RequestCoalescingConfig.DEFAULT_IMPL.keyHeaderNames())
+            .isSameAs(RequestCoalescingConfig.DEFAULT_KEY_HEADER_NAMES)
+            .containsExactly("authorization", "cookie", "accept");
+    }
+}
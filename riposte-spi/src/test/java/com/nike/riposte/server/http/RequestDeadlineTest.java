@@ -0,0 +1,95 @@
+package com.nike.riposte.server.http;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link RequestDeadline}.
+ */
+@RunWith(DataProviderRunner.class)
+public class RequestDeadlineTest {
+
+    @DataProvider(value = {
+        "null",
+        "X-Request-Timeout-Millis"
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_sets_fields_as_expected(String propagationHeaderName) {
+        // given
+        long startNanoTime = 42;
+
+        // when
+        RequestDeadline deadline = new RequestDeadline(1500, startNanoTime, propagationHeaderName);
+
+        // then
+        assertThat(deadline.getTimeoutMillis()).isEqualTo(1500);
+        assertThat(deadline.getDeadlineNanoTime()).isEqualTo(startNanoTime + TimeUnit.MILLISECONDS.toNanos(1500));
+        assertThat(deadline.getPropagationHeaderName()).isEqualTo(propagationHeaderName);
+    }
+
+    @Test
+    public void remainingMillis_and_isExpired_work_for_deadline_in_the_future() {
+        // given
+        RequestDeadline deadline = new RequestDeadline(60_000, System.nanoTime(), null);
+
+        // expect
+        assertThat(deadline.isExpired()).isFalse();
+        assertThat(deadline.remainingMillis()).isBetween(50_000L, 60_000L);
+    }
+
+    @Test
+    public void remainingMillis_and_isExpired_work_for_deadline_in_the_past() {
+        // given
+        RequestDeadline deadline =
+            new RequestDeadline(1000, System.nanoTime() - TimeUnit.SECONDS.toNanos(10), null);
+
+        // expect
+        assertThat(deadline.isExpired()).isTrue();
+        assertThat(deadline.remainingMillis()).isLessThanOrEqualTo(-8000L);
+    }
+
+    @Test
+    public void capTimeoutMillis_returns_the_smaller_of_the_given_timeout_and_the_remaining_time() {
+        // given
+        RequestDeadline deadline = new RequestDeadline(60_000, System.nanoTime(), null);
+
+        // expect
+        assertThat(deadline.capTimeoutMillis(500)).isEqualTo(500);
+        assertThat(deadline.capTimeoutMillis(120_000)).isBetween(50_000L, 60_000L);
+    }
+
+    @Test
+    public void capTimeoutMillis_never_returns_less_than_1() {
+        // given
+        RequestDeadline expiredDeadline =
+            new RequestDeadline(1000, System.nanoTime() - TimeUnit.SECONDS.toNanos(10), null);
+
+        // expect
+        assertThat(expiredDeadline.capTimeoutMillis(500)).isEqualTo(1);
+    }
+
+    @Test
+    public void propagationHeaderValue_is_the_remaining_time_and_never_less_than_1() {
+        // given
+        RequestDeadline deadline = new RequestDeadline(60_000, System.nanoTime(), null);
+        RequestDeadline expiredDeadline =
+            new RequestDeadline(1000, System.nanoTime() - TimeUnit.SECONDS.toNanos(10), null);
+
+        // expect
+        assertThat(Long.parseLong(deadline.propagationHeaderValue())).isBetween(50_000L, 60_000L);
+        assertThat(expiredDeadline.propagationHeaderValue()).isEqualTo("1");
+    }
+
+    @Test
+    public void toString_contains_timeout() {
+        // expect
+        assertThat(new RequestDeadline(1234, System.nanoTime(), null).toString()).contains("timeoutMillis=1234");
+    }
+}
@@ -140,6 +140,27 @@ public class RequestInfoTest {
         verify(pathParamsMock).get(key);
     }
 
+    @Test
+    public void default_getDeadline_returns_null() {
+        // given
+        RequestInfo<?> requestInfoSpy = getSpy();
+
+        // expect
+        assertThat(requestInfoSpy.getDeadline(), nullValue());
+    }
+
+    @Test
+    public void default_setDeadline_does_nothing() {
+        // given
+        RequestInfo<?> requestInfoSpy = getSpy();
+
+        // when
+        requestInfoSpy.setDeadline(new RequestDeadline(1000, System.nanoTime(), null));
+
+        // then
+        assertThat(requestInfoSpy.getDeadline(), nullValue());
+    }
+
     private static class RequestInfoForTesting<T> implements RequestInfo<T> {
 
         @Override
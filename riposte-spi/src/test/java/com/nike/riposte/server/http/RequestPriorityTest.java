@@ -0,0 +1,40 @@
+package com.nike.riposte.server.http;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link RequestPriority}.
+ */
+@RunWith(DataProviderRunner.class)
+public class RequestPriorityTest {
+
+    @DataProvider(value = {
+        "CRITICAL       |   CRITICAL",
+        "high           |   HIGH",
+        "  Normal       |   NORMAL",
+        "low            |   LOW",
+        "sheddable      |   SHEDDABLE",
+        "null           |   null",
+        "urgent         |   null",
+    }, splitBy = "\\|")
+    @Test
+    public void fromString_works_as_expected(String name, RequestPriority expected) {
+        // expect
+        assertThat(RequestPriority.fromString(name)).isEqualTo(expected);
+    }
+
+    @Test
+    public void priorities_are_ordered_from_most_to_least_important() {
+        // expect
+        assertThat(RequestPriority.values()).containsExactly(
+            RequestPriority.CRITICAL, RequestPriority.HIGH, RequestPriority.NORMAL, RequestPriority.LOW,
+            RequestPriority.SHEDDABLE
+        );
+    }
+}
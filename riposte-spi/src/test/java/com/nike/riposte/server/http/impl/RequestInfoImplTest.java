@@ -3,6 +3,7 @@ package com.nike.riposte.server.http.impl;
 import com.nike.internal.util.Pair;
 import com.nike.riposte.server.error.exception.PathParameterMatchingException;
 import com.nike.riposte.server.error.exception.RequestContentDeserializationException;
+import com.nike.riposte.server.http.RequestDeadline;
 import com.nike.riposte.server.http.RequestInfo;
 
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -192,6 +193,26 @@ public class RequestInfoImplTest {
         assertThat(requestInfo.isKeepAliveRequested(), is(true));
     }
 
+    @Test
+    public void getDeadline_and_setDeadline_work_as_expected() {
+        // given
+        RequestInfoImpl<?> requestInfo = RequestInfoImpl.dummyInstanceForUnknownRequests();
+        RequestDeadline deadline = new RequestDeadline(1000, System.nanoTime(), "X-Foo");
+        assertThat(requestInfo.getDeadline(), nullValue());
+
+        // when
+        requestInfo.setDeadline(deadline);
+
+        // then
+        assertThat(requestInfo.getDeadline(), sameInstance(deadline));
+
+        // and when
+        requestInfo.setDeadline(null);
+
+        // then
+        assertThat(requestInfo.getDeadline(), nullValue());
+    }
+
     @Test
     public void dummyInstanceForUnknownRequests_creates_instance_with_expected_data() {
         // when